@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.benchmarks;
+
+import com.io7m.jcanephora.core.JCGLArrayBufferUsableType;
+import com.io7m.jcanephora.core.JCGLArrayObjectBuilderType;
+import com.io7m.jcanephora.core.JCGLArrayObjectType;
+import com.io7m.jcanephora.core.JCGLExceptionNonCompliant;
+import com.io7m.jcanephora.core.JCGLExceptionUnsupported;
+import com.io7m.jcanephora.core.JCGLFragmentShaderUsableType;
+import com.io7m.jcanephora.core.JCGLGeometryShaderUsableType;
+import com.io7m.jcanephora.core.JCGLIndexBufferType;
+import com.io7m.jcanephora.core.JCGLProgramAttributeType;
+import com.io7m.jcanephora.core.JCGLProgramShaderUsableType;
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLScalarType;
+import com.io7m.jcanephora.core.JCGLUnsignedType;
+import com.io7m.jcanephora.core.JCGLUsageHint;
+import com.io7m.jcanephora.core.JCGLVertexShaderUsableType;
+import com.io7m.jcanephora.core.api.JCGLArrayObjectsType;
+import com.io7m.jcanephora.core.api.JCGLContextType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.fake.FakeContext;
+import com.io7m.jcanephora.fake.FakeShaderListenerType;
+import com.io7m.jcanephora.fake.JCGLImplementationFake;
+import com.io7m.junreachable.UnimplementedCodeException;
+import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
+import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
+import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleUsableType;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Functions to construct the objects required by benchmarks without
+ * requiring a real OpenGL implementation.
+ */
+
+final class R2BenchmarkFixtures
+{
+  private R2BenchmarkFixtures()
+  {
+    throw new UnimplementedCodeException();
+  }
+
+  /**
+   * @return A fake OpenGL 3.3 interface
+   *
+   * @throws JCGLExceptionUnsupported  If the context cannot be created
+   * @throws JCGLExceptionNonCompliant If the context cannot be created
+   */
+
+  static JCGLInterfaceGL33Type fakeGL()
+    throws JCGLExceptionUnsupported, JCGLExceptionNonCompliant
+  {
+    final JCGLContextType c =
+      JCGLImplementationFake.getInstance().newContext(
+        "main", new NullShaderListener());
+    return c.contextGetGL33();
+  }
+
+  /**
+   * Allocate a trivial array object.
+   *
+   * @param g An OpenGL interface
+   *
+   * @return A new array object
+   */
+
+  static JCGLArrayObjectType arrayObject(
+    final JCGLInterfaceGL33Type g)
+  {
+    final JCGLIndexBufferType ib =
+      g.indexBuffers().indexBufferAllocate(
+        3L,
+        JCGLUnsignedType.TYPE_UNSIGNED_INT,
+        JCGLUsageHint.USAGE_STATIC_DRAW);
+    final JCGLArrayBufferUsableType a =
+      g.arrayBuffers().arrayBufferAllocate(
+        3L * 4L, JCGLUsageHint.USAGE_STATIC_DRAW);
+
+    final JCGLArrayObjectsType g_ao = g.arrayObjects();
+    final JCGLArrayObjectBuilderType aob = g_ao.arrayObjectNewBuilder();
+    aob.setAttributeFloatingPoint(
+      0, a, 3, JCGLScalarType.TYPE_FLOAT, 3 * 4, 0L, false);
+    aob.setIndexBuffer(ib);
+
+    final JCGLArrayObjectType ao = g_ao.arrayObjectAllocate(aob);
+    g_ao.arrayObjectUnbind();
+    return ao;
+  }
+
+  /**
+   * @param id The shader ID
+   *
+   * @return A shader that does nothing
+   */
+
+  static R2ShaderGeometrySingleUsableType<Object> shaderSingle(
+    final long id)
+  {
+    return new NullShaderSingle(id);
+  }
+
+  /**
+   * @param shader The shader
+   * @param id     The material ID
+   *
+   * @return A material using the given shader
+   */
+
+  static R2MaterialOpaqueSingleType<Object> materialSingle(
+    final R2ShaderGeometrySingleUsableType<Object> shader,
+    final long id)
+  {
+    final Object parameters = new Object();
+    return new R2MaterialOpaqueSingleType<Object>()
+    {
+      @Override
+      public long materialID()
+      {
+        return id;
+      }
+
+      @Override
+      public R2ShaderGeometrySingleUsableType<Object> shader()
+      {
+        return shader;
+      }
+
+      @Override
+      public Object shaderParameters()
+      {
+        return parameters;
+      }
+    };
+  }
+
+  private static final class NullShaderSingle
+    implements R2ShaderGeometrySingleUsableType<Object>
+  {
+    private final long id;
+
+    NullShaderSingle(final long in_id)
+    {
+      this.id = in_id;
+    }
+
+    @Override
+    public void onReceiveViewValues(
+      final JCGLInterfaceGL33Type g,
+      final R2ShaderParametersViewType view_parameters)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onReceiveMaterialValues(
+      final JCGLInterfaceGL33Type g,
+      final R2ShaderParametersMaterialType<Object> mat_parameters)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onReceiveInstanceTransformValues(
+      final JCGLInterfaceGL33Type g,
+      final R2MatricesInstanceSingleValuesType m)
+    {
+      // Nothing
+    }
+
+    @Override
+    public Map<String, String> environment()
+    {
+      return Collections.emptyMap();
+    }
+
+    @Override
+    public long shaderID()
+    {
+      return this.id;
+    }
+
+    @Override
+    public Class<Object> shaderParametersType()
+    {
+      return Object.class;
+    }
+
+    @Override
+    public JCGLProgramShaderUsableType shaderProgram()
+    {
+      throw new UnimplementedCodeException();
+    }
+
+    @Override
+    public void onActivate(final JCGLInterfaceGL33Type g)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onValidate()
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onDeactivate(final JCGLInterfaceGL33Type g)
+    {
+      // Nothing
+    }
+
+    @Override
+    public boolean isDeleted()
+    {
+      return false;
+    }
+  }
+
+  private static final class NullShaderListener
+    implements FakeShaderListenerType
+  {
+    NullShaderListener()
+    {
+
+    }
+
+    @Override
+    public void onCompileVertexShaderStart(
+      final FakeContext context,
+      final String name,
+      final List<String> sources)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onCompileFragmentShaderStart(
+      final FakeContext context,
+      final String name,
+      final List<String> sources)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onCompileGeometryShaderStart(
+      final FakeContext context,
+      final String name,
+      final List<String> sources)
+    {
+      // Nothing
+    }
+
+    @Override
+    public void onLinkProgram(
+      final FakeContext context,
+      final JCGLProgramShaderUsableType p,
+      final String name,
+      final JCGLVertexShaderUsableType v,
+      final Optional<JCGLGeometryShaderUsableType> g,
+      final JCGLFragmentShaderUsableType f,
+      final Map<String, JCGLProgramAttributeType> attributes,
+      final Map<String, JCGLProgramUniformType> uniforms)
+    {
+      // Nothing
+    }
+  }
+}
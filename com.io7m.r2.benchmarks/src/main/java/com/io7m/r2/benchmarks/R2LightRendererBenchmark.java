@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.benchmarks;
+
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.rendering.lights.R2LightTileBinning;
+import com.io7m.r2.spaces.R2SpaceClipType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A benchmark that compares the per-frame CPU cost of preparing spherical
+ * lights for the light volume path against the cost of preparing them for
+ * the tiled path.</p>
+ *
+ * <p>The volume path calculates and packs a modelview matrix and a set of
+ * light parameters for each light, each of which is followed by a draw call.
+ * The tiled path assigns all lights to screen tiles and packs the resulting
+ * lists, followed by a single draw call. Neither path submits anything to a
+ * GPU here; the fragment shading costs of the two paths can only be compared
+ * on real hardware.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class R2LightRendererBenchmark
+{
+  private static final int WIDTH = 1280;
+  private static final int HEIGHT = 720;
+  private static final int INDEX_WIDTH = 1024;
+
+  @Param({"64", "256", "1024"})
+  private int light_count;
+
+  private double[] lights;
+  private PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view;
+  private PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> projection;
+  private R2LightTileBinning binning;
+  private FloatBuffer volume_data;
+  private FloatBuffer light_data;
+  private FloatBuffer tile_data;
+  private FloatBuffer index_data;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public R2LightRendererBenchmark()
+  {
+
+  }
+
+  private static FloatBuffer floats(final int count)
+  {
+    return ByteBuffer.allocateDirect(count * 4)
+      .order(ByteOrder.nativeOrder())
+      .asFloatBuffer();
+  }
+
+  /**
+   * Create the lights.
+   */
+
+  @Setup
+  public void setup()
+  {
+    final Random random = new Random(0L);
+
+    this.lights = new double[this.light_count * 4];
+    for (int index = 0; index < this.light_count; ++index) {
+      final int base = index * 4;
+      this.lights[base] = (random.nextDouble() * 64.0) - 32.0;
+      this.lights[base + 1] = (random.nextDouble() * 16.0) - 8.0;
+      this.lights[base + 2] = -(random.nextDouble() * 64.0);
+      this.lights[base + 3] = 1.0 + (random.nextDouble() * 4.0);
+    }
+
+    this.view = PMatrices4x4D.identity();
+
+    /*
+     * A perspective projection with a 90 degree horizontal field of view,
+     * a 16:9 aspect ratio, and near and far planes at 0.1 and 100.
+     */
+
+    final double near = 0.1;
+    final double far = 100.0;
+    this.projection = PMatrix4x4D.of(
+      1.0, 0.0, 0.0, 0.0,
+      0.0, 16.0 / 9.0, 0.0, 0.0,
+      0.0,
+      0.0,
+      -(far + near) / (far - near),
+      -(2.0 * far * near) / (far - near),
+      0.0, 0.0, -1.0, 0.0);
+
+    this.binning = R2LightTileBinning.create(16);
+    this.volume_data = floats(24);
+    this.light_data = floats(this.light_count * 8);
+    this.tile_data = floats(((WIDTH / 16) + 1) * ((HEIGHT / 16) + 1) * 2);
+    this.index_data = floats(INDEX_WIDTH);
+  }
+
+  /**
+   * Prepare all lights for the volume path.
+   *
+   * @return The number of draw calls that would be issued
+   */
+
+  @Benchmark
+  public int volumes()
+  {
+    final double[] l = this.lights;
+    final FloatBuffer out = this.volume_data;
+    int draws = 0;
+
+    for (int index = 0; index < this.light_count; ++index) {
+      final int base = index * 4;
+      final double radius = l[base + 3];
+      final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> model =
+        PMatrix4x4D.of(
+          radius, 0.0, 0.0, l[base],
+          0.0, radius, 0.0, l[base + 1],
+          0.0, 0.0, radius, l[base + 2],
+          0.0, 0.0, 0.0, 1.0);
+      final PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> modelview =
+        PMatrices4x4D.multiply(this.view, model);
+
+      out.put(0, (float) modelview.r0c0());
+      out.put(1, (float) modelview.r1c0());
+      out.put(2, (float) modelview.r2c0());
+      out.put(3, (float) modelview.r3c0());
+      out.put(4, (float) modelview.r0c1());
+      out.put(5, (float) modelview.r1c1());
+      out.put(6, (float) modelview.r2c1());
+      out.put(7, (float) modelview.r3c1());
+      out.put(8, (float) modelview.r0c2());
+      out.put(9, (float) modelview.r1c2());
+      out.put(10, (float) modelview.r2c2());
+      out.put(11, (float) modelview.r3c2());
+      out.put(12, (float) modelview.r0c3());
+      out.put(13, (float) modelview.r1c3());
+      out.put(14, (float) modelview.r2c3());
+      out.put(15, (float) modelview.r3c3());
+      out.put(16, (float) l[base]);
+      out.put(17, (float) l[base + 1]);
+      out.put(18, (float) l[base + 2]);
+      out.put(19, (float) (1.0 / radius));
+      out.put(20, 1.0f);
+      out.put(21, 1.0f);
+      out.put(22, 1.0f);
+      out.put(23, 1.0f);
+      ++draws;
+    }
+    return draws;
+  }
+
+  /**
+   * Prepare all lights for the tiled path.
+   *
+   * @return The number of light indices produced
+   */
+
+  @Benchmark
+  public int tiled()
+  {
+    final double[] l = this.lights;
+    final R2LightTileBinning b = this.binning;
+    final FloatBuffer ld = this.light_data;
+
+    b.reset(WIDTH, HEIGHT);
+    for (int index = 0; index < this.light_count; ++index) {
+      final int base = index * 4;
+      final double x = l[base];
+      final double y = l[base + 1];
+      final double z = l[base + 2];
+      final double radius = l[base + 3];
+      if (b.add(x, y, z, radius, this.projection)) {
+        final int out = (b.lightCount() - 1) * 8;
+        ld.put(out, (float) x);
+        ld.put(out + 1, (float) y);
+        ld.put(out + 2, (float) z);
+        ld.put(out + 3, (float) (1.0 / radius));
+        ld.put(out + 4, 1.0f);
+        ld.put(out + 5, 1.0f);
+        ld.put(out + 6, 1.0f);
+        ld.put(out + 7, 1.0f);
+      }
+    }
+    b.finish();
+
+    final FloatBuffer td = this.tile_data;
+    final int tiles_x = b.tilesX();
+    for (int y = 0; y < b.tilesY(); ++y) {
+      for (int x = 0; x < tiles_x; ++x) {
+        final int out = ((y * tiles_x) + x) * 2;
+        td.put(out, (float) b.tileOffset(x, y));
+        td.put(out + 1, (float) b.tileCount(x, y));
+      }
+    }
+
+    final int count = b.indexCount();
+    if (this.index_data.capacity() < count) {
+      this.index_data = floats(count);
+    }
+
+    final FloatBuffer id = this.index_data;
+    for (int index = 0; index < count; ++index) {
+      id.put(index, (float) b.index(index));
+    }
+    return count;
+  }
+}
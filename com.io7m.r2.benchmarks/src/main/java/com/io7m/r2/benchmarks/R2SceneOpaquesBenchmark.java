@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.benchmarks;
+
+import com.io7m.jcanephora.core.JCGLArrayObjectType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices3x3D;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingle;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.rendering.geometry.R2SceneOpaques;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesConsumerType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceBatchedUsableType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceBillboardedUsableType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceSingleUsableType;
+import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleUsableType;
+import com.io7m.r2.transforms.R2TransformIdentity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A benchmark that fills and executes an opaque scene once per
+ * invocation, as a renderer would once per frame.</p>
+ *
+ * <p>Run with {@code -prof gc}: the {@code gc.alloc.rate.norm} figure is the
+ * number of bytes allocated per frame, and is expected to be zero once the
+ * scene has reached its steady-state capacity.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class R2SceneOpaquesBenchmark
+{
+  private static final int ARRAY_OBJECTS = 32;
+  private static final int SHADERS = 16;
+
+  @Param({"1000", "10000"})
+  private int instance_count;
+
+  @Param({"16", "1024"})
+  private int material_count;
+
+  private R2SceneOpaquesType opaques;
+  private R2InstanceSingleType[] instances;
+  private R2MaterialOpaqueSingleType<?>[] materials;
+  private Counter counter;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public R2SceneOpaquesBenchmark()
+  {
+
+  }
+
+  /**
+   * Create the scene contents.
+   *
+   * @throws Exception On errors
+   */
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup()
+    throws Exception
+  {
+    final JCGLInterfaceGL33Type g = R2BenchmarkFixtures.fakeGL();
+
+    final JCGLArrayObjectType[] arrays =
+      new JCGLArrayObjectType[ARRAY_OBJECTS];
+    for (int index = 0; index < ARRAY_OBJECTS; ++index) {
+      arrays[index] = R2BenchmarkFixtures.arrayObject(g);
+    }
+
+    final R2ShaderGeometrySingleUsableType<Object>[] shaders =
+      new R2ShaderGeometrySingleUsableType[SHADERS];
+    for (int index = 0; index < SHADERS; ++index) {
+      shaders[index] = R2BenchmarkFixtures.shaderSingle((long) index);
+    }
+
+    this.materials = new R2MaterialOpaqueSingleType<?>[this.material_count];
+    for (int index = 0; index < this.material_count; ++index) {
+      this.materials[index] = R2BenchmarkFixtures.materialSingle(
+        shaders[index % SHADERS], (long) index);
+    }
+
+    this.instances = new R2InstanceSingleType[this.instance_count];
+    for (int index = 0; index < this.instance_count; ++index) {
+      this.instances[index] = R2InstanceSingle.of(
+        (long) index,
+        arrays[index % ARRAY_OBJECTS],
+        R2TransformIdentity.get(),
+        PMatrices3x3D.identity());
+    }
+
+    this.opaques = R2SceneOpaques.create();
+    this.counter = new Counter();
+
+    /*
+     * Run a single frame so that the scene reaches its steady-state
+     * capacity before any measurement takes place.
+     */
+
+    this.frame();
+  }
+
+  /**
+   * Fill, sort, and execute the scene.
+   *
+   * @return The number of consumer calls made
+   */
+
+  @Benchmark
+  public long frame()
+  {
+    final R2SceneOpaquesType o = this.opaques;
+    o.opaquesReset();
+
+    final R2InstanceSingleType[] i = this.instances;
+    final R2MaterialOpaqueSingleType<?>[] m = this.materials;
+    for (int index = 0; index < i.length; ++index) {
+      o.opaquesAddSingleInstanceInGroup(
+        i[index], m[index % m.length], 1 + (index % 15));
+    }
+
+    this.counter.calls = 0L;
+    o.opaquesExecute(this.counter);
+    return this.counter.calls;
+  }
+
+  private static final class Counter implements R2SceneOpaquesConsumerType
+  {
+    private long calls;
+
+    Counter()
+    {
+
+    }
+
+    @Override
+    public void onStart()
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onStartGroup(final int group)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onInstanceBatchedUpdate(final R2InstanceBatchedType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderStart(
+      final R2ShaderInstanceBatchedUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialStart(
+      final R2MaterialOpaqueBatchedType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBatched(
+      final R2MaterialOpaqueBatchedType<M> material,
+      final R2InstanceBatchedType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialFinish(
+      final R2MaterialOpaqueBatchedType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderFinish(
+      final R2ShaderInstanceBatchedUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onInstanceBillboardedUpdate(final R2InstanceBillboardedType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedShaderStart(
+      final R2ShaderInstanceBillboardedUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedMaterialStart(
+      final R2MaterialOpaqueBillboardedType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBillboarded(
+      final R2MaterialOpaqueBillboardedType<M> material,
+      final R2InstanceBillboardedType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedMaterialFinish(
+      final R2MaterialOpaqueBillboardedType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedShaderFinish(
+      final R2ShaderInstanceBillboardedUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderStart(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialStart(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onInstanceSingleArrayStart(final R2InstanceSingleType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceSingle(
+      final R2MaterialOpaqueSingleType<M> material,
+      final R2InstanceSingleType i)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialFinish(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderFinish(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onFinishGroup(final int group)
+    {
+      ++this.calls;
+    }
+
+    @Override
+    public void onFinish()
+    {
+      ++this.calls;
+    }
+  }
+}
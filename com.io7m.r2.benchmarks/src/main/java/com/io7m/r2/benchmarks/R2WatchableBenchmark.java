@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.benchmarks;
+
+import com.io7m.r2.core.api.watchable.R2Watchable;
+import com.io7m.r2.core.api.watchable.R2WatchableType;
+import com.io7m.r2.transforms.R2TransformReadableType;
+import com.io7m.r2.transforms.R2TransformT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>A benchmark that compares the cost of notifying watchers using
+ * {@link R2Watchable} against the cost of doing so using the previous
+ * {@link WeakHashMap} based implementation.</p>
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class R2WatchableBenchmark
+{
+  @Param({"1", "4"})
+  private int watcher_count;
+
+  private Consumer<Object>[] watchers;
+  private R2WatchableType<Object> watchable_current;
+  private R2WatchableType<Object> watchable_weak_map;
+  private R2TransformT transform;
+  private Consumer<R2TransformReadableType> transform_watcher;
+  private long calls;
+
+  /**
+   * Construct a benchmark.
+   */
+
+  public R2WatchableBenchmark()
+  {
+
+  }
+
+  /**
+   * Create the watchables and register the watchers.
+   */
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup()
+  {
+    final Object value = new Object();
+    this.watchable_current = R2Watchable.newWatchable(value);
+    this.watchable_weak_map = new WeakHashMapWatchable<>(value);
+
+    this.watchers = new Consumer[this.watcher_count];
+    for (int index = 0; index < this.watcher_count; ++index) {
+      this.watchers[index] = x -> ++this.calls;
+      this.watchable_current.watchableAdd(this.watchers[index]);
+      this.watchable_weak_map.watchableAdd(this.watchers[index]);
+    }
+
+    this.transform = R2TransformT.create();
+    this.transform_watcher = x -> ++this.calls;
+    this.transform.transformGetWatchable().watchableAdd(
+      this.transform_watcher);
+  }
+
+  /**
+   * Notify all watchers of the current implementation.
+   *
+   * @return The number of notifications so far
+   */
+
+  @Benchmark
+  public long changedCurrent()
+  {
+    this.watchable_current.watchableChanged();
+    return this.calls;
+  }
+
+  /**
+   * Notify all watchers of the previous implementation.
+   *
+   * @return The number of notifications so far
+   */
+
+  @Benchmark
+  public long changedWeakHashMap()
+  {
+    this.watchable_weak_map.watchableChanged();
+    return this.calls;
+  }
+
+  /**
+   * Modify a transform, notifying its watcher and invalidating its matrix.
+   *
+   * @return The number of notifications so far
+   */
+
+  @Benchmark
+  public long transformSetTranslation()
+  {
+    this.transform.setTranslation(this.transform.translation());
+    return this.calls;
+  }
+
+  /**
+   * The previous {@link WeakHashMap} based implementation of
+   * {@link R2WatchableType}, retained for comparison.
+   *
+   * @param <T> The type of watched values
+   */
+
+  private static final class WeakHashMapWatchable<T>
+    implements R2WatchableType<T>
+  {
+    private final Map<Consumer<T>, Boolean> watchers;
+    private final T value;
+
+    WeakHashMapWatchable(final T in_value)
+    {
+      this.value = in_value;
+      this.watchers = new WeakHashMap<>(16);
+    }
+
+    @Override
+    public void watchableAdd(final Consumer<T> w)
+    {
+      this.watchers.put(w, Boolean.TRUE);
+      w.accept(this.value);
+    }
+
+    @Override
+    public void watchableRemove(final Consumer<T> w)
+    {
+      this.watchers.remove(w, Boolean.TRUE);
+    }
+
+    @Override
+    public void watchableChanged()
+    {
+      final Iterator<Consumer<T>> iter = this.watchers.keySet().iterator();
+      while (iter.hasNext()) {
+        iter.next().accept(this.value);
+      }
+    }
+  }
+}
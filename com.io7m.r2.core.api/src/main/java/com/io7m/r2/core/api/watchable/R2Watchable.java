@@ -16,29 +16,41 @@
 
 package com.io7m.r2.core.api.watchable;
 
-import com.io7m.jfunctional.Unit;
 import com.io7m.jnull.NullCheck;
 
-import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.function.Consumer;
 
 /**
- * The default implementation of the {@link R2WatchableType} interface.
+ * <p>The default implementation of the {@link R2WatchableType} interface.</p>
+ *
+ * <p>Watchers are held by weak references in an array-backed list. Watchers
+ * that have been garbage collected are removed from the list when they are
+ * encountered during notification or when a watcher is added. Watchers that
+ * are added during a notification are not notified until the next
+ * notification; watchers that are removed during a notification are not
+ * notified for the remainder of that notification. Notifications may be
+ * nested (a watcher may call {@link #watchableChanged()} on the watchable
+ * that is notifying it), and the list is only compacted when the outermost
+ * notification has completed.</p>
  *
  * @param <T> The type of watched values
  */
 
 public final class R2Watchable<T> implements R2WatchableType<T>
 {
-  private final Map<Consumer<T>, Unit> watchers;
+  private final ArrayList<WeakReference<Consumer<T>>> watchers;
   private final T value;
+  private int notify_depth;
+  private boolean compact;
 
   private R2Watchable(final T in_value)
   {
     this.value = NullCheck.notNull(in_value, "Value");
-    this.watchers = new WeakHashMap<>(16);
+    this.watchers = new ArrayList<>(4);
+    this.notify_depth = 0;
+    this.compact = false;
   }
 
   /**
@@ -55,12 +67,68 @@ public final class R2Watchable<T> implements R2WatchableType<T>
     return new R2Watchable<>(initial);
   }
 
+  private int indexOf(final Consumer<T> w)
+  {
+    final int size = this.watchers.size();
+    for (int index = 0; index < size; ++index) {
+      final WeakReference<Consumer<T>> r = this.watchers.get(index);
+      if (r != null) {
+        final Consumer<T> c = r.get();
+        if (c == null) {
+          this.watchers.set(index, null);
+          this.compact = true;
+        } else if (c.equals(w)) {
+          return index;
+        }
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Remove all cleared entries from the list, preserving the order of the
+   * remaining entries.
+   */
+
+  private void compact()
+  {
+    final int size = this.watchers.size();
+    int target = 0;
+    for (int index = 0; index < size; ++index) {
+      final WeakReference<Consumer<T>> r = this.watchers.get(index);
+      if (r != null && r.get() != null) {
+        this.watchers.set(target, r);
+        ++target;
+      }
+    }
+    for (int index = size - 1; index >= target; --index) {
+      this.watchers.remove(index);
+    }
+    this.compact = false;
+  }
+
   private void update()
   {
-    final Iterator<Consumer<T>> iter = this.watchers.keySet().iterator();
-    while (iter.hasNext()) {
-      final Consumer<T> c = iter.next();
-      c.accept(this.value);
+    ++this.notify_depth;
+    try {
+      final int size = this.watchers.size();
+      for (int index = 0; index < size; ++index) {
+        final WeakReference<Consumer<T>> r = this.watchers.get(index);
+        if (r != null) {
+          final Consumer<T> c = r.get();
+          if (c != null) {
+            c.accept(this.value);
+          } else {
+            this.watchers.set(index, null);
+            this.compact = true;
+          }
+        }
+      }
+    } finally {
+      --this.notify_depth;
+      if (this.compact && this.notify_depth == 0) {
+        this.compact();
+      }
     }
   }
 
@@ -68,7 +136,12 @@ public final class R2Watchable<T> implements R2WatchableType<T>
   public void watchableAdd(final Consumer<T> w)
   {
     NullCheck.notNull(w, "Consumer");
-    this.watchers.put(w, Unit.unit());
+    if (this.indexOf(w) < 0) {
+      this.watchers.add(new WeakReference<>(w));
+    }
+    if (this.compact && this.notify_depth == 0) {
+      this.compact();
+    }
     w.accept(this.value);
   }
 
@@ -76,7 +149,14 @@ public final class R2Watchable<T> implements R2WatchableType<T>
   public void watchableRemove(final Consumer<T> w)
   {
     NullCheck.notNull(w, "Consumer");
-    this.watchers.remove(w, Unit.unit());
+    final int index = this.indexOf(w);
+    if (index >= 0) {
+      this.watchers.set(index, null);
+      this.compact = true;
+    }
+    if (this.compact && this.notify_depth == 0) {
+      this.compact();
+    }
   }
 
   @Override
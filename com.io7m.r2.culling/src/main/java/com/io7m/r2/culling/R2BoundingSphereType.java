@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import org.immutables.value.Value;
+
+/**
+ * <p>A bounding sphere.</p>
+ *
+ * <p>The coordinate space in which the sphere is specified is determined by
+ * the context in which the sphere is used.</p>
+ */
+
+@R2ImmutableStyleType
+@Value.Immutable
+public interface R2BoundingSphereType
+{
+  /**
+   * @return The center of the sphere
+   */
+
+  @Value.Parameter
+  Vector3D center();
+
+  /**
+   * @return The radius of the sphere
+   */
+
+  @Value.Parameter
+  double radius();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (!(this.radius() >= 0.0)) {
+      throw new IllegalArgumentException(
+        "Radius must be non-negative (received " + this.radius() + ")");
+    }
+  }
+}
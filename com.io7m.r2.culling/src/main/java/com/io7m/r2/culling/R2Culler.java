@@ -0,0 +1,945 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
+import com.io7m.r2.lights.R2LightProjectiveReadableType;
+import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
+import com.io7m.r2.lights.R2LightVolumeSingleReadableType;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.projections.R2ProjectionReadableType;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthBatchedType;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesConsumerType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesReadableType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsClipGroupConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsClipGroupType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.mask.api.R2MaskInstances;
+import com.io7m.r2.rendering.mask.api.R2MaskInstancesType;
+import com.io7m.r2.rendering.stencil.api.R2SceneStencilsConsumerType;
+import com.io7m.r2.rendering.stencil.api.R2SceneStencilsType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceBatchedUsableType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceBillboardedUsableType;
+import com.io7m.r2.shaders.api.R2ShaderInstanceSingleUsableType;
+import com.io7m.r2.shaders.depth.api.R2ShaderDepthBatchedUsableType;
+import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The default implementation of the {@link R2CullerType} interface.
+ */
+
+public final class R2Culler implements R2CullerType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2Culler.class);
+  }
+
+  private final R2CullingBoundsType bounds;
+  private final R2CullingFrustum frustum;
+  private final OpaquesCuller opaques;
+  private final DepthsCuller depths;
+  private final StencilsCuller stencils;
+  private final LightsCuller lights;
+  private @Nullable R2CullingLightParametersType light_parameters;
+  private long culled;
+  private long drawn;
+  private long lights_culled;
+  private long lights_small;
+  private long lights_drawn;
+
+  private R2Culler(
+    final R2CullingBoundsType in_bounds)
+  {
+    this.bounds = NullCheck.notNull(in_bounds, "Bounds");
+    this.frustum = R2CullingFrustum.create();
+    this.opaques = new OpaquesCuller(this);
+    this.depths = new DepthsCuller(this);
+    this.stencils = new StencilsCuller(this);
+    this.lights = new LightsCuller(this);
+  }
+
+  /**
+   * Construct a new culler.
+   *
+   * @param in_bounds A source of bounding volumes for instances
+   *
+   * @return A new culler
+   */
+
+  public static R2Culler create(
+    final R2CullingBoundsType in_bounds)
+  {
+    return new R2Culler(in_bounds);
+  }
+
+  @Override
+  public void cullOpaques(
+    final R2MatricesObserverValuesType m,
+    final R2SceneOpaquesReadableType source,
+    final R2SceneOpaquesType target)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(source, "Source");
+    NullCheck.notNull(target, "Target");
+
+    this.frustum.updateFromObserver(m);
+    target.opaquesReset();
+
+    this.opaques.target = target;
+    try {
+      source.opaquesExecute(this.opaques);
+    } finally {
+      this.opaques.target = null;
+    }
+  }
+
+  @Override
+  public void cullDepths(
+    final R2MatricesObserverValuesType m,
+    final R2DepthInstancesType source,
+    final R2DepthInstancesType target)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(source, "Source");
+    NullCheck.notNull(target, "Target");
+
+    this.frustum.updateFromObserver(m);
+    target.depthsReset();
+    target.depthsSetFaceCulling(source.depthsGetFaceCulling());
+
+    this.depths.target = target;
+    try {
+      source.depthsExecute(this.depths);
+    } finally {
+      this.depths.target = null;
+    }
+  }
+
+  @Override
+  public void cullStencils(
+    final R2MatricesObserverValuesType m,
+    final R2SceneStencilsType source,
+    final R2SceneStencilsType target)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(source, "Source");
+    NullCheck.notNull(target, "Target");
+
+    this.frustum.updateFromObserver(m);
+    target.stencilsReset();
+    target.stencilsSetMode(source.stencilsGetMode());
+
+    this.stencils.target = target;
+    try {
+      source.stencilsExecute(this.stencils);
+    } finally {
+      this.stencils.target = null;
+    }
+  }
+
+  @Override
+  public void cullLights(
+    final R2MatricesObserverValuesType m,
+    final R2CullingLightParametersType p,
+    final R2SceneLightsType source,
+    final R2SceneLightsType target)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(p, "Parameters");
+    NullCheck.notNull(source, "Source");
+    NullCheck.notNull(target, "Target");
+
+    this.frustum.updateFromObserver(m);
+    target.lightsReset();
+
+    this.light_parameters = p;
+    this.lights.target = target;
+    try {
+      source.lightsExecute(this.lights);
+    } finally {
+      this.lights.target = null;
+      this.light_parameters = null;
+    }
+  }
+
+  @Override
+  public R2MaskInstancesType cullMask(
+    final R2MatricesObserverValuesType m,
+    final R2MaskInstancesType source)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(source, "Source");
+
+    this.frustum.updateFromObserver(m);
+
+    final R2MaskInstances.Builder b = R2MaskInstances.builder();
+
+    final List<R2InstanceSingleType> singles = source.singles();
+    for (int index = 0; index < singles.size(); ++index) {
+      final R2InstanceSingleType i = singles.get(index);
+      if (this.isVisibleSingle(i)) {
+        b.addSingles(i);
+      }
+    }
+
+    final List<R2InstanceBatchedType> batched = source.batched();
+    for (int index = 0; index < batched.size(); ++index) {
+      final R2InstanceBatchedType i = batched.get(index);
+      if (this.isVisibleBatched(i)) {
+        b.addBatched(i);
+      }
+    }
+
+    return b.build();
+  }
+
+  @Override
+  public long cullingInstancesCulled()
+  {
+    return this.culled;
+  }
+
+  @Override
+  public long cullingInstancesDrawn()
+  {
+    return this.drawn;
+  }
+
+  @Override
+  public long cullingLightsCulled()
+  {
+    return this.lights_culled;
+  }
+
+  @Override
+  public long cullingLightsTooSmall()
+  {
+    return this.lights_small;
+  }
+
+  @Override
+  public long cullingLightsDrawn()
+  {
+    return this.lights_drawn;
+  }
+
+  @Override
+  public void cullingStatisticsReset()
+  {
+    this.culled = 0L;
+    this.drawn = 0L;
+    this.lights_culled = 0L;
+    this.lights_small = 0L;
+    this.lights_drawn = 0L;
+  }
+
+  private static Boolean isVisibleLightSpherical(
+    final R2Culler c,
+    final R2LightSphericalSingleReadableType light)
+  {
+    final PVector3D<R2SpaceWorldType> o = light.originPosition();
+    return Boolean.valueOf(
+      c.isVisibleLightSphere(o.x(), o.y(), o.z(), light.radius()));
+  }
+
+  private static Boolean isVisibleLightProjective(
+    final R2Culler c,
+    final R2LightProjectiveReadableType light)
+  {
+    /*
+     * The light frustum extends from the light's position to the far plane
+     * of its projection. A sphere centered on the position that reaches the
+     * furthest corner of the far plane encloses the entire frustum.
+     */
+
+    final R2ProjectionReadableType p = light.projection();
+    final double fx = Math.max(
+      Math.abs(p.projectionGetFarXMinimum()),
+      Math.abs(p.projectionGetFarXMaximum()));
+    final double fy = Math.max(
+      Math.abs(p.projectionGetFarYMinimum()),
+      Math.abs(p.projectionGetFarYMaximum()));
+    final double fz = p.projectionGetZFar();
+    final double radius = Math.sqrt((fx * fx) + (fy * fy) + (fz * fz));
+
+    final PVector3D<R2SpaceWorldType> o = light.position();
+    return Boolean.valueOf(c.isVisibleLightSphere(o.x(), o.y(), o.z(), radius));
+  }
+
+  private boolean isVisibleLight(
+    final R2LightSingleReadableType light)
+  {
+    if (light instanceof R2LightVolumeSingleReadableType) {
+      final R2LightVolumeSingleReadableType v =
+        (R2LightVolumeSingleReadableType) light;
+      return v.matchLightVolumeSingleReadable(
+        this,
+        R2Culler::isVisibleLightProjective,
+        R2Culler::isVisibleLightSpherical).booleanValue();
+    }
+
+    /*
+     * Screen-space lights affect every pixel and are therefore always
+     * visible.
+     */
+
+    ++this.lights_drawn;
+    return true;
+  }
+
+  private boolean isVisibleLightSphere(
+    final double x,
+    final double y,
+    final double z,
+    final double radius)
+  {
+    if (!this.frustum.intersectsSphere(x, y, z, radius)) {
+      ++this.lights_culled;
+      return false;
+    }
+
+    final R2CullingLightParametersType p = this.light_parameters;
+    final double minimum = p.minimumScreenArea();
+    if (minimum > 0.0) {
+      final AreaSizeL viewport = p.viewport();
+      final double area = this.frustum.sphereScreenArea(
+        x, y, z, radius, (double) viewport.sizeX(), (double) viewport.sizeY());
+      if (area < minimum) {
+        ++this.lights_small;
+        return false;
+      }
+    }
+
+    ++this.lights_drawn;
+    return true;
+  }
+
+  private boolean count(
+    final boolean visible)
+  {
+    if (visible) {
+      ++this.drawn;
+    } else {
+      ++this.culled;
+    }
+    return visible;
+  }
+
+  private boolean isVisibleSingle(
+    final R2InstanceSingleType i)
+  {
+    final Optional<R2BoundingSphereType> s_opt = this.bounds.boundsSingle(i);
+    if (!s_opt.isPresent()) {
+      return this.count(true);
+    }
+
+    /*
+     * Transform the object-space sphere to world-space. The radius is scaled
+     * by the largest scale factor present in the transform, which yields a
+     * sphere that encloses the original even under non-uniform scaling.
+     */
+
+    final R2BoundingSphereType s = s_opt.get();
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m =
+      i.transform().transformMakeMatrix4x4F();
+    final Vector3D c = s.center();
+
+    final double wx =
+      (m.r0c0() * c.x()) + (m.r0c1() * c.y()) + (m.r0c2() * c.z()) + m.r0c3();
+    final double wy =
+      (m.r1c0() * c.x()) + (m.r1c1() * c.y()) + (m.r1c2() * c.z()) + m.r1c3();
+    final double wz =
+      (m.r2c0() * c.x()) + (m.r2c1() * c.y()) + (m.r2c2() * c.z()) + m.r2c3();
+
+    final double sx =
+      (m.r0c0() * m.r0c0()) + (m.r1c0() * m.r1c0()) + (m.r2c0() * m.r2c0());
+    final double sy =
+      (m.r0c1() * m.r0c1()) + (m.r1c1() * m.r1c1()) + (m.r2c1() * m.r2c1());
+    final double sz =
+      (m.r0c2() * m.r0c2()) + (m.r1c2() * m.r1c2()) + (m.r2c2() * m.r2c2());
+    final double scale = Math.sqrt(Math.max(sx, Math.max(sy, sz)));
+
+    return this.count(
+      this.frustum.intersectsSphere(wx, wy, wz, s.radius() * scale));
+  }
+
+  private boolean isVisibleBatched(
+    final R2InstanceBatchedType i)
+  {
+    final Optional<R2BoundingSphereType> s_opt = this.bounds.boundsBatched(i);
+    if (!s_opt.isPresent()) {
+      return this.count(true);
+    }
+    return this.count(this.frustum.intersectsSphere(s_opt.get()));
+  }
+
+  private boolean isVisibleBillboarded(
+    final R2InstanceBillboardedType i)
+  {
+    final Optional<R2BoundingSphereType> s_opt =
+      this.bounds.boundsBillboarded(i);
+    if (!s_opt.isPresent()) {
+      return this.count(true);
+    }
+    return this.count(this.frustum.intersectsSphere(s_opt.get()));
+  }
+
+  private static final class OpaquesCuller
+    implements R2SceneOpaquesConsumerType
+  {
+    private final R2Culler culler;
+    private @Nullable R2SceneOpaquesType target;
+    private int group;
+
+    OpaquesCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+    }
+
+    @Override
+    public void onStart()
+    {
+      this.group = 1;
+    }
+
+    @Override
+    public void onStartGroup(final int in_group)
+    {
+      this.group = in_group;
+    }
+
+    @Override
+    public void onInstanceBatchedUpdate(
+      final R2InstanceBatchedType i)
+    {
+      // Updates are performed by the renderer that consumes the target scene
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderStart(
+      final R2ShaderInstanceBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialStart(
+      final R2MaterialOpaqueBatchedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatched(
+      final R2MaterialOpaqueBatchedType<M> material,
+      final R2InstanceBatchedType i)
+    {
+      if (this.culler.isVisibleBatched(i)) {
+        this.target.opaquesAddBatchedInstanceInGroup(i, material, this.group);
+      }
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialFinish(
+      final R2MaterialOpaqueBatchedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderFinish(
+      final R2ShaderInstanceBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onInstanceBillboardedUpdate(
+      final R2InstanceBillboardedType i)
+    {
+      // Updates are performed by the renderer that consumes the target scene
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedShaderStart(
+      final R2ShaderInstanceBillboardedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedMaterialStart(
+      final R2MaterialOpaqueBillboardedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBillboarded(
+      final R2MaterialOpaqueBillboardedType<M> material,
+      final R2InstanceBillboardedType i)
+    {
+      if (this.culler.isVisibleBillboarded(i)) {
+        this.target.opaquesAddBillboardedInstanceInGroup(
+          i, material, this.group);
+      }
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedMaterialFinish(
+      final R2MaterialOpaqueBillboardedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBillboardedShaderFinish(
+      final R2ShaderInstanceBillboardedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderStart(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialStart(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+    }
+
+    @Override
+    public void onInstanceSingleArrayStart(
+      final R2InstanceSingleType i)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingle(
+      final R2MaterialOpaqueSingleType<M> material,
+      final R2InstanceSingleType i)
+    {
+      if (this.culler.isVisibleSingle(i)) {
+        this.target.opaquesAddSingleInstanceInGroup(i, material, this.group);
+      }
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialFinish(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderFinish(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onFinishGroup(final int in_group)
+    {
+    }
+
+    @Override
+    public void onFinish()
+    {
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "opaques: culled {}, drawn {}",
+          Long.valueOf(this.culler.culled),
+          Long.valueOf(this.culler.drawn));
+      }
+    }
+  }
+
+  private static final class DepthsCuller
+    implements R2DepthInstancesConsumerType
+  {
+    private final R2Culler culler;
+    private @Nullable R2DepthInstancesType target;
+
+    DepthsCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public void onInstanceBatchedUpdate(
+      final R2InstanceBatchedType i)
+    {
+      // Updates are performed by the renderer that consumes the target set
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderStart(
+      final R2ShaderDepthBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialStart(
+      final R2MaterialDepthBatchedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatched(
+      final R2MaterialDepthBatchedType<M> material,
+      final R2InstanceBatchedType i)
+    {
+      if (this.culler.isVisibleBatched(i)) {
+        this.target.depthsAddBatchedInstance(i, material);
+      }
+    }
+
+    @Override
+    public <M> void onInstanceBatchedMaterialFinish(
+      final R2MaterialDepthBatchedType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceBatchedShaderFinish(
+      final R2ShaderDepthBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderStart(
+      final R2ShaderDepthSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialStart(
+      final R2MaterialDepthSingleType<M> material)
+    {
+    }
+
+    @Override
+    public void onInstanceSingleArrayStart(
+      final R2InstanceSingleType i)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingle(
+      final R2MaterialDepthSingleType<M> material,
+      final R2InstanceSingleType i)
+    {
+      if (this.culler.isVisibleSingle(i)) {
+        this.target.depthsAddSingleInstance(i, material);
+      }
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialFinish(
+      final R2MaterialDepthSingleType<M> material)
+    {
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderFinish(
+      final R2ShaderDepthSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onFinish()
+    {
+    }
+  }
+
+  private static final class StencilsCuller
+    implements R2SceneStencilsConsumerType
+  {
+    private final R2Culler culler;
+    private @Nullable R2SceneStencilsType target;
+
+    StencilsCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public void onInstanceSingleStartArray(
+      final R2InstanceSingleType i)
+    {
+    }
+
+    @Override
+    public void onInstanceSingle(
+      final R2InstanceSingleType i)
+    {
+      if (this.culler.isVisibleSingle(i)) {
+        this.target.stencilsAddSingle(i);
+      }
+    }
+
+    @Override
+    public void onFinish()
+    {
+    }
+  }
+
+  private static final class LightsCuller
+    implements R2SceneLightsConsumerType
+  {
+    private final R2Culler culler;
+    private final LightsGroupCuller group;
+    private final LightsClipGroupCuller clip_group;
+    private @Nullable R2SceneLightsType target;
+
+    LightsCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+      this.group = new LightsGroupCuller(in_culler);
+      this.clip_group = new LightsClipGroupCuller(in_culler);
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public R2SceneLightsClipGroupConsumerType onStartClipGroup(
+      final R2InstanceSingleType i,
+      final int in_group)
+    {
+      this.clip_group.target =
+        this.target.lightsGetGroup(in_group).lightGroupNewClipGroup(i);
+      return this.clip_group;
+    }
+
+    @Override
+    public R2SceneLightsGroupConsumerType onStartGroup(
+      final int in_group)
+    {
+      this.group.target = this.target.lightsGetGroup(in_group);
+      return this.group;
+    }
+
+    @Override
+    public void onFinish()
+    {
+      this.group.target = null;
+      this.clip_group.target = null;
+
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "lights: culled {}, too small {}, drawn {}",
+          Long.valueOf(this.culler.lights_culled),
+          Long.valueOf(this.culler.lights_small),
+          Long.valueOf(this.culler.lights_drawn));
+      }
+    }
+  }
+
+  private static final class LightsGroupCuller
+    implements R2SceneLightsGroupConsumerType
+  {
+    private final R2Culler culler;
+    private @Nullable R2SceneLightsGroupType target;
+
+    LightsGroupCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderStart(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onLightSingleArrayStart(
+      final R2LightSingleReadableType i)
+    {
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType> void onLightSingle(
+      final R2ShaderLightSingleUsableType<M> s,
+      final M i)
+    {
+      if (this.culler.isVisibleLight(i)) {
+        this.target.lightGroupAddSingle(i, s);
+      }
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderFinish(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType> void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M i)
+    {
+      ++this.culler.lights_drawn;
+      this.target.lightGroupAddBatched(i, s);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onFinish()
+    {
+    }
+  }
+
+  private static final class LightsClipGroupCuller
+    implements R2SceneLightsClipGroupConsumerType
+  {
+    private final R2Culler culler;
+    private @Nullable R2SceneLightsClipGroupType target;
+
+    LightsClipGroupCuller(
+      final R2Culler in_culler)
+    {
+      this.culler = NullCheck.notNull(in_culler, "Culler");
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderStart(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onLightSingleArrayStart(
+      final R2LightSingleReadableType i)
+    {
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType> void onLightSingle(
+      final R2ShaderLightSingleUsableType<M> s,
+      final M i)
+    {
+      if (this.culler.isVisibleLight(i)) {
+        this.target.clipGroupAddSingle(i, s);
+      }
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderFinish(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType> void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M i)
+    {
+      ++this.culler.lights_drawn;
+      this.target.clipGroupAddBatched(i, s);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+    }
+
+    @Override
+    public void onFinish()
+    {
+    }
+  }
+}
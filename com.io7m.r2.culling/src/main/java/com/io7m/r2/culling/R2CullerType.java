@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesReadableType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.mask.api.R2MaskInstancesType;
+import com.io7m.r2.rendering.stencil.api.R2SceneStencilsType;
+
+/**
+ * <p>The type of visibility cullers.</p>
+ *
+ * <p>A culler takes a complete set of instances, tests the bounding volume of
+ * each instance against the view frustum of an observer, and produces a new
+ * set of instances containing only those instances that may be visible. The
+ * resulting sets can be passed directly to the existing renderers.</p>
+ *
+ * <p>Culling is optional: Renderers accept unculled scenes exactly as
+ * before.</p>
+ */
+
+public interface R2CullerType
+{
+  /**
+   * Cull opaque instances. The target scene is reset, and all instances in
+   * {@code source} that may be visible to the observer are added to
+   * {@code target} using their original materials and groups.
+   *
+   * @param m      The observer matrices
+   * @param source The source scene
+   * @param target The target scene
+   */
+
+  void cullOpaques(
+    R2MatricesObserverValuesType m,
+    R2SceneOpaquesReadableType source,
+    R2SceneOpaquesType target);
+
+  /**
+   * Cull depth instances. The target set is reset, and all instances in
+   * {@code source} that may be visible to the observer are added to
+   * {@code target} using their original materials. The face culling mode of
+   * {@code source} is copied to {@code target}.
+   *
+   * @param m      The observer matrices
+   * @param source The source instances
+   * @param target The target instances
+   */
+
+  void cullDepths(
+    R2MatricesObserverValuesType m,
+    R2DepthInstancesType source,
+    R2DepthInstancesType target);
+
+  /**
+   * Cull stencil instances. The target set is reset, and all instances in
+   * {@code source} that may be visible to the observer are added to
+   * {@code target}. The stencil mode of {@code source} is copied to
+   * {@code target}.
+   *
+   * @param m      The observer matrices
+   * @param source The source instances
+   * @param target The target instances
+   */
+
+  void cullStencils(
+    R2MatricesObserverValuesType m,
+    R2SceneStencilsType source,
+    R2SceneStencilsType target);
+
+  /**
+   * Cull mask instances.
+   *
+   * @param m      The observer matrices
+   * @param source The source instances
+   *
+   * @return The set of instances in {@code source} that may be visible
+   */
+
+  R2MaskInstancesType cullMask(
+    R2MatricesObserverValuesType m,
+    R2MaskInstancesType source);
+
+  /**
+   * <p>Cull lights. The target scene is reset, and all lights in
+   * {@code source} that may be visible to the observer are added to
+   * {@code target} using their original shaders, groups, and clip groups.</p>
+   *
+   * <p>Spherical lights are tested using their bounding spheres, and
+   * projective lights are tested using a sphere that encloses their
+   * projection frustums. Lights that survive the frustum test but are
+   * estimated to cover less than the minimum screen area given in
+   * {@code p} are also rejected. Screen-space lights and batches of lights
+   * are never rejected.</p>
+   *
+   * @param m      The observer matrices
+   * @param p      The culling parameters
+   * @param source The source scene
+   * @param target The target scene
+   */
+
+  void cullLights(
+    R2MatricesObserverValuesType m,
+    R2CullingLightParametersType p,
+    R2SceneLightsType source,
+    R2SceneLightsType target);
+
+  /**
+   * @return The number of instances rejected since the statistics were last
+   * reset
+   *
+   * @see #cullingStatisticsReset()
+   */
+
+  long cullingInstancesCulled();
+
+  /**
+   * @return The number of instances accepted since the statistics were last
+   * reset
+   *
+   * @see #cullingStatisticsReset()
+   */
+
+  long cullingInstancesDrawn();
+
+  /**
+   * @return The number of lights rejected by the frustum test since the
+   * statistics were last reset
+   *
+   * @see #cullingStatisticsReset()
+   */
+
+  long cullingLightsCulled();
+
+  /**
+   * @return The number of lights rejected due to insufficient screen coverage
+   * since the statistics were last reset
+   *
+   * @see #cullingStatisticsReset()
+   */
+
+  long cullingLightsTooSmall();
+
+  /**
+   * @return The number of lights accepted since the statistics were last
+   * reset
+   *
+   * @see #cullingStatisticsReset()
+   */
+
+  long cullingLightsDrawn();
+
+  /**
+   * Reset the culled and drawn instance and light counters to {@code 0}.
+   * This is typically called once at the start of each frame.
+   */
+
+  void cullingStatisticsReset();
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
+import com.io7m.jnull.NullCheck;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.instances.R2InstanceType;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+
+import java.util.Optional;
+
+/**
+ * <p>A simple mutable registry of bounding volumes.</p>
+ *
+ * <p>Bounding volumes can be assigned to individual instances, or to array
+ * objects. A volume assigned to an array object is used for every single
+ * instance that uses that array object and that does not have a volume of its
+ * own. This reflects the common case of many single instances sharing a
+ * mesh.</p>
+ */
+
+public final class R2CullingBounds implements R2CullingBoundsType
+{
+  private final Long2ReferenceOpenHashMap<Optional<R2BoundingSphereType>> instances;
+  private final Int2ReferenceOpenHashMap<Optional<R2BoundingSphereType>> arrays;
+
+  private R2CullingBounds()
+  {
+    this.instances = new Long2ReferenceOpenHashMap<>(1024);
+    this.instances.defaultReturnValue(Optional.empty());
+    this.arrays = new Int2ReferenceOpenHashMap<>(128);
+    this.arrays.defaultReturnValue(Optional.empty());
+  }
+
+  /**
+   * @return A new empty registry
+   */
+
+  public static R2CullingBounds create()
+  {
+    return new R2CullingBounds();
+  }
+
+  /**
+   * Assign an object-space bounding sphere to all single instances that use
+   * the given array object.
+   *
+   * @param a The array object
+   * @param s The bounding sphere
+   */
+
+  public void boundsSetForArrayObject(
+    final JCGLArrayObjectUsableType a,
+    final R2BoundingSphereType s)
+  {
+    NullCheck.notNull(a, "Array object");
+    NullCheck.notNull(s, "Sphere");
+    this.arrays.put(a.glName(), Optional.of(s));
+  }
+
+  /**
+   * Assign a bounding sphere to the given instance. The sphere is interpreted
+   * as being in object-space for single instances, and in world-space for all
+   * other instances.
+   *
+   * @param i The instance
+   * @param s The bounding sphere
+   */
+
+  public void boundsSetForInstance(
+    final R2InstanceType i,
+    final R2BoundingSphereType s)
+  {
+    NullCheck.notNull(i, "Instance");
+    NullCheck.notNull(s, "Sphere");
+    this.instances.put(i.instanceID(), Optional.of(s));
+  }
+
+  /**
+   * Remove any bounding sphere assigned to the given instance.
+   *
+   * @param i The instance
+   */
+
+  public void boundsRemoveForInstance(
+    final R2InstanceType i)
+  {
+    NullCheck.notNull(i, "Instance");
+    this.instances.remove(i.instanceID());
+  }
+
+  /**
+   * Remove all bounding volumes.
+   */
+
+  public void boundsClear()
+  {
+    this.instances.clear();
+    this.arrays.clear();
+  }
+
+  @Override
+  public Optional<R2BoundingSphereType> boundsSingle(
+    final R2InstanceSingleType i)
+  {
+    final Optional<R2BoundingSphereType> r =
+      this.instances.get(i.instanceID());
+    if (r.isPresent()) {
+      return r;
+    }
+    return this.arrays.get(i.arrayObject().glName());
+  }
+
+  @Override
+  public Optional<R2BoundingSphereType> boundsBatched(
+    final R2InstanceBatchedType i)
+  {
+    return this.instances.get(i.instanceID());
+  }
+
+  @Override
+  public Optional<R2BoundingSphereType> boundsBillboarded(
+    final R2InstanceBillboardedType i)
+  {
+    return this.instances.get(i.instanceID());
+  }
+}
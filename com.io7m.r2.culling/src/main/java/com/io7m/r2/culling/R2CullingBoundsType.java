@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+
+import java.util.Optional;
+
+/**
+ * <p>A source of bounding volumes for instances.</p>
+ *
+ * <p>Instances for which no bounding volume is available are never
+ * culled.</p>
+ *
+ * <p>Implementations are called once per instance per culling pass and
+ * should therefore return cached values rather than constructing new ones.</p>
+ */
+
+public interface R2CullingBoundsType
+{
+  /**
+   * @param i A single instance
+   *
+   * @return The <i>object-space</i> bounding sphere of the instance, if any
+   */
+
+  Optional<R2BoundingSphereType> boundsSingle(
+    R2InstanceSingleType i);
+
+  /**
+   * @param i A batched instance
+   *
+   * @return The <i>world-space</i> bounding sphere enclosing every member of
+   * the batch, if any
+   */
+
+  Optional<R2BoundingSphereType> boundsBatched(
+    R2InstanceBatchedType i);
+
+  /**
+   * @param i A billboarded instance
+   *
+   * @return The <i>world-space</i> bounding sphere enclosing every billboard in
+   * the set, if any
+   */
+
+  Optional<R2BoundingSphereType> boundsBillboarded(
+    R2InstanceBillboardedType i);
+}
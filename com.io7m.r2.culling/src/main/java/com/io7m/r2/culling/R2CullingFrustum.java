@@ -0,0 +1,332 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.spaces.R2SpaceClipType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+
+/**
+ * <p>A view frustum represented as a set of six world-space planes.</p>
+ *
+ * <p>The planes are extracted directly from the product of an observer's
+ * projection and view matrices, and are stored in a preallocated array so
+ * that updating and querying the frustum does not allocate.</p>
+ *
+ * <p>A newly created frustum has degenerate planes and therefore considers
+ * every volume to be visible.</p>
+ */
+
+public final class R2CullingFrustum
+{
+  private static final int PLANE_LEFT = 0;
+  private static final int PLANE_RIGHT = 1;
+  private static final int PLANE_BOTTOM = 2;
+  private static final int PLANE_TOP = 3;
+  private static final int PLANE_NEAR = 4;
+  private static final int PLANE_FAR = 5;
+  private static final int PLANE_COUNT = 6;
+
+  private final double[] planes;
+  private final double[] view;
+  private final double[] projection;
+  private final double[] view_projection;
+
+  private R2CullingFrustum()
+  {
+    this.planes = new double[PLANE_COUNT * 4];
+    this.view = new double[16];
+    this.projection = new double[16];
+    this.view_projection = new double[16];
+  }
+
+  /**
+   * @return A new frustum that considers everything to be visible
+   */
+
+  public static R2CullingFrustum create()
+  {
+    return new R2CullingFrustum();
+  }
+
+  private static void copyRowMajor(
+    final PMatrix4x4D<?, ?> m,
+    final double[] out)
+  {
+    out[0] = m.r0c0();
+    out[1] = m.r0c1();
+    out[2] = m.r0c2();
+    out[3] = m.r0c3();
+    out[4] = m.r1c0();
+    out[5] = m.r1c1();
+    out[6] = m.r1c2();
+    out[7] = m.r1c3();
+    out[8] = m.r2c0();
+    out[9] = m.r2c1();
+    out[10] = m.r2c2();
+    out[11] = m.r2c3();
+    out[12] = m.r3c0();
+    out[13] = m.r3c1();
+    out[14] = m.r3c2();
+    out[15] = m.r3c3();
+  }
+
+  /**
+   * Update the frustum planes from the matrices of the given observer.
+   *
+   * @param m The observer matrices
+   */
+
+  public void updateFromObserver(
+    final R2MatricesObserverValuesType m)
+  {
+    NullCheck.notNull(m, "Matrices");
+    this.updateFromMatrices(m.matrixView(), m.matrixProjection());
+  }
+
+  /**
+   * Update the frustum planes from the given view and projection matrices.
+   *
+   * @param m_view       The view matrix
+   * @param m_projection The projection matrix
+   */
+
+  public void updateFromMatrices(
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> m_view,
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> m_projection)
+  {
+    NullCheck.notNull(m_view, "View");
+    NullCheck.notNull(m_projection, "Projection");
+
+    copyRowMajor(m_view, this.view);
+    copyRowMajor(m_projection, this.projection);
+
+    /*
+     * Calculate projection * view, so that the resulting matrix transforms
+     * world-space positions directly into clip-space.
+     */
+
+    final double[] p = this.projection;
+    final double[] v = this.view;
+    final double[] vp = this.view_projection;
+    for (int row = 0; row < 4; ++row) {
+      for (int col = 0; col < 4; ++col) {
+        double sum = 0.0;
+        for (int k = 0; k < 4; ++k) {
+          sum += p[(row * 4) + k] * v[(k * 4) + col];
+        }
+        vp[(row * 4) + col] = sum;
+      }
+    }
+
+    /*
+     * A clip-space position (x, y, z, w) is inside the frustum iff
+     * -w <= x <= w, -w <= y <= w, and -w <= z <= w. Each inequality yields
+     * a plane as a sum or difference of the fourth row of the matrix and one
+     * of the other rows.
+     */
+
+    this.extractPlane(PLANE_LEFT, 0, 1.0);
+    this.extractPlane(PLANE_RIGHT, 0, -1.0);
+    this.extractPlane(PLANE_BOTTOM, 1, 1.0);
+    this.extractPlane(PLANE_TOP, 1, -1.0);
+    this.extractPlane(PLANE_NEAR, 2, 1.0);
+    this.extractPlane(PLANE_FAR, 2, -1.0);
+  }
+
+  private void extractPlane(
+    final int plane,
+    final int row,
+    final double sign)
+  {
+    final double[] vp = this.view_projection;
+    final int r3 = 3 * 4;
+    final int rn = row * 4;
+
+    final double a = vp[r3] + (sign * vp[rn]);
+    final double b = vp[r3 + 1] + (sign * vp[rn + 1]);
+    final double c = vp[r3 + 2] + (sign * vp[rn + 2]);
+    final double d = vp[r3 + 3] + (sign * vp[rn + 3]);
+
+    final double length = Math.sqrt((a * a) + (b * b) + (c * c));
+    final int base = plane * 4;
+    if (length > 0.0) {
+      this.planes[base] = a / length;
+      this.planes[base + 1] = b / length;
+      this.planes[base + 2] = c / length;
+      this.planes[base + 3] = d / length;
+    } else {
+      this.planes[base] = 0.0;
+      this.planes[base + 1] = 0.0;
+      this.planes[base + 2] = 0.0;
+      this.planes[base + 3] = 0.0;
+    }
+  }
+
+  /**
+   * Determine whether or not the given world-space sphere is at least
+   * partially inside the frustum. The test is conservative: Some spheres that
+   * are close to the corners of the frustum may be reported as visible even
+   * though they are not.
+   *
+   * @param x      The X coordinate of the center of the sphere
+   * @param y      The Y coordinate of the center of the sphere
+   * @param z      The Z coordinate of the center of the sphere
+   * @param radius The radius of the sphere
+   *
+   * @return {@code true} if the sphere may be visible
+   */
+
+  public boolean intersectsSphere(
+    final double x,
+    final double y,
+    final double z,
+    final double radius)
+  {
+    final double[] p = this.planes;
+    for (int index = 0; index < PLANE_COUNT; ++index) {
+      final int base = index * 4;
+      final double distance =
+        (p[base] * x) + (p[base + 1] * y) + (p[base + 2] * z) + p[base + 3];
+      if (distance < -radius) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determine whether or not the given world-space sphere is at least
+   * partially inside the frustum.
+   *
+   * @param s The sphere
+   *
+   * @return {@code true} if the sphere may be visible
+   *
+   * @see #intersectsSphere(double, double, double, double)
+   */
+
+  public boolean intersectsSphere(
+    final R2BoundingSphereType s)
+  {
+    NullCheck.notNull(s, "Sphere");
+    return this.intersectsSphere(
+      s.center().x(), s.center().y(), s.center().z(), s.radius());
+  }
+
+  /**
+   * <p>Estimate the area, in pixels, covered by the projection of the given
+   * world-space sphere onto a viewport of the given size.</p>
+   *
+   * <p>The estimate treats the projected sphere as an ellipse whose radii are
+   * derived from the distance of the center of the sphere to the observer.
+   * If the observer is inside the sphere, or the sphere straddles the plane
+   * of the observer, the sphere is assumed to cover the entire viewport and
+   * {@link Double#POSITIVE_INFINITY} is returned.</p>
+   *
+   * @param x      The X coordinate of the center of the sphere
+   * @param y      The Y coordinate of the center of the sphere
+   * @param z      The Z coordinate of the center of the sphere
+   * @param radius The radius of the sphere
+   * @param width  The width of the viewport in pixels
+   * @param height The height of the viewport in pixels
+   *
+   * @return The approximate screen area of the sphere in pixels
+   */
+
+  public double sphereScreenArea(
+    final double x,
+    final double y,
+    final double z,
+    final double radius,
+    final double width,
+    final double height)
+  {
+    final double[] v = this.view;
+    final double[] p = this.projection;
+
+    final double ex = (v[0] * x) + (v[1] * y) + (v[2] * z) + v[3];
+    final double ey = (v[4] * x) + (v[5] * y) + (v[6] * z) + v[7];
+    final double ez = (v[8] * x) + (v[9] * y) + (v[10] * z) + v[11];
+
+    /*
+     * The clip-space W component of the center of the sphere is the distance
+     * to the observer for perspective projections, and is constant for
+     * orthographic projections.
+     */
+
+    final double w = (p[12] * ex) + (p[13] * ey) + (p[14] * ez) + p[15];
+    final boolean perspective = p[14] != 0.0;
+    if (w <= 0.0 || (perspective && w <= radius)) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    final double rx = (radius * Math.abs(p[0]) / w) * (width * 0.5);
+    final double ry = (radius * Math.abs(p[5]) / w) * (height * 0.5);
+    return Math.PI * rx * ry;
+  }
+
+  /**
+   * Determine whether or not the given world-space axis-aligned box is at
+   * least partially inside the frustum. The test is conservative: Some boxes
+   * that are close to the corners of the frustum may be reported as visible
+   * even though they are not.
+   *
+   * @param min_x The minimum X coordinate of the box
+   * @param min_y The minimum Y coordinate of the box
+   * @param min_z The minimum Z coordinate of the box
+   * @param max_x The maximum X coordinate of the box
+   * @param max_y The maximum Y coordinate of the box
+   * @param max_z The maximum Z coordinate of the box
+   *
+   * @return {@code true} if the box may be visible
+   */
+
+  public boolean intersectsBox(
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z)
+  {
+    final double[] p = this.planes;
+    for (int index = 0; index < PLANE_COUNT; ++index) {
+      final int base = index * 4;
+      final double a = p[base];
+      final double b = p[base + 1];
+      final double c = p[base + 2];
+
+      /*
+       * Test the corner of the box that lies furthest along the plane normal.
+       * If that corner is outside, the entire box is outside.
+       */
+
+      final double px = a >= 0.0 ? max_x : min_x;
+      final double py = b >= 0.0 ? max_y : min_y;
+      final double pz = c >= 0.0 ? max_z : min_z;
+      final double distance = (a * px) + (b * py) + (c * pz) + p[base + 3];
+      if (distance < 0.0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.culling;
+
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import org.immutables.value.Value;
+
+/**
+ * The parameters used when culling lights.
+ */
+
+@R2ImmutableStyleType
+@Value.Immutable
+public interface R2CullingLightParametersType
+{
+  /**
+   * @return The size of the viewport into which lights will be rendered
+   */
+
+  @Value.Parameter
+  AreaSizeL viewport();
+
+  /**
+   * Lights whose volumes are estimated to cover fewer than this number of
+   * pixels are rejected. A value of {@code 0.0} disables screen-coverage
+   * rejection.
+   *
+   * @return The minimum screen area of a light in pixels
+   */
+
+  @Value.Parameter
+  double minimumScreenArea();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (!(this.minimumScreenArea() >= 0.0)) {
+      throw new IllegalArgumentException(
+        "Minimum screen area must be non-negative (received "
+          + this.minimumScreenArea() + ")");
+    }
+  }
+}
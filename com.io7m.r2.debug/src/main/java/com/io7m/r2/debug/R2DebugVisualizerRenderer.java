@@ -38,7 +38,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -63,12 +62,14 @@ import com.io7m.r2.debug.api.R2DebugVisualizerRendererType;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceBillboardedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightProjectiveReadableType;
 import com.io7m.r2.lights.R2LightScreenSingleType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
 import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
 import com.io7m.r2.lights.R2LightVolumeSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
@@ -90,11 +91,13 @@ import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.debug.R2ShaderDebugColorVerticesWorldPosition;
 import com.io7m.r2.shaders.debug.R2ShaderDebugVisualBatched;
 import com.io7m.r2.shaders.debug.R2ShaderDebugVisualBillboarded;
 import com.io7m.r2.shaders.debug.R2ShaderDebugVisualScreen;
 import com.io7m.r2.shaders.debug.R2ShaderDebugVisualSingle;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 import com.io7m.r2.spaces.R2SpaceRGBAType;
 import com.io7m.r2.spaces.R2SpaceRGBType;
@@ -123,6 +126,7 @@ public final class R2DebugVisualizerRenderer
   }
 
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
 
   private final R2ShaderInstanceSingleType<PVector4D<R2SpaceRGBAType>> shader_single;
   private final R2ShaderInstanceBatchedType<PVector4D<R2SpaceRGBAType>> shader_batched;
@@ -137,13 +141,18 @@ public final class R2DebugVisualizerRenderer
 
   private final R2ShaderParametersViewMutable params_view;
   private final R2ShaderParametersMaterialMutable<Object> params_material;
+  private final R2ShaderViewUniformBufferType view_buffer;
 
   private R2DebugVisualizerRenderer(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
-    final R2IDPoolType in_pool)
+    final R2IDPoolType in_pool,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g = NullCheck.notNull(in_g, "GL33");
+    this.states = NullCheck.notNull(in_states, "States");
+    this.view_buffer = NullCheck.notNull(in_view_buffer, "View buffer");
     this.shader_single = R2ShaderDebugVisualSingle.create(
       this.g.shaders(), in_shader_env, in_pool);
     this.shader_batched = R2ShaderDebugVisualBatched.create(
@@ -191,12 +200,14 @@ public final class R2DebugVisualizerRenderer
     this.opaque_consumer =
       new OpaqueConsumer(
         this.g,
+        this.states,
         this.shader_single,
         this.shader_batched,
         this.shader_billboarded);
     this.light_consumer =
       new LightConsumer(
         this.g,
+        this.states,
         this.shader_single,
         this.shader_batched,
         this.shader_screen);
@@ -211,18 +222,23 @@ public final class R2DebugVisualizerRenderer
    * Construct a new renderer.
    *
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_pool       The ID pool
    * @param in_shader_env Access to shader sources
+   * @param in_view       The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2DebugVisualizerRenderer create(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
-    final R2IDPoolType in_pool)
+    final R2IDPoolType in_pool,
+    final R2ShaderViewUniformBufferType in_view)
   {
-    return new R2DebugVisualizerRenderer(in_g, in_shader_env, in_pool);
+    return new R2DebugVisualizerRenderer(
+      in_g, in_states, in_shader_env, in_pool, in_view);
   }
 
   @Override
@@ -242,6 +258,8 @@ public final class R2DebugVisualizerRenderer
     Preconditions.checkPrecondition(
       !this.isDeleted(), "Renderer must not be deleted");
 
+    this.view_buffer.update(this.g, m);
+
     final JCGLProfilingContextType pc_base =
       pc.childContext("debug-visualizer");
 
@@ -330,7 +348,7 @@ public final class R2DebugVisualizerRenderer
       final JCGLViewportsType g_v = this.g.viewports();
       g_v.viewportSet(area);
 
-      JCGLRenderStates.activate(this.g, this.render_geom_state_base);
+      this.states.activate(this.g, this.render_geom_state_base);
 
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
       try {
@@ -390,7 +408,7 @@ public final class R2DebugVisualizerRenderer
       final JCGLViewportsType g_v = this.g.viewports();
       g_v.viewportSet(area);
 
-      JCGLRenderStates.activate(this.g, this.render_geom_state_base);
+      this.states.activate(this.g, this.render_geom_state_base);
 
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
       try {
@@ -450,7 +468,7 @@ public final class R2DebugVisualizerRenderer
       final JCGLViewportsType g_v = this.g.viewports();
       g_v.viewportSet(area);
 
-      JCGLRenderStates.activate(this.g, this.render_geom_state_base);
+      this.states.activate(this.g, this.render_geom_state_base);
 
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
       try {
@@ -562,6 +580,7 @@ public final class R2DebugVisualizerRenderer
     implements R2SceneOpaquesConsumerType
   {
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLShadersType shaders;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
@@ -581,12 +600,15 @@ public final class R2DebugVisualizerRenderer
 
     OpaqueConsumer(
       final JCGLInterfaceGL33Type ig,
+      final R2RenderStateTracker is,
       final R2ShaderInstanceSingleType<PVector4D<R2SpaceRGBAType>> in_shader_single,
       final R2ShaderInstanceBatchedType<PVector4D<R2SpaceRGBAType>> in_shader_batched,
       final R2ShaderInstanceBillboardedType<PVector4D<R2SpaceRGBAType>> in_shader_billboarded)
     {
       this.g33 =
         NullCheck.notNull(ig, "G33");
+      this.states =
+        NullCheck.notNull(is, "States");
       this.shader_single =
         NullCheck.notNull(in_shader_single, "Shader");
       this.shader_batched =
@@ -613,7 +635,7 @@ public final class R2DebugVisualizerRenderer
     @Override
     public void onStartGroup(final int group)
     {
-      JCGLRenderStates.activate(this.g33, this.render_state);
+      this.states.activate(this.g33, this.render_state);
 
       final Int2ReferenceMap<PVector4D<R2SpaceRGBAType>> g_colors =
         this.parameters.geometryGroupColors();
@@ -837,6 +859,7 @@ public final class R2DebugVisualizerRenderer
     implements R2SceneLightsConsumerType
   {
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLShadersType shaders;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
@@ -860,12 +883,15 @@ public final class R2DebugVisualizerRenderer
 
     private LightConsumer(
       final JCGLInterfaceGL33Type ig,
+      final R2RenderStateTracker is,
       final R2ShaderInstanceSingleType<PVector4D<R2SpaceRGBAType>> in_shader_single,
       final R2ShaderInstanceBatchedType<PVector4D<R2SpaceRGBAType>> in_shader_batched,
       final R2ShaderInstanceSingleScreenType<PVector4D<R2SpaceRGBAType>> in_shader_screen)
     {
       this.g33 =
         NullCheck.notNull(ig, "G33");
+      this.states =
+        NullCheck.notNull(is, "States");
       this.shader_single =
         NullCheck.notNull(in_shader_single, "Single");
       this.shader_batched =
@@ -1059,7 +1085,7 @@ public final class R2DebugVisualizerRenderer
             c.sphere_transform.setScale(0.1);
             c.sphere_transform.setTranslation(ls.originPosition());
             c.matrices.withTransform(c.sphere_transform, im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_fill);
+              c.states.activate(c.g33, c.render_state_volume_fill);
 
               c.shader_single.onReceiveViewValues(
                 c.g33, c.configureViewParameters());
@@ -1080,7 +1106,7 @@ public final class R2DebugVisualizerRenderer
 
             c.array_objects.arrayObjectBind(ls.arrayObject());
             c.matrices.withTransform(ls.transform(), im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_lines);
+              c.states.activate(c.g33, c.render_state_volume_lines);
 
               c.shader_single.onReceiveMaterialValues(
                 c.g33,
@@ -1134,7 +1160,7 @@ public final class R2DebugVisualizerRenderer
             c.sphere_transform.setScale(0.1);
             c.sphere_transform.setTranslation(lp.position());
             c.matrices.withTransform(c.sphere_transform, im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_fill);
+              c.states.activate(c.g33, c.render_state_volume_fill);
 
               c.shader_single.onReceiveViewValues(
                 c.g33, c.configureViewParameters());
@@ -1155,7 +1181,7 @@ public final class R2DebugVisualizerRenderer
 
             c.array_objects.arrayObjectBind(lp.arrayObject());
             c.matrices.withTransform(lp.transform(), im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_lines);
+              c.states.activate(c.g33, c.render_state_volume_lines);
 
               c.shader_single.onReceiveMaterialValues(
                 c.g33,
@@ -1187,6 +1213,31 @@ public final class R2DebugVisualizerRenderer
 
       }
 
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatchedShaderStart(
+        final R2ShaderLightBatchedUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatched(
+        final R2ShaderLightBatchedUsableType<M> s,
+        final M light)
+      {
+        // Batched lights are not visualized
+      }
+
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatchedShaderFinish(
+        final R2ShaderLightBatchedUsableType<M> s)
+      {
+
+      }
+
       @Override
       public void onFinish()
       {
@@ -1235,7 +1286,7 @@ public final class R2DebugVisualizerRenderer
                 im,
                 this,
                 (mi, lc) -> {
-                  JCGLRenderStates.activate(c.g33, c.render_state_volume_lines);
+                  c.states.activate(c.g33, c.render_state_volume_lines);
 
                   c.shader_single.onReceiveViewValues(
                     c.g33, c.configureViewParameters());
@@ -1340,7 +1391,7 @@ public final class R2DebugVisualizerRenderer
             c.sphere_transform.setScale(0.1);
             c.sphere_transform.setTranslation(ls.originPosition());
             c.matrices.withTransform(c.sphere_transform, im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_fill);
+              c.states.activate(c.g33, c.render_state_volume_fill);
 
               c.shader_single.onReceiveViewValues(
                 c.g33, c.configureViewParameters());
@@ -1361,7 +1412,7 @@ public final class R2DebugVisualizerRenderer
 
             c.array_objects.arrayObjectBind(ls.arrayObject());
             c.matrices.withTransform(ls.transform(), im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_lines);
+              c.states.activate(c.g33, c.render_state_volume_lines);
 
               c.shader_single.onReceiveMaterialValues(
                 c.g33,
@@ -1411,7 +1462,7 @@ public final class R2DebugVisualizerRenderer
             c.sphere_transform.setScale(0.1);
             c.sphere_transform.setTranslation(lp.position());
             c.matrices.withTransform(c.sphere_transform, im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_fill);
+              c.states.activate(c.g33, c.render_state_volume_fill);
 
               c.shader_single.onReceiveViewValues(
                 c.g33, c.configureViewParameters());
@@ -1432,7 +1483,7 @@ public final class R2DebugVisualizerRenderer
 
             c.array_objects.arrayObjectBind(lp.arrayObject());
             c.matrices.withTransform(lp.transform(), im, this, (mi, lc) -> {
-              JCGLRenderStates.activate(c.g33, c.render_state_volume_lines);
+              c.states.activate(c.g33, c.render_state_volume_lines);
 
               c.shader_single.onReceiveMaterialValues(
                 c.g33,
@@ -1464,6 +1515,31 @@ public final class R2DebugVisualizerRenderer
 
       }
 
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatchedShaderStart(
+        final R2ShaderLightBatchedUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatched(
+        final R2ShaderLightBatchedUsableType<M> s,
+        final M light)
+      {
+        // Batched lights are not visualized
+      }
+
+      @Override
+      public <M extends R2LightBatchedReadableType>
+      void onLightBatchedShaderFinish(
+        final R2ShaderLightBatchedUsableType<M> s)
+      {
+
+      }
+
       @Override
       public void onFinish()
       {
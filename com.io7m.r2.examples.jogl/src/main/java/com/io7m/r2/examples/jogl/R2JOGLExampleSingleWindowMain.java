@@ -82,6 +82,7 @@ import com.jogamp.newt.event.WindowEvent;
 import com.jogamp.newt.opengl.GLWindow;
 import com.jogamp.opengl.DebugGL3;
 import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL3;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
@@ -306,7 +307,9 @@ public final class R2JOGLExampleSingleWindowMain implements Runnable
           this.r2_facade =
             new R2FacadeProvider().create(
               render_g33,
-              SoShaderResolverServiceLoader.create());
+              SoShaderResolverServiceLoader.create(),
+              (index, buffer) -> drawable.getGL().getGL3().glBindBufferBase(
+                GL3.GL_UNIFORM_BUFFER, index, buffer.getGLName()));
           this.services =
             new Services(
               this.window,
@@ -334,6 +337,7 @@ public final class R2JOGLExampleSingleWindowMain implements Runnable
          */
 
         final JCGLInterfaceGL33Type g33 = this.rendering.contextGetGL33();
+        this.r2_facade.viewUniformBuffer().bind();
         this.example.onRender(
           this.services,
           g33,
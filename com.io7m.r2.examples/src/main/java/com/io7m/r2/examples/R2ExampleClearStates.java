@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.examples;
+
+import com.io7m.jcanephora.core.JCGLStencilFunction;
+import com.io7m.jcanephora.core.JCGLStencilOperation;
+import com.io7m.jcanephora.renderstate.JCGLColorBufferMaskingState;
+import com.io7m.jcanephora.renderstate.JCGLDepthClamping;
+import com.io7m.jcanephora.renderstate.JCGLDepthState;
+import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
+import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
+import com.io7m.jcanephora.renderstate.JCGLRenderState;
+import com.io7m.jcanephora.renderstate.JCGLStencilState;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Optional;
+
+/**
+ * Render states used by examples to clear framebuffers that are not
+ * render targets. The states are activated via the render state tracker
+ * so that the tracker remains consistent with the actual render state.
+ */
+
+public final class R2ExampleClearStates
+{
+  /**
+   * A render state that enables writing to all color, depth, and stencil
+   * buffers.
+   */
+
+  public static final JCGLRenderState CLEAR_ALL;
+
+  /**
+   * A render state that enables writing to all color buffers, and disables
+   * writing to the depth buffer.
+   */
+
+  public static final JCGLRenderState CLEAR_COLOR;
+
+  static {
+    final JCGLStencilState stencil =
+      JCGLStencilState.builder()
+        .setOperationDepthFailBack(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setOperationDepthFailFront(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setOperationPassBack(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setOperationPassFront(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setOperationStencilFailBack(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setOperationStencilFailFront(JCGLStencilOperation.STENCIL_OP_KEEP)
+        .setTestFunctionBack(JCGLStencilFunction.STENCIL_ALWAYS)
+        .setTestFunctionFront(JCGLStencilFunction.STENCIL_ALWAYS)
+        .setWriteMaskBackFaces(0b11111111)
+        .setWriteMaskFrontFaces(0b11111111)
+        .setTestReferenceBack(0)
+        .setTestReferenceFront(0)
+        .setTestMaskBack(0)
+        .setTestMaskFront(0)
+        .setStencilEnabled(true)
+        .setStencilStrict(true)
+        .build();
+
+    CLEAR_ALL =
+      JCGLRenderState.builder()
+        .setDepthState(JCGLDepthState.of(
+          JCGLDepthStrict.DEPTH_STRICT_ENABLED,
+          Optional.empty(),
+          JCGLDepthWriting.DEPTH_WRITE_ENABLED,
+          JCGLDepthClamping.DEPTH_CLAMP_ENABLED))
+        .setColorBufferMaskingState(
+          JCGLColorBufferMaskingState.of(true, true, true, true))
+        .setStencilState(stencil)
+        .build();
+
+    CLEAR_COLOR =
+      JCGLRenderState.builder()
+        .setDepthState(JCGLDepthState.of(
+          JCGLDepthStrict.DEPTH_STRICT_ENABLED,
+          Optional.empty(),
+          JCGLDepthWriting.DEPTH_WRITE_DISABLED,
+          JCGLDepthClamping.DEPTH_CLAMP_ENABLED))
+        .setColorBufferMaskingState(
+          JCGLColorBufferMaskingState.of(true, true, true, true))
+        .build();
+  }
+
+  private R2ExampleClearStates()
+  {
+    throw new UnreachableCodeException();
+  }
+}
@@ -141,7 +141,7 @@ public final class ExampleDepthOnly0 implements R2ExampleCustomType
       final JCGLFramebuffersType g_fb = t.g33.framebuffers();
 
       g_fb.framebufferDrawBind(dbuffer_fb);
-      this.dbuffer.clearBoundPrimaryFramebuffer(t.g33);
+      this.dbuffer.clearBoundPrimaryFramebuffer(t.g33, t.main.renderStates());
       t.main.depthRenderer().renderDepthWithBoundBuffer(
         t.dbuffer.sizeAsViewport(),
         t.main.textureUnitAllocator().rootContext(),
@@ -147,7 +147,7 @@ public final class ExampleDepthVariance0 implements R2ExampleCustomType
       final JCGLFramebuffersType g_fb = t.g33.framebuffers();
 
       g_fb.framebufferDrawBind(dbuffer_fb);
-      t.depth_buffer.clearBoundPrimaryFramebuffer(t.g33);
+      t.depth_buffer.clearBoundPrimaryFramebuffer(t.g33, t.main.renderStates());
       t.depth_variance_renderer.renderDepthVarianceWithBoundBuffer(
         t.depth_buffer.sizeAsViewport(),
         t.main.textureUnitAllocator().rootContext(),
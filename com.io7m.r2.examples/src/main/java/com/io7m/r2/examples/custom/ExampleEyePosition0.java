@@ -20,11 +20,8 @@ import com.io7m.jcanephora.core.JCGLClearSpecification;
 import com.io7m.jcanephora.core.JCGLFramebufferUsableType;
 import com.io7m.jcanephora.core.JCGLViewMatrices;
 import com.io7m.jcanephora.core.api.JCGLClearType;
-import com.io7m.jcanephora.core.api.JCGLColorBufferMaskingType;
-import com.io7m.jcanephora.core.api.JCGLDepthBuffersType;
 import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
-import com.io7m.jcanephora.core.api.JCGLStencilBuffersType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.profiler.JCGLProfilingFrameType;
 import com.io7m.jcanephora.profiler.JCGLProfilingType;
@@ -36,6 +33,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.examples.R2ExampleClearStates;
 import com.io7m.r2.examples.R2ExampleCustomType;
 import com.io7m.r2.examples.R2ExampleServicesType;
 import com.io7m.r2.facade.R2FacadeType;
@@ -65,7 +63,6 @@ import com.io7m.r2.transforms.R2TransformSOT;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLFaceSelection.FACE_FRONT_AND_BACK;
 import static com.io7m.r2.rendering.stencil.api.R2SceneStencilsMode.STENCIL_MODE_INSTANCES_ARE_NEGATIVE;
 
 // CHECKSTYLE_JAVADOC:OFF
@@ -187,9 +184,6 @@ public final class ExampleEyePosition0 implements R2ExampleCustomType
 
     final JCGLFramebuffersType g_fb = g.framebuffers();
     final JCGLClearType g_cl = g.clearing();
-    final JCGLColorBufferMaskingType g_cb = g.colorBufferMasking();
-    final JCGLStencilBuffersType g_sb = g.stencilBuffers();
-    final JCGLDepthBuffersType g_db = g.depthBuffers();
     final R2MatricesType matrices = m.matrices();
 
     matrices.withObserver(view, this.projection, this, (mo, t) -> {
@@ -204,9 +198,7 @@ public final class ExampleEyePosition0 implements R2ExampleCustomType
         pro_frame.childContext("main");
 
       g_fb.framebufferDrawBind(gbuffer_fb);
-      g_cb.colorBufferMask(true, true, true, true);
-      g_db.depthBufferWriteEnable();
-      g_sb.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
+      t.main.renderStates().activate(g, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.geom_clear_spec);
 
       t.main.stencilRenderer().renderStencilsWithBoundBuffer(
@@ -225,9 +217,7 @@ public final class ExampleEyePosition0 implements R2ExampleCustomType
       g_fb.framebufferDrawUnbind();
 
       g_fb.framebufferDrawBind(zbuffer_fb);
-      g_cb.colorBufferMask(true, true, true, true);
-      g_db.depthBufferWriteEnable();
-      g_sb.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
+      t.main.renderStates().activate(g, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.eye_clear_spec);
 
       final R2FilterDebugEyePositionParameters eye_filter_params =
@@ -20,11 +20,8 @@ import com.io7m.jcanephora.core.JCGLClearSpecification;
 import com.io7m.jcanephora.core.JCGLFramebufferUsableType;
 import com.io7m.jcanephora.core.JCGLViewMatrices;
 import com.io7m.jcanephora.core.api.JCGLClearType;
-import com.io7m.jcanephora.core.api.JCGLColorBufferMaskingType;
-import com.io7m.jcanephora.core.api.JCGLDepthBuffersType;
 import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
-import com.io7m.jcanephora.core.api.JCGLStencilBuffersType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.profiler.JCGLProfilingFrameType;
 import com.io7m.jcanephora.profiler.JCGLProfilingType;
@@ -36,6 +33,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.examples.R2ExampleClearStates;
 import com.io7m.r2.examples.R2ExampleCustomType;
 import com.io7m.r2.examples.R2ExampleServicesType;
 import com.io7m.r2.facade.R2FacadeBufferProviderType;
@@ -65,7 +63,6 @@ import com.io7m.r2.transforms.R2TransformSOT;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLFaceSelection.FACE_FRONT_AND_BACK;
 import static com.io7m.r2.rendering.geometry.api.R2GeometryBufferComponents.R2_GEOMETRY_BUFFER_FULL;
 import static com.io7m.r2.rendering.stencil.api.R2SceneStencilsMode.STENCIL_MODE_INSTANCES_ARE_NEGATIVE;
 
@@ -107,6 +104,7 @@ public final class ExampleEyeZ0 implements R2ExampleCustomType
     this.eye_filter =
       R2FilterDebugEyeZ.newFilter(
         g,
+        m.renderStates(),
         m.shaderPreprocessingEnvironment(),
         m.idPool(),
         m.unitQuad());
@@ -188,9 +186,6 @@ public final class ExampleEyeZ0 implements R2ExampleCustomType
     matrices.withObserver(view, this.projection, this, (mo, t) -> {
       final JCGLFramebuffersType g_fb = t.g33.framebuffers();
       final JCGLClearType g_cl = t.g33.clearing();
-      final JCGLColorBufferMaskingType g_cb = t.g33.colorBufferMasking();
-      final JCGLStencilBuffersType g_sb = t.g33.stencilBuffers();
-      final JCGLDepthBuffersType g_db = t.g33.depthBuffers();
 
       final JCGLFramebufferUsableType gbuffer_fb =
         t.gbuffer.primaryFramebuffer();
@@ -205,9 +200,7 @@ public final class ExampleEyeZ0 implements R2ExampleCustomType
         pro_frame.childContext("main");
 
       g_fb.framebufferDrawBind(gbuffer_fb);
-      g_cb.colorBufferMask(true, true, true, true);
-      g_db.depthBufferWriteEnable();
-      g_sb.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
+      t.main.renderStates().activate(t.g33, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.geom_clear_spec);
 
       t.main.stencilRenderer().renderStencilsWithBoundBuffer(
@@ -226,9 +219,7 @@ public final class ExampleEyeZ0 implements R2ExampleCustomType
       g_fb.framebufferDrawUnbind();
 
       g_fb.framebufferDrawBind(eye_buffer_fb);
-      g_cb.colorBufferMask(true, true, true, true);
-      g_db.depthBufferWriteEnable();
-      g_sb.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
+      t.main.renderStates().activate(t.g33, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.eye_clear_spec);
 
       final R2FilterDebugEyeZParameters eye_filter_params =
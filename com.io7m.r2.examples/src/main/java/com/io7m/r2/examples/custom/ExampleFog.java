@@ -21,11 +21,8 @@ import com.io7m.jcanephora.core.JCGLClearSpecification;
 import com.io7m.jcanephora.core.JCGLFramebufferUsableType;
 import com.io7m.jcanephora.core.JCGLViewMatrices;
 import com.io7m.jcanephora.core.api.JCGLClearType;
-import com.io7m.jcanephora.core.api.JCGLColorBufferMaskingType;
-import com.io7m.jcanephora.core.api.JCGLDepthBuffersType;
 import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
-import com.io7m.jcanephora.core.api.JCGLStencilBuffersType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.profiler.JCGLProfilingFrameType;
 import com.io7m.jcanephora.profiler.JCGLProfilingType;
@@ -40,6 +37,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.examples.ExampleProfilingWindow;
+import com.io7m.r2.examples.R2ExampleClearStates;
 import com.io7m.r2.examples.R2ExampleCustomType;
 import com.io7m.r2.examples.R2ExampleServicesType;
 import com.io7m.r2.facade.R2FacadeBufferProviderType;
@@ -93,7 +91,6 @@ import com.io7m.r2.transforms.R2TransformSiOT;
 import java.util.Optional;
 import java.util.Random;
 
-import static com.io7m.jcanephora.core.JCGLFaceSelection.FACE_FRONT_AND_BACK;
 import static com.io7m.r2.filters.fxaa.api.R2FilterFXAAQuality.R2_FXAA_QUALITY_10;
 import static com.io7m.r2.rendering.geometry.api.R2GeometryBufferComponents.R2_GEOMETRY_BUFFER_FULL;
 import static com.io7m.r2.rendering.lights.api.R2LightBufferComponents.R2_LIGHT_BUFFER_DIFFUSE_AND_SPECULAR;
@@ -364,16 +361,13 @@ public final class ExampleFog implements R2ExampleCustomType
 
       final JCGLFramebuffersType g_fb = t.g.framebuffers();
       final JCGLClearType g_cl = t.g.clearing();
-      final JCGLColorBufferMaskingType g_cb = t.g.colorBufferMasking();
-      final JCGLStencilBuffersType g_sb = t.g.stencilBuffers();
-      final JCGLDepthBuffersType g_db = t.g.depthBuffers();
 
       /*
        * Populate geometry buffer.
        */
 
       g_fb.framebufferDrawBind(gbuffer_fb);
-      t.gbuffer.clearBoundPrimaryFramebuffer(t.g);
+      t.gbuffer.clearBoundPrimaryFramebuffer(t.g, t.main.renderStates());
       t.main.stencilRenderer().renderStencilsWithBoundBuffer(
         mo,
         t.profiling_root,
@@ -393,7 +387,7 @@ public final class ExampleFog implements R2ExampleCustomType
        */
 
       g_fb.framebufferDrawBind(lbuffer_fb);
-      t.lbuffer.clearBoundPrimaryFramebuffer(t.g);
+      t.lbuffer.clearBoundPrimaryFramebuffer(t.g, t.main.renderStates());
       t.main.lightRenderer().renderLightsToLightBuffer(
         t.gbuffer,
         t.lbuffer.sizeAsViewport(),
@@ -409,7 +403,7 @@ public final class ExampleFog implements R2ExampleCustomType
        */
 
       g_fb.framebufferDrawBind(t.ibuffer0.primaryFramebuffer());
-      t.ibuffer0.clearBoundPrimaryFramebuffer(t.g);
+      t.ibuffer0.clearBoundPrimaryFramebuffer(t.g, t.main.renderStates());
       t.filter_light.runFilter(t.profiling_root, uc, t.filter_light_params);
 
       /*
@@ -424,7 +418,7 @@ public final class ExampleFog implements R2ExampleCustomType
        */
 
       g_fb.framebufferDrawBind(t.ibuffer1.primaryFramebuffer());
-      t.ibuffer1.clearBoundPrimaryFramebuffer(t.g);
+      t.ibuffer1.clearBoundPrimaryFramebuffer(t.g, t.main.renderStates());
       t.filter_fog.runFilter(
         t.profiling_root,
         uc,
@@ -440,9 +434,7 @@ public final class ExampleFog implements R2ExampleCustomType
        */
 
       g_fb.framebufferDrawUnbind();
-      g_cb.colorBufferMask(true, true, true, true);
-      g_db.depthBufferWriteEnable();
-      g_sb.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
+      t.main.renderStates().activate(t.g, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.screen_clear_spec);
 
       t.filter_fxaa.runFilter(t.profiling_root, uc, t.filter_fxaa_params);
@@ -139,7 +139,7 @@ public final class ExampleGeometry0 implements R2ExampleCustomType
         pro_frame.childContext("main");
 
       g_fb.framebufferDrawBind(t.gbuffer.primaryFramebuffer());
-      t.gbuffer.clearBoundPrimaryFramebuffer(g);
+      t.gbuffer.clearBoundPrimaryFramebuffer(g, t.main.renderStates());
       t.main.stencilRenderer().renderStencilsWithBoundBuffer(
         mo,
         pro_root,
@@ -126,7 +126,7 @@ public final class ExampleGeometry4 implements R2ExampleCustomType
     final JCGLFramebuffersType g_fb = g.framebuffers();
 
     g_fb.framebufferDrawBind(fb);
-    this.gbuffer.clearBoundPrimaryFramebuffer(g);
+    this.gbuffer.clearBoundPrimaryFramebuffer(g, m.renderStates());
 
     final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view;
     if (serv.isFreeCameraEnabled()) {
@@ -21,7 +21,6 @@ import com.io7m.jcanephora.core.JCGLClearSpecification;
 import com.io7m.jcanephora.core.JCGLFramebufferUsableType;
 import com.io7m.jcanephora.core.JCGLViewMatrices;
 import com.io7m.jcanephora.core.api.JCGLClearType;
-import com.io7m.jcanephora.core.api.JCGLColorBufferMaskingType;
 import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
@@ -39,6 +38,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.examples.R2ExampleClearStates;
 import com.io7m.r2.examples.R2ExampleCustomType;
 import com.io7m.r2.examples.R2ExampleServicesType;
 import com.io7m.r2.facade.R2FacadeBufferProviderType;
@@ -163,6 +163,7 @@ public final class ExampleSSAO1 implements R2ExampleCustomType
       R2FilterBilateralBlurDepthAware.newFilter(
         m.shaderPreprocessingEnvironment(),
         g,
+        m.renderStates(),
         m.textureDefaults(),
         this.ssao_pool,
         m.idPool(),
@@ -323,7 +324,6 @@ public final class ExampleSSAO1 implements R2ExampleCustomType
 
       final JCGLFramebuffersType g_fb = t.g33.framebuffers();
       final JCGLClearType g_cl = t.g33.clearing();
-      final JCGLColorBufferMaskingType g_cb = t.g33.colorBufferMasking();
 
       final JCGLProfilingType pro = t.main.profiling();
       final JCGLProfilingFrameType pro_frame = pro.startFrame();
@@ -331,7 +331,7 @@ public final class ExampleSSAO1 implements R2ExampleCustomType
         pro_frame.childContext("main");
 
       g_fb.framebufferDrawBind(gbuffer_fb);
-      t.geom_buffer.clearBoundPrimaryFramebuffer(t.g33);
+      t.geom_buffer.clearBoundPrimaryFramebuffer(t.g33, t.main.renderStates());
       t.main.stencilRenderer().renderStencilsWithBoundBuffer(
         mo,
         pro_root,
@@ -394,7 +394,7 @@ public final class ExampleSSAO1 implements R2ExampleCustomType
       t.ssao_filter_blur.runFilter(pro_root, uc, t.ssao_filter_blur_params);
 
       g_fb.framebufferDrawUnbind();
-      g_cb.colorBufferMask(true, true, true, true);
+      t.main.renderStates().activate(t.g33, R2ExampleClearStates.CLEAR_ALL);
       g_cl.clear(t.screen_clear_spec);
 
       t.filter_compositor.runFilter(pro_root, uc, t.filter_comp_parameters);
@@ -29,6 +29,7 @@ import com.io7m.jregions.core.unparameterized.sizes.AreaSizesL;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
+import com.io7m.r2.examples.R2ExampleClearStates;
 import com.io7m.r2.examples.R2ExampleCustomType;
 import com.io7m.r2.examples.R2ExampleServicesType;
 import com.io7m.r2.facade.R2FacadeType;
@@ -41,7 +42,6 @@ import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
 import com.io7m.r2.transforms.R2TransformSiOT;
 
-import static com.io7m.jcanephora.core.JCGLFaceSelection.FACE_FRONT_AND_BACK;
 import static com.io7m.r2.rendering.stencil.api.R2SceneStencilsMode.STENCIL_MODE_INSTANCES_ARE_NEGATIVE;
 
 // CHECKSTYLE_JAVADOC:OFF
@@ -90,11 +90,12 @@ public final class ExampleStencilNegative implements R2ExampleCustomType
     this.stencils.stencilsSetMode(STENCIL_MODE_INSTANCES_ARE_NEGATIVE);
     this.stencils.stencilsAddSingle(this.instance);
 
+    m.renderStates().activate(g, R2ExampleClearStates.CLEAR_ALL);
+
     final JCGLDepthBuffersType g_dep = g.depthBuffers();
     g_dep.depthBufferClear(1.0f);
 
     final JCGLStencilBuffersType g_st = g.stencilBuffers();
-    g_st.stencilBufferMask(FACE_FRONT_AND_BACK, 0b11111111);
     g_st.stencilBufferClear(0);
 
     final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view;
@@ -66,6 +66,7 @@ public interface R2FacadeFilterProviderType
   {
     return R2FilterFXAA.newFilter(
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().shaderPreprocessingEnvironment(),
       this.main().idPool(),
       this.main().unitQuad());
@@ -90,6 +91,7 @@ public interface R2FacadeFilterProviderType
     return R2FilterBilateralBlurDepthAware.newFilter(
       this.main().shaderPreprocessingEnvironment(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().textureDefaults(),
       image_pool,
       this.main().idPool(),
@@ -152,6 +154,7 @@ public interface R2FacadeFilterProviderType
     return R2FilterBoxBlur.newFilter(
       this.main().shaderPreprocessingEnvironment(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().textureDefaults(),
       image_pool,
       this.main().idPool(),
@@ -216,6 +219,7 @@ public interface R2FacadeFilterProviderType
   {
     return R2FilterEmission.newFilter(
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().shaderPreprocessingEnvironment(),
       this.main().idPool(),
       filter_blur,
@@ -232,6 +236,7 @@ public interface R2FacadeFilterProviderType
     return R2FilterLightApplicator.newFilter(
       this.main().shaderPreprocessingEnvironment(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().idPool(),
       this.main().unitQuad());
   }
@@ -245,6 +250,7 @@ public interface R2FacadeFilterProviderType
     return R2FilterSSAO.newFilter(
       this.main().shaderPreprocessingEnvironment(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().idPool(),
       this.main().unitQuad());
   }
@@ -259,6 +265,7 @@ public interface R2FacadeFilterProviderType
       this.main().shaderPreprocessingEnvironment(),
       this.main().textureDefaults(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().idPool(),
       this.main().unitQuad());
   }
@@ -273,6 +280,7 @@ public interface R2FacadeFilterProviderType
       this.main().shaderPreprocessingEnvironment(),
       this.main().textureDefaults(),
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().idPool(),
       this.main().unitQuad());
   }
@@ -285,6 +293,7 @@ public interface R2FacadeFilterProviderType
   {
     return R2FilterFogDepth.newFilter(
       this.main().rendererGL33(),
+      this.main().renderStates(),
       this.main().shaderPreprocessingEnvironment(),
       this.main().idPool(),
       this.main().unitQuad());
@@ -23,6 +23,8 @@ import com.io7m.r2.annotations.R2ImmutableStyleType;
 import com.io7m.r2.instances.R2InstanceBatchedDynamic;
 import com.io7m.r2.instances.R2InstanceBillboardedDynamic;
 import com.io7m.r2.instances.R2InstanceSingle;
+import com.io7m.r2.instances.R2InstanceStreamingBuffer;
+import com.io7m.r2.instances.R2InstanceStreamingBufferType;
 import com.io7m.r2.transforms.R2TransformReadableType;
 import com.io7m.r2.spaces.R2SpaceTextureType;
 import org.immutables.value.Value;
@@ -121,6 +123,70 @@ public interface R2FacadeInstanceProviderType
       size);
   }
 
+  /**
+   * Create a new streaming buffer for dynamic instances. The buffer must be
+   * advanced with {@link R2InstanceStreamingBufferType#frameAdvance()} once
+   * per frame.
+   *
+   * @param region_size The size in bytes of each region
+   * @param regions     The number of regions (typically {@code 3})
+   *
+   * @return A new streaming buffer
+   */
+
+  default R2InstanceStreamingBuffer createStreamingBuffer(
+    final long region_size,
+    final int regions)
+  {
+    return R2InstanceStreamingBuffer.create(
+      this.main().rendererGL33().arrayBuffers(),
+      region_size,
+      regions);
+  }
+
+  /**
+   * Create a new billboarded instance that stores data in a streaming buffer.
+   *
+   * @param stream The streaming buffer
+   * @param size   The size of the billboarded instance
+   *
+   * @return A new billboarded instance
+   */
+
+  default R2InstanceBillboardedDynamic createBillboardedDynamicStreamed(
+    final R2InstanceStreamingBufferType stream,
+    final int size)
+  {
+    return R2InstanceBillboardedDynamic.createStreamed(
+      this.main().idPool(),
+      stream,
+      this.main().rendererGL33().arrayObjects(),
+      size);
+  }
+
+  /**
+   * Create a new batched instance that stores matrices in a streaming buffer.
+   *
+   * @param stream       The streaming buffer
+   * @param array_object The mesh to be used for the instance
+   * @param size         The size of the batched instance
+   *
+   * @return A new batched instance
+   */
+
+  default R2InstanceBatchedDynamic createBatchedDynamicStreamed(
+    final R2InstanceStreamingBufferType stream,
+    final JCGLArrayObjectUsableType array_object,
+    final int size)
+  {
+    return R2InstanceBatchedDynamic.createStreamed(
+      this.main().idPool(),
+      stream,
+      this.main().rendererGL33().arrayObjects(),
+      array_object,
+      size);
+  }
+
   /**
    * Create a single instance that uses a unit cube as the mesh.
    *
@@ -18,6 +18,7 @@ package com.io7m.r2.facade;
 
 import com.io7m.r2.annotations.R2ImmutableStyleType;
 import com.io7m.r2.lights.R2LightAmbientScreenSingle;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowVariance;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowVariance;
 import com.io7m.r2.lights.R2LightSphericalSingle;
 import com.io7m.r2.lights.shadows.R2ShadowDepthVariance;
@@ -64,6 +65,26 @@ public interface R2FacadeLightProviderType
       this.main().idPool());
   }
 
+  /**
+   * Create a new directional light with a cascaded variance shadow.
+   *
+   * @param shadow   The shadow definition
+   * @param cascades The number of cascades
+   *
+   * @return A directional light with a cascaded variance shadow
+   */
+
+  default R2LightDirectionalWithShadowVariance createDirectionalWithShadowVariance(
+    final R2ShadowDepthVariance shadow,
+    final int cascades)
+  {
+    return R2LightDirectionalWithShadowVariance.create(
+      this.main().unitQuad(),
+      shadow,
+      cascades,
+      this.main().idPool());
+  }
+
   /**
    * Create a new projective light with a variance shadow.
    *
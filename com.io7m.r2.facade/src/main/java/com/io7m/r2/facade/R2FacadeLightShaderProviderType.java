@@ -18,6 +18,7 @@ package com.io7m.r2.facade;
 
 import com.io7m.r2.annotations.R2ImmutableStyleType;
 import com.io7m.r2.shaders.light.R2LightShaderAmbientSingle;
+import com.io7m.r2.shaders.light.R2LightShaderDirectionalSpecularShadowVarianceSingle;
 import com.io7m.r2.shaders.light.R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle;
 import com.io7m.r2.shaders.light.R2LightShaderProjectiveLambertBlinnPhongSingle;
 import com.io7m.r2.shaders.light.R2LightShaderProjectiveLambertShadowVarianceSingle;
@@ -91,6 +92,18 @@ public interface R2FacadeLightShaderProviderType
       this.main().idPool());
   }
 
+  /**
+   * @return A directional light shader with a cascaded variance shadow
+   */
+
+  default R2LightShaderDirectionalSpecularShadowVarianceSingle createDirectionalSpecularShadowVarianceSingle()
+  {
+    return R2LightShaderDirectionalSpecularShadowVarianceSingle.create(
+      this.main().rendererGL33().shaders(),
+      this.main().shaderPreprocessingEnvironment(),
+      this.main().idPool());
+  }
+
   /**
    * @return A projective light shader with a variance shadow
    */
@@ -17,6 +17,7 @@
 package com.io7m.r2.facade;
 
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.shaders.api.R2ShaderUniformBufferBinderType;
 import com.io7m.sombrero.core.SoShaderResolverType;
 import org.osgi.service.component.annotations.Component;
 
@@ -39,8 +40,9 @@ public final class R2FacadeProvider implements R2FacadeProviderType
   @Override
   public R2FacadeType create(
     final JCGLInterfaceGL33Type renderer_gl33,
-    final SoShaderResolverType resolver)
+    final SoShaderResolverType resolver,
+    final R2ShaderUniformBufferBinderType binder)
   {
-    return R2Facade.of(renderer_gl33, resolver);
+    return R2Facade.of(renderer_gl33, resolver, binder);
   }
 }
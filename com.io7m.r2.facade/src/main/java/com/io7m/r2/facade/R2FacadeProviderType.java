@@ -17,6 +17,7 @@
 package com.io7m.r2.facade;
 
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.shaders.api.R2ShaderUniformBufferBinderType;
 import com.io7m.sombrero.core.SoShaderResolverType;
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -33,11 +34,14 @@ public interface R2FacadeProviderType
    * @param renderer_gl33 A GL33 interface that will be used for foreground
    *                      rendering operations
    * @param resolver      A shader resolver
+   * @param binder        A function that binds uniform buffers using the
+   *                      context of {@code renderer_gl33}
    *
    * @return A new facade
    */
 
   R2FacadeType create(
     JCGLInterfaceGL33Type renderer_gl33,
-    SoShaderResolverType resolver);
+    SoShaderResolverType resolver,
+    R2ShaderUniformBufferBinderType binder);
 }
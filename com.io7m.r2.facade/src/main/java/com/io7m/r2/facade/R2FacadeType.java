@@ -37,6 +37,7 @@ import com.io7m.r2.meshes.loading.api.R2MeshLoaderAsynchronousType;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaderType;
 import com.io7m.r2.meshes.loading.smf.R2SMFMeshLoaderAsynchronous;
 import com.io7m.r2.meshes.loading.smf.R2SMFMeshLoaderSynchronous;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.R2DepthOnlyRenderer;
 import com.io7m.r2.rendering.depth.api.R2DepthRendererType;
 import com.io7m.r2.rendering.depth.variance.R2DepthVarianceBufferPool;
@@ -59,6 +60,9 @@ import com.io7m.r2.rendering.translucent.R2TranslucentRenderer;
 import com.io7m.r2.rendering.translucent.api.R2TranslucentRendererType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironment;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
+import com.io7m.r2.shaders.api.R2ShaderUniformBufferBinderType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBuffer;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.textures.R2TextureDefaults;
 import com.io7m.r2.textures.R2TextureDefaultsType;
 import com.io7m.r2.unit_cubes.R2UnitCubeType;
@@ -128,6 +132,8 @@ public interface R2FacadeType extends R2DeletableType
     final Collection<R2DeletableType> deletables = new ArrayList<>(16);
     deletables.add(this.debugVisualizerRenderer());
     deletables.add(this.depthRenderer());
+    deletables.add(R2DeletableType.wrap(g33 -> this.shadowMapRenderer().shadowCacheRelease(
+      this.textureUnitAllocator().rootContext())));
     deletables.add(R2DeletableType.wrap(g33 -> this.depthVarianceBufferPool().delete(
       this.textureUnitAllocator().rootContext())));
     deletables.add(this.depthVarianceRenderer());
@@ -141,6 +147,7 @@ public interface R2FacadeType extends R2DeletableType
     deletables.add(this.unitQuad());
     deletables.add(this.unitCube());
     deletables.add(this.unitSphere8());
+    deletables.add(this.viewUniformBuffer());
 
     final AtomicReference<R2Exception> ref = new AtomicReference<>();
     deletables.forEach(d -> {
@@ -187,6 +194,25 @@ public interface R2FacadeType extends R2DeletableType
   @Value.Parameter
   SoShaderResolverType shaderResolver();
 
+  /**
+   * @return The function used to bind uniform buffers
+   */
+
+  @Value.Parameter
+  R2ShaderUniformBufferBinderType uniformBufferBinder();
+
+  /**
+   * @return The uniform buffer that holds the current view values, shared by
+   * all renderers that use {@link #rendererGL33()}
+   */
+
+  @Value.Default
+  default R2ShaderViewUniformBufferType viewUniformBuffer()
+  {
+    return R2ShaderViewUniformBuffer.create(
+      this.rendererGL33().arrayBuffers(), this.uniformBufferBinder());
+  }
+
   /**
    * @return The shader preprocessor
    */
@@ -221,6 +247,7 @@ public interface R2FacadeType extends R2DeletableType
     return R2StencilRenderer.create(
       this.shaderPreprocessingEnvironment(),
       this.rendererGL33(),
+      this.renderStates(),
       this.idPool(),
       this.unitQuad());
   }
@@ -285,6 +312,17 @@ public interface R2FacadeType extends R2DeletableType
       this.textureUnitAllocator().rootContext());
   }
 
+  /**
+   * @return The render state tracker shared by all renderers and filters
+   * that use {@link #rendererGL33()}
+   */
+
+  @Value.Default
+  default R2RenderStateTracker renderStates()
+  {
+    return R2RenderStateTracker.create();
+  }
+
   /**
    * @return A geometry renderer
    */
@@ -292,7 +330,8 @@ public interface R2FacadeType extends R2DeletableType
   @Value.Default
   default R2GeometryRendererType geometryRenderer()
   {
-    return R2GeometryRenderer.create(this.rendererGL33());
+    return R2GeometryRenderer.create(
+      this.rendererGL33(), this.renderStates(), this.viewUniformBuffer());
   }
 
   /**
@@ -303,10 +342,13 @@ public interface R2FacadeType extends R2DeletableType
   default R2LightRendererType lightRenderer()
   {
     return R2LightRenderer.create(
-      this.rendererGL33(), this.textureDefaults(),
+      this.rendererGL33(),
+      this.renderStates(),
+      this.textureDefaults(),
       this.shaderPreprocessingEnvironment(),
       this.idPool(),
-      this.unitQuad());
+      this.unitQuad(),
+      this.viewUniformBuffer());
   }
 
   /**
@@ -348,8 +390,10 @@ public interface R2FacadeType extends R2DeletableType
   {
     return R2DebugVisualizerRenderer.create(
       this.rendererGL33(),
+      this.renderStates(),
       this.shaderPreprocessingEnvironment(),
-      this.idPool());
+      this.idPool(),
+      this.viewUniformBuffer());
   }
 
   /**
@@ -359,7 +403,8 @@ public interface R2FacadeType extends R2DeletableType
   @Value.Default
   default R2DepthRendererType depthRenderer()
   {
-    return R2DepthOnlyRenderer.create(this.rendererGL33());
+    return R2DepthOnlyRenderer.create(
+      this.rendererGL33(), this.renderStates(), this.viewUniformBuffer());
   }
 
   /**
@@ -369,7 +414,8 @@ public interface R2FacadeType extends R2DeletableType
   @Value.Default
   default R2DepthVarianceRendererType depthVarianceRenderer()
   {
-    return R2DepthVarianceRenderer.create(this.rendererGL33());
+    return R2DepthVarianceRenderer.create(
+      this.rendererGL33(), this.renderStates(), this.viewUniformBuffer());
   }
 
   /**
@@ -381,6 +427,7 @@ public interface R2FacadeType extends R2DeletableType
   {
     return R2ShadowMapRenderer.newRenderer(
       this.rendererGL33(),
+      this.renderStates(),
       this.depthVarianceRenderer(),
       this.depthVarianceBufferPool());
   }
@@ -547,7 +594,8 @@ public interface R2FacadeType extends R2DeletableType
   @Value.Default
   default R2TranslucentRendererType translucentRenderer()
   {
-    return R2TranslucentRenderer.newRenderer(this.rendererGL33());
+    return R2TranslucentRenderer.newRenderer(
+      this.rendererGL33(), this.renderStates(), this.viewUniformBuffer());
   }
 
   /**
@@ -559,7 +607,9 @@ public interface R2FacadeType extends R2DeletableType
   {
     return R2MaskRenderer.create(
       this.rendererGL33(),
+      this.renderStates(),
       this.shaderPreprocessingEnvironment(),
-      this.idPool());
+      this.idPool(),
+      this.viewUniformBuffer());
   }
 }
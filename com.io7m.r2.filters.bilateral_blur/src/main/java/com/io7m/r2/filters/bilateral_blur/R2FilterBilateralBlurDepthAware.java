@@ -28,7 +28,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -41,6 +40,7 @@ import com.io7m.r2.filters.bilateral_blur.api.R2BilateralBlurParameters;
 import com.io7m.r2.filters.bilateral_blur.api.R2FilterBilateralBlurDepthAwareParameters;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
 import com.io7m.r2.projections.R2Projections;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetDescriptionType;
 import com.io7m.r2.rendering.targets.R2RenderTargetDescriptions;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
@@ -87,6 +87,7 @@ public final class R2FilterBilateralBlurDepthAware<
   private final R2ShaderFilterType<R2ShaderFilterBilateralBlurDepthAwareParameters> shader_blur_h;
   private final R2ShaderFilterType<R2ShaderFilterBilateralBlurDepthAwareParameters> shader_blur_v;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2RenderTargetPoolUsableType<DD, D> render_target_pool;
   private final R2UnitQuadUsableType quad;
   private final JCGLRenderState render_state;
@@ -94,6 +95,7 @@ public final class R2FilterBilateralBlurDepthAware<
 
   private R2FilterBilateralBlurDepthAware(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2RenderTargetPoolUsableType<DD, D> in_rtp_pool,
     final R2UnitQuadUsableType in_quad,
     final R2ShaderFilterType<R2ShaderFilterBilateralBlurDepthAwareParameters> in_shader_blur_h,
@@ -101,6 +103,8 @@ public final class R2FilterBilateralBlurDepthAware<
   {
     this.g =
       NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
     this.shader_blur_h =
       NullCheck.notNull(in_shader_blur_h, "Shader Blur H");
     this.shader_blur_v =
@@ -118,6 +122,7 @@ public final class R2FilterBilateralBlurDepthAware<
    *
    * @param in_shader_env   Shader sources
    * @param in_g            A GL interface
+   * @param in_states       A render state tracker
    * @param in_tex_defaults The set of default textures
    * @param in_rtp_pool     A render target pool
    * @param in_id_pool      An ID pool
@@ -139,6 +144,7 @@ public final class R2FilterBilateralBlurDepthAware<
   newFilter(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2TextureDefaultsType in_tex_defaults,
     final R2RenderTargetPoolUsableType<DD, D> in_rtp_pool,
     final R2IDPoolType in_id_pool,
@@ -161,6 +167,7 @@ public final class R2FilterBilateralBlurDepthAware<
 
     return new R2FilterBilateralBlurDepthAware<>(
       in_g,
+      in_states,
       in_rtp_pool,
       in_quad,
       s_blur_h,
@@ -354,7 +361,7 @@ public final class R2FilterBilateralBlurDepthAware<
 
     try {
       g_fb.framebufferDrawBind(target_fb);
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
       g_v.viewportSet(target_area);
 
       try {
@@ -395,7 +402,7 @@ public final class R2FilterBilateralBlurDepthAware<
 
     try {
       g_fb.framebufferDrawBind(target_fb);
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
       g_v.viewportSet(target_area);
 
       try {
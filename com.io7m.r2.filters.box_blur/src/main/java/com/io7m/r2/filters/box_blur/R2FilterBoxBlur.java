@@ -29,7 +29,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -40,6 +39,7 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.box_blur.api.R2BlurParameters;
 import com.io7m.r2.filters.box_blur.api.R2FilterBoxBlurParameters;
 import com.io7m.r2.filters.box_blur.api.R2FilterBoxBlurType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetDescriptionType;
 import com.io7m.r2.rendering.targets.R2RenderTargetDescriptions;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
@@ -87,6 +87,7 @@ public final class R2FilterBoxBlur<
   private final R2ShaderFilterType<R2ShaderFilterBoxBlurParameters> shader_blur_h;
   private final R2ShaderFilterType<R2ShaderFilterBoxBlurParameters> shader_blur_v;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2RenderTargetPoolUsableType<DD, D> render_target_pool;
   private final R2UnitQuadUsableType quad;
   private final JCGLRenderState render_state;
@@ -94,6 +95,7 @@ public final class R2FilterBoxBlur<
 
   private R2FilterBoxBlur(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2RenderTargetPoolUsableType<DD, D> in_rtp_pool,
     final R2UnitQuadUsableType in_quad,
     final R2ShaderFilterType<R2ShaderFilterBoxBlurParameters> in_shader_blur_h,
@@ -101,6 +103,8 @@ public final class R2FilterBoxBlur<
   {
     this.g =
       NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
     this.shader_blur_h =
       NullCheck.notNull(in_shader_blur_h, "Shader Blur H");
     this.shader_blur_v =
@@ -118,6 +122,7 @@ public final class R2FilterBoxBlur<
    *
    * @param in_shader_env   Shader sources
    * @param in_g            A GL interface
+   * @param in_states       A render state tracker
    * @param in_tex_defaults The set of default textures
    * @param in_rtp_pool     A render target pool
    * @param in_id_pool      An ID pool
@@ -139,6 +144,7 @@ public final class R2FilterBoxBlur<
   newFilter(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2TextureDefaultsType in_tex_defaults,
     final R2RenderTargetPoolUsableType<DD, D> in_rtp_pool,
     final R2IDPoolType in_id_pool,
@@ -160,7 +166,7 @@ public final class R2FilterBoxBlur<
         g_sh, in_shader_env, in_id_pool);
 
     return new R2FilterBoxBlur<>(
-      in_g, in_rtp_pool, in_quad, s_blur_h, s_blur_v);
+      in_g, in_states, in_rtp_pool, in_quad, s_blur_h, s_blur_v);
   }
 
   @Override
@@ -439,7 +445,7 @@ public final class R2FilterBoxBlur<
     try {
       g_fb.framebufferDrawBind(target_fb);
 
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
       g_v.viewportSet(target_area);
 
       try {
@@ -488,7 +494,7 @@ public final class R2FilterBoxBlur<
     try {
       g_fb.framebufferDrawBind(target_fb);
 
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
       g_v.viewportSet(target_area);
 
       try {
@@ -25,7 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -35,6 +34,7 @@ import com.io7m.r2.filters.compositor.api.R2FilterCompositorBlending;
 import com.io7m.r2.filters.compositor.api.R2FilterCompositorItemType;
 import com.io7m.r2.filters.compositor.api.R2FilterCompositorParameters;
 import com.io7m.r2.filters.compositor.api.R2FilterCompositorType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.filter.api.R2ShaderFilterType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
 import com.io7m.r2.textures.R2TextureDefaultsType;
@@ -51,16 +51,19 @@ public final class R2FilterCompositor implements R2FilterCompositorType
 {
   private final R2ShaderFilterType<R2ShaderFilterTextureShowParameters> shader;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2UnitQuadUsableType quad;
   private final JCGLRenderState render_state;
   private final R2ShaderParametersFilterMutable<R2ShaderFilterTextureShowParameters> values;
 
   private R2FilterCompositor(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderFilterType<R2ShaderFilterTextureShowParameters> in_shader,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.shader = NullCheck.notNull(in_shader, "Shader");
     this.quad = NullCheck.notNull(in_quad, "Quad");
     this.render_state = JCGLRenderState.builder().build();
@@ -73,6 +76,7 @@ public final class R2FilterCompositor implements R2FilterCompositorType
    * @param in_shader_env Shader sources
    * @param in_textures   A texture interface
    * @param in_g          A GL interface
+   * @param in_states     A render state tracker
    * @param in_pool       An ID pool
    * @param in_quad       A unit quad
    *
@@ -83,6 +87,7 @@ public final class R2FilterCompositor implements R2FilterCompositorType
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2TextureDefaultsType in_textures,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
@@ -96,7 +101,7 @@ public final class R2FilterCompositor implements R2FilterCompositorType
       R2ShaderFilterTextureShow.create(
         in_g.shaders(), in_shader_env, in_pool);
 
-    return new R2FilterCompositor(in_g, s, in_quad);
+    return new R2FilterCompositor(in_g, in_states, s, in_quad);
   }
 
   @Override
@@ -144,7 +149,7 @@ public final class R2FilterCompositor implements R2FilterCompositorType
     final JCGLTexturesType g_tx = this.g.textures();
     final JCGLViewportsType g_v = this.g.viewports();
 
-    JCGLRenderStates.activate(this.g, this.render_state);
+    this.states.activate(this.g, this.render_state);
 
     try {
       this.shader.onActivate(this.g);
@@ -189,6 +194,12 @@ public final class R2FilterCompositor implements R2FilterCompositorType
     } finally {
       g_ao.arrayObjectUnbind();
       this.shader.onDeactivate(this.g);
+
+      /*
+       * The blending state is modified directly for each item.
+       */
+
+      this.states.invalidate();
     }
   }
 }
@@ -113,9 +113,9 @@ public final class R2ShaderFilterTextureShow extends
     final JCGLTextureUnitType unit_texture =
       tc.unitContextBindTexture2D(g_tex, values.texture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture, unit_texture);
-    g_sh.shaderUniformPutFloat(
-      this.u_intensity, (float) values.intensity());
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture, unit_texture);
+    this.uniformCache().putFloat(
+      g_sh, this.u_intensity, (float) values.intensity());
   }
 }
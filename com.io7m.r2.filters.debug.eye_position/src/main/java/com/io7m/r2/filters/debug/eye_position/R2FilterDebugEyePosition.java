@@ -29,7 +29,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Unit;
@@ -44,6 +43,7 @@ import com.io7m.r2.filters.debug.eye_position.api.R2EyePositionBufferUsableType;
 import com.io7m.r2.filters.debug.eye_position.api.R2FilterDebugEyePositionParameters;
 import com.io7m.r2.filters.debug.eye_position.api.R2FilterDebugEyePositionType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
 import com.io7m.r2.transforms.R2TransformIdentity;
@@ -73,17 +73,20 @@ public final class R2FilterDebugEyePosition
 
   private final R2ShaderFilterDebugEyePosition shader;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final JCGLRenderState render_state;
   private final R2UnitQuadUsableType quad;
   private final R2ShaderParametersFilterMutable<R2FilterDebugEyePositionParameters> values;
 
   private R2FilterDebugEyePosition(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.quad = NullCheck.notNull(in_quad, "Quad");
 
     this.shader = R2ShaderFilterDebugEyePosition.newShader(
@@ -95,6 +98,7 @@ public final class R2FilterDebugEyePosition
 
   /**
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_shader_env Shader sources
    * @param in_pool       The ID pool
    * @param in_quad       A unit quad
@@ -105,11 +109,13 @@ public final class R2FilterDebugEyePosition
   public static R2FilterType<R2FilterDebugEyePositionParameters>
   newRenderer(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
-    return new R2FilterDebugEyePosition(in_g, in_shader_env, in_pool, in_quad);
+    return new R2FilterDebugEyePosition(
+      in_g, in_states, in_shader_env, in_pool, in_quad);
   }
 
   @Override
@@ -188,7 +194,7 @@ public final class R2FilterDebugEyePosition
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
 
       try {
-        JCGLRenderStates.activate(this.g, this.render_state);
+        this.states.activate(this.g, this.render_state);
         g_v.viewportSet(viewport);
 
         try {
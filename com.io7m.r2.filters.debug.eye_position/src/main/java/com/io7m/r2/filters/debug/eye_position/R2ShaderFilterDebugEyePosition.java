@@ -180,21 +180,25 @@ public final class R2ShaderFilterDebugEyePosition
         g_tex,
         gbuffer.specularTextureOrDefault(values.textureDefaults()).texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
 
     /*
      * Upload the viewport.
      */
 
     final AreaSizeL area = gbuffer.description().area();
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) area.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) area.sizeY()));
 
     /*
@@ -202,8 +206,8 @@ public final class R2ShaderFilterDebugEyePosition
      */
 
     final R2MatricesObserverValuesType m = values.observerValues();
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(m.projection()));
 
     /*
@@ -211,22 +215,22 @@ public final class R2ShaderFilterDebugEyePosition
      */
 
     final R2ViewRaysReadableType view_rays = m.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
+
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
   }
 }
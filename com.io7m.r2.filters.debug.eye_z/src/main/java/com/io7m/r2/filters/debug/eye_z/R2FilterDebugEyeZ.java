@@ -29,7 +29,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Unit;
@@ -42,6 +41,7 @@ import com.io7m.r2.filters.debug.eye_z.api.R2EyeZBufferUsableType;
 import com.io7m.r2.filters.debug.eye_z.api.R2FilterDebugEyeZParameters;
 import com.io7m.r2.filters.debug.eye_z.api.R2FilterDebugEyeZType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderFilterType;
@@ -69,17 +69,20 @@ public final class R2FilterDebugEyeZ implements R2FilterDebugEyeZType
 
   private final R2ShaderFilterType<R2FilterDebugEyeZParameters> shader;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final JCGLRenderState render_state;
   private final R2UnitQuadUsableType quad;
   private final R2ShaderParametersFilterMutable<R2FilterDebugEyeZParameters> values;
 
   private R2FilterDebugEyeZ(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.quad = NullCheck.notNull(in_quad, "Quad");
 
     this.shader = R2ShaderFilterDebugEyeZ.newShader(
@@ -91,6 +94,7 @@ public final class R2FilterDebugEyeZ implements R2FilterDebugEyeZType
 
   /**
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_shader_env Shader sources
    * @param in_pool       The ID pool
    * @param in_quad       A unit quad
@@ -100,11 +104,13 @@ public final class R2FilterDebugEyeZ implements R2FilterDebugEyeZType
 
   public static R2FilterType<R2FilterDebugEyeZParameters> newFilter(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
-    return new R2FilterDebugEyeZ(in_g, in_shader_env, in_pool, in_quad);
+    return new R2FilterDebugEyeZ(
+      in_g, in_states, in_shader_env, in_pool, in_quad);
   }
 
   @Override
@@ -183,7 +189,7 @@ public final class R2FilterDebugEyeZ implements R2FilterDebugEyeZType
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
 
       try {
-        JCGLRenderStates.activate(this.g, this.render_state);
+        this.states.activate(this.g, this.render_state);
         g_v.viewportSet(zbuffer.sizeAsViewport());
 
         try {
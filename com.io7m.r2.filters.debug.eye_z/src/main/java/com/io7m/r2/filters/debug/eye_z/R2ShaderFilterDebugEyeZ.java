@@ -155,21 +155,25 @@ public final class R2ShaderFilterDebugEyeZ
         g_tex,
         gbuffer.depthTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
 
     /*
      * Upload the viewport.
      */
 
     final AreaSizeL area = gbuffer.description().area();
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) area.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) area.sizeY()));
 
     /*
@@ -177,8 +181,8 @@ public final class R2ShaderFilterDebugEyeZ
      */
 
     final R2MatricesObserverValuesType m = values.observerValues();
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(m.projection()));
   }
 }
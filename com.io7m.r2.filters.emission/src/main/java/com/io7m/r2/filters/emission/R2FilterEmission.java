@@ -31,7 +31,6 @@ import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateType;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -48,6 +47,7 @@ import com.io7m.r2.filters.emission.api.R2FilterEmissionParameters;
 import com.io7m.r2.filters.emission.api.R2FilterEmissionType;
 import com.io7m.r2.images.api.R2ImageBufferDescription;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetDescriptions;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -71,6 +71,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
     R2ImageBufferUsableType>> filter_blur;
   private final R2ShaderFilterType<R2ShaderFilterEmissionParameters> shader_emission;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2RenderTargetPoolUsableType<
     R2ImageBufferDescription, R2ImageBufferUsableType> render_target_pool;
   private final R2UnitQuadUsableType quad;
@@ -82,6 +83,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
     final R2FilterUsableType<R2FilterBoxBlurParameters<R2ImageBufferDescription, R2ImageBufferUsableType, R2ImageBufferDescription, R2ImageBufferUsableType>> in_blur,
     final R2ShaderFilterType<R2ShaderFilterEmissionParameters> in_shader_emission,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2RenderTargetPoolUsableType<R2ImageBufferDescription, R2ImageBufferUsableType> in_render_target_pool,
     final R2UnitQuadUsableType in_quad)
   {
@@ -91,6 +93,8 @@ public final class R2FilterEmission implements R2FilterEmissionType
       NullCheck.notNull(in_shader_emission, "Emission");
     this.g =
       NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
     this.render_target_pool =
       NullCheck.notNull(in_render_target_pool, "Render target pool");
     this.quad =
@@ -118,6 +122,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
    * Construct a new emission filter.
    *
    * @param in_g                  A GL interface
+   * @param in_states             A render state tracker
    * @param in_shader_env         Access to shader sources
    * @param in_id_pool            An ID pool
    * @param in_blur               A blur filter
@@ -129,6 +134,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
 
   public static R2FilterEmissionType newFilter(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_id_pool,
     final R2FilterUsableType<
@@ -150,6 +156,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
       in_blur,
       in_shader_emission,
       in_g,
+      in_states,
       in_render_target_pool,
       in_quad);
   }
@@ -331,7 +338,7 @@ public final class R2FilterEmission implements R2FilterEmissionType
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
       try {
         g_v.viewportSet(output_viewport);
-        JCGLRenderStates.activate(this.g, r_state);
+        this.states.activate(this.g, r_state);
         try {
           this.values.setTextureUnitContext(tc);
           this.values.setValues(
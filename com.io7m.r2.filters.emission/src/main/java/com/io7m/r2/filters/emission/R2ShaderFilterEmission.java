@@ -126,14 +126,15 @@ public final class R2ShaderFilterEmission
       tc.unitContextBindTexture2D(
         g_tex, values.glowTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_albedo_emission_texture, unit_emission_texture);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_glow_texture, unit_glow_texture);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_albedo_emission_texture, unit_emission_texture);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_glow_texture, unit_glow_texture);
 
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_albedo_emission_intensity, (float) values.emissionIntensity());
-    g_sh.shaderUniformPutFloat(
-      this.u_glow_intensity, (float) values.glowIntensity());
+    this.uniformCache().putFloat(
+      g_sh, this.u_glow_intensity, (float) values.glowIntensity());
   }
 }
@@ -26,7 +26,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -34,6 +33,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.fog.api.R2FilterFogParameters;
 import com.io7m.r2.filters.fog.api.R2FilterFogType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderFilterType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
@@ -59,17 +59,20 @@ public final class R2FilterFogDepth implements R2FilterFogType
   private final R2ShaderFilterFogDepthQuadratic shader_quad;
   private final R2ShaderFilterFogDepthQuadraticInverse shader_quad_inv;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final JCGLRenderState render_state;
   private final R2UnitQuadUsableType quad;
   private final R2ShaderParametersFilterMutable<R2ShaderFilterFogParameters> values;
 
   private R2FilterFogDepth(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.quad = NullCheck.notNull(in_quad, "Quad");
 
     this.shader_linear = R2ShaderFilterFogDepthLinear.create(
@@ -85,6 +88,7 @@ public final class R2FilterFogDepth implements R2FilterFogType
 
   /**
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_shader_env Shader sources
    * @param in_pool       The ID pool
    * @param in_quad       A unit quad
@@ -94,11 +98,13 @@ public final class R2FilterFogDepth implements R2FilterFogType
 
   public static R2FilterFogDepth newFilter(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
-    return new R2FilterFogDepth(in_g, in_shader_env, in_pool, in_quad);
+    return new R2FilterFogDepth(
+      in_g, in_states, in_shader_env, in_pool, in_quad);
   }
 
   @Override
@@ -172,7 +178,7 @@ public final class R2FilterFogDepth implements R2FilterFogType
       final JCGLTextureUnitContextType tc = uc.unitContextNew();
 
       try {
-        JCGLRenderStates.activate(this.g, this.render_state);
+        this.states.activate(this.g, this.render_state);
         g_v.viewportSet(parameters.viewport());
 
         try {
@@ -25,7 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -36,6 +35,7 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.fxaa.api.R2FilterFXAAParameters;
 import com.io7m.r2.filters.fxaa.api.R2FilterFXAAQuality;
 import com.io7m.r2.filters.fxaa.api.R2FilterFXAAType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
 import com.io7m.r2.shaders.fxaa.R2ShaderFilterFXAA;
@@ -59,6 +59,7 @@ import java.util.Map;
 public final class R2FilterFXAA implements R2FilterFXAAType
 {
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final Map<R2FilterFXAAQuality, R2ShaderFilterFXAA> shaders;
   private final R2UnitQuadUsableType quad;
   private final JCGLRenderState render_state;
@@ -67,11 +68,14 @@ public final class R2FilterFXAA implements R2FilterFXAAType
 
   private R2FilterFXAA(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final EnumMap<R2FilterFXAAQuality, R2ShaderFilterFXAA> in_shaders,
     final R2UnitQuadUsableType in_quad)
   {
     this.g =
       NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
     this.shaders =
       NullCheck.notNull(in_shaders, "Shaders");
     this.quad =
@@ -85,6 +89,7 @@ public final class R2FilterFXAA implements R2FilterFXAAType
    * Create a new FXAA filter.
    *
    * @param in_g          A GL interface
+   * @param in_states     A render state tracker
    * @param in_shader_env Shader sources
    * @param in_id_pool    An ID pool
    * @param in_quad       A unit quad
@@ -94,6 +99,7 @@ public final class R2FilterFXAA implements R2FilterFXAAType
 
   public static R2FilterFXAAType newFilter(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_id_pool,
     final R2UnitQuadUsableType in_quad)
@@ -112,7 +118,7 @@ public final class R2FilterFXAA implements R2FilterFXAAType
           shaderQuality(c)));
     }
 
-    return new R2FilterFXAA(in_g, sh, in_quad);
+    return new R2FilterFXAA(in_g, in_states, sh, in_quad);
   }
 
   private static RShaderFXAAQuality shaderQuality(
@@ -202,7 +208,7 @@ public final class R2FilterFXAA implements R2FilterFXAAType
       final R2ShaderFilterFXAA sh = this.shaders.get(parameters.quality());
 
       g_v.viewportSet(AreaSizesL.area(t.texture().size()));
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
 
       try {
         sh.onActivate(this.g);
@@ -27,7 +27,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Unit;
@@ -37,6 +36,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.light_applicator.api.R2FilterLightApplicatorParameters;
 import com.io7m.r2.filters.light_applicator.api.R2FilterLightApplicatorType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.rendering.lights.api.R2LightBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -75,16 +75,19 @@ public final class R2FilterLightApplicator implements
 
   private final R2ShaderFilterType<R2ShaderFilterLightApplicatorParameters> shader;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2UnitQuadUsableType quad;
   private final JCGLRenderState render_state;
   private final R2ShaderParametersFilterMutable<R2ShaderFilterLightApplicatorParameters> values;
 
   private R2FilterLightApplicator(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderFilterType<R2ShaderFilterLightApplicatorParameters> in_shader,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.shader = NullCheck.notNull(in_shader, "Shader");
     this.quad = NullCheck.notNull(in_quad, "Quad");
     this.render_state = JCGLRenderState.builder().build();
@@ -141,6 +144,7 @@ public final class R2FilterLightApplicator implements
    *
    * @param in_shader_env Shader sources
    * @param in_g          A GL interface
+   * @param in_states     A render state tracker
    * @param in_pool       An ID pool
    * @param in_quad       A unit quad
    *
@@ -150,6 +154,7 @@ public final class R2FilterLightApplicator implements
   public static R2FilterLightApplicator newFilter(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
@@ -162,7 +167,7 @@ public final class R2FilterLightApplicator implements
       R2ShaderFilterLightApplicator.newShader(
         in_g.shaders(), in_shader_env, in_pool);
 
-    return new R2FilterLightApplicator(in_g, s, in_quad);
+    return new R2FilterLightApplicator(in_g, in_states, s, in_quad);
   }
 
   @Override
@@ -234,7 +239,7 @@ public final class R2FilterLightApplicator implements
     }
 
     g_v.viewportSet(parameters.outputViewport());
-    JCGLRenderStates.activate(this.g, this.render_state);
+    this.states.activate(this.g, this.render_state);
 
     final JCGLTextureUnitContextType c = uc.unitContextNew();
     try {
@@ -121,11 +121,11 @@ public final class R2ShaderFilterLightApplicator extends
     final JCGLTextureUnitType unit_specular =
       tc.unitContextBindTexture2D(g_tex, values.specularTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_diffuse, unit_diffuse);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_diffuse, unit_diffuse);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_specular, unit_specular);
   }
 }
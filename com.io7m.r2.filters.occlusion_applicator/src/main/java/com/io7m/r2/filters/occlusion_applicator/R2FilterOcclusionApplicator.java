@@ -39,6 +39,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.occlusion_applicator.api.R2FilterOcclusionApplicatorParameters;
 import com.io7m.r2.filters.occlusion_applicator.api.R2FilterOcclusionApplicatorType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.lights.api.R2LightBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
@@ -53,16 +54,19 @@ public final class R2FilterOcclusionApplicator
   implements R2FilterOcclusionApplicatorType
 {
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final R2ShaderFilterOcclusionApplicator shader;
   private final R2UnitQuadUsableType quad;
   private final R2ShaderParametersFilterMutable<R2ShaderFilterOcclusionApplicatorParameters> values;
 
   private R2FilterOcclusionApplicator(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderFilterOcclusionApplicator in_shader,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.shader = NullCheck.notNull(in_shader, "Shader");
     this.quad = NullCheck.notNull(in_quad, "Quad");
     this.values = R2ShaderParametersFilterMutable.create();
@@ -74,6 +78,7 @@ public final class R2FilterOcclusionApplicator
    * @param in_shader_env Shader sources
    * @param in_textures   A texture interface
    * @param in_g          A GL interface
+   * @param in_states     A render state tracker
    * @param in_pool       An ID pool
    * @param in_quad       A unit quad
    *
@@ -84,6 +89,7 @@ public final class R2FilterOcclusionApplicator
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2TextureDefaultsType in_textures,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
@@ -97,7 +103,7 @@ public final class R2FilterOcclusionApplicator
       R2ShaderFilterOcclusionApplicator.create(
         in_g.shaders(), in_shader_env, in_pool);
 
-    return new R2FilterOcclusionApplicator(in_g, s, in_quad);
+    return new R2FilterOcclusionApplicator(in_g, in_states, s, in_quad);
   }
 
   @Override
@@ -157,6 +163,13 @@ public final class R2FilterOcclusionApplicator
 
     g_fb.framebufferDrawBind(lb.primaryFramebuffer());
 
+    /*
+     * The state is modified directly, so the shared render state tracker
+     * must be invalidated.
+     */
+
+    this.states.invalidate();
+
     if (g_db.depthBufferGetBits() > 0) {
       g_db.depthBufferTestDisable();
       g_db.depthBufferWriteDisable();
@@ -35,7 +35,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Pair;
@@ -46,6 +45,7 @@ import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.filters.ssao.api.R2AmbientOcclusionBufferDescription;
 import com.io7m.r2.filters.ssao.api.R2AmbientOcclusionBufferType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 import com.io7m.r2.textures.R2Texture2DStatic;
 import com.io7m.r2.textures.R2Texture2DType;
@@ -191,7 +191,8 @@ public final class R2AmbientOcclusionBuffer
 
   @Override
   public void clearBoundPrimaryFramebuffer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -206,7 +207,7 @@ public final class R2AmbientOcclusionBuffer
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 
@@ -28,7 +28,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.core.api.JCGLViewportsType;
 import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jnull.NullCheck;
@@ -39,6 +38,7 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.filters.ssao.api.R2AmbientOcclusionBufferUsableType;
 import com.io7m.r2.filters.ssao.api.R2FilterSSAOParameters;
 import com.io7m.r2.filters.ssao.api.R2FilterSSAOType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.filter.api.R2ShaderFilterType;
 import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
@@ -57,16 +57,19 @@ public final class R2FilterSSAO implements R2FilterSSAOType
   private final R2ShaderFilterType<R2ShaderSSAOParameters> shader;
   private final R2UnitQuadUsableType quad;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final JCGLClearSpecification clear;
   private final JCGLRenderState render_state;
   private final R2ShaderParametersFilterMutable<R2ShaderSSAOParameters> values;
 
   private R2FilterSSAO(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderFilterType<R2ShaderSSAOParameters> in_shader,
     final R2UnitQuadUsableType in_quad)
   {
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     this.shader = NullCheck.notNull(in_shader, "Shader");
     this.quad = NullCheck.notNull(in_quad, "Quad");
 
@@ -85,6 +88,7 @@ public final class R2FilterSSAO implements R2FilterSSAOType
    *
    * @param in_shader_env Shader sources
    * @param in_g          A GL interface
+   * @param in_states     A render state tracker
    * @param in_pool       An ID pool
    * @param in_quad       A unit quad
    *
@@ -94,6 +98,7 @@ public final class R2FilterSSAO implements R2FilterSSAOType
   public static R2FilterSSAO newFilter(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
@@ -105,7 +110,7 @@ public final class R2FilterSSAO implements R2FilterSSAOType
     final R2ShaderFilterType<R2ShaderSSAOParameters> s =
       R2ShaderSSAO.create(in_g.shaders(), in_shader_env, in_pool);
 
-    return new R2FilterSSAO(in_g, s, in_quad);
+    return new R2FilterSSAO(in_g, in_states, s, in_quad);
   }
 
   @Override
@@ -163,7 +168,7 @@ public final class R2FilterSSAO implements R2FilterSSAOType
 
     g_fb.framebufferDrawBind(destination.primaryFramebuffer());
 
-    JCGLRenderStates.activate(this.g, this.render_state);
+    this.states.activate(this.g, this.render_state);
     g_v.viewportSet(viewport);
     g_cl.clear(this.clear);
 
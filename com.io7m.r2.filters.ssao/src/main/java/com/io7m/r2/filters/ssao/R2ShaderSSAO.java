@@ -194,37 +194,37 @@ public final class R2ShaderSSAO
 
     final R2MatricesObserverValuesType view = values.viewMatrices();
     final R2ViewRaysReadableType view_rays = view.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
+
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
+    this.uniformCache().putVector3f(
+      g_sh, this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
 
     /*
      * Upload the projections for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_ssao_transform_projection, view.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_ssao_transform_projection, view.matrixProjection());
 
     /*
      * Upload the scene's depth coefficient.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(view.projection()));
 
     final JCGLTextureUnitType unit_noise = tc.unitContextBindTexture2D(
@@ -240,10 +240,10 @@ public final class R2ShaderSSAO
       tc.unitContextBindTexture2D(g_tex, gbuffer.depthTexture().texture());
     final JCGLTextureUnitType unit_normals =
       tc.unitContextBindTexture2D(g_tex, gbuffer.normalTexture().texture());
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
 
     /*
      * Upload the SSAO-specific parameters.
@@ -255,19 +255,19 @@ public final class R2ShaderSSAO
       (double) viewport_area.sizeX() / (double) noise.width(),
       (double) viewport_area.sizeY() / (double) noise.height());
 
-    g_sh.shaderUniformPutVector2f(
-      this.u_ssao_noise_uv_scale, noise_uv_scale);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_ssao_texture_noise, unit_noise);
-    g_sh.shaderUniformPutFloat(
-      this.u_ssao_sample_radius, (float) values.sampleRadius());
-    g_sh.shaderUniformPutFloat(
-      this.u_ssao_power, (float) values.exponent());
+    this.uniformCache().putVector2f(
+      g_sh, this.u_ssao_noise_uv_scale, noise_uv_scale);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_ssao_texture_noise, unit_noise);
+    this.uniformCache().putFloat(
+      g_sh, this.u_ssao_sample_radius, (float) values.sampleRadius());
+    this.uniformCache().putFloat(
+      g_sh, this.u_ssao_power, (float) values.exponent());
 
     final R2SSAOKernelReadableType k = values.kernel();
     if (this.shouldSetKernel(k)) {
       g_sh.shaderUniformPutVectorf(this.u_ssao_kernel, k.floatBuffer());
-      g_sh.shaderUniformPutInteger(this.u_ssao_kernel_size, k.size());
+      this.uniformCache().putInteger(g_sh, this.u_ssao_kernel_size, k.size());
       this.kernel_last = k;
       this.kernel_version = k.version();
     }
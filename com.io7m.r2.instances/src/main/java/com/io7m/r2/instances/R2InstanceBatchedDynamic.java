@@ -21,19 +21,17 @@ import com.io7m.jcanephora.core.JCGLArrayBufferType;
 import com.io7m.jcanephora.core.JCGLArrayObjectBuilderType;
 import com.io7m.jcanephora.core.JCGLArrayObjectType;
 import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
-import com.io7m.jcanephora.core.JCGLBufferUpdateType;
-import com.io7m.jcanephora.core.JCGLBufferUpdates;
+import com.io7m.jcanephora.core.JCGLBufferUpdate;
 import com.io7m.jcanephora.core.JCGLException;
 import com.io7m.jcanephora.core.JCGLScalarType;
-import com.io7m.jcanephora.core.JCGLUsageHint;
 import com.io7m.jcanephora.core.api.JCGLArrayBuffersType;
 import com.io7m.jcanephora.core.api.JCGLArrayObjectsType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jnull.NullCheck;
-import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.jtensors.storage.bytebuffered.PMatrixByteBuffered4x4Type;
 import com.io7m.jtensors.storage.bytebuffered.PMatrixByteBuffered4x4s32;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.mutable.numbers.core.MutableLong;
 import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
@@ -41,9 +39,10 @@ import com.io7m.r2.meshes.api.R2MeshAttributeConventions;
 import com.io7m.r2.spaces.R2SpaceObjectType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
 import com.io7m.r2.transforms.R2TransformOrthogonalReadableType;
-import it.unimi.dsi.fastutil.ints.IntAVLTreeSet;
-import it.unimi.dsi.fastutil.ints.IntSortedSet;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
 import java.util.function.Consumer;
 
 /**
@@ -51,139 +50,231 @@ import java.util.function.Consumer;
  * interface.</p>
  *
  * <p>This implementation manages a fixed size batch of {@code N} instances. It
- * stores per-instance matrices in a vertex buffer object, and uses an
- * "orphaning" strategy where the entire buffer storage is reallocated and
- * populated on each call to {@link #update(JCGLInterfaceGL33Type)}.</p>
+ * stores per-instance matrices in a slice of a vertex buffer object. Enabled
+ * instances are kept packed into the first {@link #enabledCount()} slots of
+ * the slice so that only enabled instances are rendered: disabling an
+ * instance moves the instance in the last occupied slot into the vacated
+ * slot. The identifiers returned by {@link #enableInstance(R2TransformOrthogonalReadableType)}
+ * are handles that remain valid for as long as the instance is enabled,
+ * regardless of the slot that the instance occupies.</p>
+ *
+ * <p>Batches created with {@link #create(R2IDPoolType, JCGLArrayBuffersType,
+ * JCGLArrayObjectsType, JCGLArrayObjectUsableType, int)} own a buffer that
+ * holds exactly one slice. Batches created with {@link
+ * #createStreamed(R2IDPoolType, R2InstanceStreamingBufferType,
+ * JCGLArrayObjectsType, JCGLArrayObjectUsableType, int)} allocate one slice
+ * in each region of a shared {@link R2InstanceStreamingBufferType}, with one
+ * array object per region, and write into the slice in the current region on
+ * each update.</p>
+ *
+ * <p>Each slot in the
+ * batch is marked as dirty when the transform of the instance in that slot
+ * changes, or when an instance is enabled or disabled in that slot. Dirty
+ * slots are tracked separately for each region, so that a region that was
+ * last written several frames ago receives all of the changes made since.
+ * A call to {@link #update(JCGLInterfaceGL33Type)} recalculates the matrices
+ * of changed slots only, coalesces the dirty slots of the current region into
+ * ranges, and uploads each range separately. If more than half of the slots
+ * are dirty, the entire slice is uploaded at once; a batch that owns its
+ * buffer additionally "orphans" the buffer storage beforehand.</p>
  */
 
 public final class R2InstanceBatchedDynamic
   implements R2InstanceBatchedDynamicType
 {
+  /**
+   * The size in bytes of a single matrix.
+   */
+
+  private static final int MATRIX_SIZE = 16 * 4;
+
+  /**
+   * Dirty ranges separated by at most this many clean slots are uploaded as a
+   * single range; re-uploading a few clean matrices is cheaper than issuing
+   * another buffer update.
+   */
+
+  private static final int MERGE_GAP = 4;
+
   private final long instance_id;
   private final R2TransformOrthogonalReadableType[] members;
-  private final IntSortedSet free;
+  private final int[] handle_slots;
+  private final int[] slot_handles;
+  private final int[] free_handles;
+  private int free_count;
+  private int count;
   private final int max_size;
-  private final JCGLArrayBufferType matrix_vbo;
-  private final JCGLArrayObjectType matrix_vao;
-  private final JCGLBufferUpdateType<JCGLArrayBufferType> update_vbo;
+  private final R2InstanceStreamingBufferType stream;
+  private final boolean stream_exclusive;
+  private final long slice_offset;
+  private final JCGLArrayObjectType[] matrix_vaos;
+  private final ByteBuffer matrix_data;
   private final MutableLong index;
   private final PMatrixByteBuffered4x4Type<R2SpaceObjectType, R2SpaceWorldType> matrix_pointer;
-  private final Consumer<R2TransformOrthogonalReadableType> update_consumer;
+  private final SlotWatcher[] watchers;
+  private final BitSet stale;
+  private final BitSet[] dirty;
+  private int region_written;
   private boolean update_required;
+  private long uploaded;
 
   private R2InstanceBatchedDynamic(
-    final JCGLArrayBuffersType g_ab,
     final JCGLArrayObjectsType g_ao,
     final JCGLArrayObjectUsableType o,
+    final R2InstanceStreamingBufferType in_stream,
+    final boolean in_stream_exclusive,
     final long in_id,
     final int count)
   {
-    NullCheck.notNull(g_ab, "Array buffers");
     NullCheck.notNull(g_ao, "Array objects");
     NullCheck.notNull(o, "Array object");
+    NullCheck.notNull(in_stream, "Stream");
 
-    Preconditions.checkPreconditionI(
-      count,
-      count > 0,
-      c -> "Count " + c + " must be positive");
+    checkCount(count);
 
     this.instance_id = in_id;
     this.max_size = count;
-    this.free = new IntAVLTreeSet();
+    this.stream = in_stream;
+    this.stream_exclusive = in_stream_exclusive;
     this.members = new R2TransformOrthogonalReadableType[count];
+    this.handle_slots = new int[count];
+    this.slot_handles = new int[count];
+    this.free_handles = new int[count];
+    this.watchers = new SlotWatcher[count];
+    this.stale = new BitSet(count);
+
+    final int regions = in_stream.regionCount();
+    this.dirty = new BitSet[regions];
+    for (int r = 0; r < regions; ++r) {
+      this.dirty[r] = new BitSet(count);
+    }
+
+    /*
+     * Handles are stacked in descending order so that they are handed out
+     * in ascending order.
+     */
 
     for (int i = 0; i < count; ++i) {
-      this.free.add(i);
+      this.handle_slots[i] = -1;
+      this.slot_handles[i] = -1;
+      this.free_handles[i] = (count - 1) - i;
+      this.watchers[i] = new SlotWatcher(i);
     }
+    this.free_count = count;
+    this.count = 0;
 
-    JCGLArrayBufferType vbo = null;
-    JCGLArrayObjectType vao = null;
-
-    try {
+    /*
+     * Allocate a slice of the stream to store one model matrix per instance,
+     * and an array object for each region that sources the matrices from
+     * the slice within that region.
+     */
 
-      /*
-        Allocate a buffer to store one model matrix per instance.
-       */
-
-      vbo = g_ab.arrayBufferAllocate(
-        16L * 4L * (long) count, JCGLUsageHint.USAGE_DYNAMIC_DRAW);
-      g_ab.arrayBufferUnbind();
-
-      final JCGLArrayObjectBuilderType aob =
-        g_ao.arrayObjectNewBuilderFromObject(o);
-
-      o.indexBufferBound().ifPresent(aob::setIndexBuffer);
-      aob.setStrictChecking(true);
-
-      final int stride = 16 * 4;
-      long offset = 0L;
-      aob.setAttributeFloatingPointWithDivisor(
-        R2MeshAttributeConventions.batchedModelMatrixColumn0AttributeIndex(),
-        vbo,
-        4,
-        JCGLScalarType.TYPE_FLOAT,
-        stride,
-        offset,
-        false,
-        1);
-      offset += 4L * 4L;
-      aob.setAttributeFloatingPointWithDivisor(
-        R2MeshAttributeConventions.batchedModelMatrixColumn1AttributeIndex(),
-        vbo,
-        4,
-        JCGLScalarType.TYPE_FLOAT,
-        stride,
-        offset,
-        false,
-        1);
-      offset += 4L * 4L;
-      aob.setAttributeFloatingPointWithDivisor(
-        R2MeshAttributeConventions.batchedModelMatrixColumn2AttributeIndex(),
-        vbo,
-        4,
-        JCGLScalarType.TYPE_FLOAT,
-        stride,
-        offset,
-        false,
-        1);
-      offset += 4L * 4L;
-      aob.setAttributeFloatingPointWithDivisor(
-        R2MeshAttributeConventions.batchedModelMatrixColumn3AttributeIndex(),
-        vbo,
-        4,
-        JCGLScalarType.TYPE_FLOAT,
-        stride,
-        offset,
-        false,
-        1);
-
-      vao = g_ao.arrayObjectAllocate(aob);
-      g_ao.arrayObjectUnbind();
+    final long slice_size = (long) MATRIX_SIZE * (long) count;
+    final long offset = in_stream.allocate(slice_size);
+    final JCGLArrayObjectType[] vaos = new JCGLArrayObjectType[regions];
 
-    } catch (final JCGLException e) {
-      if (vbo != null) {
-        g_ab.arrayBufferDelete(vbo);
+    try {
+      for (int r = 0; r < regions; ++r) {
+        vaos[r] = newArrayObject(
+          g_ao,
+          o,
+          in_stream.arrayBuffer(),
+          in_stream.regionOffset(r) + offset);
       }
-      if (vao != null) {
-        g_ao.arrayObjectDelete(vao);
+    } catch (final JCGLException e) {
+      for (int r = 0; r < regions; ++r) {
+        if (vaos[r] != null) {
+          g_ao.arrayObjectDelete(vaos[r]);
+        }
       }
+      in_stream.release(offset, slice_size);
       throw e;
     }
 
-    this.matrix_vbo = vbo;
-    this.matrix_vao = vao;
-    this.update_vbo = JCGLBufferUpdates.newUpdateReplacingAll(this.matrix_vbo);
+    this.slice_offset = offset;
+    this.matrix_vaos = vaos;
+    this.matrix_data =
+      ByteBuffer.allocateDirect(Math.toIntExact(slice_size))
+        .order(ByteOrder.nativeOrder());
     this.index = MutableLong.create();
+    this.region_written = in_stream.regionCurrent();
     this.update_required = true;
-    this.update_consumer = transform -> this.update_required = true;
+    this.uploaded = 0L;
 
     this.matrix_pointer =
       PMatrixByteBuffered4x4s32.createWithBase(
-        this.update_vbo.data(), this.index, 0);
+        this.matrix_data, this.index, 0);
+  }
+
+  private static void checkCount(final int count)
+  {
+    Preconditions.checkPreconditionI(
+      count,
+      count > 0,
+      c -> "Count " + c + " must be positive");
+  }
+
+  private static JCGLArrayObjectType newArrayObject(
+    final JCGLArrayObjectsType g_ao,
+    final JCGLArrayObjectUsableType o,
+    final JCGLArrayBufferType vbo,
+    final long base)
+  {
+    final JCGLArrayObjectBuilderType aob =
+      g_ao.arrayObjectNewBuilderFromObject(o);
+
+    o.indexBufferBound().ifPresent(aob::setIndexBuffer);
+    aob.setStrictChecking(true);
+
+    final int stride = MATRIX_SIZE;
+    long offset = base;
+    aob.setAttributeFloatingPointWithDivisor(
+      R2MeshAttributeConventions.batchedModelMatrixColumn0AttributeIndex(),
+      vbo,
+      4,
+      JCGLScalarType.TYPE_FLOAT,
+      stride,
+      offset,
+      false,
+      1);
+    offset += 4L * 4L;
+    aob.setAttributeFloatingPointWithDivisor(
+      R2MeshAttributeConventions.batchedModelMatrixColumn1AttributeIndex(),
+      vbo,
+      4,
+      JCGLScalarType.TYPE_FLOAT,
+      stride,
+      offset,
+      false,
+      1);
+    offset += 4L * 4L;
+    aob.setAttributeFloatingPointWithDivisor(
+      R2MeshAttributeConventions.batchedModelMatrixColumn2AttributeIndex(),
+      vbo,
+      4,
+      JCGLScalarType.TYPE_FLOAT,
+      stride,
+      offset,
+      false,
+      1);
+    offset += 4L * 4L;
+    aob.setAttributeFloatingPointWithDivisor(
+      R2MeshAttributeConventions.batchedModelMatrixColumn3AttributeIndex(),
+      vbo,
+      4,
+      JCGLScalarType.TYPE_FLOAT,
+      stride,
+      offset,
+      false,
+      1);
+
+    final JCGLArrayObjectType vao = g_ao.arrayObjectAllocate(aob);
+    g_ao.arrayObjectUnbind();
+    return vao;
   }
 
   /**
-   * Construct a new batch of instances.
+   * Construct a new batch of instances that owns its own buffer.
    *
    * @param pool  The ID pool
    * @param g_ab  An array buffer interface
@@ -202,7 +293,49 @@ public final class R2InstanceBatchedDynamic
     final int count)
   {
     NullCheck.notNull(pool, "Pool");
-    return new R2InstanceBatchedDynamic(g_ab, g_ao, o, pool.freshID(), count);
+    NullCheck.notNull(g_ab, "Array buffers");
+    checkCount(count);
+
+    final R2InstanceStreamingBuffer stream =
+      R2InstanceStreamingBuffer.createExclusive(
+        g_ab, (long) MATRIX_SIZE * (long) count);
+
+    try {
+      return new R2InstanceBatchedDynamic(
+        g_ao, o, stream, true, pool.freshID(), count);
+    } catch (final JCGLException e) {
+      g_ab.arrayBufferDelete(stream.arrayBuffer());
+      throw e;
+    }
+  }
+
+  /**
+   * Construct a new batch of instances that stores matrices in a shared
+   * streaming buffer. The batch must be deleted before the stream.
+   *
+   * @param pool   The ID pool
+   * @param stream The streaming buffer
+   * @param g_ao   An array object interface
+   * @param o      An existing array object
+   * @param count  The maximum number of instances in the batch
+   *
+   * @return A new batch
+   *
+   * @throws R2ExceptionInstanceStreamingBufferIsFull If the stream does not
+   *                                                  have room for the batch
+   */
+
+  public static R2InstanceBatchedDynamic createStreamed(
+    final R2IDPoolType pool,
+    final R2InstanceStreamingBufferType stream,
+    final JCGLArrayObjectsType g_ao,
+    final JCGLArrayObjectUsableType o,
+    final int count)
+    throws R2ExceptionInstanceStreamingBufferIsFull
+  {
+    NullCheck.notNull(pool, "Pool");
+    return new R2InstanceBatchedDynamic(
+      g_ao, o, stream, false, pool.freshID(), count);
   }
 
   @Override
@@ -214,28 +347,76 @@ public final class R2InstanceBatchedDynamic
   @Override
   public int enabledCount()
   {
-    return this.max_size - this.free.size();
+    return this.count;
   }
 
   @Override
   public int renderCount()
   {
-    return this.max_size;
+    return this.count;
   }
 
   @Override
   public void disableAll()
   {
-    for (int i = 0; i < this.max_size; ++i) {
-      this.remove(i);
+    while (this.count > 0) {
+      this.remove(this.slot_handles[this.count - 1]);
+    }
+  }
+
+  private void remove(final int handle)
+  {
+    final int slot = this.handle_slots[handle];
+    if (slot < 0) {
+      return;
+    }
+
+    final R2TransformOrthogonalReadableType t = this.members[slot];
+    t.transformOrthogonalGetWatchable().watchableRemove(this.watchers[slot]);
+
+    /*
+     * Move the instance in the last occupied slot into the vacated slot.
+     * Registering the watcher for the new slot marks the slot as dirty.
+     */
+
+    final int last = this.count - 1;
+    if (slot != last) {
+      final R2TransformOrthogonalReadableType moved = this.members[last];
+      final int moved_handle = this.slot_handles[last];
+      moved.transformOrthogonalGetWatchable().watchableRemove(
+        this.watchers[last]);
+
+      this.members[slot] = moved;
+      this.slot_handles[slot] = moved_handle;
+      this.handle_slots[moved_handle] = slot;
+      moved.transformOrthogonalGetWatchable().watchableAdd(
+        this.watchers[slot]);
     }
+
+    this.members[last] = null;
+    this.slot_handles[last] = -1;
+    this.handle_slots[handle] = -1;
+    this.free_handles[this.free_count] = handle;
+    ++this.free_count;
+    this.count = last;
+
+    /*
+     * The last slot is no longer rendered, so there is no need to upload it.
+     */
+
+    this.stale.clear(last);
+    for (final BitSet region_dirty : this.dirty) {
+      region_dirty.clear(last);
+    }
+    this.update_required = true;
   }
 
-  private void remove(final int i)
+  private void markDirty(final int i)
   {
-    this.members[i].transformOrthogonalGetWatchable().watchableRemove(this.update_consumer);
-    this.members[i] = null;
-    this.free.add(i);
+    this.stale.set(i);
+    for (final BitSet region_dirty : this.dirty) {
+      region_dirty.set(i);
+    }
     this.update_required = true;
   }
 
@@ -245,7 +426,7 @@ public final class R2InstanceBatchedDynamic
   {
     NullCheck.notNull(t, "Transform");
 
-    if (this.enabledCount() == this.max_size) {
+    if (this.count == this.max_size) {
       final StringBuilder sb = new StringBuilder(64);
       sb.append("Batch is full (capacity is ");
       sb.append(this.max_size);
@@ -254,18 +435,27 @@ public final class R2InstanceBatchedDynamic
     }
 
     Preconditions.checkPrecondition(
-      !this.free.isEmpty(), "Free set must not be empty");
-
-    final int next = this.free.firstInt();
-    this.members[next] = t;
-    t.transformOrthogonalGetWatchable().watchableAdd(this.update_consumer);
-    this.free.remove(next);
-    return next;
+      this.free_count > 0, "Free handles must not be empty");
+
+    --this.free_count;
+    final int handle = this.free_handles[this.free_count];
+    final int slot = this.count;
+    ++this.count;
+
+    this.members[slot] = t;
+    this.slot_handles[slot] = handle;
+    this.handle_slots[handle] = slot;
+    t.transformOrthogonalGetWatchable().watchableAdd(this.watchers[slot]);
+    return handle;
   }
 
   @Override
   public void disableInstance(final int id)
   {
+    Preconditions.checkPreconditionI(
+      id,
+      id >= 0 && id < this.max_size,
+      i -> "Instance " + i + " must be in the range [0, " + this.max_size + ")");
     this.remove(id);
   }
 
@@ -278,35 +468,85 @@ public final class R2InstanceBatchedDynamic
     final JCGLArrayBuffersType g_ab = g.arrayBuffers();
     final JCGLArrayObjectsType g_ao = g.arrayObjects();
 
-    long offset = 0L;
-    for (int i = 0; i < this.max_size; ++i) {
-      this.index.setValue(offset);
-      final R2TransformOrthogonalReadableType trans = this.members[i];
+    this.uploaded = 0L;
+    this.update_required = false;
+
+    for (int i = this.stale.nextSetBit(0);
+         i >= 0;
+         i = this.stale.nextSetBit(i + 1)) {
+      this.writeMatrix(i);
+    }
+    this.stale.clear();
 
-      final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m;
-      if (trans != null) {
-        m = trans.transformMakeMatrix4x4F();
-      } else {
+    final int region = this.stream.regionCurrent();
+    final BitSet region_dirty = this.dirty[region];
+    if (region_dirty.isEmpty()) {
+      return;
+    }
 
-        /*
-         * "Disable" the instance by specifying that it be drawn with
-         * a scale of zero.
-         */
+    g_ao.arrayObjectBind(this.matrix_vaos[region]);
+    g_ab.arrayBufferBind(this.stream.arrayBuffer());
 
-        m = PMatrices4x4D.zero();
+    if (region_dirty.cardinality() * 2 > this.max_size) {
+      if (this.stream_exclusive) {
+        g_ab.arrayBufferReallocate(this.stream.arrayBuffer());
+      }
+      this.uploadRange(g_ab, region, 0, this.max_size - 1);
+    } else {
+      int first = region_dirty.nextSetBit(0);
+      while (first >= 0) {
+        int last = region_dirty.nextClearBit(first) - 1;
+        int next = region_dirty.nextSetBit(last + 1);
+        while (next >= 0 && next - last - 1 <= MERGE_GAP) {
+          last = region_dirty.nextClearBit(next) - 1;
+          next = region_dirty.nextSetBit(last + 1);
+        }
+        this.uploadRange(g_ab, region, first, last);
+        first = next;
       }
-
-      this.matrix_pointer.setPMatrix4x4D(m);
-      offset += 16L * 4L;
     }
 
-    g_ao.arrayObjectBind(this.matrix_vao);
-    g_ab.arrayBufferBind(this.matrix_vbo);
-    g_ab.arrayBufferReallocate(this.matrix_vbo);
-    g_ab.arrayBufferUpdate(this.update_vbo);
     g_ao.arrayObjectUnbind();
 
-    this.update_required = false;
+    region_dirty.clear();
+    this.region_written = region;
+  }
+
+  private void writeMatrix(final int i)
+  {
+    this.index.setValue((long) MATRIX_SIZE * (long) i);
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m =
+      this.members[i].transformMakeMatrix4x4F();
+    this.matrix_pointer.setPMatrix4x4D(m);
+  }
+
+  private void uploadRange(
+    final JCGLArrayBuffersType g_ab,
+    final int region,
+    final int first,
+    final int last)
+  {
+    /*
+     * The staging buffer holds the matrices of the whole slice, so a range
+     * is uploaded directly from a view of the staging buffer. No direct
+     * memory is allocated and nothing is copied, however much the dirty
+     * ranges shift between frames.
+     */
+
+    final ByteBuffer view = this.matrix_data.duplicate();
+    view.limit(MATRIX_SIZE * (last + 1));
+    view.position(MATRIX_SIZE * first);
+
+    final long base =
+      this.stream.regionOffset(region) + this.slice_offset;
+    final JCGLArrayBufferType buffer = this.stream.arrayBuffer();
+    g_ab.arrayBufferUpdate(JCGLBufferUpdate.of(
+      buffer,
+      view.slice(),
+      new UnsignedRangeInclusiveL(
+        base + ((long) MATRIX_SIZE * (long) first),
+        base + ((long) MATRIX_SIZE * (long) (last + 1)) - 1L)));
+    this.uploaded += (long) MATRIX_SIZE * (long) ((last - first) + 1);
   }
 
   @Override
@@ -315,10 +555,16 @@ public final class R2InstanceBatchedDynamic
     return this.update_required;
   }
 
+  @Override
+  public long uploadedBytes()
+  {
+    return this.uploaded;
+  }
+
   @Override
   public JCGLArrayObjectType arrayObject()
   {
-    return this.matrix_vao;
+    return this.matrix_vaos[this.region_written];
   }
 
   @Override
@@ -335,9 +581,15 @@ public final class R2InstanceBatchedDynamic
 
     if (!this.isDeleted()) {
       final JCGLArrayObjectsType g_ao = g.arrayObjects();
-      final JCGLArrayBuffersType g_ab = g.arrayBuffers();
-      g_ab.arrayBufferDelete(this.matrix_vbo);
-      g_ao.arrayObjectDelete(this.matrix_vao);
+      for (final JCGLArrayObjectType vao : this.matrix_vaos) {
+        g_ao.arrayObjectDelete(vao);
+      }
+      if (this.stream_exclusive) {
+        this.stream.delete(g);
+      } else {
+        this.stream.release(
+          this.slice_offset, (long) MATRIX_SIZE * (long) this.max_size);
+      }
       this.disableAll();
     }
   }
@@ -345,6 +597,23 @@ public final class R2InstanceBatchedDynamic
   @Override
   public boolean isDeleted()
   {
-    return this.matrix_vao.isDeleted();
+    return this.matrix_vaos[0].isDeleted();
+  }
+
+  private final class SlotWatcher
+    implements Consumer<R2TransformOrthogonalReadableType>
+  {
+    private final int slot;
+
+    SlotWatcher(final int in_slot)
+    {
+      this.slot = in_slot;
+    }
+
+    @Override
+    public void accept(final R2TransformOrthogonalReadableType t)
+    {
+      R2InstanceBatchedDynamic.this.markDirty(this.slot);
+    }
   }
 }
@@ -39,6 +39,13 @@ public interface R2InstanceBatchedDynamicType
 
   int enabledCount();
 
+  /**
+   * @return The number of bytes uploaded to the GPU by the most recent call to
+   * {@link #update(com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type)}
+   */
+
+  long uploadedBytes();
+
   /**
    * Disable rendering of all instances
    */
@@ -50,7 +57,8 @@ public interface R2InstanceBatchedDynamicType
    *
    * @param t The transform for the instance
    *
-   * @return The index of the enabled instance
+   * @return An identifier for the enabled instance, valid until the instance
+   * is disabled
    *
    * @throws R2ExceptionInstanceBatchIsFull If the batch cannot accept any more
    *                                        instances
@@ -61,9 +69,11 @@ public interface R2InstanceBatchedDynamicType
     throws R2ExceptionInstanceBatchIsFull;
 
   /**
-   * Disable rendering of the given instance.
+   * Disable rendering of the given instance. Disabling an instance that is
+   * not enabled has no effect.
    *
-   * @param id The index of the instance
+   * @param id The identifier of the instance, as returned by {@link
+   *           #enableInstance(R2TransformOrthogonalReadableType)}
    */
 
   void disableInstance(int id);
@@ -21,21 +21,22 @@ import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jcanephora.core.JCGLArrayBufferType;
 import com.io7m.jcanephora.core.JCGLArrayObjectBuilderType;
 import com.io7m.jcanephora.core.JCGLArrayObjectType;
-import com.io7m.jcanephora.core.JCGLBufferUpdateType;
-import com.io7m.jcanephora.core.JCGLBufferUpdates;
+import com.io7m.jcanephora.core.JCGLBufferUpdate;
 import com.io7m.jcanephora.core.JCGLException;
 import com.io7m.jcanephora.core.JCGLScalarType;
-import com.io7m.jcanephora.core.JCGLUsageHint;
 import com.io7m.jcanephora.core.api.JCGLArrayBuffersType;
 import com.io7m.jcanephora.core.api.JCGLArrayObjectsType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jnull.NullCheck;
 import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.meshes.api.R2MeshAttributeConventions;
 import com.io7m.r2.spaces.R2SpaceWorldType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
 /**
@@ -43,115 +44,150 @@ import java.nio.FloatBuffer;
  * interface.</p>
  *
  * <p>This implementation manages a fixed size set of at most {@code N}
- * instances. It stores per-instance positions/scales/orientations in a vertex
- * buffer object, and uses an "orphaning" strategy where the entire buffer
- * storage is reallocated and populated on each call to {@link
- * #update(JCGLInterfaceGL33Type)}.</p>
+ * instances. It stores per-instance positions/scales/orientations in a slice
+ * of a vertex buffer object, and populates the entire slice on each call to
+ * {@link #update(JCGLInterfaceGL33Type)}.</p>
+ *
+ * <p>Sets created with {@link #create(R2IDPoolType, JCGLArrayBuffersType,
+ * JCGLArrayObjectsType, int)} own a buffer that holds exactly one slice, and
+ * use an "orphaning" strategy where the buffer storage is reallocated before
+ * being populated. Sets created with {@link #createStreamed(R2IDPoolType,
+ * R2InstanceStreamingBufferType, JCGLArrayObjectsType, int)} allocate one
+ * slice in each region of a shared {@link R2InstanceStreamingBufferType}, and
+ * populate the slice in the current region of the stream on each update.</p>
  */
 
 public final class R2InstanceBillboardedDynamic
   implements R2InstanceBillboardedDynamicType
 {
+  /**
+   * The size in bytes of a world position, a scalar scale, and a scalar
+   * rotation.
+   */
+
+  private static final int VERTEX_SIZE = (3 * 4) + 4 + 4;
+
   private final long instance_id;
   private final int max_size;
-  private final JCGLArrayBufferType data_vbo;
-  private final JCGLArrayObjectType data_vao;
-  private final JCGLBufferUpdateType<JCGLArrayBufferType> update_vbo;
+  private final R2InstanceStreamingBufferType stream;
+  private final boolean stream_exclusive;
+  private final long slice_offset;
+  private final JCGLArrayObjectType[] data_vaos;
+  private final ByteBuffer data;
   private boolean update_required;
+  private int region_written;
   private int used;
 
   private R2InstanceBillboardedDynamic(
-    final JCGLArrayBuffersType g_ab,
     final JCGLArrayObjectsType g_ao,
+    final R2InstanceStreamingBufferType in_stream,
+    final boolean in_stream_exclusive,
     final long in_id,
     final int count)
   {
-    NullCheck.notNull(g_ab, "Array buffers");
     NullCheck.notNull(g_ao, "Array objects");
+    NullCheck.notNull(in_stream, "Stream");
 
-    Preconditions.checkPreconditionI(
-      count,
-      count > 0,
-      c -> "Count " + c + " must be positive");
+    checkCount(count);
 
     this.instance_id = in_id;
     this.max_size = count;
+    this.stream = in_stream;
+    this.stream_exclusive = in_stream_exclusive;
     this.used = 0;
 
-    JCGLArrayBufferType vbo = null;
-    JCGLArrayObjectType vao = null;
+    /*
+     * Allocate a slice of the stream to store one world position, a scalar
+     * scale, and a scalar rotation per instance, and an array object for each
+     * region that sources the data from the slice within that region.
+     */
 
-    try {
-
-      /*
-       * Allocate a buffer to store one world position, a scalar scale,
-       * and a scalar rotation per instance.
-       */
-
-      long vertex_size = 3L * 4L;
-      vertex_size += 4L;
-      vertex_size += 4L;
-
-      vbo = g_ab.arrayBufferAllocate(
-        vertex_size * (long) count, JCGLUsageHint.USAGE_DYNAMIC_DRAW);
-      g_ab.arrayBufferUnbind();
-
-      final JCGLArrayObjectBuilderType aob = g_ao.arrayObjectNewBuilder();
-      aob.setStrictChecking(true);
-
-      long offset = 0L;
-      aob.setAttributeFloatingPoint(
-        R2MeshAttributeConventions.positionAttributeIndex(),
-        vbo,
-        3,
-        JCGLScalarType.TYPE_FLOAT,
-        (int) vertex_size,
-        offset,
-        false);
-      offset += 3L * 4L;
-      aob.setAttributeFloatingPoint(
-        R2MeshAttributeConventions.billboardedAttributeScaleIndex(),
-        vbo,
-        1,
-        JCGLScalarType.TYPE_FLOAT,
-        (int) vertex_size,
-        offset,
-        false);
-      offset += 4L;
-      aob.setAttributeFloatingPoint(
-        R2MeshAttributeConventions.billboardedAttributeRotationIndex(),
-        vbo,
-        1,
-        JCGLScalarType.TYPE_FLOAT,
-        (int) vertex_size,
-        offset,
-        false);
-      offset += 4L;
-
-      Invariants.checkInvariantL(
-        offset, vertex_size == offset, x -> "Final offset must be correct");
-
-      vao = g_ao.arrayObjectAllocate(aob);
-      g_ao.arrayObjectUnbind();
+    final int regions = in_stream.regionCount();
+    final long slice_size = (long) VERTEX_SIZE * (long) count;
+    final long offset = in_stream.allocate(slice_size);
+    final JCGLArrayObjectType[] vaos = new JCGLArrayObjectType[regions];
 
-    } catch (final JCGLException e) {
-      if (vbo != null) {
-        g_ab.arrayBufferDelete(vbo);
+    try {
+      for (int r = 0; r < regions; ++r) {
+        final long base = in_stream.regionOffset(r) + offset;
+        vaos[r] = newArrayObject(g_ao, in_stream.arrayBuffer(), base);
       }
-      if (vao != null) {
-        g_ao.arrayObjectDelete(vao);
+    } catch (final JCGLException e) {
+      for (int r = 0; r < regions; ++r) {
+        if (vaos[r] != null) {
+          g_ao.arrayObjectDelete(vaos[r]);
+        }
       }
+      in_stream.release(offset, slice_size);
       throw e;
     }
 
-    this.data_vbo = vbo;
-    this.data_vao = vao;
-    this.update_vbo = JCGLBufferUpdates.newUpdateReplacingAll(this.data_vbo);
+    this.slice_offset = offset;
+    this.data_vaos = vaos;
+    this.data =
+      ByteBuffer.allocateDirect(Math.toIntExact(slice_size))
+        .order(ByteOrder.nativeOrder());
+    this.region_written = in_stream.regionCurrent();
     this.update_required = true;
   }
 
+  private static void checkCount(final int count)
+  {
+    Preconditions.checkPreconditionI(
+      count,
+      count > 0,
+      c -> "Count " + c + " must be positive");
+  }
+
+  private static JCGLArrayObjectType newArrayObject(
+    final JCGLArrayObjectsType g_ao,
+    final JCGLArrayBufferType vbo,
+    final long base)
+  {
+    final JCGLArrayObjectBuilderType aob = g_ao.arrayObjectNewBuilder();
+    aob.setStrictChecking(true);
+
+    long offset = base;
+    aob.setAttributeFloatingPoint(
+      R2MeshAttributeConventions.positionAttributeIndex(),
+      vbo,
+      3,
+      JCGLScalarType.TYPE_FLOAT,
+      VERTEX_SIZE,
+      offset,
+      false);
+    offset += 3L * 4L;
+    aob.setAttributeFloatingPoint(
+      R2MeshAttributeConventions.billboardedAttributeScaleIndex(),
+      vbo,
+      1,
+      JCGLScalarType.TYPE_FLOAT,
+      VERTEX_SIZE,
+      offset,
+      false);
+    offset += 4L;
+    aob.setAttributeFloatingPoint(
+      R2MeshAttributeConventions.billboardedAttributeRotationIndex(),
+      vbo,
+      1,
+      JCGLScalarType.TYPE_FLOAT,
+      VERTEX_SIZE,
+      offset,
+      false);
+    offset += 4L;
+
+    Invariants.checkInvariantL(
+      offset,
+      offset - base == (long) VERTEX_SIZE,
+      x -> "Final offset must be correct");
+
+    final JCGLArrayObjectType vao = g_ao.arrayObjectAllocate(aob);
+    g_ao.arrayObjectUnbind();
+    return vao;
+  }
+
   /**
-   * Construct a new batch of instances.
+   * Construct a new batch of instances that owns its own buffer.
    *
    * @param pool  The ID pool
    * @param g_ab  An array buffer interface
@@ -168,7 +204,47 @@ public final class R2InstanceBillboardedDynamic
     final int count)
   {
     NullCheck.notNull(pool, "Pool");
-    return new R2InstanceBillboardedDynamic(g_ab, g_ao, pool.freshID(), count);
+    NullCheck.notNull(g_ab, "Array buffers");
+    checkCount(count);
+
+    final R2InstanceStreamingBuffer stream =
+      R2InstanceStreamingBuffer.createExclusive(
+        g_ab, (long) VERTEX_SIZE * (long) count);
+
+    try {
+      return new R2InstanceBillboardedDynamic(
+        g_ao, stream, true, pool.freshID(), count);
+    } catch (final JCGLException e) {
+      g_ab.arrayBufferDelete(stream.arrayBuffer());
+      throw e;
+    }
+  }
+
+  /**
+   * Construct a new batch of instances that stores data in a shared
+   * streaming buffer. The batch must be deleted before the stream.
+   *
+   * @param pool   The ID pool
+   * @param stream The streaming buffer
+   * @param g_ao   An array object interface
+   * @param count  The maximum number of instances in the batch
+   *
+   * @return A new batch
+   *
+   * @throws R2ExceptionInstanceStreamingBufferIsFull If the stream does not
+   *                                                  have room for the batch
+   */
+
+  public static R2InstanceBillboardedDynamic createStreamed(
+    final R2IDPoolType pool,
+    final R2InstanceStreamingBufferType stream,
+    final JCGLArrayObjectsType g_ao,
+    final int count)
+    throws R2ExceptionInstanceStreamingBufferIsFull
+  {
+    NullCheck.notNull(pool, "Pool");
+    return new R2InstanceBillboardedDynamic(
+      g_ao, stream, false, pool.freshID(), count);
   }
 
   @Override
@@ -201,8 +277,7 @@ public final class R2InstanceBillboardedDynamic
       throw new R2ExceptionInstanceBatchIsFull(sb.toString());
     }
 
-    final FloatBuffer floats =
-      this.update_vbo.data().asFloatBuffer();
+    final FloatBuffer floats = this.data.asFloatBuffer();
 
     final int index = this.used;
     final int offset = Math.multiplyExact(index, 5);
@@ -225,16 +300,22 @@ public final class R2InstanceBillboardedDynamic
 
     if (!this.isDeleted()) {
       final JCGLArrayObjectsType g_ao = g.arrayObjects();
-      final JCGLArrayBuffersType g_ab = g.arrayBuffers();
-      g_ab.arrayBufferDelete(this.data_vbo);
-      g_ao.arrayObjectDelete(this.data_vao);
+      for (final JCGLArrayObjectType vao : this.data_vaos) {
+        g_ao.arrayObjectDelete(vao);
+      }
+      if (this.stream_exclusive) {
+        this.stream.delete(g);
+      } else {
+        this.stream.release(
+          this.slice_offset, (long) VERTEX_SIZE * (long) this.max_size);
+      }
     }
   }
 
   @Override
   public boolean isDeleted()
   {
-    return this.data_vao.isDeleted();
+    return this.data_vaos[0].isDeleted();
   }
 
   @Override
@@ -246,7 +327,7 @@ public final class R2InstanceBillboardedDynamic
   @Override
   public JCGLArrayObjectType arrayObject()
   {
-    return this.data_vao;
+    return this.data_vaos[this.region_written];
   }
 
   @Override
@@ -258,8 +339,7 @@ public final class R2InstanceBillboardedDynamic
     final JCGLArrayBuffersType g_ab = g.arrayBuffers();
     final JCGLArrayObjectsType g_ao = g.arrayObjects();
 
-    final FloatBuffer floats =
-      this.update_vbo.data().asFloatBuffer();
+    final FloatBuffer floats = this.data.asFloatBuffer();
 
     for (int index = this.used; index < this.max_size; ++index) {
       final int offset = Math.multiplyExact(index, 5);
@@ -270,11 +350,29 @@ public final class R2InstanceBillboardedDynamic
       floats.put(offset + 4, 0.0f);
     }
 
-    g_ao.arrayObjectBind(this.data_vao);
-    g_ab.arrayBufferBind(this.data_vbo);
-    g_ab.arrayBufferReallocate(this.data_vbo);
-    g_ab.arrayBufferUpdate(this.update_vbo);
+    /*
+     * The slice is uploaded directly from a view of the staging buffer, so
+     * no intermediate buffer is allocated or populated.
+     */
+
+    final int region = this.stream.regionCurrent();
+    final long base = this.stream.regionOffset(region) + this.slice_offset;
+    final ByteBuffer view = this.data.duplicate();
+    view.clear();
+
+    final JCGLArrayBufferType buffer = this.stream.arrayBuffer();
+    g_ao.arrayObjectBind(this.data_vaos[region]);
+    g_ab.arrayBufferBind(buffer);
+    if (this.stream_exclusive) {
+      g_ab.arrayBufferReallocate(buffer);
+    }
+    g_ab.arrayBufferUpdate(JCGLBufferUpdate.of(
+      buffer,
+      view,
+      new UnsignedRangeInclusiveL(
+        base, (base + (long) view.capacity()) - 1L)));
     g_ao.arrayObjectUnbind();
+    this.region_written = region;
     this.update_required = false;
   }
 
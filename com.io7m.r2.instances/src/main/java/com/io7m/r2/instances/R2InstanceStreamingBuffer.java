@@ -0,0 +1,289 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.instances;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLArrayBufferType;
+import com.io7m.jcanephora.core.JCGLUsageHint;
+import com.io7m.jcanephora.core.api.JCGLArrayBuffersType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jnull.NullCheck;
+import com.io7m.r2.core.api.R2Exception;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongRBTreeMap;
+import it.unimi.dsi.fastutil.longs.Long2LongSortedMap;
+
+/**
+ * <p>The default implementation of the {@link R2InstanceStreamingBufferType}
+ * interface.</p>
+ *
+ * <p>Fence sync objects have been part of core OpenGL since 3.2, but the
+ * {@link JCGLInterfaceGL33Type} interface does not expose them, and this
+ * package does not issue OpenGL calls outside of that interface. Regions are
+ * therefore never mapped; data is written with
+ * {@link JCGLArrayBuffersType#arrayBufferUpdate} (that is,
+ * {@code glBufferSubData}), which OpenGL defines to be implicitly
+ * synchronized: commands issued before an update observe the previous
+ * contents of the buffer, so writing to a region that the GPU is still
+ * reading is always correct. What the update can cost is a stall, or a
+ * copy of the new data made by the driver, until those earlier commands
+ * complete. The regions exist to avoid that cost: with {@code N} regions, a
+ * region is rewritten {@code N} frames after it was last read, by which time
+ * the commands that read it have normally completed and the driver can
+ * perform the write immediately. Three regions are sufficient for the vast
+ * majority of drivers.</p>
+ *
+ * <p>Slices are allocated from a free list ordered by offset using a
+ * first-fit strategy, and adjacent free slices are merged on release.</p>
+ */
+
+public final class R2InstanceStreamingBuffer
+  implements R2InstanceStreamingBufferType
+{
+  /**
+   * The alignment in bytes of all slices.
+   */
+
+  private static final long ALIGNMENT = 16L;
+
+  private final JCGLArrayBufferType buffer;
+  private final int regions;
+  private final long region_size;
+  private final Long2LongRBTreeMap free;
+  private long allocated;
+  private int region;
+
+  private R2InstanceStreamingBuffer(
+    final JCGLArrayBuffersType g_ab,
+    final long in_region_size,
+    final int in_regions,
+    final JCGLUsageHint usage)
+  {
+    NullCheck.notNull(g_ab, "Array buffers");
+    NullCheck.notNull(usage, "Usage");
+
+    Preconditions.checkPreconditionL(
+      in_region_size,
+      in_region_size > 0L,
+      s -> "Region size " + s + " must be positive");
+    Preconditions.checkPreconditionI(
+      in_regions,
+      in_regions > 0,
+      c -> "Region count " + c + " must be positive");
+
+    this.regions = in_regions;
+    this.region_size = align(in_region_size);
+    this.buffer = g_ab.arrayBufferAllocate(
+      Math.multiplyExact(this.region_size, (long) in_regions), usage);
+    g_ab.arrayBufferUnbind();
+
+    this.free = new Long2LongRBTreeMap();
+    this.free.put(0L, this.region_size);
+    this.allocated = 0L;
+    this.region = 0;
+  }
+
+  /**
+   * Construct a new streaming buffer.
+   *
+   * @param g_ab        An array buffer interface
+   * @param region_size The size in bytes of each region
+   * @param regions     The number of regions (typically {@code 3})
+   *
+   * @return A new streaming buffer
+   */
+
+  public static R2InstanceStreamingBuffer create(
+    final JCGLArrayBuffersType g_ab,
+    final long region_size,
+    final int regions)
+  {
+    return new R2InstanceStreamingBuffer(
+      g_ab, region_size, regions, JCGLUsageHint.USAGE_STREAM_DRAW);
+  }
+
+  /**
+   * Construct a new streaming buffer with a single region that is intended
+   * to be used exclusively by a single instance.
+   *
+   * @param g_ab An array buffer interface
+   * @param size The size in bytes of the buffer
+   *
+   * @return A new streaming buffer
+   */
+
+  static R2InstanceStreamingBuffer createExclusive(
+    final JCGLArrayBuffersType g_ab,
+    final long size)
+  {
+    return new R2InstanceStreamingBuffer(
+      g_ab, size, 1, JCGLUsageHint.USAGE_DYNAMIC_DRAW);
+  }
+
+  private static long align(final long size)
+  {
+    return Math.multiplyExact(
+      Math.addExact(size, ALIGNMENT - 1L) / ALIGNMENT, ALIGNMENT);
+  }
+
+  @Override
+  public JCGLArrayBufferType arrayBuffer()
+  {
+    return this.buffer;
+  }
+
+  @Override
+  public int regionCount()
+  {
+    return this.regions;
+  }
+
+  @Override
+  public long regionSize()
+  {
+    return this.region_size;
+  }
+
+  @Override
+  public long regionOffset(final int r)
+  {
+    Preconditions.checkPreconditionI(
+      r,
+      r >= 0 && r < this.regions,
+      x -> "Region " + x + " must be in the range [0, " + this.regions + ")");
+    return this.region_size * (long) r;
+  }
+
+  @Override
+  public int regionCurrent()
+  {
+    return this.region;
+  }
+
+  @Override
+  public void frameAdvance()
+  {
+    this.region = (this.region + 1) % this.regions;
+  }
+
+  @Override
+  public long allocate(final long size)
+    throws R2ExceptionInstanceStreamingBufferIsFull
+  {
+    Preconditions.checkPreconditionL(
+      size, size > 0L, s -> "Size " + s + " must be positive");
+
+    final long aligned = align(size);
+    for (final Long2LongMap.Entry e : this.free.long2LongEntrySet()) {
+      final long offset = e.getLongKey();
+      final long length = e.getLongValue();
+      if (length >= aligned) {
+        this.free.remove(offset);
+        if (length > aligned) {
+          this.free.put(offset + aligned, length - aligned);
+        }
+        this.allocated += aligned;
+        return offset;
+      }
+    }
+
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Streaming buffer is full.");
+    sb.append(System.lineSeparator());
+    sb.append("  Requested: ");
+    sb.append(aligned);
+    sb.append(System.lineSeparator());
+    sb.append("  Allocated: ");
+    sb.append(this.allocated);
+    sb.append(System.lineSeparator());
+    sb.append("  Region size: ");
+    sb.append(this.region_size);
+    sb.append(System.lineSeparator());
+    throw new R2ExceptionInstanceStreamingBufferIsFull(sb.toString());
+  }
+
+  @Override
+  public void release(
+    final long offset,
+    final long size)
+  {
+    final long aligned = align(size);
+    Preconditions.checkPreconditionL(
+      offset,
+      offset >= 0L && offset % ALIGNMENT == 0L,
+      o -> "Offset " + o + " must be a non-negative multiple of " + ALIGNMENT);
+    Preconditions.checkPreconditionL(
+      offset,
+      offset + aligned <= this.region_size,
+      o -> "Slice at " + o + " must lie within the region");
+
+    long start = offset;
+    long length = aligned;
+
+    final Long2LongSortedMap before = this.free.headMap(offset);
+    if (!before.isEmpty()) {
+      final long prev = before.lastLongKey();
+      final long prev_end = prev + this.free.get(prev);
+      Preconditions.checkPreconditionL(
+        offset,
+        prev_end <= offset,
+        o -> "Slice at " + o + " must not already be free");
+      if (prev_end == offset) {
+        start = prev;
+        length += this.free.remove(prev);
+      }
+    }
+
+    final Long2LongSortedMap after = this.free.tailMap(offset);
+    if (!after.isEmpty()) {
+      final long next = after.firstLongKey();
+      Preconditions.checkPreconditionL(
+        offset,
+        offset + aligned <= next,
+        o -> "Slice at " + o + " must not already be free");
+      if (offset + aligned == next) {
+        length += this.free.remove(next);
+      }
+    }
+
+    this.free.put(start, length);
+    this.allocated -= aligned;
+  }
+
+  @Override
+  public long allocatedBytes()
+  {
+    return this.allocated;
+  }
+
+  @Override
+  public void delete(final JCGLInterfaceGL33Type g)
+    throws R2Exception
+  {
+    NullCheck.notNull(g, "G33");
+
+    if (!this.isDeleted()) {
+      g.arrayBuffers().arrayBufferDelete(this.buffer);
+    }
+  }
+
+  @Override
+  public boolean isDeleted()
+  {
+    return this.buffer.isDeleted();
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.instances;
+
+import com.io7m.jcanephora.core.JCGLArrayBufferType;
+import com.io7m.r2.core.api.deletable.R2DeletableType;
+
+/**
+ * <p>The type of streaming buffers for dynamic per-instance data.</p>
+ *
+ * <p>A streaming buffer is a single vertex buffer object divided into
+ * {@link #regionCount()} equally sized regions. Dynamic instances allocate a
+ * slice of the same size and offset within every region and, on each update,
+ * write their data into the slice within the current region. The current
+ * region advances once per frame with {@link #frameAdvance()}, so that data
+ * written for one frame does not replace data that the GPU may still be
+ * reading for one of the previous {@code regionCount() - 1} frames, and the
+ * driver does not have to stall or copy the data in order to preserve the
+ * contents that those frames read.</p>
+ */
+
+public interface R2InstanceStreamingBufferType extends R2DeletableType
+{
+  /**
+   * @return The underlying array buffer
+   */
+
+  JCGLArrayBufferType arrayBuffer();
+
+  /**
+   * @return The number of regions in the buffer
+   */
+
+  int regionCount();
+
+  /**
+   * @return The size in bytes of each region
+   */
+
+  long regionSize();
+
+  /**
+   * @param region The region
+   *
+   * @return The offset in bytes of the start of the given region
+   */
+
+  long regionOffset(int region);
+
+  /**
+   * @return The region into which data for the current frame should be
+   * written
+   */
+
+  int regionCurrent();
+
+  /**
+   * Advance to the next region. This should be called exactly once per frame,
+   * before any instances are updated.
+   */
+
+  void frameAdvance();
+
+  /**
+   * Allocate a slice of {@code size} bytes within each region.
+   *
+   * @param size The size in bytes of the slice
+   *
+   * @return The offset in bytes of the slice relative to the start of each
+   * region
+   *
+   * @throws R2ExceptionInstanceStreamingBufferIsFull If there is not enough
+   *                                                  free space in the buffer
+   */
+
+  long allocate(long size)
+    throws R2ExceptionInstanceStreamingBufferIsFull;
+
+  /**
+   * Release a slice previously returned by {@link #allocate(long)}.
+   *
+   * @param offset The offset of the slice
+   * @param size   The size in bytes of the slice
+   */
+
+  void release(
+    long offset,
+    long size);
+
+  /**
+   * @return The number of bytes currently allocated within each region
+   */
+
+  long allocatedBytes();
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.lights;
+
+import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
+
+/**
+ * <p>The type of readable batched lights.</p>
+ *
+ * <p>A batch consists of the vertex buffers containing the light volume
+ * geometry, and a vertex buffer containing a set of light values - one per
+ * rendered light. All of the lights in a batch are rendered with a single
+ * instanced draw call.</p>
+ */
+
+public interface R2LightBatchedReadableType
+{
+  /**
+   * @return The unique light ID of the batch
+   */
+
+  long lightID();
+
+  /**
+   * @return The array object that will be used to render the light geometry
+   */
+
+  JCGLArrayObjectUsableType arrayObject();
+
+  /**
+   * @return The number of lights that will be rendered
+   */
+
+  int renderCount();
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.lights;
+
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.core.api.deletable.R2DeletableType;
+
+/**
+ * The type of batched lights.
+ */
+
+public interface R2LightBatchedType
+  extends R2LightBatchedReadableType, R2DeletableType
+{
+  /**
+   * @return The maximum number of lights that can be placed into the batch
+   */
+
+  int maximumSize();
+
+  /**
+   * @return The current number of enabled lights in the batch
+   */
+
+  int enabledCount();
+
+  /**
+   * @return The number of bytes uploaded to the GPU by the most recent call to
+   * {@link #update(JCGLInterfaceGL33Type)}
+   */
+
+  long uploadedBytes();
+
+  /**
+   * Disable rendering of all lights.
+   */
+
+  void disableAll();
+
+  /**
+   * Disable rendering of the given light. Disabling a light that is not
+   * enabled has no effect.
+   *
+   * @param id The identifier of the light, as returned when the light was
+   *           enabled
+   */
+
+  void disableLight(int id);
+
+  /**
+   * Pack the current values of all enabled lights and upload them to the GPU.
+   * Lights do not notify batches of changes, so this method must be called
+   * after any of the lights in the batch have been modified.
+   *
+   * @param g An OpenGL interface
+   */
+
+  void update(
+    JCGLInterfaceGL33Type g);
+}
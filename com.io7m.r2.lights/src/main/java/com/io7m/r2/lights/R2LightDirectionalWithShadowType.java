@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.lights;
+
+import com.io7m.jfunctional.PartialBiFunctionType;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.r2.lights.shadows.R2ShadowCascades;
+import com.io7m.r2.projections.R2ProjectionReadableType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+
+/**
+ * <p>The type of directional lights that have cascaded shadows.</p>
+ *
+ * <p>The cascades of the light depend on the observer, and must therefore be
+ * updated with {@link #updateCascades(PMatrix4x4D, R2ProjectionReadableType)}
+ * whenever the observer changes, and before the shadow map of the light is
+ * rendered.</p>
+ */
+
+public interface R2LightDirectionalWithShadowType extends
+  R2LightScreenSingleType, R2LightWithShadowSingleType
+{
+  /**
+   * The maximum number of cascades supported by a single light.
+   */
+
+  int MAXIMUM_CASCADES = 4;
+
+  /**
+   * @return The light direction
+   */
+
+  PVector3D<R2SpaceWorldType> direction();
+
+  /**
+   * Set the light direction.
+   *
+   * @param d The light direction
+   */
+
+  void setDirection(PVector3D<R2SpaceWorldType> d);
+
+  /**
+   * @return The shadow cascades of the light
+   */
+
+  R2ShadowCascades cascades();
+
+  /**
+   * @return The cascade split blend factor ({@code 0.0} is uniform, {@code
+   * 1.0} is logarithmic)
+   */
+
+  double cascadeSplitLambda();
+
+  /**
+   * Set the cascade split blend factor.
+   *
+   * @param lambda The blend factor in {@code [0, 1]}
+   */
+
+  void setCascadeSplitLambda(double lambda);
+
+  /**
+   * @return The distance behind each cascade, along the light direction, in
+   * which shadow casters are captured
+   */
+
+  double cascadeCasterDistance();
+
+  /**
+   * Set the distance behind each cascade, along the light direction, in
+   * which shadow casters are captured.
+   *
+   * @param d The distance
+   */
+
+  void setCascadeCasterDistance(double d);
+
+  /**
+   * Recalculate the cascades of the light for the given observer.
+   *
+   * @param view       The observer's view matrix
+   * @param projection The observer's projection
+   */
+
+  default void updateCascades(
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view,
+    final R2ProjectionReadableType projection)
+  {
+    NullCheck.notNull(view, "View");
+    NullCheck.notNull(projection, "Projection");
+
+    this.cascades().update(
+      view,
+      projection,
+      this.direction(),
+      this.cascadeSplitLambda(),
+      this.cascadeCasterDistance());
+  }
+
+  @Override
+  default <A, B, E extends Throwable> B matchLightScreenSingle(
+    final A context,
+    final PartialBiFunctionType<A, R2LightScreenSingleType, B, E>
+      on_without_shadow,
+    final PartialBiFunctionType<A, R2LightDirectionalWithShadowType, B, E>
+      on_with_shadow)
+    throws E
+  {
+    return on_with_shadow.call(context, this);
+  }
+
+  @Override
+  default <A, B, E extends Throwable> B matchLightWithShadow(
+    final A context,
+    final PartialBiFunctionType<A, R2LightProjectiveWithShadowType, B, E>
+      on_project,
+    final PartialBiFunctionType<A, R2LightDirectionalWithShadowType, B, E>
+      on_directional)
+    throws E
+  {
+    return on_directional.call(context, this);
+  }
+}
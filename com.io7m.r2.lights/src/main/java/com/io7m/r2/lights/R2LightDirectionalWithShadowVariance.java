@@ -0,0 +1,206 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.lights;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.lights.shadows.R2ShadowCascades;
+import com.io7m.r2.lights.shadows.R2ShadowDepthVarianceType;
+import com.io7m.r2.spaces.R2SpaceRGBType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.transforms.R2TransformIdentity;
+import com.io7m.r2.transforms.R2TransformReadableType;
+import com.io7m.r2.unit_quads.R2UnitQuadUsableType;
+
+/**
+ * <p>Parameters for single directional lights that have cascaded variance
+ * shadows.</p>
+ *
+ * <p>All cascades are held side by side in a single shadow map: cascade
+ * {@code i} occupies the square region starting at {@code (i * h, 0)}, where
+ * {@code h} is the height of the map. The width of the map must therefore be
+ * exactly the number of cascades multiplied by its height.</p>
+ */
+
+public final class R2LightDirectionalWithShadowVariance
+  implements R2LightDirectionalWithShadowVarianceType
+{
+  private final long id;
+  private final R2UnitQuadUsableType quad;
+  private final R2ShadowDepthVarianceType shadow;
+  private final R2ShadowCascades cascades;
+  private PVector3D<R2SpaceWorldType> direction;
+  private PVector3D<R2SpaceRGBType> color;
+  private double intensity;
+  private double lambda;
+  private double caster_distance;
+
+  private R2LightDirectionalWithShadowVariance(
+    final R2UnitQuadUsableType in_quad,
+    final R2ShadowDepthVarianceType in_shadow,
+    final R2ShadowCascades in_cascades,
+    final long in_id)
+  {
+    this.quad = NullCheck.notNull(in_quad, "Quad");
+    this.shadow = NullCheck.notNull(in_shadow, "Shadow");
+    this.cascades = NullCheck.notNull(in_cascades, "Cascades");
+    this.id = in_id;
+    this.color = PVector3D.of(1.0, 1.0, 1.0);
+    this.direction = PVector3D.of(0.0, 0.0, -1.0);
+    this.intensity = 1.0;
+    this.lambda = 0.75;
+    this.caster_distance = 32.0;
+  }
+
+  /**
+   * Construct a new light.
+   *
+   * @param in_quad   A unit quad
+   * @param in_shadow The shadow
+   * @param in_count  The number of cascades, in {@code [1, }{@link
+   *                  #MAXIMUM_CASCADES}{@code ]}
+   * @param in_pool   The ID pool
+   *
+   * @return A new light
+   */
+
+  public static R2LightDirectionalWithShadowVariance create(
+    final R2UnitQuadUsableType in_quad,
+    final R2ShadowDepthVarianceType in_shadow,
+    final int in_count,
+    final R2IDPoolType in_pool)
+  {
+    NullCheck.notNull(in_pool, "Pool");
+    NullCheck.notNull(in_shadow, "Shadow");
+
+    Preconditions.checkPreconditionI(
+      in_count,
+      in_count > 0 && in_count <= MAXIMUM_CASCADES,
+      c -> "Cascade count must be in the range [1, " + MAXIMUM_CASCADES + "]");
+
+    final AreaSizeL area = in_shadow.mapDescription().area();
+    Preconditions.checkPreconditionL(
+      area.sizeX(),
+      area.sizeX() == (long) in_count * area.sizeY(),
+      w -> "Shadow map width must be the cascade count times its height");
+
+    return new R2LightDirectionalWithShadowVariance(
+      in_quad,
+      in_shadow,
+      R2ShadowCascades.create(in_count, area.sizeY()),
+      in_pool.freshID());
+  }
+
+  @Override
+  public PVector3D<R2SpaceWorldType> direction()
+  {
+    return this.direction;
+  }
+
+  @Override
+  public void setDirection(
+    final PVector3D<R2SpaceWorldType> d)
+  {
+    this.direction = NullCheck.notNull(d, "Direction");
+  }
+
+  @Override
+  public R2ShadowCascades cascades()
+  {
+    return this.cascades;
+  }
+
+  @Override
+  public double cascadeSplitLambda()
+  {
+    return this.lambda;
+  }
+
+  @Override
+  public void setCascadeSplitLambda(
+    final double in_lambda)
+  {
+    this.lambda = Math.min(1.0, Math.max(0.0, in_lambda));
+  }
+
+  @Override
+  public double cascadeCasterDistance()
+  {
+    return this.caster_distance;
+  }
+
+  @Override
+  public void setCascadeCasterDistance(
+    final double d)
+  {
+    this.caster_distance = Math.max(0.0, d);
+  }
+
+  @Override
+  public PVector3D<R2SpaceRGBType> color()
+  {
+    return this.color;
+  }
+
+  @Override
+  public double intensity()
+  {
+    return this.intensity;
+  }
+
+  @Override
+  public void setColor(
+    final PVector3D<R2SpaceRGBType> in_color)
+  {
+    this.color = NullCheck.notNull(in_color, "Color");
+  }
+
+  @Override
+  public void setIntensity(
+    final double i)
+  {
+    this.intensity = Math.max(0.0, i);
+  }
+
+  @Override
+  public long lightID()
+  {
+    return this.id;
+  }
+
+  @Override
+  public JCGLArrayObjectUsableType arrayObject()
+  {
+    return this.quad.arrayObject();
+  }
+
+  @Override
+  public R2TransformReadableType transform()
+  {
+    return R2TransformIdentity.get();
+  }
+
+  @Override
+  public R2ShadowDepthVarianceType shadow()
+  {
+    return this.shadow;
+  }
+}
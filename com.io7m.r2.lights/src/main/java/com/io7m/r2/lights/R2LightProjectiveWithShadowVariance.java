@@ -215,7 +215,9 @@ public final class R2LightProjectiveWithShadowVariance implements
   public <A, B, E extends Throwable> B matchLightWithShadow(
     final A context,
     final PartialBiFunctionType<A, R2LightProjectiveWithShadowType, B, E>
-      on_project)
+      on_project,
+    final PartialBiFunctionType<A, R2LightDirectionalWithShadowType, B, E>
+      on_directional)
     throws E
   {
     return on_project.call(context, this);
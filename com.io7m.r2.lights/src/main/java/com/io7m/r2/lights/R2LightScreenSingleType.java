@@ -33,4 +33,30 @@ public interface R2LightScreenSingleType extends R2LightSingleType
   {
     return on_screen.call(context, this);
   }
+
+  /**
+   * Match on the type of light.
+   *
+   * @param context           A context value
+   * @param on_without_shadow Evaluated for lights without shadows
+   * @param on_with_shadow    Evaluated for directional lights with shadows
+   * @param <A>               The type of context values
+   * @param <B>               The type of returned values
+   * @param <E>               The type of raised exceptions
+   *
+   * @return A value of type {@code B}
+   *
+   * @throws E If any of the given functions raise {@code E}
+   */
+
+  default <A, B, E extends Throwable> B matchLightScreenSingle(
+    final A context,
+    final PartialBiFunctionType<A, R2LightScreenSingleType, B, E>
+      on_without_shadow,
+    final PartialBiFunctionType<A, R2LightDirectionalWithShadowType, B, E>
+      on_with_shadow)
+    throws E
+  {
+    return on_without_shadow.call(context, this);
+  }
 }
@@ -0,0 +1,437 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.lights;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLArrayBufferType;
+import com.io7m.jcanephora.core.JCGLArrayObjectBuilderType;
+import com.io7m.jcanephora.core.JCGLArrayObjectType;
+import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
+import com.io7m.jcanephora.core.JCGLBufferUpdateType;
+import com.io7m.jcanephora.core.JCGLBufferUpdates;
+import com.io7m.jcanephora.core.JCGLException;
+import com.io7m.jcanephora.core.JCGLScalarType;
+import com.io7m.jcanephora.core.JCGLUsageHint;
+import com.io7m.jcanephora.core.api.JCGLArrayBuffersType;
+import com.io7m.jcanephora.core.api.JCGLArrayObjectsType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
+import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.meshes.api.R2MeshAttributeConventions;
+import com.io7m.r2.spaces.R2SpaceRGBType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.unit_spheres.R2UnitSphereUsableType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>The default implementation of the {@link R2LightSphericalBatchedType}
+ * interface.</p>
+ *
+ * <p>This implementation manages a fixed size batch of {@code N} lights. It
+ * stores the values of each light in a vertex buffer object that is attached
+ * to a copy of the unit sphere's array object as a set of per-instance
+ * attributes. Enabled lights are kept packed into the first
+ * {@link #enabledCount()} slots of the buffer, so a call to
+ * {@link #update(JCGLInterfaceGL33Type)} uploads the values of enabled lights
+ * only.</p>
+ */
+
+public final class R2LightSphericalBatched
+  implements R2LightSphericalBatchedType
+{
+  /**
+   * The size in bytes of the values of a single light: three {@code vec4}
+   * attributes.
+   */
+
+  private static final int LIGHT_SIZE = 3 * 4 * 4;
+
+  private final long id;
+  private final int max_size;
+  private final R2LightSphericalReadableType[] members;
+  private final int[] handle_slots;
+  private final int[] slot_handles;
+  private final int[] free_handles;
+  private final JCGLArrayBufferType light_vbo;
+  private final JCGLArrayObjectType light_vao;
+  private @Nullable JCGLBufferUpdateType<JCGLArrayBufferType> update_vbo;
+  private int update_count;
+  private int free_count;
+  private int count;
+  private double scale_factor;
+  private long uploaded;
+
+  private R2LightSphericalBatched(
+    final JCGLArrayBuffersType g_ab,
+    final JCGLArrayObjectsType g_ao,
+    final JCGLArrayObjectUsableType o,
+    final long in_id,
+    final int in_count)
+  {
+    NullCheck.notNull(g_ab, "Array buffers");
+    NullCheck.notNull(g_ao, "Array objects");
+    NullCheck.notNull(o, "Array object");
+
+    Preconditions.checkPreconditionI(
+      in_count,
+      in_count > 0,
+      c -> "Count " + c + " must be positive");
+
+    this.id = in_id;
+    this.max_size = in_count;
+    this.members = new R2LightSphericalReadableType[in_count];
+    this.handle_slots = new int[in_count];
+    this.slot_handles = new int[in_count];
+    this.free_handles = new int[in_count];
+
+    /*
+     * Handles are stacked in descending order so that they are handed out
+     * in ascending order.
+     */
+
+    for (int index = 0; index < in_count; ++index) {
+      this.handle_slots[index] = -1;
+      this.slot_handles[index] = -1;
+      this.free_handles[index] = (in_count - 1) - index;
+    }
+    this.free_count = in_count;
+    this.count = 0;
+    this.scale_factor = 1.0;
+    this.uploaded = 0L;
+
+    JCGLArrayBufferType vbo = null;
+    JCGLArrayObjectType vao = null;
+
+    try {
+
+      /*
+        Allocate a buffer to store the values of one light per instance.
+       */
+
+      vbo = g_ab.arrayBufferAllocate(
+        (long) LIGHT_SIZE * (long) in_count, JCGLUsageHint.USAGE_DYNAMIC_DRAW);
+      g_ab.arrayBufferUnbind();
+
+      final JCGLArrayObjectBuilderType aob =
+        g_ao.arrayObjectNewBuilderFromObject(o);
+
+      o.indexBufferBound().ifPresent(aob::setIndexBuffer);
+      aob.setStrictChecking(true);
+
+      final int stride = LIGHT_SIZE;
+      long offset = 0L;
+      aob.setAttributeFloatingPointWithDivisor(
+        R2MeshAttributeConventions.batchedLightPositionRadiusAttributeIndex(),
+        vbo,
+        4,
+        JCGLScalarType.TYPE_FLOAT,
+        stride,
+        offset,
+        false,
+        1);
+      offset += 4L * 4L;
+      aob.setAttributeFloatingPointWithDivisor(
+        R2MeshAttributeConventions.batchedLightColorIntensityAttributeIndex(),
+        vbo,
+        4,
+        JCGLScalarType.TYPE_FLOAT,
+        stride,
+        offset,
+        false,
+        1);
+      offset += 4L * 4L;
+      aob.setAttributeFloatingPointWithDivisor(
+        R2MeshAttributeConventions.batchedLightAttenuationAttributeIndex(),
+        vbo,
+        4,
+        JCGLScalarType.TYPE_FLOAT,
+        stride,
+        offset,
+        false,
+        1);
+
+      vao = g_ao.arrayObjectAllocate(aob);
+      g_ao.arrayObjectUnbind();
+
+    } catch (final JCGLException e) {
+      if (vbo != null) {
+        g_ab.arrayBufferDelete(vbo);
+      }
+      if (vao != null) {
+        g_ao.arrayObjectDelete(vao);
+      }
+      throw e;
+    }
+
+    this.light_vbo = vbo;
+    this.light_vao = vao;
+  }
+
+  /**
+   * Construct a new batch of lights.
+   *
+   * @param pool   The ID pool
+   * @param g_ab   An array buffer interface
+   * @param g_ao   An array object interface
+   * @param sphere The unit sphere used as the light volume
+   * @param count  The maximum number of lights in the batch
+   *
+   * @return A new batch
+   */
+
+  public static R2LightSphericalBatched create(
+    final R2IDPoolType pool,
+    final JCGLArrayBuffersType g_ab,
+    final JCGLArrayObjectsType g_ao,
+    final R2UnitSphereUsableType sphere,
+    final int count)
+  {
+    NullCheck.notNull(pool, "Pool");
+    NullCheck.notNull(sphere, "Sphere");
+    return new R2LightSphericalBatched(
+      g_ab, g_ao, sphere.arrayObject(), pool.freshID(), count);
+  }
+
+  private static void putVector4(
+    final ByteBuffer data,
+    final int position,
+    final double x,
+    final double y,
+    final double z,
+    final double w)
+  {
+    data.putFloat(position, (float) x);
+    data.putFloat(position + 4, (float) y);
+    data.putFloat(position + 8, (float) z);
+    data.putFloat(position + 12, (float) w);
+  }
+
+  @Override
+  public int maximumSize()
+  {
+    return this.max_size;
+  }
+
+  @Override
+  public int enabledCount()
+  {
+    return this.count;
+  }
+
+  @Override
+  public int renderCount()
+  {
+    return this.count;
+  }
+
+  @Override
+  public long uploadedBytes()
+  {
+    return this.uploaded;
+  }
+
+  @Override
+  public double geometryScaleFactor()
+  {
+    return this.scale_factor;
+  }
+
+  @Override
+  public void setGeometryScaleFactor(final double f)
+  {
+    this.scale_factor = Math.max(0.001, f);
+  }
+
+  @Override
+  public int enableLight(
+    final R2LightSphericalReadableType light)
+  {
+    NullCheck.notNull(light, "Light");
+
+    if (this.count == this.max_size) {
+      final StringBuilder sb = new StringBuilder(64);
+      sb.append("Batch is full (capacity is ");
+      sb.append(this.max_size);
+      sb.append(")");
+      throw new R2ExceptionLightBatchIsFull(sb.toString());
+    }
+
+    Preconditions.checkPrecondition(
+      this.free_count > 0, "Free handles must not be empty");
+
+    --this.free_count;
+    final int handle = this.free_handles[this.free_count];
+    final int slot = this.count;
+    ++this.count;
+
+    this.members[slot] = light;
+    this.slot_handles[slot] = handle;
+    this.handle_slots[handle] = slot;
+    return handle;
+  }
+
+  @Override
+  public void disableLight(final int handle)
+  {
+    Preconditions.checkPreconditionI(
+      handle,
+      handle >= 0 && handle < this.max_size,
+      i -> "Light " + i + " must be in the range [0, " + this.max_size + ")");
+
+    final int slot = this.handle_slots[handle];
+    if (slot < 0) {
+      return;
+    }
+
+    /*
+     * Move the light in the last occupied slot into the vacated slot.
+     */
+
+    final int last = this.count - 1;
+    if (slot != last) {
+      final int moved_handle = this.slot_handles[last];
+      this.members[slot] = this.members[last];
+      this.slot_handles[slot] = moved_handle;
+      this.handle_slots[moved_handle] = slot;
+    }
+
+    this.members[last] = null;
+    this.slot_handles[last] = -1;
+    this.handle_slots[handle] = -1;
+    this.free_handles[this.free_count] = handle;
+    ++this.free_count;
+    this.count = last;
+  }
+
+  @Override
+  public void disableAll()
+  {
+    while (this.count > 0) {
+      this.disableLight(this.slot_handles[this.count - 1]);
+    }
+  }
+
+  @Override
+  public void update(
+    final JCGLInterfaceGL33Type g)
+  {
+    NullCheck.notNull(g, "G33");
+
+    this.uploaded = 0L;
+    if (this.count == 0) {
+      return;
+    }
+
+    /*
+     * The update covers the enabled slots only, and is therefore only
+     * reallocated when the number of enabled lights changes.
+     */
+
+    final long size = (long) LIGHT_SIZE * (long) this.count;
+    JCGLBufferUpdateType<JCGLArrayBufferType> u = this.update_vbo;
+    if (u == null || this.update_count != this.count) {
+      u = JCGLBufferUpdates.newUpdateReplacingRange(
+        this.light_vbo, new UnsignedRangeInclusiveL(0L, size - 1L));
+      this.update_vbo = u;
+      this.update_count = this.count;
+    }
+
+    final ByteBuffer data = u.data();
+    for (int index = 0; index < this.count; ++index) {
+      this.writeLight(data, index);
+    }
+
+    final JCGLArrayBuffersType g_ab = g.arrayBuffers();
+    g_ab.arrayBufferBind(this.light_vbo);
+    g_ab.arrayBufferReallocate(this.light_vbo);
+    g_ab.arrayBufferUpdate(u);
+    g_ab.arrayBufferUnbind();
+    this.uploaded = size;
+  }
+
+  private void writeLight(
+    final ByteBuffer data,
+    final int index)
+  {
+    final R2LightSphericalReadableType light = this.members[index];
+    final PVector3D<R2SpaceWorldType> position = light.originPosition();
+    final PVector3D<R2SpaceRGBType> color = light.color();
+    final double radius = light.radius();
+    final int base = LIGHT_SIZE * index;
+
+    putVector4(
+      data,
+      base,
+      position.x(),
+      position.y(),
+      position.z(),
+      radius);
+    putVector4(
+      data,
+      base + 16,
+      color.x(),
+      color.y(),
+      color.z(),
+      light.intensity());
+    putVector4(
+      data,
+      base + 32,
+      1.0 / light.falloff(),
+      radius * this.scale_factor,
+      0.0,
+      0.0);
+  }
+
+  @Override
+  public JCGLArrayObjectUsableType arrayObject()
+  {
+    return this.light_vao;
+  }
+
+  @Override
+  public long lightID()
+  {
+    return this.id;
+  }
+
+  @Override
+  public void delete(final JCGLInterfaceGL33Type g)
+    throws R2Exception
+  {
+    NullCheck.notNull(g, "G33");
+
+    if (!this.isDeleted()) {
+      final JCGLArrayObjectsType g_ao = g.arrayObjects();
+      final JCGLArrayBuffersType g_ab = g.arrayBuffers();
+      g_ab.arrayBufferDelete(this.light_vbo);
+      g_ao.arrayObjectDelete(this.light_vao);
+      this.disableAll();
+    }
+  }
+
+  @Override
+  public boolean isDeleted()
+  {
+    return this.light_vao.isDeleted();
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.lights;
+
+/**
+ * The type of batches of spherical lights.
+ */
+
+public interface R2LightSphericalBatchedType
+  extends R2LightSphericalBatchedReadableType, R2LightBatchedType
+{
+  /**
+   * Set the scale factor applied to the light volume geometry of each light
+   * in the batch.
+   *
+   * @param f The scale factor
+   *
+   * @see R2LightSphericalSingleWritableType#setGeometryScaleFactor(double)
+   */
+
+  void setGeometryScaleFactor(double f);
+
+  /**
+   * Enable rendering of the light {@code light}. The batch keeps a reference
+   * to the light and reads its values on each call to
+   * {@link #update(com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type)}.
+   *
+   * @param light The light
+   *
+   * @return An identifier for the enabled light, valid until the light is
+   * disabled
+   *
+   * @throws R2ExceptionLightBatchIsFull If the batch cannot accept any more
+   *                                     lights
+   */
+
+  int enableLight(
+    R2LightSphericalReadableType light)
+    throws R2ExceptionLightBatchIsFull;
+}
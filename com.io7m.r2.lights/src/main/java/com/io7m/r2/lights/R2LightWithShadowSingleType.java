@@ -34,11 +34,12 @@ public interface R2LightWithShadowSingleType extends R2LightSingleType
   /**
    * Match on the type of light.
    *
-   * @param context    A context value
-   * @param on_project Evaluated for projective lights
-   * @param <A>        The type of context values
-   * @param <B>        The type of returned values
-   * @param <E>        The type of raised exceptions
+   * @param context        A context value
+   * @param on_project     Evaluated for projective lights
+   * @param on_directional Evaluated for directional lights
+   * @param <A>            The type of context values
+   * @param <B>            The type of returned values
+   * @param <E>            The type of raised exceptions
    *
    * @return A value of type {@code B}
    *
@@ -48,6 +49,8 @@ public interface R2LightWithShadowSingleType extends R2LightSingleType
   <A, B, E extends Throwable>
   B matchLightWithShadow(
     A context,
-    PartialBiFunctionType<A, R2LightProjectiveWithShadowType, B, E> on_project)
+    PartialBiFunctionType<A, R2LightProjectiveWithShadowType, B, E> on_project,
+    PartialBiFunctionType<A, R2LightDirectionalWithShadowType, B, E>
+      on_directional)
     throws E;
 }
@@ -0,0 +1,467 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.lights.shadows;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLViewMatrices;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVectors3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vectors3D;
+import com.io7m.r2.projections.R2ProjectionOrthographic;
+import com.io7m.r2.projections.R2ProjectionReadableType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+
+/**
+ * <p>The cascades of a cascaded shadow map for a directional light.</p>
+ *
+ * <p>The view frustum of an observer is divided into a number of slices
+ * along the view direction, using a blend of logarithmic and uniform split
+ * distances. Each slice is enclosed in a bounding sphere, and an
+ * orthographic projection looking along the light direction is fitted to
+ * that sphere. The size of each projection depends only on the shape of the
+ * observer's frustum, and the position of each projection is snapped to
+ * whole shadow map texels in light space, so that shadows do not shimmer as
+ * the observer moves or rotates.</p>
+ *
+ * <p>All cascades share the same near and far planes, so that the depth of
+ * every cascade can be encoded and sampled using the same depth
+ * coefficient.</p>
+ */
+
+public final class R2ShadowCascades
+{
+  private final int count;
+  private final long size;
+  private final double[] splits;
+  private final double[] radii;
+  private final R2ProjectionOrthographic[] projections;
+  private final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType>[] views;
+  private final double[] corners;
+  private final double[] centers;
+
+  @SuppressWarnings("unchecked")
+  private R2ShadowCascades(
+    final int in_count,
+    final long in_size)
+  {
+    Preconditions.checkPreconditionI(
+      in_count, in_count > 0, c -> "Cascade count must be positive");
+    Preconditions.checkPreconditionL(
+      in_size, in_size > 2L, s -> "Cascade size must be greater than 2");
+
+    this.count = in_count;
+    this.size = in_size;
+    this.splits = new double[in_count + 1];
+    this.radii = new double[in_count];
+    this.projections = new R2ProjectionOrthographic[in_count];
+    this.views = new PMatrix4x4D[in_count];
+    this.corners = new double[8 * 3];
+    this.centers = new double[in_count * 3];
+
+    for (int index = 0; index < in_count; ++index) {
+      this.projections[index] = R2ProjectionOrthographic.create();
+      this.views[index] = PMatrices4x4D.identity();
+    }
+  }
+
+  /**
+   * Create a new set of cascades.
+   *
+   * @param count The number of cascades
+   * @param size  The width and height in texels of the shadow map of each
+   *              cascade
+   *
+   * @return A new set of cascades
+   */
+
+  public static R2ShadowCascades create(
+    final int count,
+    final long size)
+  {
+    return new R2ShadowCascades(count, size);
+  }
+
+  /**
+   * Calculate the distance of a split plane using a blend of logarithmic
+   * and uniform split schemes.
+   *
+   * @param near   The distance to the near plane
+   * @param far    The distance to the far plane
+   * @param index  The index of the split plane in {@code [0, count]}
+   * @param count  The number of cascades
+   * @param lambda The blend factor ({@code 0.0} is uniform, {@code 1.0} is
+   *               logarithmic)
+   *
+   * @return The distance to the split plane
+   */
+
+  public static double splitDistance(
+    final double near,
+    final double far,
+    final int index,
+    final int count,
+    final double lambda)
+  {
+    final double f = (double) index / (double) count;
+    final double log = near * Math.pow(far / near, f);
+    final double uni = near + ((far - near) * f);
+    return (lambda * log) + ((1.0 - lambda) * uni);
+  }
+
+  /**
+   * @return The number of cascades
+   */
+
+  public int cascadeCount()
+  {
+    return this.count;
+  }
+
+  /**
+   * @return The width and height in texels of the shadow map of each cascade
+   */
+
+  public long cascadeSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * @param index The cascade
+   *
+   * @return The distance from the observer to the near plane of the slice
+   * covered by the cascade
+   */
+
+  public double cascadeSplitNear(
+    final int index)
+  {
+    return this.splits[index];
+  }
+
+  /**
+   * @param index The cascade
+   *
+   * @return The distance from the observer to the far plane of the slice
+   * covered by the cascade
+   */
+
+  public double cascadeSplitFar(
+    final int index)
+  {
+    return this.splits[index + 1];
+  }
+
+  /**
+   * @param index The cascade
+   *
+   * @return The radius in world units of the sphere enclosing the cascade
+   */
+
+  public double cascadeRadius(
+    final int index)
+  {
+    return this.radii[index];
+  }
+
+  /**
+   * @param index The cascade
+   *
+   * @return The light view matrix for the cascade
+   */
+
+  public PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> cascadeView(
+    final int index)
+  {
+    return this.views[index];
+  }
+
+  /**
+   * @param index The cascade
+   *
+   * @return The light projection for the cascade
+   */
+
+  public R2ProjectionReadableType cascadeProjection(
+    final int index)
+  {
+    return this.projections[index];
+  }
+
+  /**
+   * Recalculate all cascades for the given observer and light.
+   *
+   * @param view            The observer's view matrix
+   * @param projection      The observer's projection
+   * @param direction       The direction of the light
+   * @param lambda          The split blend factor ({@code 0.0} is uniform,
+   *                        {@code 1.0} is logarithmic)
+   * @param caster_distance The distance behind each cascade, along the light
+   *                        direction, in which shadow casters are captured
+   */
+
+  public void update(
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view,
+    final R2ProjectionReadableType projection,
+    final PVector3D<R2SpaceWorldType> direction,
+    final double lambda,
+    final double caster_distance)
+  {
+    NullCheck.notNull(view, "View");
+    NullCheck.notNull(projection, "Projection");
+    NullCheck.notNull(direction, "Direction");
+
+    Preconditions.checkPreconditionD(
+      lambda, lambda >= 0.0 && lambda <= 1.0,
+      x -> "Lambda must be in the range [0, 1]");
+    Preconditions.checkPreconditionD(
+      caster_distance, caster_distance >= 0.0,
+      x -> "Caster distance must be non-negative");
+
+    final double near = projection.projectionGetZNear();
+    final double far = projection.projectionGetZFar();
+    for (int index = 0; index <= this.count; ++index) {
+      this.splits[index] =
+        splitDistance(near, far, index, this.count, lambda);
+    }
+    this.splits[0] = near;
+    this.splits[this.count] = far;
+
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceWorldType> view_inverse =
+      PMatrices4x4D.invert(view).get();
+
+    /*
+     * Construct an orthonormal basis for light space. The light looks
+     * down its negative Z axis.
+     */
+
+    final Vector3D forward =
+      Vectors3D.normalize(PVectors3D.toUnparameterized(direction));
+    final Vector3D up =
+      Math.abs(forward.y()) > 0.99
+        ? Vector3D.of(0.0, 0.0, 1.0)
+        : Vector3D.of(0.0, 1.0, 0.0);
+    final Vector3D axis_z = Vectors3D.scale(forward, -1.0);
+    final Vector3D axis_x =
+      Vectors3D.normalize(Vectors3D.crossProduct(up, axis_z));
+    final Vector3D axis_y = Vectors3D.crossProduct(axis_z, axis_x);
+
+    for (int index = 0; index < this.count; ++index) {
+      this.encloseCascade(index, projection, view_inverse);
+    }
+
+    /*
+     * Every cascade uses the depth range required by the largest cascade,
+     * so that all cascades share the same near and far planes.
+     */
+
+    final double size_d = (double) this.size;
+    double extent_max = 0.0;
+    for (int index = 0; index < this.count; ++index) {
+      extent_max = Math.max(
+        extent_max, (this.radii[index] * size_d) / (size_d - 2.0));
+    }
+
+    for (int index = 0; index < this.count; ++index) {
+      this.placeCascade(
+        index,
+        forward,
+        up,
+        axis_x,
+        axis_y,
+        axis_z,
+        extent_max,
+        caster_distance);
+    }
+  }
+
+  private void encloseCascade(
+    final int index,
+    final R2ProjectionReadableType projection,
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceWorldType> view_inverse)
+  {
+    this.sliceCorners(
+      projection, view_inverse, this.splits[index], 0);
+    this.sliceCorners(
+      projection, view_inverse, this.splits[index + 1], 4);
+
+    /*
+     * Enclose the slice in a sphere. The radius depends only on the shape
+     * of the slice, so it is stable under observer rotation; round it up
+     * to avoid precision noise changing the texel size.
+     */
+
+    double cx = 0.0;
+    double cy = 0.0;
+    double cz = 0.0;
+    for (int c = 0; c < 8; ++c) {
+      cx += this.corners[c * 3];
+      cy += this.corners[(c * 3) + 1];
+      cz += this.corners[(c * 3) + 2];
+    }
+    cx /= 8.0;
+    cy /= 8.0;
+    cz /= 8.0;
+
+    double radius = 0.0;
+    for (int c = 0; c < 8; ++c) {
+      final double dx = this.corners[c * 3] - cx;
+      final double dy = this.corners[(c * 3) + 1] - cy;
+      final double dz = this.corners[(c * 3) + 2] - cz;
+      radius = Math.max(radius, Math.sqrt((dx * dx) + (dy * dy) + (dz * dz)));
+    }
+    radius = Math.ceil(radius * 16.0) / 16.0;
+    this.radii[index] = radius;
+    this.centers[index * 3] = cx;
+    this.centers[(index * 3) + 1] = cy;
+    this.centers[(index * 3) + 2] = cz;
+  }
+
+  private void placeCascade(
+    final int index,
+    final Vector3D forward,
+    final Vector3D up,
+    final Vector3D axis_x,
+    final Vector3D axis_y,
+    final Vector3D axis_z,
+    final double extent_max,
+    final double caster_distance)
+  {
+    final double radius = this.radii[index];
+    final double cx = this.centers[index * 3];
+    final double cy = this.centers[(index * 3) + 1];
+    final double cz = this.centers[(index * 3) + 2];
+
+    /*
+     * Snap the center of the sphere to whole texels in light space. Snapping
+     * moves the center by up to one texel, so the projection is widened by
+     * one texel on each side so that it always contains the sphere.
+     */
+
+    final double size_d = (double) this.size;
+    final double extent = (radius * size_d) / (size_d - 2.0);
+    final double texel = (extent * 2.0) / size_d;
+    final double lx =
+      Math.floor(dot(axis_x, cx, cy, cz) / texel) * texel;
+    final double ly =
+      Math.floor(dot(axis_y, cx, cy, cz) / texel) * texel;
+    final double lz =
+      dot(axis_z, cx, cy, cz);
+
+    final double sx = (axis_x.x() * lx) + (axis_y.x() * ly) + (axis_z.x() * lz);
+    final double sy = (axis_x.y() * lx) + (axis_y.y() * ly) + (axis_z.y() * lz);
+    final double sz = (axis_x.z() * lx) + (axis_y.z() * ly) + (axis_z.z() * lz);
+
+    /*
+     * Place the light eye behind the sphere so that all casters within
+     * the given distance are in front of the near plane.
+     */
+
+    final double back = extent_max + caster_distance + 1.0;
+    final Vector3D target = Vector3D.of(sx, sy, sz);
+    final Vector3D eye = Vector3D.of(
+      sx - (forward.x() * back),
+      sy - (forward.y() * back),
+      sz - (forward.z() * back));
+
+    this.views[index] = JCGLViewMatrices.lookAtRHP(eye, target, up);
+
+    final R2ProjectionOrthographic p = this.projections[index];
+    p.projectionSetXMinimum(-extent);
+    p.projectionSetXMaximum(extent);
+    p.projectionSetYMinimum(-extent);
+    p.projectionSetYMaximum(extent);
+    p.projectionSetZNear(1.0);
+    p.projectionSetZFar(back + extent_max);
+  }
+
+  /**
+   * Calculate the world-space corners of the slice of the observer's
+   * frustum at the given distance.
+   */
+
+  private void sliceCorners(
+    final R2ProjectionReadableType projection,
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceWorldType> view_inverse,
+    final double distance,
+    final int offset)
+  {
+    final double near = projection.projectionGetZNear();
+    final double far = projection.projectionGetZFar();
+    final double t = (distance - near) / (far - near);
+
+    final double x_min = lerp(
+      projection.projectionGetNearXMinimum(),
+      projection.projectionGetFarXMinimum(),
+      t);
+    final double x_max = lerp(
+      projection.projectionGetNearXMaximum(),
+      projection.projectionGetFarXMaximum(),
+      t);
+    final double y_min = lerp(
+      projection.projectionGetNearYMinimum(),
+      projection.projectionGetFarYMinimum(),
+      t);
+    final double y_max = lerp(
+      projection.projectionGetNearYMaximum(),
+      projection.projectionGetFarYMaximum(),
+      t);
+
+    this.corner(view_inverse, offset, x_min, y_min, -distance);
+    this.corner(view_inverse, offset + 1, x_max, y_min, -distance);
+    this.corner(view_inverse, offset + 2, x_min, y_max, -distance);
+    this.corner(view_inverse, offset + 3, x_max, y_max, -distance);
+  }
+
+  private void corner(
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceWorldType> view_inverse,
+    final int index,
+    final double x,
+    final double y,
+    final double z)
+  {
+    final PVector4D<R2SpaceWorldType> w =
+      PMatrices4x4D.multiplyVectorPost(
+        view_inverse, PVector4D.of(x, y, z, 1.0));
+    this.corners[index * 3] = w.x();
+    this.corners[(index * 3) + 1] = w.y();
+    this.corners[(index * 3) + 2] = w.z();
+  }
+
+  private static double lerp(
+    final double a,
+    final double b,
+    final double t)
+  {
+    return a + ((b - a) * t);
+  }
+
+  private static double dot(
+    final Vector3D v,
+    final double x,
+    final double y,
+    final double z)
+  {
+    return (v.x() * x) + (v.y() * y) + (v.z() * z);
+  }
+}
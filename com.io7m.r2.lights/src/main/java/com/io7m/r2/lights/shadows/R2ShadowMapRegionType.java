@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.lights.shadows;
+
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import org.immutables.value.Value;
+
+/**
+ * <p>The region of a shadow map texture that holds the shadow for a single
+ * light, expressed as a scale and offset applied to shadow map texture
+ * coordinates.</p>
+ *
+ * <p>A shadow map that occupies an entire texture has a scale of {@code (1,
+ * 1)} and an offset of {@code (0, 0)}. Shadow maps packed into an atlas
+ * occupy a smaller region of a shared texture.</p>
+ */
+
+@Value.Immutable
+@R2ImmutableStyleType
+public interface R2ShadowMapRegionType
+{
+  /**
+   * @return The region that covers an entire texture
+   */
+
+  static R2ShadowMapRegion full()
+  {
+    return R2ShadowMapRegion.of(1.0, 1.0, 0.0, 0.0);
+  }
+
+  /**
+   * @return The scale on the X axis
+   */
+
+  @Value.Parameter
+  double scaleX();
+
+  /**
+   * @return The scale on the Y axis
+   */
+
+  @Value.Parameter
+  double scaleY();
+
+  /**
+   * @return The offset on the X axis
+   */
+
+  @Value.Parameter
+  double offsetX();
+
+  /**
+   * @return The offset on the Y axis
+   */
+
+  @Value.Parameter
+  double offsetY();
+}
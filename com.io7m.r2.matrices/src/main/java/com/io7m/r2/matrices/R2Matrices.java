@@ -18,6 +18,7 @@ package com.io7m.r2.matrices;
 
 import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices3x3D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix3x3D;
@@ -33,6 +34,8 @@ import com.io7m.r2.spaces.R2SpaceNormalEyeType;
 import com.io7m.r2.spaces.R2SpaceObjectType;
 import com.io7m.r2.spaces.R2SpaceTextureType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.transforms.R2TransformMatrices;
+import com.io7m.r2.transforms.R2TransformOrthogonalReadableType;
 import com.io7m.r2.transforms.R2TransformReadableType;
 import com.io7m.r2.transforms.R2TransformViewReadableType;
 import com.io7m.r2.view_rays.R2ViewRays;
@@ -42,11 +45,20 @@ import com.io7m.r2.view_rays.R2ViewRaysType;
 import java.util.function.BiFunction;
 
 /**
- * Default implementation of the {@link R2MatricesType} interface.
+ * <p>Default implementation of the {@link R2MatricesType} interface.</p>
+ *
+ * <p>Per-instance and per-light matrices are calculated in preallocated
+ * storage (see {@link R2TransformMatrices}), and immutable matrix values are
+ * only produced when requested. The normal matrix for an instance with an
+ * orthogonal transform (see {@link R2TransformOrthogonalReadableType}) is
+ * derived directly from the modelview matrix instead of by inversion, as long
+ * as the current view matrix is also orthogonal.</p>
  */
 
 public final class R2Matrices implements R2MatricesType
 {
+  private static final double ORTHOGONAL_EPSILON = 1.0E-9;
+
   private final Observer observer;
 
   private R2Matrices()
@@ -63,16 +75,113 @@ public final class R2Matrices implements R2MatricesType
     return new R2Matrices();
   }
 
-  private static PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType>
-  makeNormalMatrix(
-    final PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m)
+  /**
+   * Calculate the normal matrix for the upper-left 3x3 part of the modelview
+   * matrix {@code m}, writing the result to the 3x3 row-major matrix
+   * {@code out}. The normal matrix is the inverse transpose of the upper-left
+   * 3x3 part of the modelview matrix. If the matrix is known to be a
+   * rotation multiplied by a uniform scale {@code s}, then the inverse
+   * transpose is simply the matrix divided by {@code s * s}.
+   */
+
+  private static void makeNormalMatrix(
+    final double[] m,
+    final boolean orthogonal,
+    final double[] out)
   {
-    final PMatrix3x3D<R2SpaceNormalEyeType, R2SpaceObjectType> m3 =
-      PMatrix3x3D.of(
-        m.r0c0(), m.r0c1(), m.r0c2(),
-        m.r1c0(), m.r1c1(), m.r1c2(),
-        m.r2c0(), m.r2c1(), m.r2c2());
-    return PMatrices3x3D.transpose(PMatrices3x3D.invert(m3).get());
+    final double a00 = m[0];
+    final double a01 = m[1];
+    final double a02 = m[2];
+    final double a10 = m[4];
+    final double a11 = m[5];
+    final double a12 = m[6];
+    final double a20 = m[8];
+    final double a21 = m[9];
+    final double a22 = m[10];
+
+    if (orthogonal) {
+      final double s2 = (a00 * a00) + (a10 * a10) + (a20 * a20);
+      final double r = s2 != 0.0 ? 1.0 / s2 : 1.0;
+      out[0] = a00 * r;
+      out[1] = a01 * r;
+      out[2] = a02 * r;
+      out[3] = a10 * r;
+      out[4] = a11 * r;
+      out[5] = a12 * r;
+      out[6] = a20 * r;
+      out[7] = a21 * r;
+      out[8] = a22 * r;
+      return;
+    }
+
+    /*
+     * The inverse transpose of a matrix is its cofactor matrix divided by
+     * its determinant.
+     */
+
+    final double c00 = (a11 * a22) - (a12 * a21);
+    final double c01 = (a12 * a20) - (a10 * a22);
+    final double c02 = (a10 * a21) - (a11 * a20);
+    final double c10 = (a02 * a21) - (a01 * a22);
+    final double c11 = (a00 * a22) - (a02 * a20);
+    final double c12 = (a01 * a20) - (a00 * a21);
+    final double c20 = (a01 * a12) - (a02 * a11);
+    final double c21 = (a02 * a10) - (a00 * a12);
+    final double c22 = (a00 * a11) - (a01 * a10);
+
+    final double det = (a00 * c00) + (a01 * c01) + (a02 * c02);
+    final double r = det != 0.0 ? 1.0 / det : 1.0;
+    out[0] = c00 * r;
+    out[1] = c01 * r;
+    out[2] = c02 * r;
+    out[3] = c10 * r;
+    out[4] = c11 * r;
+    out[5] = c12 * r;
+    out[6] = c20 * r;
+    out[7] = c21 * r;
+    out[8] = c22 * r;
+  }
+
+  /**
+   * @return {@code true} iff the upper-left 3x3 part of {@code m} is a
+   * rotation multiplied by a uniform scale
+   */
+
+  private static boolean isOrthogonal(
+    final double[] m)
+  {
+    final double x0 = m[0];
+    final double y0 = m[4];
+    final double z0 = m[8];
+    final double x1 = m[1];
+    final double y1 = m[5];
+    final double z1 = m[9];
+    final double x2 = m[2];
+    final double y2 = m[6];
+    final double z2 = m[10];
+
+    final double l0 = (x0 * x0) + (y0 * y0) + (z0 * z0);
+    final double l1 = (x1 * x1) + (y1 * y1) + (z1 * z1);
+    final double l2 = (x2 * x2) + (y2 * y2) + (z2 * z2);
+    final double d01 = (x0 * x1) + (y0 * y1) + (z0 * z1);
+    final double d02 = (x0 * x2) + (y0 * y2) + (z0 * z2);
+    final double d12 = (x1 * x2) + (y1 * y2) + (z1 * z2);
+
+    final double e = ORTHOGONAL_EPSILON * l0;
+    return Math.abs(l0 - l1) <= e
+      && Math.abs(l0 - l2) <= e
+      && Math.abs(d01) <= e
+      && Math.abs(d02) <= e
+      && Math.abs(d12) <= e;
+  }
+
+  private static <A, B> PMatrix3x3D<A, B> toMatrix3x3(
+    final double[] m)
+  {
+    return PMatrix3x3D.of(
+      m[0], m[1], m[2],
+      m[3], m[4], m[5],
+      m[6], m[7], m[8]);
   }
 
   @Override
@@ -96,6 +205,8 @@ public final class R2Matrices implements R2MatricesType
       this.observer.active = true;
       this.observer.m_view = view;
       this.observer.m_view_inverse = PMatrices4x4D.invert(view).get();
+      R2TransformMatrices.setMatrix(view, this.observer.view);
+      this.observer.view_orthogonal = isOrthogonal(this.observer.view);
 
       /*
        * Produce projection and inverse projection matrices.
@@ -121,26 +232,24 @@ public final class R2Matrices implements R2MatricesType
   private static final class ProjectiveLight implements
     R2MatricesProjectiveLightType
   {
-    private final PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> m_normal;
-    private final PMatrix3x3D<R2SpaceTextureType, R2SpaceTextureType> m_uv;
+    private final double[] model;
+    private final double[] modelview;
     private PMatrix4x4D<R2SpaceEyeType, R2SpaceLightEyeType> m_projective_eye_to_light_eye;
     private PMatrix4x4D<R2SpaceLightEyeType, R2SpaceLightClipType> m_projective_projection;
     private PMatrix4x4D<R2SpaceWorldType, R2SpaceLightEyeType> m_projective_view;
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m_model;
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
+    private @Nullable PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
     private boolean active;
     private R2ProjectionType projection;
 
     ProjectiveLight()
     {
       this.active = false;
-      this.m_model = PMatrices4x4D.identity();
-      this.m_modelview = PMatrices4x4D.identity();
+      this.model = new double[16];
+      this.modelview = new double[16];
+      this.m_modelview = null;
       this.m_projective_eye_to_light_eye = PMatrices4x4D.identity();
       this.m_projective_projection = PMatrices4x4D.identity();
       this.m_projective_view = PMatrices4x4D.identity();
-      this.m_normal = PMatrices3x3D.identity();
-      this.m_uv = PMatrices3x3D.identity();
     }
 
     @Override
@@ -179,16 +288,23 @@ public final class R2Matrices implements R2MatricesType
     matrixLightModelView()
     {
       Preconditions.checkPrecondition(this.active, "Projective must be active");
-      return this.m_modelview;
+      PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m = this.m_modelview;
+      if (m == null) {
+        m = R2TransformMatrices.toMatrix(this.modelview);
+        this.m_modelview = m;
+      }
+      return m;
     }
   }
 
   private static final class InstanceSingle implements
     R2MatricesInstanceSingleType
   {
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m_model;
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
-    private PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> m_normal;
+    private final double[] model;
+    private final double[] modelview;
+    private final double[] normal;
+    private @Nullable PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
+    private @Nullable PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> m_normal;
     private PMatrix3x3D<R2SpaceTextureType, R2SpaceTextureType> m_uv;
 
     private boolean active;
@@ -196,9 +312,11 @@ public final class R2Matrices implements R2MatricesType
     InstanceSingle()
     {
       this.active = false;
-      this.m_model = PMatrices4x4D.identity();
-      this.m_modelview = PMatrices4x4D.identity();
-      this.m_normal = PMatrices3x3D.identity();
+      this.model = new double[16];
+      this.modelview = new double[16];
+      this.normal = new double[9];
+      this.m_modelview = null;
+      this.m_normal = null;
       this.m_uv = PMatrices3x3D.identity();
     }
 
@@ -207,14 +325,24 @@ public final class R2Matrices implements R2MatricesType
     matrixModelView()
     {
       Preconditions.checkPrecondition(this.active, "Instance must be active");
-      return this.m_modelview;
+      PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m = this.m_modelview;
+      if (m == null) {
+        m = R2TransformMatrices.toMatrix(this.modelview);
+        this.m_modelview = m;
+      }
+      return m;
     }
 
     @Override
     public PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> matrixNormal()
     {
       Preconditions.checkPrecondition(this.active, "Instance must be active");
-      return this.m_normal;
+      PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> m = this.m_normal;
+      if (m == null) {
+        m = toMatrix3x3(this.normal);
+        this.m_normal = m;
+      }
+      return m;
     }
 
     @Override
@@ -227,15 +355,17 @@ public final class R2Matrices implements R2MatricesType
 
   private static final class VolumeLight implements R2MatricesVolumeLightType
   {
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m_model;
-    private PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
+    private final double[] model;
+    private final double[] modelview;
+    private @Nullable PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m_modelview;
     private boolean active;
 
     VolumeLight()
     {
       this.active = false;
-      this.m_model = PMatrices4x4D.identity();
-      this.m_modelview = PMatrices4x4D.identity();
+      this.model = new double[16];
+      this.modelview = new double[16];
+      this.m_modelview = null;
     }
 
     @Override
@@ -245,7 +375,12 @@ public final class R2Matrices implements R2MatricesType
       Preconditions.checkPrecondition(
         this.active,
         "Volume light must be active");
-      return this.m_modelview;
+      PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> m = this.m_modelview;
+      if (m == null) {
+        m = R2TransformMatrices.toMatrix(this.modelview);
+        this.m_modelview = m;
+      }
+      return m;
     }
   }
 
@@ -255,6 +390,8 @@ public final class R2Matrices implements R2MatricesType
     private final R2ViewRaysType view_rays;
     private final ProjectiveLight projective;
     private final VolumeLight volume;
+    private final double[] view;
+    private boolean view_orthogonal;
     private PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> m_projection;
     private PMatrix4x4D<R2SpaceClipType, R2SpaceEyeType> m_projection_inverse;
     private PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> m_view;
@@ -269,6 +406,9 @@ public final class R2Matrices implements R2MatricesType
       this.m_projection_inverse = PMatrices4x4D.identity();
       this.m_view = PMatrices4x4D.identity();
       this.m_view_inverse = PMatrices4x4D.identity();
+      this.view = new double[16];
+      R2TransformMatrices.setIdentity(this.view);
+      this.view_orthogonal = true;
       this.instance_single = new InstanceSingle();
       this.projective = new ProjectiveLight();
       this.volume = new VolumeLight();
@@ -355,14 +495,18 @@ public final class R2Matrices implements R2MatricesType
       try {
         this.instance_single.active = true;
 
-        this.instance_single.m_model = t.transformMakeMatrix4x4F();
-        this.instance_single.m_modelview =
-          PMatrices4x4D.multiply(this.m_view, this.instance_single.m_model);
-
-        this.instance_single.m_normal =
-          makeNormalMatrix(this.instance_single.m_modelview);
-
-        this.instance_single.m_uv = uv;
+        final InstanceSingle i = this.instance_single;
+        t.transformWriteMatrix4x4F(i.model);
+        R2TransformMatrices.multiply(this.view, i.model, i.modelview);
+        makeNormalMatrix(
+          i.modelview,
+          this.view_orthogonal
+            && t instanceof R2TransformOrthogonalReadableType,
+          i.normal);
+
+        i.m_modelview = null;
+        i.m_normal = null;
+        i.m_uv = uv;
         return f.apply(this.instance_single, x);
       } finally {
         this.instance_single.active = false;
@@ -406,10 +550,10 @@ public final class R2Matrices implements R2MatricesType
          * Produce a modelview matrix for the light.
          */
 
-        this.projective.m_model =
-          t.transformMakeMatrix4x4F();
-        this.projective.m_modelview =
-          PMatrices4x4D.multiply(this.m_view, this.projective.m_model);
+        t.transformWriteMatrix4x4F(this.projective.model);
+        R2TransformMatrices.multiply(
+          this.view, this.projective.model, this.projective.modelview);
+        this.projective.m_modelview = null;
 
         /*
          * Produce a view and projection matrix for the light's projection. The
@@ -472,10 +616,10 @@ public final class R2Matrices implements R2MatricesType
          * Produce a modelview matrix for the light.
          */
 
-        this.volume.m_model =
-          t.transformMakeMatrix4x4F();
-        this.volume.m_modelview =
-          PMatrices4x4D.multiply(this.m_view, this.volume.m_model);
+        t.transformWriteMatrix4x4F(this.volume.model);
+        R2TransformMatrices.multiply(
+          this.view, this.volume.model, this.volume.modelview);
+        this.volume.m_modelview = null;
 
         return f.apply(this.volume, x);
       } finally {
@@ -42,6 +42,12 @@ public final class R2MeshAttributeConventions
 
   private static final int USER_ATTRIBUTES_INDEX = 8;
 
+  private static final int BATCHED_LIGHT_POSITION_RADIUS_ATTRIBUTE_INDEX = 4;
+
+  private static final int BATCHED_LIGHT_COLOR_INTENSITY_ATTRIBUTE_INDEX = 5;
+
+  private static final int BATCHED_LIGHT_ATTENUATION_ATTRIBUTE_INDEX = 6;
+
   private static final int BILLBOARDED_ATTRIBUTE_SCALE_INDEX = 1;
 
   private static final int BILLBOARDED_ATTRIBUTE_ROTATION_INDEX = 2;
@@ -128,6 +134,39 @@ public final class R2MeshAttributeConventions
     return BATCHED_MODEL_MATRIX_COLUMN_3_ATTRIBUTE_INDEX;
   }
 
+  /**
+   * Batched light volumes do not have model matrices, and so the per-light
+   * values share the attribute indices used for batched model matrices.
+   *
+   * @return The attribute index used to deliver the world-space position and
+   * radius of batched lights.
+   */
+
+  public static int batchedLightPositionRadiusAttributeIndex()
+  {
+    return BATCHED_LIGHT_POSITION_RADIUS_ATTRIBUTE_INDEX;
+  }
+
+  /**
+   * @return The attribute index used to deliver the color and intensity of
+   * batched lights.
+   */
+
+  public static int batchedLightColorIntensityAttributeIndex()
+  {
+    return BATCHED_LIGHT_COLOR_INTENSITY_ATTRIBUTE_INDEX;
+  }
+
+  /**
+   * @return The attribute index used to deliver the inverse falloff and
+   * volume scale of batched lights.
+   */
+
+  public static int batchedLightAttenuationAttributeIndex()
+  {
+    return BATCHED_LIGHT_ATTENUATION_ATTRIBUTE_INDEX;
+  }
+
   /**
    * @return The index of the first available user attribute.
    */
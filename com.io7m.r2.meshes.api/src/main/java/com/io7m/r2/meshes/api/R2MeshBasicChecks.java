@@ -45,17 +45,42 @@ public final class R2MeshBasicChecks
     final R2MeshTriangle triangle)
     throws R2MeshException
   {
-    final long v0 = triangle.v0();
+    checkTriangleIndices(
+      triangle_index,
+      vertices_max,
+      triangle.v0(),
+      triangle.v1(),
+      triangle.v2());
+  }
+
+  /**
+   * Check the triangle with the given vertex indices for validity.
+   *
+   * @param triangle_index The index of the triangle
+   * @param vertices_max   The number of vertices in the mesh
+   * @param v0             The index of the first vertex
+   * @param v1             The index of the second vertex
+   * @param v2             The index of the third vertex
+   *
+   * @throws R2MeshException If the mesh is not valid
+   */
+
+  public static void checkTriangleIndices(
+    final long triangle_index,
+    final long vertices_max,
+    final long v0,
+    final long v1,
+    final long v2)
+    throws R2MeshException
+  {
     if (Long.compareUnsigned(v0, vertices_max) >= 0) {
       throw new R2MeshExceptionMissingVertex(
         "Vertex 0: " + Long.toString(v0));
     }
-    final long v1 = triangle.v1();
     if (Long.compareUnsigned(v1, vertices_max) >= 0) {
       throw new R2MeshExceptionMissingVertex(
         "Vertex 1: " + Long.toString(v1));
     }
-    final long v2 = triangle.v2();
     if (Long.compareUnsigned(v2, vertices_max) >= 0) {
       throw new R2MeshExceptionMissingVertex(
         "Vertex 2: " + Long.toString(v2));
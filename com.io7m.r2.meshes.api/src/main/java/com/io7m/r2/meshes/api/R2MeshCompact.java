@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.api;
+
+import com.io7m.jnull.NullCheck;
+import it.unimi.dsi.fastutil.doubles.DoubleBigArrayBigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigLists;
+import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigLists;
+
+/**
+ * The default implementation of the {@link R2MeshCompactType} interface.
+ */
+
+public final class R2MeshCompact implements R2MeshCompactType
+{
+  private final DoubleBigList positions;
+  private final DoubleBigList normals;
+  private final DoubleBigList uvs;
+  private final LongBigList vertices;
+  private final LongBigList triangles;
+
+  private R2MeshCompact(
+    final DoubleBigList in_positions,
+    final DoubleBigList in_normals,
+    final DoubleBigList in_uvs,
+    final LongBigList in_vertices,
+    final LongBigList in_triangles)
+  {
+    this.positions = DoubleBigLists.unmodifiable(
+      NullCheck.notNull(in_positions, "Positions"));
+    this.normals = DoubleBigLists.unmodifiable(
+      NullCheck.notNull(in_normals, "Normals"));
+    this.uvs = DoubleBigLists.unmodifiable(
+      NullCheck.notNull(in_uvs, "UVs"));
+    this.vertices = LongBigLists.unmodifiable(
+      NullCheck.notNull(in_vertices, "Vertices"));
+    this.triangles = LongBigLists.unmodifiable(
+      NullCheck.notNull(in_triangles, "Triangles"));
+  }
+
+  /**
+   * @return A new mesh builder
+   */
+
+  public static R2MeshCompactBuilderType newBuilder()
+  {
+    return new Builder(16L, 16L);
+  }
+
+  /**
+   * Create a new mesh builder with storage preallocated for the given number
+   * of vertices and triangles. The builder assumes that there will be roughly
+   * one position, normal, and UV coordinate per vertex.
+   *
+   * @param vertices  The expected number of vertices
+   * @param triangles The expected number of triangles
+   *
+   * @return A new mesh builder
+   */
+
+  public static R2MeshCompactBuilderType newBuilderWithCapacity(
+    final long vertices,
+    final long triangles)
+  {
+    return new Builder(vertices, triangles);
+  }
+
+  @Override
+  public DoubleBigList positions()
+  {
+    return this.positions;
+  }
+
+  @Override
+  public DoubleBigList normals()
+  {
+    return this.normals;
+  }
+
+  @Override
+  public DoubleBigList uvs()
+  {
+    return this.uvs;
+  }
+
+  @Override
+  public LongBigList vertices()
+  {
+    return this.vertices;
+  }
+
+  @Override
+  public LongBigList triangles()
+  {
+    return this.triangles;
+  }
+
+  private static final class Builder implements R2MeshCompactBuilderType
+  {
+    private final DoubleBigArrayBigList positions;
+    private final DoubleBigArrayBigList normals;
+    private final DoubleBigArrayBigList uvs;
+    private final LongBigArrayBigList vertices;
+    private final LongBigArrayBigList triangles;
+    private boolean built;
+
+    Builder(
+      final long vertex_count,
+      final long triangle_count)
+    {
+      final long vc = Math.max(0L, vertex_count);
+      final long tc = Math.max(0L, triangle_count);
+
+      this.positions =
+        new DoubleBigArrayBigList(vc * (long) POSITION_COMPONENTS);
+      this.normals =
+        new DoubleBigArrayBigList(vc * (long) NORMAL_COMPONENTS);
+      this.uvs =
+        new DoubleBigArrayBigList(vc * (long) UV_COMPONENTS);
+      this.vertices =
+        new LongBigArrayBigList(vc * (long) VERTEX_COMPONENTS);
+      this.triangles =
+        new LongBigArrayBigList(tc * (long) TRIANGLE_COMPONENTS);
+      this.built = false;
+    }
+
+    private void checkNotBuilt()
+    {
+      if (this.built) {
+        throw new IllegalStateException("Mesh has already been built");
+      }
+    }
+
+    @Override
+    public long addPosition(
+      final double x,
+      final double y,
+      final double z)
+    {
+      this.checkNotBuilt();
+      final long index = this.positions.size64() / (long) POSITION_COMPONENTS;
+      this.positions.add(x);
+      this.positions.add(y);
+      this.positions.add(z);
+      return index;
+    }
+
+    @Override
+    public long addNormal(
+      final double x,
+      final double y,
+      final double z)
+    {
+      this.checkNotBuilt();
+      final long index = this.normals.size64() / (long) NORMAL_COMPONENTS;
+      this.normals.add(x);
+      this.normals.add(y);
+      this.normals.add(z);
+      return index;
+    }
+
+    @Override
+    public long addUV(
+      final double x,
+      final double y)
+    {
+      this.checkNotBuilt();
+      final long index = this.uvs.size64() / (long) UV_COMPONENTS;
+      this.uvs.add(x);
+      this.uvs.add(y);
+      return index;
+    }
+
+    @Override
+    public long addVertex(
+      final long position,
+      final long normal,
+      final long uv)
+      throws R2MeshException
+    {
+      this.checkNotBuilt();
+
+      final long position_max =
+        this.positions.size64() / (long) POSITION_COMPONENTS;
+      if (Long.compareUnsigned(position, position_max) >= 0) {
+        throw new R2MeshExceptionMissingPosition(
+          Long.toUnsignedString(position));
+      }
+
+      final long normal_max =
+        this.normals.size64() / (long) NORMAL_COMPONENTS;
+      if (Long.compareUnsigned(normal, normal_max) >= 0) {
+        throw new R2MeshExceptionMissingNormal(
+          Long.toString(normal));
+      }
+
+      final long uv_max =
+        this.uvs.size64() / (long) UV_COMPONENTS;
+      if (Long.compareUnsigned(uv, uv_max) >= 0) {
+        throw new R2MeshExceptionMissingUV(
+          Long.toString(uv));
+      }
+
+      final long index = this.vertices.size64() / (long) VERTEX_COMPONENTS;
+      this.vertices.add(position);
+      this.vertices.add(normal);
+      this.vertices.add(uv);
+      return index;
+    }
+
+    @Override
+    public long addTriangle(
+      final long v0,
+      final long v1,
+      final long v2)
+      throws R2MeshException
+    {
+      this.checkNotBuilt();
+
+      final long index = this.triangles.size64() / (long) TRIANGLE_COMPONENTS;
+      R2MeshBasicChecks.checkTriangleIndices(
+        index,
+        this.vertices.size64() / (long) VERTEX_COMPONENTS,
+        v0,
+        v1,
+        v2);
+
+      this.triangles.add(v0);
+      this.triangles.add(v1);
+      this.triangles.add(v2);
+      return index;
+    }
+
+    @Override
+    public R2MeshCompactType build()
+    {
+      this.checkNotBuilt();
+      this.built = true;
+
+      this.positions.trim();
+      this.normals.trim();
+      this.uvs.trim();
+      this.vertices.trim();
+      this.triangles.trim();
+
+      return new R2MeshCompact(
+        this.positions,
+        this.normals,
+        this.uvs,
+        this.vertices,
+        this.triangles);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.api;
+
+/**
+ * <p>The type of mutable builders for compact meshes.</p>
+ *
+ * <p>Elements are appended one at a time and are validated as they are
+ * added, so a mesh can be streamed into a builder without first
+ * materializing it in any other form. Vertices may only refer to attributes
+ * that have already been added, and triangles may only refer to vertices
+ * that have already been added.</p>
+ */
+
+public interface R2MeshCompactBuilderType
+{
+  /**
+   * Add a position.
+   *
+   * @param x The x component
+   * @param y The y component
+   * @param z The z component
+   *
+   * @return The index of the new position
+   */
+
+  long addPosition(
+    double x,
+    double y,
+    double z);
+
+  /**
+   * Add a normal.
+   *
+   * @param x The x component
+   * @param y The y component
+   * @param z The z component
+   *
+   * @return The index of the new normal
+   */
+
+  long addNormal(
+    double x,
+    double y,
+    double z);
+
+  /**
+   * Add a UV coordinate.
+   *
+   * @param x The x component
+   * @param y The y component
+   *
+   * @return The index of the new UV coordinate
+   */
+
+  long addUV(
+    double x,
+    double y);
+
+  /**
+   * Add a vertex.
+   *
+   * @param position The index of the position
+   * @param normal   The index of the normal
+   * @param uv       The index of the UV coordinate
+   *
+   * @return The index of the new vertex
+   *
+   * @throws R2MeshException If any of the given indices do not refer to
+   *                         existing attributes
+   */
+
+  long addVertex(
+    long position,
+    long normal,
+    long uv)
+    throws R2MeshException;
+
+  /**
+   * Add a triangle.
+   *
+   * @param v0 The index of the first vertex
+   * @param v1 The index of the second vertex
+   * @param v2 The index of the third vertex
+   *
+   * @return The index of the new triangle
+   *
+   * @throws R2MeshException If any of the given indices do not refer to
+   *                         existing vertices, or the triangle is malformed
+   */
+
+  long addTriangle(
+    long v0,
+    long v1,
+    long v2)
+    throws R2MeshException;
+
+  /**
+   * Build a mesh. The builder must not be used after this method has been
+   * called.
+   *
+   * @return A new mesh
+   */
+
+  R2MeshCompactType build();
+}
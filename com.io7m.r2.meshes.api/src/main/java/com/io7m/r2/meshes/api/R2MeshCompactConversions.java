@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.api;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.vectors.PVector2D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceTextureType;
+import it.unimi.dsi.fastutil.BigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.fastutil.objects.ObjectBigArrayBigList;
+
+/**
+ * Functions to convert between compact and basic meshes.
+ */
+
+public final class R2MeshCompactConversions
+{
+  private R2MeshCompactConversions()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Convert a basic mesh to a compact mesh.
+   *
+   * @param m The basic mesh
+   *
+   * @return A compact mesh
+   */
+
+  public static R2MeshCompactType fromBasic(
+    final R2MeshBasicType m)
+  {
+    NullCheck.notNull(m, "Mesh");
+
+    final BigList<R2MeshBasicVertex> vertices = m.vertices();
+    final BigList<R2MeshTriangle> triangles = m.triangles();
+
+    final R2MeshCompactBuilderType b =
+      R2MeshCompact.newBuilderWithCapacity(
+        vertices.size64(), triangles.size64());
+
+    for (final PVector3D<R2SpaceObjectType> p : m.positions()) {
+      b.addPosition(p.x(), p.y(), p.z());
+    }
+    for (final PVector3D<R2SpaceObjectType> n : m.normals()) {
+      b.addNormal(n.x(), n.y(), n.z());
+    }
+    for (final PVector2D<R2SpaceTextureType> u : m.uvs()) {
+      b.addUV(u.x(), u.y());
+    }
+    for (final R2MeshBasicVertex v : vertices) {
+      b.addVertex(v.positionIndex(), v.normalIndex(), v.uvIndex());
+    }
+    for (final R2MeshTriangle t : triangles) {
+      b.addTriangle(t.v0(), t.v1(), t.v2());
+    }
+    return b.build();
+  }
+
+  /**
+   * Convert a compact mesh to a basic mesh.
+   *
+   * @param m The compact mesh
+   *
+   * @return A basic mesh
+   */
+
+  public static R2MeshBasic toBasic(
+    final R2MeshCompactType m)
+  {
+    NullCheck.notNull(m, "Mesh");
+
+    final DoubleBigList m_positions = m.positions();
+    final ObjectBigArrayBigList<PVector3D<R2SpaceObjectType>> positions =
+      new ObjectBigArrayBigList<>(m.positionCount());
+    for (long index = 0L; index < m_positions.size64(); index += 3L) {
+      positions.add(PVector3D.of(
+        m_positions.getDouble(index),
+        m_positions.getDouble(index + 1L),
+        m_positions.getDouble(index + 2L)));
+    }
+
+    final DoubleBigList m_normals = m.normals();
+    final ObjectBigArrayBigList<PVector3D<R2SpaceObjectType>> normals =
+      new ObjectBigArrayBigList<>(m.normalCount());
+    for (long index = 0L; index < m_normals.size64(); index += 3L) {
+      normals.add(PVector3D.of(
+        m_normals.getDouble(index),
+        m_normals.getDouble(index + 1L),
+        m_normals.getDouble(index + 2L)));
+    }
+
+    final DoubleBigList m_uvs = m.uvs();
+    final ObjectBigArrayBigList<PVector2D<R2SpaceTextureType>> uvs =
+      new ObjectBigArrayBigList<>(m.uvCount());
+    for (long index = 0L; index < m_uvs.size64(); index += 2L) {
+      uvs.add(PVector2D.of(
+        m_uvs.getDouble(index),
+        m_uvs.getDouble(index + 1L)));
+    }
+
+    final LongBigList m_vertices = m.vertices();
+    final ObjectBigArrayBigList<R2MeshBasicVertex> vertices =
+      new ObjectBigArrayBigList<>(m.vertexCount());
+    for (long index = 0L; index < m_vertices.size64(); index += 3L) {
+      vertices.add(R2MeshBasicVertex.of(
+        m_vertices.getLong(index),
+        m_vertices.getLong(index + 1L),
+        m_vertices.getLong(index + 2L)));
+    }
+
+    final LongBigList m_triangles = m.triangles();
+    final ObjectBigArrayBigList<R2MeshTriangle> triangles =
+      new ObjectBigArrayBigList<>(m.triangleCount());
+    for (long index = 0L; index < m_triangles.size64(); index += 3L) {
+      triangles.add(R2MeshTriangle.of(
+        m_triangles.getLong(index),
+        m_triangles.getLong(index + 1L),
+        m_triangles.getLong(index + 2L)));
+    }
+
+    return R2MeshBasic.of(positions, normals, uvs, vertices, triangles);
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.api;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.junreachable.UnreachableCodeException;
+
+/**
+ * <p>Functions to generate simple shapes as compact meshes.</p>
+ *
+ * <p>The generated meshes have distinct UV coordinates at every vertex of
+ * every triangle, and are therefore suitable for tangent generation.</p>
+ */
+
+public final class R2MeshCompactShapes
+{
+  /*
+   * The normal, and the two axes spanning the face, of each face of a cube.
+   * For each face, the cross product of the two axes is the normal, so the
+   * corners visited in the order (-u, -v), (u, -v), (u, v), (-u, v) are
+   * counter-clockwise when viewed from outside the cube.
+   */
+
+  private static final double[][] CUBE_FACES = {
+    {1.0, 0.0, 0.0, 0.0, 0.0, -1.0, 0.0, 1.0, 0.0},
+    {-1.0, 0.0, 0.0, 0.0, 0.0, 1.0, 0.0, 1.0, 0.0},
+    {0.0, 1.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0, -1.0},
+    {0.0, -1.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0, 1.0},
+    {0.0, 0.0, 1.0, 1.0, 0.0, 0.0, 0.0, 1.0, 0.0},
+    {0.0, 0.0, -1.0, -1.0, 0.0, 0.0, 0.0, 1.0, 0.0},
+  };
+
+  private static final double[][] CUBE_CORNERS = {
+    {-1.0, -1.0, 0.0, 0.0},
+    {1.0, -1.0, 1.0, 0.0},
+    {1.0, 1.0, 1.0, 1.0},
+    {-1.0, 1.0, 0.0, 1.0},
+  };
+
+  private R2MeshCompactShapes()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Generate a quad spanning {@code [-1, 1]} on the X and Y axes, facing
+   * towards positive Z. The mesh has the same vertices as the quad
+   * allocated by {@code R2UnitQuad}.
+   *
+   * @return A unit quad
+   */
+
+  public static R2MeshCompactType unitQuad()
+  {
+    final R2MeshCompactBuilderType b =
+      R2MeshCompact.newBuilderWithCapacity(4L, 2L);
+
+    final long n = b.addNormal(0.0, 0.0, 1.0);
+
+    final long v0 = b.addVertex(
+      b.addPosition(-1.0, 1.0, 0.0), n, b.addUV(0.0, 1.0));
+    final long v1 = b.addVertex(
+      b.addPosition(-1.0, -1.0, 0.0), n, b.addUV(0.0, 0.0));
+    final long v2 = b.addVertex(
+      b.addPosition(1.0, -1.0, 0.0), n, b.addUV(1.0, 0.0));
+    final long v3 = b.addVertex(
+      b.addPosition(1.0, 1.0, 0.0), n, b.addUV(1.0, 1.0));
+
+    b.addTriangle(v0, v1, v2);
+    b.addTriangle(v0, v2, v3);
+    return b.build();
+  }
+
+  /**
+   * Generate a cube spanning {@code [-1, 1]} on all axes. Each face has its
+   * own vertices, so that normals are not shared between faces.
+   *
+   * @return A unit cube
+   */
+
+  public static R2MeshCompactType unitCube()
+  {
+    final R2MeshCompactBuilderType b =
+      R2MeshCompact.newBuilderWithCapacity(24L, 12L);
+
+    /*
+     * The eight corners of the cube. The index of a corner is derived from
+     * the signs of its components.
+     */
+
+    for (int index = 0; index < 8; ++index) {
+      b.addPosition(
+        (index & 1) == 0 ? -1.0 : 1.0,
+        (index & 2) == 0 ? -1.0 : 1.0,
+        (index & 4) == 0 ? -1.0 : 1.0);
+    }
+
+    final long[] face = new long[4];
+    for (final double[] f : CUBE_FACES) {
+      final long normal = b.addNormal(f[0], f[1], f[2]);
+
+      for (int corner = 0; corner < 4; ++corner) {
+        final double cu = CUBE_CORNERS[corner][0];
+        final double cv = CUBE_CORNERS[corner][1];
+        final double x = f[0] + (cu * f[3]) + (cv * f[6]);
+        final double y = f[1] + (cu * f[4]) + (cv * f[7]);
+        final double z = f[2] + (cu * f[5]) + (cv * f[8]);
+
+        final long position =
+          (x > 0.0 ? 1L : 0L) | (y > 0.0 ? 2L : 0L) | (z > 0.0 ? 4L : 0L);
+        final long uv =
+          b.addUV(CUBE_CORNERS[corner][2], CUBE_CORNERS[corner][3]);
+        face[corner] = b.addVertex(position, normal, uv);
+      }
+
+      b.addTriangle(face[0], face[1], face[2]);
+      b.addTriangle(face[0], face[2], face[3]);
+    }
+
+    return b.build();
+  }
+
+  /**
+   * <p>Generate a UV sphere of radius {@code 1} with {@code segments}
+   * vertical segments and {@code segments / 2} horizontal bands.</p>
+   *
+   * <p>Vertices along the seam and at the poles are duplicated so that each
+   * has a distinct UV coordinate.</p>
+   *
+   * @param segments The number of segments
+   *
+   * @return A unit sphere
+   *
+   * @see "com.io7m.r2.meshes.defaults.R2UnitSphere"
+   */
+
+  public static R2MeshCompactType unitSphere(
+    final int segments)
+  {
+    Preconditions.checkPreconditionI(
+      segments, segments >= 4, s -> "Segment count must be at least 4");
+
+    final int bands = segments / 2;
+    final int columns = segments + 1;
+    final long vertex_count = (long) columns * (long) (bands + 1);
+    final long triangle_count = 2L * (long) segments * (long) (bands - 1);
+
+    final R2MeshCompactBuilderType b =
+      R2MeshCompact.newBuilderWithCapacity(vertex_count, triangle_count);
+
+    for (int band = 0; band <= bands; ++band) {
+      final double v = (double) band / (double) bands;
+      final double phi = Math.PI * v;
+      final double y = StrictMath.cos(phi);
+      final double r = StrictMath.sin(phi);
+
+      for (int column = 0; column < columns; ++column) {
+        final double u = (double) column / (double) segments;
+        final double theta = 2.0 * Math.PI * u;
+        final double x = r * StrictMath.cos(theta);
+        final double z = -r * StrictMath.sin(theta);
+
+        b.addVertex(
+          b.addPosition(x, y, z),
+          b.addNormal(x, y, z),
+          b.addUV(u, 1.0 - v));
+      }
+    }
+
+    /*
+     * Each quad between two bands is split into two triangles. At the poles,
+     * one of the two triangles has zero area and is omitted.
+     */
+
+    for (int band = 0; band < bands; ++band) {
+      for (int column = 0; column < segments; ++column) {
+        final long a = ((long) band * (long) columns) + (long) column;
+        final long bb = a + (long) columns;
+        final long c = bb + 1L;
+        final long d = a + 1L;
+
+        if (band > 0) {
+          b.addTriangle(a, c, d);
+        }
+        if (band < bands - 1) {
+          b.addTriangle(a, bb, c);
+        }
+      }
+    }
+
+    return b.build();
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.api;
+
+import it.unimi.dsi.fastutil.doubles.DoubleBigList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+
+/**
+ * <p>The type of compact meshes.</p>
+ *
+ * <p>A compact mesh carries the same information as an
+ * {@link R2MeshBasicType}, but stores each attribute as a flat list of
+ * primitive components rather than as a list of vector objects. Element
+ * {@code i} of an attribute with {@code n} components occupies the list
+ * indices {@code [i * n, (i * n) + n)}.</p>
+ *
+ * <p>The lists returned by a compact mesh are not modifiable.</p>
+ */
+
+public interface R2MeshCompactType
+{
+  /**
+   * The number of components in a position.
+   */
+
+  int POSITION_COMPONENTS = 3;
+
+  /**
+   * The number of components in a normal.
+   */
+
+  int NORMAL_COMPONENTS = 3;
+
+  /**
+   * The number of components in a UV coordinate.
+   */
+
+  int UV_COMPONENTS = 2;
+
+  /**
+   * The number of indices in a vertex: The position, normal, and UV indices,
+   * in that order.
+   */
+
+  int VERTEX_COMPONENTS = 3;
+
+  /**
+   * The number of indices in a triangle.
+   */
+
+  int TRIANGLE_COMPONENTS = 3;
+
+  /**
+   * @return The position components
+   */
+
+  DoubleBigList positions();
+
+  /**
+   * @return The normal components
+   */
+
+  DoubleBigList normals();
+
+  /**
+   * @return The UV components
+   */
+
+  DoubleBigList uvs();
+
+  /**
+   * @return The vertex indices
+   */
+
+  LongBigList vertices();
+
+  /**
+   * @return The triangle vertex indices
+   */
+
+  LongBigList triangles();
+
+  /**
+   * @return The number of positions
+   */
+
+  default long positionCount()
+  {
+    return this.positions().size64() / (long) POSITION_COMPONENTS;
+  }
+
+  /**
+   * @return The number of normals
+   */
+
+  default long normalCount()
+  {
+    return this.normals().size64() / (long) NORMAL_COMPONENTS;
+  }
+
+  /**
+   * @return The number of UV coordinates
+   */
+
+  default long uvCount()
+  {
+    return this.uvs().size64() / (long) UV_COMPONENTS;
+  }
+
+  /**
+   * @return The number of vertices
+   */
+
+  default long vertexCount()
+  {
+    return this.vertices().size64() / (long) VERTEX_COMPONENTS;
+  }
+
+  /**
+   * @return The number of triangles
+   */
+
+  default long triangleCount()
+  {
+    return this.triangles().size64() / (long) TRIANGLE_COMPONENTS;
+  }
+
+  /**
+   * @param vertex The vertex index
+   *
+   * @return The index of the position of the given vertex
+   */
+
+  default long vertexPosition(
+    final long vertex)
+  {
+    return this.vertices().getLong(vertex * (long) VERTEX_COMPONENTS);
+  }
+
+  /**
+   * @param vertex The vertex index
+   *
+   * @return The index of the normal of the given vertex
+   */
+
+  default long vertexNormal(
+    final long vertex)
+  {
+    return this.vertices().getLong((vertex * (long) VERTEX_COMPONENTS) + 1L);
+  }
+
+  /**
+   * @param vertex The vertex index
+   *
+   * @return The index of the UV coordinate of the given vertex
+   */
+
+  default long vertexUV(
+    final long vertex)
+  {
+    return this.vertices().getLong((vertex * (long) VERTEX_COMPONENTS) + 2L);
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.api;
+
+/**
+ * The means by which mesh files are read.
+ */
+
+public enum R2MeshFileAccess
+{
+  /**
+   * Mesh files are read as a stream of bytes. This works for any URI, but
+   * the data is copied through intermediate buffers on its way to the parser.
+   */
+
+  R2_FILE_ACCESS_STREAMED,
+
+  /**
+   * Mesh files that are on the local filesystem are memory-mapped and the
+   * parser reads directly from the mapped region. Mesh files that are not
+   * on the local filesystem, or that are too large to be mapped in a single
+   * region, are streamed.
+   */
+
+  R2_FILE_ACCESS_MAPPED
+}
@@ -67,4 +67,14 @@ public interface R2MeshLoaderRequestType
 
   @Value.Parameter(order = 3)
   JCGLUsageHint indexBufferUsageHint();
+
+  /**
+   * @return The means by which the mesh file will be read
+   */
+
+  @Value.Default
+  default R2MeshFileAccess fileAccess()
+  {
+    return R2MeshFileAccess.R2_FILE_ACCESS_STREAMED;
+  }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.api;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A handle to a mesh that has been submitted to a streamer.
+ *
+ * @see R2MeshStreamerType
+ */
+
+public interface R2MeshStreamHandleType
+{
+  /**
+   * @return The original request
+   */
+
+  R2MeshLoaderRequest request();
+
+  /**
+   * The future is completed when the mesh has been uploaded, and is cancelled
+   * if the handle is cancelled before then.
+   *
+   * @return The loaded mesh
+   */
+
+  CompletableFuture<R2MeshLoaded> future();
+
+  /**
+   * @return The current priority; lower values are loaded first
+   */
+
+  double priority();
+
+  /**
+   * Set the priority of the mesh. Typically, this is the distance from the
+   * camera to the object that uses the mesh, and is updated as the camera
+   * moves. The new priority takes effect for any stage of loading that has
+   * not yet started.
+   *
+   * @param p The new priority; lower values are loaded first
+   */
+
+  void setPriority(double p);
+
+  /**
+   * Cancel loading of the mesh. Any parsed data is discarded. Cancelling a
+   * mesh that has already been uploaded has no effect.
+   *
+   * @return {@code true} if the mesh was cancelled before being uploaded
+   */
+
+  boolean cancel();
+}
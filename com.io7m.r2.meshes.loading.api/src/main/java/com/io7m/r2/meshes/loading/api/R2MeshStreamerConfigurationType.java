@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.api;
+
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import org.immutables.value.Value;
+
+/**
+ * Configuration values for mesh streamers.
+ */
+
+@R2ImmutableStyleType
+@Value.Immutable
+public interface R2MeshStreamerConfigurationType
+{
+  /**
+   * The maximum number of octets of mesh data that may be held in memory
+   * after parsing but before uploading. No further meshes are parsed while
+   * this limit is reached. A single mesh that is larger than the limit is
+   * still loaded, once nothing else is held.
+   *
+   * @return The maximum number of resident packed octets
+   */
+
+  @Value.Parameter
+  @Value.Default
+  default long maximumResidentPackedOctets()
+  {
+    return 64L * 1024L * 1024L;
+  }
+
+  /**
+   * The maximum number of octets uploaded to the GPU per frame. At least one
+   * mesh is uploaded per frame if any are ready, regardless of size.
+   *
+   * @return The upload budget in octets
+   */
+
+  @Value.Parameter
+  @Value.Default
+  default long uploadBudgetOctetsPerFrame()
+  {
+    return 4L * 1024L * 1024L;
+  }
+
+  /**
+   * @return The maximum number of meshes that may be parsed concurrently
+   */
+
+  @Value.Parameter
+  @Value.Default
+  default int maximumConcurrentParses()
+  {
+    return 4;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.maximumResidentPackedOctets() <= 0L) {
+      throw new IllegalArgumentException(
+        "Maximum resident packed octets must be positive (received "
+          + this.maximumResidentPackedOctets() + ")");
+    }
+    if (this.uploadBudgetOctetsPerFrame() <= 0L) {
+      throw new IllegalArgumentException(
+        "Upload budget must be positive (received "
+          + this.uploadBudgetOctetsPerFrame() + ")");
+    }
+    if (this.maximumConcurrentParses() <= 0) {
+      throw new IllegalArgumentException(
+        "Maximum concurrent parses must be positive (received "
+          + this.maximumConcurrentParses() + ")");
+    }
+  }
+}
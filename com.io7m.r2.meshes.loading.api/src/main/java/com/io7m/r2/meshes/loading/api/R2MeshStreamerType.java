@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.api;
+
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * <p>The type of mesh streamers.</p>
+ *
+ * <p>A streamer accepts large numbers of mesh requests, each with a priority,
+ * and loads them in priority order. Parsing happens in the background with
+ * bounded concurrency, and stops while the amount of parsed data waiting to
+ * be uploaded is at its configured limit. Uploading happens on the GL thread
+ * in {@link #upload(JCGLInterfaceGL33Type)}, which is expected to be called
+ * once per frame and which uploads at most a configured number of octets.</p>
+ *
+ * @see R2MeshStreamerConfiguration
+ */
+
+@ProviderType
+public interface R2MeshStreamerType
+{
+  /**
+   * Submit a mesh for loading.
+   *
+   * @param request  The mesh request
+   * @param priority The priority; lower values are loaded first
+   *
+   * @return A handle to the mesh
+   */
+
+  R2MeshStreamHandleType submit(
+    R2MeshLoaderRequest request,
+    double priority);
+
+  /**
+   * Upload ready meshes in priority order until the per-frame budget is
+   * exhausted. This method must be called on the thread that owns the GL
+   * context.
+   *
+   * @param g33 A GL interface
+   *
+   * @return The number of octets uploaded
+   */
+
+  long upload(JCGLInterfaceGL33Type g33);
+
+  /**
+   * @return The number of submitted meshes that have not started parsing
+   */
+
+  int pendingCount();
+
+  /**
+   * @return The number of meshes that are parsed and waiting to be uploaded
+   */
+
+  int readyCount();
+
+  /**
+   * @return The number of octets held by meshes that are parsed and waiting
+   * to be uploaded
+   */
+
+  long residentPackedOctets();
+}
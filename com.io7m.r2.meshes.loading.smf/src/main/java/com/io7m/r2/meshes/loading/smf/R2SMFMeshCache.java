@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.smf;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.r2.meshes.api.R2MeshAttribute;
+import com.io7m.r2.meshes.api.R2MeshAttributeComponents;
+import com.io7m.r2.meshes.api.R2MeshAttributePacked;
+import com.io7m.r2.meshes.api.R2MeshAttributeSemantic;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
+import com.io7m.smfj.parser.api.SMFParserProviderType;
+import com.io7m.smfj.validation.api.SMFSchemaValidator;
+import it.unimi.dsi.fastutil.ints.Int2ReferenceRBTreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * <p>An on-disk cache of packed meshes.</p>
+ *
+ * <p>Each entry holds the vertex data, the index data, and the attribute
+ * layout of a mesh exactly as they are uploaded to the GPU. Entries are keyed
+ * by a SHA-256 hash of the contents of the mesh file and of the request
+ * options that affect packing, so an entry is never used for a mesh that has
+ * changed since the entry was written. Loading a mesh from the cache skips
+ * parsing, validation, and packing entirely: the vertex and index data are
+ * read directly into the buffers that are then uploaded.</p>
+ *
+ * <p>Entries are written to a temporary file and then atomically moved into
+ * place, so a cache may be shared between loaders running concurrently. A
+ * cache entry that cannot be read for any reason is treated as absent.</p>
+ */
+
+public final class R2SMFMeshCache
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2SMFMeshCache.class);
+  }
+
+  private static final int MAGIC = 0x52324D43;
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".r2mc";
+
+  private final Path directory;
+
+  private R2SMFMeshCache(
+    final Path in_directory)
+  {
+    this.directory = NullCheck.notNull(in_directory, "Directory");
+  }
+
+  /**
+   * Create a new cache that stores entries in the given directory. The
+   * directory is created if it does not already exist.
+   *
+   * @param directory The cache directory
+   *
+   * @return A new cache
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static R2SMFMeshCache create(
+    final Path directory)
+    throws IOException
+  {
+    NullCheck.notNull(directory, "Directory");
+    Files.createDirectories(directory);
+    return new R2SMFMeshCache(directory.toAbsolutePath());
+  }
+
+  /**
+   * @return The cache directory
+   */
+
+  public Path directory()
+  {
+    return this.directory;
+  }
+
+  /**
+   * Parse and pack the mesh named by the given request, and write the result
+   * to the cache, replacing any existing entry.
+   *
+   * @param parsers A parser provider
+   * @param request The mesh request
+   *
+   * @return The path of the cache entry
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Path bake(
+    final SMFParserProviderType parsers,
+    final R2MeshLoaderRequest request)
+    throws IOException
+  {
+    NullCheck.notNull(parsers, "Parsers");
+    NullCheck.notNull(request, "Request");
+
+    final String key = key(request);
+    final R2SMFMeshUploading.Packed packed =
+      R2SMFMeshUploading.meshParseAndPack(
+        LOG, parsers, new SMFSchemaValidator(), request);
+    return this.store(key, packed);
+  }
+
+  /**
+   * Calculate the cache key for the given request.
+   *
+   * @param request The request
+   *
+   * @return The key as a hex string
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static String key(
+    final R2MeshLoaderRequest request)
+    throws IOException
+  {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    final String options =
+      VERSION
+        + ":" + request.requireTangents().name()
+        + ":" + request.requireUV().name()
+        + ":" + ByteOrder.nativeOrder()
+        + ":";
+    digest.update(options.getBytes(StandardCharsets.UTF_8));
+
+    final byte[] buffer = new byte[65536];
+    try (final InputStream stream =
+           R2SMFMeshUploading.openStream(LOG, request)) {
+      while (true) {
+        final int r = stream.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        digest.update(buffer, 0, r);
+      }
+    }
+
+    final byte[] hash = digest.digest();
+    final StringBuilder sb = new StringBuilder(hash.length * 2);
+    for (final byte b : hash) {
+      sb.append(String.format("%02x", Integer.valueOf(Byte.toUnsignedInt(b))));
+    }
+    return sb.toString();
+  }
+
+  private Path entryPath(
+    final String key)
+  {
+    return this.directory.resolve(key + SUFFIX);
+  }
+
+  /**
+   * Load the packed mesh with the given key, if it exists.
+   *
+   * @param request The original request
+   * @param key     The cache key
+   *
+   * @return The packed mesh, or nothing if no usable entry exists
+   */
+
+  Optional<R2SMFMeshUploading.Packed> load(
+    final R2MeshLoaderRequest request,
+    final String key)
+  {
+    final Path path = this.entryPath(key);
+
+    try (final FileChannel channel =
+           FileChannel.open(path, StandardOpenOption.READ)) {
+
+      final ByteBuffer prefix = ByteBuffer.allocate(12);
+      readFully(channel, prefix);
+      prefix.flip();
+
+      if (prefix.getInt() != MAGIC || prefix.getInt() != VERSION) {
+        LOG.warn("ignoring unrecognized cache entry {}", path);
+        return Optional.empty();
+      }
+
+      final ByteBuffer header_buffer = ByteBuffer.allocate(prefix.getInt());
+      readFully(channel, header_buffer);
+
+      final DataInputStream header =
+        new DataInputStream(new ByteArrayInputStream(header_buffer.array()));
+
+      final Int2ReferenceRBTreeMap<R2MeshAttributePacked> by_index =
+        new Int2ReferenceRBTreeMap<>();
+
+      final int attribute_count = header.readInt();
+      for (int index = 0; index < attribute_count; ++index) {
+        final R2MeshAttribute attribute =
+          R2MeshAttribute.of(
+            header.readInt(),
+            header.readUTF(),
+            R2MeshAttributeSemantic.valueOf(header.readUTF()),
+            R2MeshAttributeComponents.valueOf(header.readUTF()),
+            header.readInt(),
+            header.readInt());
+        by_index.put(
+          attribute.index(),
+          R2MeshAttributePacked.of(attribute, header.readInt()));
+      }
+
+      final long triangle_count = header.readLong();
+      final int triangle_size = header.readInt();
+      final int data_size = header.readInt();
+      final int index_size = header.readInt();
+
+      final ByteBuffer data =
+        ByteBuffer.allocateDirect(data_size).order(ByteOrder.nativeOrder());
+      final ByteBuffer indices =
+        ByteBuffer.allocateDirect(index_size).order(ByteOrder.nativeOrder());
+      readFully(channel, data);
+      readFully(channel, indices);
+      data.flip();
+      indices.flip();
+
+      LOG.debug("loaded cached mesh {} from {}", request.uri(), path);
+      return Optional.of(new R2SMFMeshUploading.Packed(
+        request, by_index, triangle_count, triangle_size, data, indices));
+
+    } catch (final NoSuchFileException e) {
+      return Optional.empty();
+    } catch (final IOException | IllegalArgumentException e) {
+      LOG.warn("ignoring unreadable cache entry {}", path, e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Write the given packed mesh to the cache.
+   *
+   * @param key    The cache key
+   * @param packed The packed mesh
+   *
+   * @return The path of the cache entry
+   *
+   * @throws IOException On I/O errors
+   */
+
+  Path store(
+    final String key,
+    final R2SMFMeshUploading.Packed packed)
+    throws IOException
+  {
+    final ByteBuffer data = packed.dataBuffer().duplicate();
+    final ByteBuffer indices = packed.triangleBuffer().duplicate();
+    data.clear();
+    indices.clear();
+
+    final ByteArrayOutputStream header_bytes = new ByteArrayOutputStream(256);
+    try (final DataOutputStream header = new DataOutputStream(header_bytes)) {
+      final Int2ReferenceRBTreeMap<R2MeshAttributePacked> by_index =
+        packed.attributes();
+      header.writeInt(by_index.size());
+      for (final R2MeshAttributePacked p : by_index.values()) {
+        final R2MeshAttribute a = p.attribute();
+        header.writeInt(a.index());
+        header.writeUTF(a.name());
+        header.writeUTF(a.semantic().name());
+        header.writeUTF(a.componentType().name());
+        header.writeInt(a.componentCount());
+        header.writeInt(a.componentSizeBits());
+        header.writeInt(p.offsetOctets());
+      }
+      header.writeLong(packed.triangleCount());
+      header.writeInt(packed.triangleIndexSizeBits());
+      header.writeInt(data.remaining());
+      header.writeInt(indices.remaining());
+    }
+
+    final byte[] header_array = header_bytes.toByteArray();
+    final ByteBuffer prefix = ByteBuffer.allocate(12 + header_array.length);
+    prefix.putInt(MAGIC);
+    prefix.putInt(VERSION);
+    prefix.putInt(header_array.length);
+    prefix.put(header_array);
+    prefix.flip();
+
+    final Path path = this.entryPath(key);
+    final Path path_tmp =
+      Files.createTempFile(this.directory, key, SUFFIX + ".tmp");
+
+    try {
+      try (final FileChannel channel =
+             FileChannel.open(path_tmp, StandardOpenOption.WRITE)) {
+        writeFully(channel, prefix);
+        writeFully(channel, data);
+        writeFully(channel, indices);
+      }
+      Files.move(
+        path_tmp,
+        path,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(path_tmp);
+    }
+
+    LOG.debug("cached mesh {} in {}", packed.request().uri(), path);
+    return path;
+  }
+
+  private static void readFully(
+    final FileChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) == -1) {
+        throw new EOFException("Unexpected end of cache entry");
+      }
+    }
+  }
+
+  private static void writeFully(
+    final FileChannel channel,
+    final ByteBuffer buffer)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.io7m.r2.meshes.loading.smf;
 
+import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jcanephora.async.JCGLAsyncInterfaceUsableGL33Type;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jnull.NullCheck;
@@ -28,6 +29,7 @@ import com.io7m.smfj.validation.api.SMFSchemaValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 
@@ -47,17 +49,28 @@ public final class R2SMFMeshLoaderAsynchronous
   private final ExecutorService exec_io;
   private final SMFParserProviderType parsers;
   private final SMFSchemaValidator validator;
+  private final Optional<R2SMFMeshCache> cache;
+  private final long slice_octets;
+  private final R2SMFMeshUploadStatistics statistics;
 
   private R2SMFMeshLoaderAsynchronous(
     final SMFParserProviderType in_parsers,
-    final ExecutorService in_exec_io)
+    final ExecutorService in_exec_io,
+    final Optional<R2SMFMeshCache> in_cache,
+    final long in_slice_octets,
+    final R2SMFMeshUploadStatistics in_statistics)
   {
     this.parsers =
       NullCheck.notNull(in_parsers, "Parsers");
     this.exec_io =
       NullCheck.notNull(in_exec_io, "I/O Executor");
+    this.cache =
+      NullCheck.notNull(in_cache, "Cache");
+    this.statistics =
+      NullCheck.notNull(in_statistics, "Statistics");
     this.validator =
       new SMFSchemaValidator();
+    this.slice_octets = in_slice_octets;
   }
 
   /**
@@ -74,7 +87,71 @@ public final class R2SMFMeshLoaderAsynchronous
     final SMFParserProviderType in_parsers,
     final ExecutorService in_exec_io)
   {
-    return new R2SMFMeshLoaderAsynchronous(in_parsers, in_exec_io);
+    return new R2SMFMeshLoaderAsynchronous(
+      in_parsers,
+      in_exec_io,
+      Optional.empty(),
+      0L,
+      new R2SMFMeshUploadStatistics());
+  }
+
+  /**
+   * Create a new asynchronous loader that reads packed meshes from, and
+   * writes packed meshes to, the given cache.
+   *
+   * @param in_parsers A parser provider
+   * @param in_exec_io An executor service upon which I/O operations will be
+   *                   performed
+   * @param in_cache   A mesh cache
+   *
+   * @return A new loader
+   */
+
+  public static R2MeshLoaderAsynchronousType createCached(
+    final SMFParserProviderType in_parsers,
+    final ExecutorService in_exec_io,
+    final R2SMFMeshCache in_cache)
+  {
+    return new R2SMFMeshLoaderAsynchronous(
+      in_parsers,
+      in_exec_io,
+      Optional.of(NullCheck.notNull(in_cache, "Cache")),
+      0L,
+      new R2SMFMeshUploadStatistics());
+  }
+
+  /**
+   * Create a new asynchronous loader that uploads meshes in slices of at most
+   * {@code in_slice_octets} octets. Each slice is submitted to the
+   * asynchronous GL interface as a separate task, and the future returned by
+   * {@link #loadAsynchronously(JCGLAsyncInterfaceUsableGL33Type,
+   * R2MeshLoaderRequest)} completes only when the last slice has been
+   * uploaded. Slices of between 1 and 4 megabytes are typical.
+   *
+   * @param in_parsers      A parser provider
+   * @param in_exec_io      An executor service upon which I/O operations will
+   *                        be performed
+   * @param in_cache        An optional mesh cache
+   * @param in_slice_octets The maximum size of a slice in octets
+   * @param in_statistics   The statistics updated by uploads
+   *
+   * @return A new loader
+   */
+
+  public static R2MeshLoaderAsynchronousType createChunked(
+    final SMFParserProviderType in_parsers,
+    final ExecutorService in_exec_io,
+    final Optional<R2SMFMeshCache> in_cache,
+    final long in_slice_octets,
+    final R2SMFMeshUploadStatistics in_statistics)
+  {
+    Preconditions.checkPreconditionL(
+      in_slice_octets,
+      in_slice_octets > 0L && in_slice_octets <= (long) Integer.MAX_VALUE,
+      x -> "Slice size must be in the range [1, " + Integer.MAX_VALUE + "]");
+
+    return new R2SMFMeshLoaderAsynchronous(
+      in_parsers, in_exec_io, in_cache, in_slice_octets, in_statistics);
   }
 
   private static CompletableFuture<R2MeshLoaded> uploadAsync(
@@ -104,8 +181,8 @@ public final class R2SMFMeshLoaderAsynchronous
     NullCheck.notNull(request, "Request");
 
     final R2SMFMeshUploading.Packed packed =
-      R2SMFMeshUploading.meshParseAndPack(
-        LOG, this.parsers, this.validator, request);
+      R2SMFMeshUploading.meshLoadPacked(
+        LOG, this.parsers, this.validator, this.cache, request);
     return R2SMFMeshUploading.meshUpload(LOG, g33, packed);
   }
 
@@ -119,10 +196,14 @@ public final class R2SMFMeshLoaderAsynchronous
 
     final CompletableFuture<R2SMFMeshUploading.Packed> f =
       CompletableFuture.supplyAsync(
-        () -> R2SMFMeshUploading.meshParseAndPack(
-          LOG, this.parsers, this.validator, request),
+        () -> R2SMFMeshUploading.meshLoadPacked(
+          LOG, this.parsers, this.validator, this.cache, request),
         this.exec_io);
 
+    if (this.slice_octets > 0L) {
+      return f.thenCompose(m -> R2SMFMeshUploading.meshUploadChunked(
+        LOG, in_async_gl, m, this.slice_octets, this.statistics));
+    }
     return f.thenCompose(m -> uploadAsync(in_async_gl, request, m));
   }
 }
@@ -27,8 +27,10 @@ import com.io7m.smfj.validation.api.SMFSchemaValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Optional;
+
 import static com.io7m.r2.meshes.loading.smf.R2SMFMeshUploading.Packed;
-import static com.io7m.r2.meshes.loading.smf.R2SMFMeshUploading.meshParseAndPack;
+import static com.io7m.r2.meshes.loading.smf.R2SMFMeshUploading.meshLoadPacked;
 import static com.io7m.r2.meshes.loading.smf.R2SMFMeshUploading.meshUpload;
 
 /**
@@ -45,11 +47,14 @@ public final class R2SMFMeshLoaderSynchronous implements R2MeshLoaderType
 
   private final SMFParserProviderType parsers;
   private final SMFSchemaValidator validator;
+  private final Optional<R2SMFMeshCache> cache;
 
   private R2SMFMeshLoaderSynchronous(
-    final SMFParserProviderType in_parsers)
+    final SMFParserProviderType in_parsers,
+    final Optional<R2SMFMeshCache> in_cache)
   {
     this.parsers = NullCheck.notNull(in_parsers, "Parsers");
+    this.cache = NullCheck.notNull(in_cache, "Cache");
     this.validator = new SMFSchemaValidator();
   }
 
@@ -64,7 +69,25 @@ public final class R2SMFMeshLoaderSynchronous implements R2MeshLoaderType
   public static R2MeshLoaderType create(
     final SMFParserProviderType in_parsers)
   {
-    return new R2SMFMeshLoaderSynchronous(in_parsers);
+    return new R2SMFMeshLoaderSynchronous(in_parsers, Optional.empty());
+  }
+
+  /**
+   * Create a new synchronous loader that reads packed meshes from, and
+   * writes packed meshes to, the given cache.
+   *
+   * @param in_parsers A parser provider
+   * @param in_cache   A mesh cache
+   *
+   * @return A new loader
+   */
+
+  public static R2MeshLoaderType createCached(
+    final SMFParserProviderType in_parsers,
+    final R2SMFMeshCache in_cache)
+  {
+    return new R2SMFMeshLoaderSynchronous(
+      in_parsers, Optional.of(NullCheck.notNull(in_cache, "Cache")));
   }
 
   @Override
@@ -77,7 +100,7 @@ public final class R2SMFMeshLoaderSynchronous implements R2MeshLoaderType
     NullCheck.notNull(request, "Request");
 
     final Packed packed =
-      meshParseAndPack(LOG, this.parsers, this.validator, request);
+      meshLoadPacked(LOG, this.parsers, this.validator, this.cache, request);
     return meshUpload(LOG, g33, packed);
   }
 }
@@ -0,0 +1,365 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.smf;
+
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jnull.NullCheck;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaded;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamHandleType;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamerConfiguration;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamerType;
+import com.io7m.smfj.parser.api.SMFParserProviderType;
+import com.io7m.smfj.validation.api.SMFSchemaValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * <p>An SMF-based mesh streamer.</p>
+ *
+ * <p>Meshes are parsed and packed on the given executor, and uploaded in
+ * {@link #upload(JCGLInterfaceGL33Type)}. Both stages always take the
+ * waiting mesh with the lowest priority value, so priorities that are
+ * updated after submission are respected. Waiting meshes are held in plain
+ * lists and selected by a linear scan: priorities may change at any time,
+ * which would otherwise require a heap to be rebuilt, and the scan is cheap
+ * compared to parsing or uploading even a small mesh.</p>
+ */
+
+public final class R2SMFMeshStreamer implements R2MeshStreamerType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2SMFMeshStreamer.class);
+  }
+
+  private final SMFParserProviderType parsers;
+  private final Executor exec_io;
+  private final Optional<R2SMFMeshCache> cache;
+  private final R2MeshStreamerConfiguration config;
+  private final SMFSchemaValidator validator;
+  private final Object lock;
+  private final ArrayList<Handle> pending;
+  private final ArrayList<Handle> ready;
+  private int parsing;
+  private long resident;
+
+  private R2SMFMeshStreamer(
+    final SMFParserProviderType in_parsers,
+    final Executor in_exec_io,
+    final Optional<R2SMFMeshCache> in_cache,
+    final R2MeshStreamerConfiguration in_config)
+  {
+    this.parsers = NullCheck.notNull(in_parsers, "Parsers");
+    this.exec_io = NullCheck.notNull(in_exec_io, "I/O Executor");
+    this.cache = NullCheck.notNull(in_cache, "Cache");
+    this.config = NullCheck.notNull(in_config, "Config");
+    this.validator = new SMFSchemaValidator();
+    this.lock = new Object();
+    this.pending = new ArrayList<>(128);
+    this.ready = new ArrayList<>(128);
+    this.parsing = 0;
+    this.resident = 0L;
+  }
+
+  /**
+   * Create a new streamer.
+   *
+   * @param in_parsers A parser provider
+   * @param in_exec_io An executor upon which meshes will be parsed
+   * @param in_cache   An optional mesh cache
+   * @param in_config  The streamer configuration
+   *
+   * @return A new streamer
+   */
+
+  public static R2MeshStreamerType create(
+    final SMFParserProviderType in_parsers,
+    final Executor in_exec_io,
+    final Optional<R2SMFMeshCache> in_cache,
+    final R2MeshStreamerConfiguration in_config)
+  {
+    return new R2SMFMeshStreamer(in_parsers, in_exec_io, in_cache, in_config);
+  }
+
+  private static Handle takeLowest(
+    final ArrayList<Handle> handles)
+  {
+    int best = 0;
+    for (int index = 1; index < handles.size(); ++index) {
+      if (handles.get(index).priority < handles.get(best).priority) {
+        best = index;
+      }
+    }
+
+    /*
+     * Swap the selected handle with the last handle so that removal does
+     * not shift the rest of the list.
+     */
+
+    final int last = handles.size() - 1;
+    final Handle h = handles.get(best);
+    handles.set(best, handles.get(last));
+    handles.remove(last);
+    return h;
+  }
+
+  @Override
+  public R2MeshStreamHandleType submit(
+    final R2MeshLoaderRequest request,
+    final double priority)
+  {
+    NullCheck.notNull(request, "Request");
+
+    final Handle h = new Handle(request, priority);
+    synchronized (this.lock) {
+      this.pending.add(h);
+    }
+    this.dispatch();
+    return h;
+  }
+
+  /**
+   * Start parsing pending meshes while the concurrency and memory limits
+   * allow.
+   */
+
+  private void dispatch()
+  {
+    while (true) {
+      final Handle h;
+      synchronized (this.lock) {
+        if (this.pending.isEmpty()) {
+          return;
+        }
+        if (this.parsing >= this.config.maximumConcurrentParses()) {
+          return;
+        }
+
+        /*
+         * Nothing is parsed while the resident limit is reached, unless
+         * nothing at all is resident or being parsed: otherwise a single
+         * mesh larger than the limit could never be loaded.
+         */
+
+        final boolean idle = this.parsing == 0 && this.resident == 0L;
+        if (!idle
+          && this.resident >= this.config.maximumResidentPackedOctets()) {
+          return;
+        }
+
+        h = takeLowest(this.pending);
+        h.state = State.PARSING;
+        ++this.parsing;
+      }
+
+      try {
+        this.exec_io.execute(() -> this.parse(h));
+      } catch (final RuntimeException e) {
+        synchronized (this.lock) {
+          --this.parsing;
+          h.state = State.DONE;
+        }
+        h.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private void parse(
+    final Handle h)
+  {
+    try {
+      final R2SMFMeshUploading.Packed packed =
+        R2SMFMeshUploading.meshLoadPacked(
+          LOG, this.parsers, this.validator, this.cache, h.request);
+
+      synchronized (this.lock) {
+        --this.parsing;
+        if (h.state == State.PARSING) {
+          h.state = State.READY;
+          h.packed = packed;
+          this.resident += packed.sizeOctets();
+          this.ready.add(h);
+        }
+      }
+    } catch (final RuntimeException e) {
+      synchronized (this.lock) {
+        --this.parsing;
+        h.state = State.DONE;
+      }
+      h.future.completeExceptionally(e);
+    }
+
+    this.dispatch();
+  }
+
+  @Override
+  public long upload(
+    final JCGLInterfaceGL33Type g33)
+  {
+    NullCheck.notNull(g33, "G33");
+
+    final long budget = this.config.uploadBudgetOctetsPerFrame();
+    long uploaded = 0L;
+
+    while (true) {
+      final Handle h;
+      final R2SMFMeshUploading.Packed packed;
+      synchronized (this.lock) {
+        if (this.ready.isEmpty()) {
+          break;
+        }
+
+        h = takeLowest(this.ready);
+        packed = h.packed;
+        final long size = packed.sizeOctets();
+        if (uploaded > 0L && uploaded + size > budget) {
+          this.ready.add(h);
+          break;
+        }
+
+        h.state = State.DONE;
+        h.packed = null;
+        this.resident -= size;
+        uploaded += size;
+      }
+
+      try {
+        h.future.complete(R2SMFMeshUploading.meshUpload(LOG, g33, packed));
+      } catch (final RuntimeException e) {
+        h.future.completeExceptionally(e);
+      }
+    }
+
+    this.dispatch();
+    return uploaded;
+  }
+
+  @Override
+  public int pendingCount()
+  {
+    synchronized (this.lock) {
+      return this.pending.size();
+    }
+  }
+
+  @Override
+  public int readyCount()
+  {
+    synchronized (this.lock) {
+      return this.ready.size();
+    }
+  }
+
+  @Override
+  public long residentPackedOctets()
+  {
+    synchronized (this.lock) {
+      return this.resident;
+    }
+  }
+
+  private enum State
+  {
+    PENDING,
+    PARSING,
+    READY,
+    DONE,
+    CANCELLED
+  }
+
+  private final class Handle implements R2MeshStreamHandleType
+  {
+    private final R2MeshLoaderRequest request;
+    private final CompletableFuture<R2MeshLoaded> future;
+    private volatile double priority;
+    private State state;
+    private R2SMFMeshUploading.Packed packed;
+
+    Handle(
+      final R2MeshLoaderRequest in_request,
+      final double in_priority)
+    {
+      this.request = NullCheck.notNull(in_request, "Request");
+      this.priority = in_priority;
+      this.future = new CompletableFuture<>();
+      this.state = State.PENDING;
+    }
+
+    @Override
+    public R2MeshLoaderRequest request()
+    {
+      return this.request;
+    }
+
+    @Override
+    public CompletableFuture<R2MeshLoaded> future()
+    {
+      return this.future;
+    }
+
+    @Override
+    public double priority()
+    {
+      return this.priority;
+    }
+
+    @Override
+    public void setPriority(final double p)
+    {
+      this.priority = p;
+    }
+
+    @Override
+    public boolean cancel()
+    {
+      final R2SMFMeshStreamer s = R2SMFMeshStreamer.this;
+      synchronized (s.lock) {
+        switch (this.state) {
+          case PENDING: {
+            s.pending.remove(this);
+            break;
+          }
+          case PARSING: {
+            break;
+          }
+          case READY: {
+            s.ready.remove(this);
+            s.resident -= this.packed.sizeOctets();
+            this.packed = null;
+            break;
+          }
+          case DONE:
+          case CANCELLED: {
+            return false;
+          }
+        }
+        this.state = State.CANCELLED;
+      }
+
+      this.future.cancel(false);
+      s.dispatch();
+      return true;
+    }
+  }
+}
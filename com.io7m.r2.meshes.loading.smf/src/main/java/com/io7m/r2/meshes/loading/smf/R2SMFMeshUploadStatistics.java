@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.loading.smf;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Statistics for chunked mesh uploads.</p>
+ *
+ * <p>The time taken by the longest single slice is the longest stall that
+ * mesh uploading has caused on the GL thread, and is therefore the value to
+ * watch when tuning the slice size: smaller slices shorten stalls at the
+ * cost of more buffer updates and lower overall throughput.</p>
+ *
+ * <p>Instances are safe to read from any thread.</p>
+ */
+
+public final class R2SMFMeshUploadStatistics
+{
+  private final AtomicLong meshes;
+  private final AtomicLong slices;
+  private final AtomicLong octets;
+  private final AtomicLong time_total;
+  private final AtomicLong time_max;
+
+  /**
+   * Construct a new set of statistics.
+   */
+
+  public R2SMFMeshUploadStatistics()
+  {
+    this.meshes = new AtomicLong();
+    this.slices = new AtomicLong();
+    this.octets = new AtomicLong();
+    this.time_total = new AtomicLong();
+    this.time_max = new AtomicLong();
+  }
+
+  void onSliceUploaded(
+    final long size,
+    final long time)
+  {
+    this.slices.incrementAndGet();
+    this.octets.addAndGet(size);
+    this.time_total.addAndGet(time);
+    this.time_max.accumulateAndGet(time, Math::max);
+  }
+
+  void onMeshUploaded()
+  {
+    this.meshes.incrementAndGet();
+  }
+
+  /**
+   * @return The number of meshes completely uploaded
+   */
+
+  public long meshesUploaded()
+  {
+    return this.meshes.get();
+  }
+
+  /**
+   * @return The number of slices uploaded
+   */
+
+  public long slicesUploaded()
+  {
+    return this.slices.get();
+  }
+
+  /**
+   * @return The number of octets uploaded
+   */
+
+  public long octetsUploaded()
+  {
+    return this.octets.get();
+  }
+
+  /**
+   * @return The total time in nanoseconds spent uploading slices
+   */
+
+  public long uploadTimeTotalNanoseconds()
+  {
+    return this.time_total.get();
+  }
+
+  /**
+   * @return The time in nanoseconds taken by the longest single slice
+   */
+
+  public long uploadTimeMaximumNanoseconds()
+  {
+    return this.time_max.get();
+  }
+
+  /**
+   * @return The number of octets uploaded per second of upload time
+   */
+
+  public double throughputOctetsPerSecond()
+  {
+    final long time = this.time_total.get();
+    if (time == 0L) {
+      return 0.0;
+    }
+    return ((double) this.octets.get() / (double) time) * 1_000_000_000.0;
+  }
+}
@@ -18,6 +18,7 @@ package com.io7m.r2.meshes.loading.smf;
 
 import com.io7m.jaffirm.core.Invariants;
 import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.async.JCGLAsyncInterfaceUsableGL33Type;
 import com.io7m.jcanephora.core.JCGLArrayBufferType;
 import com.io7m.jcanephora.core.JCGLBufferUpdate;
 import com.io7m.jcanephora.core.JCGLIndexBufferType;
@@ -28,11 +29,13 @@ import com.io7m.jcanephora.core.api.JCGLArrayObjectsType;
 import com.io7m.jcanephora.core.api.JCGLIndexBuffersType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jnull.NullCheck;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.r2.meshes.api.R2MeshAttribute;
 import com.io7m.r2.meshes.api.R2MeshAttributeComponents;
 import com.io7m.r2.meshes.api.R2MeshAttributeConventions;
 import com.io7m.r2.meshes.api.R2MeshAttributePacked;
+import com.io7m.r2.meshes.loading.api.R2MeshFileAccess;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaded;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
 import com.io7m.r2.meshes.loading.api.R2MeshLoadingError;
@@ -72,7 +75,15 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
 
 import static com.io7m.r2.meshes.loading.smf.R2SMFSchemas.R2_NORMAL;
 import static com.io7m.r2.meshes.loading.smf.R2SMFSchemas.R2_NORMAL_NAME;
@@ -103,22 +114,12 @@ final class R2SMFMeshUploading
   {
     log.debug("uploading mesh {}", packed.request.uri());
 
-    Preconditions.checkPreconditionI(
-      packed.mesh.attributeSets().size(),
-      packed.mesh.attributeSets().size() == 1,
-      i -> "Must receive a single attribute set");
-    Preconditions.checkPrecondition(
-      packed.mesh.triangles(),
-      packed.mesh.triangles().isPresent(),
-      t -> "Must have packed triangles");
-
     final JCGLArrayBuffersType g_ab = current_g33.arrayBuffers();
     final JCGLIndexBuffersType g_ib = current_g33.indexBuffers();
     final JCGLArrayObjectsType g_ao = current_g33.arrayObjects();
 
     final ByteBuffer data_buffer = packed.data_buffer;
     final ByteBuffer triangle_buffer = packed.tri_buffer;
-    final SMFByteBufferPackedTriangles triangles = packed.mesh.triangles().get();
 
     g_ao.arrayObjectUnbind();
     final JCGLArrayBufferType data_array_buffer =
@@ -130,9 +131,9 @@ final class R2SMFMeshUploading
         data_array_buffer, data_buffer, data_array_buffer.byteRange()));
 
     final long triangle_index_count =
-      Math.multiplyExact(triangles.triangleCount(), 3L);
+      Math.multiplyExact(packed.triangle_count, 3L);
     final JCGLUnsignedType triangle_index_type =
-      toJCGLUnsigned(triangles.triangleIndexSizeBits());
+      toJCGLUnsigned(packed.triangle_index_size_bits);
     final JCGLUsageHint triangle_usage =
       packed.request.indexBufferUsageHint();
 
@@ -152,6 +153,160 @@ final class R2SMFMeshUploading
       data_array_buffer, triangle_index_buffer, packed.by_index);
   }
 
+  /**
+   * Upload a packed mesh as a sequence of slices of at most
+   * {@code slice_octets} octets. Each slice is a separate task on the
+   * asynchronous GL interface, and the next slice is only submitted when the
+   * previous one has completed, so other GL work is interleaved with the
+   * upload instead of waiting for the whole mesh.
+   */
+
+  public static CompletableFuture<R2MeshLoaded> meshUploadChunked(
+    final Logger log,
+    final JCGLAsyncInterfaceUsableGL33Type async_gl,
+    final Packed packed,
+    final long slice_octets,
+    final R2SMFMeshUploadStatistics statistics)
+  {
+    Preconditions.checkPreconditionL(
+      slice_octets,
+      slice_octets > 0L && slice_octets <= (long) Integer.MAX_VALUE,
+      x -> "Slice size must be in the range [1, " + Integer.MAX_VALUE + "]");
+
+    log.debug(
+      "uploading mesh {} in slices of {} octets",
+      packed.request.uri(),
+      Long.valueOf(slice_octets));
+
+    return async_gl.evaluateWith(packed, (g33, p) -> meshAllocate(g33, p))
+      .thenCompose(a -> uploadSlices(
+        async_gl, a, 0L, (int) slice_octets, statistics))
+      .thenApply(a -> {
+        statistics.onMeshUploaded();
+        return R2MeshLoaded.of(
+          a.array_buffer, a.index_buffer, a.packed.by_index);
+      });
+  }
+
+  private static Allocated meshAllocate(
+    final JCGLInterfaceGL33Type g33,
+    final Packed packed)
+  {
+    final JCGLArrayBuffersType g_ab = g33.arrayBuffers();
+    final JCGLIndexBuffersType g_ib = g33.indexBuffers();
+    final JCGLArrayObjectsType g_ao = g33.arrayObjects();
+
+    g_ao.arrayObjectUnbind();
+    final JCGLArrayBufferType array_buffer =
+      g_ab.arrayBufferAllocate(
+        Integer.toUnsignedLong(packed.data_buffer.capacity()),
+        packed.request.arrayBufferUsageHint());
+
+    final JCGLIndexBufferType index_buffer =
+      g_ib.indexBufferAllocate(
+        Math.multiplyExact(packed.triangle_count, 3L),
+        toJCGLUnsigned(packed.triangle_index_size_bits),
+        packed.request.indexBufferUsageHint());
+
+    return new Allocated(packed, array_buffer, index_buffer);
+  }
+
+  private static CompletableFuture<Allocated> uploadSlices(
+    final JCGLAsyncInterfaceUsableGL33Type async_gl,
+    final Allocated allocated,
+    final long offset,
+    final int slice_octets,
+    final R2SMFMeshUploadStatistics statistics)
+  {
+    /*
+     * Offsets run over the vertex data followed by the index data. A slice
+     * never spans both buffers.
+     */
+
+    final long data_size =
+      Integer.toUnsignedLong(allocated.packed.data_buffer.capacity());
+    final long index_size =
+      Integer.toUnsignedLong(allocated.packed.tri_buffer.capacity());
+
+    if (offset >= data_size + index_size) {
+      return CompletableFuture.completedFuture(allocated);
+    }
+
+    final int size;
+    if (offset < data_size) {
+      size = (int) Math.min((long) slice_octets, data_size - offset);
+    } else {
+      size = (int) Math.min(
+        (long) slice_octets, (data_size + index_size) - offset);
+    }
+
+    return async_gl.evaluateWith(allocated, (g33, a) -> {
+      final long time_start = System.nanoTime();
+      if (offset < data_size) {
+        uploadSliceData(g33, a, (int) offset, size);
+      } else {
+        uploadSliceIndices(g33, a, (int) (offset - data_size), size);
+      }
+      statistics.onSliceUploaded(
+        Integer.toUnsignedLong(size), System.nanoTime() - time_start);
+      return a;
+    }).thenCompose(a -> uploadSlices(
+      async_gl, a, offset + (long) size, slice_octets, statistics));
+  }
+
+  private static ByteBuffer slice(
+    final ByteBuffer buffer,
+    final int offset,
+    final int size)
+  {
+    final ByteBuffer view = buffer.duplicate();
+    view.limit(offset + size);
+    view.position(offset);
+    return view.slice();
+  }
+
+  private static UnsignedRangeInclusiveL range(
+    final int offset,
+    final int size)
+  {
+    return new UnsignedRangeInclusiveL(
+      Integer.toUnsignedLong(offset),
+      (Integer.toUnsignedLong(offset) + Integer.toUnsignedLong(size)) - 1L);
+  }
+
+  private static void uploadSliceData(
+    final JCGLInterfaceGL33Type g33,
+    final Allocated a,
+    final int offset,
+    final int size)
+  {
+    final JCGLArrayBuffersType g_ab = g33.arrayBuffers();
+    g_ab.arrayBufferBind(a.array_buffer);
+    g_ab.arrayBufferUpdate(
+      JCGLBufferUpdate.of(
+        a.array_buffer,
+        slice(a.packed.data_buffer, offset, size),
+        range(offset, size)));
+    g_ab.arrayBufferUnbind();
+  }
+
+  private static void uploadSliceIndices(
+    final JCGLInterfaceGL33Type g33,
+    final Allocated a,
+    final int offset,
+    final int size)
+  {
+    final JCGLIndexBuffersType g_ib = g33.indexBuffers();
+    g33.arrayObjects().arrayObjectUnbind();
+    g_ib.indexBufferBind(a.index_buffer);
+    g_ib.indexBufferUpdate(
+      JCGLBufferUpdate.of(
+        a.index_buffer,
+        slice(a.packed.tri_buffer, offset, size),
+        range(offset, size)));
+    g_ib.indexBufferUnbind();
+  }
+
   private static R2MeshAttribute transformAttribute(
     final int index,
     final SMFAttribute attribute)
@@ -207,6 +362,40 @@ final class R2SMFMeshUploading
     }
   }
 
+  public static Packed meshLoadPacked(
+    final Logger log,
+    final SMFParserProviderType parsers,
+    final SMFSchemaValidator validator,
+    final Optional<R2SMFMeshCache> cache_opt,
+    final R2MeshLoaderRequest request)
+  {
+    if (!cache_opt.isPresent()) {
+      return meshParseAndPack(log, parsers, validator, request);
+    }
+
+    final R2SMFMeshCache cache = cache_opt.get();
+    final String key;
+    try {
+      key = R2SMFMeshCache.key(request);
+    } catch (final IOException e) {
+      throw new R2MeshLoadingExceptionIO(
+        "I/O error: " + e.getMessage(), e);
+    }
+
+    final Optional<Packed> cached = cache.load(request, key);
+    if (cached.isPresent()) {
+      return cached.get();
+    }
+
+    final Packed packed = meshParseAndPack(log, parsers, validator, request);
+    try {
+      cache.store(key, packed);
+    } catch (final IOException e) {
+      log.warn("could not cache mesh {}", request.uri(), e);
+    }
+    return packed;
+  }
+
   public static Packed meshParseAndPack(
     final Logger log,
     final SMFParserProviderType parsers,
@@ -224,8 +413,7 @@ final class R2SMFMeshUploading
           SMFParserEventsDataMetaOptionalSupplierType.ignoring(),
           events);
 
-      final URL url = request.uri().toURL();
-      try (final InputStream stream = url.openStream()) {
+      try (final InputStream stream = openStream(log, request)) {
         try (final SMFParserSequentialType parser =
                parsers.parserCreateSequential(loader, request.uri(), stream)) {
           parser.parse();
@@ -306,7 +494,12 @@ final class R2SMFMeshUploading
       }
 
       return new Packed(
-        request, by_index, mesh, set.byteBuffer(), triangles.byteBuffer());
+        request,
+        by_index,
+        triangles.triangleCount(),
+        triangles.triangleIndexSizeBits(),
+        set.byteBuffer(),
+        triangles.byteBuffer());
     } catch (final MalformedURLException e) {
       throw new R2MeshLoadingExceptionIO(
         "Malformed URL: " + e.getMessage(), e);
@@ -316,18 +509,86 @@ final class R2SMFMeshUploading
     }
   }
 
+  static InputStream openStream(
+    final Logger log,
+    final R2MeshLoaderRequest request)
+    throws IOException
+  {
+    if (request.fileAccess() == R2MeshFileAccess.R2_FILE_ACCESS_MAPPED) {
+      final Optional<Path> path_opt = localPath(request);
+      if (path_opt.isPresent()) {
+        final Path path = path_opt.get();
+        try (final FileChannel channel =
+               FileChannel.open(path, StandardOpenOption.READ)) {
+          final long size = channel.size();
+          if (size <= (long) Integer.MAX_VALUE) {
+            log.debug("mapping mesh {} ({} octets)", path, Long.valueOf(size));
+
+            /*
+             * The mapping remains valid after the channel is closed, and is
+             * released when the buffer is garbage collected.
+             */
+
+            final MappedByteBuffer map =
+              channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            return new R2SMFByteBufferInputStream(map);
+          }
+        }
+      }
+    }
+
+    final URL url = request.uri().toURL();
+    return url.openStream();
+  }
+
+  private static Optional<Path> localPath(
+    final R2MeshLoaderRequest request)
+  {
+    if (!"file".equals(request.uri().getScheme())) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(Paths.get(request.uri()));
+    } catch (final IllegalArgumentException | FileSystemNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static final class Allocated
+  {
+    private final Packed packed;
+    private final JCGLArrayBufferType array_buffer;
+    private final JCGLIndexBufferType index_buffer;
+
+    Allocated(
+      final Packed in_packed,
+      final JCGLArrayBufferType in_array_buffer,
+      final JCGLIndexBufferType in_index_buffer)
+    {
+      this.packed =
+        NullCheck.notNull(in_packed, "Packed");
+      this.array_buffer =
+        NullCheck.notNull(in_array_buffer, "Array buffer");
+      this.index_buffer =
+        NullCheck.notNull(in_index_buffer, "Index buffer");
+    }
+  }
+
   static final class Packed
   {
     private final R2MeshLoaderRequest request;
     private final Int2ReferenceRBTreeMap<R2MeshAttributePacked> by_index;
-    private final SMFByteBufferPackedMesh mesh;
+    private final long triangle_count;
+    private final int triangle_index_size_bits;
     private final ByteBuffer data_buffer;
     private final ByteBuffer tri_buffer;
 
     Packed(
       final R2MeshLoaderRequest in_request,
       final Int2ReferenceRBTreeMap<R2MeshAttributePacked> in_by_index,
-      final SMFByteBufferPackedMesh in_mesh,
+      final long in_triangle_count,
+      final int in_triangle_index_size_bits,
       final ByteBuffer in_data_buffer,
       final ByteBuffer in_tri_buffer)
     {
@@ -335,12 +596,49 @@ final class R2SMFMeshUploading
         NullCheck.notNull(in_request, "Request");
       this.by_index =
         NullCheck.notNull(in_by_index, "By Index");
-      this.mesh =
-        NullCheck.notNull(in_mesh, "Mesh");
       this.data_buffer =
         NullCheck.notNull(in_data_buffer, "Data buffer");
       this.tri_buffer =
         NullCheck.notNull(in_tri_buffer, "Tri buffer");
+
+      this.triangle_count = in_triangle_count;
+      this.triangle_index_size_bits = in_triangle_index_size_bits;
+    }
+
+    R2MeshLoaderRequest request()
+    {
+      return this.request;
+    }
+
+    Int2ReferenceRBTreeMap<R2MeshAttributePacked> attributes()
+    {
+      return this.by_index;
+    }
+
+    long triangleCount()
+    {
+      return this.triangle_count;
+    }
+
+    int triangleIndexSizeBits()
+    {
+      return this.triangle_index_size_bits;
+    }
+
+    ByteBuffer dataBuffer()
+    {
+      return this.data_buffer;
+    }
+
+    ByteBuffer triangleBuffer()
+    {
+      return this.tri_buffer;
+    }
+
+    long sizeOctets()
+    {
+      return Integer.toUnsignedLong(this.data_buffer.capacity())
+        + Integer.toUnsignedLong(this.tri_buffer.capacity());
     }
   }
 
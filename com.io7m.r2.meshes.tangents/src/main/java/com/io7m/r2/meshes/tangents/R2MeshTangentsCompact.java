@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.meshes.tangents;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.r2.meshes.api.R2MeshBasic;
+import com.io7m.r2.meshes.api.R2MeshCompactConversions;
+import com.io7m.r2.meshes.api.R2MeshCompactType;
+import com.io7m.r2.meshes.api.R2MeshTriangle;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import it.unimi.dsi.fastutil.BigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigLists;
+import it.unimi.dsi.fastutil.objects.ObjectBigArrayBigList;
+
+/**
+ * <p>A compact mesh with tangent and bitangent vectors.</p>
+ *
+ * <p>As with meshes produced by {@link R2MeshTangentsGenerator}, there is
+ * exactly one tangent and one bitangent per normal, and each vertex uses the
+ * tangent and bitangent at the same index as its normal. Tangents have
+ * {@code 4} components and bitangents have {@code 3}.</p>
+ */
+
+public final class R2MeshTangentsCompact
+{
+  /**
+   * The number of components in a tangent.
+   */
+
+  public static final int TANGENT_COMPONENTS = 4;
+
+  /**
+   * The number of components in a bitangent.
+   */
+
+  public static final int BITANGENT_COMPONENTS = 3;
+
+  private final R2MeshCompactType mesh;
+  private final DoubleBigList tangents;
+  private final DoubleBigList bitangents;
+
+  private R2MeshTangentsCompact(
+    final R2MeshCompactType in_mesh,
+    final DoubleBigList in_tangents,
+    final DoubleBigList in_bitangents)
+  {
+    this.mesh = NullCheck.notNull(in_mesh, "Mesh");
+    this.tangents = DoubleBigLists.unmodifiable(
+      NullCheck.notNull(in_tangents, "Tangents"));
+    this.bitangents = DoubleBigLists.unmodifiable(
+      NullCheck.notNull(in_bitangents, "Bitangents"));
+  }
+
+  /**
+   * Construct a mesh.
+   *
+   * @param in_mesh       The mesh
+   * @param in_tangents   The tangent components
+   * @param in_bitangents The bitangent components
+   *
+   * @return A new mesh
+   */
+
+  public static R2MeshTangentsCompact of(
+    final R2MeshCompactType in_mesh,
+    final DoubleBigList in_tangents,
+    final DoubleBigList in_bitangents)
+  {
+    final long normals = in_mesh.normalCount();
+    Preconditions.checkPreconditionL(
+      in_tangents.size64(),
+      in_tangents.size64() == normals * (long) TANGENT_COMPONENTS,
+      x -> "Must have exactly one tangent per normal");
+    Preconditions.checkPreconditionL(
+      in_bitangents.size64(),
+      in_bitangents.size64() == normals * (long) BITANGENT_COMPONENTS,
+      x -> "Must have exactly one bitangent per normal");
+
+    return new R2MeshTangentsCompact(in_mesh, in_tangents, in_bitangents);
+  }
+
+  /**
+   * @return The mesh
+   */
+
+  public R2MeshCompactType mesh()
+  {
+    return this.mesh;
+  }
+
+  /**
+   * @return The tangent components
+   */
+
+  public DoubleBigList tangents()
+  {
+    return this.tangents;
+  }
+
+  /**
+   * @return The bitangent components
+   */
+
+  public DoubleBigList bitangents()
+  {
+    return this.bitangents;
+  }
+
+  /**
+   * Convert this mesh to an {@link R2MeshTangents}.
+   *
+   * @return A mesh with tangents
+   */
+
+  public R2MeshTangents toMeshTangents()
+  {
+    final R2MeshBasic basic = R2MeshCompactConversions.toBasic(this.mesh);
+
+    final ObjectBigArrayBigList<PVector4D<R2SpaceObjectType>> out_tangents =
+      new ObjectBigArrayBigList<>(this.mesh.normalCount());
+    for (long index = 0L;
+         index < this.tangents.size64();
+         index += (long) TANGENT_COMPONENTS) {
+      out_tangents.add(PVector4D.of(
+        this.tangents.getDouble(index),
+        this.tangents.getDouble(index + 1L),
+        this.tangents.getDouble(index + 2L),
+        this.tangents.getDouble(index + 3L)));
+    }
+
+    final ObjectBigArrayBigList<PVector3D<R2SpaceObjectType>> out_bitangents =
+      new ObjectBigArrayBigList<>(this.mesh.normalCount());
+    for (long index = 0L;
+         index < this.bitangents.size64();
+         index += (long) BITANGENT_COMPONENTS) {
+      out_bitangents.add(PVector3D.of(
+        this.bitangents.getDouble(index),
+        this.bitangents.getDouble(index + 1L),
+        this.bitangents.getDouble(index + 2L)));
+    }
+
+    final ObjectBigArrayBigList<R2MeshTangentsVertex> out_vertices =
+      new ObjectBigArrayBigList<>(this.mesh.vertexCount());
+    for (long index = 0L; index < this.mesh.vertexCount(); ++index) {
+      final long normal = this.mesh.vertexNormal(index);
+      out_vertices.add(R2MeshTangentsVertex.of(
+        this.mesh.vertexPosition(index),
+        normal,
+        normal,
+        normal,
+        this.mesh.vertexUV(index)));
+    }
+
+    final BigList<R2MeshTriangle> triangles = basic.triangles();
+    return R2MeshTangents.of(
+      basic.positions(),
+      basic.normals(),
+      out_bitangents,
+      out_tangents,
+      basic.uvs(),
+      out_vertices,
+      triangles);
+  }
+}
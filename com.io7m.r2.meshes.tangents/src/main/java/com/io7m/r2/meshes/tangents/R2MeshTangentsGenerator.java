@@ -28,11 +28,15 @@ import com.io7m.jtensors.orthonormalization.POrthonormalized3D;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.r2.meshes.api.R2MeshBasic;
 import com.io7m.r2.meshes.api.R2MeshBasicVertex;
+import com.io7m.r2.meshes.api.R2MeshCompactType;
 import com.io7m.r2.meshes.api.R2MeshExceptionMalformedTriangle;
 import com.io7m.r2.meshes.api.R2MeshTriangle;
 import com.io7m.r2.spaces.R2SpaceObjectType;
 import com.io7m.r2.spaces.R2SpaceTextureType;
 import it.unimi.dsi.fastutil.BigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigArrayBigList;
+import it.unimi.dsi.fastutil.doubles.DoubleBigList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
 import it.unimi.dsi.fastutil.objects.ObjectBigArrayBigList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -311,6 +315,314 @@ public final class R2MeshTangentsGenerator
       positions, normals, bitangents, tangents, uvs, tan_vertices, triangles);
   }
 
+  /**
+   * Generate tangent and bitangent vectors for the given compact mesh. The
+   * results are identical to those of {@link #generateTangents(R2MeshBasic)}
+   * for the equivalent basic mesh, but no per-element objects are allocated.
+   *
+   * @param in_m The initial mesh
+   *
+   * @return A mesh with generated tangent/bitangent vectors
+   */
+
+  public static R2MeshTangentsCompact generateTangentsCompact(
+    final R2MeshCompactType in_m)
+  {
+    final R2MeshCompactType m = NullCheck.notNull(in_m, "Mesh");
+
+    LOG.debug("generating tangents (compact)");
+
+    final DoubleBigList positions = m.positions();
+    final DoubleBigList normals = m.normals();
+    final DoubleBigList uvs = m.uvs();
+    final LongBigList triangles = m.triangles();
+
+    checkFiniteAll(positions, "Position", 3);
+    checkFiniteAll(normals, "Normal", 3);
+    checkFiniteAll(uvs, "UV", 2);
+
+    /*
+     * Create a set of zero vectors for the initial tangent and bitangent
+     * vectors.
+     */
+
+    final long normal_count = m.normalCount();
+    final DoubleBigArrayBigList tangents =
+      new DoubleBigArrayBigList(normal_count * 4L);
+    tangents.size(normal_count * 4L);
+    final DoubleBigArrayBigList bitangents =
+      new DoubleBigArrayBigList(normal_count * 3L);
+    bitangents.size(normal_count * 3L);
+
+    /*
+     * Generate initial tangent and bitangent vectors.
+     */
+
+    final long[] tri_vertices = new long[3];
+    for (long tri_index = 0L; tri_index < m.triangleCount(); ++tri_index) {
+      tri_vertices[0] = triangles.getLong(tri_index * 3L);
+      tri_vertices[1] = triangles.getLong((tri_index * 3L) + 1L);
+      tri_vertices[2] = triangles.getLong((tri_index * 3L) + 2L);
+
+      final long v0_p = m.vertexPosition(tri_vertices[0]) * 3L;
+      final long v1_p = m.vertexPosition(tri_vertices[1]) * 3L;
+      final long v2_p = m.vertexPosition(tri_vertices[2]) * 3L;
+
+      final long v0_uv = m.vertexUV(tri_vertices[0]);
+      final long v1_uv = m.vertexUV(tri_vertices[1]);
+      final long v2_uv = m.vertexUV(tri_vertices[2]);
+
+      /*
+       * In the case where, for example, two vertices in a triangle share the
+       * same UV coordinates, it's simply not possible to generate a reasonable
+       * tangent vector.
+       */
+
+      checkTriangleUVsCompact(m, tri_index, tri_vertices, v0_uv, v1_uv, v2_uv);
+
+      final double x1 = positions.getDouble(v1_p) - positions.getDouble(v0_p);
+      final double x2 = positions.getDouble(v2_p) - positions.getDouble(v0_p);
+
+      final double y1 =
+        positions.getDouble(v1_p + 1L) - positions.getDouble(v0_p + 1L);
+      final double y2 =
+        positions.getDouble(v2_p + 1L) - positions.getDouble(v0_p + 1L);
+
+      final double z1 =
+        positions.getDouble(v1_p + 2L) - positions.getDouble(v0_p + 2L);
+      final double z2 =
+        positions.getDouble(v2_p + 2L) - positions.getDouble(v0_p + 2L);
+
+      final double s1 =
+        uvs.getDouble(v1_uv * 2L) - uvs.getDouble(v0_uv * 2L);
+      final double s2 =
+        uvs.getDouble(v2_uv * 2L) - uvs.getDouble(v0_uv * 2L);
+
+      final double t1 =
+        uvs.getDouble((v1_uv * 2L) + 1L) - uvs.getDouble((v0_uv * 2L) + 1L);
+      final double t2 =
+        uvs.getDouble((v2_uv * 2L) + 1L) - uvs.getDouble((v0_uv * 2L) + 1L);
+
+      final double d = (s1 * t2) - (s2 * t1);
+
+      /*
+       * Typically caused by triangle vertices sharing the same UV
+       * coordinate. Should be prevented by earlier checks.
+       */
+
+      Invariants.checkInvariantD(
+        d,
+        d != 0.0,
+        x -> String.format("d (%f) must be != 0.0", Double.valueOf(x)));
+
+      final double r = 1.0 / d;
+
+      final double tx = ((t2 * x1) - (t1 * x2)) * r;
+      final double ty = ((t2 * y1) - (t1 * y2)) * r;
+      final double tz = ((t2 * z1) - (t1 * z2)) * r;
+
+      final double bx = ((s1 * x2) - (s2 * x1)) * r;
+      final double by = ((s1 * y2) - (s2 * y1)) * r;
+      final double bz = ((s1 * z2) - (s2 * z1)) * r;
+
+      for (int index = 0; index < 3; ++index) {
+        final long normal = m.vertexNormal(tri_vertices[index]);
+        final long t = normal * 4L;
+        tangents.set(t, tangents.getDouble(t) + tx);
+        tangents.set(t + 1L, tangents.getDouble(t + 1L) + ty);
+        tangents.set(t + 2L, tangents.getDouble(t + 2L) + tz);
+        tangents.set(t + 3L, 1.0);
+        checkFiniteRange(tangents, t, 4, "Generated Tangent", normal);
+
+        final long b = normal * 3L;
+        bitangents.set(b, bitangents.getDouble(b) + bx);
+        bitangents.set(b + 1L, bitangents.getDouble(b + 1L) + by);
+        bitangents.set(b + 2L, bitangents.getDouble(b + 2L) + bz);
+        checkFiniteRange(bitangents, b, 3, "Generated Bitangent", normal);
+      }
+    }
+
+    /*
+     * Orthonormalize tangents and bitangents. See the comments in
+     * generateTangents() for an explanation.
+     */
+
+    for (long index = 0L; index < normal_count; ++index) {
+      final long t = index * 4L;
+      final long b = index * 3L;
+      final long n = index * 3L;
+
+      final double nx = normals.getDouble(n);
+      final double ny = normals.getDouble(n + 1L);
+      final double nz = normals.getDouble(n + 2L);
+      final double tx = tangents.getDouble(t);
+      final double ty = tangents.getDouble(t + 1L);
+      final double tz = tangents.getDouble(t + 2L);
+      final double bx = bitangents.getDouble(b);
+      final double by = bitangents.getDouble(b + 1L);
+      final double bz = bitangents.getDouble(b + 2L);
+
+      /*
+       * Gram-Schmidt orthonormalization of (n, t, b).
+       */
+
+      final double nm = normalizer(nx, ny, nz);
+      final double onx = nx * nm;
+      final double ony = ny * nm;
+      final double onz = nz * nm;
+
+      final double t_dot_n = (tx * onx) + (ty * ony) + (tz * onz);
+      final double otx0 = tx - (onx * t_dot_n);
+      final double oty0 = ty - (ony * t_dot_n);
+      final double otz0 = tz - (onz * t_dot_n);
+      final double otm = normalizer(otx0, oty0, otz0);
+      final double otx = otx0 * otm;
+      final double oty = oty0 * otm;
+      final double otz = otz0 * otm;
+
+      final double b_dot_n = (bx * onx) + (by * ony) + (bz * onz);
+      final double b_dot_t = (bx * otx) + (by * oty) + (bz * otz);
+      final double obx0 = bx - (onx * b_dot_n) - (otx * b_dot_t);
+      final double oby0 = by - (ony * b_dot_n) - (oty * b_dot_t);
+      final double obz0 = bz - (onz * b_dot_n) - (otz * b_dot_t);
+      final double obm = normalizer(obx0, oby0, obz0);
+
+      /*
+       * Invert the bitangent if the resulting coordinate system is not
+       * right-handed (and save the fact that the inversion occurred in the w
+       * component of the tangent vector).
+       */
+
+      final double cx = (ny * tz) - (nz * ty);
+      final double cy = (nz * tx) - (nx * tz);
+      final double cz = (nx * ty) - (ny * tx);
+      final double handedness =
+        ((cx * bx) + (cy * by) + (cz * bz)) < 0.0 ? -1.0 : 1.0;
+
+      tangents.set(t, otx);
+      tangents.set(t + 1L, oty);
+      tangents.set(t + 2L, otz);
+      tangents.set(t + 3L, handedness);
+      checkFiniteRange(tangents, t, 4, "Final Tangent", index);
+
+      bitangents.set(b, handedness * (obx0 * obm));
+      bitangents.set(b + 1L, handedness * (oby0 * obm));
+      bitangents.set(b + 2L, handedness * (obz0 * obm));
+      checkFiniteRange(bitangents, b, 3, "Final Bitangent", index);
+    }
+
+    tangents.trim();
+    bitangents.trim();
+    return R2MeshTangentsCompact.of(m, tangents, bitangents);
+  }
+
+  /**
+   * @return The factor by which to scale the given vector to normalize it.
+   * As with the vector functions used by
+   * {@link #generateTangents(R2MeshBasic)}, zero vectors are left unchanged.
+   */
+
+  private static double normalizer(
+    final double x,
+    final double y,
+    final double z)
+  {
+    final double m = Math.sqrt((x * x) + (y * y) + (z * z));
+    return m > 0.0 ? 1.0 / m : 1.0;
+  }
+
+  private static void checkFiniteAll(
+    final DoubleBigList values,
+    final String name,
+    final int components)
+  {
+    for (long index = 0L; index < values.size64(); index += components) {
+      checkFiniteRange(values, index, components, name, index / components);
+    }
+  }
+
+  private static void checkFiniteRange(
+    final DoubleBigList values,
+    final long offset,
+    final int components,
+    final String name,
+    final long element)
+  {
+    for (int c = 0; c < components; ++c) {
+      final double value = values.getDouble(offset + (long) c);
+      if (!Double.isFinite(value)) {
+        final int component = c;
+        Invariants.checkInvariantD(
+          value,
+          false,
+          x -> String.format(
+            "%s [%d].%c must be finite",
+            name,
+            Long.valueOf(element),
+            Character.valueOf("xyzw".charAt(component))));
+      }
+    }
+  }
+
+  /**
+   * Check that a given triangle of a compact mesh does not have at least two
+   * UV coordinates that are the same.
+   */
+
+  private static void checkTriangleUVsCompact(
+    final R2MeshCompactType m,
+    final long tri_index,
+    final long[] tri_vertices,
+    final long v0_uv,
+    final long v1_uv,
+    final long v2_uv)
+  {
+    final boolean sharing =
+      (v0_uv == v1_uv) || (v1_uv == v2_uv) || (v0_uv == v2_uv);
+
+    if (sharing) {
+      final DoubleBigList uvs = m.uvs();
+      final long[] uv_indices = {v0_uv, v1_uv, v2_uv};
+
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append(
+        "At least two vertices of a triangle are sharing UV coordinates.");
+      sb.append(System.lineSeparator());
+
+      sb.append(
+        "It is not possible to generate tangent vectors for this mesh.");
+      sb.append(System.lineSeparator());
+
+      sb.append("Triangle: ");
+      sb.append(tri_index);
+      sb.append(System.lineSeparator());
+
+      sb.append("Triangle vertices: ");
+      sb.append(tri_vertices[0]);
+      sb.append(" ");
+      sb.append(tri_vertices[1]);
+      sb.append(" ");
+      sb.append(tri_vertices[2]);
+      sb.append(System.lineSeparator());
+
+      for (int index = 0; index < 3; ++index) {
+        final long uv = uv_indices[index];
+        sb.append("UV of V");
+        sb.append(index);
+        sb.append(": ");
+        sb.append(uv);
+        sb.append(" (");
+        sb.append(uvs.getDouble(uv * 2L));
+        sb.append(", ");
+        sb.append(uvs.getDouble((uv * 2L) + 1L));
+        sb.append(")");
+        sb.append(System.lineSeparator());
+      }
+
+      throw new R2MeshExceptionMalformedTriangle(sb.toString());
+    }
+  }
+
   /**
    * Check that a given triangle does not have at least two UV
    * coordinates that are the same.
@@ -20,8 +20,14 @@ import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
+import com.io7m.jcanephora.core.JCGLUsageHint;
 import com.io7m.jfunctional.Unit;
 import com.io7m.jnull.NullCheck;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
+import com.io7m.r2.meshes.loading.api.R2MeshLoadingException;
+import com.io7m.r2.meshes.loading.api.R2MeshRequireTangents;
+import com.io7m.r2.meshes.loading.api.R2MeshRequireUV;
+import com.io7m.r2.meshes.loading.smf.R2SMFMeshCache;
 import com.io7m.smfj.core.SMFErrorType;
 import com.io7m.smfj.core.SMFFormatDescription;
 import com.io7m.smfj.core.SMFFormatVersion;
@@ -72,6 +78,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.io7m.jfunctional.Unit.unit;
 
@@ -102,12 +110,14 @@ public final class R2MeshToolMain implements Runnable
     final CommandFilter filter = new CommandFilter();
     final CommandListFilters list_filters = new CommandListFilters();
     final CommandProbe probe = new CommandProbe();
+    final CommandBake bake = new CommandBake();
 
     this.commands = new HashMap<>(8);
     this.commands.put("filter", filter);
     this.commands.put("list-formats", formats);
     this.commands.put("list-filters", list_filters);
     this.commands.put("probe", probe);
+    this.commands.put("bake", bake);
 
     this.commander = new JCommander(r);
     this.commander.setProgramName("smf");
@@ -115,6 +125,7 @@ public final class R2MeshToolMain implements Runnable
     this.commander.addCommand("list-formats", formats);
     this.commander.addCommand("list-filters", list_filters);
     this.commander.addCommand("probe", probe);
+    this.commander.addCommand("bake", bake);
   }
 
   /**
@@ -503,6 +514,99 @@ public final class R2MeshToolMain implements Runnable
     }
   }
 
+  @Parameters(commandDescription = "Pre-bake meshes into a mesh cache")
+  private final class CommandBake extends CommandRoot
+  {
+    @Parameter(
+      names = "-directory-in",
+      required = true,
+      description = "The directory containing mesh files")
+    private String directory_in;
+
+    @Parameter(
+      names = "-directory-cache",
+      required = true,
+      description = "The mesh cache directory")
+    private String directory_cache;
+
+    @Parameter(
+      names = "-require-tangents",
+      description = "Require meshes to have tangent vectors")
+    private boolean require_tangents;
+
+    @Parameter(
+      names = "-require-uv",
+      description = "Require meshes to have UV coordinates")
+    private boolean require_uv;
+
+    CommandBake()
+    {
+
+    }
+
+    @Override
+    public Unit call()
+      throws Exception
+    {
+      super.call();
+
+      final Map<String, SMFParserProviderType> parsers = new HashMap<>(8);
+      final ServiceLoader<SMFParserProviderType> parser_loader =
+        ServiceLoader.load(SMFParserProviderType.class);
+      for (final SMFParserProviderType provider : parser_loader) {
+        parsers.put(provider.parserFormat().suffix(), provider);
+      }
+
+      final R2SMFMeshCache cache =
+        R2SMFMeshCache.create(Paths.get(this.directory_cache));
+
+      final java.util.List<Path> files;
+      try (final Stream<Path> stream =
+             Files.walk(Paths.get(this.directory_in))) {
+        files = stream.filter(Files::isRegularFile)
+          .sorted()
+          .collect(Collectors.toList());
+      }
+
+      for (final Path file : files) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+          continue;
+        }
+
+        final SMFParserProviderType provider =
+          parsers.get(name.substring(dot + 1));
+        if (provider == null) {
+          continue;
+        }
+
+        final R2MeshLoaderRequest request =
+          R2MeshLoaderRequest.of(
+            file.toUri(),
+            this.require_tangents
+              ? R2MeshRequireTangents.R2_TANGENTS_REQUIRED
+              : R2MeshRequireTangents.R2_TANGENTS_OPTIONAL,
+            this.require_uv
+              ? R2MeshRequireUV.R2_UV_REQUIRED
+              : R2MeshRequireUV.R2_UV_OPTIONAL,
+            JCGLUsageHint.USAGE_STATIC_DRAW,
+            JCGLUsageHint.USAGE_STATIC_DRAW);
+
+        try {
+          final Path baked = cache.bake(provider, request);
+          LOG.info("{} -> {}", file, baked);
+        } catch (final R2MeshLoadingException | IOException e) {
+          LOG.error("could not bake mesh {}: {}", file, e.getMessage());
+          LOG.debug("error: ", e);
+          R2MeshToolMain.this.exit_code = 1;
+        }
+      }
+
+      return unit();
+    }
+  }
+
   @Parameters(commandDescription = "Probe a mesh file and display information")
   private final class CommandProbe extends CommandRoot
     implements SMFParserEventsType, SMFParserEventsHeaderType
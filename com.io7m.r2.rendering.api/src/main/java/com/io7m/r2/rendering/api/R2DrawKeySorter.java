@@ -0,0 +1,353 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.rendering.api;
+
+import com.io7m.jnull.NullCheck;
+
+import java.util.Arrays;
+
+/**
+ * <p>A stable least-significant-digit radix sort for draw keys.</p>
+ *
+ * <p>The sorter sorts an array of non-negative {@code long} keys together
+ * with an array of {@code int} values (typically indices into the caller's
+ * own arrays of draw data). Keys are processed eight bits at a time, and
+ * passes in which every key has the same digit are skipped; draw keys
+ * typically have many unused high bits, so most sorts require far fewer than
+ * eight passes. Because the sort is stable, values with equal keys retain
+ * their original relative order.</p>
+ *
+ * <p>Lists of draws that contain more distinct shaders, materials, or array
+ * objects than a draw key can encode are instead sorted with a stable merge
+ * sort over the unpacked ordinals; see {@link #sortOrdinals(int[], long[],
+ * int[], int)}.</p>
+ *
+ * <p>The sorter retains its scratch arrays between calls, and therefore does
+ * not allocate once it has sorted the largest list that it will be asked to
+ * sort.</p>
+ *
+ * <p>Sorters are not thread-safe.</p>
+ *
+ * @see R2DrawKeys
+ */
+
+public final class R2DrawKeySorter
+{
+  /**
+   * The number of ordinals stored for each element by callers of {@link
+   * #sortOrdinals(int[], long[], int[], int)}: a group, a shader, a material,
+   * and an array object, in that order.
+   */
+
+  public static final int ORDINALS_PER_ELEMENT = 4;
+
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int RADIX_MASK = RADIX - 1;
+  private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+  private final int[] counts;
+  private long[] scratch_keys;
+  private int[] scratch_values;
+
+  private R2DrawKeySorter()
+  {
+    this.counts = new int[PASSES * RADIX];
+    this.scratch_keys = new long[0];
+    this.scratch_values = new int[0];
+  }
+
+  /**
+   * @return A new sorter
+   */
+
+  public static R2DrawKeySorter create()
+  {
+    return new R2DrawKeySorter();
+  }
+
+  /**
+   * Sort the first {@code count} elements of {@code keys} into ascending
+   * order, applying the same permutation to {@code values}.
+   *
+   * @param keys   The keys
+   * @param values The values
+   * @param count  The number of elements to sort
+   */
+
+  public void sort(
+    final long[] keys,
+    final int[] values,
+    final int count)
+  {
+    NullCheck.notNull(keys, "Keys");
+    NullCheck.notNull(values, "Values");
+    checkCount(keys, values, count);
+
+    if (count < 2) {
+      return;
+    }
+
+    if (this.scratch_keys.length < count) {
+      this.scratch_keys = new long[count];
+      this.scratch_values = new int[count];
+    }
+
+    /*
+     * Build the histograms for every digit in a single pass over the keys.
+     */
+
+    final int[] c = this.counts;
+    Arrays.fill(c, 0);
+    for (int index = 0; index < count; ++index) {
+      final long key = keys[index];
+      for (int pass = 0; pass < PASSES; ++pass) {
+        final int digit = (int) (key >>> (pass * RADIX_BITS)) & RADIX_MASK;
+        ++c[pass * RADIX + digit];
+      }
+    }
+
+    long[] src_keys = keys;
+    int[] src_values = values;
+    long[] dst_keys = this.scratch_keys;
+    int[] dst_values = this.scratch_values;
+
+    for (int pass = 0; pass < PASSES; ++pass) {
+      final int base = pass * RADIX;
+      final int shift = pass * RADIX_BITS;
+
+      /*
+       * If every key has the same digit in this position, then the pass
+       * would not change the order of anything.
+       */
+
+      final int first_digit = (int) (src_keys[0] >>> shift) & RADIX_MASK;
+      if (c[base + first_digit] == count) {
+        continue;
+      }
+
+      /*
+       * Convert the histogram to starting offsets.
+       */
+
+      int offset = 0;
+      for (int digit = 0; digit < RADIX; ++digit) {
+        final int n = c[base + digit];
+        c[base + digit] = offset;
+        offset += n;
+      }
+
+      for (int index = 0; index < count; ++index) {
+        final long key = src_keys[index];
+        final int digit = (int) (key >>> shift) & RADIX_MASK;
+        final int target = c[base + digit];
+        c[base + digit] = target + 1;
+        dst_keys[target] = key;
+        dst_values[target] = src_values[index];
+      }
+
+      final long[] tk = src_keys;
+      src_keys = dst_keys;
+      dst_keys = tk;
+      final int[] tv = src_values;
+      src_values = dst_values;
+      dst_values = tv;
+    }
+
+    /*
+     * If an odd number of passes were performed, the sorted data is in the
+     * scratch arrays.
+     */
+
+    if (src_keys != keys) {
+      System.arraycopy(src_keys, 0, keys, 0, count);
+      System.arraycopy(src_values, 0, values, 0, count);
+    }
+  }
+
+  private static void checkCount(
+    final long[] keys,
+    final int[] values,
+    final int count)
+  {
+    if (count < 0 || count > keys.length || count > values.length) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Count %d must be in the range [0, %d]",
+          Integer.valueOf(count),
+          Integer.valueOf(Math.min(keys.length, values.length))));
+    }
+  }
+
+  /**
+   * <p>Sort the first {@code count} elements described by {@code ordinals}
+   * into ascending order of group, shader, material, and array object. This
+   * is the fallback used for lists in which at least one element has
+   * ordinals that cannot be encoded in a draw key (see {@link
+   * R2DrawKeys#ordinalsFit(int, int, int)}).</p>
+   *
+   * <p>The ordinals of element {@code i} are stored at {@code ordinals[i *
+   * ORDINALS_PER_ELEMENT]} onwards. On return, {@code values[k]} holds the
+   * index of the element at position {@code k} of the sorted order, and
+   * {@code keys[k]} holds a draw key for that element. As with {@link
+   * #sort(long[], int[], int)}, the sort is stable.</p>
+   *
+   * <p>The keys produced by this method encode the exact group of each
+   * element, but encode shaders, materials, and array objects by the index
+   * of the run of equal values in which they appear, modulo the size of the
+   * corresponding field. The keys are therefore not necessarily in
+   * ascending order, but the shader, material, and array prefixes of two
+   * adjacent elements are equal iff the elements have the same ordinals,
+   * and so iterating over runs of equal prefixes behaves exactly as it
+   * does for keys sorted with {@link #sort(long[], int[], int)}.</p>
+   *
+   * @param ordinals The ordinals
+   * @param keys     The resulting keys
+   * @param values   The resulting element indices
+   * @param count    The number of elements to sort
+   */
+
+  public void sortOrdinals(
+    final int[] ordinals,
+    final long[] keys,
+    final int[] values,
+    final int count)
+  {
+    NullCheck.notNull(ordinals, "Ordinals");
+    NullCheck.notNull(keys, "Keys");
+    NullCheck.notNull(values, "Values");
+    checkCount(keys, values, count);
+
+    if ((long) count * (long) ORDINALS_PER_ELEMENT > (long) ordinals.length) {
+      throw new IllegalArgumentException(
+        String.format(
+          "Ordinals array of length %d is too short for %d elements",
+          Integer.valueOf(ordinals.length),
+          Integer.valueOf(count)));
+    }
+
+    if (this.scratch_values.length < count) {
+      this.scratch_keys = new long[count];
+      this.scratch_values = new int[count];
+    }
+
+    for (int index = 0; index < count; ++index) {
+      values[index] = index;
+    }
+
+    /*
+     * A bottom-up merge sort of the element indices, comparing elements by
+     * their ordinals.
+     */
+
+    int[] src = values;
+    int[] dst = this.scratch_values;
+    for (int width = 1; width < count; width *= 2) {
+      for (int lo = 0; lo < count; lo += 2 * width) {
+        final int mid = Math.min(lo + width, count);
+        final int hi = Math.min(lo + (2 * width), count);
+        merge(ordinals, src, dst, lo, mid, hi);
+      }
+      final int[] t = src;
+      src = dst;
+      dst = t;
+    }
+
+    if (src != values) {
+      System.arraycopy(src, 0, values, 0, count);
+    }
+
+    /*
+     * Number the runs of equal values in sorted order.
+     */
+
+    final int shader_mask = (1 << R2DrawKeys.SHADER_BITS) - 1;
+    final int material_mask = (1 << R2DrawKeys.MATERIAL_BITS) - 1;
+    final int array_mask = (1 << R2DrawKeys.ARRAY_BITS) - 1;
+
+    int shader_run = 0;
+    int material_run = 0;
+    int array_run = 0;
+    for (int index = 0; index < count; ++index) {
+      final int e = values[index] * ORDINALS_PER_ELEMENT;
+      if (index > 0) {
+        final int p = values[index - 1] * ORDINALS_PER_ELEMENT;
+        final boolean same_shader =
+          ordinals[e] == ordinals[p] && ordinals[e + 1] == ordinals[p + 1];
+        final boolean same_material =
+          same_shader && ordinals[e + 2] == ordinals[p + 2];
+        final boolean same_array =
+          same_material && ordinals[e + 3] == ordinals[p + 3];
+
+        if (!same_shader) {
+          shader_run = (shader_run + 1) & shader_mask;
+        }
+        if (!same_material) {
+          material_run = (material_run + 1) & material_mask;
+        }
+        if (!same_array) {
+          array_run = (array_run + 1) & array_mask;
+        }
+      }
+
+      keys[index] = R2DrawKeys.pack(
+        ordinals[e], shader_run, material_run, array_run);
+    }
+  }
+
+  private static void merge(
+    final int[] ordinals,
+    final int[] src,
+    final int[] dst,
+    final int lo,
+    final int mid,
+    final int hi)
+  {
+    int i = lo;
+    int j = mid;
+    for (int k = lo; k < hi; ++k) {
+      final boolean take_left =
+        i < mid
+          && (j >= hi || compareOrdinals(ordinals, src[i], src[j]) <= 0);
+      if (take_left) {
+        dst[k] = src[i];
+        ++i;
+      } else {
+        dst[k] = src[j];
+        ++j;
+      }
+    }
+  }
+
+  private static int compareOrdinals(
+    final int[] ordinals,
+    final int x,
+    final int y)
+  {
+    final int xb = x * ORDINALS_PER_ELEMENT;
+    final int yb = y * ORDINALS_PER_ELEMENT;
+    for (int offset = 0; offset < ORDINALS_PER_ELEMENT; ++offset) {
+      final int c =
+        Integer.compare(ordinals[xb + offset], ordinals[yb + offset]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+}
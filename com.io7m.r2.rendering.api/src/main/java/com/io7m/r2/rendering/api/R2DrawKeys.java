@@ -0,0 +1,252 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.rendering.api;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.junreachable.UnreachableCodeException;
+
+/**
+ * <p>Functions for packing draw keys.</p>
+ *
+ * <p>A draw key is a {@code long} value that encodes, from the most
+ * significant bits to the least significant bits, a stencil group, a shader,
+ * a material, and an array object. Sorting a list of draw keys in ascending
+ * order therefore yields an order that groups together all draws that share
+ * a shader, then all draws that share a material within that shader, and so
+ * on.</p>
+ *
+ * <p>Shaders, materials, and array objects are not encoded by their
+ * identifiers directly: the identifiers are arbitrary 64-bit values and would
+ * not fit. Instead, callers assign each distinct value a small ordinal (for
+ * example, in the order in which values are first seen during a frame) and
+ * encode the ordinal. A list of draws can contain more distinct shaders,
+ * materials, or array objects than the corresponding fields can encode;
+ * callers check each set of ordinals with {@link #ordinalsFit(int, int,
+ * int)}, and fall back to {@link R2DrawKeySorter#sortOrdinals(int[], long[],
+ * int[], int)} for lists in which any set of ordinals does not fit.</p>
+ *
+ * <p>The most significant bit of a draw key is always zero, so draw keys
+ * are always non-negative.</p>
+ */
+
+public final class R2DrawKeys
+{
+  /**
+   * The number of bits used to encode array object ordinals.
+   */
+
+  public static final int ARRAY_BITS = 22;
+
+  /**
+   * The number of bits used to encode material ordinals.
+   */
+
+  public static final int MATERIAL_BITS = 21;
+
+  /**
+   * The number of bits used to encode shader ordinals.
+   */
+
+  public static final int SHADER_BITS = 16;
+
+  /**
+   * The number of bits used to encode groups.
+   */
+
+  public static final int GROUP_BITS = 4;
+
+  private static final int ARRAY_SHIFT = 0;
+  private static final int MATERIAL_SHIFT = ARRAY_SHIFT + ARRAY_BITS;
+  private static final int SHADER_SHIFT = MATERIAL_SHIFT + MATERIAL_BITS;
+  private static final int GROUP_SHIFT = SHADER_SHIFT + SHADER_BITS;
+
+  private static final long ARRAY_MASK = (1L << ARRAY_BITS) - 1L;
+  private static final long MATERIAL_MASK = (1L << MATERIAL_BITS) - 1L;
+  private static final long SHADER_MASK = (1L << SHADER_BITS) - 1L;
+  private static final long GROUP_MASK = (1L << GROUP_BITS) - 1L;
+
+  static {
+    Preconditions.checkPreconditionI(
+      GROUP_SHIFT + GROUP_BITS,
+      GROUP_SHIFT + GROUP_BITS < 64,
+      x -> "Draw keys must leave the sign bit unused");
+  }
+
+  private R2DrawKeys()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Pack the given values into a draw key.
+   *
+   * @param group    The stencil group in the range {@code [0, 15]}
+   * @param shader   The shader ordinal in the range {@code [0,
+   *                 2^SHADER_BITS)}
+   * @param material The material ordinal in the range {@code [0,
+   *                 2^MATERIAL_BITS)}
+   * @param array    The array object ordinal in the range {@code [0,
+   *                 2^ARRAY_BITS)}
+   *
+   * @return A draw key
+   */
+
+  public static long pack(
+    final int group,
+    final int shader,
+    final int material,
+    final int array)
+  {
+    checkRange(group, GROUP_MASK, "Group");
+    checkRange(shader, SHADER_MASK, "Shader ordinal");
+    checkRange(material, MATERIAL_MASK, "Material ordinal");
+    checkRange(array, ARRAY_MASK, "Array object ordinal");
+
+    return ((long) group << GROUP_SHIFT)
+      | ((long) shader << SHADER_SHIFT)
+      | ((long) material << MATERIAL_SHIFT)
+      | ((long) array << ARRAY_SHIFT);
+  }
+
+  /**
+   * @param shader   The shader ordinal
+   * @param material The material ordinal
+   * @param array    The array object ordinal
+   *
+   * @return {@code true} iff the given non-negative ordinals can be encoded
+   * in a draw key
+   */
+
+  public static boolean ordinalsFit(
+    final int shader,
+    final int material,
+    final int array)
+  {
+    return (long) shader <= SHADER_MASK
+      && (long) material <= MATERIAL_MASK
+      && (long) array <= ARRAY_MASK;
+  }
+
+  private static void checkRange(
+    final int value,
+    final long mask,
+    final String name)
+  {
+    if (value < 0 || (long) value > mask) {
+      throw new IllegalArgumentException(
+        String.format(
+          "%s %d is not in the range [0, %d]",
+          name,
+          Integer.valueOf(value),
+          Long.valueOf(mask)));
+    }
+  }
+
+  /**
+   * @param key A draw key
+   *
+   * @return The group encoded in the key
+   */
+
+  public static int group(
+    final long key)
+  {
+    return (int) ((key >>> GROUP_SHIFT) & GROUP_MASK);
+  }
+
+  /**
+   * @param key A draw key
+   *
+   * @return The shader ordinal encoded in the key
+   */
+
+  public static int shader(
+    final long key)
+  {
+    return (int) ((key >>> SHADER_SHIFT) & SHADER_MASK);
+  }
+
+  /**
+   * @param key A draw key
+   *
+   * @return The material ordinal encoded in the key
+   */
+
+  public static int material(
+    final long key)
+  {
+    return (int) ((key >>> MATERIAL_SHIFT) & MATERIAL_MASK);
+  }
+
+  /**
+   * @param key A draw key
+   *
+   * @return The array object ordinal encoded in the key
+   */
+
+  public static int array(
+    final long key)
+  {
+    return (int) ((key >>> ARRAY_SHIFT) & ARRAY_MASK);
+  }
+
+  /**
+   * Two keys have equal shader prefixes iff they have the same group and
+   * shader.
+   *
+   * @param key A draw key
+   *
+   * @return The group and shader portion of the key
+   */
+
+  public static long shaderPrefix(
+    final long key)
+  {
+    return key >>> SHADER_SHIFT;
+  }
+
+  /**
+   * Two keys have equal material prefixes iff they have the same group,
+   * shader, and material.
+   *
+   * @param key A draw key
+   *
+   * @return The group, shader, and material portion of the key
+   */
+
+  public static long materialPrefix(
+    final long key)
+  {
+    return key >>> MATERIAL_SHIFT;
+  }
+
+  /**
+   * Two keys have equal array prefixes iff they have the same group,
+   * shader, material, and array object.
+   *
+   * @param key A draw key
+   *
+   * @return The group, shader, material, and array object portion of the key
+   */
+
+  public static long arrayPrefix(
+    final long key)
+  {
+    return key >>> ARRAY_SHIFT;
+  }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.rendering.api;
+
+import com.io7m.jcanephora.core.JCGLDepthFunction;
+import com.io7m.jcanephora.core.JCGLFaceSelection;
+import com.io7m.jcanephora.core.JCGLFramebufferUsableType;
+import com.io7m.jcanephora.core.api.JCGLBlendingType;
+import com.io7m.jcanephora.core.api.JCGLCullingType;
+import com.io7m.jcanephora.core.api.JCGLDepthBuffersType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLStencilBuffersType;
+import com.io7m.jcanephora.renderstate.JCGLBlendStateType;
+import com.io7m.jcanephora.renderstate.JCGLCullingStateType;
+import com.io7m.jcanephora.renderstate.JCGLDepthClamping;
+import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
+import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
+import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
+import com.io7m.jcanephora.renderstate.JCGLRenderStateType;
+import com.io7m.jcanephora.renderstate.JCGLRenderStates;
+import com.io7m.jcanephora.renderstate.JCGLStencilStateMutable;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>A tracker that records the most recently applied render state for an
+ * OpenGL context, and issues only those OpenGL calls that are required to
+ * move from the applied state to a newly activated state.</p>
+ *
+ * <p>The blending, culling, color buffer masking, polygon mode, depth, and
+ * stencil parts of each render state are compared individually against the
+ * applied state, and only the parts that differ are passed to the
+ * corresponding OpenGL interfaces. Any other difference between render
+ * states (such as the scissor region) causes the render state to be applied
+ * in full with {@link JCGLRenderStates#activate(JCGLInterfaceGL33Type,
+ * JCGLRenderStateType)}.</p>
+ *
+ * <p>The tracker can only know about state changes that are made through it.
+ * Code that modifies the OpenGL state directly must call {@link
+ * #invalidate()} afterwards so that the next activation is applied in
+ * full.</p>
+ *
+ * <p>Render states that are not strict silently ignore depth and stencil
+ * configuration when the currently bound framebuffer has no depth or stencil
+ * buffer. The tracker treats depth or stencil configuration that was ignored
+ * in this manner as unknown, and applies it at the next activation that
+ * takes place with a framebuffer that has the corresponding buffer. The
+ * number of depth and stencil bits is only queried when depth or stencil
+ * configuration actually has to be applied, and is cached for the most
+ * recently bound framebuffer.</p>
+ *
+ * <p>Exactly one tracker should be created for each OpenGL context, and that
+ * tracker should be passed to every renderer and filter that renders using
+ * the context. Trackers are not thread-safe; like the OpenGL contexts that
+ * they track, they are expected to be used from a single thread.</p>
+ */
+
+public final class R2RenderStateTracker
+{
+  private final JCGLRenderStateMutable compare;
+  private JCGLRenderStateMutable applied;
+  private JCGLStencilStateMutable applied_stencil;
+  private JCGLRenderStateMutable incoming;
+  private JCGLStencilStateMutable incoming_stencil;
+  private boolean applied_valid;
+  private boolean applied_depth_known;
+  private boolean applied_stencil_known;
+  private @Nullable JCGLFramebufferUsableType bits_framebuffer;
+  private boolean bits_valid;
+  private int bits_depth;
+  private int bits_stencil;
+  private long activations;
+  private long activations_avoided;
+  private long changes;
+  private long changes_avoided;
+
+  private R2RenderStateTracker()
+  {
+    this.compare = JCGLRenderStateMutable.create();
+    this.applied = JCGLRenderStateMutable.create();
+    this.applied_stencil = JCGLStencilStateMutable.create();
+    this.incoming = JCGLRenderStateMutable.create();
+    this.incoming_stencil = JCGLStencilStateMutable.create();
+    this.applied_valid = false;
+    this.bits_valid = false;
+  }
+
+  /**
+   * @return A new tracker that assumes that the current render state is
+   * unknown
+   */
+
+  public static R2RenderStateTracker create()
+  {
+    return new R2RenderStateTracker();
+  }
+
+  /**
+   * Activate the render state {@code r}, issuing only those OpenGL calls that
+   * are required to change the most recently applied state into {@code r}.
+   *
+   * @param g An OpenGL interface
+   * @param r A render state
+   *
+   * @return {@code true} iff any part of the render state was actually
+   * applied
+   */
+
+  public boolean activate(
+    final JCGLInterfaceGL33Type g,
+    final JCGLRenderStateType r)
+  {
+    NullCheck.notNull(g, "G33");
+    NullCheck.notNull(r, "Render state");
+
+    /*
+     * Take a value copy of the incoming state. The stencil state is copied
+     * separately, as callers typically pass in a mutable stencil state that
+     * will be modified after this call returns.
+     */
+
+    this.incoming.from(r);
+    this.incoming_stencil.from(r.stencilState());
+    this.incoming.setStencilState(this.incoming_stencil);
+
+    final boolean equal = this.incoming.equals(this.applied);
+    if (!this.applied_valid || !equal && !this.untrackedStateEqual()) {
+      this.activateFully(g, r);
+      return true;
+    }
+
+    if (equal && this.applied_depth_known && this.applied_stencil_known) {
+      this.changes_avoided += 6L;
+      ++this.activations_avoided;
+      return false;
+    }
+
+    final long changes_before = this.changes;
+    this.activateBlending(g);
+    this.activateCulling(g);
+    this.activateColorBufferMasking(g);
+    this.activatePolygonMode(g);
+    this.activateDepth(g);
+    this.activateStencil(g);
+    this.swap();
+
+    if (this.changes != changes_before) {
+      ++this.activations;
+      return true;
+    }
+
+    ++this.activations_avoided;
+    return false;
+  }
+
+  /**
+   * @return {@code true} iff the incoming and applied states are equal in
+   * every respect other than the parts that are tracked individually
+   */
+
+  private boolean untrackedStateEqual()
+  {
+    final JCGLRenderStateMutable c = this.compare;
+    c.from(this.incoming);
+    c.setBlendState(this.applied.blendState());
+    c.setCullingState(this.applied.cullingState());
+    c.setColorBufferMaskingState(this.applied.colorBufferMaskingState());
+    c.setPolygonMode(this.applied.polygonMode());
+    c.setDepthState(this.applied.depthState());
+    c.setStencilState(this.applied_stencil);
+    return c.equals(this.applied);
+  }
+
+  private void activateFully(
+    final JCGLInterfaceGL33Type g,
+    final JCGLRenderStateType r)
+  {
+    JCGLRenderStates.activate(g, r);
+
+    this.applied_depth_known =
+      this.incoming.depthState().depthStrict()
+        == JCGLDepthStrict.DEPTH_STRICT_ENABLED
+        || this.depthBits(g) > 0;
+    this.applied_stencil_known =
+      this.incoming_stencil.stencilStrict() || this.stencilBits(g) > 0;
+
+    this.swap();
+    this.applied_valid = true;
+    this.changes += 6L;
+    ++this.activations;
+  }
+
+  private void swap()
+  {
+    final JCGLRenderStateMutable r_swap = this.applied;
+    final JCGLStencilStateMutable s_swap = this.applied_stencil;
+    this.applied = this.incoming;
+    this.applied_stencil = this.incoming_stencil;
+    this.incoming = r_swap;
+    this.incoming_stencil = s_swap;
+  }
+
+  private void activateBlending(
+    final JCGLInterfaceGL33Type g)
+  {
+    if (Objects.equals(
+      this.incoming.blendState(), this.applied.blendState())) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    final JCGLBlendingType g_b = g.blending();
+    if (this.incoming.blendState().isPresent()) {
+      final JCGLBlendStateType b = this.incoming.blendState().get();
+      g_b.blendingEnableSeparateWithEquationSeparate(
+        b.blendFunctionSourceRGB(),
+        b.blendFunctionSourceAlpha(),
+        b.blendFunctionTargetRGB(),
+        b.blendFunctionTargetAlpha(),
+        b.blendEquationRGB(),
+        b.blendEquationAlpha());
+    } else {
+      g_b.blendingDisable();
+    }
+    ++this.changes;
+  }
+
+  private void activateCulling(
+    final JCGLInterfaceGL33Type g)
+  {
+    if (Objects.equals(
+      this.incoming.cullingState(), this.applied.cullingState())) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    final JCGLCullingType g_cu = g.culling();
+    if (this.incoming.cullingState().isPresent()) {
+      final JCGLCullingStateType c = this.incoming.cullingState().get();
+      g_cu.cullingEnable(c.faces(), c.order());
+    } else {
+      g_cu.cullingDisable();
+    }
+    ++this.changes;
+  }
+
+  private void activateColorBufferMasking(
+    final JCGLInterfaceGL33Type g)
+  {
+    if (Objects.equals(
+      this.incoming.colorBufferMaskingState(),
+      this.applied.colorBufferMaskingState())) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    g.colorBufferMasking().colorBufferMask(
+      this.incoming.colorBufferMaskingState().red(),
+      this.incoming.colorBufferMaskingState().green(),
+      this.incoming.colorBufferMaskingState().blue(),
+      this.incoming.colorBufferMaskingState().alpha());
+    ++this.changes;
+  }
+
+  private void activatePolygonMode(
+    final JCGLInterfaceGL33Type g)
+  {
+    if (this.incoming.polygonMode() == this.applied.polygonMode()) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    g.polygonMode().polygonSetMode(this.incoming.polygonMode());
+    ++this.changes;
+  }
+
+  private void activateDepth(
+    final JCGLInterfaceGL33Type g)
+  {
+    if (this.applied_depth_known
+      && Objects.equals(
+      this.incoming.depthState(), this.applied.depthState())) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    /*
+     * As with JCGLRenderStates, depth configuration is silently ignored
+     * for non-strict states if there is no depth buffer. For strict states,
+     * the depth buffer interface will raise an exception.
+     */
+
+    final JCGLDepthStrict strict = this.incoming.depthState().depthStrict();
+    if (strict != JCGLDepthStrict.DEPTH_STRICT_ENABLED
+      && this.depthBits(g) == 0) {
+      this.applied_depth_known = false;
+      ++this.changes_avoided;
+      return;
+    }
+
+    final JCGLDepthBuffersType g_db = g.depthBuffers();
+
+    final JCGLDepthClamping clamp = this.incoming.depthState().depthClamp();
+    if (clamp == JCGLDepthClamping.DEPTH_CLAMP_ENABLED) {
+      g_db.depthClampingEnable();
+    } else {
+      g_db.depthClampingDisable();
+    }
+
+    final Optional<JCGLDepthFunction> test =
+      this.incoming.depthState().depthTest();
+    if (test.isPresent()) {
+      g_db.depthBufferTestEnable(test.get());
+    } else {
+      g_db.depthBufferTestDisable();
+    }
+
+    final JCGLDepthWriting write = this.incoming.depthState().depthWrite();
+    if (write == JCGLDepthWriting.DEPTH_WRITE_ENABLED) {
+      g_db.depthBufferWriteEnable();
+    } else {
+      g_db.depthBufferWriteDisable();
+    }
+
+    this.applied_depth_known = true;
+    ++this.changes;
+  }
+
+  private void activateStencil(
+    final JCGLInterfaceGL33Type g)
+  {
+    final JCGLStencilStateMutable in = this.incoming_stencil;
+    final JCGLStencilStateMutable ap = this.applied_stencil;
+
+    if (this.applied_stencil_known && in.equals(ap)) {
+      ++this.changes_avoided;
+      return;
+    }
+
+    if (!in.stencilStrict() && this.stencilBits(g) == 0) {
+      this.applied_stencil_known = false;
+      ++this.changes_avoided;
+      return;
+    }
+
+    /*
+     * The stencil state is large and typically only differs in a few
+     * fields between activations (such as the reference values used by
+     * the light renderer for each light group), so each OpenGL call is
+     * only made if one of its own parameters has changed.
+     */
+
+    final boolean known = this.applied_stencil_known;
+    final JCGLStencilBuffersType g_st = g.stencilBuffers();
+
+    if (!known || in.stencilEnabled() != ap.stencilEnabled()) {
+      if (in.stencilEnabled()) {
+        g_st.stencilBufferEnable();
+      } else {
+        g_st.stencilBufferDisable();
+      }
+    }
+
+    if (!known
+      || in.testFunctionFront() != ap.testFunctionFront()
+      || in.testReferenceFront() != ap.testReferenceFront()
+      || in.testMaskFront() != ap.testMaskFront()) {
+      g_st.stencilBufferFunction(
+        JCGLFaceSelection.FACE_FRONT,
+        in.testFunctionFront(),
+        in.testReferenceFront(),
+        in.testMaskFront());
+    }
+
+    if (!known
+      || in.testFunctionBack() != ap.testFunctionBack()
+      || in.testReferenceBack() != ap.testReferenceBack()
+      || in.testMaskBack() != ap.testMaskBack()) {
+      g_st.stencilBufferFunction(
+        JCGLFaceSelection.FACE_BACK,
+        in.testFunctionBack(),
+        in.testReferenceBack(),
+        in.testMaskBack());
+    }
+
+    if (!known
+      || in.operationStencilFailFront() != ap.operationStencilFailFront()
+      || in.operationDepthFailFront() != ap.operationDepthFailFront()
+      || in.operationPassFront() != ap.operationPassFront()) {
+      g_st.stencilBufferOperation(
+        JCGLFaceSelection.FACE_FRONT,
+        in.operationStencilFailFront(),
+        in.operationDepthFailFront(),
+        in.operationPassFront());
+    }
+
+    if (!known
+      || in.operationStencilFailBack() != ap.operationStencilFailBack()
+      || in.operationDepthFailBack() != ap.operationDepthFailBack()
+      || in.operationPassBack() != ap.operationPassBack()) {
+      g_st.stencilBufferOperation(
+        JCGLFaceSelection.FACE_BACK,
+        in.operationStencilFailBack(),
+        in.operationDepthFailBack(),
+        in.operationPassBack());
+    }
+
+    if (!known || in.writeMaskFrontFaces() != ap.writeMaskFrontFaces()) {
+      g_st.stencilBufferMask(
+        JCGLFaceSelection.FACE_FRONT, in.writeMaskFrontFaces());
+    }
+
+    if (!known || in.writeMaskBackFaces() != ap.writeMaskBackFaces()) {
+      g_st.stencilBufferMask(
+        JCGLFaceSelection.FACE_BACK, in.writeMaskBackFaces());
+    }
+
+    this.applied_stencil_known = true;
+    ++this.changes;
+  }
+
+  private int depthBits(
+    final JCGLInterfaceGL33Type g)
+  {
+    this.updateBits(g);
+    return this.bits_depth;
+  }
+
+  private int stencilBits(
+    final JCGLInterfaceGL33Type g)
+  {
+    this.updateBits(g);
+    return this.bits_stencil;
+  }
+
+  /**
+   * Fetch the number of depth and stencil bits of the currently bound
+   * framebuffer, unless they have already been fetched for that
+   * framebuffer. The attachments of a framebuffer cannot change after the
+   * framebuffer has been allocated, so the values remain valid for as long
+   * as the same framebuffer is bound.
+   */
+
+  private void updateBits(
+    final JCGLInterfaceGL33Type g)
+  {
+    final JCGLFramebufferUsableType bound =
+      g.framebuffers().framebufferDrawGetBound().orElse(null);
+
+    if (this.bits_valid && bound == this.bits_framebuffer) {
+      return;
+    }
+
+    this.bits_depth = g.depthBuffers().depthBufferGetBits();
+    this.bits_stencil = g.stencilBuffers().stencilBufferGetBits();
+    this.bits_framebuffer = bound;
+    this.bits_valid = true;
+  }
+
+  /**
+   * Forget the most recently applied render state. The next call to {@link
+   * #activate(JCGLInterfaceGL33Type, JCGLRenderStateType)} will apply its
+   * render state unconditionally.
+   */
+
+  public void invalidate()
+  {
+    this.applied_valid = false;
+    this.bits_valid = false;
+    this.bits_framebuffer = null;
+  }
+
+  /**
+   * @return The number of activations that actually applied a render state
+   * since the counters were last reset
+   */
+
+  public long activations()
+  {
+    return this.activations;
+  }
+
+  /**
+   * @return The number of activations that were elided because the render
+   * state was already applied, since the counters were last reset
+   */
+
+  public long activationsAvoided()
+  {
+    return this.activations_avoided;
+  }
+
+  /**
+   * @return The number of parts (blending, culling, color buffer masking,
+   * polygon mode, depth, and stencil) of render states that were applied
+   * since the counters were last reset
+   */
+
+  public long changes()
+  {
+    return this.changes;
+  }
+
+  /**
+   * @return The number of parts (blending, culling, color buffer masking,
+   * polygon mode, depth, and stencil) of render states that were not applied
+   * because they were equal to the applied state, since the counters were
+   * last reset
+   */
+
+  public long changesAvoided()
+  {
+    return this.changes_avoided;
+  }
+
+  /**
+   * Reset the activation counters. This is typically called once per frame.
+   */
+
+  public void resetCounters()
+  {
+    this.activations = 0L;
+    this.activations_avoided = 0L;
+    this.changes = 0L;
+    this.changes_avoided = 0L;
+  }
+}
@@ -23,6 +23,7 @@ import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jregions.core.unparameterized.areas.AreaL;
 import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
 import com.io7m.jregions.core.unparameterized.sizes.AreaSizesL;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 
 /**
@@ -64,14 +65,19 @@ public interface R2RenderTargetUsableType<D extends R2RenderTargetDescriptionTyp
 
   /**
    * Clear the primary framebuffer to render target specific default values,
-   * changing any current render state necessary to achieve this.
+   * changing any current render state necessary to achieve this. The render
+   * state is changed via the given render state tracker, so the tracker
+   * remains consistent with the actual render state.
    *
-   * @param g A GL interface
+   * @param g      A GL interface
+   * @param states A render state tracker
    *
    * @throws R2RendererExceptionFramebufferNotBound If the framebuffer is not
    *                                                bound
    */
 
-  void clearBoundPrimaryFramebuffer(JCGLInterfaceGL33Type g)
+  void clearBoundPrimaryFramebuffer(
+    JCGLInterfaceGL33Type g,
+    R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound;
 }
@@ -36,7 +36,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Pair;
@@ -46,6 +45,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 import com.io7m.r2.rendering.depth.api.R2DepthPrecision;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferDescription;
@@ -267,7 +267,8 @@ public final class R2DepthVarianceBuffer implements R2DepthVarianceBufferType
 
   @Override
   public void clearBoundPrimaryFramebuffer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -282,7 +283,7 @@ public final class R2DepthVarianceBuffer implements R2DepthVarianceBufferType
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 }
@@ -39,7 +39,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Unit;
@@ -51,6 +50,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
 import com.io7m.r2.rendering.depth.api.R2MaterialDepthBatchedType;
@@ -60,6 +60,7 @@ import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceRendererType;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthBatchedUsableType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
 
@@ -77,13 +78,17 @@ public final class R2DepthVarianceRenderer
 {
   private final DepthConsumer depth_consumer;
   private final JCGLInterfaceGL33Type g;
+  private final R2ShaderViewUniformBufferType view_buffer;
   private boolean deleted;
 
   private R2DepthVarianceRenderer(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g = NullCheck.notNull(in_g, "G33");
-    this.depth_consumer = new DepthConsumer(this.g);
+    this.view_buffer = NullCheck.notNull(in_view_buffer, "View buffer");
+    this.depth_consumer = new DepthConsumer(this.g, in_states);
     final JCGLClearSpecification clear = JCGLClearSpecification.of(
       Optional.of(Vector4D.of(1.0, 1.0, 1.0, 1.0)),
       OptionalDouble.of(1.0),
@@ -94,15 +99,19 @@ public final class R2DepthVarianceRenderer
   /**
    * Construct a new renderer.
    *
-   * @param in_g An OpenGL interface
+   * @param in_g           An OpenGL interface
+   * @param in_states      A render state tracker
+   * @param in_view_buffer The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2DepthVarianceRenderer create(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
-    return new R2DepthVarianceRenderer(in_g);
+    return new R2DepthVarianceRenderer(in_g, in_states, in_view_buffer);
   }
 
   @Override
@@ -169,6 +178,7 @@ public final class R2DepthVarianceRenderer
 
     if (s.depthsCount() > 0L) {
       g_v.viewportSet(area);
+      this.view_buffer.update(this.g, m);
 
       this.depth_consumer.matrices = m;
       this.depth_consumer.texture_context = uc;
@@ -209,6 +219,7 @@ public final class R2DepthVarianceRenderer
     }
 
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLShadersType shaders;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
@@ -225,9 +236,11 @@ public final class R2DepthVarianceRenderer
     private @Nullable AreaL viewport_area;
 
     private DepthConsumer(
-      final JCGLInterfaceGL33Type ig)
+      final JCGLInterfaceGL33Type ig,
+      final R2RenderStateTracker is)
     {
       this.g33 = NullCheck.notNull(ig, "G33");
+      this.states = NullCheck.notNull(is, "States");
       this.shaders = this.g33.shaders();
       this.textures = this.g33.textures();
       this.array_objects = this.g33.arrayObjects();
@@ -275,7 +288,7 @@ public final class R2DepthVarianceRenderer
           break;
       }
 
-      JCGLRenderStates.activate(this.g33, this.render_state);
+      this.states.activate(this.g33, this.render_state);
     }
 
     @Override
@@ -16,31 +16,34 @@
 
 package com.io7m.r2.rendering.depth;
 
-import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
 import com.io7m.jcanephora.core.JCGLFaceSelection;
 import com.io7m.jnull.NullCheck;
 import com.io7m.r2.instances.R2ExceptionInstanceAlreadyVisible;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.instances.R2InstanceType;
+import com.io7m.r2.rendering.api.R2DrawKeySorter;
+import com.io7m.r2.rendering.api.R2DrawKeys;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
 import com.io7m.r2.rendering.depth.api.R2MaterialDepthBatchedType;
 import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthBatchedUsableType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
-import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
- * Default implementation of the {@link R2DepthInstancesType} interface.
+ * <p>Default implementation of the {@link R2DepthInstancesType} interface.</p>
+ *
+ * <p>Instances are assigned draw keys (see {@link R2DrawKeys}) consisting of
+ * the shader, the material, and the array object, and are radix sorted by
+ * key when the instances are executed.</p>
  */
 
 public final class R2DepthInstances implements R2DepthInstancesType
@@ -51,14 +54,20 @@ public final class R2DepthInstances implements R2DepthInstancesType
     LOG = LoggerFactory.getLogger(R2DepthInstances.class);
   }
 
-  private final Singles singles;
-  private final Batches batches;
+  private final Entries<R2InstanceSingleType,
+    R2MaterialDepthSingleType<?>,
+    R2ShaderDepthSingleUsableType<?>> singles;
+  private final Entries<R2InstanceBatchedType,
+    R2MaterialDepthBatchedType<?>,
+    R2ShaderDepthBatchedUsableType<?>> batches;
+  private final R2DrawKeySorter sorter;
   private JCGLFaceSelection culling;
 
   private R2DepthInstances()
   {
-    this.singles = new Singles();
-    this.batches = new Batches();
+    this.singles = new Entries<>();
+    this.batches = new Entries<>();
+    this.sorter = R2DrawKeySorter.create();
     this.culling = JCGLFaceSelection.FACE_BACK;
   }
 
@@ -121,40 +130,11 @@ public final class R2DepthInstances implements R2DepthInstancesType
       that are already visible are rejected.
      */
 
-    if (this.singles.instances.containsKey(i_id)) {
+    if (!this.singles.ids.add(i_id)) {
       throw errorInstanceAlreadyVisible(i);
     }
 
-    this.singles.instances.put(i_id, i);
-    this.singles.instance_materials.put(m_id, m);
-    this.singles.instance_shaders.put(s_id, shader);
-    this.singles.instance_to_material.put(i_id, m_id);
-
-    /*
-      Update the set of mappings from materials to instances for the group.
-     */
-
-    final LongSet m_instances;
-    if (this.singles.material_to_instances.containsKey(m_id)) {
-      m_instances = this.singles.material_to_instances.get(m_id);
-    } else {
-      m_instances = new LongOpenHashSet();
-    }
-    m_instances.add(i_id);
-    this.singles.material_to_instances.put(m_id, m_instances);
-
-    /*
-      Update the set of mappings from shaders to materials for the group.
-     */
-
-    final LongSet s_materials;
-    if (this.singles.shader_to_materials.containsKey(s_id)) {
-      s_materials = this.singles.shader_to_materials.get(s_id);
-    } else {
-      s_materials = new LongOpenHashSet();
-    }
-    s_materials.add(m_id);
-    this.singles.shader_to_materials.put(s_id, s_materials);
+    this.singles.add(i, m, shader, s_id, m_id, i.arrayObject().glName());
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -183,46 +163,18 @@ public final class R2DepthInstances implements R2DepthInstancesType
       that are already visible are rejected.
      */
 
-    if (this.batches.instances.containsKey(i_id)) {
+    if (!this.batches.ids.add(i_id)) {
       throw errorInstanceAlreadyVisible(i);
     }
-    this.batches.instances.put(i_id, i);
-
-    /*
-      Insert the instance, material, and shader into the group. Add a
-      mapping from the instance to the material.
-     */
-
-    this.batches.instances.put(i_id, i);
-    this.batches.instance_materials.put(m_id, m);
-    this.batches.instance_shaders.put(s_id, shader);
-    this.batches.instance_to_material.put(i_id, m_id);
-
-    /*
-      Update the set of mappings from materials to instances for the group.
-     */
-
-    final LongSet m_instances;
-    if (this.batches.material_to_instances.containsKey(m_id)) {
-      m_instances = this.batches.material_to_instances.get(m_id);
-    } else {
-      m_instances = new LongOpenHashSet();
-    }
-    m_instances.add(i_id);
-    this.batches.material_to_instances.put(m_id, m_instances);
 
     /*
-      Update the set of mappings from shaders to materials for the group.
+      Batched instances can be rendered in any order, because each
+      batched instance is expected to have its own vertex array object.
+      There are no efficiency gains to be made by imposing any particular
+      order, so the array object is not included in the key.
      */
 
-    final LongSet s_materials;
-    if (this.batches.shader_to_materials.containsKey(s_id)) {
-      s_materials = this.batches.shader_to_materials.get(s_id);
-    } else {
-      s_materials = new LongOpenHashSet();
-    }
-    s_materials.add(m_id);
-    this.batches.shader_to_materials.put(s_id, s_materials);
+    this.batches.add(i, m, shader, s_id, m_id, 0);
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -239,6 +191,9 @@ public final class R2DepthInstances implements R2DepthInstancesType
   {
     NullCheck.notNull(c, "Instances");
 
+    this.batches.sort(this.sorter);
+    this.singles.sort(this.sorter);
+
     c.onStart();
     this.depthsExecuteBatchedInstancesUpdate(c);
     this.depthsExecuteBatched(c);
@@ -250,16 +205,21 @@ public final class R2DepthInstances implements R2DepthInstancesType
   private void depthsExecuteSingles(
     final R2DepthInstancesConsumerType c)
   {
+    final Entries<R2InstanceSingleType,
+      R2MaterialDepthSingleType<?>,
+      R2ShaderDepthSingleUsableType<?>> e = this.singles;
+
+    final int end = e.size;
+    int index = 0;
+
     /*
       For each single instance shader {@code s}...
      */
 
-    final ObjectIterator<R2ShaderDepthSingleUsableType<?>> bs_iter =
-      this.singles.instance_shaders.values().iterator();
-
-    while (bs_iter.hasNext()) {
+    while (index < end) {
+      final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
       final R2ShaderDepthSingleUsableType<Object> s =
-        (R2ShaderDepthSingleUsableType<Object>) bs_iter.next();
+        (R2ShaderDepthSingleUsableType<Object>) e.shader(e.order[index]);
 
       c.onInstanceSingleShaderStart(s);
 
@@ -267,52 +227,30 @@ public final class R2DepthInstances implements R2DepthInstancesType
         For each material {@code m} using the shader {@code s}...
        */
 
-      final LongSet s_materials =
-        this.singles.shader_to_materials.get(s.shaderID());
-
-      for (final long m_id : s_materials) {
+      while (index < end
+        && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+        final long m_key = R2DrawKeys.materialPrefix(e.sorted_keys[index]);
         final R2MaterialDepthSingleType<Object> material =
-          (R2MaterialDepthSingleType<Object>)
-            this.singles.instance_materials.get(m_id);
-        c.onInstanceSingleMaterialStart(material);
-
-        /*
-          Sort the instances by their array object instances, to allow
-          for rendering with the fewest number of array object binds.
-         */
-
-        final LongSet m_instances =
-          this.singles.material_to_instances.get(m_id);
+          (R2MaterialDepthSingleType<Object>) e.material(e.order[index]);
 
-        this.singles.instances_sorted.clear();
-        for (final long i_id : m_instances) {
-          final R2InstanceSingleType i = this.singles.instances.get(i_id);
-          this.singles.instances_sorted.add(i);
-        }
-
-        this.singles.instances_sorted.sort((a, b) -> {
-          final JCGLArrayObjectUsableType ao = a.arrayObject();
-          final JCGLArrayObjectUsableType bo = b.arrayObject();
-          return Integer.compare(ao.glName(), bo.glName());
-        });
+        c.onInstanceSingleMaterialStart(material);
 
         /*
-          Render all instances with the minimum number of array object
-          bindings.
+          The instances are sorted by their array objects, so render all
+          instances with the minimum number of array object bindings.
          */
 
         int current_array = -1;
-        final int sorted_size = this.singles.instances_sorted.size();
-        for (int index = 0; index < sorted_size; ++index) {
-          final R2InstanceSingleType i =
-            this.singles.instances_sorted.get(index);
-          final JCGLArrayObjectUsableType array_object = i.arrayObject();
-          final int next_array = array_object.glName();
+        while (index < end
+          && R2DrawKeys.materialPrefix(e.sorted_keys[index]) == m_key) {
+          final R2InstanceSingleType i = e.instance(e.order[index]);
+          final int next_array = R2DrawKeys.array(e.sorted_keys[index]);
           if (next_array != current_array) {
             c.onInstanceSingleArrayStart(i);
           }
           current_array = next_array;
           c.onInstanceSingle(material, i);
+          ++index;
         }
 
         c.onInstanceSingleMaterialFinish(material);
@@ -325,12 +263,9 @@ public final class R2DepthInstances implements R2DepthInstancesType
   private void depthsExecuteBatchedInstancesUpdate(
     final R2DepthInstancesConsumerType c)
   {
-    final LongIterator b_iter =
-      this.batches.instances.keySet().iterator();
-
-    while (b_iter.hasNext()) {
-      final long b_id = b_iter.nextLong();
-      c.onInstanceBatchedUpdate(this.batches.instances.get(b_id));
+    final int size = this.batches.size;
+    for (int index = 0; index < size; ++index) {
+      c.onInstanceBatchedUpdate(this.batches.instance(index));
     }
   }
 
@@ -338,16 +273,21 @@ public final class R2DepthInstances implements R2DepthInstancesType
   private void depthsExecuteBatched(
     final R2DepthInstancesConsumerType c)
   {
+    final Entries<R2InstanceBatchedType,
+      R2MaterialDepthBatchedType<?>,
+      R2ShaderDepthBatchedUsableType<?>> e = this.batches;
+
+    final int end = e.size;
+    int index = 0;
+
     /*
       For each shader {@code s}...
      */
 
-    final ObjectIterator<R2ShaderDepthBatchedUsableType<?>> bs_iter =
-      this.batches.instance_shaders.values().iterator();
-
-    while (bs_iter.hasNext()) {
+    while (index < end) {
+      final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
       final R2ShaderDepthBatchedUsableType<Object> s =
-        (R2ShaderDepthBatchedUsableType<Object>) bs_iter.next();
+        (R2ShaderDepthBatchedUsableType<Object>) e.shader(e.order[index]);
 
       c.onInstanceBatchedShaderStart(s);
 
@@ -355,30 +295,18 @@ public final class R2DepthInstances implements R2DepthInstancesType
         For each material {@code m} using the shader {@code s}...
        */
 
-      final LongSet s_materials =
-        this.batches.shader_to_materials.get(s.shaderID());
-
-      for (final long m_id : s_materials) {
+      while (index < end
+        && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+        final long m_key = R2DrawKeys.materialPrefix(e.sorted_keys[index]);
         final R2MaterialDepthBatchedType<Object> material =
-          (R2MaterialDepthBatchedType<Object>)
-            this.batches.instance_materials.get(m_id);
-        c.onInstanceBatchedMaterialStart(material);
-
-        /*
-          Render all instances.
-
-          Batched instances can be rendered in any order, because each
-          batched instance is expected to have its own vertex array object.
-          There are no efficiency gains to be made by imposing any particular
-          order.
-         */
+          (R2MaterialDepthBatchedType<Object>) e.material(e.order[index]);
 
-        final LongSet m_instances =
-          this.batches.material_to_instances.get(m_id);
+        c.onInstanceBatchedMaterialStart(material);
 
-        for (final long id : m_instances) {
-          final R2InstanceBatchedType i = this.batches.instances.get(id);
-          c.onInstanceBatched(material, i);
+        while (index < end
+          && R2DrawKeys.materialPrefix(e.sorted_keys[index]) == m_key) {
+          c.onInstanceBatched(material, e.instance(e.order[index]));
+          ++index;
         }
 
         c.onInstanceBatchedMaterialFinish(material);
@@ -391,83 +319,180 @@ public final class R2DepthInstances implements R2DepthInstancesType
   @Override
   public long depthsCount()
   {
-    final long sc = (long) this.singles.instances.size();
-    final long bc = (long) this.batches.instances.size();
+    final long sc = (long) this.singles.size;
+    final long bc = (long) this.batches.size;
     return sc + bc;
   }
 
-  private static final class Singles
+  /**
+   * A set of instances of a single kind, stored in parallel arrays and
+   * indexed by draw keys.
+   *
+   * @param <I> The type of instances
+   * @param <M> The type of materials
+   * @param <S> The type of shaders
+   */
+
+  private static final class Entries<I, M, S>
   {
-    private final Long2LongOpenHashMap
-      instance_to_material;
-    private final Long2ReferenceOpenHashMap<LongSet>
-      material_to_instances;
-    private final Long2ReferenceOpenHashMap<LongSet>
-      shader_to_materials;
-    private final Long2ReferenceOpenHashMap<R2MaterialDepthSingleType<?>>
-      instance_materials;
-    private final Long2ReferenceOpenHashMap<R2ShaderDepthSingleUsableType<?>>
-      instance_shaders;
-    private final Long2ReferenceOpenHashMap<R2InstanceSingleType>
-      instances;
-    private final ObjectArrayList<R2InstanceSingleType>
-      instances_sorted;
-
-    Singles()
+    private final LongOpenHashSet ids;
+    private final Long2IntOpenHashMap shader_ordinals;
+    private final Long2IntOpenHashMap material_ordinals;
+    private final Int2IntOpenHashMap array_ordinals;
+    private Object[] instances;
+    private Object[] materials;
+    private Object[] shaders;
+    private long[] keys;
+    private int[] ordinals;
+    private long[] sorted_keys;
+    private int[] order;
+    private int size;
+    private boolean overflowed;
+
+    Entries()
     {
-      this.instances = new Long2ReferenceOpenHashMap<>(1024);
-      this.instance_to_material = new Long2LongOpenHashMap(1024);
-      this.material_to_instances = new Long2ReferenceOpenHashMap<>(1024);
-      this.shader_to_materials = new Long2ReferenceOpenHashMap<>(1024);
-      this.instance_materials = new Long2ReferenceOpenHashMap<>(1024);
-      this.instance_shaders = new Long2ReferenceOpenHashMap<>(1024);
-      this.instances_sorted = new ObjectArrayList<>();
+      this.ids = new LongOpenHashSet(1024);
+      this.shader_ordinals = new Long2IntOpenHashMap(64);
+      this.shader_ordinals.defaultReturnValue(-1);
+      this.material_ordinals = new Long2IntOpenHashMap(256);
+      this.material_ordinals.defaultReturnValue(-1);
+      this.array_ordinals = new Int2IntOpenHashMap(256);
+      this.array_ordinals.defaultReturnValue(-1);
+
+      this.instances = new Object[1024];
+      this.materials = new Object[1024];
+      this.shaders = new Object[1024];
+      this.keys = new long[1024];
+      this.ordinals = new int[1024 * R2DrawKeySorter.ORDINALS_PER_ELEMENT];
+      this.sorted_keys = new long[1024];
+      this.order = new int[1024];
+      this.size = 0;
     }
 
-    void clear()
+    @SuppressWarnings("unchecked")
+    I instance(final int index)
     {
-      this.instance_to_material.clear();
-      this.material_to_instances.clear();
-      this.shader_to_materials.clear();
-      this.instance_materials.clear();
-      this.instance_shaders.clear();
-      this.instances.clear();
+      return (I) this.instances[index];
     }
-  }
 
-  private static final class Batches
-  {
-    private final Long2LongOpenHashMap instance_to_material;
-    private final Long2ReferenceOpenHashMap<LongSet>
-      material_to_instances;
-    private final Long2ReferenceOpenHashMap<LongSet>
-      shader_to_materials;
-    private final Long2ReferenceOpenHashMap<R2MaterialDepthBatchedType<?>>
-      instance_materials;
-    private final Long2ReferenceOpenHashMap<R2ShaderDepthBatchedUsableType<?>>
-      instance_shaders;
-    private final Long2ReferenceOpenHashMap<R2InstanceBatchedType>
-      instances;
-
-    Batches()
+    @SuppressWarnings("unchecked")
+    M material(final int index)
     {
-      this.instance_to_material = new Long2LongOpenHashMap(1024);
-      this.material_to_instances = new Long2ReferenceOpenHashMap<>(1024);
-      this.shader_to_materials = new Long2ReferenceOpenHashMap<>(1024);
-      this.instance_materials = new Long2ReferenceOpenHashMap<>(1024);
-      this.instance_shaders = new Long2ReferenceOpenHashMap<>(1024);
-      this.instances = new Long2ReferenceOpenHashMap<>(1024);
+      return (M) this.materials[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    S shader(final int index)
+    {
+      return (S) this.shaders[index];
     }
 
     void clear()
     {
-      this.instance_to_material.clear();
-      this.shader_to_materials.clear();
-      this.instance_materials.clear();
-      this.instance_shaders.clear();
-      this.instances.clear();
-      this.material_to_instances.clear();
+      Arrays.fill(this.instances, 0, this.size, null);
+      Arrays.fill(this.materials, 0, this.size, null);
+      Arrays.fill(this.shaders, 0, this.size, null);
+      this.ids.clear();
+      this.shader_ordinals.clear();
+      this.material_ordinals.clear();
+      this.array_ordinals.clear();
+      this.size = 0;
+      this.overflowed = false;
+    }
+
+    private static int ordinal(
+      final Long2IntOpenHashMap ordinals,
+      final long id)
+    {
+      final int existing = ordinals.get(id);
+      if (existing != -1) {
+        return existing;
+      }
+
+      final int fresh = ordinals.size();
+      ordinals.put(id, fresh);
+      return fresh;
+    }
+
+    private int arrayOrdinal(
+      final int array)
+    {
+      final int existing = this.array_ordinals.get(array);
+      if (existing != -1) {
+        return existing;
+      }
+
+      final int fresh = this.array_ordinals.size();
+      this.array_ordinals.put(array, fresh);
+      return fresh;
     }
-  }
 
+    void add(
+      final I instance,
+      final M material,
+      final S shader,
+      final long shader_id,
+      final long material_id,
+      final int array)
+    {
+      final int s_ord = ordinal(this.shader_ordinals, shader_id);
+      final int m_ord = ordinal(this.material_ordinals, material_id);
+      final int a_ord = this.arrayOrdinal(array);
+
+      /*
+       * If the ordinals are too large to be encoded in a draw key, the
+       * entries are sorted by their ordinals instead for the rest of the
+       * frame.
+       */
+
+      final long key;
+      if (R2DrawKeys.ordinalsFit(s_ord, m_ord, a_ord)) {
+        key = R2DrawKeys.pack(0, s_ord, m_ord, a_ord);
+      } else {
+        key = 0L;
+        this.overflowed = true;
+      }
+
+      if (this.size == this.keys.length) {
+        final int capacity = this.size * 2;
+        this.instances = Arrays.copyOf(this.instances, capacity);
+        this.materials = Arrays.copyOf(this.materials, capacity);
+        this.shaders = Arrays.copyOf(this.shaders, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.ordinals = Arrays.copyOf(
+          this.ordinals, capacity * R2DrawKeySorter.ORDINALS_PER_ELEMENT);
+        this.sorted_keys = new long[capacity];
+        this.order = new int[capacity];
+      }
+
+      final int index = this.size;
+      this.instances[index] = instance;
+      this.materials[index] = material;
+      this.shaders[index] = shader;
+      this.keys[index] = key;
+
+      final int o = index * R2DrawKeySorter.ORDINALS_PER_ELEMENT;
+      this.ordinals[o] = 0;
+      this.ordinals[o + 1] = s_ord;
+      this.ordinals[o + 2] = m_ord;
+      this.ordinals[o + 3] = a_ord;
+
+      this.size = index + 1;
+    }
+
+    void sort(
+      final R2DrawKeySorter sorter)
+    {
+      if (this.overflowed) {
+        sorter.sortOrdinals(
+          this.ordinals, this.sorted_keys, this.order, this.size);
+      } else {
+        System.arraycopy(this.keys, 0, this.sorted_keys, 0, this.size);
+        for (int index = 0; index < this.size; ++index) {
+          this.order[index] = index;
+        }
+        sorter.sort(this.sorted_keys, this.order, this.size);
+      }
+    }
+  }
 }
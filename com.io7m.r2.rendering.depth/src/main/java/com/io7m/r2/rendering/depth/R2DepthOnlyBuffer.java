@@ -34,7 +34,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Pair;
@@ -43,6 +42,7 @@ import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 import com.io7m.r2.rendering.depth.api.R2DepthOnlyBufferDescription;
 import com.io7m.r2.rendering.depth.api.R2DepthOnlyBufferType;
@@ -196,7 +196,8 @@ public final class R2DepthOnlyBuffer implements R2DepthOnlyBufferType
 
   @Override
   public void clearBoundPrimaryFramebuffer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -211,7 +212,7 @@ public final class R2DepthOnlyBuffer implements R2DepthOnlyBufferType
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 
@@ -38,7 +38,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Unit;
@@ -49,6 +48,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
 import com.io7m.r2.rendering.depth.api.R2DepthOnlyBufferUsableType;
@@ -58,6 +58,7 @@ import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthBatchedUsableType;
 import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
 
@@ -71,27 +72,35 @@ public final class R2DepthOnlyRenderer implements R2DepthRendererType
 {
   private final DepthConsumer depth_consumer;
   private final JCGLInterfaceGL33Type g;
+  private final R2ShaderViewUniformBufferType view_buffer;
   private boolean deleted;
 
   private R2DepthOnlyRenderer(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g = NullCheck.notNull(in_g, "G33");
-    this.depth_consumer = new DepthConsumer(this.g);
+    this.view_buffer = NullCheck.notNull(in_view_buffer, "View buffer");
+    this.depth_consumer = new DepthConsumer(this.g, in_states);
   }
 
   /**
    * Construct a new renderer.
    *
-   * @param in_g An OpenGL interface
+   * @param in_g           An OpenGL interface
+   * @param in_states      A render state tracker
+   * @param in_view_buffer The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2DepthOnlyRenderer create(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
-    return new R2DepthOnlyRenderer(in_g);
+    return new R2DepthOnlyRenderer(in_g, in_states, in_view_buffer);
   }
 
   @Override
@@ -158,6 +167,7 @@ public final class R2DepthOnlyRenderer implements R2DepthRendererType
 
     if (s.depthsCount() > 0L) {
       g_v.viewportSet(area);
+      this.view_buffer.update(this.g, m);
 
       this.depth_consumer.matrices = m;
       this.depth_consumer.texture_context = uc;
@@ -198,6 +208,7 @@ public final class R2DepthOnlyRenderer implements R2DepthRendererType
     }
 
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLShadersType shaders;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
@@ -214,9 +225,11 @@ public final class R2DepthOnlyRenderer implements R2DepthRendererType
     private @Nullable AreaL viewport_area;
 
     private DepthConsumer(
-      final JCGLInterfaceGL33Type ig)
+      final JCGLInterfaceGL33Type ig,
+      final R2RenderStateTracker is)
     {
       this.g33 = NullCheck.notNull(ig, "GL33");
+      this.states = NullCheck.notNull(is, "States");
       this.shaders = this.g33.shaders();
       this.textures = this.g33.textures();
       this.array_objects = this.g33.arrayObjects();
@@ -266,7 +279,7 @@ public final class R2DepthOnlyRenderer implements R2DepthRendererType
           break;
       }
 
-      JCGLRenderStates.activate(this.g33, this.render_state);
+      this.states.activate(this.g33, this.render_state);
     }
 
     @Override
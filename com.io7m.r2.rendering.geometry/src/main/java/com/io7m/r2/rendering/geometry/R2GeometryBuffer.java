@@ -37,7 +37,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.renderstate.JCGLStencilState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -52,6 +51,7 @@ import com.io7m.r2.rendering.geometry.api.R2GeometryBufferType;
 import com.io7m.r2.textures.R2Texture2DStatic;
 import com.io7m.r2.textures.R2Texture2DType;
 import com.io7m.r2.textures.R2Texture2DUsableType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 
 import java.util.List;
@@ -342,7 +342,8 @@ public final class R2GeometryBuffer implements R2GeometryBufferType
 
   @Override
   public void clearBoundPrimaryFramebuffer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -357,7 +358,7 @@ public final class R2GeometryBuffer implements R2GeometryBufferType
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 
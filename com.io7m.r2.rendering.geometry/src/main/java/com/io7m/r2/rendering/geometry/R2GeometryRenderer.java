@@ -39,7 +39,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.renderstate.JCGLStencilStateMutable;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -52,6 +51,7 @@ import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceBillboardedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.rendering.geometry.api.R2GeometryRendererType;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
@@ -66,6 +66,7 @@ import com.io7m.r2.shaders.api.R2ShaderInstanceSingleUsableType;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,13 +87,17 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
   private final OpaqueConsumer opaque_consumer;
   private final JCGLInterfaceGL33Type g;
   private final JCGLRenderState render_state_base;
+  private final R2ShaderViewUniformBufferType view_buffer;
   private boolean deleted;
 
   private R2GeometryRenderer(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g = NullCheck.notNull(in_g, "G33");
-    this.opaque_consumer = new OpaqueConsumer(this.g);
+    this.view_buffer = NullCheck.notNull(in_view_buffer, "View buffer");
+    this.opaque_consumer = new OpaqueConsumer(this.g, in_states);
 
     {
       final JCGLRenderState.Builder b = JCGLRenderState.builder();
@@ -123,15 +128,19 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
   /**
    * Construct a new renderer.
    *
-   * @param in_g An OpenGL interface
+   * @param in_g           An OpenGL interface
+   * @param in_states      A render state tracker
+   * @param in_view_buffer The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2GeometryRenderer create(
-    final JCGLInterfaceGL33Type in_g)
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
-    return new R2GeometryRenderer(in_g);
+    return new R2GeometryRenderer(in_g, in_states, in_view_buffer);
   }
 
   @Override
@@ -163,6 +172,7 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
 
       if (s.opaquesCount() > 0L) {
         g_v.viewportSet(area);
+        this.view_buffer.update(this.g, m);
 
         this.opaque_consumer.render_state.from(this.render_state_base);
         this.opaque_consumer.matrices = m;
@@ -199,6 +209,7 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
     R2SceneOpaquesConsumerType
   {
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLShadersType shaders;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
@@ -215,9 +226,11 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
     private @Nullable AreaL gbuffer_area;
 
     private OpaqueConsumer(
-      final JCGLInterfaceGL33Type ig)
+      final JCGLInterfaceGL33Type ig,
+      final R2RenderStateTracker is)
     {
       this.g33 = NullCheck.notNull(ig, "G33");
+      this.states = NullCheck.notNull(is, "States");
       this.shaders = this.g33.shaders();
       this.textures = this.g33.textures();
       this.array_objects = this.g33.arrayObjects();
@@ -264,7 +277,7 @@ public final class R2GeometryRenderer implements R2GeometryRendererType
       this.stencil_state.setStencilEnabled(true);
       this.render_state.setStencilState(this.stencil_state);
 
-      JCGLRenderStates.activate(this.g33, this.render_state);
+      this.states.activate(this.g33, this.render_state);
     }
 
     @Override
@@ -17,13 +17,14 @@
 package com.io7m.r2.rendering.geometry;
 
 import com.io7m.jaffirm.core.Preconditions;
-import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
 import com.io7m.jnull.NullCheck;
 import com.io7m.r2.instances.R2ExceptionInstanceAlreadyVisible;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceBillboardedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.instances.R2InstanceType;
+import com.io7m.r2.rendering.api.R2DrawKeySorter;
+import com.io7m.r2.rendering.api.R2DrawKeys;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
 import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
@@ -33,17 +34,27 @@ import com.io7m.r2.rendering.stencil.api.R2Stencils;
 import com.io7m.r2.shaders.api.R2ShaderInstanceBatchedUsableType;
 import com.io7m.r2.shaders.api.R2ShaderInstanceBillboardedUsableType;
 import com.io7m.r2.shaders.api.R2ShaderInstanceSingleUsableType;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
- * Default implementation of the {@link R2SceneOpaquesType} interface.
+ * <p>Default implementation of the {@link R2SceneOpaquesType} interface.</p>
+ *
+ * <p>Instances are stored in flat arrays that are reused across calls to
+ * {@link #opaquesReset()}. Each instance is assigned a draw key (see
+ * {@link R2DrawKeys}) consisting of the stencil group, the shader, the
+ * material, and the array object. Shaders, materials, and array objects are
+ * identified by small ordinals that are assigned in the order that they are
+ * first seen after a reset. The instances are radix sorted once by key when
+ * the scene is executed, and runs of equal shaders, materials, and array
+ * objects are then delivered to the consumer without any further lookups.
+ * Once the internal arrays have grown to accommodate the largest scene,
+ * adding and executing instances does not allocate.</p>
  */
 
 public final class R2SceneOpaques implements R2SceneOpaquesType
@@ -52,17 +63,30 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
 
   static {
     LOG = LoggerFactory.getLogger(R2SceneOpaques.class);
+
+    Preconditions.checkPreconditionI(
+      R2Stencils.maximumGroups(),
+      R2Stencils.maximumGroups() <= 1 << R2DrawKeys.GROUP_BITS,
+      x -> "Stencil groups must fit into the group bits of a draw key");
   }
 
-  private final Singles singles;
-  private final Batches batches;
-  private final Billboards billboards;
+  private final Entries<R2InstanceSingleType,
+    R2MaterialOpaqueSingleType<?>,
+    R2ShaderInstanceSingleUsableType<?>> singles;
+  private final Entries<R2InstanceBatchedType,
+    R2MaterialOpaqueBatchedType<?>,
+    R2ShaderInstanceBatchedUsableType<?>> batches;
+  private final Entries<R2InstanceBillboardedType,
+    R2MaterialOpaqueBillboardedType<?>,
+    R2ShaderInstanceBillboardedUsableType<?>> billboards;
+  private final R2DrawKeySorter sorter;
 
   private R2SceneOpaques()
   {
-    this.singles = new Singles();
-    this.batches = new Batches();
-    this.billboards = new Billboards();
+    this.singles = new Entries<>();
+    this.batches = new Entries<>();
+    this.billboards = new Entries<>();
+    this.sorter = R2DrawKeySorter.create();
   }
 
   /**
@@ -110,56 +134,15 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
     final long s_id = shader.shaderID();
 
     /*
-     * Insert the instance into the set of all single instances. Instances
-     * that are already visible are rejected.
+     * Instances that are already visible are rejected.
      */
 
-    if (this.singles.instances.containsKey(i_id)) {
+    if (!this.singles.ids.add(i_id)) {
       throw errorInstanceAlreadyVisible(i);
     }
-    this.singles.instances.put(i_id, i);
-
-    /*
-     * Insert the instance, material, and shader into the group. Add a
-     * mapping from the instance to the material.
-     */
-
-    final Singles.Group g = this.singles.groups[group];
-
-    Preconditions.checkPrecondition(
-      !g.instances.containsKey(i_id),
-      "Group must not contain instance");
-
-    this.singles.group_max = Math.max(this.singles.group_max, group + 1);
-    g.instances.put(i_id, i);
-    g.instance_materials.put(m_id, m);
-    g.instance_shaders.put(s_id, shader);
-
-    /*
-     * Update the set of mappings from materials to instances for the group.
-     */
-
-    final LongSet m_instances;
-    if (g.material_to_instances.containsKey(m_id)) {
-      m_instances = g.material_to_instances.get(m_id);
-    } else {
-      m_instances = new LongOpenHashSet();
-    }
-    m_instances.add(i_id);
-    g.material_to_instances.put(m_id, m_instances);
 
-    /*
-     * Update the set of mappings from shaders to materials for the group.
-     */
-
-    final LongSet s_materials;
-    if (g.shader_to_materials.containsKey(s_id)) {
-      s_materials = g.shader_to_materials.get(s_id);
-    } else {
-      s_materials = new LongOpenHashSet();
-    }
-    s_materials.add(m_id);
-    g.shader_to_materials.put(s_id, s_materials);
+    this.singles.add(
+      i, m, shader, s_id, m_id, i.arrayObject().glName(), group);
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -187,56 +170,21 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
     final long s_id = shader.shaderID();
 
     /*
-     * Insert the instance into the set of all batched instances. Instances
-     * that are already visible are rejected.
+     * Instances that are already visible are rejected.
      */
 
-    if (this.batches.instances.containsKey(i_id)) {
+    if (!this.batches.ids.add(i_id)) {
       throw errorInstanceAlreadyVisible(i);
     }
-    this.batches.instances.put(i_id, i);
 
     /*
-     * Insert the instance, material, and shader into the group. Add a
-     * mapping from the instance to the material.
+     * Batched instances can be rendered in any order within a material,
+     * because each batched instance is expected to have its own vertex array
+     * object. There are no efficiency gains to be made by imposing any
+     * particular order, so the array object is not included in the key.
      */
 
-    final Batches.Group g = this.batches.groups[group];
-
-    Preconditions.checkPrecondition(
-      !g.instances.containsKey(i_id),
-      "Group must not contain instance");
-
-    this.batches.group_max = Math.max(this.batches.group_max, group + 1);
-    g.instances.put(i_id, i);
-    g.instance_materials.put(m_id, m);
-    g.instance_shaders.put(s_id, shader);
-
-    /*
-     * Update the set of mappings from materials to instances for the group.
-     */
-
-    final LongSet m_instances;
-    if (g.material_to_instances.containsKey(m_id)) {
-      m_instances = g.material_to_instances.get(m_id);
-    } else {
-      m_instances = new LongOpenHashSet();
-    }
-    m_instances.add(i_id);
-    g.material_to_instances.put(m_id, m_instances);
-
-    /*
-     * Update the set of mappings from shaders to materials for the group.
-     */
-
-    final LongSet s_materials;
-    if (g.shader_to_materials.containsKey(s_id)) {
-      s_materials = g.shader_to_materials.get(s_id);
-    } else {
-      s_materials = new LongOpenHashSet();
-    }
-    s_materials.add(m_id);
-    g.shader_to_materials.put(s_id, s_materials);
+    this.batches.add(i, m, shader, s_id, m_id, 0, group);
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -264,56 +212,14 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
     final long s_id = shader.shaderID();
 
     /*
-     * Insert the instance into the set of all billboarded instances. Instances
-     * that are already visible are rejected.
+     * Instances that are already visible are rejected.
      */
 
-    if (this.billboards.instances.containsKey(i_id)) {
+    if (!this.billboards.ids.add(i_id)) {
       throw errorInstanceAlreadyVisible(i);
     }
-    this.billboards.instances.put(i_id, i);
-
-    /*
-     * Insert the instance, material, and shader into the group. Add a
-     * mapping from the instance to the material.
-     */
-
-    final Billboards.Group g = this.billboards.groups[group];
-
-    Preconditions.checkPrecondition(
-      !g.instances.containsKey(i_id),
-      "Group must not contain instance");
-
-    this.billboards.group_max = Math.max(this.billboards.group_max, group + 1);
-    g.instances.put(i_id, i);
-    g.instance_materials.put(m_id, m);
-    g.instance_shaders.put(s_id, shader);
-
-    /*
-     * Update the set of mappings from materials to instances for the group.
-     */
-
-    final LongSet m_instances;
-    if (g.material_to_instances.containsKey(m_id)) {
-      m_instances = g.material_to_instances.get(m_id);
-    } else {
-      m_instances = new LongOpenHashSet();
-    }
-    m_instances.add(i_id);
-    g.material_to_instances.put(m_id, m_instances);
-
-    /*
-     * Update the set of mappings from shaders to materials for the group.
-     */
 
-    final LongSet s_materials;
-    if (g.shader_to_materials.containsKey(s_id)) {
-      s_materials = g.shader_to_materials.get(s_id);
-    } else {
-      s_materials = new LongOpenHashSet();
-    }
-    s_materials.add(m_id);
-    g.shader_to_materials.put(s_id, s_materials);
+    this.billboards.add(i, m, shader, s_id, m_id, 0, group);
 
     if (LOG.isTraceEnabled()) {
       LOG.trace(
@@ -331,6 +237,10 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
   {
     c.onStart();
 
+    this.batches.sort(this.sorter);
+    this.billboards.sort(this.sorter);
+    this.singles.sort(this.sorter);
+
     /*
      * Update all the batched instances.
      */
@@ -351,34 +261,28 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
      * 3. The single instances
      */
 
-    int max = 0;
-    max = Math.max(max, this.batches.group_max);
-    max = Math.max(max, this.singles.group_max);
-    max = Math.max(max, this.billboards.group_max);
-
+    final int max = R2Stencils.maximumGroups();
     for (int index = 1; index < max; ++index) {
-      final Batches.Group g_batch = this.batches.groups[index];
-      final Billboards.Group g_bill = this.billboards.groups[index];
-      final Singles.Group g_single = this.singles.groups[index];
+      final boolean has_batches = this.batches.groupNonEmpty(index);
+      final boolean has_bills = this.billboards.groupNonEmpty(index);
+      final boolean has_singles = this.singles.groupNonEmpty(index);
 
-      if (g_batch.instances.isEmpty()
-        && g_single.instances.isEmpty()
-        && g_bill.instances.isEmpty()) {
+      if (!has_batches && !has_bills && !has_singles) {
         continue;
       }
 
       c.onStartGroup(index);
 
-      if (!g_batch.instances.isEmpty()) {
-        this.opaquesExecuteGroupBatched(c, g_batch);
+      if (has_batches) {
+        this.opaquesExecuteGroupBatched(c, index);
       }
 
-      if (!g_bill.instances.isEmpty()) {
-        this.opaquesExecuteGroupBillboarded(c, g_bill);
+      if (has_bills) {
+        this.opaquesExecuteGroupBillboarded(c, index);
       }
 
-      if (!g_single.instances.isEmpty()) {
-        this.opaquesExecuteGroupSingle(c, g_single);
+      if (has_singles) {
+        this.opaquesExecuteGroupSingle(c, index);
       }
 
       c.onFinishGroup(index);
@@ -390,42 +294,42 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
   private void opaquesExecuteBillboardedInstancesUpdate(
     final R2SceneOpaquesConsumerType c)
   {
-    final LongIterator b_iter =
-      this.billboards.instances.keySet().iterator();
-
-    while (b_iter.hasNext()) {
-      final long b_id = b_iter.nextLong();
-      c.onInstanceBillboardedUpdate(this.billboards.instances.get(b_id));
+    final int size = this.billboards.size;
+    for (int index = 0; index < size; ++index) {
+      c.onInstanceBillboardedUpdate(this.billboards.instance(index));
     }
   }
 
   private void opaquesExecuteBatchedInstancesUpdate(
     final R2SceneOpaquesConsumerType c)
   {
-    final LongIterator b_iter =
-      this.batches.instances.keySet().iterator();
-
-    while (b_iter.hasNext()) {
-      final long b_id = b_iter.nextLong();
-      c.onInstanceBatchedUpdate(this.batches.instances.get(b_id));
+    final int size = this.batches.size;
+    for (int index = 0; index < size; ++index) {
+      c.onInstanceBatchedUpdate(this.batches.instance(index));
     }
   }
 
   @SuppressWarnings("unchecked")
   private void opaquesExecuteGroupSingle(
     final R2SceneOpaquesConsumerType c,
-    final Singles.Group g)
+    final int group)
   {
+    final Entries<R2InstanceSingleType,
+      R2MaterialOpaqueSingleType<?>,
+      R2ShaderInstanceSingleUsableType<?>> e = this.singles;
+
+    final int end = e.group_ends[group];
+    int index = e.group_starts[group];
+
     /*
      * For each single instance shader {@code s}...
      */
 
-    final ObjectIterator<R2ShaderInstanceSingleUsableType<?>> bs_iter =
-      g.instance_shaders.values().iterator();
-
-    while (bs_iter.hasNext()) {
+    while (index < end) {
+      final int s_entry = e.order[index];
+      final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
       final R2ShaderInstanceSingleUsableType<Object> s =
-        (R2ShaderInstanceSingleUsableType<Object>) bs_iter.next();
+        (R2ShaderInstanceSingleUsableType<Object>) e.shader(s_entry);
 
       c.onInstanceSingleShaderStart(s);
 
@@ -433,51 +337,31 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
        * For each material {@code m} using the shader {@code s}...
        */
 
-      final LongSet s_materials =
-        g.shader_to_materials.get(s.shaderID());
-
-      for (final long m_id : s_materials) {
+      while (index < end
+        && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+        final int m_entry = e.order[index];
+        final long m_key = R2DrawKeys.materialPrefix(e.sorted_keys[index]);
         final R2MaterialOpaqueSingleType<Object> material =
-          (R2MaterialOpaqueSingleType<Object>) g.instance_materials.get(m_id);
-        c.onInstanceSingleMaterialStart(material);
+          (R2MaterialOpaqueSingleType<Object>) e.material(m_entry);
 
-        /*
-         * Sort the instances by their array object instances, to allow
-         * for rendering with the fewest number of array object binds.
-         */
-
-        final LongSet m_instances =
-          g.material_to_instances.get(m_id);
-
-        this.singles.instances_sorted.clear();
-        for (final long i_id : m_instances) {
-          final R2InstanceSingleType i = g.instances.get(i_id);
-          this.singles.instances_sorted.add(i);
-        }
-
-        this.singles.instances_sorted.sort((a, b) -> {
-          final JCGLArrayObjectUsableType ao = a.arrayObject();
-          final JCGLArrayObjectUsableType bo = b.arrayObject();
-          return Integer.compare(ao.glName(), bo.glName());
-        });
+        c.onInstanceSingleMaterialStart(material);
 
         /*
-         * Render all instances with the minimum number of array object
-         * bindings.
+         * The instances are sorted by their array objects, so render all
+         * instances with the minimum number of array object bindings.
          */
 
         int current_array = -1;
-        final int sorted_size = this.singles.instances_sorted.size();
-        for (int index = 0; index < sorted_size; ++index) {
-          final R2InstanceSingleType i =
-            this.singles.instances_sorted.get(index);
-          final JCGLArrayObjectUsableType array_object = i.arrayObject();
-          final int next_array = array_object.glName();
+        while (index < end
+          && R2DrawKeys.materialPrefix(e.sorted_keys[index]) == m_key) {
+          final R2InstanceSingleType i = e.instance(e.order[index]);
+          final int next_array = R2DrawKeys.array(e.sorted_keys[index]);
           if (next_array != current_array) {
             c.onInstanceSingleArrayStart(i);
           }
           current_array = next_array;
           c.onInstanceSingle(material, i);
+          ++index;
         }
 
         c.onInstanceSingleMaterialFinish(material);
@@ -490,18 +374,24 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
   @SuppressWarnings("unchecked")
   private void opaquesExecuteGroupBatched(
     final R2SceneOpaquesConsumerType c,
-    final Batches.Group g)
+    final int group)
   {
+    final Entries<R2InstanceBatchedType,
+      R2MaterialOpaqueBatchedType<?>,
+      R2ShaderInstanceBatchedUsableType<?>> e = this.batches;
+
+    final int end = e.group_ends[group];
+    int index = e.group_starts[group];
+
     /*
      * For each shader {@code s}...
      */
 
-    final ObjectIterator<R2ShaderInstanceBatchedUsableType<?>> bs_iter =
-      g.instance_shaders.values().iterator();
-
-    while (bs_iter.hasNext()) {
+    while (index < end) {
+      final int s_entry = e.order[index];
+      final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
       final R2ShaderInstanceBatchedUsableType<Object> s =
-        (R2ShaderInstanceBatchedUsableType<Object>) bs_iter.next();
+        (R2ShaderInstanceBatchedUsableType<Object>) e.shader(s_entry);
 
       c.onInstanceBatchedShaderStart(s);
 
@@ -509,30 +399,19 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
        * For each material {@code m} using the shader {@code s}...
        */
 
-      final LongSet s_materials =
-        g.shader_to_materials.get(s.shaderID());
-
-      for (final long m_id : s_materials) {
+      while (index < end
+        && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+        final int m_entry = e.order[index];
+        final long m_key = R2DrawKeys.materialPrefix(e.sorted_keys[index]);
         final R2MaterialOpaqueBatchedType<Object> material =
-          (R2MaterialOpaqueBatchedType<Object>)
-            g.instance_materials.get(m_id);
-        c.onInstanceBatchedMaterialStart(material);
-
-        /*
-         * Render all instances.
-         *
-         * Batched instances can be rendered in any order, because each
-         * batched instance is expected to have its own vertex array object.
-         * There are no efficiency gains to be made by imposing any particular
-         * order.
-         */
+          (R2MaterialOpaqueBatchedType<Object>) e.material(m_entry);
 
-        final LongSet m_instances =
-          g.material_to_instances.get(m_id);
+        c.onInstanceBatchedMaterialStart(material);
 
-        for (final long id : m_instances) {
-          final R2InstanceBatchedType i = this.batches.instances.get(id);
-          c.onInstanceBatched(material, i);
+        while (index < end
+          && R2DrawKeys.materialPrefix(e.sorted_keys[index]) == m_key) {
+          c.onInstanceBatched(material, e.instance(e.order[index]));
+          ++index;
         }
 
         c.onInstanceBatchedMaterialFinish(material);
@@ -545,18 +424,24 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
   @SuppressWarnings("unchecked")
   private void opaquesExecuteGroupBillboarded(
     final R2SceneOpaquesConsumerType c,
-    final Billboards.Group g)
+    final int group)
   {
+    final Entries<R2InstanceBillboardedType,
+      R2MaterialOpaqueBillboardedType<?>,
+      R2ShaderInstanceBillboardedUsableType<?>> e = this.billboards;
+
+    final int end = e.group_ends[group];
+    int index = e.group_starts[group];
+
     /*
      * For each shader {@code s}...
      */
 
-    final ObjectIterator<R2ShaderInstanceBillboardedUsableType<?>> bs_iter =
-      g.instance_shaders.values().iterator();
-
-    while (bs_iter.hasNext()) {
+    while (index < end) {
+      final int s_entry = e.order[index];
+      final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
       final R2ShaderInstanceBillboardedUsableType<Object> s =
-        (R2ShaderInstanceBillboardedUsableType<Object>) bs_iter.next();
+        (R2ShaderInstanceBillboardedUsableType<Object>) e.shader(s_entry);
 
       c.onInstanceBillboardedShaderStart(s);
 
@@ -564,30 +449,19 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
        * For each material {@code m} using the shader {@code s}...
        */
 
-      final LongSet s_materials =
-        g.shader_to_materials.get(s.shaderID());
-
-      for (final long m_id : s_materials) {
+      while (index < end
+        && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+        final int m_entry = e.order[index];
+        final long m_key = R2DrawKeys.materialPrefix(e.sorted_keys[index]);
         final R2MaterialOpaqueBillboardedType<Object> material =
-          (R2MaterialOpaqueBillboardedType<Object>)
-            g.instance_materials.get(m_id);
-        c.onInstanceBillboardedMaterialStart(material);
+          (R2MaterialOpaqueBillboardedType<Object>) e.material(m_entry);
 
-        /*
-         * Render all instances.
-         *
-         * Billboarded instances can be rendered in any order, because each
-         * billboarded instance is expected to have its own vertex array object.
-         * There are no efficiency gains to be made by imposing any particular
-         * order.
-         */
-
-        final LongSet m_instances =
-          g.material_to_instances.get(m_id);
+        c.onInstanceBillboardedMaterialStart(material);
 
-        for (final long id : m_instances) {
-          final R2InstanceBillboardedType i = this.billboards.instances.get(id);
-          c.onInstanceBillboarded(material, i);
+        while (index < end
+          && R2DrawKeys.materialPrefix(e.sorted_keys[index]) == m_key) {
+          c.onInstanceBillboarded(material, e.instance(e.order[index]));
+          ++index;
         }
 
         c.onInstanceBillboardedMaterialFinish(material);
@@ -600,189 +474,225 @@ public final class R2SceneOpaques implements R2SceneOpaquesType
   @Override
   public long opaquesCount()
   {
-    final long size_c = (long) this.singles.instances.size();
-    final long batch_c = (long) this.batches.instances.size();
-    final long bill_c = (long) this.billboards.instances.size();
+    final long size_c = (long) this.singles.size;
+    final long batch_c = (long) this.batches.size;
+    final long bill_c = (long) this.billboards.size;
     return Math.addExact(size_c, Math.addExact(batch_c, bill_c));
   }
 
-  private static final class Singles
-  {
-    private final Group[] groups;
-    private final Long2ReferenceOpenHashMap<R2InstanceSingleType> instances;
-    private final ObjectArrayList<R2InstanceSingleType> instances_sorted;
-    private int group_max;
+  /**
+   * A set of instances of a single kind, stored in parallel arrays and
+   * indexed by draw keys.
+   *
+   * @param <I> The type of instances
+   * @param <M> The type of materials
+   * @param <S> The type of shaders
+   */
 
-    Singles()
+  private static final class Entries<I, M, S>
+  {
+    private final LongOpenHashSet ids;
+    private final Long2IntOpenHashMap shader_ordinals;
+    private final Long2IntOpenHashMap material_ordinals;
+    private final Int2IntOpenHashMap array_ordinals;
+    private final int[] group_starts;
+    private final int[] group_ends;
+    private Object[] instances;
+    private Object[] materials;
+    private Object[] shaders;
+    private long[] keys;
+    private int[] ordinals;
+    private long[] sorted_keys;
+    private int[] order;
+    private int size;
+    private boolean sorted;
+    private boolean overflowed;
+
+    Entries()
     {
-      final int size = R2Stencils.maximumGroups();
-      this.groups = new Group[size];
-      for (int index = 1; index < size; ++index) {
-        this.groups[index] = new Group();
-      }
-      this.group_max = 1;
-      this.instances = new Long2ReferenceOpenHashMap<>(1024 * size);
-      this.instances_sorted = new ObjectArrayList<>();
+      this.ids = new LongOpenHashSet(1024);
+      this.shader_ordinals = new Long2IntOpenHashMap(64);
+      this.shader_ordinals.defaultReturnValue(-1);
+      this.material_ordinals = new Long2IntOpenHashMap(256);
+      this.material_ordinals.defaultReturnValue(-1);
+      this.array_ordinals = new Int2IntOpenHashMap(256);
+      this.array_ordinals.defaultReturnValue(-1);
+
+      final int groups = R2Stencils.maximumGroups();
+      this.group_starts = new int[groups];
+      this.group_ends = new int[groups];
+
+      this.instances = new Object[1024];
+      this.materials = new Object[1024];
+      this.shaders = new Object[1024];
+      this.keys = new long[1024];
+      this.ordinals = new int[1024 * R2DrawKeySorter.ORDINALS_PER_ELEMENT];
+      this.sorted_keys = new long[1024];
+      this.order = new int[1024];
+      this.size = 0;
+      this.sorted = true;
     }
 
-    void clear()
+    @SuppressWarnings("unchecked")
+    I instance(final int index)
     {
-      for (int index = 1; index < this.group_max; ++index) {
-        this.groups[index].clear();
-      }
-      this.group_max = 1;
-      this.instances.clear();
-      this.instances_sorted.clear();
+      return (I) this.instances[index];
     }
 
-    private static final class Group
+    @SuppressWarnings("unchecked")
+    M material(final int index)
     {
-      private final Long2ReferenceOpenHashMap<LongSet>
-        material_to_instances;
-      private final Long2ReferenceOpenHashMap<LongSet>
-        shader_to_materials;
-      private final Long2ReferenceOpenHashMap<R2MaterialOpaqueSingleType<?>>
-        instance_materials;
-      private final Long2ReferenceOpenHashMap<R2ShaderInstanceSingleUsableType<?>>
-        instance_shaders;
-      private final Long2ReferenceOpenHashMap<R2InstanceSingleType>
-        instances;
-
-      Group()
-      {
-        this.material_to_instances = new Long2ReferenceOpenHashMap<>(1024);
-        this.shader_to_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_shaders = new Long2ReferenceOpenHashMap<>(1024);
-        this.instances = new Long2ReferenceOpenHashMap<>(1024);
-      }
-
-      void clear()
-      {
-        this.material_to_instances.clear();
-        this.shader_to_materials.clear();
-        this.instance_materials.clear();
-        this.instance_shaders.clear();
-        this.instances.clear();
-      }
+      return (M) this.materials[index];
     }
-  }
 
-  private static final class Batches
-  {
-    private final Group[] groups;
-    private final Long2ReferenceOpenHashMap<R2InstanceBatchedType> instances;
-    private int group_max;
+    @SuppressWarnings("unchecked")
+    S shader(final int index)
+    {
+      return (S) this.shaders[index];
+    }
 
-    Batches()
+    boolean groupNonEmpty(final int group)
     {
-      final int size = R2Stencils.maximumGroups();
-      this.groups = new Group[size];
-      for (int index = 1; index < size; ++index) {
-        this.groups[index] = new Group();
-      }
-      this.group_max = 1;
-      this.instances = new Long2ReferenceOpenHashMap<>(1024 * size);
+      return this.group_ends[group] > this.group_starts[group];
     }
 
     void clear()
     {
-      for (int index = 1; index < this.group_max; ++index) {
-        this.groups[index].clear();
-      }
-      this.group_max = 1;
-      this.instances.clear();
+      Arrays.fill(this.instances, 0, this.size, null);
+      Arrays.fill(this.materials, 0, this.size, null);
+      Arrays.fill(this.shaders, 0, this.size, null);
+      Arrays.fill(this.group_starts, 0);
+      Arrays.fill(this.group_ends, 0);
+      this.ids.clear();
+      this.shader_ordinals.clear();
+      this.material_ordinals.clear();
+      this.array_ordinals.clear();
+      this.size = 0;
+      this.sorted = true;
+      this.overflowed = false;
     }
 
-    private static final class Group
+    private static int ordinal(
+      final Long2IntOpenHashMap ordinals,
+      final long id)
     {
-      private final Long2ReferenceOpenHashMap<LongSet>
-        material_to_instances;
-      private final Long2ReferenceOpenHashMap<LongSet>
-        shader_to_materials;
-      private final Long2ReferenceOpenHashMap<R2MaterialOpaqueBatchedType<?>>
-        instance_materials;
-      private final Long2ReferenceOpenHashMap<R2ShaderInstanceBatchedUsableType<?>>
-        instance_shaders;
-      private final Long2ReferenceOpenHashMap<R2InstanceBatchedType>
-        instances;
-
-      Group()
-      {
-        this.material_to_instances = new Long2ReferenceOpenHashMap<>(1024);
-        this.shader_to_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_shaders = new Long2ReferenceOpenHashMap<>(1024);
-        this.instances = new Long2ReferenceOpenHashMap<>(1024);
+      final int existing = ordinals.get(id);
+      if (existing != -1) {
+        return existing;
       }
 
-      void clear()
-      {
-        this.shader_to_materials.clear();
-        this.instance_materials.clear();
-        this.instance_shaders.clear();
-        this.instances.clear();
-        this.material_to_instances.clear();
-      }
+      final int fresh = ordinals.size();
+      ordinals.put(id, fresh);
+      return fresh;
     }
-  }
-
-  private static final class Billboards
-  {
-    private final Group[] groups;
-    private final Long2ReferenceOpenHashMap<R2InstanceBillboardedType> instances;
-    private int group_max;
 
-    Billboards()
+    private int arrayOrdinal(
+      final int array)
     {
-      final int size = R2Stencils.maximumGroups();
-      this.groups = new Group[size];
-      for (int index = 1; index < size; ++index) {
-        this.groups[index] = new Group();
+      final int existing = this.array_ordinals.get(array);
+      if (existing != -1) {
+        return existing;
       }
-      this.group_max = 1;
-      this.instances = new Long2ReferenceOpenHashMap<>(1024 * size);
+
+      final int fresh = this.array_ordinals.size();
+      this.array_ordinals.put(array, fresh);
+      return fresh;
     }
 
-    void clear()
+    void add(
+      final I instance,
+      final M material,
+      final S shader,
+      final long shader_id,
+      final long material_id,
+      final int array,
+      final int group)
     {
-      for (int index = 1; index < this.group_max; ++index) {
-        this.groups[index].clear();
+      final int s_ord = ordinal(this.shader_ordinals, shader_id);
+      final int m_ord = ordinal(this.material_ordinals, material_id);
+      final int a_ord = this.arrayOrdinal(array);
+
+      /*
+       * If the ordinals are too large to be encoded in a draw key, the
+       * entries are sorted by their ordinals instead for the rest of the
+       * frame.
+       */
+
+      final long key;
+      if (R2DrawKeys.ordinalsFit(s_ord, m_ord, a_ord)) {
+        key = R2DrawKeys.pack(group, s_ord, m_ord, a_ord);
+      } else {
+        key = 0L;
+        this.overflowed = true;
       }
-      this.group_max = 1;
-      this.instances.clear();
+
+      if (this.size == this.keys.length) {
+        final int capacity = this.size * 2;
+        this.instances = Arrays.copyOf(this.instances, capacity);
+        this.materials = Arrays.copyOf(this.materials, capacity);
+        this.shaders = Arrays.copyOf(this.shaders, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.ordinals = Arrays.copyOf(
+          this.ordinals, capacity * R2DrawKeySorter.ORDINALS_PER_ELEMENT);
+        this.sorted_keys = new long[capacity];
+        this.order = new int[capacity];
+      }
+
+      final int index = this.size;
+      this.instances[index] = instance;
+      this.materials[index] = material;
+      this.shaders[index] = shader;
+      this.keys[index] = key;
+
+      final int o = index * R2DrawKeySorter.ORDINALS_PER_ELEMENT;
+      this.ordinals[o] = group;
+      this.ordinals[o + 1] = s_ord;
+      this.ordinals[o + 2] = m_ord;
+      this.ordinals[o + 3] = a_ord;
+
+      this.size = index + 1;
+      this.sorted = false;
     }
 
-    private static final class Group
+    void sort(
+      final R2DrawKeySorter sorter)
     {
-      private final Long2ReferenceOpenHashMap<LongSet>
-        material_to_instances;
-      private final Long2ReferenceOpenHashMap<LongSet>
-        shader_to_materials;
-      private final Long2ReferenceOpenHashMap<R2MaterialOpaqueBillboardedType<?>>
-        instance_materials;
-      private final Long2ReferenceOpenHashMap<R2ShaderInstanceBillboardedUsableType<?>>
-        instance_shaders;
-      private final Long2ReferenceOpenHashMap<R2InstanceBillboardedType>
-        instances;
-
-      Group()
-      {
-        this.material_to_instances = new Long2ReferenceOpenHashMap<>(1024);
-        this.shader_to_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_materials = new Long2ReferenceOpenHashMap<>(1024);
-        this.instance_shaders = new Long2ReferenceOpenHashMap<>(1024);
-        this.instances = new Long2ReferenceOpenHashMap<>(1024);
+      if (this.sorted) {
+        return;
       }
 
-      void clear()
-      {
-        this.shader_to_materials.clear();
-        this.instance_materials.clear();
-        this.instance_shaders.clear();
-        this.instances.clear();
-        this.material_to_instances.clear();
+      /*
+       * Sort a copy of the keys, so that the keys remain associated with
+       * instances by index. The sort is stable, so instances with equal keys
+       * are delivered in the order in which they were added.
+       */
+
+      if (this.overflowed) {
+        sorter.sortOrdinals(
+          this.ordinals, this.sorted_keys, this.order, this.size);
+      } else {
+        System.arraycopy(this.keys, 0, this.sorted_keys, 0, this.size);
+        for (int index = 0; index < this.size; ++index) {
+          this.order[index] = index;
+        }
+        sorter.sort(this.sorted_keys, this.order, this.size);
       }
+
+      /*
+       * Determine the range of sorted entries that belong to each group.
+       */
+
+      Arrays.fill(this.group_starts, 0);
+      Arrays.fill(this.group_ends, 0);
+      for (int index = 0; index < this.size; ++index) {
+        final int group = R2DrawKeys.group(this.sorted_keys[index]);
+        if (this.group_ends[group] == 0) {
+          this.group_starts[group] = index;
+        }
+        this.group_ends[group] = index + 1;
+      }
+
+      this.sorted = true;
     }
   }
 }
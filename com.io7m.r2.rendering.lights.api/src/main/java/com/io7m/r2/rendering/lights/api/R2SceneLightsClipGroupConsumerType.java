@@ -16,7 +16,9 @@
 
 package com.io7m.r2.rendering.lights.api;
 
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 
 /**
@@ -75,6 +77,41 @@ public interface R2SceneLightsClipGroupConsumerType
   void onLightSingleShaderFinish(
     R2ShaderLightSingleUsableType<M> s);
 
+  /**
+   * Called when a new shader should be activated in order to start rendering
+   * batched lights.
+   *
+   * @param s   The shader
+   * @param <M> The type of shader parameters
+   */
+
+  <M extends R2LightBatchedReadableType>
+  void onLightBatchedShaderStart(
+    R2ShaderLightBatchedUsableType<M> s);
+
+  /**
+   * Called when a batch of lights should be rendered.
+   *
+   * @param <M> The type of shader parameters
+   * @param s   The current shader
+   * @param i   The current batch
+   */
+
+  <M extends R2LightBatchedReadableType> void onLightBatched(
+    R2ShaderLightBatchedUsableType<M> s,
+    M i);
+
+  /**
+   * Called when the current batched light shader should be deactivated.
+   *
+   * @param s   The shader
+   * @param <M> The type of shader parameters
+   */
+
+  <M extends R2LightBatchedReadableType>
+  void onLightBatchedShaderFinish(
+    R2ShaderLightBatchedUsableType<M> s);
+
   /**
    * Called when rendering of the clip group is finished.
    */
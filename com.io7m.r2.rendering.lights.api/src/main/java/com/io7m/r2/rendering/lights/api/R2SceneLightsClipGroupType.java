@@ -16,7 +16,9 @@
 
 package com.io7m.r2.rendering.lights.api;
 
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 
 /**
@@ -43,4 +45,18 @@ public interface R2SceneLightsClipGroupType
   void clipGroupAddSingle(
     L light,
     R2ShaderLightSingleUsableType<L> shader);
+
+  /**
+   * Add a batch of lights to the clip group. All of the enabled lights in the
+   * batch are rendered with a single instanced draw call.
+   *
+   * @param light  The batch of lights
+   * @param shader The light shader
+   * @param <L>    The precise type of light batch
+   */
+
+  <L extends R2LightBatchedReadableType>
+  void clipGroupAddBatched(
+    L light,
+    R2ShaderLightBatchedUsableType<L> shader);
 }
@@ -17,7 +17,9 @@
 package com.io7m.r2.rendering.lights.api;
 
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 
 /**
@@ -47,6 +49,20 @@ public interface R2SceneLightsGroupType
     L light,
     R2ShaderLightSingleUsableType<L> shader);
 
+  /**
+   * Add a batch of lights to the group. All of the enabled lights in the batch
+   * are rendered with a single instanced draw call.
+   *
+   * @param light  The batch of lights
+   * @param shader The light shader
+   * @param <L>    The precise type of light batch
+   */
+
+  <L extends R2LightBatchedReadableType>
+  void lightGroupAddBatched(
+    L light,
+    R2ShaderLightBatchedUsableType<L> shader);
+
   /**
    * Retrieve a clip group, creating one if the group does not exist, using the
    * given instance as a clipping volume.
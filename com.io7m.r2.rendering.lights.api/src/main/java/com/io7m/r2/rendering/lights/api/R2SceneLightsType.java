@@ -48,7 +48,8 @@ public interface R2SceneLightsType
     R2SceneLightsConsumerType c);
 
   /**
-   * @return The number of lights in the scene
+   * @return The number of lights in the scene, where each batch of lights
+   * counts as a single light
    */
 
   long lightsCount();
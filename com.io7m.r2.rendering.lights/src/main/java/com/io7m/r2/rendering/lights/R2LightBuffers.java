@@ -35,7 +35,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
 import com.io7m.jfunctional.Pair;
@@ -45,6 +44,7 @@ import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
 import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 import com.io7m.r2.rendering.lights.api.R2LightBufferDescription;
 import com.io7m.r2.rendering.lights.api.R2LightBufferDiffuseOnlyUsableType;
@@ -299,6 +299,7 @@ public final class R2LightBuffers
 
   private static void clearFramebuffer(
     final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states,
     final JCGLFramebufferUsableType framebuffer)
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -313,7 +314,7 @@ public final class R2LightBuffers
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 
@@ -410,10 +411,11 @@ public final class R2LightBuffers
 
     @Override
     public void clearBoundPrimaryFramebuffer(
-      final JCGLInterfaceGL33Type g)
+      final JCGLInterfaceGL33Type g,
+      final R2RenderStateTracker states)
       throws R2RendererExceptionFramebufferNotBound
     {
-      clearFramebuffer(g, this.framebuffer);
+      clearFramebuffer(g, states, this.framebuffer);
     }
   }
 
@@ -499,10 +501,11 @@ public final class R2LightBuffers
 
     @Override
     public void clearBoundPrimaryFramebuffer(
-      final JCGLInterfaceGL33Type g)
+      final JCGLInterfaceGL33Type g,
+      final R2RenderStateTracker states)
       throws R2RendererExceptionFramebufferNotBound
     {
-      clearFramebuffer(g, this.framebuffer);
+      clearFramebuffer(g, states, this.framebuffer);
     }
   }
 
@@ -588,10 +591,11 @@ public final class R2LightBuffers
 
     @Override
     public void clearBoundPrimaryFramebuffer(
-      final JCGLInterfaceGL33Type g)
+      final JCGLInterfaceGL33Type g,
+      final R2RenderStateTracker states)
       throws R2RendererExceptionFramebufferNotBound
     {
-      clearFramebuffer(g, this.framebuffer);
+      clearFramebuffer(g, states, this.framebuffer);
     }
   }
 }
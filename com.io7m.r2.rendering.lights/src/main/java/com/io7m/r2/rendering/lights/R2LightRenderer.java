@@ -45,7 +45,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.renderstate.JCGLStencilStateMutable;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -57,6 +56,8 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowType;
 import com.io7m.r2.lights.R2LightProjectiveReadableType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowReadableType;
 import com.io7m.r2.lights.R2LightProjectiveWithoutShadowReadableType;
@@ -64,7 +65,9 @@ import com.io7m.r2.lights.R2LightScreenSingleType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
 import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
 import com.io7m.r2.lights.R2LightVolumeSingleReadableType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.rendering.lights.api.R2LightBufferUsableType;
 import com.io7m.r2.rendering.lights.api.R2LightRendererType;
@@ -83,10 +86,13 @@ import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderUsableType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.depth.R2ShaderLogDepthOnlySingle;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightProjectiveUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightProjectiveWithShadowUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightScreenSingleUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightScreenWithShadowUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightVolumeSingleUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderParametersLightMutable;
@@ -129,13 +135,16 @@ public final class R2LightRenderer implements R2LightRendererType
   private final JCGLInterfaceGL33Type g;
   private final R2ShaderInstanceSingleType<Unit> clip_volume_stencil;
   private final R2ShaderInstanceSingleScreenType<Unit> clip_screen_stencil;
+  private final R2ShaderViewUniformBufferType view_buffer;
 
   private R2LightRenderer(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2TextureDefaultsType in_defaults,
     final R2ShaderInstanceSingleType<Unit> in_clip_volume_stencil,
     final R2ShaderInstanceSingleScreenType<Unit> in_clip_screen_stencil,
-    final R2UnitQuadUsableType in_quad)
+    final R2UnitQuadUsableType in_quad,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g =
       NullCheck.notNull(in_g, "G33");
@@ -143,9 +152,12 @@ public final class R2LightRenderer implements R2LightRendererType
       NullCheck.notNull(in_clip_volume_stencil, "Volume stencil");
     this.clip_screen_stencil =
       NullCheck.notNull(in_clip_screen_stencil, "Screen stencil");
+    this.view_buffer =
+      NullCheck.notNull(in_view_buffer, "View buffer");
     this.light_consumer =
       new LightConsumer(
         this.g,
+        in_states,
         in_defaults,
         in_clip_volume_stencil,
         in_clip_screen_stencil,
@@ -156,20 +168,24 @@ public final class R2LightRenderer implements R2LightRendererType
    * Construct a new renderer.
    *
    * @param in_g                An OpenGL interface
+   * @param in_states           A render state tracker
    * @param in_shader_env       Access to shader sources
    * @param in_texture_defaults A set of default textures
    * @param in_pool             An ID pool
    * @param in_quad             A usable unit quad
+   * @param in_view             The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2LightRenderer create(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2TextureDefaultsType in_texture_defaults,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool,
-    final R2UnitQuadUsableType in_quad)
+    final R2UnitQuadUsableType in_quad,
+    final R2ShaderViewUniformBufferType in_view)
   {
     final JCGLShadersType g_sh = in_g.shaders();
     final R2ShaderInstanceSingleType<Unit> volume_stencil =
@@ -180,7 +196,13 @@ public final class R2LightRenderer implements R2LightRendererType
         g_sh, in_shader_env, in_pool);
 
     return new R2LightRenderer(
-      in_g, in_texture_defaults, volume_stencil, screen_stencil, in_quad);
+      in_g,
+      in_states,
+      in_texture_defaults,
+      volume_stencil,
+      screen_stencil,
+      in_quad,
+      in_view);
   }
 
   private static <M> void checkCompatible(
@@ -205,6 +227,39 @@ public final class R2LightRenderer implements R2LightRendererType
     }
   }
 
+  /**
+   * Configure stencilling such that only pixels with a stencil value equal to
+   * {@code group} are touched, and no writes are made to the stencil buffer.
+   */
+
+  static void configureStencilState(
+    final int group,
+    final JCGLStencilStateMutable ss)
+  {
+    ss.setStencilStrict(true);
+    ss.setStencilEnabled(true);
+
+    ss.setOperationDepthFailFront(JCGLStencilOperation.STENCIL_OP_KEEP);
+    ss.setOperationStencilFailFront(JCGLStencilOperation.STENCIL_OP_KEEP);
+    ss.setOperationPassFront(JCGLStencilOperation.STENCIL_OP_KEEP);
+
+    ss.setTestFunctionFront(JCGLStencilFunction.STENCIL_EQUAL);
+    ss.setTestReferenceFront(group << R2Stencils.groupLeftShift());
+    ss.setTestMaskFront(R2Stencils.groupBits());
+
+    ss.setWriteMaskFrontFaces(0);
+
+    ss.setOperationDepthFailBack(JCGLStencilOperation.STENCIL_OP_KEEP);
+    ss.setOperationStencilFailBack(JCGLStencilOperation.STENCIL_OP_KEEP);
+    ss.setOperationPassBack(JCGLStencilOperation.STENCIL_OP_KEEP);
+
+    ss.setTestFunctionBack(JCGLStencilFunction.STENCIL_EQUAL);
+    ss.setTestReferenceBack(group << R2Stencils.groupLeftShift());
+    ss.setTestMaskBack(R2Stencils.groupBits());
+
+    ss.setWriteMaskBackFaces(0);
+  }
+
   @Override
   public void delete(final JCGLInterfaceGL33Type g3)
     throws R2Exception
@@ -344,6 +399,7 @@ public final class R2LightRenderer implements R2LightRendererType
     if (s.lightsCount() > 0L) {
       final JCGLViewportsType g_v = this.g.viewports();
       g_v.viewportSet(lbuffer_area);
+      this.view_buffer.update(this.g, m);
 
       this.light_consumer.input_state.set(
         gbuffer, m, uc, shadows, lbuffer_area, pc_instances, out);
@@ -439,6 +495,7 @@ public final class R2LightRenderer implements R2LightRendererType
     implements R2SceneLightsGroupConsumerType
   {
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final JCGLTexturesType textures;
     private final JCGLArrayObjectsType array_objects;
     private final JCGLDrawType draw;
@@ -448,6 +505,7 @@ public final class R2LightRenderer implements R2LightRendererType
     private final JCGLStencilStateMutable stencil_state_volume;
     private final LightGroupConsumerInputState input_state;
     private final R2ShaderParametersLightMutable<R2LightSingleReadableType> params_light;
+    private final R2ShaderParametersLightMutable<R2LightBatchedReadableType> params_light_batched;
 
     private @Nullable
     R2ShaderLightSingleUsableType<R2LightSingleReadableType> light_shader;
@@ -457,15 +515,18 @@ public final class R2LightRenderer implements R2LightRendererType
 
     LightGroupConsumer(
       final JCGLInterfaceGL33Type in_g,
+      final R2RenderStateTracker in_states,
       final LightConsumerInputState in_input_state)
     {
       this.g33 = NullCheck.notNull(in_g, "G33");
+      this.states = NullCheck.notNull(in_states, "States");
 
       this.textures = this.g33.textures();
       this.array_objects = this.g33.arrayObjects();
       this.draw = this.g33.drawing();
       this.input_state = new LightGroupConsumerInputState(in_input_state);
       this.params_light = R2ShaderParametersLightMutable.create();
+      this.params_light_batched = R2ShaderParametersLightMutable.create();
 
       {
         this.render_state_screen = JCGLRenderStateMutable.create();
@@ -564,39 +625,6 @@ public final class R2LightRenderer implements R2LightRendererType
       }
     }
 
-    /**
-     * Configure stencilling such that only pixels with a stencil value equal to
-     * {@code group} are touched, and no writes are made to the stencil buffer.
-     */
-
-    private static void configureStencilState(
-      final int group,
-      final JCGLStencilStateMutable ss)
-    {
-      ss.setStencilStrict(true);
-      ss.setStencilEnabled(true);
-
-      ss.setOperationDepthFailFront(JCGLStencilOperation.STENCIL_OP_KEEP);
-      ss.setOperationStencilFailFront(JCGLStencilOperation.STENCIL_OP_KEEP);
-      ss.setOperationPassFront(JCGLStencilOperation.STENCIL_OP_KEEP);
-
-      ss.setTestFunctionFront(JCGLStencilFunction.STENCIL_EQUAL);
-      ss.setTestReferenceFront(group << R2Stencils.groupLeftShift());
-      ss.setTestMaskFront(R2Stencils.groupBits());
-
-      ss.setWriteMaskFrontFaces(0);
-
-      ss.setOperationDepthFailBack(JCGLStencilOperation.STENCIL_OP_KEEP);
-      ss.setOperationStencilFailBack(JCGLStencilOperation.STENCIL_OP_KEEP);
-      ss.setOperationPassBack(JCGLStencilOperation.STENCIL_OP_KEEP);
-
-      ss.setTestFunctionBack(JCGLStencilFunction.STENCIL_EQUAL);
-      ss.setTestReferenceBack(group << R2Stencils.groupLeftShift());
-      ss.setTestMaskBack(R2Stencils.groupBits());
-
-      ss.setWriteMaskBackFaces(0);
-    }
-
     @Override
     public void onStart()
     {
@@ -643,7 +671,41 @@ public final class R2LightRenderer implements R2LightRendererType
     private void onLightSingleScreen(
       final R2LightScreenSingleType light)
     {
-      // Nothing!
+      light.matchLightScreenSingle(this, (t, ls) -> {
+        // Nothing!
+        return Unit.unit();
+      }, (t, ld) -> {
+        Preconditions.checkPrecondition(
+          t.light_shader instanceof R2ShaderLightScreenWithShadowUsableType,
+          "Shader must be a screen light with shadow shader");
+
+        t.onLightSingleScreenWithShadow(ld);
+        return Unit.unit();
+      });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onLightSingleScreenWithShadow(
+      final R2LightDirectionalWithShadowType light)
+    {
+      final R2ShaderLightScreenWithShadowUsableType<
+        R2LightSingleReadableType> s =
+        R2ShaderLightScreenWithShadowUsableType.class.cast(
+          this.light_shader);
+
+      final R2ShadowMapContextUsableType shadow_maps =
+        this.input_state.parent.shadow_maps;
+      final R2Texture2DUsableType map =
+        shadow_maps.shadowMapGet(light);
+      final R2ShadowMapRegion region =
+        shadow_maps.shadowMapRegionGet(light);
+
+      s.onReceiveShadowMap(
+        this.g33,
+        this.light_each_context,
+        map,
+        region);
+      s.onValidate();
     }
 
     private void onLightSingleVolume(
@@ -722,13 +784,18 @@ public final class R2LightRenderer implements R2LightRendererType
             s.onReceiveVolumeLightTransform(t.g33, mp);
             s.onReceiveProjectiveLight(t.g33, mp);
 
+            final R2ShadowMapContextUsableType shadow_maps =
+              t.input_state.parent.shadow_maps;
             final R2Texture2DUsableType map =
-              t.input_state.parent.shadow_maps.shadowMapGet(t.light_shadow);
+              shadow_maps.shadowMapGet(t.light_shadow);
+            final R2ShadowMapRegion region =
+              shadow_maps.shadowMapRegionGet(t.light_shadow);
 
             s.onReceiveShadowMap(
               t.g33,
               t.light_each_context,
-              map);
+              map,
+              region);
             s.onValidate();
             return Unit.unit();
           });
@@ -810,7 +877,7 @@ public final class R2LightRenderer implements R2LightRendererType
               t.light_shader instanceof R2ShaderLightVolumeSingleUsableType,
               "Shader must be a volume light shader");
 
-            JCGLRenderStates.activate(t.g33, t.render_state_volume);
+            t.states.activate(t.g33, t.render_state_volume);
             t.onLightSingleVolume(lv);
             return Unit.unit();
           },
@@ -819,7 +886,7 @@ public final class R2LightRenderer implements R2LightRendererType
               t.light_shader instanceof R2ShaderLightScreenSingleUsableType,
               "Shader must be a screen light shader");
 
-            JCGLRenderStates.activate(t.g33, t.render_state_screen);
+            t.states.activate(t.g33, t.render_state_screen);
             t.onLightSingleScreen(ls);
             return Unit.unit();
           });
@@ -839,6 +906,85 @@ public final class R2LightRenderer implements R2LightRendererType
       s.onDeactivate(this.g33);
     }
 
+    @SuppressWarnings("unchecked")
+    private <M extends R2LightBatchedReadableType> R2ShaderParametersLightType<M>
+    configureLightBatchedParameters(
+      final JCGLTextureUnitContextType tc,
+      final M p)
+    {
+      this.params_light_batched.clear();
+      this.params_light_batched.setTextureUnitContext(tc);
+      this.params_light_batched.setObserverMatrices(this.input_state.parent.matrices);
+      this.params_light_batched.setViewport(this.input_state.viewport);
+      this.params_light_batched.setValues(p);
+      Invariants.checkInvariant(
+        this.params_light_batched.isInitialized(),
+        "Light parameters must be initialized");
+      return (R2ShaderParametersLightType<M>) this.params_light_batched;
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      checkCompatible(s, this.input_state.parent.output_target);
+
+      s.onActivate(this.g33);
+      s.onReceiveBoundGeometryBufferTextures(
+        this.g33,
+        this.input_state.parent.gbuffer,
+        this.input_state.unit_albedo,
+        this.input_state.unit_specular,
+        this.input_state.unit_depth,
+        this.input_state.unit_normals);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType> void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M light)
+    {
+      final int count = light.renderCount();
+      if (count == 0) {
+        return;
+      }
+
+      final JCGLTextureUnitContextType tc =
+        this.input_state.light_base_context.unitContextNew();
+
+      try {
+        final Class<M> s_class = s.shaderParametersType();
+        Preconditions.checkPrecondition(
+          s_class.isAssignableFrom(light.getClass()),
+          "Shader parameter type must be compatible with light type");
+
+        s.onReceiveValues(
+          this.g33, this.configureLightBatchedParameters(tc, light));
+        s.onValidate();
+
+        /*
+         * All of the lights in the batch are rendered with a single instanced
+         * draw call using the same state as single volume lights.
+         */
+
+        this.states.activate(this.g33, this.render_state_volume);
+        this.array_objects.arrayObjectBind(light.arrayObject());
+        this.draw.drawElementsInstanced(
+          JCGLPrimitives.PRIMITIVE_TRIANGLES, count);
+      } finally {
+        tc.unitContextFinish(this.textures);
+      }
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      s.onDeactivate(this.g33);
+    }
+
     @Override
     public void onFinish()
     {
@@ -903,6 +1049,7 @@ public final class R2LightRenderer implements R2LightRendererType
     R2SceneLightsClipGroupConsumerType
   {
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final LightConsumerInputState parent;
     private final LightClipGroupConsumerInputState input_state;
     private final R2ShaderInstanceSingleUsableType<Unit> clip_volume_stencil;
@@ -919,6 +1066,7 @@ public final class R2LightRenderer implements R2LightRendererType
     private final R2ShaderParametersViewMutable params_view;
     private final R2ShaderParametersMaterialMutable<Object> params_material;
     private final R2ShaderParametersLightMutable<R2LightSingleReadableType> params_light;
+    private final R2ShaderParametersLightMutable<R2LightBatchedReadableType> params_light_batched;
 
     private @Nullable
     R2ShaderLightSingleUsableType<R2LightSingleReadableType> light_shader;
@@ -928,6 +1076,7 @@ public final class R2LightRenderer implements R2LightRendererType
 
     LightClipGroupConsumer(
       final JCGLInterfaceGL33Type in_g33,
+      final R2RenderStateTracker in_states,
       final LightConsumerInputState in_input_state,
       final R2ShaderInstanceSingleUsableType<Unit> in_clip_volume_stencil,
       final R2ShaderInstanceSingleScreenUsableType<Unit> in_clip_screen_stencil,
@@ -935,6 +1084,8 @@ public final class R2LightRenderer implements R2LightRendererType
     {
       this.g33 =
         NullCheck.notNull(in_g33, "G33");
+      this.states =
+        NullCheck.notNull(in_states, "States");
       this.parent =
         NullCheck.notNull(in_input_state, "Input");
       this.quad =
@@ -957,6 +1108,8 @@ public final class R2LightRenderer implements R2LightRendererType
         R2ShaderParametersMaterialMutable.create();
       this.params_light =
         R2ShaderParametersLightMutable.create();
+      this.params_light_batched =
+        R2ShaderParametersLightMutable.create();
 
       {
         /*
@@ -1237,7 +1390,7 @@ public final class R2LightRenderer implements R2LightRendererType
 
     private void renderStencilForClipVolume()
     {
-      JCGLRenderStates.activate(this.g33, this.clip_volume_stencil_state);
+      this.states.activate(this.g33, this.clip_volume_stencil_state);
 
       final JCGLTextureUnitContextType tc =
         this.input_state.light_base_context.unitContextNew();
@@ -1329,7 +1482,7 @@ public final class R2LightRenderer implements R2LightRendererType
 
     private void clearStencilForClipVolume()
     {
-      JCGLRenderStates.activate(this.g33, this.clip_screen_stencil_state);
+      this.states.activate(this.g33, this.clip_screen_stencil_state);
 
       final JCGLTextureUnitContextType tc =
         this.input_state.light_base_context.unitContextNew();
@@ -1363,7 +1516,41 @@ public final class R2LightRenderer implements R2LightRendererType
     private void onLightSingleScreen(
       final R2LightScreenSingleType light)
     {
-      // Nothing!
+      light.matchLightScreenSingle(this, (t, ls) -> {
+        // Nothing!
+        return Unit.unit();
+      }, (t, ld) -> {
+        Preconditions.checkPrecondition(
+          t.light_shader instanceof R2ShaderLightScreenWithShadowUsableType,
+          "Shader must be a screen light with shadow shader");
+
+        t.onLightSingleScreenWithShadow(ld);
+        return Unit.unit();
+      });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onLightSingleScreenWithShadow(
+      final R2LightDirectionalWithShadowType light)
+    {
+      final R2ShaderLightScreenWithShadowUsableType<
+        R2LightSingleReadableType> s =
+        R2ShaderLightScreenWithShadowUsableType.class.cast(
+          this.light_shader);
+
+      final R2ShadowMapContextUsableType shadow_maps =
+        this.input_state.parent.shadow_maps;
+      final R2Texture2DUsableType map =
+        shadow_maps.shadowMapGet(light);
+      final R2ShadowMapRegion region =
+        shadow_maps.shadowMapRegionGet(light);
+
+      s.onReceiveShadowMap(
+        this.g33,
+        this.light_each_context,
+        map,
+        region);
+      s.onValidate();
     }
 
     @SuppressWarnings("unchecked")
@@ -1445,13 +1632,18 @@ public final class R2LightRenderer implements R2LightRendererType
             s.onReceiveVolumeLightTransform(t.g33, mp);
             s.onReceiveProjectiveLight(t.g33, mp);
 
+            final R2ShadowMapContextUsableType shadow_maps =
+              t.input_state.parent.shadow_maps;
             final R2Texture2DUsableType map =
-              t.input_state.parent.shadow_maps.shadowMapGet(t.light_shadow);
+              shadow_maps.shadowMapGet(t.light_shadow);
+            final R2ShadowMapRegion region =
+              shadow_maps.shadowMapRegionGet(t.light_shadow);
 
             s.onReceiveShadowMap(
               t.g33,
               t.light_each_context,
-              map);
+              map,
+              region);
             s.onValidate();
             return Unit.unit();
           });
@@ -1537,7 +1729,7 @@ public final class R2LightRenderer implements R2LightRendererType
               t.light_shader instanceof R2ShaderLightVolumeSingleUsableType,
               "Shader must be a volume light shader");
 
-            JCGLRenderStates.activate(t.g33, t.render_state_volume);
+            t.states.activate(t.g33, t.render_state_volume);
             t.onLightSingleVolume(lv);
             return Unit.unit();
           },
@@ -1546,7 +1738,7 @@ public final class R2LightRenderer implements R2LightRendererType
               t.light_shader instanceof R2ShaderLightScreenSingleUsableType,
               "Shader must be a screen light shader");
 
-            JCGLRenderStates.activate(t.g33, t.render_state_screen);
+            t.states.activate(t.g33, t.render_state_screen);
             t.onLightSingleScreen(ls);
             return Unit.unit();
           });
@@ -1566,6 +1758,85 @@ public final class R2LightRenderer implements R2LightRendererType
       s.onDeactivate(this.g33);
     }
 
+    @SuppressWarnings("unchecked")
+    private <M extends R2LightBatchedReadableType> R2ShaderParametersLightType<M>
+    configureLightBatchedParameters(
+      final JCGLTextureUnitContextType tc,
+      final M p)
+    {
+      this.params_light_batched.clear();
+      this.params_light_batched.setTextureUnitContext(tc);
+      this.params_light_batched.setObserverMatrices(this.parent.matrices);
+      this.params_light_batched.setViewport(this.parent.viewport);
+      this.params_light_batched.setValues(p);
+      Invariants.checkInvariant(
+        this.params_light_batched.isInitialized(),
+        "Light parameters must be initialized");
+      return (R2ShaderParametersLightType<M>) this.params_light_batched;
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      checkCompatible(s, this.input_state.parent.output_target);
+
+      s.onActivate(this.g33);
+      s.onReceiveBoundGeometryBufferTextures(
+        this.g33,
+        this.input_state.parent.gbuffer,
+        this.input_state.unit_albedo,
+        this.input_state.unit_specular,
+        this.input_state.unit_depth,
+        this.input_state.unit_normals);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType> void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M light)
+    {
+      final int count = light.renderCount();
+      if (count == 0) {
+        return;
+      }
+
+      final JCGLTextureUnitContextType tc =
+        this.input_state.light_base_context.unitContextNew();
+
+      try {
+        final Class<M> s_class = s.shaderParametersType();
+        Preconditions.checkPrecondition(
+          s_class.isAssignableFrom(light.getClass()),
+          "Shader parameter type must be compatible with light type");
+
+        s.onReceiveValues(
+          this.g33, this.configureLightBatchedParameters(tc, light));
+        s.onValidate();
+
+        /*
+         * All of the lights in the batch are rendered with a single instanced
+         * draw call using the same state as single volume lights.
+         */
+
+        this.states.activate(this.g33, this.render_state_volume);
+        this.array_objects.arrayObjectBind(light.arrayObject());
+        this.draw.drawElementsInstanced(
+          JCGLPrimitives.PRIMITIVE_TRIANGLES, count);
+      } finally {
+        tc.unitContextFinish(this.textures);
+      }
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      s.onDeactivate(this.g33);
+    }
+
     @Override
     public void onFinish()
     {
@@ -1647,6 +1918,7 @@ public final class R2LightRenderer implements R2LightRendererType
 
     LightConsumer(
       final JCGLInterfaceGL33Type in_g,
+      final R2RenderStateTracker in_states,
       final R2TextureDefaultsType in_defaults,
       final R2ShaderInstanceSingleUsableType<Unit> in_clip_volume_stencil,
       final R2ShaderInstanceSingleScreenUsableType<Unit> in_clip_screen_stencil,
@@ -1659,10 +1931,12 @@ public final class R2LightRenderer implements R2LightRendererType
       this.input_state =
         new LightConsumerInputState();
       this.group_consumer =
-        new LightGroupConsumer(this.g33, this.input_state);
+        new LightGroupConsumer(
+          this.g33, in_states, this.input_state);
       this.clip_group_consumer =
         new LightClipGroupConsumer(
           this.g33,
+          in_states,
           this.input_state,
           in_clip_volume_stencil,
           in_clip_screen_stencil,
@@ -0,0 +1,903 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.rendering.lights;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLBlendEquation;
+import com.io7m.jcanephora.core.JCGLBlendFunction;
+import com.io7m.jcanephora.core.JCGLFaceSelection;
+import com.io7m.jcanephora.core.JCGLFaceWindingOrder;
+import com.io7m.jcanephora.core.JCGLPrimitives;
+import com.io7m.jcanephora.core.JCGLTexture2DType;
+import com.io7m.jcanephora.core.JCGLTexture2DUpdateType;
+import com.io7m.jcanephora.core.JCGLTextureFilterMagnification;
+import com.io7m.jcanephora.core.JCGLTextureFilterMinification;
+import com.io7m.jcanephora.core.JCGLTextureFormat;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.JCGLTextureUpdates;
+import com.io7m.jcanephora.core.JCGLTextureWrapS;
+import com.io7m.jcanephora.core.JCGLTextureWrapT;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLTexturesType;
+import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
+import com.io7m.jcanephora.renderstate.JCGLBlendState;
+import com.io7m.jcanephora.renderstate.JCGLColorBufferMaskingState;
+import com.io7m.jcanephora.renderstate.JCGLCullingState;
+import com.io7m.jcanephora.renderstate.JCGLDepthClamping;
+import com.io7m.jcanephora.renderstate.JCGLDepthState;
+import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
+import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
+import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
+import com.io7m.jcanephora.renderstate.JCGLStencilStateMutable;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
+import com.io7m.jfunctional.Pair;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.images.api.R2ImageBufferUsableType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
+import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
+import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
+import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
+import com.io7m.r2.rendering.lights.api.R2LightBufferUsableType;
+import com.io7m.r2.rendering.lights.api.R2LightRendererType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsClipGroupConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupConsumerType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.shadow.api.R2ShadowMapContextUsableType;
+import com.io7m.r2.rendering.stencil.api.R2Stencils;
+import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironment;
+import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
+import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterMutable;
+import com.io7m.r2.shaders.light.R2LightShaderSphericalLambertBlinnPhongSingle;
+import com.io7m.r2.shaders.light.R2LightShaderTiledLambertBlinnPhong;
+import com.io7m.r2.shaders.light.R2LightShaderTiledParameters;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceRGBType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.textures.R2Texture2DStatic;
+import com.io7m.r2.textures.R2TextureDefaultsType;
+import com.io7m.r2.unit_quads.R2UnitQuadUsableType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.io7m.r2.shaders.light.api.R2LightShaderDefines.R2_LIGHT_SHADER_OUTPUT_TARGET_DEFINE;
+import static com.io7m.r2.shaders.light.api.R2LightShaderDefines.R2_LIGHT_SHADER_OUTPUT_TARGET_IBUFFER;
+import static com.io7m.r2.shaders.light.api.R2LightShaderDefines.R2_LIGHT_SHADER_OUTPUT_TARGET_LBUFFER;
+
+/**
+ * <p>A light renderer that evaluates spherical lights in a single full-screen
+ * pass per light group, rather than rendering one light volume per light.</p>
+ *
+ * <p>Unclipped spherical lights that use the {@link R2LightShaderSphericalLambertBlinnPhongSingle}
+ * shader are assigned to screen-space tiles on the CPU, and the per-tile light
+ * lists are uploaded as textures. All other lights, and all lights in clip
+ * groups, are rendered by a {@link R2LightRenderer}.</p>
+ */
+
+public final class R2LightRendererTiled implements R2LightRendererType
+{
+  /**
+   * The default width and height of tiles in pixels.
+   */
+
+  public static final int DEFAULT_TILE_SIZE = 16;
+
+  private static final Logger LOG;
+  private static final int INDEX_WIDTH = 1024;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2LightRendererTiled.class);
+  }
+
+  private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
+  private final R2LightRenderer volumes;
+  private final R2LightShaderTiledLambertBlinnPhong shader_lbuffer;
+  private final R2LightShaderTiledLambertBlinnPhong shader_ibuffer;
+  private final R2TextureDefaultsType texture_defaults;
+  private final R2UnitQuadUsableType quad;
+  private final R2LightTileBinning binning;
+  private final CapturingScene capture;
+  private final JCGLRenderStateMutable render_state;
+  private final JCGLStencilStateMutable stencil_state;
+  private final R2ShaderParametersFilterMutable<R2LightShaderTiledParameters> values;
+  private final TiledTexture tiles;
+  private final TiledTexture indices;
+  private final TiledTexture lights;
+  private final R2ShaderViewUniformBufferType view_buffer;
+
+  private R2LightRendererTiled(
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2LightRenderer in_volumes,
+    final R2LightShaderTiledLambertBlinnPhong in_shader_lbuffer,
+    final R2LightShaderTiledLambertBlinnPhong in_shader_ibuffer,
+    final R2TextureDefaultsType in_texture_defaults,
+    final R2UnitQuadUsableType in_quad,
+    final R2ShaderViewUniformBufferType in_view_buffer,
+    final int in_tile_size)
+  {
+    this.g =
+      NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
+    this.volumes =
+      NullCheck.notNull(in_volumes, "Volumes");
+    this.shader_lbuffer =
+      NullCheck.notNull(in_shader_lbuffer, "Shader (L-Buffer)");
+    this.shader_ibuffer =
+      NullCheck.notNull(in_shader_ibuffer, "Shader (I-Buffer)");
+    this.texture_defaults =
+      NullCheck.notNull(in_texture_defaults, "Texture defaults");
+    this.quad =
+      NullCheck.notNull(in_quad, "Quad");
+    this.view_buffer =
+      NullCheck.notNull(in_view_buffer, "View buffer");
+
+    this.binning = R2LightTileBinning.create(in_tile_size);
+    this.capture = new CapturingScene();
+    this.values = R2ShaderParametersFilterMutable.create();
+
+    this.tiles =
+      new TiledTexture(JCGLTextureFormat.TEXTURE_FORMAT_RG_32F_8BPP, 2);
+    this.indices =
+      new TiledTexture(JCGLTextureFormat.TEXTURE_FORMAT_R_32F_4BPP, 1);
+    this.lights =
+      new TiledTexture(JCGLTextureFormat.TEXTURE_FORMAT_RGBA_32F_16BPP, 4);
+
+    this.render_state = JCGLRenderStateMutable.create();
+
+    /*
+     * Write RGB, ignore alpha.
+     */
+
+    this.render_state.setColorBufferMaskingState(
+      JCGLColorBufferMaskingState.of(true, true, true, false));
+
+    /*
+     * The light contributions are summed with pure additive blending.
+     */
+
+    this.render_state.setBlendState(
+      Optional.of(JCGLBlendState.of(
+        JCGLBlendFunction.BLEND_ONE,
+        JCGLBlendFunction.BLEND_ONE,
+        JCGLBlendFunction.BLEND_ONE,
+        JCGLBlendFunction.BLEND_ONE,
+        JCGLBlendEquation.BLEND_EQUATION_ADD,
+        JCGLBlendEquation.BLEND_EQUATION_ADD)));
+
+    /*
+     * For full-screen quads, the front faces should be rendered.
+     */
+
+    this.render_state.setCullingState(
+      Optional.of(JCGLCullingState.of(
+        JCGLFaceSelection.FACE_BACK,
+        JCGLFaceWindingOrder.FRONT_FACE_COUNTER_CLOCKWISE)));
+
+    /*
+     * No depth testing and no depth writing is required.
+     */
+
+    this.render_state.setDepthState(JCGLDepthState.of(
+      JCGLDepthStrict.DEPTH_STRICT_ENABLED,
+      Optional.empty(),
+      JCGLDepthWriting.DEPTH_WRITE_DISABLED,
+      JCGLDepthClamping.DEPTH_CLAMP_ENABLED));
+
+    this.stencil_state = JCGLStencilStateMutable.create();
+    this.render_state.setStencilState(this.stencil_state);
+  }
+
+  /**
+   * Construct a new renderer using tiles of {@link #DEFAULT_TILE_SIZE}
+   * pixels.
+   *
+   * @param in_g                An OpenGL interface
+   * @param in_states           A render state tracker
+   * @param in_shader_env       Access to shader sources
+   * @param in_texture_defaults A set of default textures
+   * @param in_pool             An ID pool
+   * @param in_quad             A usable unit quad
+   * @param in_view             The view uniform buffer
+   *
+   * @return A new renderer
+   */
+
+  public static R2LightRendererTiled create(
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2TextureDefaultsType in_texture_defaults,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool,
+    final R2UnitQuadUsableType in_quad,
+    final R2ShaderViewUniformBufferType in_view)
+  {
+    return createWithTileSize(
+      in_g,
+      in_states,
+      in_texture_defaults,
+      in_shader_env,
+      in_pool,
+      in_quad,
+      in_view,
+      DEFAULT_TILE_SIZE);
+  }
+
+  /**
+   * Construct a new renderer.
+   *
+   * @param in_g                An OpenGL interface
+   * @param in_states           A render state tracker
+   * @param in_shader_env       Access to shader sources
+   * @param in_texture_defaults A set of default textures
+   * @param in_pool             An ID pool
+   * @param in_quad             A usable unit quad
+   * @param in_view             The view uniform buffer
+   * @param in_tile_size        The width and height of tiles in pixels
+   *
+   * @return A new renderer
+   */
+
+  public static R2LightRendererTiled createWithTileSize(
+    final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
+    final R2TextureDefaultsType in_texture_defaults,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool,
+    final R2UnitQuadUsableType in_quad,
+    final R2ShaderViewUniformBufferType in_view,
+    final int in_tile_size)
+  {
+    final R2LightRenderer volumes =
+      R2LightRenderer.create(
+        in_g,
+        in_states,
+        in_texture_defaults,
+        in_shader_env,
+        in_pool,
+        in_quad,
+        in_view);
+    final R2LightShaderTiledLambertBlinnPhong shader_lbuffer =
+      R2LightShaderTiledLambertBlinnPhong.create(
+        in_g.shaders(),
+        environmentWithTarget(
+          in_shader_env, R2_LIGHT_SHADER_OUTPUT_TARGET_LBUFFER),
+        in_pool);
+    final R2LightShaderTiledLambertBlinnPhong shader_ibuffer =
+      R2LightShaderTiledLambertBlinnPhong.create(
+        in_g.shaders(),
+        environmentWithTarget(
+          in_shader_env, R2_LIGHT_SHADER_OUTPUT_TARGET_IBUFFER),
+        in_pool);
+
+    return new R2LightRendererTiled(
+      in_g,
+      in_states,
+      volumes,
+      shader_lbuffer,
+      shader_ibuffer,
+      in_texture_defaults,
+      in_quad,
+      in_view,
+      in_tile_size);
+  }
+
+  /**
+   * The tiled shader is owned by the renderer rather than the lights, so it
+   * is compiled once for each output target regardless of the target (if
+   * any) defined in the given environment.
+   */
+
+  private static R2ShaderPreprocessingEnvironmentReadableType
+  environmentWithTarget(
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final String target)
+  {
+    final R2ShaderPreprocessingEnvironment env =
+      R2ShaderPreprocessingEnvironment.create(in_shader_env.preprocessor());
+    in_shader_env.preprocessorDefines().forEach(env::preprocessorDefineSet);
+    env.preprocessorDefineSet(R2_LIGHT_SHADER_OUTPUT_TARGET_DEFINE, target);
+    return env;
+  }
+
+  @Override
+  public void delete(final JCGLInterfaceGL33Type g3)
+    throws R2Exception
+  {
+    NullCheck.notNull(g3, "G33");
+
+    if (!this.shader_lbuffer.isDeleted()) {
+      LOG.debug("delete");
+      this.volumes.delete(g3);
+      this.shader_lbuffer.delete(g3);
+      this.shader_ibuffer.delete(g3);
+      this.tiles.delete(g3);
+      this.indices.delete(g3);
+      this.lights.delete(g3);
+    }
+  }
+
+  @Override
+  public boolean isDeleted()
+  {
+    return this.shader_lbuffer.isDeleted();
+  }
+
+  @Override
+  public void renderLightsToLightBuffer(
+    final R2GeometryBufferUsableType gbuffer,
+    final AreaL area,
+    final Optional<R2LightBufferUsableType> lbuffer,
+    final JCGLProfilingContextType pc,
+    final JCGLTextureUnitContextParentType uc,
+    final R2ShadowMapContextUsableType shadows,
+    final R2MatricesObserverType m,
+    final R2SceneLightsType s)
+  {
+    NullCheck.notNull(s, "Scene");
+    Preconditions.checkPrecondition(
+      !this.isDeleted(), "Renderer must not be deleted");
+
+    this.capture.begin(s);
+    try {
+      this.volumes.renderLightsToLightBuffer(
+        gbuffer, area, lbuffer, pc, uc, shadows, m, this.capture);
+      this.renderTiled(gbuffer, area, pc, uc, m, this.shader_lbuffer);
+    } finally {
+      this.capture.finish();
+    }
+  }
+
+  @Override
+  public void renderLightsToImageBuffer(
+    final R2GeometryBufferUsableType gbuffer,
+    final AreaL area,
+    final Optional<R2ImageBufferUsableType> ibuffer,
+    final JCGLProfilingContextType pc,
+    final JCGLTextureUnitContextParentType uc,
+    final R2ShadowMapContextUsableType shadows,
+    final R2MatricesObserverType m,
+    final R2SceneLightsType s)
+  {
+    NullCheck.notNull(s, "Scene");
+    Preconditions.checkPrecondition(
+      !this.isDeleted(), "Renderer must not be deleted");
+
+    this.capture.begin(s);
+    try {
+      this.volumes.renderLightsToImageBuffer(
+        gbuffer, area, ibuffer, pc, uc, shadows, m, this.capture);
+      this.renderTiled(gbuffer, area, pc, uc, m, this.shader_ibuffer);
+    } finally {
+      this.capture.finish();
+    }
+  }
+
+  private void renderTiled(
+    final R2GeometryBufferUsableType gbuffer,
+    final AreaL area,
+    final JCGLProfilingContextType pc,
+    final JCGLTextureUnitContextParentType uc,
+    final R2MatricesObserverType m,
+    final R2LightShaderTiledLambertBlinnPhong shader)
+  {
+    final JCGLProfilingContextType pc_tiled =
+      pc.childContext("lights").childContext("tiled");
+
+    pc_tiled.startMeasuringIfEnabled();
+    try {
+      this.view_buffer.update(this.g, m);
+      for (int group = 1; group < R2Stencils.maximumGroups(); ++group) {
+        final List<R2LightSphericalSingleReadableType> captured =
+          this.capture.consumer.group_consumer.captured.get(group);
+        if (!captured.isEmpty()) {
+          if (this.binGroup(area, uc, m, captured)) {
+            this.renderGroup(gbuffer, area, uc, m, shader, group);
+          }
+        }
+      }
+    } finally {
+      pc_tiled.stopMeasuringIfEnabled();
+    }
+  }
+
+  /**
+   * Assign the given lights to tiles and upload the resulting lists.
+   *
+   * @return {@code true} iff at least one light is visible
+   */
+
+  private boolean binGroup(
+    final AreaL area,
+    final JCGLTextureUnitContextParentType uc,
+    final R2MatricesObserverType m,
+    final List<R2LightSphericalSingleReadableType> captured)
+  {
+    final JCGLTexturesType g_tex = this.g.textures();
+    final int light_max = captured.size();
+
+    this.binning.reset(
+      Math.toIntExact(area.sizeX()), Math.toIntExact(area.sizeY()));
+    this.lights.ensure(g_tex, uc, 2, light_max);
+
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view =
+      m.matrixView();
+    final FloatBuffer light_data = this.lights.floats;
+
+    for (int index = 0; index < light_max; ++index) {
+      final R2LightSphericalSingleReadableType light = captured.get(index);
+      final PVector3D<R2SpaceWorldType> p = light.originPosition();
+
+      final double ex =
+        (view.r0c0() * p.x()) + (view.r0c1() * p.y())
+          + (view.r0c2() * p.z()) + view.r0c3();
+      final double ey =
+        (view.r1c0() * p.x()) + (view.r1c1() * p.y())
+          + (view.r1c2() * p.z()) + view.r1c3();
+      final double ez =
+        (view.r2c0() * p.x()) + (view.r2c1() * p.y())
+          + (view.r2c2() * p.z()) + view.r2c3();
+
+      final double radius = light.radius();
+      if (this.binning.add(ex, ey, ez, radius, m.matrixProjection())) {
+        final PVector3D<R2SpaceRGBType> color = light.color();
+        final double intensity = light.intensity();
+        final int base = (this.binning.lightCount() - 1) * 8;
+        light_data.put(base, (float) ex);
+        light_data.put(base + 1, (float) ey);
+        light_data.put(base + 2, (float) ez);
+        light_data.put(base + 3, (float) (1.0 / radius));
+        light_data.put(base + 4, (float) (color.x() * intensity));
+        light_data.put(base + 5, (float) (color.y() * intensity));
+        light_data.put(base + 6, (float) (color.z() * intensity));
+        light_data.put(base + 7, (float) (1.0 / light.falloff()));
+      }
+    }
+
+    if (this.binning.lightCount() == 0) {
+      return false;
+    }
+
+    this.binning.finish();
+
+    /*
+     * Pack the offset and count of each tile.
+     */
+
+    final int tiles_x = this.binning.tilesX();
+    final int tiles_y = this.binning.tilesY();
+    this.tiles.ensure(g_tex, uc, tiles_x, tiles_y);
+
+    final FloatBuffer tile_data = this.tiles.floats;
+    final int tile_stride = this.tiles.width;
+    for (int y = 0; y < tiles_y; ++y) {
+      for (int x = 0; x < tiles_x; ++x) {
+        final int base = ((y * tile_stride) + x) * 2;
+        tile_data.put(base, (float) this.binning.tileOffset(x, y));
+        tile_data.put(base + 1, (float) this.binning.tileCount(x, y));
+      }
+    }
+
+    /*
+     * Pack the light indices.
+     */
+
+    final int index_count = this.binning.indexCount();
+    final int index_rows = (index_count + INDEX_WIDTH - 1) / INDEX_WIDTH;
+    this.indices.ensure(g_tex, uc, INDEX_WIDTH, Math.max(1, index_rows));
+
+    final FloatBuffer index_data = this.indices.floats;
+    for (int index = 0; index < index_count; ++index) {
+      index_data.put(index, (float) this.binning.index(index));
+    }
+
+    final JCGLTextureUnitContextType tc = uc.unitContextNew();
+    try {
+      this.tiles.upload(g_tex, tc);
+      this.indices.upload(g_tex, tc);
+      this.lights.upload(g_tex, tc);
+    } finally {
+      tc.unitContextFinish(g_tex);
+    }
+    return true;
+  }
+
+  private void renderGroup(
+    final R2GeometryBufferUsableType gbuffer,
+    final AreaL area,
+    final JCGLTextureUnitContextParentType uc,
+    final R2MatricesObserverType m,
+    final R2LightShaderTiledLambertBlinnPhong shader,
+    final int group)
+  {
+    R2LightRenderer.configureStencilState(group, this.stencil_state);
+    this.render_state.setStencilState(this.stencil_state);
+
+    final JCGLTexturesType g_tex = this.g.textures();
+    final JCGLTextureUnitContextType tc = uc.unitContextNew();
+    try {
+      this.values.setTextureUnitContext(tc);
+      this.values.setValues(R2LightShaderTiledParameters.of(
+        m,
+        area,
+        gbuffer.albedoEmissiveTexture(),
+        gbuffer.normalTexture(),
+        gbuffer.specularTextureOrDefault(this.texture_defaults),
+        gbuffer.depthTexture(),
+        this.tiles.texture(),
+        this.indices.texture(),
+        this.lights.texture(),
+        this.binning.tileSize(),
+        INDEX_WIDTH));
+
+      this.states.activate(this.g, this.render_state);
+      this.g.arrayObjects().arrayObjectBind(this.quad.arrayObject());
+
+      shader.onActivate(this.g);
+      try {
+        shader.onReceiveFilterValues(this.g, this.values);
+        shader.onValidate();
+        this.g.drawing().drawElements(JCGLPrimitives.PRIMITIVE_TRIANGLES);
+      } finally {
+        shader.onDeactivate(this.g);
+      }
+
+      this.g.arrayObjects().arrayObjectUnbind();
+    } finally {
+      tc.unitContextFinish(g_tex);
+    }
+  }
+
+  /**
+   * A float texture that is reallocated whenever it is too small for the
+   * data it must hold, and otherwise reused across frames.
+   */
+
+  private static final class TiledTexture
+  {
+    private final JCGLTextureFormat format;
+    private final int components;
+    private @Nullable R2Texture2DStatic texture;
+    private @Nullable JCGLTexture2DUpdateType update;
+    private @Nullable FloatBuffer floats;
+    private int width;
+    private int height;
+
+    TiledTexture(
+      final JCGLTextureFormat in_format,
+      final int in_components)
+    {
+      this.format = NullCheck.notNull(in_format, "Format");
+      this.components = in_components;
+    }
+
+    void ensure(
+      final JCGLTexturesType g_tex,
+      final JCGLTextureUnitContextParentType uc,
+      final int in_width,
+      final int in_height)
+    {
+      if (this.texture != null
+        && in_width <= this.width
+        && in_height <= this.height) {
+        return;
+      }
+
+      int new_height = Math.max(1, this.height);
+      while (new_height < in_height) {
+        new_height *= 2;
+      }
+      final int new_width = Math.max(in_width, this.width);
+
+      if (this.texture != null) {
+        g_tex.texture2DDelete(this.texture.textureWritable());
+      }
+
+      final JCGLTextureUnitContextType cc = uc.unitContextNew();
+      try {
+        final Pair<JCGLTextureUnitType, JCGLTexture2DType> p =
+          cc.unitContextAllocateTexture2D(
+            g_tex,
+            (long) new_width,
+            (long) new_height,
+            this.format,
+            JCGLTextureWrapS.TEXTURE_WRAP_CLAMP_TO_EDGE,
+            JCGLTextureWrapT.TEXTURE_WRAP_CLAMP_TO_EDGE,
+            JCGLTextureFilterMinification.TEXTURE_FILTER_NEAREST,
+            JCGLTextureFilterMagnification.TEXTURE_FILTER_NEAREST);
+
+        this.texture = R2Texture2DStatic.of(p.getRight());
+        this.update = JCGLTextureUpdates.newUpdateReplacingAll2D(p.getRight());
+        this.floats = this.update.data().asFloatBuffer();
+        this.width = new_width;
+        this.height = new_height;
+      } finally {
+        cc.unitContextFinish(g_tex);
+      }
+    }
+
+    R2Texture2DStatic texture()
+    {
+      return NullCheck.notNull(this.texture, "Texture");
+    }
+
+    void upload(
+      final JCGLTexturesType g_tex,
+      final JCGLTextureUnitContextType tc)
+    {
+      final JCGLTextureUnitType unit =
+        tc.unitContextBindTexture2D(g_tex, this.texture().texture());
+      g_tex.texture2DUpdate(unit, NullCheck.notNull(this.update, "Update"));
+    }
+
+    void delete(
+      final JCGLInterfaceGL33Type g3)
+    {
+      if (this.texture != null) {
+        this.texture.delete(g3);
+        this.texture = null;
+        this.update = null;
+        this.floats = null;
+        this.width = 0;
+        this.height = 0;
+      }
+    }
+  }
+
+  /**
+   * A scene that passes through all lights to the given consumer, except for
+   * the spherical lights that can be evaluated by the tiled shader. Those
+   * lights are captured and rendered afterwards.
+   */
+
+  private static final class CapturingScene implements R2SceneLightsType
+  {
+    private final CapturingConsumer consumer;
+    private @Nullable R2SceneLightsType scene;
+
+    CapturingScene()
+    {
+      this.consumer = new CapturingConsumer();
+    }
+
+    void begin(
+      final R2SceneLightsType in_scene)
+    {
+      this.scene = NullCheck.notNull(in_scene, "Scene");
+      this.consumer.group_consumer.clear();
+    }
+
+    void finish()
+    {
+      this.scene = null;
+      this.consumer.delegate = null;
+    }
+
+    private R2SceneLightsType scene()
+    {
+      return NullCheck.notNull(this.scene, "Scene");
+    }
+
+    @Override
+    public void lightsReset()
+    {
+      this.scene().lightsReset();
+    }
+
+    @Override
+    public R2SceneLightsGroupType lightsGetGroup(
+      final int group)
+    {
+      return this.scene().lightsGetGroup(group);
+    }
+
+    @Override
+    public void lightsExecute(
+      final R2SceneLightsConsumerType c)
+    {
+      this.consumer.delegate = NullCheck.notNull(c, "Consumer");
+      this.scene().lightsExecute(this.consumer);
+    }
+
+    @Override
+    public long lightsCount()
+    {
+      return this.scene().lightsCount();
+    }
+  }
+
+  private static final class CapturingConsumer
+    implements R2SceneLightsConsumerType
+  {
+    private final CapturingGroupConsumer group_consumer;
+    private @Nullable R2SceneLightsConsumerType delegate;
+
+    CapturingConsumer()
+    {
+      this.group_consumer = new CapturingGroupConsumer();
+    }
+
+    private R2SceneLightsConsumerType delegate()
+    {
+      return NullCheck.notNull(this.delegate, "Delegate");
+    }
+
+    @Override
+    public void onStart()
+    {
+      this.delegate().onStart();
+    }
+
+    @Override
+    public R2SceneLightsClipGroupConsumerType onStartClipGroup(
+      final R2InstanceSingleType i,
+      final int group)
+    {
+      return this.delegate().onStartClipGroup(i, group);
+    }
+
+    @Override
+    public R2SceneLightsGroupConsumerType onStartGroup(
+      final int group)
+    {
+      this.group_consumer.delegate = this.delegate().onStartGroup(group);
+      this.group_consumer.group = group;
+      return this.group_consumer;
+    }
+
+    @Override
+    public void onFinish()
+    {
+      this.group_consumer.delegate = null;
+      this.delegate().onFinish();
+    }
+  }
+
+  private static final class CapturingGroupConsumer
+    implements R2SceneLightsGroupConsumerType
+  {
+    private final List<List<R2LightSphericalSingleReadableType>> captured;
+    private @Nullable R2SceneLightsGroupConsumerType delegate;
+    private boolean capturing;
+    private int group;
+
+    CapturingGroupConsumer()
+    {
+      final int groups = R2Stencils.maximumGroups();
+      this.captured = new ArrayList<>(groups);
+      for (int index = 0; index < groups; ++index) {
+        this.captured.add(new ArrayList<>(16));
+      }
+    }
+
+    void clear()
+    {
+      for (int index = 0; index < this.captured.size(); ++index) {
+        this.captured.get(index).clear();
+      }
+      this.capturing = false;
+    }
+
+    private R2SceneLightsGroupConsumerType delegate()
+    {
+      return NullCheck.notNull(this.delegate, "Delegate");
+    }
+
+    @Override
+    public void onStart()
+    {
+      this.delegate().onStart();
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderStart(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+      this.capturing =
+        s instanceof R2LightShaderSphericalLambertBlinnPhongSingle;
+      if (!this.capturing) {
+        this.delegate().onLightSingleShaderStart(s);
+      }
+    }
+
+    @Override
+    public void onLightSingleArrayStart(
+      final R2LightSingleReadableType i)
+    {
+      if (!this.capturing) {
+        this.delegate().onLightSingleArrayStart(i);
+      }
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType> void onLightSingle(
+      final R2ShaderLightSingleUsableType<M> s,
+      final M i)
+    {
+      if (this.capturing) {
+        this.captured.get(this.group).add(
+          (R2LightSphericalSingleReadableType) i);
+      } else {
+        this.delegate().onLightSingle(s, i);
+      }
+    }
+
+    @Override
+    public <M extends R2LightSingleReadableType>
+    void onLightSingleShaderFinish(
+      final R2ShaderLightSingleUsableType<M> s)
+    {
+      if (!this.capturing) {
+        this.delegate().onLightSingleShaderFinish(s);
+      }
+      this.capturing = false;
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.delegate().onLightBatchedShaderStart(s);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType> void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M i)
+    {
+      this.delegate().onLightBatched(s, i);
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.delegate().onLightBatchedShaderFinish(s);
+    }
+
+    @Override
+    public void onFinish()
+    {
+      this.delegate().onFinish();
+    }
+  }
+}
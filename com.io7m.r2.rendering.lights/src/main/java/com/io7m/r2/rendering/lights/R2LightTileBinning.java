@@ -0,0 +1,415 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.rendering.lights;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.spaces.R2SpaceClipType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+
+import java.util.Arrays;
+
+/**
+ * <p>A structure that assigns spherical lights to the screen-space tiles that
+ * they may affect.</p>
+ *
+ * <p>Lights are added with {@link #add(double, double, double, double,
+ * PMatrix4x4D)}, and the per-tile light lists are produced by {@link
+ * #finish()}. The lists of all tiles are packed into a single array of light
+ * indices, with each tile holding an offset and a count into that array.</p>
+ *
+ * <p>The bounds used for each light are conservative: the screen-space bounds
+ * of the eye-space bounding box of the light's sphere. A light that straddles
+ * the observer's plane is assumed to cover the whole screen.</p>
+ */
+
+public final class R2LightTileBinning
+{
+  private static final double EPSILON = 1.0e-6;
+
+  private final int tile_size;
+  private int tiles_x;
+  private int tiles_y;
+  private int light_count;
+  private int index_count;
+  private boolean finished;
+
+  private int[] light_bounds;
+  private int[] tile_offsets;
+  private int[] tile_counts;
+  private int[] indices;
+
+  private R2LightTileBinning(
+    final int in_tile_size)
+  {
+    this.tile_size = in_tile_size;
+    this.light_bounds = new int[4 * 64];
+    this.tile_offsets = new int[64];
+    this.tile_counts = new int[64];
+    this.indices = new int[256];
+    this.finished = true;
+  }
+
+  /**
+   * Create a new binning structure.
+   *
+   * @param tile_size The width and height of tiles in pixels
+   *
+   * @return A new binning structure
+   */
+
+  public static R2LightTileBinning create(
+    final int tile_size)
+  {
+    Preconditions.checkPreconditionI(
+      tile_size,
+      tile_size > 0,
+      s -> "Tile size must be positive");
+    return new R2LightTileBinning(tile_size);
+  }
+
+  /**
+   * @return The width and height of tiles in pixels
+   */
+
+  public int tileSize()
+  {
+    return this.tile_size;
+  }
+
+  /**
+   * @return The number of tiles on the X axis
+   */
+
+  public int tilesX()
+  {
+    return this.tiles_x;
+  }
+
+  /**
+   * @return The number of tiles on the Y axis
+   */
+
+  public int tilesY()
+  {
+    return this.tiles_y;
+  }
+
+  /**
+   * @return The number of lights that were accepted since the last reset
+   */
+
+  public int lightCount()
+  {
+    return this.light_count;
+  }
+
+  /**
+   * @return The total number of light indices over all tiles
+   */
+
+  public int indexCount()
+  {
+    this.checkFinished();
+    return this.index_count;
+  }
+
+  /**
+   * Remove all lights and set the size of the screen.
+   *
+   * @param width  The width of the screen in pixels
+   * @param height The height of the screen in pixels
+   */
+
+  public void reset(
+    final int width,
+    final int height)
+  {
+    Preconditions.checkPreconditionI(
+      width, width > 0, w -> "Width must be positive");
+    Preconditions.checkPreconditionI(
+      height, height > 0, h -> "Height must be positive");
+
+    this.tiles_x = (width + this.tile_size - 1) / this.tile_size;
+    this.tiles_y = (height + this.tile_size - 1) / this.tile_size;
+
+    final int tiles = this.tiles_x * this.tiles_y;
+    if (this.tile_counts.length < tiles) {
+      this.tile_counts = new int[tiles];
+      this.tile_offsets = new int[tiles];
+    }
+
+    this.light_count = 0;
+    this.index_count = 0;
+    this.finished = false;
+  }
+
+  /**
+   * Add a light. If the light is accepted, it is assigned the index {@code
+   * lightCount() - 1}.
+   *
+   * @param x          The eye-space X coordinate of the light's origin
+   * @param y          The eye-space Y coordinate of the light's origin
+   * @param z          The eye-space Z coordinate of the light's origin
+   * @param radius     The light's radius
+   * @param projection The observer's projection matrix
+   *
+   * @return {@code true} iff the light may affect at least one tile
+   */
+
+  public boolean add(
+    final double x,
+    final double y,
+    final double z,
+    final double radius,
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> projection)
+  {
+    Preconditions.checkPrecondition(
+      !this.finished, "Binning must not have been finished");
+
+    double min_x = Double.POSITIVE_INFINITY;
+    double min_y = Double.POSITIVE_INFINITY;
+    double max_x = Double.NEGATIVE_INFINITY;
+    double max_y = Double.NEGATIVE_INFINITY;
+    int behind = 0;
+
+    for (int index = 0; index < 8; ++index) {
+      final double cx = (index & 1) == 0 ? x - radius : x + radius;
+      final double cy = (index & 2) == 0 ? y - radius : y + radius;
+      final double cz = (index & 4) == 0 ? z - radius : z + radius;
+
+      final double clip_w =
+        (projection.r3c0() * cx)
+          + (projection.r3c1() * cy)
+          + (projection.r3c2() * cz)
+          + projection.r3c3();
+
+      if (clip_w <= EPSILON) {
+        ++behind;
+        continue;
+      }
+
+      final double clip_x =
+        (projection.r0c0() * cx)
+          + (projection.r0c1() * cy)
+          + (projection.r0c2() * cz)
+          + projection.r0c3();
+      final double clip_y =
+        (projection.r1c0() * cx)
+          + (projection.r1c1() * cy)
+          + (projection.r1c2() * cz)
+          + projection.r1c3();
+
+      final double ndc_x = clip_x / clip_w;
+      final double ndc_y = clip_y / clip_w;
+      min_x = Math.min(min_x, ndc_x);
+      min_y = Math.min(min_y, ndc_y);
+      max_x = Math.max(max_x, ndc_x);
+      max_y = Math.max(max_y, ndc_y);
+    }
+
+    if (behind == 8) {
+      return false;
+    }
+
+    if (behind > 0) {
+      min_x = -1.0;
+      min_y = -1.0;
+      max_x = 1.0;
+      max_y = 1.0;
+    }
+
+    if (max_x < -1.0 || max_y < -1.0 || min_x > 1.0 || min_y > 1.0) {
+      return false;
+    }
+
+    final int x0 = this.tileX(min_x);
+    final int x1 = this.tileX(max_x);
+    final int y0 = this.tileY(min_y);
+    final int y1 = this.tileY(max_y);
+
+    final int base = this.light_count * 4;
+    if (base + 4 > this.light_bounds.length) {
+      this.light_bounds =
+        Arrays.copyOf(this.light_bounds, this.light_bounds.length * 2);
+    }
+
+    this.light_bounds[base] = x0;
+    this.light_bounds[base + 1] = y0;
+    this.light_bounds[base + 2] = x1;
+    this.light_bounds[base + 3] = y1;
+    ++this.light_count;
+    return true;
+  }
+
+  private int tileX(final double ndc)
+  {
+    final double c = Math.max(-1.0, Math.min(1.0, ndc));
+    final int t = (int) (((c * 0.5) + 0.5) * (double) this.tiles_x);
+    return Math.min(t, this.tiles_x - 1);
+  }
+
+  private int tileY(final double ndc)
+  {
+    final double c = Math.max(-1.0, Math.min(1.0, ndc));
+    final int t = (int) (((c * 0.5) + 0.5) * (double) this.tiles_y);
+    return Math.min(t, this.tiles_y - 1);
+  }
+
+  /**
+   * Build the per-tile light lists for all added lights.
+   */
+
+  public void finish()
+  {
+    Preconditions.checkPrecondition(
+      !this.finished, "Binning must not have been finished");
+
+    final int tiles = this.tiles_x * this.tiles_y;
+    Arrays.fill(this.tile_counts, 0, tiles, 0);
+
+    /*
+     * Count the lights in each tile.
+     */
+
+    int total = 0;
+    for (int light = 0; light < this.light_count; ++light) {
+      final int base = light * 4;
+      final int x0 = this.light_bounds[base];
+      final int y0 = this.light_bounds[base + 1];
+      final int x1 = this.light_bounds[base + 2];
+      final int y1 = this.light_bounds[base + 3];
+      for (int ty = y0; ty <= y1; ++ty) {
+        for (int tx = x0; tx <= x1; ++tx) {
+          ++this.tile_counts[(ty * this.tiles_x) + tx];
+        }
+      }
+      total += ((x1 - x0) + 1) * ((y1 - y0) + 1);
+    }
+
+    /*
+     * Calculate the offset of the list of each tile.
+     */
+
+    int offset = 0;
+    for (int tile = 0; tile < tiles; ++tile) {
+      this.tile_offsets[tile] = offset;
+      offset += this.tile_counts[tile];
+    }
+
+    if (this.indices.length < total) {
+      int size = this.indices.length;
+      while (size < total) {
+        size *= 2;
+      }
+      this.indices = new int[size];
+    }
+
+    /*
+     * Fill in the lists, using the counts as cursors.
+     */
+
+    Arrays.fill(this.tile_counts, 0, tiles, 0);
+    for (int light = 0; light < this.light_count; ++light) {
+      final int base = light * 4;
+      final int x0 = this.light_bounds[base];
+      final int y0 = this.light_bounds[base + 1];
+      final int x1 = this.light_bounds[base + 2];
+      final int y1 = this.light_bounds[base + 3];
+      for (int ty = y0; ty <= y1; ++ty) {
+        for (int tx = x0; tx <= x1; ++tx) {
+          final int tile = (ty * this.tiles_x) + tx;
+          this.indices[this.tile_offsets[tile] + this.tile_counts[tile]] =
+            light;
+          ++this.tile_counts[tile];
+        }
+      }
+    }
+
+    this.index_count = total;
+    this.finished = true;
+  }
+
+  private void checkFinished()
+  {
+    Preconditions.checkPrecondition(
+      this.finished, "Binning must have been finished");
+  }
+
+  /**
+   * @param x The tile X coordinate
+   * @param y The tile Y coordinate
+   *
+   * @return The offset of the first light index of the given tile
+   */
+
+  public int tileOffset(
+    final int x,
+    final int y)
+  {
+    this.checkFinished();
+    return this.tile_offsets[this.tileIndex(x, y)];
+  }
+
+  /**
+   * @param x The tile X coordinate
+   * @param y The tile Y coordinate
+   *
+   * @return The number of lights that may affect the given tile
+   */
+
+  public int tileCount(
+    final int x,
+    final int y)
+  {
+    this.checkFinished();
+    return this.tile_counts[this.tileIndex(x, y)];
+  }
+
+  /**
+   * @param i The offset of the light index
+   *
+   * @return The light index at offset {@code i}
+   */
+
+  public int index(
+    final int i)
+  {
+    this.checkFinished();
+    Preconditions.checkPreconditionI(
+      i,
+      i >= 0 && i < this.index_count,
+      k -> "Index must be in the range [0, " + this.index_count + ")");
+    return this.indices[i];
+  }
+
+  private int tileIndex(
+    final int x,
+    final int y)
+  {
+    Preconditions.checkPreconditionI(
+      x,
+      x >= 0 && x < this.tiles_x,
+      k -> "Tile X coordinate must be in the range [0, " + this.tiles_x + ")");
+    Preconditions.checkPreconditionI(
+      y,
+      y >= 0 && y < this.tiles_y,
+      k -> "Tile Y coordinate must be in the range [0, " + this.tiles_y + ")");
+    return (y * this.tiles_x) + x;
+  }
+}
@@ -20,7 +20,10 @@ import com.io7m.jaffirm.core.Preconditions;
 import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
 import com.io7m.jnull.NullCheck;
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.rendering.api.R2DrawKeySorter;
+import com.io7m.r2.rendering.api.R2DrawKeys;
 import com.io7m.r2.rendering.lights.api.R2ExceptionLightAlreadyVisible;
 import com.io7m.r2.rendering.lights.api.R2ExceptionLightClipGroupDeleted;
 import com.io7m.r2.rendering.lights.api.R2SceneLightsClipGroupConsumerType;
@@ -30,18 +33,30 @@ import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupConsumerType;
 import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupType;
 import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
 import com.io7m.r2.rendering.stencil.api.R2Stencils;
+import com.io7m.r2.shaders.api.R2ShaderUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
-import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 /**
- * The default implementation of the {@link R2SceneLightsType} interface.
+ * <p>The default implementation of the {@link R2SceneLightsType} interface.</p>
+ *
+ * <p>The lights in each group and clip group are assigned draw keys (see
+ * {@link R2DrawKeys}) consisting of the shader and the array object, and
+ * are radix sorted by key when the lights are executed. Shaders and array
+ * objects are ordered by the order in which they were first added, and
+ * lights with the same shader and array object are delivered in the order
+ * in which they were added.</p>
+ *
+ * <p>Batched lights are stored and sorted in the same manner, and are
+ * delivered after the single lights of each group and clip group.</p>
  */
 
 public final class R2SceneLights implements R2SceneLightsType
@@ -53,7 +68,7 @@ public final class R2SceneLights implements R2SceneLightsType
   }
 
   private final Group[] groups;
-  private final ObjectArrayList<R2LightSingleReadableType> lights_sorted;
+  private final R2DrawKeySorter sorter;
   private int group_max;
 
   private R2SceneLights()
@@ -64,7 +79,7 @@ public final class R2SceneLights implements R2SceneLightsType
       this.groups[index] = new Group(index);
     }
     this.group_max = 1;
-    this.lights_sorted = new ObjectArrayList<>();
+    this.sorter = R2DrawKeySorter.create();
   }
 
   /**
@@ -76,13 +91,28 @@ public final class R2SceneLights implements R2SceneLightsType
     return new R2SceneLights();
   }
 
+  private static R2ExceptionLightAlreadyVisible errorLightAlreadyVisible(
+    final long l_id,
+    final int group)
+  {
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("Light already visible in group.");
+    sb.append(System.lineSeparator());
+    sb.append("Light: ");
+    sb.append(l_id);
+    sb.append(System.lineSeparator());
+    sb.append("Group: ");
+    sb.append(group);
+    sb.append(System.lineSeparator());
+    return new R2ExceptionLightAlreadyVisible(sb.toString());
+  }
+
   private void clear()
   {
     for (int index = 1; index < this.group_max; ++index) {
       this.groups[index].clear();
     }
     this.group_max = 1;
-    this.lights_sorted.clear();
   }
 
   @Override
@@ -123,7 +153,7 @@ public final class R2SceneLights implements R2SceneLightsType
 
     for (int index = 1; index < this.group_max; ++index) {
       final Group g = this.groups[index];
-      if (g.lights_unclipped.isEmpty()) {
+      if (g.lights_unclipped.size == 0 && g.batches_unclipped.size == 0) {
         continue;
       }
 
@@ -136,6 +166,11 @@ public final class R2SceneLights implements R2SceneLightsType
     final R2SceneLightsConsumerType c,
     final Group g)
   {
+    final Lights e = g.lights_unclipped;
+    e.sort(this.sorter);
+    final Lights b = g.batches_unclipped;
+    b.sort(this.sorter);
+
     final R2SceneLightsGroupConsumerType gv = c.onStartGroup(g.id);
 
     try {
@@ -145,60 +180,59 @@ public final class R2SceneLights implements R2SceneLightsType
        * For each single instance shader {@code s}...
        */
 
-      final ObjectIterator<R2ShaderLightSingleUsableType<?>> bs_iter =
-        g.light_shaders.values().iterator();
-
-      while (bs_iter.hasNext()) {
+      final int end = e.size;
+      int index = 0;
+      while (index < end) {
+        final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
         final R2ShaderLightSingleUsableType<R2LightSingleReadableType> s =
           (R2ShaderLightSingleUsableType<R2LightSingleReadableType>)
-            bs_iter.next();
+            e.shader(e.order[index]);
+
+        gv.onLightSingleShaderStart(s);
 
         /*
-         * If any lights are present that do not belong to a clip group, then
-         * render them.
+         * The lights are sorted by their array objects, so render all
+         * lights with the minimum number of array object bindings.
          */
 
-        final long s_id = s.shaderID();
-        if (g.shader_to_lights.containsKey(s_id)) {
-          gv.onLightSingleShaderStart(s);
-
-          /*
-           * Sort the lights by their array object lights, to allow
-           * for rendering with the fewest number of array object binds.
-           */
-
-          Preconditions.checkPrecondition(
-            g.shader_to_lights.containsKey(s_id), "Shader ID must exist");
-
-          final LongSet s_lights =
-            NullCheck.notNull(g.shader_to_lights.get(s_id), "Light set");
-
-          this.sortLights(g, s_lights, this.lights_sorted);
-
-          /*
-           * Render all lights with the minimum number of array object
-           * bindings.
-           */
-
-          int current_array = -1;
-          final int sorted_size = this.lights_sorted.size();
-          for (int index = 0; index < sorted_size; ++index) {
-            final R2LightSingleReadableType i =
-              this.lights_sorted.get(index);
-            final JCGLArrayObjectUsableType array_object =
-              i.arrayObject();
-            final int next_array = array_object.glName();
-            if (next_array != current_array) {
-              gv.onLightSingleArrayStart(i);
-            }
-            current_array = next_array;
-            gv.onLightSingle(s, i);
+        int current_array = -1;
+        while (index < end
+          && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
+          final R2LightSingleReadableType i =
+            (R2LightSingleReadableType) e.light(e.order[index]);
+          final int next_array = R2DrawKeys.array(e.sorted_keys[index]);
+          if (next_array != current_array) {
+            gv.onLightSingleArrayStart(i);
           }
-
-          gv.onLightSingleShaderFinish(s);
+          current_array = next_array;
+          gv.onLightSingle(s, i);
+          ++index;
         }
+
+        gv.onLightSingleShaderFinish(s);
       }
 
+      /*
+       * For each batched shader {@code s}...
+       */
+
+      final int b_end = b.size;
+      index = 0;
+      while (index < b_end) {
+        final long s_key = R2DrawKeys.shaderPrefix(b.sorted_keys[index]);
+        final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> s =
+          (R2ShaderLightBatchedUsableType<R2LightBatchedReadableType>)
+            b.shader(b.order[index]);
+
+        gv.onLightBatchedShaderStart(s);
+        while (index < b_end
+          && R2DrawKeys.shaderPrefix(b.sorted_keys[index]) == s_key) {
+          gv.onLightBatched(
+            s, (R2LightBatchedReadableType) b.light(b.order[index]));
+          ++index;
+        }
+        gv.onLightBatchedShaderFinish(s);
+      }
     } finally {
       gv.onFinish();
     }
@@ -213,23 +247,20 @@ public final class R2SceneLights implements R2SceneLightsType
 
     for (int index = 1; index < this.group_max; ++index) {
       final Group g = this.groups[index];
-      if (g.clip_groups.isEmpty()) {
-        continue;
-      }
 
       /*
-       * Execute each non-empty clip group...
+       * Execute each non-empty clip group in the order in which they were
+       * created...
        */
 
-      final LongIterator k_iter = g.clip_groups.keySet().iterator();
-      while (k_iter.hasNext()) {
-        final long cg_id = k_iter.nextLong();
-        final Group.ClipGroup cg = g.clip_groups.get(cg_id);
-        if (cg.shader_to_lights.isEmpty()) {
+      final int size = g.clip_groups.size();
+      for (int cg_index = 0; cg_index < size; ++cg_index) {
+        final Group.ClipGroup cg = g.clip_groups.get(cg_index);
+        if (cg.lights.size == 0 && cg.batches.size == 0) {
           continue;
         }
 
-        this.lightsExecuteClipGroup(c, cg);
+        this.lightsExecuteClipGroup(c, g, cg);
       }
     }
   }
@@ -237,10 +268,14 @@ public final class R2SceneLights implements R2SceneLightsType
   @SuppressWarnings("unchecked")
   private void lightsExecuteClipGroup(
     final R2SceneLightsConsumerType c,
+    final Group g,
     final Group.ClipGroup cg)
   {
-    final Group g =
-      (Group) cg.getGroup();
+    final Lights e = cg.lights;
+    e.sort(this.sorter);
+    final Lights b = cg.batches;
+    b.sort(this.sorter);
+
     final R2SceneLightsClipGroupConsumerType cgc =
       c.onStartClipGroup(cg.volume, g.groupID());
 
@@ -251,112 +286,224 @@ public final class R2SceneLights implements R2SceneLightsType
        * For each shader...
        */
 
-      final LongIterator s_iter =
-        cg.shader_to_lights.keySet().iterator();
-
-      while (s_iter.hasNext()) {
-        final long s_id = s_iter.nextLong();
+      final int end = e.size;
+      int index = 0;
+      while (index < end) {
+        final long s_key = R2DrawKeys.shaderPrefix(e.sorted_keys[index]);
         final R2ShaderLightSingleUsableType<R2LightSingleReadableType> shader =
           (R2ShaderLightSingleUsableType<R2LightSingleReadableType>)
-            g.light_shaders.get(s_id);
+            e.shader(e.order[index]);
 
         cgc.onLightSingleShaderStart(shader);
 
         /*
-         * Sort the lights by their array object instances, to allow
-         * for rendering with the fewest number of array object binds.
-         */
-
-        final LongSet s_lights =
-          cg.shader_to_lights.get(s_id);
-
-        this.sortLights(g, s_lights, this.lights_sorted);
-
-        /*
-         * Render all lights with the minimum number of array object
-         * bindings.
+         * The lights are sorted by their array objects, so render all
+         * lights with the minimum number of array object bindings.
          */
 
         int current_array = -1;
-        final int sorted_size = this.lights_sorted.size();
-        for (int index = 0; index < sorted_size; ++index) {
+        while (index < end
+          && R2DrawKeys.shaderPrefix(e.sorted_keys[index]) == s_key) {
           final R2LightSingleReadableType i =
-            this.lights_sorted.get(index);
-          final JCGLArrayObjectUsableType array_object =
-            i.arrayObject();
-          final int next_array = array_object.glName();
+            (R2LightSingleReadableType) e.light(e.order[index]);
+          final int next_array = R2DrawKeys.array(e.sorted_keys[index]);
           if (next_array != current_array) {
             cgc.onLightSingleArrayStart(i);
           }
           current_array = next_array;
           cgc.onLightSingle(shader, i);
+          ++index;
         }
 
         cgc.onLightSingleShaderFinish(shader);
       }
+
+      /*
+       * For each batched shader...
+       */
+
+      final int b_end = b.size;
+      index = 0;
+      while (index < b_end) {
+        final long s_key = R2DrawKeys.shaderPrefix(b.sorted_keys[index]);
+        final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> shader =
+          (R2ShaderLightBatchedUsableType<R2LightBatchedReadableType>)
+            b.shader(b.order[index]);
+
+        cgc.onLightBatchedShaderStart(shader);
+        while (index < b_end
+          && R2DrawKeys.shaderPrefix(b.sorted_keys[index]) == s_key) {
+          cgc.onLightBatched(
+            shader, (R2LightBatchedReadableType) b.light(b.order[index]));
+          ++index;
+        }
+        cgc.onLightBatchedShaderFinish(shader);
+      }
     } finally {
       cgc.onFinish();
     }
   }
 
-  private void sortLights(
-    final Group g,
-    final LongSet s_lights,
-    final ObjectArrayList<R2LightSingleReadableType> ls)
+  @Override
+  public long lightsCount()
   {
-    ls.clear();
-    for (final long i_id : s_lights) {
-      final R2LightSingleReadableType i = g.lights.get(i_id);
-      ls.add(i);
+    long size = 0L;
+
+    for (int index = 1; index < this.groups.length; ++index) {
+      size += (long) this.groups[index].ids.size();
     }
 
-    /*
-     * Sort lights first by their array objects, and then by their light
-     * identifiers.
-     */
+    return size;
+  }
+
+  /**
+   * A list of lights (or batches of lights), stored in parallel arrays and
+   * indexed by draw keys.
+   */
+
+  private static final class Lights
+  {
+    private final Long2IntOpenHashMap shader_ordinals;
+    private final Int2IntOpenHashMap array_ordinals;
+    private Object[] lights;
+    private Object[] shaders;
+    private long[] keys;
+    private int[] ordinals;
+    private long[] sorted_keys;
+    private int[] order;
+    private int size;
+    private boolean sorted;
+    private boolean overflowed;
+
+    Lights()
+    {
+      this.shader_ordinals = new Long2IntOpenHashMap(16);
+      this.shader_ordinals.defaultReturnValue(-1);
+      this.array_ordinals = new Int2IntOpenHashMap(16);
+      this.array_ordinals.defaultReturnValue(-1);
+
+      this.lights = new Object[16];
+      this.shaders = new Object[16];
+      this.keys = new long[16];
+      this.ordinals = new int[16 * R2DrawKeySorter.ORDINALS_PER_ELEMENT];
+      this.sorted_keys = new long[16];
+      this.order = new int[16];
+      this.size = 0;
+      this.sorted = true;
+    }
+
+    Object light(final int index)
+    {
+      return this.lights[index];
+    }
 
-    ls.sort((a, b) -> {
-      final JCGLArrayObjectUsableType ao = a.arrayObject();
-      final JCGLArrayObjectUsableType bo = b.arrayObject();
+    R2ShaderUsableType<?> shader(final int index)
+    {
+      return (R2ShaderUsableType<?>) this.shaders[index];
+    }
+
+    void clear()
+    {
+      Arrays.fill(this.lights, 0, this.size, null);
+      Arrays.fill(this.shaders, 0, this.size, null);
+      this.shader_ordinals.clear();
+      this.array_ordinals.clear();
+      this.size = 0;
+      this.sorted = true;
+      this.overflowed = false;
+    }
 
-      final int ac = Integer.compareUnsigned(ao.glName(), bo.glName());
-      if (ac == 0) {
-        return Long.compareUnsigned(a.lightID(), b.lightID());
+    void add(
+      final Object light,
+      final JCGLArrayObjectUsableType array,
+      final R2ShaderUsableType<?> shader)
+    {
+      final long s_id = shader.shaderID();
+      int s_ord = this.shader_ordinals.get(s_id);
+      if (s_ord == -1) {
+        s_ord = this.shader_ordinals.size();
+        this.shader_ordinals.put(s_id, s_ord);
       }
 
-      return ac;
-    });
-  }
+      final int a_name = array.glName();
+      int a_ord = this.array_ordinals.get(a_name);
+      if (a_ord == -1) {
+        a_ord = this.array_ordinals.size();
+        this.array_ordinals.put(a_name, a_ord);
+      }
 
-  @Override
-  public long lightsCount()
-  {
-    long size = 0L;
+      final long key;
+      if (R2DrawKeys.ordinalsFit(s_ord, 0, a_ord)) {
+        key = R2DrawKeys.pack(0, s_ord, 0, a_ord);
+      } else {
+        key = 0L;
+        this.overflowed = true;
+      }
 
-    for (int index = 1; index < this.groups.length; ++index) {
-      size += (long) this.groups[index].lights.size();
+      if (this.size == this.keys.length) {
+        final int capacity = this.size * 2;
+        this.lights = Arrays.copyOf(this.lights, capacity);
+        this.shaders = Arrays.copyOf(this.shaders, capacity);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.ordinals = Arrays.copyOf(
+          this.ordinals, capacity * R2DrawKeySorter.ORDINALS_PER_ELEMENT);
+        this.sorted_keys = new long[capacity];
+        this.order = new int[capacity];
+      }
+
+      final int index = this.size;
+      this.lights[index] = light;
+      this.shaders[index] = shader;
+      this.keys[index] = key;
+
+      final int o = index * R2DrawKeySorter.ORDINALS_PER_ELEMENT;
+      this.ordinals[o] = 0;
+      this.ordinals[o + 1] = s_ord;
+      this.ordinals[o + 2] = 0;
+      this.ordinals[o + 3] = a_ord;
+
+      this.size = index + 1;
+      this.sorted = false;
     }
 
-    return size;
+    void sort(
+      final R2DrawKeySorter sorter)
+    {
+      if (this.sorted) {
+        return;
+      }
+
+      if (this.overflowed) {
+        sorter.sortOrdinals(
+          this.ordinals, this.sorted_keys, this.order, this.size);
+      } else {
+        System.arraycopy(this.keys, 0, this.sorted_keys, 0, this.size);
+        for (int index = 0; index < this.size; ++index) {
+          this.order[index] = index;
+        }
+        sorter.sort(this.sorted_keys, this.order, this.size);
+      }
+      this.sorted = true;
+    }
   }
 
   private final class Group implements R2SceneLightsGroupType
   {
     private final int id;
-    private final Long2ReferenceOpenHashMap<LongSet> shader_to_lights;
-    private final Long2ReferenceOpenHashMap<R2ShaderLightSingleUsableType<?>> light_shaders;
-    private final Long2ReferenceOpenHashMap<R2LightSingleReadableType> lights;
-    private final LongSet lights_unclipped;
-    private final Long2ReferenceOpenHashMap<ClipGroup> clip_groups;
+    private final LongOpenHashSet ids;
+    private final Lights lights_unclipped;
+    private final Lights batches_unclipped;
+    private final LongOpenHashSet clip_group_instances;
+    private final ObjectArrayList<ClipGroup> clip_groups;
 
     Group(final int in_id)
     {
       this.id = in_id;
-      this.shader_to_lights = new Long2ReferenceOpenHashMap<>();
-      this.light_shaders = new Long2ReferenceOpenHashMap<>();
-      this.lights = new Long2ReferenceOpenHashMap<>();
-      this.lights_unclipped = new LongOpenHashSet();
-      this.clip_groups = new Long2ReferenceOpenHashMap<>();
+      this.ids = new LongOpenHashSet();
+      this.lights_unclipped = new Lights();
+      this.batches_unclipped = new Lights();
+      this.clip_group_instances = new LongOpenHashSet();
+      this.clip_groups = new ObjectArrayList<>();
     }
 
     @Override
@@ -375,53 +522,55 @@ public final class R2SceneLights implements R2SceneLightsType
 
       final R2SceneLights ls = R2SceneLights.this;
       final long l_id = light.lightID();
-      final long s_id = shader.shaderID();
 
       /*
-       * Insert the light and shader into the group. Add a mapping from the
-       * light to the shader.
+       * Insert the light and shader into the group.
        */
 
-      if (this.lights.containsKey(l_id)) {
-        final StringBuilder sb = new StringBuilder(128);
-        sb.append("Light already visible in group.");
-        sb.append(System.lineSeparator());
-        sb.append("Light: ");
-        sb.append(l_id);
-        sb.append(System.lineSeparator());
-        sb.append("Group: ");
-        sb.append(this.groupID());
-        sb.append(System.lineSeparator());
-        throw new R2ExceptionLightAlreadyVisible(sb.toString());
+      if (!this.ids.add(l_id)) {
+        throw errorLightAlreadyVisible(l_id, this.id);
       }
 
-      Preconditions.checkPrecondition(
-        !this.lights.containsKey(l_id), "Light ID must not exist");
-
       ls.group_max = Math.max(ls.group_max, this.id + 1);
-      this.lights.put(l_id, light);
-      this.light_shaders.put(s_id, shader);
-      this.lights_unclipped.add(l_id);
+      this.lights_unclipped.add(light, light.arrayObject(), shader);
+
+      if (LOG.isTraceEnabled()) {
+        LOG.trace(
+          "light add single (light {}, group {}, shader {})",
+          Long.valueOf(l_id),
+          Integer.valueOf(this.id),
+          Long.valueOf(shader.shaderID()));
+      }
+    }
+
+    @Override
+    public <L extends R2LightBatchedReadableType> void lightGroupAddBatched(
+      final L light,
+      final R2ShaderLightBatchedUsableType<L> shader)
+    {
+      NullCheck.notNull(light, "Light");
+      NullCheck.notNull(shader, "Shader");
+
+      final R2SceneLights ls = R2SceneLights.this;
+      final long l_id = light.lightID();
 
       /*
-       * Update the set of mappings from shaders to lights for the group.
+       * Insert the batch and shader into the group.
        */
 
-      final LongSet m_lights;
-      if (this.shader_to_lights.containsKey(s_id)) {
-        m_lights = this.shader_to_lights.get(s_id);
-      } else {
-        m_lights = new LongOpenHashSet();
+      if (!this.ids.add(l_id)) {
+        throw errorLightAlreadyVisible(l_id, this.id);
       }
-      m_lights.add(l_id);
-      this.shader_to_lights.put(s_id, m_lights);
+
+      ls.group_max = Math.max(ls.group_max, this.id + 1);
+      this.batches_unclipped.add(light, light.arrayObject(), shader);
 
       if (LOG.isTraceEnabled()) {
         LOG.trace(
-          "light add single (light {}, group {}, shader {})",
+          "light add batched (light {}, group {}, shader {})",
           Long.valueOf(l_id),
           Integer.valueOf(this.id),
-          Long.valueOf(s_id));
+          Long.valueOf(shader.shaderID()));
       }
     }
 
@@ -434,44 +583,48 @@ public final class R2SceneLights implements R2SceneLightsType
       final long iid = i.instanceID();
 
       Preconditions.checkPrecondition(
-        !this.clip_groups.containsKey(iid),
+        !this.clip_group_instances.contains(iid),
         "Clip group must not contain instance");
 
       final R2SceneLights ls = R2SceneLights.this;
       ls.group_max = Math.max(ls.group_max, this.id + 1);
 
       final ClipGroup cg = new ClipGroup(i);
-      this.clip_groups.put(iid, cg);
+      this.clip_group_instances.add(iid);
+      this.clip_groups.add(cg);
       return cg;
     }
 
     private void clear()
     {
-      this.shader_to_lights.clear();
-      this.light_shaders.clear();
-      this.lights.clear();
+      this.ids.clear();
       this.lights_unclipped.clear();
+      this.batches_unclipped.clear();
 
-      final LongIterator iter = this.clip_groups.keySet().iterator();
-      while (iter.hasNext()) {
-        final ClipGroup cg = this.clip_groups.get(iter.nextLong());
-        cg.shader_to_lights.clear();
+      final int size = this.clip_groups.size();
+      for (int index = 0; index < size; ++index) {
+        final ClipGroup cg = this.clip_groups.get(index);
+        cg.lights.clear();
+        cg.batches.clear();
         cg.deleted = true;
       }
       this.clip_groups.clear();
+      this.clip_group_instances.clear();
     }
 
     private final class ClipGroup implements R2SceneLightsClipGroupType
     {
       private final R2InstanceSingleType volume;
-      private final Long2ReferenceOpenHashMap<LongSet> shader_to_lights;
+      private final Lights lights;
+      private final Lights batches;
       private boolean deleted;
 
       private ClipGroup(
         final R2InstanceSingleType v)
       {
         this.volume = NullCheck.notNull(v, "Instance");
-        this.shader_to_lights = new Long2ReferenceOpenHashMap<>();
+        this.lights = new Lights();
+        this.batches = new Lights();
         this.deleted = false;
       }
 
@@ -495,52 +648,57 @@ public final class R2SceneLights implements R2SceneLightsType
         }
 
         final long l_id = light.lightID();
-        final long s_id = shader.shaderID();
 
         /*
-         * Insert the light and shader into the group. Add a mapping from the light
-         * to the shader.
+         * Insert the light and shader into the clip group.
          */
 
-        if (Group.this.lights.containsKey(l_id)) {
-          final StringBuilder sb = new StringBuilder(128);
-          sb.append("Light already visible in group.");
-          sb.append(System.lineSeparator());
-          sb.append("Light: ");
-          sb.append(l_id);
-          sb.append(System.lineSeparator());
-          sb.append("Group: ");
-          sb.append(Group.this.groupID());
-          sb.append(System.lineSeparator());
-          throw new R2ExceptionLightAlreadyVisible(sb.toString());
+        if (!Group.this.ids.add(l_id)) {
+          throw errorLightAlreadyVisible(l_id, Group.this.id);
+        }
+
+        this.lights.add(light, light.arrayObject(), shader);
+
+        if (LOG.isTraceEnabled()) {
+          LOG.trace(
+            "light add single (light {}, shader {}, clip group {})",
+            Long.valueOf(l_id),
+            Long.valueOf(shader.shaderID()),
+            Long.valueOf(this.volume.instanceID()));
         }
+      }
+
+      @Override
+      public <L extends R2LightBatchedReadableType> void clipGroupAddBatched(
+        final L light,
+        final R2ShaderLightBatchedUsableType<L> shader)
+      {
+        NullCheck.notNull(light, "Light");
+        NullCheck.notNull(shader, "Shader");
 
-        Preconditions.checkPrecondition(
-          !Group.this.lights.containsKey(l_id),
-          "Light group must not contain light");
+        if (this.deleted) {
+          throw new R2ExceptionLightClipGroupDeleted(
+            "Clip group has been deleted");
+        }
 
-        Group.this.lights.put(l_id, light);
-        Group.this.light_shaders.put(s_id, shader);
+        final long l_id = light.lightID();
 
         /*
-         * Update the set of mappings from shaders to lights for the clip group.
+         * Insert the batch and shader into the clip group.
          */
 
-        final LongSet m_lights;
-        if (this.shader_to_lights.containsKey(s_id)) {
-          m_lights = this.shader_to_lights.get(s_id);
-        } else {
-          m_lights = new LongOpenHashSet();
+        if (!Group.this.ids.add(l_id)) {
+          throw errorLightAlreadyVisible(l_id, Group.this.id);
         }
-        m_lights.add(l_id);
-        this.shader_to_lights.put(s_id, m_lights);
+
+        this.batches.add(light, light.arrayObject(), shader);
 
         if (LOG.isTraceEnabled()) {
           LOG.trace(
-            "light add single (light {}, shader {}, clip group {})",
+            "light add batched (light {}, shader {}, clip group {})",
             Long.valueOf(l_id),
-            Long.valueOf(this.volume.instanceID()),
-            Long.valueOf(s_id));
+            Long.valueOf(shader.shaderID()),
+            Long.valueOf(this.volume.instanceID()));
         }
       }
     }
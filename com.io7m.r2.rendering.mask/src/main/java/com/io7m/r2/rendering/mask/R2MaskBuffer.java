@@ -35,7 +35,6 @@ import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.renderstate.JCGLColorBufferMaskingState;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -52,6 +51,7 @@ import com.io7m.r2.images.api.R2DepthAttachmentCreateType;
 import com.io7m.r2.images.api.R2DepthAttachmentCreateWithStencilType;
 import com.io7m.r2.images.api.R2DepthAttachmentShareType;
 import com.io7m.r2.images.api.R2DepthAttachmentSpecificationType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.api.R2RendererExceptionFramebufferNotBound;
 import com.io7m.r2.rendering.depth.api.R2DepthPrecision;
 import com.io7m.r2.rendering.mask.api.R2MaskBufferDescriptionType;
@@ -366,7 +366,8 @@ public final class R2MaskBuffer implements R2MaskBufferType
 
   @Override
   public void clearBoundPrimaryFramebuffer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
     throws R2RendererExceptionFramebufferNotBound
   {
     final JCGLFramebuffersType g_fb = g.framebuffers();
@@ -381,7 +382,7 @@ public final class R2MaskBuffer implements R2MaskBufferType
       throw new R2RendererExceptionFramebufferNotBound(sb.toString());
     }
 
-    JCGLRenderStates.activate(g, CLEAR_STATE);
+    states.activate(g, CLEAR_STATE);
     g.clearing().clear(CLEAR_SPEC);
   }
 }
@@ -35,7 +35,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
@@ -50,6 +49,7 @@ import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
 import com.io7m.r2.matrices.R2MatricesValuesType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.mask.api.R2MaskBufferUsableType;
 import com.io7m.r2.rendering.mask.api.R2MaskInstancesType;
 import com.io7m.r2.rendering.mask.api.R2MaskRendererType;
@@ -60,6 +60,7 @@ import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.mask.R2MaskShaderBatched;
 import com.io7m.r2.shaders.mask.R2MaskShaderSingle;
 import org.slf4j.Logger;
@@ -81,26 +82,34 @@ public final class R2MaskRenderer implements R2MaskRendererType
   }
 
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private final JCGLRenderState render_state;
   private final R2ShaderInstanceSingleType<Unit> shader_single;
   private final R2ShaderInstanceBatchedType<Unit> shader_batched;
   private final R2ShaderParametersViewMutable params_view;
   private final R2ShaderParametersMaterialMutable<Object> params_material;
+  private final R2ShaderViewUniformBufferType view_buffer;
   private boolean deleted;
   private @Nullable AreaL viewport;
   private @Nullable R2MatricesObserverType matrices;
 
   private R2MaskRenderer(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderInstanceSingleType<Unit> in_shader_single,
-    final R2ShaderInstanceBatchedType<Unit> in_shader_batched)
+    final R2ShaderInstanceBatchedType<Unit> in_shader_batched,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g =
       NullCheck.notNull(in_g, "G33");
+    this.states =
+      NullCheck.notNull(in_states, "States");
     this.shader_single =
       NullCheck.notNull(in_shader_single, "Shader single");
     this.shader_batched =
       NullCheck.notNull(in_shader_batched, "Shader batched");
+    this.view_buffer =
+      NullCheck.notNull(in_view_buffer, "View buffer");
 
     {
       final JCGLRenderState.Builder b = JCGLRenderState.builder();
@@ -134,22 +143,27 @@ public final class R2MaskRenderer implements R2MaskRendererType
    * Construct a new renderer.
    *
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_shader_env A shader preprocessing environment
    * @param in_pool       An ID pool
+   * @param in_view       The view uniform buffer
    *
    * @return A new renderer
    */
 
   public static R2MaskRenderer create(
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
-    final R2IDPoolType in_pool)
+    final R2IDPoolType in_pool,
+    final R2ShaderViewUniformBufferType in_view)
   {
     final R2ShaderInstanceSingleType<Unit> shader_single =
       R2MaskShaderSingle.create(in_g.shaders(), in_shader_env, in_pool);
     final R2ShaderInstanceBatchedType<Unit> shader_batched =
       R2MaskShaderBatched.create(in_g.shaders(), in_shader_env, in_pool);
-    return new R2MaskRenderer(in_g, shader_single, shader_batched);
+    return new R2MaskRenderer(
+      in_g, in_states, shader_single, shader_batched, in_view);
   }
 
   @Override
@@ -180,10 +194,11 @@ public final class R2MaskRenderer implements R2MaskRendererType
       mbuffer.ifPresent(mbu -> g_fb.framebufferDrawBind(mbu.primaryFramebuffer()));
 
       g_v.viewportSet(area);
+      this.view_buffer.update(this.g, m);
       this.viewport = area;
       this.matrices = m;
 
-      JCGLRenderStates.activate(this.g, this.render_state);
+      this.states.activate(this.g, this.render_state);
       final JCGLTexturesType g_tx = this.g.textures();
       final JCGLTextureUnitContextType up = tucp.unitContextNew();
       try {
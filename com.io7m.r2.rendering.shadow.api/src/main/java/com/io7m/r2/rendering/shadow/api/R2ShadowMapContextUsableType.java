@@ -17,6 +17,7 @@
 package com.io7m.r2.rendering.shadow.api;
 
 import com.io7m.r2.lights.R2LightWithShadowSingleType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.textures.R2Texture2DUsableType;
 
 /**
@@ -46,4 +47,34 @@ public interface R2ShadowMapContextUsableType
     R2ExceptionShadowMapContextNotActive,
     R2ExceptionShadowNotRendered,
     R2ExceptionShadow;
+
+  /**
+   * Retrieve the region of the texture returned by {@link
+   * #shadowMapGet(R2LightWithShadowSingleType)} that holds the shadow for
+   * the given light. Implementations that do not pack shadow maps into a
+   * shared texture return {@link R2ShadowMapRegion#full()}.
+   *
+   * @param ls A light
+   *
+   * @return The region of the shadow map texture used by the given light
+   *
+   * @throws R2ExceptionShadowMapContextNotActive Iff the shadow map context is
+   *                                              not active
+   * @throws R2ExceptionShadowNotRendered         Iff the light was not rendered
+   *                                              by the shadow map renderer
+   *                                              execution that produced this
+   *                                              context
+   * @throws R2ExceptionShadow                    On other shadow-related
+   *                                              errors
+   */
+
+  default R2ShadowMapRegion shadowMapRegionGet(
+    final R2LightWithShadowSingleType ls)
+    throws
+    R2ExceptionShadowMapContextNotActive,
+    R2ExceptionShadowNotRendered,
+    R2ExceptionShadow
+  {
+    return R2ShadowMapRegion.full();
+  }
 }
@@ -16,6 +16,7 @@
 
 package com.io7m.r2.rendering.shadow.api;
 
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
 import com.io7m.r2.core.api.deletable.R2DeletableType;
 
 /**
@@ -39,4 +40,42 @@ public interface R2ShadowMapRendererType extends R2DeletableType
     throws
     R2ExceptionShadowExecutionAlreadyActive,
     R2ExceptionShadow;
+
+  /**
+   * @return The number of shadow maps that were rendered during the most
+   * recently started execution
+   */
+
+  long shadowMapsRendered();
+
+  /**
+   * @return The number of cached shadow maps that were reused without being
+   * rendered during the most recently started execution
+   */
+
+  long shadowMapsReused();
+
+  /**
+   * Invalidate all cached shadow maps, forcing them to be rendered again the
+   * next time that they are requested. This has no effect on renderers that
+   * do not cache shadow maps.
+   */
+
+  void shadowCacheInvalidate();
+
+  /**
+   * Release all cached shadow maps, returning them to the pool from which
+   * they were allocated through the given texture context. Renderers that
+   * cache shadow maps should be released in this manner before being
+   * deleted. This has no effect on renderers that do not cache shadow maps.
+   *
+   * @param tc A texture unit context
+   *
+   * @throws R2ExceptionShadowExecutionAlreadyActive If an execution is
+   *                                                 active
+   */
+
+  void shadowCacheRelease(
+    JCGLTextureUnitContextParentType tc)
+    throws R2ExceptionShadowExecutionAlreadyActive;
 }
@@ -0,0 +1,272 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.rendering.shadow;
+
+import com.io7m.jaffirm.core.Preconditions;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Optional;
+
+/**
+ * <p>A skyline allocator that packs rectangular regions into a fixed-size
+ * shadow atlas.</p>
+ *
+ * <p>The allocator tracks the upper edge (the "skyline") of all regions
+ * allocated so far as a list of horizontal segments, and places each new
+ * region at the lowest position on the skyline that can hold it. Regions
+ * cannot be freed individually; the allocator is expected to be cleared and
+ * repopulated each frame.</p>
+ */
+
+public final class R2ShadowAtlasAllocator
+{
+  private final long width;
+  private final long height;
+  private final ObjectArrayList<Segment> segments;
+  private final ObjectArrayList<Segment> segments_free;
+  private long used;
+
+  private R2ShadowAtlasAllocator(
+    final long in_width,
+    final long in_height)
+  {
+    Preconditions.checkPreconditionL(
+      in_width, in_width > 0L, w -> "Width must be positive");
+    Preconditions.checkPreconditionL(
+      in_height, in_height > 0L, h -> "Height must be positive");
+
+    this.width = in_width;
+    this.height = in_height;
+    this.segments = new ObjectArrayList<>(16);
+    this.segments_free = new ObjectArrayList<>(16);
+    this.clear();
+  }
+
+  /**
+   * Create a new allocator.
+   *
+   * @param width  The width of the atlas
+   * @param height The height of the atlas
+   *
+   * @return A new allocator
+   */
+
+  public static R2ShadowAtlasAllocator create(
+    final long width,
+    final long height)
+  {
+    return new R2ShadowAtlasAllocator(width, height);
+  }
+
+  /**
+   * @return The width of the atlas
+   */
+
+  public long width()
+  {
+    return this.width;
+  }
+
+  /**
+   * @return The height of the atlas
+   */
+
+  public long height()
+  {
+    return this.height;
+  }
+
+  /**
+   * @return The number of texels currently allocated
+   */
+
+  public long usedArea()
+  {
+    return this.used;
+  }
+
+  /**
+   * Discard all allocated regions.
+   */
+
+  public void clear()
+  {
+    this.segments_free.addAll(this.segments);
+    this.segments.clear();
+    this.segments.add(this.segmentNew(0L, 0L, this.width));
+    this.used = 0L;
+  }
+
+  /**
+   * Allocate a region of the given size.
+   *
+   * @param w The width of the region
+   * @param h The height of the region
+   *
+   * @return The allocated region, or nothing if there is not enough space in
+   * the atlas
+   */
+
+  public Optional<R2ShadowAtlasRegion> allocate(
+    final long w,
+    final long h)
+  {
+    Preconditions.checkPreconditionL(
+      w, w > 0L, x -> "Width must be positive");
+    Preconditions.checkPreconditionL(
+      h, h > 0L, x -> "Height must be positive");
+
+    int best_index = -1;
+    long best_top = Long.MAX_VALUE;
+    long best_width = Long.MAX_VALUE;
+    long best_y = 0L;
+
+    for (int index = 0; index < this.segments.size(); ++index) {
+      final long y = this.fit(index, w, h);
+      if (y < 0L) {
+        continue;
+      }
+
+      final long top = y + h;
+      final long seg_width = this.segments.get(index).width;
+      if (top < best_top || (top == best_top && seg_width < best_width)) {
+        best_index = index;
+        best_top = top;
+        best_width = seg_width;
+        best_y = y;
+      }
+    }
+
+    if (best_index < 0) {
+      return Optional.empty();
+    }
+
+    final long x = this.segments.get(best_index).x;
+    this.insert(best_index, x, best_y + h, w);
+    this.used = Math.addExact(this.used, Math.multiplyExact(w, h));
+    return Optional.of(R2ShadowAtlasRegion.of(x, best_y, w, h));
+  }
+
+  /**
+   * Determine the Y position at which a region of the given size could be
+   * placed starting at the given segment.
+   *
+   * @return The Y position, or {@code -1} if the region does not fit
+   */
+
+  private long fit(
+    final int index,
+    final long w,
+    final long h)
+  {
+    final long x = this.segments.get(index).x;
+    if (x + w > this.width) {
+      return -1L;
+    }
+
+    long remaining = w;
+    long y = 0L;
+    int current = index;
+    while (remaining > 0L) {
+      final Segment s = this.segments.get(current);
+      y = Math.max(y, s.y);
+      if (y + h > this.height) {
+        return -1L;
+      }
+      remaining -= s.width;
+      ++current;
+    }
+    return y;
+  }
+
+  private void insert(
+    final int index,
+    final long x,
+    final long y,
+    final long w)
+  {
+    this.segments.add(index, this.segmentNew(x, y, w));
+
+    /*
+     * Shrink or remove the segments that are now covered by the new segment.
+     */
+
+    final long right = x + w;
+    final int next = index + 1;
+    while (next < this.segments.size()) {
+      final Segment s = this.segments.get(next);
+      if (s.x >= right) {
+        break;
+      }
+
+      final long s_right = s.x + s.width;
+      if (s_right <= right) {
+        this.segments_free.add(this.segments.remove(next));
+        continue;
+      }
+
+      s.width = s_right - right;
+      s.x = right;
+      break;
+    }
+
+    /*
+     * Merge adjacent segments at the same height.
+     */
+
+    int current = 0;
+    while (current + 1 < this.segments.size()) {
+      final Segment s = this.segments.get(current);
+      final Segment t = this.segments.get(current + 1);
+      if (s.y == t.y) {
+        s.width += t.width;
+        this.segments_free.add(this.segments.remove(current + 1));
+      } else {
+        ++current;
+      }
+    }
+  }
+
+  private Segment segmentNew(
+    final long x,
+    final long y,
+    final long w)
+  {
+    final Segment s;
+    if (this.segments_free.isEmpty()) {
+      s = new Segment();
+    } else {
+      s = this.segments_free.remove(this.segments_free.size() - 1);
+    }
+    s.x = x;
+    s.y = y;
+    s.width = w;
+    return s;
+  }
+
+  private static final class Segment
+  {
+    private long x;
+    private long y;
+    private long width;
+
+    Segment()
+    {
+
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.rendering.shadow;
+
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.jregions.core.unparameterized.areas.AreasL;
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
+import org.immutables.value.Value;
+
+/**
+ * A region of a shadow atlas, in texels.
+ */
+
+@Value.Immutable
+@R2ImmutableStyleType
+public interface R2ShadowAtlasRegionType
+{
+  /**
+   * @return The X offset of the region
+   */
+
+  @Value.Parameter
+  long x();
+
+  /**
+   * @return The Y offset of the region
+   */
+
+  @Value.Parameter
+  long y();
+
+  /**
+   * @return The width of the region
+   */
+
+  @Value.Parameter
+  long width();
+
+  /**
+   * @return The height of the region
+   */
+
+  @Value.Parameter
+  long height();
+
+  /**
+   * @return The region as a viewport
+   */
+
+  default AreaL viewport()
+  {
+    return AreasL.create(this.x(), this.y(), this.width(), this.height());
+  }
+
+  /**
+   * @param atlas_width  The width of the atlas
+   * @param atlas_height The height of the atlas
+   *
+   * @return The region as a scale and offset of texture coordinates within
+   * an atlas of the given size
+   */
+
+  default R2ShadowMapRegion toMapRegion(
+    final long atlas_width,
+    final long atlas_height)
+  {
+    final double w = (double) atlas_width;
+    final double h = (double) atlas_height;
+    return R2ShadowMapRegion.of(
+      (double) this.width() / w,
+      (double) this.height() / h,
+      (double) this.x() / w,
+      (double) this.y() / h);
+  }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.rendering.shadow;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLTexture2DUsableType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLTexturesType;
+import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextType;
+import com.io7m.jfunctional.Unit;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.r2.lights.shadows.R2ShadowCascades;
+import com.io7m.r2.matrices.R2MatricesType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferUsableType;
+import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceRendererType;
+import com.io7m.r2.textures.R2Texture2DUsableType;
+
+/**
+ * <p>A renderer that renders the cascades of a cascaded shadow map into a
+ * single depth variance buffer.</p>
+ *
+ * <p>Cascade {@code i} occupies the square region of the buffer starting at
+ * {@code (i * size, 0)}, where {@code size} is the size of each cascade, so
+ * the buffer must be at least {@code count * size} texels wide and {@code
+ * size} texels high. The buffer is cleared once, each cascade is rendered
+ * into its own region with its own profiling context, and mipmaps (if any)
+ * are regenerated once all cascades have been rendered.</p>
+ *
+ * <p>Cascades can also be rendered into a region of a buffer that is already
+ * bound and cleared, such as a region of a shadow atlas; see {@link
+ * #renderCascadesWithBoundBuffer(JCGLProfilingContextType,
+ * JCGLTextureUnitContextParentType, R2MatricesType, R2ShadowCascades,
+ * R2ShadowAtlasRegion, R2DepthInstancesType)}.</p>
+ */
+
+public final class R2ShadowCascadeRenderer
+{
+  private final JCGLInterfaceGL33Type g33;
+  private final R2RenderStateTracker states;
+  private final R2DepthVarianceRendererType renderer;
+  private String[] profiling_names;
+  private @Nullable R2ShadowAtlasRegion region;
+  private @Nullable JCGLTextureUnitContextParentType texture_context;
+  private @Nullable R2DepthInstancesType instances;
+
+  private R2ShadowCascadeRenderer(
+    final JCGLInterfaceGL33Type in_g33,
+    final R2RenderStateTracker in_states,
+    final R2DepthVarianceRendererType in_renderer)
+  {
+    this.g33 = NullCheck.notNull(in_g33, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
+    this.renderer = NullCheck.notNull(in_renderer, "Renderer");
+    this.profiling_names = new String[0];
+  }
+
+  /**
+   * Create a new renderer.
+   *
+   * @param g33 An OpenGL interface
+   * @param states A render state tracker
+   * @param vr  A depth variance renderer
+   *
+   * @return A new renderer
+   */
+
+  public static R2ShadowCascadeRenderer create(
+    final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType vr)
+  {
+    return new R2ShadowCascadeRenderer(g33, states, vr);
+  }
+
+  /**
+   * @param cascades The cascades
+   * @param index    The cascade
+   *
+   * @return The region of the shadow map occupied by the given cascade
+   */
+
+  public static R2ShadowAtlasRegion cascadeRegion(
+    final R2ShadowCascades cascades,
+    final int index)
+  {
+    NullCheck.notNull(cascades, "Cascades");
+
+    final long size = cascades.cascadeSize();
+    return cascadeRegion(
+      cascades,
+      R2ShadowAtlasRegion.of(
+        0L, 0L, (long) cascades.cascadeCount() * size, size),
+      index);
+  }
+
+  /**
+   * @param cascades The cascades
+   * @param strip    The region holding all cascades side by side
+   * @param index    The cascade
+   *
+   * @return The region of {@code strip} occupied by the given cascade
+   */
+
+  public static R2ShadowAtlasRegion cascadeRegion(
+    final R2ShadowCascades cascades,
+    final R2ShadowAtlasRegion strip,
+    final int index)
+  {
+    NullCheck.notNull(cascades, "Cascades");
+    NullCheck.notNull(strip, "Strip");
+
+    final long width = strip.width() / (long) cascades.cascadeCount();
+    return R2ShadowAtlasRegion.of(
+      strip.x() + ((long) index * width),
+      strip.y(),
+      width,
+      strip.height());
+  }
+
+  /**
+   * Render all cascades into the given buffer.
+   *
+   * @param pc       A profiling context
+   * @param tc       A texture unit context
+   * @param m        A matrix context
+   * @param cascades The cascades, as most recently updated
+   * @param buffer   The buffer that will hold all cascades
+   * @param i        The shadow casters
+   */
+
+  public void renderCascades(
+    final JCGLProfilingContextType pc,
+    final JCGLTextureUnitContextParentType tc,
+    final R2MatricesType m,
+    final R2ShadowCascades cascades,
+    final R2DepthVarianceBufferUsableType buffer,
+    final R2DepthInstancesType i)
+  {
+    NullCheck.notNull(pc, "Profiling");
+    NullCheck.notNull(tc, "Texture context");
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(cascades, "Cascades");
+    NullCheck.notNull(buffer, "Buffer");
+    NullCheck.notNull(i, "Instances");
+
+    final int count = cascades.cascadeCount();
+    final long size = cascades.cascadeSize();
+    final AreaSizeL area = buffer.size();
+    Preconditions.checkPrecondition(
+      area.sizeX() >= (long) count * size && area.sizeY() >= size,
+      "Buffer must be large enough to hold all cascades");
+
+    final JCGLFramebuffersType gfb = this.g33.framebuffers();
+    gfb.framebufferDrawBind(buffer.primaryFramebuffer());
+    try {
+      buffer.clearBoundPrimaryFramebuffer(this.g33, this.states);
+
+      this.renderCascadesWithBoundBuffer(
+        pc,
+        tc,
+        m,
+        cascades,
+        R2ShadowAtlasRegion.of(0L, 0L, (long) count * size, size),
+        i);
+    } finally {
+      gfb.framebufferDrawUnbind();
+    }
+
+    this.regenerateMipmaps(tc, buffer);
+  }
+
+  /**
+   * Render all cascades into the given region of the currently bound
+   * buffer. The buffer is not cleared, and mipmaps are not regenerated.
+   *
+   * @param pc       A profiling context
+   * @param tc       A texture unit context
+   * @param m        A matrix context
+   * @param cascades The cascades, as most recently updated
+   * @param strip    The region that will hold all cascades side by side
+   * @param i        The shadow casters
+   */
+
+  public void renderCascadesWithBoundBuffer(
+    final JCGLProfilingContextType pc,
+    final JCGLTextureUnitContextParentType tc,
+    final R2MatricesType m,
+    final R2ShadowCascades cascades,
+    final R2ShadowAtlasRegion strip,
+    final R2DepthInstancesType i)
+  {
+    NullCheck.notNull(pc, "Profiling");
+    NullCheck.notNull(tc, "Texture context");
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(cascades, "Cascades");
+    NullCheck.notNull(strip, "Strip");
+    NullCheck.notNull(i, "Instances");
+
+    final int count = cascades.cascadeCount();
+    final String[] names = this.profilingNames(count);
+    final JCGLProfilingContextType pc_base =
+      pc.childContext("shadow-cascade-renderer");
+
+    this.texture_context = tc;
+    this.instances = i;
+
+    try {
+      for (int index = 0; index < count; ++index) {
+        final JCGLProfilingContextType pc_cascade =
+          pc_base.childContext(names[index]);
+
+        this.region = cascadeRegion(cascades, strip, index);
+        pc_cascade.startMeasuringIfEnabled();
+        try {
+          m.withObserver(
+            cascades.cascadeView(index),
+            cascades.cascadeProjection(index),
+            this,
+            (z, t) -> {
+              t.renderer.renderDepthVarianceWithBoundBuffer(
+                t.region.viewport(), t.texture_context, z, t.instances);
+              return Unit.unit();
+            });
+        } finally {
+          pc_cascade.stopMeasuringIfEnabled();
+        }
+      }
+    } finally {
+      this.region = null;
+      this.instances = null;
+      this.texture_context = null;
+    }
+  }
+
+  private String[] profilingNames(
+    final int count)
+  {
+    if (this.profiling_names.length < count) {
+      final String[] names = new String[count];
+      for (int index = 0; index < count; ++index) {
+        names[index] = "cascade-" + index;
+      }
+      this.profiling_names = names;
+    }
+    return this.profiling_names;
+  }
+
+  private void regenerateMipmaps(
+    final JCGLTextureUnitContextParentType tc,
+    final R2DepthVarianceBufferUsableType buffer)
+  {
+    final R2Texture2DUsableType rt_texture = buffer.depthVarianceTexture();
+    final JCGLTexture2DUsableType texture = rt_texture.texture();
+
+    switch (texture.minificationFilter()) {
+      case TEXTURE_FILTER_LINEAR:
+      case TEXTURE_FILTER_NEAREST: {
+        break;
+      }
+      case TEXTURE_FILTER_NEAREST_MIPMAP_NEAREST:
+      case TEXTURE_FILTER_LINEAR_MIPMAP_NEAREST:
+      case TEXTURE_FILTER_NEAREST_MIPMAP_LINEAR:
+      case TEXTURE_FILTER_LINEAR_MIPMAP_LINEAR: {
+        final JCGLTexturesType gt = this.g33.textures();
+        final JCGLTextureUnitContextType uc = tc.unitContextNew();
+
+        try {
+          final JCGLTextureUnitType u =
+            uc.unitContextBindTexture2D(gt, texture);
+          gt.texture2DRegenerateMipmaps(u);
+        } finally {
+          uc.unitContextFinish(gt);
+        }
+        break;
+      }
+    }
+  }
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.rendering.shadow;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLTextureFilterMinification;
+import com.io7m.jcanephora.core.api.JCGLFramebuffersType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.profiler.JCGLProfilingContextType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
+import com.io7m.jfunctional.PartialBiFunctionType;
+import com.io7m.jfunctional.Unit;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.junreachable.UnreachableCodeException;
+import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowType;
+import com.io7m.r2.lights.R2LightProjectiveWithShadowType;
+import com.io7m.r2.lights.R2LightWithShadowSingleType;
+import com.io7m.r2.lights.shadows.R2ShadowDepthVarianceType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
+import com.io7m.r2.lights.shadows.R2ShadowType;
+import com.io7m.r2.matrices.R2MatricesType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferDescription;
+import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferUsableType;
+import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceRendererType;
+import com.io7m.r2.rendering.shadow.api.R2ExceptionShadowAtlasFull;
+import com.io7m.r2.rendering.shadow.api.R2ExceptionShadowExecutionAlreadyActive;
+import com.io7m.r2.rendering.shadow.api.R2ExceptionShadowExecutionNotActive;
+import com.io7m.r2.rendering.shadow.api.R2ExceptionShadowMapContextAlreadyActive;
+import com.io7m.r2.rendering.shadow.api.R2ExceptionShadowNotRendered;
+import com.io7m.r2.rendering.shadow.api.R2ShadowMapContextType;
+import com.io7m.r2.rendering.shadow.api.R2ShadowMapRendererExecutionType;
+import com.io7m.r2.rendering.shadow.api.R2ShadowMapRendererType;
+import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.textures.R2Texture2DUsableType;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * <p>An implementation of the {@link R2ShadowMapRendererType} interface that
+ * packs the shadow maps of all lights into a single depth variance atlas.</p>
+ *
+ * <p>Each light is assigned a region of the atlas using a {@link
+ * R2ShadowAtlasAllocator}. A light initially requests a region of the size
+ * given by its shadow's map description; if there is not enough space
+ * remaining in the atlas, the requested size is repeatedly halved until a
+ * region can be allocated. Lights rendered earlier in an execution therefore
+ * receive larger regions, and callers should submit lights in order of
+ * decreasing screen-space importance. The atlas is bound and cleared once
+ * per execution. Only the filtering and precision of the atlas description
+ * are used; the filtering and precision of individual shadow map
+ * descriptions are ignored.</p>
+ *
+ * <p>The atlas never has mipmaps. The regions of an atlas are not aligned to
+ * any particular mipmap level, so the texels of lower mipmap levels would
+ * average the moments of neighbouring regions, and variance shadows sampled
+ * near the edge of a region would bleed into one another. A mipmapped
+ * minification filter in the atlas description is therefore replaced with
+ * the corresponding non-mipmapped filter.</p>
+ *
+ * <p>A directional light is assigned a single region that holds all of its
+ * cascades side by side, in the same layout as the light's own shadow map
+ * description.</p>
+ */
+
+public final class R2ShadowMapAtlasRenderer implements R2ShadowMapRendererType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2ShadowMapAtlasRenderer.class);
+  }
+
+  private final RendererContext context;
+  private boolean deleted;
+
+  private R2ShadowMapAtlasRenderer(
+    final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType vr,
+    final R2RenderTargetPoolUsableType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp,
+    final R2DepthVarianceBufferDescription atlas,
+    final long minimum)
+  {
+    this.context = new RendererContext(g33, states, vr, vp, atlas, minimum);
+  }
+
+  /**
+   * @param g33     An OpenGL interface
+   * @param states  A render state tracker
+   * @param vr      A depth-variance renderer
+   * @param vp      A depth-variance buffer pool
+   * @param atlas   The description of the atlas
+   * @param minimum The minimum size of an atlas region
+   *
+   * @return A new shadow map renderer
+   */
+
+  public static R2ShadowMapAtlasRenderer newRenderer(
+    final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType vr,
+    final R2RenderTargetPoolUsableType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp,
+    final R2DepthVarianceBufferDescription atlas,
+    final long minimum)
+  {
+    return new R2ShadowMapAtlasRenderer(g33, states, vr, vp, atlas, minimum);
+  }
+
+  @Override
+  public R2ShadowMapRendererExecutionType shadowBegin()
+  {
+    if (this.context.active) {
+      throw new R2ExceptionShadowExecutionAlreadyActive(
+        "Shadow execution is already active");
+    }
+
+    this.context.start();
+    return this.context;
+  }
+
+  @Override
+  public long shadowMapsRendered()
+  {
+    return this.context.rendered;
+  }
+
+  @Override
+  public long shadowMapsReused()
+  {
+    return 0L;
+  }
+
+  @Override
+  public void shadowCacheInvalidate()
+  {
+    // Nothing to invalidate
+  }
+
+  @Override
+  public void shadowCacheRelease(
+    final JCGLTextureUnitContextParentType tc)
+  {
+    NullCheck.notNull(tc, "Texture context");
+    // Nothing to release
+  }
+
+  @Override
+  public void delete(final JCGLInterfaceGL33Type g)
+    throws R2Exception
+  {
+    LOG.debug("delete");
+    this.deleted = true;
+  }
+
+  @Override
+  public boolean isDeleted()
+  {
+    return this.deleted;
+  }
+
+  private static final class RendererContext implements
+    R2ShadowMapRendererExecutionType
+  {
+    private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
+    private final MapContext map_context;
+    private final R2DepthVarianceRendererType renderer;
+    private final R2ShadowCascadeRenderer cascade_renderer;
+    private final R2RenderTargetPoolUsableType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> pool;
+    private final R2DepthVarianceBufferDescription atlas_description;
+    private final R2ShadowAtlasAllocator allocator;
+    private final Long2ReferenceOpenHashMap<R2ShadowAtlasRegion> regions;
+    private final long minimum;
+    private long rendered;
+    private boolean active;
+    private @Nullable R2DepthVarianceBufferUsableType atlas;
+    private @Nullable R2ShadowAtlasRegion region;
+    private @Nullable JCGLTextureUnitContextParentType texture_context;
+    private @Nullable R2LightWithShadowSingleType light;
+    private @Nullable R2DepthInstancesType instances;
+    private @Nullable R2MatricesType matrices;
+    private @Nullable JCGLProfilingContextType profiling_variance;
+
+    private RendererContext(
+      final JCGLInterfaceGL33Type g,
+      final R2RenderStateTracker in_states,
+      final R2DepthVarianceRendererType vr,
+      final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
+        R2DepthVarianceBufferUsableType> vp,
+      final R2DepthVarianceBufferDescription in_atlas,
+      final long in_minimum)
+    {
+      this.g33 = NullCheck.notNull(g, "G33");
+      this.states = NullCheck.notNull(in_states, "States");
+      this.renderer = NullCheck.notNull(vr, "Depth variance renderer");
+      this.cascade_renderer = R2ShadowCascadeRenderer.create(g, in_states, vr);
+      this.pool = NullCheck.notNull(vp, "Render target pool");
+      this.atlas_description =
+        withoutMipmaps(NullCheck.notNull(in_atlas, "Atlas"));
+
+      Preconditions.checkPreconditionL(
+        in_minimum, in_minimum > 0L, m -> "Minimum size must be positive");
+      this.minimum = in_minimum;
+
+      final AreaSizeL size = in_atlas.area();
+      this.allocator = R2ShadowAtlasAllocator.create(
+        size.sizeX(), size.sizeY());
+      this.regions = new Long2ReferenceOpenHashMap<>(32);
+      this.map_context = new MapContext();
+    }
+
+    private static R2DepthVarianceBufferDescription withoutMipmaps(
+      final R2DepthVarianceBufferDescription d)
+    {
+      switch (d.minificationFilter()) {
+        case TEXTURE_FILTER_LINEAR:
+        case TEXTURE_FILTER_NEAREST: {
+          return d;
+        }
+        case TEXTURE_FILTER_NEAREST_MIPMAP_NEAREST:
+        case TEXTURE_FILTER_NEAREST_MIPMAP_LINEAR: {
+          return d.withMinificationFilter(
+            JCGLTextureFilterMinification.TEXTURE_FILTER_NEAREST);
+        }
+        case TEXTURE_FILTER_LINEAR_MIPMAP_NEAREST:
+        case TEXTURE_FILTER_LINEAR_MIPMAP_LINEAR: {
+          return d.withMinificationFilter(
+            JCGLTextureFilterMinification.TEXTURE_FILTER_LINEAR);
+        }
+      }
+
+      throw new UnreachableCodeException();
+    }
+
+    void start()
+    {
+      Preconditions.checkPrecondition(
+        !this.active, "Renderer context must not be active");
+      this.allocator.clear();
+      this.regions.clear();
+      this.rendered = 0L;
+      this.active = true;
+    }
+
+    /**
+     * Fetch the atlas from the pool, binding and clearing it if this is the
+     * first light rendered during the current execution.
+     */
+
+    private R2DepthVarianceBufferUsableType atlasGet()
+    {
+      if (this.atlas == null) {
+        final R2DepthVarianceBufferUsableType buffer =
+          this.pool.get(this.texture_context, this.atlas_description);
+        final JCGLFramebuffersType gfb = this.g33.framebuffers();
+        gfb.framebufferDrawBind(buffer.primaryFramebuffer());
+        try {
+          buffer.clearBoundPrimaryFramebuffer(this.g33, this.states);
+        } finally {
+          gfb.framebufferDrawUnbind();
+        }
+        this.atlas = buffer;
+      }
+      return this.atlas;
+    }
+
+    private R2ShadowAtlasRegion regionAllocate(
+      final R2ShadowDepthVarianceType sv)
+    {
+      final AreaSizeL size = sv.mapDescription().area();
+      long w = Math.min(size.sizeX(), this.allocator.width());
+      long h = Math.min(size.sizeY(), this.allocator.height());
+
+      while (w >= this.minimum && h >= this.minimum) {
+        final Optional<R2ShadowAtlasRegion> r = this.allocator.allocate(w, h);
+        if (r.isPresent()) {
+          return r.get();
+        }
+        w /= 2L;
+        h /= 2L;
+      }
+
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append("Shadow atlas is full.");
+      sb.append(System.lineSeparator());
+      sb.append("Atlas: ");
+      sb.append(this.allocator.width());
+      sb.append("x");
+      sb.append(this.allocator.height());
+      sb.append(System.lineSeparator());
+      sb.append("Used: ");
+      sb.append(this.allocator.usedArea());
+      sb.append(System.lineSeparator());
+      sb.append("Shadow: ");
+      sb.append(sv);
+      sb.append(System.lineSeparator());
+      throw new R2ExceptionShadowAtlasFull(sb.toString());
+    }
+
+    private void renderLightProjectiveWithShadowVariance(
+      final R2LightProjectiveWithShadowType lp,
+      final R2ShadowDepthVarianceType sv)
+    {
+      final R2DepthVarianceBufferUsableType buffer = this.atlasGet();
+      this.region = this.regionAllocate(sv);
+      this.regions.put(sv.shadowID(), this.region);
+      ++this.rendered;
+
+      final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view =
+        lp.transform().transformMakeViewMatrix4x4F();
+
+      this.matrices.withObserver(
+        view,
+        lp.projection(),
+        this,
+        (z, t) -> {
+          final JCGLFramebuffersType gfb = t.g33.framebuffers();
+          gfb.framebufferDrawBind(buffer.primaryFramebuffer());
+          try {
+            t.renderer.renderDepthVarianceWithBoundBuffer(
+              t.region.viewport(),
+              t.texture_context,
+              z,
+              t.instances);
+          } finally {
+            gfb.framebufferDrawUnbind();
+          }
+          return Unit.unit();
+        });
+    }
+
+    private void renderLightDirectionalWithShadowVariance(
+      final R2LightDirectionalWithShadowType ld,
+      final R2ShadowDepthVarianceType sv)
+    {
+      final R2DepthVarianceBufferUsableType buffer = this.atlasGet();
+      this.region = this.regionAllocate(sv);
+      this.regions.put(sv.shadowID(), this.region);
+      ++this.rendered;
+
+      final JCGLFramebuffersType gfb = this.g33.framebuffers();
+      gfb.framebufferDrawBind(buffer.primaryFramebuffer());
+      try {
+        this.cascade_renderer.renderCascadesWithBoundBuffer(
+          this.profiling_variance,
+          this.texture_context,
+          this.matrices,
+          ld.cascades(),
+          this.region,
+          this.instances);
+      } finally {
+        gfb.framebufferDrawUnbind();
+      }
+    }
+
+    @Override
+    public void shadowExecRenderLight(
+      final JCGLProfilingContextType pc,
+      final JCGLTextureUnitContextParentType tc,
+      final R2MatricesType m,
+      final R2LightWithShadowSingleType ls,
+      final R2DepthInstancesType i)
+    {
+      NullCheck.notNull(pc, "Profiling");
+      NullCheck.notNull(tc, "Texture context");
+      NullCheck.notNull(m, "Matrices");
+      NullCheck.notNull(ls, "Light");
+      NullCheck.notNull(i, "Instances");
+
+      final JCGLProfilingContextType pc_base =
+        pc.childContext("shadow-map-atlas-renderer");
+      this.profiling_variance =
+        pc_base.childContext("variance");
+
+      this.texture_context = tc;
+      this.light = ls;
+      this.instances = i;
+      this.matrices = m;
+
+      final PartialBiFunctionType<
+        RendererContext, R2ShadowDepthVarianceType, Unit,
+        UnreachableCodeException>
+        on_variance = (t, sv) ->
+        t.light.matchLightWithShadow(t, (t1, lp) -> {
+          t1.profiling_variance.startMeasuringIfEnabled();
+          try {
+            t1.renderLightProjectiveWithShadowVariance(lp, sv);
+            return Unit.unit();
+          } finally {
+            t1.profiling_variance.stopMeasuringIfEnabled();
+          }
+        }, (t1, ld) -> {
+          t1.profiling_variance.startMeasuringIfEnabled();
+          try {
+            t1.renderLightDirectionalWithShadowVariance(ld, sv);
+            return Unit.unit();
+          } finally {
+            t1.profiling_variance.stopMeasuringIfEnabled();
+          }
+        });
+
+      final R2ShadowType s = ls.shadow();
+      s.matchShadow(this, on_variance);
+    }
+
+    @Override
+    public R2ShadowMapContextType shadowExecComplete()
+    {
+      if (!this.active) {
+        throw new R2ExceptionShadowExecutionNotActive(
+          "Shadow execution is not active");
+      }
+
+      if (this.map_context.active) {
+        throw new R2ExceptionShadowMapContextAlreadyActive(
+          "Shadow map context is already active");
+      }
+
+      this.map_context.start();
+      return this.map_context;
+    }
+
+    private void finishContext()
+    {
+      try {
+        if (this.atlas != null) {
+          this.pool.returnValue(this.texture_context, this.atlas);
+        }
+
+        if (LOG.isTraceEnabled()) {
+          LOG.trace(
+            "shadow atlas: rendered {}, used {} texels",
+            Long.valueOf(this.rendered),
+            Long.valueOf(this.allocator.usedArea()));
+        }
+      } finally {
+        this.atlas = null;
+        this.region = null;
+        this.light = null;
+        this.instances = null;
+        this.matrices = null;
+        this.active = false;
+      }
+    }
+
+    private R2ShadowAtlasRegion regionFor(
+      final R2LightWithShadowSingleType ls)
+    {
+      final R2ShadowType s = ls.shadow();
+      return s.matchShadow(this, (t, sv) -> {
+        final long shadow_id = sv.shadowID();
+        if (t.regions.containsKey(shadow_id)) {
+          return t.regions.get(shadow_id);
+        }
+
+        final StringBuilder sb = new StringBuilder(128);
+        sb.append("Shadow map has not been rendered!");
+        sb.append(System.lineSeparator());
+        sb.append("Light: ");
+        sb.append(ls);
+        sb.append(System.lineSeparator());
+        sb.append("Shadow: ");
+        sb.append(sv);
+        sb.append(System.lineSeparator());
+        throw new R2ExceptionShadowNotRendered(sb.toString());
+      });
+    }
+
+    private final class MapContext implements R2ShadowMapContextType
+    {
+      private boolean active;
+
+      MapContext()
+      {
+
+      }
+
+      @Override
+      public R2Texture2DUsableType shadowMapGet(
+        final R2LightWithShadowSingleType ls)
+      {
+        NullCheck.notNull(ls, "Light");
+        RendererContext.this.regionFor(ls);
+        return RendererContext.this.atlas.depthVarianceTexture();
+      }
+
+      @Override
+      public R2ShadowMapRegion shadowMapRegionGet(
+        final R2LightWithShadowSingleType ls)
+      {
+        NullCheck.notNull(ls, "Light");
+        final R2ShadowAtlasAllocator a = RendererContext.this.allocator;
+        return RendererContext.this.regionFor(ls).toMapRegion(
+          a.width(), a.height());
+      }
+
+      @Override
+      public void shadowMapContextFinish()
+      {
+        Preconditions.checkPrecondition(
+          this.active, "Renderer context must be active");
+
+        try {
+          RendererContext.this.finishContext();
+        } finally {
+          this.active = false;
+        }
+      }
+
+      void start()
+      {
+        Preconditions.checkPrecondition(
+          !this.active, "Map context must not be active");
+        Preconditions.checkPrecondition(
+          RendererContext.this.active, "Renderer context must be active");
+
+        this.active = true;
+      }
+    }
+  }
+}
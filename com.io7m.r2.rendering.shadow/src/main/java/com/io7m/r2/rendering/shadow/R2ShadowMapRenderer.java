@@ -35,12 +35,20 @@ import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowType;
 import com.io7m.r2.lights.R2LightWithShadowSingleType;
 import com.io7m.r2.lights.shadows.R2ShadowDepthVarianceType;
 import com.io7m.r2.lights.shadows.R2ShadowType;
 import com.io7m.r2.matrices.R2MatricesType;
+import com.io7m.r2.projections.R2ProjectionReadableType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthBatchedType;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferDescription;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferUsableType;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceRendererType;
@@ -52,20 +60,49 @@ import com.io7m.r2.rendering.shadow.api.R2ShadowMapContextType;
 import com.io7m.r2.rendering.shadow.api.R2ShadowMapRendererExecutionType;
 import com.io7m.r2.rendering.shadow.api.R2ShadowMapRendererType;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
+import com.io7m.r2.shaders.depth.api.R2ShaderDepthBatchedUsableType;
+import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
 import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
 import com.io7m.r2.textures.R2Texture2DUsableType;
+import com.io7m.r2.transforms.R2TransformReadableType;
 import com.io7m.r2.transforms.R2TransformViewReadableType;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.OptionalInt;
+import java.util.function.Consumer;
 
 /**
- * The default implementation of the {@link R2ShadowMapRendererType} interface.
+ * <p>The default implementation of the {@link R2ShadowMapRendererType}
+ * interface.</p>
+ *
+ * <p>A renderer created with {@link #newCachingRenderer(JCGLInterfaceGL33Type,
+ * R2DepthVarianceRendererType, R2RenderTargetPoolUsableType)} keeps the
+ * shadow map of each shadow between executions, and only renders the map
+ * again when the light's transform or projection changes, when the set of
+ * shadow casters or the material of any caster changes, or when the
+ * transform of any single caster changes. Batched casters are assumed to
+ * change on every execution.</p>
+ *
+ * <p>Cached maps that are not requested during an execution are released
+ * when the execution's map context is finished. Maps are only ever returned
+ * to the pool through the texture context of the execution that is in
+ * progress, or through the texture context passed to {@link
+ * #shadowCacheRelease(JCGLTextureUnitContextParentType)}; maps released
+ * during an execution that rendered nothing are returned at the start of
+ * the next execution that renders a light.</p>
+ *
+ * <p>The cascades of a directional light follow the observer, so the shadow
+ * map of a directional light is rendered again on every execution and is
+ * never cached.</p>
  */
 
 public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
@@ -81,16 +118,19 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
 
   private R2ShadowMapRenderer(
     final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
     final R2DepthVarianceRendererType vr,
     final R2RenderTargetPoolUsableType<
       R2DepthVarianceBufferDescription,
-      R2DepthVarianceBufferUsableType> vp)
+      R2DepthVarianceBufferUsableType> vp,
+    final boolean caching)
   {
-    this.context = new RendererContext(g33, vr, vp);
+    this.context = new RendererContext(g33, states, vr, vp, caching);
   }
 
   /**
    * @param g33 An OpenGL interface
+   * @param states A render state tracker
    * @param vr  A depth-variance renderer
    * @param vp  A depth-variance buffer pool
    *
@@ -99,12 +139,34 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
 
   public static R2ShadowMapRenderer newRenderer(
     final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType vr,
+    final R2RenderTargetPoolUsableType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp)
+  {
+    return new R2ShadowMapRenderer(g33, states, vr, vp, false);
+  }
+
+  /**
+   * @param g33 An OpenGL interface
+   * @param states A render state tracker
+   * @param vr  A depth-variance renderer
+   * @param vp  A depth-variance buffer pool
+   *
+   * @return A new shadow map renderer that caches shadow maps between
+   * executions
+   */
+
+  public static R2ShadowMapRenderer newCachingRenderer(
+    final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
     final R2DepthVarianceRendererType vr,
     final R2RenderTargetPoolUsableType<
       R2DepthVarianceBufferDescription,
       R2DepthVarianceBufferUsableType> vp)
   {
-    return new R2ShadowMapRenderer(g33, vr, vp);
+    return new R2ShadowMapRenderer(g33, states, vr, vp, true);
   }
 
   @Override
@@ -119,11 +181,70 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
     return this.context;
   }
 
+  @Override
+  public long shadowMapsRendered()
+  {
+    return this.context.rendered;
+  }
+
+  @Override
+  public long shadowMapsReused()
+  {
+    return this.context.reused;
+  }
+
+  @Override
+  public void shadowCacheInvalidate()
+  {
+    final ObjectIterator<CacheEntry> iter =
+      this.context.cache.values().iterator();
+    while (iter.hasNext()) {
+      iter.next().dirty = true;
+    }
+  }
+
+  @Override
+  public void shadowCacheRelease(
+    final JCGLTextureUnitContextParentType tc)
+  {
+    NullCheck.notNull(tc, "Texture context");
+
+    if (this.context.active) {
+      throw new R2ExceptionShadowExecutionAlreadyActive(
+        "Shadow execution is already active");
+    }
+
+    final ObjectIterator<CacheEntry> iter =
+      this.context.cache.values().iterator();
+    while (iter.hasNext()) {
+      this.context.evict(iter.next());
+      iter.remove();
+    }
+    this.context.releasePending(tc);
+  }
+
   @Override
   public void delete(final JCGLInterfaceGL33Type g)
     throws R2Exception
   {
     LOG.debug("delete");
+
+    /*
+     * Maps can only be returned to the pool through a texture context, and
+     * none is available here. Any maps that were not released with
+     * shadowCacheRelease() remain allocated from the pool, and are deleted
+     * along with it.
+     */
+
+    final ObjectIterator<CacheEntry> iter =
+      this.context.cache.values().iterator();
+    while (iter.hasNext()) {
+      final CacheEntry e = iter.next();
+      e.unwatchAll();
+      e.buffer = null;
+      iter.remove();
+    }
+    this.context.released.clear();
     this.deleted = true;
   }
 
@@ -138,7 +259,15 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
   {
     private final MapContext map_context;
     private final JCGLInterfaceGL33Type g33;
+    private final R2RenderStateTracker states;
     private final VarianceState variance;
+    private final boolean caching;
+    private final Long2ReferenceOpenHashMap<CacheEntry> cache;
+    private final ObjectArrayList<R2DepthVarianceBufferUsableType> released;
+    private final CasterScanner scanner;
+    private final R2ShadowCascadeRenderer cascade_renderer;
+    private long rendered;
+    private long reused;
     private PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view;
     private boolean active;
     private @Nullable JCGLTextureUnitContextParentType texture_context;
@@ -148,16 +277,23 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
     private @Nullable JCGLProfilingContextType profiling_variance;
 
     private RendererContext(
-      final
-      JCGLInterfaceGL33Type g,
+      final JCGLInterfaceGL33Type g,
+      final R2RenderStateTracker in_states,
       final R2DepthVarianceRendererType vr,
       final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
-        R2DepthVarianceBufferUsableType> vp)
+        R2DepthVarianceBufferUsableType> vp,
+      final boolean in_caching)
     {
       this.g33 = NullCheck.notNull(g, "G33");
+      this.states = NullCheck.notNull(in_states, "States");
       this.variance = new VarianceState(g, vr, vp);
       this.view = PMatrices4x4D.identity();
       this.map_context = new MapContext();
+      this.caching = in_caching;
+      this.cache = new Long2ReferenceOpenHashMap<>(32);
+      this.released = new ObjectArrayList<>(4);
+      this.scanner = new CasterScanner();
+      this.cascade_renderer = R2ShadowCascadeRenderer.create(g, in_states, vr);
     }
 
     void start()
@@ -165,21 +301,69 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
       Preconditions.checkPrecondition(
         !this.active, "Renderer context must not be active");
       this.variance.clear();
+      this.rendered = 0L;
+      this.reused = 0L;
       this.active = true;
     }
 
+    /**
+     * Fetch (or create) the cache entry for the given shadow, and determine
+     * whether or not the cached map must be rendered again.
+     */
+
+    private CacheEntry cacheEntryFor(
+      final R2LightProjectiveWithShadowType lp,
+      final R2ShadowDepthVarianceType sv)
+    {
+      final long shadow_id = sv.shadowID();
+      CacheEntry e = this.cache.get(shadow_id);
+      if (e == null) {
+        e = new CacheEntry();
+        this.cache.put(shadow_id, e);
+      }
+
+      e.watchLight(lp);
+
+      final R2DepthVarianceBufferDescription desc = sv.mapDescription();
+      if (e.buffer == null || !e.buffer.description().equals(desc)) {
+        if (e.buffer != null) {
+          this.variance.pool.returnValue(this.texture_context, e.buffer);
+        }
+        e.buffer = this.variance.pool.get(this.texture_context, desc);
+        e.dirty = true;
+      }
+
+      this.scanner.scan(e, this.instances);
+      e.used = true;
+      return e;
+    }
+
     private void renderLightProjectiveWithShadowVariance(
       final R2LightProjectiveWithShadowType lp,
       final R2ShadowDepthVarianceType sv)
     {
       /*
-       * Fetch a variance shadow map.
+       * Fetch a variance shadow map, reusing the cached map if nothing
+       * that affects it has changed.
        */
 
-      this.variance.current = this.variance.pool.get(
-        this.texture_context, sv.mapDescription());
-      this.variance.used.put(
-        sv.shadowID(), this.variance.current);
+      if (this.caching) {
+        final CacheEntry e = this.cacheEntryFor(lp, sv);
+        this.variance.used.put(sv.shadowID(), e.buffer);
+        if (!e.dirty) {
+          ++this.reused;
+          return;
+        }
+        this.variance.current = e.buffer;
+        e.dirty = false;
+      } else {
+        this.variance.current = this.variance.pool.get(
+          this.texture_context, sv.mapDescription());
+        this.variance.used.put(
+          sv.shadowID(), this.variance.current);
+      }
+
+      ++this.rendered;
 
       /*
        * Transform the light volume.
@@ -206,7 +390,7 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
            */
 
           gfb.framebufferDrawBind(buffer.primaryFramebuffer());
-          buffer.clearBoundPrimaryFramebuffer(t.g33);
+          buffer.clearBoundPrimaryFramebuffer(t.g33, t.states);
           t.variance.renderer.renderDepthVarianceWithBoundBuffer(
             buffer.sizeAsViewport(),
             t.texture_context,
@@ -250,6 +434,35 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
         });
     }
 
+    private void renderLightDirectionalWithShadowVariance(
+      final R2LightDirectionalWithShadowType ld,
+      final R2ShadowDepthVarianceType sv)
+    {
+      /*
+       * The cascades depend on the observer, so the map is always rendered
+       * into a fresh buffer from the pool. When caching, the buffer is not
+       * owned by any cache entry and so is tracked separately in order to be
+       * returned to the pool when the map context is finished.
+       */
+
+      final R2DepthVarianceBufferUsableType buffer =
+        this.variance.pool.get(this.texture_context, sv.mapDescription());
+      this.variance.used.put(sv.shadowID(), buffer);
+      if (this.caching) {
+        this.variance.uncached.add(buffer);
+      }
+
+      ++this.rendered;
+
+      this.cascade_renderer.renderCascades(
+        this.profiling_variance,
+        this.texture_context,
+        this.matrices,
+        ld.cascades(),
+        buffer,
+        this.instances);
+    }
+
     @Override
     public void shadowExecRenderLight(
       final JCGLProfilingContextType pc,
@@ -270,6 +483,7 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
         pc_base.childContext("variance");
 
       this.texture_context = tc;
+      this.releasePending(tc);
       this.light = ls;
       this.instances = i;
       this.matrices = m;
@@ -287,6 +501,15 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
           } finally {
             t.profiling_variance.stopMeasuringIfEnabled();
           }
+        }, (t1, ld) -> {
+          t.profiling_variance.startMeasuringIfEnabled();
+          try {
+            t1.renderLightDirectionalWithShadowVariance(
+              ld, t1.variance.shadow);
+            return Unit.unit();
+          } finally {
+            t.profiling_variance.stopMeasuringIfEnabled();
+          }
         });
       };
 
@@ -314,12 +537,49 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
     private void finishContext()
     {
       try {
-        for (final long id : this.variance.used.keySet()) {
-          final R2DepthVarianceBufferUsableType map =
-            this.variance.used.get(id);
-          this.variance.pool.returnValue(this.texture_context, map);
+        if (!this.caching) {
+          for (final long id : this.variance.used.keySet()) {
+            final R2DepthVarianceBufferUsableType map =
+              this.variance.used.get(id);
+            this.variance.pool.returnValue(this.texture_context, map);
+          }
+        } else {
+          for (int index = 0; index < this.variance.uncached.size(); ++index) {
+            this.variance.pool.returnValue(
+              this.texture_context, this.variance.uncached.get(index));
+          }
+          this.variance.uncached.clear();
+
+          /*
+           * Evict cached maps that were not requested during this execution.
+           */
+
+          final ObjectIterator<CacheEntry> iter =
+            this.cache.values().iterator();
+          while (iter.hasNext()) {
+            final CacheEntry e = iter.next();
+            if (e.used) {
+              e.used = false;
+              continue;
+            }
+
+            this.evict(e);
+            iter.remove();
+          }
+
+          if (this.texture_context != null) {
+            this.releasePending(this.texture_context);
+          }
+        }
+
+        if (LOG.isTraceEnabled()) {
+          LOG.trace(
+            "shadow maps: rendered {}, reused {}",
+            Long.valueOf(this.rendered),
+            Long.valueOf(this.reused));
         }
       } finally {
+        this.texture_context = null;
         this.light = null;
         this.instances = null;
         this.matrices = null;
@@ -327,11 +587,347 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
       }
     }
 
+    /**
+     * Stop watching everything that affects the given cache entry, and mark
+     * its shadow map as released. Released maps are returned to the pool by
+     * {@link #releasePending(JCGLTextureUnitContextParentType)}, so that
+     * they are never returned through a texture context that may already
+     * have been finished.
+     */
+
+    private void evict(
+      final CacheEntry e)
+    {
+      e.unwatchAll();
+      if (e.buffer != null) {
+        this.released.add(e.buffer);
+      }
+      e.buffer = null;
+    }
+
+    /**
+     * Return all released maps to the pool through the given (current)
+     * texture context.
+     */
+
+    private void releasePending(
+      final JCGLTextureUnitContextParentType tc)
+    {
+      for (int index = 0; index < this.released.size(); ++index) {
+        this.variance.pool.returnValue(tc, this.released.get(index));
+      }
+      this.released.clear();
+    }
+
+    /**
+     * A cached shadow map, along with the watchers that invalidate it.
+     */
+
+    private static final class CacheEntry
+    {
+      private final Consumer<R2TransformReadableType> on_transform;
+      private final Consumer<R2ProjectionReadableType> on_projection;
+      private final Long2LongOpenHashMap casters;
+      private final ObjectArrayList<R2TransformReadableType> caster_transforms;
+      private final LongArrayList signature;
+      private int signature_position;
+      private @Nullable R2LightProjectiveWithShadowType light;
+      private @Nullable R2ProjectionReadableType projection;
+      private @Nullable R2DepthVarianceBufferUsableType buffer;
+      private boolean dirty;
+      private boolean used;
+
+      CacheEntry()
+      {
+        this.on_transform = t -> this.dirty = true;
+        this.on_projection = p -> this.dirty = true;
+        this.casters = new Long2LongOpenHashMap();
+        this.casters.defaultReturnValue(-1L);
+        this.caster_transforms = new ObjectArrayList<>();
+        this.signature = new LongArrayList();
+        this.dirty = true;
+      }
+
+      void watchLight(
+        final R2LightProjectiveWithShadowType lp)
+      {
+        final R2ProjectionReadableType p = lp.projection();
+        if (this.light == lp && this.projection == p) {
+          return;
+        }
+
+        this.unwatchLight();
+        lp.transform().transformGetWatchable().watchableAdd(this.on_transform);
+        p.projectionGetWatchable().watchableAdd(this.on_projection);
+        this.light = lp;
+        this.projection = p;
+        this.dirty = true;
+      }
+
+      private void unwatchLight()
+      {
+        if (this.light != null) {
+          this.light.transform().transformGetWatchable()
+            .watchableRemove(this.on_transform);
+          this.light = null;
+        }
+        if (this.projection != null) {
+          this.projection.projectionGetWatchable()
+            .watchableRemove(this.on_projection);
+          this.projection = null;
+        }
+      }
+
+      /**
+       * Watch the given caster, marking it as seen during the scan with the
+       * given generation.
+       *
+       * @return {@code true} iff the caster had not already been seen during
+       * the scan
+       */
+
+      boolean watchCaster(
+        final R2InstanceSingleType i,
+        final long generation)
+      {
+        final long id = i.instanceID();
+        final long mark = this.casters.put(id, generation);
+        if (mark == -1L) {
+          final R2TransformReadableType t = i.transform();
+          t.transformGetWatchable().watchableAdd(this.on_transform);
+          this.caster_transforms.add(t);
+          this.dirty = true;
+        }
+        return mark != generation;
+      }
+
+      /**
+       * Begin comparing the casters delivered by a scan against the
+       * signature recorded by the previous scan.
+       */
+
+      void signatureStart()
+      {
+        this.signature_position = 0;
+      }
+
+      /**
+       * Record that the given caster was delivered with the given material,
+       * marking the entry as dirty if the previous scan delivered a
+       * different caster or material at the same position. The signature
+       * includes the material so that changing the material (and therefore
+       * possibly the shader) of a caster causes the map to be rendered
+       * again.
+       */
+
+      void signatureAdd(
+        final long instance,
+        final long material)
+      {
+        final int p = this.signature_position;
+        if (p + 1 < this.signature.size()) {
+          if (this.signature.getLong(p) != instance
+            || this.signature.getLong(p + 1) != material) {
+            this.signature.set(p, instance);
+            this.signature.set(p + 1, material);
+            this.dirty = true;
+          }
+        } else {
+          this.signature.add(instance);
+          this.signature.add(material);
+          this.dirty = true;
+        }
+        this.signature_position = p + 2;
+      }
+
+      void signatureFinish()
+      {
+        if (this.signature_position != this.signature.size()) {
+          this.signature.size(this.signature_position);
+          this.dirty = true;
+        }
+      }
+
+      void unwatchCasters()
+      {
+        for (int index = 0; index < this.caster_transforms.size(); ++index) {
+          this.caster_transforms.get(index)
+            .transformGetWatchable()
+            .watchableRemove(this.on_transform);
+        }
+        this.caster_transforms.clear();
+        this.casters.clear();
+        this.signature.clear();
+      }
+
+      void unwatchAll()
+      {
+        this.unwatchLight();
+        this.unwatchCasters();
+      }
+    }
+
+    /**
+     * A consumer that registers the casters of a shadow with a cache entry,
+     * marking the entry as dirty if the set of casters has changed.
+     */
+
+    private static final class CasterScanner
+      implements R2DepthInstancesConsumerType
+    {
+      private @Nullable CacheEntry entry;
+      private long generation;
+      private long distinct;
+
+      CasterScanner()
+      {
+
+      }
+
+      void scan(
+        final CacheEntry e,
+        final R2DepthInstancesType i)
+      {
+        this.entry = e;
+        try {
+          this.execute(i);
+
+          /*
+           * If fewer distinct casters were seen than are being watched, then
+           * one or more casters have been removed. Rebuild the set of watched
+           * casters from scratch. The same instance may be delivered more
+           * than once (for example, under two different materials), so
+           * casters are counted by identifier rather than by delivery.
+           */
+
+          if (this.distinct != (long) e.casters.size()) {
+            e.unwatchCasters();
+            this.execute(i);
+            e.dirty = true;
+          }
+        } finally {
+          this.entry = null;
+        }
+      }
+
+      private void execute(
+        final R2DepthInstancesType i)
+      {
+        ++this.generation;
+        this.distinct = 0L;
+        this.entry.signatureStart();
+        i.depthsExecute(this);
+        this.entry.signatureFinish();
+      }
+
+      @Override
+      public void onStart()
+      {
+
+      }
+
+      @Override
+      public void onInstanceBatchedUpdate(
+        final R2InstanceBatchedType i)
+      {
+        this.entry.dirty = true;
+      }
+
+      @Override
+      public <M> void onInstanceBatchedShaderStart(
+        final R2ShaderDepthBatchedUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceBatchedMaterialStart(
+        final R2MaterialDepthBatchedType<M> material)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceBatched(
+        final R2MaterialDepthBatchedType<M> material,
+        final R2InstanceBatchedType i)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceBatchedMaterialFinish(
+        final R2MaterialDepthBatchedType<M> material)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceBatchedShaderFinish(
+        final R2ShaderDepthBatchedUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceSingleShaderStart(
+        final R2ShaderDepthSingleUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceSingleMaterialStart(
+        final R2MaterialDepthSingleType<M> material)
+      {
+
+      }
+
+      @Override
+      public void onInstanceSingleArrayStart(
+        final R2InstanceSingleType i)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceSingle(
+        final R2MaterialDepthSingleType<M> material,
+        final R2InstanceSingleType i)
+      {
+        if (this.entry.watchCaster(i, this.generation)) {
+          ++this.distinct;
+        }
+        this.entry.signatureAdd(i.instanceID(), material.materialID());
+      }
+
+      @Override
+      public <M> void onInstanceSingleMaterialFinish(
+        final R2MaterialDepthSingleType<M> material)
+      {
+
+      }
+
+      @Override
+      public <M> void onInstanceSingleShaderFinish(
+        final R2ShaderDepthSingleUsableType<M> s)
+      {
+
+      }
+
+      @Override
+      public void onFinish()
+      {
+
+      }
+    }
+
     private static final class VarianceState
     {
       private final R2DepthVarianceRendererType renderer;
       private final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription, R2DepthVarianceBufferUsableType> pool;
       private final Long2ReferenceOpenHashMap<R2DepthVarianceBufferUsableType> used;
+      private final ObjectArrayList<R2DepthVarianceBufferUsableType> uncached;
       private final JCGLClearSpecification clear;
       private @Nullable R2DepthVarianceBufferUsableType current;
       private @Nullable R2ShadowDepthVarianceType shadow;
@@ -347,6 +943,7 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
         this.pool =
           NullCheck.notNull(vp, "Render target pool");
         this.used = new Long2ReferenceOpenHashMap<>(32);
+        this.uncached = new ObjectArrayList<>(4);
         this.clear = JCGLClearSpecification.of(
           Optional.of(Vector4D.of(1.0, 1.0, 1.0, 1.0)),
           OptionalDouble.of(1.0),
@@ -357,6 +954,7 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
       void clear()
       {
         this.used.clear();
+        this.uncached.clear();
       }
     }
 
@@ -376,35 +974,25 @@ public final class R2ShadowMapRenderer implements R2ShadowMapRendererType
       {
         this.light = NullCheck.notNull(ls, "Light");
 
-        final PartialBiFunctionType<
-          RendererContext,
-          R2LightProjectiveWithShadowType,
-          R2Texture2DUsableType,
-          RuntimeException>
-          on_projective_with_shadow =
-          (t, lp) ->
-            lp.shadow().matchShadow(t, (t1, sv) -> {
-              final long shadow_id = sv.shadowID();
-              if (t1.variance.used.containsKey(shadow_id)) {
-                final R2DepthVarianceBufferUsableType map =
-                  t1.variance.used.get(shadow_id);
-                return map.depthVarianceTexture();
-              }
+        return ls.shadow().matchShadow(RendererContext.this, (t, sv) -> {
+          final long shadow_id = sv.shadowID();
+          if (t.variance.used.containsKey(shadow_id)) {
+            final R2DepthVarianceBufferUsableType map =
+              t.variance.used.get(shadow_id);
+            return map.depthVarianceTexture();
+          }
 
-              final StringBuilder sb = new StringBuilder(128);
-              sb.append("Shadow map has not been rendered!");
-              sb.append(System.lineSeparator());
-              sb.append("Light: ");
-              sb.append(t1.light);
-              sb.append(System.lineSeparator());
-              sb.append("Shadow: ");
-              sb.append(sv);
-              sb.append(System.lineSeparator());
-              throw new R2ExceptionShadowNotRendered(sb.toString());
-            });
-
-        return ls.matchLightWithShadow(
-          RendererContext.this, on_projective_with_shadow);
+          final StringBuilder sb = new StringBuilder(128);
+          sb.append("Shadow map has not been rendered!");
+          sb.append(System.lineSeparator());
+          sb.append("Light: ");
+          sb.append(t.map_context.light);
+          sb.append(System.lineSeparator());
+          sb.append("Shadow: ");
+          sb.append(sv);
+          sb.append(System.lineSeparator());
+          throw new R2ExceptionShadowNotRendered(sb.toString());
+        });
       }
 
       @Override
@@ -47,6 +47,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.stencil.api.R2SceneStencilsConsumerType;
 import com.io7m.r2.rendering.stencil.api.R2SceneStencilsType;
 import com.io7m.r2.rendering.stencil.api.R2StencilRendererType;
@@ -83,16 +84,19 @@ public final class R2StencilRenderer implements R2StencilRendererType
   private final R2ShaderInstanceSingleScreenType<Unit> program_screen;
   private final R2UnitQuadUsableType quad;
   private final JCGLInterfaceGL33Type g;
+  private final R2RenderStateTracker states;
   private boolean deleted;
 
   private R2StencilRenderer(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
     NullCheck.notNull(in_shader_env, "Shader environment");
     this.g = NullCheck.notNull(in_g, "G33");
+    this.states = NullCheck.notNull(in_states, "States");
     NullCheck.notNull(in_pool, "ID pool");
     this.quad = NullCheck.notNull(in_quad, "Quad");
 
@@ -112,6 +116,7 @@ public final class R2StencilRenderer implements R2StencilRendererType
   /**
    * @param in_shader_env Shader source access
    * @param in_g          An OpenGL interface
+   * @param in_states     A render state tracker
    * @param in_pool       The ID pool
    * @param in_quad       A unit quad
    *
@@ -121,10 +126,12 @@ public final class R2StencilRenderer implements R2StencilRendererType
   public static R2StencilRenderer create(
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final JCGLInterfaceGL33Type in_g,
+    final R2RenderStateTracker in_states,
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
-    return new R2StencilRenderer(in_shader_env, in_g, in_pool, in_quad);
+    return new R2StencilRenderer(
+      in_shader_env, in_g, in_states, in_pool, in_quad);
   }
 
   @Override
@@ -237,9 +244,12 @@ public final class R2StencilRenderer implements R2StencilRendererType
     final JCGLViewportsType g_v = this.g.viewports();
 
     /*
-     * Configure state for rendering stencil instances.
+     * Configure state for rendering stencil instances. The state is modified
+     * directly, so the shared render state tracker must be invalidated.
      */
 
+    this.states.invalidate();
+
     g_b.blendingDisable();
     g_cm.colorBufferMask(false, false, false, false);
     g_cu.cullingEnable(
@@ -32,7 +32,6 @@ import com.io7m.jcanephora.renderstate.JCGLDepthState;
 import com.io7m.jcanephora.renderstate.JCGLDepthStrict;
 import com.io7m.jcanephora.renderstate.JCGLDepthWriting;
 import com.io7m.jcanephora.renderstate.JCGLRenderState;
-import com.io7m.jcanephora.renderstate.JCGLRenderStates;
 import com.io7m.jcanephora.renderstate.JCGLStencilState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextParentType;
@@ -44,6 +43,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
 import com.io7m.r2.matrices.R2MatricesObserverType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.shadow.api.R2ShadowMapContextUsableType;
 import com.io7m.r2.rendering.stencil.api.R2Stencils;
 import com.io7m.r2.rendering.translucent.api.R2TranslucentBatchedType;
@@ -55,6 +55,7 @@ import com.io7m.r2.shaders.api.R2ShaderParametersMaterialMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewMutable;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.io7m.r2.shaders.translucent.api.R2ShaderTranslucentInstanceBatchedUsableType;
 import com.io7m.r2.shaders.translucent.api.R2ShaderTranslucentInstanceBillboardedUsableType;
 import com.io7m.r2.shaders.translucent.api.R2ShaderTranslucentInstanceSingleUsableType;
@@ -78,9 +79,11 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
   }
 
   private final JCGLInterfaceGL33Type g33;
+  private final R2RenderStateTracker states;
   private final JCGLRenderState render_state;
   private final R2ShaderParametersViewMutable params_view;
   private final R2ShaderParametersMaterialMutable<Object> params_material;
+  private final R2ShaderViewUniformBufferType view_buffer;
   private R2ShadowMapContextUsableType shadows;
   private R2MatricesObserverType matrices;
   private JCGLTextureUnitContextParentType texture_units;
@@ -89,9 +92,13 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
   private R2TranslucentSingleType<?> single;
 
   private R2TranslucentRenderer(
-    final JCGLInterfaceGL33Type g3)
+    final JCGLInterfaceGL33Type g3,
+    final R2RenderStateTracker in_states,
+    final R2ShaderViewUniformBufferType in_view_buffer)
   {
     this.g33 = NullCheck.notNull(g3, "g33");
+    this.states = NullCheck.notNull(in_states, "States");
+    this.view_buffer = NullCheck.notNull(in_view_buffer, "View buffer");
 
     final JCGLStencilState stencil_state =
       JCGLStencilState.builder()
@@ -132,15 +139,19 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
   }
 
   /**
-   * @param g33 A GL interface
+   * @param g33         A GL interface
+   * @param states      A render state tracker
+   * @param view_buffer The view uniform buffer
    *
    * @return A new translucent renderer
    */
 
   public static R2TranslucentRendererType newRenderer(
-    final JCGLInterfaceGL33Type g33)
+    final JCGLInterfaceGL33Type g33,
+    final R2RenderStateTracker states,
+    final R2ShaderViewUniformBufferType view_buffer)
   {
-    return new R2TranslucentRenderer(g33);
+    return new R2TranslucentRenderer(g33, states, view_buffer);
   }
 
   @SuppressWarnings("unchecked")
@@ -196,6 +207,7 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
         pc_base.startMeasuringIfEnabled();
 
         this.g33.viewports().viewportSet(area);
+        this.view_buffer.update(this.g33, m);
 
         for (int index = 0; index < s.size(); ++index) {
           final R2TranslucentType<?> translucent =
@@ -231,7 +243,7 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
     final JCGLTextureUnitContextType tc =
       this.texture_units.unitContextNew();
 
-    JCGLRenderStates.activate(
+    this.states.activate(
       this.g33,
       JCGLRenderState.builder()
         .from(this.render_state)
@@ -279,7 +291,7 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
     final JCGLTextureUnitContextType tc =
       this.texture_units.unitContextNew();
 
-    JCGLRenderStates.activate(
+    this.states.activate(
       this.g33,
       JCGLRenderState.builder()
         .from(this.render_state)
@@ -329,7 +341,7 @@ public final class R2TranslucentRenderer implements R2TranslucentRendererType
     final JCGLTextureUnitContextType tc =
       this.texture_units.unitContextNew();
 
-    JCGLRenderStates.activate(
+    this.states.activate(
       this.g33,
       JCGLRenderState.builder()
         .from(this.render_state)
@@ -68,6 +68,7 @@ public abstract class R2AbstractShader<S extends Enum<S>, M>
   private final JCGLProgramShaderType program;
   private final FSMEnumMutable<S> fsm;
   private final Object2ReferenceMap<String, String> environment;
+  private final R2ShaderUniformCache uniform_cache;
   private boolean deleted;
 
   protected R2AbstractShader(
@@ -154,6 +155,7 @@ public abstract class R2AbstractShader<S extends Enum<S>, M>
         Object2ReferenceMaps.unmodifiable(
           new Object2ReferenceOpenHashMap<>(pp_defines));
 
+      this.uniform_cache = R2ShaderUniformCache.create();
       this.fsm = this.onCheckGetFSM();
       this.deleted = false;
     } catch (final SoShaderException e) {
@@ -230,4 +232,16 @@ public abstract class R2AbstractShader<S extends Enum<S>, M>
   {
     return this.id;
   }
+
+  /**
+   * Subclasses should upload uniform values through the returned cache so
+   * that values that the program already holds are not uploaded again.
+   *
+   * @return The cache of uniform values for this shader's program
+   */
+
+  public final R2ShaderUniformCache uniformCache()
+  {
+    return this.uniform_cache;
+  }
 }
@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.api;
+
+import com.io7m.jcanephora.core.JCGLArrayBufferUsableType;
+
+/**
+ * <p>A function that binds a buffer to an indexed uniform buffer binding
+ * point (that is, {@code glBindBufferBase(GL_UNIFORM_BUFFER, index,
+ * buffer)}).</p>
+ *
+ * <p>The OpenGL interfaces used by the renderer can allocate and update
+ * buffers, but cannot bind them to indexed binding points. This single
+ * operation must therefore be supplied by the code that created the OpenGL
+ * context.</p>
+ */
+
+@FunctionalInterface
+public interface R2ShaderUniformBufferBinderType
+{
+  /**
+   * Bind {@code buffer} to the uniform buffer binding point {@code index}.
+   *
+   * @param index  The binding point
+   * @param buffer The buffer
+   */
+
+  void bindUniformBuffer(
+    int index,
+    JCGLArrayBufferUsableType buffer);
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.api;
+
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.api.JCGLShadersType;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix3x3D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.jtensors.core.unparameterized.matrices.Matrix4x4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector2D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * <p>A cache of the uniform values most recently uploaded to a single shader
+ * program.</p>
+ *
+ * <p>OpenGL programs retain the values of their uniforms between
+ * activations, so uploading a value that a program already holds is wasted
+ * work. Each {@code put} function here compares the value, as it will be
+ * represented on the GPU, against the last value uploaded to the given
+ * uniform and only calls the corresponding {@link JCGLShadersType} function
+ * if the two differ.</p>
+ *
+ * <p>The cache can only know about values that are uploaded through it. A
+ * shader must therefore either upload all values of a uniform through the
+ * cache, or call {@link #invalidate()} after uploading values directly.</p>
+ */
+
+public final class R2ShaderUniformCache
+{
+  private static final int SLOT_SIZE = 16;
+
+  private final Reference2IntOpenHashMap<JCGLProgramUniformType> slots;
+  private final int[] scratch;
+  private int[] values;
+  private boolean[] valid;
+  private Object[] references;
+  private long uploads;
+  private long uploads_avoided;
+
+  private R2ShaderUniformCache()
+  {
+    this.slots = new Reference2IntOpenHashMap<>(16);
+    this.slots.defaultReturnValue(-1);
+    this.scratch = new int[SLOT_SIZE];
+    this.values = new int[SLOT_SIZE * 16];
+    this.valid = new boolean[16];
+    this.references = new Object[16];
+  }
+
+  /**
+   * @return A new empty cache
+   */
+
+  public static R2ShaderUniformCache create()
+  {
+    return new R2ShaderUniformCache();
+  }
+
+  private static int bits(final double x)
+  {
+    return Float.floatToRawIntBits((float) x);
+  }
+
+  private int slot(
+    final JCGLProgramUniformType u)
+  {
+    NullCheck.notNull(u, "Uniform");
+
+    final int existing = this.slots.getInt(u);
+    if (existing != -1) {
+      return existing;
+    }
+
+    final int slot = this.slots.size();
+    if (slot == this.valid.length) {
+      final int size = slot * 2;
+      this.values = Arrays.copyOf(this.values, size * SLOT_SIZE);
+      this.valid = Arrays.copyOf(this.valid, size);
+      this.references = Arrays.copyOf(this.references, size);
+    }
+
+    this.slots.put(u, slot);
+    return slot;
+  }
+
+  private boolean changed(
+    final JCGLProgramUniformType u,
+    final int count)
+  {
+    final int slot = this.slot(u);
+    final int base = slot * SLOT_SIZE;
+
+    boolean changed = !this.valid[slot];
+    if (!changed) {
+      for (int index = 0; index < count; ++index) {
+        if (this.values[base + index] != this.scratch[index]) {
+          changed = true;
+          break;
+        }
+      }
+    }
+
+    if (changed) {
+      System.arraycopy(this.scratch, 0, this.values, base, count);
+      this.valid[slot] = true;
+      ++this.uploads;
+    } else {
+      ++this.uploads_avoided;
+    }
+    return changed;
+  }
+
+  private boolean changedReference(
+    final JCGLProgramUniformType u,
+    final Object x)
+  {
+    NullCheck.notNull(x, "Value");
+
+    final int slot = this.slot(u);
+    final boolean changed = !this.valid[slot] || this.references[slot] != x;
+    if (changed) {
+      this.references[slot] = x;
+      this.valid[slot] = true;
+      ++this.uploads;
+    } else {
+      ++this.uploads_avoided;
+    }
+    return changed;
+  }
+
+  private void scratchMatrix3x3(final PMatrix3x3D<?, ?> m)
+  {
+    this.scratch[0] = bits(m.r0c0());
+    this.scratch[1] = bits(m.r0c1());
+    this.scratch[2] = bits(m.r0c2());
+    this.scratch[3] = bits(m.r1c0());
+    this.scratch[4] = bits(m.r1c1());
+    this.scratch[5] = bits(m.r1c2());
+    this.scratch[6] = bits(m.r2c0());
+    this.scratch[7] = bits(m.r2c1());
+    this.scratch[8] = bits(m.r2c2());
+  }
+
+  private void scratchMatrix4x4(final PMatrix4x4D<?, ?> m)
+  {
+    this.scratch[0] = bits(m.r0c0());
+    this.scratch[1] = bits(m.r0c1());
+    this.scratch[2] = bits(m.r0c2());
+    this.scratch[3] = bits(m.r0c3());
+    this.scratch[4] = bits(m.r1c0());
+    this.scratch[5] = bits(m.r1c1());
+    this.scratch[6] = bits(m.r1c2());
+    this.scratch[7] = bits(m.r1c3());
+    this.scratch[8] = bits(m.r2c0());
+    this.scratch[9] = bits(m.r2c1());
+    this.scratch[10] = bits(m.r2c2());
+    this.scratch[11] = bits(m.r2c3());
+    this.scratch[12] = bits(m.r3c0());
+    this.scratch[13] = bits(m.r3c1());
+    this.scratch[14] = bits(m.r3c2());
+    this.scratch[15] = bits(m.r3c3());
+  }
+
+  private void scratchMatrix4x4(final Matrix4x4D m)
+  {
+    this.scratch[0] = bits(m.r0c0());
+    this.scratch[1] = bits(m.r0c1());
+    this.scratch[2] = bits(m.r0c2());
+    this.scratch[3] = bits(m.r0c3());
+    this.scratch[4] = bits(m.r1c0());
+    this.scratch[5] = bits(m.r1c1());
+    this.scratch[6] = bits(m.r1c2());
+    this.scratch[7] = bits(m.r1c3());
+    this.scratch[8] = bits(m.r2c0());
+    this.scratch[9] = bits(m.r2c1());
+    this.scratch[10] = bits(m.r2c2());
+    this.scratch[11] = bits(m.r2c3());
+    this.scratch[12] = bits(m.r3c0());
+    this.scratch[13] = bits(m.r3c1());
+    this.scratch[14] = bits(m.r3c2());
+    this.scratch[15] = bits(m.r3c3());
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putFloat(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final float x)
+  {
+    this.scratch[0] = Float.floatToRawIntBits(x);
+    if (this.changed(u, 1)) {
+      g_sh.shaderUniformPutFloat(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putInteger(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final int x)
+  {
+    this.scratch[0] = x;
+    if (this.changed(u, 1)) {
+      g_sh.shaderUniformPutInteger(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putVector2f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final Vector2D x)
+  {
+    this.scratch[0] = bits(x.x());
+    this.scratch[1] = bits(x.y());
+    if (this.changed(u, 2)) {
+      g_sh.shaderUniformPutVector2f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putVector3f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final Vector3D x)
+  {
+    this.scratch[0] = bits(x.x());
+    this.scratch[1] = bits(x.y());
+    this.scratch[2] = bits(x.z());
+    if (this.changed(u, 3)) {
+      g_sh.shaderUniformPutVector3f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putVector4f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final Vector4D x)
+  {
+    this.scratch[0] = bits(x.x());
+    this.scratch[1] = bits(x.y());
+    this.scratch[2] = bits(x.z());
+    this.scratch[3] = bits(x.w());
+    if (this.changed(u, 4)) {
+      g_sh.shaderUniformPutVector4f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putPVector3f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final PVector3D<?> x)
+  {
+    this.scratch[0] = bits(x.x());
+    this.scratch[1] = bits(x.y());
+    this.scratch[2] = bits(x.z());
+    if (this.changed(u, 3)) {
+      g_sh.shaderUniformPutPVector3f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putPVector4f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final PVector4D<?> x)
+  {
+    this.scratch[0] = bits(x.x());
+    this.scratch[1] = bits(x.y());
+    this.scratch[2] = bits(x.z());
+    this.scratch[3] = bits(x.w());
+    if (this.changed(u, 4)) {
+      g_sh.shaderUniformPutPVector4f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putMatrix4x4f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final Matrix4x4D x)
+  {
+    this.scratchMatrix4x4(x);
+    if (this.changed(u, 16)) {
+      g_sh.shaderUniformPutMatrix4x4f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putPMatrix4x4f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final PMatrix4x4D<?, ?> x)
+  {
+    this.scratchMatrix4x4(x);
+    if (this.changed(u, 16)) {
+      g_sh.shaderUniformPutPMatrix4x4f(u, x);
+    }
+  }
+
+  /**
+   * Upload a value if it differs from the most recently uploaded value.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The value
+   */
+
+  public void putPMatrix3x3f(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final PMatrix3x3D<?, ?> x)
+  {
+    this.scratchMatrix3x3(x);
+    if (this.changed(u, 9)) {
+      g_sh.shaderUniformPutPMatrix3x3f(u, x);
+    }
+  }
+
+  /**
+   * Upload a texture unit if it differs from the most recently uploaded
+   * texture unit.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The texture unit
+   */
+
+  public void putTexture2DUnit(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final JCGLTextureUnitType x)
+  {
+    if (this.changedReference(u, x)) {
+      g_sh.shaderUniformPutTexture2DUnit(u, x);
+    }
+  }
+
+  /**
+   * Upload a texture unit if it differs from the most recently uploaded
+   * texture unit.
+   *
+   * @param g_sh A shader interface
+   * @param u    The uniform
+   * @param x    The texture unit
+   */
+
+  public void putTextureCubeUnit(
+    final JCGLShadersType g_sh,
+    final JCGLProgramUniformType u,
+    final JCGLTextureUnitType x)
+  {
+    if (this.changedReference(u, x)) {
+      g_sh.shaderUniformPutTextureCubeUnit(u, x);
+    }
+  }
+
+  /**
+   * Forget all cached values. The next value uploaded to each uniform will be
+   * uploaded unconditionally.
+   */
+
+  public void invalidate()
+  {
+    Arrays.fill(this.valid, false);
+    Arrays.fill(this.references, null);
+  }
+
+  /**
+   * @return The number of values actually uploaded since the counters were
+   * last reset
+   */
+
+  public long uploads()
+  {
+    return this.uploads;
+  }
+
+  /**
+   * @return The number of uploads that were elided because the program
+   * already held the value, since the counters were last reset
+   */
+
+  public long uploadsAvoided()
+  {
+    return this.uploads_avoided;
+  }
+
+  /**
+   * Reset the upload counters.
+   */
+
+  public void resetCounters()
+  {
+    this.uploads = 0L;
+    this.uploads_avoided = 0L;
+  }
+}
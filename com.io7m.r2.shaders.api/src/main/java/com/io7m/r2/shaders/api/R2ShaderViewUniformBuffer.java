@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.api;
+
+import com.io7m.jcanephora.core.JCGLArrayBufferType;
+import com.io7m.jcanephora.core.JCGLArrayBufferUsableType;
+import com.io7m.jcanephora.core.JCGLBufferUpdateType;
+import com.io7m.jcanephora.core.JCGLBufferUpdates;
+import com.io7m.jcanephora.core.JCGLUsageHint;
+import com.io7m.jcanephora.core.api.JCGLArrayBuffersType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
+import com.io7m.r2.core.api.R2Exception;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.projections.R2Projections;
+import com.io7m.r2.view_rays.R2ViewRaysReadableType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>The default implementation of the {@link R2ShaderViewUniformBufferType}
+ * interface.</p>
+ *
+ * <p>The buffer holds the {@code R2_view_block} uniform block using the
+ * {@code std140} layout:</p>
+ *
+ * <pre>
+ *   offset   0: R2_view.depth_coefficient     (float)
+ *   offset  16: R2_view.transform_view        (mat4x4, column-major)
+ *   offset  80: R2_view.transform_projection  (mat4x4, column-major)
+ *   offset 144: R2_view_rays.origin_x0y0      (vec3)
+ *   offset 160: R2_view_rays.origin_x1y0      (vec3)
+ *   offset 176: R2_view_rays.origin_x0y1      (vec3)
+ *   offset 192: R2_view_rays.origin_x1y1      (vec3)
+ *   offset 208: R2_view_rays.ray_x0y0         (vec3)
+ *   offset 224: R2_view_rays.ray_x1y0         (vec3)
+ *   offset 240: R2_view_rays.ray_x0y1         (vec3)
+ *   offset 256: R2_view_rays.ray_x1y1         (vec3)
+ * </pre>
+ *
+ * <p>The block is the only uniform block declared by any of the shaders, and
+ * OpenGL assigns binding point {@code 0} to every uniform block that has not
+ * been explicitly assigned another. The buffer is therefore bound to binding
+ * point {@link #BINDING} and no per-program binding calls are required.</p>
+ *
+ * <p>The buffer is rewritten whenever a renderer begins rendering with a
+ * view that differs from the view that the buffer currently holds (for
+ * example, when moving from rendering shadow maps to rendering the scene
+ * from the observer's point of view). Each write replaces the storage of
+ * the buffer, so that the driver does not have to wait for commands that
+ * read the previous contents.</p>
+ */
+
+public final class R2ShaderViewUniformBuffer
+  implements R2ShaderViewUniformBufferType
+{
+  /**
+   * The name of the uniform block.
+   */
+
+  public static final String BLOCK_NAME = "R2_view_block";
+
+  /**
+   * The uniform buffer binding point to which the buffer is bound.
+   */
+
+  public static final int BINDING = 0;
+
+  /**
+   * The size in bytes of the uniform block.
+   */
+
+  public static final int SIZE = 272;
+
+  private static final int OFFSET_DEPTH_COEFFICIENT = 0;
+  private static final int OFFSET_TRANSFORM_VIEW = 16;
+  private static final int OFFSET_TRANSFORM_PROJECTION = 80;
+  private static final int OFFSET_VIEW_RAYS = 144;
+  private static final int VEC3_STRIDE = 16;
+
+  private final JCGLArrayBufferType buffer;
+  private final JCGLBufferUpdateType<JCGLArrayBufferType> buffer_update;
+  private final R2ShaderUniformBufferBinderType binder;
+  private final ByteBuffer scratch;
+  private final ByteBuffer current;
+  private boolean current_valid;
+  private long updates;
+  private long updates_avoided;
+
+  private R2ShaderViewUniformBuffer(
+    final JCGLArrayBuffersType g_ab,
+    final R2ShaderUniformBufferBinderType in_binder)
+  {
+    NullCheck.notNull(g_ab, "Array buffers");
+    this.binder = NullCheck.notNull(in_binder, "Binder");
+
+    this.buffer =
+      g_ab.arrayBufferAllocate((long) SIZE, JCGLUsageHint.USAGE_DYNAMIC_DRAW);
+    g_ab.arrayBufferUnbind();
+
+    this.buffer_update = JCGLBufferUpdates.newUpdateReplacingRange(
+      this.buffer, new UnsignedRangeInclusiveL(0L, (long) SIZE - 1L));
+
+    this.scratch = ByteBuffer.allocate(SIZE).order(ByteOrder.nativeOrder());
+    this.current = ByteBuffer.allocate(SIZE).order(ByteOrder.nativeOrder());
+    this.current_valid = false;
+  }
+
+  /**
+   * Construct a new view uniform buffer, and bind it to {@link #BINDING}.
+   *
+   * @param g_ab   An array buffer interface
+   * @param binder A function that binds uniform buffers
+   *
+   * @return A new buffer
+   */
+
+  public static R2ShaderViewUniformBuffer create(
+    final JCGLArrayBuffersType g_ab,
+    final R2ShaderUniformBufferBinderType binder)
+  {
+    final R2ShaderViewUniformBuffer b =
+      new R2ShaderViewUniformBuffer(g_ab, binder);
+    b.bind();
+    return b;
+  }
+
+  /**
+   * Write the values of the view {@code m} into {@code b} using the layout
+   * of the {@code R2_view_block} uniform block. The values are written at
+   * absolute offsets starting at {@code 0}; the position of {@code b} is not
+   * modified.
+   *
+   * @param m The view matrices
+   * @param b The output buffer, which must have at least {@link #SIZE}
+   *          bytes remaining
+   */
+
+  public static void pack(
+    final R2MatricesObserverValuesType m,
+    final ByteBuffer b)
+  {
+    NullCheck.notNull(m, "Matrices");
+    NullCheck.notNull(b, "Buffer");
+
+    b.putFloat(
+      OFFSET_DEPTH_COEFFICIENT,
+      (float) R2Projections.getDepthCoefficient(m.projection()));
+    packMatrix(b, OFFSET_TRANSFORM_VIEW, m.matrixView());
+    packMatrix(b, OFFSET_TRANSFORM_PROJECTION, m.matrixProjection());
+
+    final R2ViewRaysReadableType rays = m.viewRays();
+    int offset = OFFSET_VIEW_RAYS;
+    packVector(b, offset, rays.originX0Y0());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.originX1Y0());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.originX0Y1());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.originX1Y1());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.rayX0Y0());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.rayX1Y0());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.rayX0Y1());
+    offset += VEC3_STRIDE;
+    packVector(b, offset, rays.rayX1Y1());
+  }
+
+  private static void packVector(
+    final ByteBuffer b,
+    final int offset,
+    final Vector3D v)
+  {
+    b.putFloat(offset, (float) v.x());
+    b.putFloat(offset + 4, (float) v.y());
+    b.putFloat(offset + 8, (float) v.z());
+    b.putFloat(offset + 12, 0.0f);
+  }
+
+  private static void packMatrix(
+    final ByteBuffer b,
+    final int offset,
+    final PMatrix4x4D<?, ?> x)
+  {
+    b.putFloat(offset, (float) x.r0c0());
+    b.putFloat(offset + 4, (float) x.r1c0());
+    b.putFloat(offset + 8, (float) x.r2c0());
+    b.putFloat(offset + 12, (float) x.r3c0());
+
+    b.putFloat(offset + 16, (float) x.r0c1());
+    b.putFloat(offset + 20, (float) x.r1c1());
+    b.putFloat(offset + 24, (float) x.r2c1());
+    b.putFloat(offset + 28, (float) x.r3c1());
+
+    b.putFloat(offset + 32, (float) x.r0c2());
+    b.putFloat(offset + 36, (float) x.r1c2());
+    b.putFloat(offset + 40, (float) x.r2c2());
+    b.putFloat(offset + 44, (float) x.r3c2());
+
+    b.putFloat(offset + 48, (float) x.r0c3());
+    b.putFloat(offset + 52, (float) x.r1c3());
+    b.putFloat(offset + 56, (float) x.r2c3());
+    b.putFloat(offset + 60, (float) x.r3c3());
+  }
+
+  @Override
+  public JCGLArrayBufferUsableType buffer()
+  {
+    return this.buffer;
+  }
+
+  @Override
+  public void bind()
+  {
+    this.binder.bindUniformBuffer(BINDING, this.buffer);
+  }
+
+  @Override
+  public boolean update(
+    final JCGLInterfaceGL33Type g,
+    final R2MatricesObserverValuesType m)
+  {
+    NullCheck.notNull(g, "G33");
+    NullCheck.notNull(m, "Matrices");
+
+    this.scratch.clear();
+    pack(m, this.scratch);
+
+    this.current.clear();
+    if (this.current_valid && this.scratch.equals(this.current)) {
+      ++this.updates_avoided;
+      return false;
+    }
+
+    this.current.put(this.scratch);
+    this.current_valid = true;
+
+    this.scratch.clear();
+    final ByteBuffer data = this.buffer_update.data();
+    data.rewind();
+    data.put(this.scratch);
+    data.rewind();
+
+    final JCGLArrayBuffersType g_ab = g.arrayBuffers();
+    g_ab.arrayBufferBind(this.buffer);
+    g_ab.arrayBufferReallocate(this.buffer);
+    g_ab.arrayBufferUpdate(this.buffer_update);
+    g_ab.arrayBufferUnbind();
+    ++this.updates;
+    return true;
+  }
+
+  @Override
+  public long updates()
+  {
+    return this.updates;
+  }
+
+  @Override
+  public long updatesAvoided()
+  {
+    return this.updates_avoided;
+  }
+
+  @Override
+  public void resetCounters()
+  {
+    this.updates = 0L;
+    this.updates_avoided = 0L;
+  }
+
+  @Override
+  public void delete(final JCGLInterfaceGL33Type g)
+    throws R2Exception
+  {
+    NullCheck.notNull(g, "G33");
+
+    if (!this.isDeleted()) {
+      g.arrayBuffers().arrayBufferDelete(this.buffer);
+    }
+  }
+
+  @Override
+  public boolean isDeleted()
+  {
+    return this.buffer.isDeleted();
+  }
+}
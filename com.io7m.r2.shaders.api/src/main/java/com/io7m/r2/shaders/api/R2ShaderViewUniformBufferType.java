@@ -0,0 +1,84 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.api;
+
+import com.io7m.jcanephora.core.JCGLArrayBufferUsableType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.core.api.deletable.R2DeletableType;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+
+/**
+ * <p>The type of uniform buffers that hold the {@code R2_view_block} uniform
+ * block declared by {@code R2View.h}.</p>
+ *
+ * <p>Every shader that includes {@code R2View.h} reads the current view
+ * matrices, depth coefficient, and view rays from a single buffer rather than
+ * from uniforms of its own. Renderers write the values of each view into the
+ * buffer once, with {@link #update(JCGLInterfaceGL33Type,
+ * R2MatricesObserverValuesType)}, before rendering with that view.</p>
+ */
+
+public interface R2ShaderViewUniformBufferType extends R2DeletableType
+{
+  /**
+   * @return The underlying buffer
+   */
+
+  JCGLArrayBufferUsableType buffer();
+
+  /**
+   * Bind the buffer to the binding point of the {@code R2_view_block} uniform
+   * block. This should be called once per frame, before any rendering takes
+   * place.
+   */
+
+  void bind();
+
+  /**
+   * Write the values of the view {@code m} into the buffer. Nothing is
+   * written if the buffer already holds the values of {@code m}.
+   *
+   * @param g An OpenGL interface
+   * @param m The view matrices
+   *
+   * @return {@code true} iff the buffer was actually written
+   */
+
+  boolean update(
+    JCGLInterfaceGL33Type g,
+    R2MatricesObserverValuesType m);
+
+  /**
+   * @return The number of times the buffer was actually written since the
+   * counters were last reset
+   */
+
+  long updates();
+
+  /**
+   * @return The number of writes that were elided because the buffer already
+   * held the values, since the counters were last reset
+   */
+
+  long updatesAvoided();
+
+  /**
+   * Reset the update counters.
+   */
+
+  void resetCounters();
+}
@@ -139,8 +139,8 @@ public final class R2ShaderFilterBilateralBlurDepthAwareVertical4f
     final R2MatricesObserverValuesType view_matrices =
       values.viewMatrices();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_blur_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_blur_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(view_matrices.projection()));
 
     /*
@@ -152,20 +152,20 @@ public final class R2ShaderFilterBilateralBlurDepthAwareVertical4f
     final JCGLTextureUnitType unit_texture_depth =
       tc.unitContextBindTexture2D(g_tex, values.depthTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_image, unit_texture_image);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_depth, unit_texture_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_image, unit_texture_image);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_depth, unit_texture_depth);
 
-    g_sh.shaderUniformPutFloat(
-      this.u_blur_falloff, (float) values.blurFalloff());
-    g_sh.shaderUniformPutFloat(
-      this.u_blur_radius, (float) values.blurRadius());
-    g_sh.shaderUniformPutFloat(
-      this.u_blur_sharpness, (float) values.blurSharpness());
+    this.uniformCache().putFloat(
+      g_sh, this.u_blur_falloff, (float) values.blurFalloff());
+    this.uniformCache().putFloat(
+      g_sh, this.u_blur_radius, (float) values.blurRadius());
+    this.uniformCache().putFloat(
+      g_sh, this.u_blur_sharpness, (float) values.blurSharpness());
 
-    g_sh.shaderUniformPutVector2f(
-      this.u_blur_output_image_size_inverse,
+    this.uniformCache().putVector2f(
+      g_sh, this.u_blur_output_image_size_inverse,
       Vector2D.of(
         values.blurOutputInverseWidth(),
         values.blurOutputInverseHeight()));
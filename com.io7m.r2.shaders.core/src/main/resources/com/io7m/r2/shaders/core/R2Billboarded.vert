@@ -10,8 +10,6 @@ layout(location = 0) in vec3 R2_vertex_world_position;
 /// Eye-space scale
 layout(location = 1) in float R2_vertex_scale;
 
-uniform R2_view_t R2_view;
-
 out vec4 R2_billboard_scale_eye;
 
 void
@@ -4,6 +4,8 @@
 /// \file R2View.h
 /// \brief Types relating to the view
 
+#include "R2ViewRays.h"
+
 /// Matrices and parameters related to the view that all surface shaders will receive.
 
 struct R2_view_t {
@@ -15,4 +17,16 @@ struct R2_view_t {
   mat4x4 transform_projection;
 };
 
+/// The current view. The block is written once for each view by the
+/// renderer, and is shared by all shaders rather than being uploaded to
+/// each shader separately. The block is the only uniform block declared
+/// by any shader, and so uses the default binding point 0.
+
+layout(std140) uniform R2_view_block {
+  /// The current view
+  R2_view_t      R2_view;
+  /// The view rays for the current view
+  R2_view_rays_t R2_view_rays;
+};
+
 #endif // R2_VIEW_H
@@ -5,6 +5,9 @@
 /// \brief View ray types
 
 /// The type of view rays used to reconstruct positions during deferred rendering.
+/// The view rays of the current view are available to any shader that
+/// includes R2View.h as the R2_view_rays member of the R2_view_block
+/// uniform block.
 
 struct R2_view_rays_t {
   /// The bottom left origin
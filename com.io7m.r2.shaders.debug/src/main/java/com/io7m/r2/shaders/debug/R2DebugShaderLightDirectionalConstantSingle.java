@@ -27,7 +27,6 @@ import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightDirectionalScreenSingle;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
@@ -56,7 +55,6 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
 {
   private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_projection_inverse;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_light_directional_color;
   private final JCGLProgramUniformType u_light_directional_direction;
   private final JCGLProgramUniformType u_light_directional_intensity;
@@ -102,9 +100,6 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
         "R2_light_matrices.transform_projection_inverse",
         TYPE_FLOAT_MATRIX_4);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
     final int count;
     if (lightShaderTargetIsImageBuffer(this.environment())) {
       this.u_gbuffer_albedo =
@@ -115,13 +110,13 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
         uniform(p, "R2_light_gbuffer.specular", TYPE_SAMPLER_2D);
       this.u_gbuffer_depth =
         uniform(p, "R2_light_gbuffer.depth", TYPE_SAMPLER_2D);
-      count = 13;
+      count = 12;
     } else {
       this.u_gbuffer_albedo = null;
       this.u_gbuffer_normal = null;
       this.u_gbuffer_specular = null;
       this.u_gbuffer_depth = null;
-      count = 7;
+      count = 6;
     }
 
     checkUniformParameterCount(p, count);
@@ -169,12 +164,15 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
        */
 
       final JCGLShadersType g_sh = g.shaders();
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-      g_sh.shaderUniformPutTexture2DUnit(
-        this.u_gbuffer_specular,
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_albedo, unit_albedo);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_normal, unit_normals);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_specular,
         unit_specular);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_depth, unit_depth);
     }
   }
 
@@ -194,21 +192,13 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
      * Upload the projections for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection,
       m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse,
       m.matrixProjectionInverse());
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Transform the light's direction to eye-space and upload it.
      */
@@ -221,18 +211,18 @@ public final class R2DebugShaderLightDirectionalConstantSingle extends
     final PVector3D<R2SpaceEyeType> direction_eye3 =
       PVector3D.of(direction_eye.x(), direction_eye.y(), direction_eye.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_directional_direction, direction_eye3);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_direction, direction_eye3);
 
     /*
       Upload the light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_directional_color,
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_color,
       light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_directional_intensity,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_directional_intensity,
       (float) light.intensity());
   }
 }
@@ -22,8 +22,6 @@ import com.io7m.jcanephora.core.JCGLTextureUnitType;
 import com.io7m.jcanephora.core.JCGLType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.core.api.JCGLShadersType;
-import com.io7m.jcanephora.core.api.JCGLTexturesType;
-import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.jregions.core.unparameterized.areas.AreaL;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
@@ -32,7 +30,6 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
 import com.io7m.r2.matrices.R2MatricesVolumeLightValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderParameters;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -41,7 +38,6 @@ import com.io7m.r2.shaders.light.api.R2AbstractLightVolumeShaderSingle;
 import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
 import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
-import com.io7m.r2.view_rays.R2ViewRaysReadableType;
 
 import java.util.Optional;
 
@@ -56,15 +52,6 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
   private final JCGLProgramUniformType u_transform_volume_modelview;
   private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_projection_inverse;
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y1;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y1;
   private final JCGLProgramUniformType u_gbuffer_albedo;
   private final JCGLProgramUniformType u_gbuffer_normal;
   private final JCGLProgramUniformType u_gbuffer_specular;
@@ -147,37 +134,7 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
       R2ShaderParameters.uniform(
         p, "R2_light_viewport.inverse_height", JCGLType.TYPE_FLOAT);
 
-    this.u_depth_coefficient =
-      R2ShaderParameters.uniform(
-        p, "R2_light_depth_coefficient", JCGLType.TYPE_FLOAT);
-
-    this.u_view_rays_origin_x0y0 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.origin_x0y0", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y0 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.origin_x1y0", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x0y1 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.origin_x0y1", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y1 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.origin_x1y1", JCGLType.TYPE_FLOAT_VECTOR_3);
-
-    this.u_view_rays_ray_x0y0 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.ray_x0y0", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y0 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.ray_x1y0", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x0y1 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.ray_x0y1", JCGLType.TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y1 =
-      R2ShaderParameters.uniform(
-        p, "R2_light_view_rays.ray_x1y1", JCGLType.TYPE_FLOAT_VECTOR_3);
-
-    R2ShaderParameters.checkUniformParameterCount(p, 23);
+    R2ShaderParameters.checkUniformParameterCount(p, 14);
   }
 
   /**
@@ -220,10 +177,14 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
      */
 
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
   }
 
   @Override
@@ -232,7 +193,6 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
     final R2ShaderParametersLightType<R2LightSphericalSingleReadableType> light_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    final JCGLTexturesType g_tex = g.textures();
 
     final R2MatricesObserverValuesType m =
       light_parameters.observerMatrices();
@@ -240,68 +200,27 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
       light_parameters.viewport();
     final R2LightSphericalSingleReadableType light =
       light_parameters.values();
-    final JCGLTextureUnitContextMutableType tc =
-      light_parameters.textureUnitContext();
-
-    /*
-     * Upload the current view rays.
-     */
-
-    final R2ViewRaysReadableType view_rays = m.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0,
-      view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0,
-      view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1,
-      view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1,
-      view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0,
-      view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0,
-      view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1,
-      view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1,
-      view_rays.rayX1Y1());
 
     /*
      * Upload the viewport.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) viewport.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) viewport.sizeY()));
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Upload the projection for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection,
       m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse,
       m.matrixProjectionInverse());
 
     /*
@@ -316,24 +235,24 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
     final PVector3D<R2SpaceEyeType> position_eye =
       PVector3D.of(position_eye4.x(), position_eye4.y(), position_eye4.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_spherical_position, position_eye);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_spherical_position, position_eye);
 
     /*
      * Upload the light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_spherical_color,
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_spherical_color,
       light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_intensity,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_intensity,
       (float) light.intensity());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_inverse_falloff,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_inverse_falloff,
       (float) (1.0 / light.falloff()));
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_inverse_range,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_inverse_range,
       (float) (1.0 / light.radius()));
   }
 
@@ -348,8 +267,8 @@ public final class R2DebugShaderLightSphericalAttenuationSingle extends
 
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_volume_modelview,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_volume_modelview,
       m.matrixLightModelView());
   }
 }
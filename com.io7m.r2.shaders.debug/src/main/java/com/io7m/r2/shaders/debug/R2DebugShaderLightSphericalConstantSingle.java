@@ -28,7 +28,6 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightSphericalSingleReadableType;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
 import com.io7m.r2.matrices.R2MatricesVolumeLightValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
@@ -58,7 +57,6 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
   private final JCGLProgramUniformType u_transform_volume_modelview;
   private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_projection_inverse;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_light_spherical_color;
   private final JCGLProgramUniformType u_light_spherical_intensity;
   private final JCGLProgramUniformType u_light_spherical_position;
@@ -111,9 +109,6 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
         "R2_light_matrices.transform_projection_inverse",
         TYPE_FLOAT_MATRIX_4);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
     final int count;
     if (lightShaderTargetIsImageBuffer(this.environment())) {
       this.u_gbuffer_albedo =
@@ -124,13 +119,13 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
         uniform(p, "R2_light_gbuffer.specular", TYPE_SAMPLER_2D);
       this.u_gbuffer_depth =
         uniform(p, "R2_light_gbuffer.depth", TYPE_SAMPLER_2D);
-      count = 15;
+      count = 14;
     } else {
       this.u_gbuffer_albedo = null;
       this.u_gbuffer_normal = null;
       this.u_gbuffer_specular = null;
       this.u_gbuffer_depth = null;
-      count = 9;
+      count = 8;
     }
 
     checkUniformParameterCount(p, count);
@@ -177,12 +172,15 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
        */
 
       final JCGLShadersType g_sh = g.shaders();
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-      g_sh.shaderUniformPutTexture2DUnit(
-        this.u_gbuffer_specular,
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_albedo, unit_albedo);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_normal, unit_normals);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_specular,
         unit_specular);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_depth, unit_depth);
     }
   }
 
@@ -198,23 +196,15 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
     final R2LightSphericalSingleReadableType light =
       light_parameters.values();
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Upload the projection for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection,
       m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse,
       m.matrixProjectionInverse());
 
     /*
@@ -229,24 +219,24 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
     final PVector3D<R2SpaceEyeType> position_eye =
       PVector3D.of(position_eye4.x(), position_eye4.y(), position_eye4.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_spherical_position, position_eye);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_spherical_position, position_eye);
 
     /*
      * Upload light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_spherical_color,
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_spherical_color,
       light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_intensity,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_intensity,
       (float) light.intensity());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_inverse_falloff,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_inverse_falloff,
       (float) (1.0 / light.falloff()));
-    g_sh.shaderUniformPutFloat(
-      this.u_light_spherical_inverse_range,
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_spherical_inverse_range,
       (float) (1.0 / light.radius()));
   }
 
@@ -261,8 +251,8 @@ public final class R2DebugShaderLightSphericalConstantSingle extends
 
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_volume_modelview,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_volume_modelview,
       m.matrixLightModelView());
   }
 
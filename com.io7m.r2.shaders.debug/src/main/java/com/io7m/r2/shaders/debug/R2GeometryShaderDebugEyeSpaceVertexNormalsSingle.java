@@ -23,8 +23,6 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jfunctional.Unit;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -33,7 +31,6 @@ import com.io7m.r2.shaders.geometry.api.R2AbstractGeometryShaderSingle;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -46,11 +43,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2GeometryShaderDebugEyeSpaceVertexNormalsSingle
   extends R2AbstractGeometryShaderSingle<Unit>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
 
   private R2GeometryShaderDebugEyeSpaceVertexNormalsSingle(
@@ -71,13 +65,6 @@ public final class R2GeometryShaderDebugEyeSpaceVertexNormalsSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_transform_normal =
       uniform(
         p,
@@ -94,7 +81,7 @@ public final class R2GeometryShaderDebugEyeSpaceVertexNormalsSingle
         "R2_surface_matrices_instance.transform_uv",
         TYPE_FLOAT_MATRIX_3);
 
-    checkUniformParameterCount(p, 6);
+    checkUniformParameterCount(p, 3);
   }
 
   /**
@@ -127,17 +114,7 @@ public final class R2GeometryShaderDebugEyeSpaceVertexNormalsSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -155,11 +132,11 @@ public final class R2GeometryShaderDebugEyeSpaceVertexNormalsSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 }
@@ -17,13 +17,10 @@
 package com.io7m.r2.shaders.debug;
 
 import com.io7m.jcanephora.core.JCGLProgramShaderUsableType;
-import com.io7m.jcanephora.core.JCGLProgramUniformType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jfunctional.Unit;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderSingleScreen;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -32,10 +29,7 @@ import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
-import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 
 /**
  * Debug visualization shader for printing a set of line segments specified in
@@ -45,10 +39,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2ShaderDebugColorVerticesWorldPosition
   extends R2AbstractInstanceShaderSingleScreen<Unit>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
-
   private R2ShaderDebugColorVerticesWorldPosition(
     final JCGLShadersType in_shaders,
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
@@ -67,14 +57,7 @@ public final class R2ShaderDebugColorVerticesWorldPosition
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
-    checkUniformParameterCount(p, 3);
+    checkUniformParameterCount(p, 0);
   }
 
   /**
@@ -107,17 +90,7 @@ public final class R2ShaderDebugColorVerticesWorldPosition
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
   }
 
   @Override
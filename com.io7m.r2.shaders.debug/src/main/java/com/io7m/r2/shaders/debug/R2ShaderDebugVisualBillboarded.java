@@ -22,8 +22,6 @@ import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderBillboarded;
 import com.io7m.r2.shaders.api.R2ShaderInstanceBillboardedType;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
@@ -34,13 +32,10 @@ import com.io7m.r2.spaces.R2SpaceRGBAType;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 
-
 /**
  * Debug visualization shader for billboarded instances.
  */
@@ -49,9 +44,6 @@ public final class R2ShaderDebugVisualBillboarded extends
   R2AbstractInstanceShaderBillboarded<PVector4D<R2SpaceRGBAType>>
   implements R2ShaderInstanceBillboardedType<PVector4D<R2SpaceRGBAType>>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_color;
 
   private R2ShaderDebugVisualBillboarded(
@@ -71,14 +63,7 @@ public final class R2ShaderDebugVisualBillboarded extends
       in_check);
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
-    checkUniformParameterCount(p, 4);
-
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", TYPE_FLOAT);
+    checkUniformParameterCount(p, 1);
 
     this.u_color = uniform(
       p, "R2_color", TYPE_FLOAT_VECTOR_4);
@@ -116,17 +101,7 @@ public final class R2ShaderDebugVisualBillboarded extends
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
   }
 
   @Override
@@ -135,6 +110,7 @@ public final class R2ShaderDebugVisualBillboarded extends
     final R2ShaderParametersMaterialType<PVector4D<R2SpaceRGBAType>> mat_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutPVector4f(this.u_color, mat_parameters.values());
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_color, mat_parameters.values());
   }
 }
@@ -25,7 +25,6 @@ import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVectors4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderSingleScreen;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -35,7 +34,6 @@ import com.io7m.r2.spaces.R2SpaceRGBAType;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -48,9 +46,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2ShaderDebugVisualScreen extends
   R2AbstractInstanceShaderSingleScreen<PVector4D<R2SpaceRGBAType>>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_color;
   private final JCGLProgramUniformType u_transform_projection_inverse;
 
@@ -72,19 +67,13 @@ public final class R2ShaderDebugVisualScreen extends
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
     this.u_transform_projection_inverse =
       uniform(p, "R2_transform_projection_inverse", TYPE_FLOAT_MATRIX_4);
 
     this.u_color =
       uniform(p, "R2_color", TYPE_FLOAT_VECTOR_4);
 
-    checkUniformParameterCount(p, 5);
+    checkUniformParameterCount(p, 2);
   }
 
   /**
@@ -123,17 +112,8 @@ public final class R2ShaderDebugVisualScreen extends
     final R2MatricesObserverValuesType matrices =
       view_parameters.observerMatrices();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_view,
-      PMatrices4x4D.toUnparameterized(matrices.matrixView()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_projection,
-      PMatrices4x4D.toUnparameterized(matrices.matrixProjection()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_projection_inverse,
+    this.uniformCache().putMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse,
       PMatrices4x4D.toUnparameterized(matrices.matrixProjectionInverse()));
   }
 
@@ -143,7 +123,8 @@ public final class R2ShaderDebugVisualScreen extends
     final R2ShaderParametersMaterialType<PVector4D<R2SpaceRGBAType>> mat_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutVector4f(
+    this.uniformCache().putVector4f(
+      g_sh,
       this.u_color, PVectors4D.toUnparameterized(mat_parameters.values()));
   }
 }
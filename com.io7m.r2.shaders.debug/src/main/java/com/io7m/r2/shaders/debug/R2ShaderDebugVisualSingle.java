@@ -23,8 +23,6 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderSingle;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -34,7 +32,6 @@ import com.io7m.r2.spaces.R2SpaceRGBAType;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
@@ -48,11 +45,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2ShaderDebugVisualSingle
   extends R2AbstractInstanceShaderSingle<PVector4D<R2SpaceRGBAType>>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_color;
 
@@ -74,13 +68,6 @@ public final class R2ShaderDebugVisualSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_transform_normal =
       uniform(
         p, "R2_matrices_instance.transform_normal", TYPE_FLOAT_MATRIX_3);
@@ -94,7 +81,7 @@ public final class R2ShaderDebugVisualSingle
     this.u_color =
       uniform(p, "R2_color", TYPE_FLOAT_VECTOR_4);
 
-    checkUniformParameterCount(p, 7);
+    checkUniformParameterCount(p, 4);
   }
 
   /**
@@ -129,17 +116,7 @@ public final class R2ShaderDebugVisualSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -148,7 +125,8 @@ public final class R2ShaderDebugVisualSingle
     final R2ShaderParametersMaterialType<PVector4D<R2SpaceRGBAType>> mat_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutPVector4f(this.u_color, mat_parameters.values());
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_color, mat_parameters.values());
   }
 
   @Override
@@ -158,11 +136,11 @@ public final class R2ShaderDebugVisualSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 }
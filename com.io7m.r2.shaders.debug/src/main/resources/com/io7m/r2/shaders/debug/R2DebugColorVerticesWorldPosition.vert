@@ -13,8 +13,6 @@ layout(location = 1) in vec4 R2_vertex_color;
 out vec4  R2_frag_color;
 out float R2_positive_eye_z;
 
-uniform R2_view_t R2_view;
-
 void
 main (void)
 {
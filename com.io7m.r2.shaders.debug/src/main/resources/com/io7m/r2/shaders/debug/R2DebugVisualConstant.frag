@@ -9,7 +9,6 @@ layout(location = 0) out vec4 R2_out;
 
 in      R2_vertex_data_t R2_vertex_data;
 uniform vec4             R2_color;
-uniform R2_view_t        R2_view;
 
 void
 main (void)
@@ -8,7 +8,6 @@
 
 #include <com.io7m.r2.shaders.core/R2VertexAttributes.h>
 
-uniform R2_view_t R2_view;
 uniform mat4x4    R2_transform_projection_inverse;
 
 out R2_vertex_data_t R2_vertex_data;
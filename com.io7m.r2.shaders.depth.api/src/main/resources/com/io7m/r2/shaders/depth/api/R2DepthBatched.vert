@@ -13,8 +13,6 @@
 out R2_vertex_data_t       R2_vertex_data;
 out R2_matrices_instance_t R2_matrices_instance;
 
-uniform R2_view_t R2_view;
-
 void
 main (void)
 {
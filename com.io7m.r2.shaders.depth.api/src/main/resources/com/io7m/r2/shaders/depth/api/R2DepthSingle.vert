@@ -10,7 +10,6 @@
 #include <com.io7m.r2.shaders.core/R2VertexAttributes.h>
 
 out     R2_vertex_data_t       R2_vertex_data;
-uniform R2_view_t              R2_view;
 uniform R2_matrices_instance_t R2_matrices_instance;
 
 void
@@ -25,8 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -45,9 +43,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2DepthShaderBasicBatched extends
   R2AbstractDepthShaderBatched<R2DepthShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_texture_albedo;
   private final JCGLProgramUniformType u_alpha_discard_threshold;
 
@@ -69,19 +64,12 @@ public final class R2DepthShaderBasicBatched extends
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", JCGLType.TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", JCGLType.TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", JCGLType.TYPE_FLOAT);
-
     this.u_alpha_discard_threshold = uniform(
       p, "R2_alpha_discard_threshold", JCGLType.TYPE_FLOAT);
     this.u_texture_albedo = uniform(
       p, "R2_texture_albedo", JCGLType.TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 5);
+    checkUniformParameterCount(p, 2);
   }
 
   /**
@@ -108,18 +96,7 @@ public final class R2DepthShaderBasicBatched extends
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType m = view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view,
-      m.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection,
-      m.matrixProjection());
+
   }
 
   @Override
@@ -138,10 +115,10 @@ public final class R2DepthShaderBasicBatched extends
     final JCGLTextureUnitType unit_albedo =
       tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutFloat(
-      this.u_alpha_discard_threshold,
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putFloat(
+      g_sh, this.u_alpha_discard_threshold,
       (float) values.alphaDiscardThreshold());
   }
 
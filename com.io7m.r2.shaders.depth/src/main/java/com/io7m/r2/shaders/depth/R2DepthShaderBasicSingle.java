@@ -25,8 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -49,11 +47,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2DepthShaderBasicSingle
   extends R2AbstractDepthShaderSingle<R2DepthShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_texture_albedo;
   private final JCGLProgramUniformType u_alpha_discard_threshold;
@@ -76,13 +71,6 @@ public final class R2DepthShaderBasicSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_transform_normal = uniform(
       p, "R2_matrices_instance.transform_normal", TYPE_FLOAT_MATRIX_3);
     this.u_transform_modelview = uniform(
@@ -95,7 +83,7 @@ public final class R2DepthShaderBasicSingle
     this.u_texture_albedo = uniform(
       p, "R2_texture_albedo", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 8);
+    checkUniformParameterCount(p, 5);
   }
 
   /**
@@ -128,17 +116,7 @@ public final class R2DepthShaderBasicSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -157,10 +135,10 @@ public final class R2DepthShaderBasicSingle
     final JCGLTextureUnitType unit_albedo =
       tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutFloat(
-      this.u_alpha_discard_threshold,
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putFloat(
+      g_sh, this.u_alpha_discard_threshold,
       (float) values.alphaDiscardThreshold());
   }
 
@@ -171,11 +149,11 @@ public final class R2DepthShaderBasicSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 }
@@ -28,8 +28,6 @@ import com.io7m.jregions.core.unparameterized.areas.AreaL;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector2D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -53,11 +51,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2DepthShaderBasicStippledSingle
   extends R2AbstractDepthShaderSingle<R2DepthShaderBasicStippledParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_texture_albedo;
   private final JCGLProgramUniformType u_alpha_discard_threshold;
@@ -87,13 +82,6 @@ public final class R2DepthShaderBasicStippledSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_transform_normal = uniform(
       p, "R2_matrices_instance.transform_normal", TYPE_FLOAT_MATRIX_3);
     this.u_transform_modelview = uniform(
@@ -118,7 +106,7 @@ public final class R2DepthShaderBasicStippledSingle
     this.u_viewport_inverse_height =
       uniform(p, "R2_viewport.inverse_height", TYPE_FLOAT);
 
-    checkUniformParameterCount(p, 13);
+    checkUniformParameterCount(p, 10);
   }
 
   /**
@@ -152,19 +140,9 @@ public final class R2DepthShaderBasicStippledSingle
     final R2ShaderParametersViewType view_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
     final AreaL viewport =
       view_parameters.viewport();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
-
     /*
      * Upload the viewport.
      */
@@ -172,11 +150,11 @@ public final class R2DepthShaderBasicStippledSingle
     this.viewport_w = viewport.sizeX();
     this.viewport_h = viewport.sizeY();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) this.viewport_w));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) this.viewport_h));
   }
 
@@ -201,8 +179,8 @@ public final class R2DepthShaderBasicStippledSingle
         (double) (this.viewport_w / noise.width()),
         (double) (this.viewport_h / noise.height()));
 
-    g_sh.shaderUniformPutVector2f(
-      this.u_stipple_noise_uv_scale, noise_uv_scale);
+    this.uniformCache().putVector2f(
+      g_sh, this.u_stipple_noise_uv_scale, noise_uv_scale);
 
     final JCGLTextureUnitType unit_albedo =
       tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
@@ -210,20 +188,19 @@ public final class R2DepthShaderBasicStippledSingle
       tc.unitContextBindTexture2D(
         g_tex, values.stippleNoiseTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_stipple, unit_stipple);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_stipple, unit_stipple);
 
-    g_sh.shaderUniformPutFloat(
-      this.u_alpha_discard_threshold,
+    this.uniformCache().putFloat(
+      g_sh, this.u_alpha_discard_threshold,
       (float) values.alphaDiscardThreshold());
-    g_sh.shaderUniformPutFloat(
-      this.u_stipple_threshold,
+    this.uniformCache().putFloat(
+      g_sh, this.u_stipple_threshold,
       (float) values.stippleThreshold());
   }
 
-
   @Override
   protected void onActualReceiveInstanceTransformValues(
     final JCGLInterfaceGL33Type g,
@@ -231,11 +208,11 @@ public final class R2DepthShaderBasicStippledSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 }
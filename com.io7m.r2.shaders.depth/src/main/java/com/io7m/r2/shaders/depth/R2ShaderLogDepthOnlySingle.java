@@ -23,18 +23,14 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jfunctional.Unit;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 import com.io7m.r2.shaders.depth.api.R2AbstractDepthShaderSingle;
 
-import java.util.Map;
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
@@ -48,9 +44,6 @@ public final class R2ShaderLogDepthOnlySingle
   extends R2AbstractDepthShaderSingle<Unit>
 {
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
 
   private R2ShaderLogDepthOnlySingle(
     final JCGLShadersType in_shaders,
@@ -70,17 +63,10 @@ public final class R2ShaderLogDepthOnlySingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    final Map<String, JCGLProgramUniformType> us = p.uniforms();
     this.u_transform_modelview =
       uniform(p, "R2_transform_modelview", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
-    checkUniformParameterCount(p, 4);
+
+    checkUniformParameterCount(p, 1);
   }
 
   /**
@@ -113,17 +99,7 @@ public final class R2ShaderLogDepthOnlySingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -141,7 +117,7 @@ public final class R2ShaderLogDepthOnlySingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
   }
 }
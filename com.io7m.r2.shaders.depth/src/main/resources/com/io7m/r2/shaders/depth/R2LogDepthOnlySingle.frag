@@ -7,7 +7,6 @@
 #include <com.io7m.r2.shaders.core/R2View.h>
 
 in      R2_vertex_data_t R2_vertex_data;
-uniform R2_view_t        R2_view;
 
 void
 main (void)
@@ -10,7 +10,6 @@ layout(location = 0) in vec3 R2_vertex_position; // Object-space position
 
 out     R2_vertex_data_t R2_vertex_data;
 uniform mat4x4           R2_transform_modelview;
-uniform R2_view_t        R2_view;
 
 void
 main (void)
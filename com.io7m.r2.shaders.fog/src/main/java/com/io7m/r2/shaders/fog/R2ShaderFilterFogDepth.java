@@ -113,21 +113,21 @@ public abstract class R2ShaderFilterFogDepth
     final JCGLTextureUnitType unit_depth_texture =
       tc.unitContextBindTexture2D(g_tex, values.imageDepthTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_image_texture, unit_image_texture);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_image_depth_texture, unit_depth_texture);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_image_texture, unit_image_texture);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_image_depth_texture, unit_depth_texture);
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(
         values.observerValues().projection()));
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_fog_color, values.fogColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_fog_far_z, (float) values.fogFarPositiveZ());
-    g_sh.shaderUniformPutFloat(
-      this.u_fog_near_z, (float) values.fogNearPositiveZ());
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_fog_color, values.fogColor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fog_far_z, (float) values.fogFarPositiveZ());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fog_near_z, (float) values.fogNearPositiveZ());
   }
 }
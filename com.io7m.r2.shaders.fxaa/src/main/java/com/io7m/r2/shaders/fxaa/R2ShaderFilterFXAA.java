@@ -160,7 +160,7 @@ public final class R2ShaderFilterFXAA
 
     final JCGLTextureUnitType u =
       tc.unitContextBindTexture2D(g_tex, values.texture().texture());
-    g_sh.shaderUniformPutTexture2DUnit(this.u_image, u);
+    this.uniformCache().putTexture2DUnit(g_sh, this.u_image, u);
 
     /*
      * Upload the viewport.
@@ -174,20 +174,21 @@ public final class R2ShaderFilterFXAA
         1.0 / (double) area.sizeX(),
         1.0 / (double) area.sizeY());
 
-    g_sh.shaderUniformPutVector2f(this.u_screen_inverse, screen_inverse);
+    this.uniformCache().putVector2f(
+      g_sh, this.u_screen_inverse, screen_inverse);
 
     /*
      * Upload the various algorithm parameters.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_edge_threshold,
+    this.uniformCache().putFloat(
+      g_sh, this.u_edge_threshold,
       (float) values.edgeThreshold());
-    g_sh.shaderUniformPutFloat(
-      this.u_edge_threshold_minimum,
+    this.uniformCache().putFloat(
+      g_sh, this.u_edge_threshold_minimum,
       (float) values.edgeThresholdMinimum());
-    g_sh.shaderUniformPutFloat(
-      this.u_subpixel_aliasing_removal,
+    this.uniformCache().putFloat(
+      g_sh, this.u_subpixel_aliasing_removal,
       (float) values.subPixelAliasingRemoval());
   }
 
@@ -18,7 +18,6 @@
 in      R2_vertex_data_t       R2_vertex_data;
 in      R2_matrices_instance_t R2_matrices_instance;
 uniform R2_geometry_textures_t R2_surface_textures;
-uniform R2_view_t              R2_view;
 
 layout(location = 0) out vec4 R2_out_albedo;
 layout(location = 1) out vec2 R2_out_normal;
@@ -23,12 +23,9 @@ import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
-import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVectors3D;
 import com.io7m.jtensors.core.parameterized.vectors.PVectors4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -38,7 +35,6 @@ import com.io7m.r2.shaders.geometry.api.R2AbstractGeometryShaderBatched;
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
@@ -52,9 +48,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2GeometryShaderBasicBatched
   extends R2AbstractGeometryShaderBatched<R2GeometryShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_emission_amount;
   private final JCGLProgramUniformType u_albedo_color;
   private final JCGLProgramUniformType u_albedo_mix;
@@ -84,13 +77,6 @@ public final class R2GeometryShaderBasicBatched
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_emission_amount =
       uniform(p, "R2_basic_surface_parameters.emission_amount", TYPE_FLOAT);
     this.u_albedo_color =
@@ -123,7 +109,7 @@ public final class R2GeometryShaderBasicBatched
     this.u_texture_emission =
       uniform(p, "R2_basic_surface_textures.emission", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 13);
+    checkUniformParameterCount(p, 10);
   }
 
   /**
@@ -156,19 +142,7 @@ public final class R2GeometryShaderBasicBatched
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_view,
-      PMatrices4x4D.toUnparameterized(matrices.matrixView()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_projection,
-      PMatrices4x4D.toUnparameterized(matrices.matrixProjection()));
+
   }
 
   @Override
@@ -193,35 +167,35 @@ public final class R2GeometryShaderBasicBatched
     final JCGLTextureUnitType unit_specular =
       tc.unitContextBindTexture2D(g_tex, values.specularTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_emission, unit_emission);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_normal, unit_normal);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_specular, unit_specular);
-
-    g_sh.shaderUniformPutVector4f(
-      this.u_albedo_color,
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_emission, unit_emission);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_normal, unit_normal);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_specular, unit_specular);
+
+    this.uniformCache().putVector4f(
+      g_sh, this.u_albedo_color,
       PVectors4D.toUnparameterized(values.albedoColor()));
-    g_sh.shaderUniformPutFloat(
-      this.u_albedo_mix,
+    this.uniformCache().putFloat(
+      g_sh, this.u_albedo_mix,
       (float) values.albedoMix());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_emission_amount,
+    this.uniformCache().putFloat(
+      g_sh, this.u_emission_amount,
       (float) values.emission());
 
-    g_sh.shaderUniformPutVector3f(
-      this.u_specular_color,
+    this.uniformCache().putVector3f(
+      g_sh, this.u_specular_color,
       PVectors3D.toUnparameterized(values.specularColor()));
-    g_sh.shaderUniformPutFloat(
-      this.u_specular_exponent,
+    this.uniformCache().putFloat(
+      g_sh, this.u_specular_exponent,
       (float) values.specularExponent());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_alpha_discard_threshold,
+    this.uniformCache().putFloat(
+      g_sh, this.u_alpha_discard_threshold,
       (float) values.alphaDiscardThreshold());
   }
 }
@@ -24,8 +24,6 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -36,7 +34,6 @@ import com.io7m.r2.shaders.geometry.api.R2ShaderGeometryBillboardedType;
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
@@ -51,9 +48,6 @@ public final class R2GeometryShaderBasicBillboarded extends
   R2AbstractGeometryShaderBillboarded<R2GeometryShaderBasicParameters>
   implements R2ShaderGeometryBillboardedType<R2GeometryShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_emission_amount;
   private final JCGLProgramUniformType u_albedo_color;
   private final JCGLProgramUniformType u_albedo_mix;
@@ -83,13 +77,6 @@ public final class R2GeometryShaderBasicBillboarded extends
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_emission_amount =
       uniform(p, "R2_basic_surface_parameters.emission_amount", TYPE_FLOAT);
     this.u_albedo_color =
@@ -122,7 +109,7 @@ public final class R2GeometryShaderBasicBillboarded extends
     this.u_texture_emission =
       uniform(p, "R2_basic_surface_textures.emission", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 13);
+    checkUniformParameterCount(p, 10);
   }
 
   /**
@@ -155,17 +142,7 @@ public final class R2GeometryShaderBasicBillboarded extends
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -190,29 +167,30 @@ public final class R2GeometryShaderBasicBillboarded extends
     final JCGLTextureUnitType unit_specular =
       tc.unitContextBindTexture2D(g_tex, values.specularTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_emission, unit_emission);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_normal, unit_normal);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_specular, unit_specular);
-
-    g_sh.shaderUniformPutPVector4f(
-      this.u_albedo_color, values.albedoColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_albedo_mix, (float) values.albedoMix());
-
-    g_sh.shaderUniformPutFloat(
-      this.u_emission_amount, (float) values.emission());
-
-    g_sh.shaderUniformPutPVector3f(
-      this.u_specular_color, values.specularColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_specular_exponent, (float) values.specularExponent());
-
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_emission, unit_emission);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_normal, unit_normal);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_specular, unit_specular);
+
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_albedo_color, values.albedoColor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_albedo_mix, (float) values.albedoMix());
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_emission_amount, (float) values.emission());
+
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_specular_color, values.specularColor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_specular_exponent, (float) values.specularExponent());
+
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_alpha_discard_threshold, (float) values.alphaDiscardThreshold());
   }
 }
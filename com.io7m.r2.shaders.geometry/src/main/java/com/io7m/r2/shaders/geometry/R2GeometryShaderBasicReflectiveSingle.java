@@ -26,7 +26,6 @@ import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableT
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -53,11 +52,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2GeometryShaderBasicReflectiveSingle
   extends R2AbstractGeometryShaderSingle<R2GeometryShaderBasicReflectiveParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_emission_amount;
   private final JCGLProgramUniformType u_albedo_color;
@@ -91,16 +87,10 @@ public final class R2GeometryShaderBasicReflectiveSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
     this.u_transform_view_inverse = uniform(
       p,
       "R2_surface_reflective_parameters.transform_view_inverse",
       TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", TYPE_FLOAT);
 
     this.u_transform_normal = uniform(
       p, "R2_matrices_instance.transform_normal", TYPE_FLOAT_MATRIX_3);
@@ -135,7 +125,7 @@ public final class R2GeometryShaderBasicReflectiveSingle
     this.u_texture_environment = uniform(
       p, "R2_surface_reflective_textures.environment", TYPE_SAMPLER_CUBE);
 
-    checkUniformParameterCount(p, 19);
+    checkUniformParameterCount(p, 16);
   }
 
   /**
@@ -172,17 +162,8 @@ public final class R2GeometryShaderBasicReflectiveSingle
     final R2MatricesObserverValuesType matrices =
       view_parameters.observerMatrices();
 
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view,
-      matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection,
-      matrices.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view_inverse,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_view_inverse,
       matrices.matrixViewInverse());
   }
 
@@ -212,41 +193,41 @@ public final class R2GeometryShaderBasicReflectiveSingle
         g_tex,
         values.environmentTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_emission, unit_emission);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_normal, unit_normal);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_specular, unit_specular);
-    g_sh.shaderUniformPutTextureCubeUnit(
-      this.u_texture_environment, unit_environment);
-
-    g_sh.shaderUniformPutPVector4f(
-      this.u_albedo_color,
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_emission, unit_emission);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_normal, unit_normal);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_specular, unit_specular);
+    this.uniformCache().putTextureCubeUnit(
+      g_sh, this.u_texture_environment, unit_environment);
+
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_albedo_color,
       values.albedoColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_albedo_mix,
+    this.uniformCache().putFloat(
+      g_sh, this.u_albedo_mix,
       (float) values.albedoMix());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_emission_amount,
+    this.uniformCache().putFloat(
+      g_sh, this.u_emission_amount,
       (float) values.emission());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_environment_mix,
+    this.uniformCache().putFloat(
+      g_sh, this.u_environment_mix,
       (float) values.environmentMix());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_specular_color,
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_specular_color,
       values.specularColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_specular_exponent,
+    this.uniformCache().putFloat(
+      g_sh, this.u_specular_exponent,
       (float) values.specularExponent());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_alpha_discard_threshold,
+    this.uniformCache().putFloat(
+      g_sh, this.u_alpha_discard_threshold,
       (float) values.alphaDiscardThreshold());
   }
 
@@ -257,14 +238,14 @@ public final class R2GeometryShaderBasicReflectiveSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview,
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview,
       m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal,
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal,
       m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv,
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv,
       m.matrixUV());
   }
 }
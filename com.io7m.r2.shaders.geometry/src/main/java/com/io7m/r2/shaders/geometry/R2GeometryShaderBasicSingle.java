@@ -25,8 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -51,11 +49,8 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2GeometryShaderBasicSingle
   extends R2AbstractGeometryShaderSingle<R2GeometryShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_emission_amount;
   private final JCGLProgramUniformType u_albedo_color;
@@ -86,13 +81,6 @@ public final class R2GeometryShaderBasicSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient = uniform(
-      p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_transform_normal = uniform(
       p, "R2_matrices_instance.transform_normal", TYPE_FLOAT_MATRIX_3);
     this.u_transform_modelview = uniform(
@@ -122,7 +110,7 @@ public final class R2GeometryShaderBasicSingle
     this.u_texture_emission = uniform(
       p, "R2_basic_surface_textures.emission", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 16);
+    checkUniformParameterCount(p, 13);
   }
 
   /**
@@ -155,17 +143,7 @@ public final class R2GeometryShaderBasicSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -190,29 +168,30 @@ public final class R2GeometryShaderBasicSingle
     final JCGLTextureUnitType unit_specular =
       tc.unitContextBindTexture2D(g_tex, values.specularTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_emission, unit_emission);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_normal, unit_normal);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_specular, unit_specular);
-
-    g_sh.shaderUniformPutPVector4f(
-      this.u_albedo_color, values.albedoColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_albedo_mix, (float) values.albedoMix());
-
-    g_sh.shaderUniformPutFloat(
-      this.u_emission_amount, (float) values.emission());
-
-    g_sh.shaderUniformPutPVector3f(
-      this.u_specular_color, values.specularColor());
-    g_sh.shaderUniformPutFloat(
-      this.u_specular_exponent, (float) values.specularExponent());
-
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_emission, unit_emission);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_normal, unit_normal);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_specular, unit_specular);
+
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_albedo_color, values.albedoColor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_albedo_mix, (float) values.albedoMix());
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_emission_amount, (float) values.emission());
+
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_specular_color, values.specularColor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_specular_exponent, (float) values.specularExponent());
+
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_alpha_discard_threshold, (float) values.alphaDiscardThreshold());
   }
 
@@ -223,11 +202,11 @@ public final class R2GeometryShaderBasicSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 }
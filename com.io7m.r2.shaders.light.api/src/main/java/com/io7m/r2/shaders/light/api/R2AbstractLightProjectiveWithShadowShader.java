@@ -25,6 +25,7 @@ import com.io7m.jfsm.core.FSMEnumMutableBuilderType;
 import com.io7m.jnull.NullCheck;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowReadableType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.matrices.R2MatricesProjectiveLightValuesType;
 import com.io7m.r2.matrices.R2MatricesVolumeLightValuesType;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
@@ -103,13 +104,15 @@ public abstract class R2AbstractLightProjectiveWithShadowShader<M extends R2Ligh
   public final void onReceiveShadowMap(
     final JCGLInterfaceGL33Type g,
     final JCGLTextureUnitContextMutableType tc,
-    final R2Texture2DUsableType map)
+    final R2Texture2DUsableType map,
+    final R2ShadowMapRegion region)
   {
     NullCheck.notNull(g, "G33");
     NullCheck.notNull(tc, "Texture context");
     NullCheck.notNull(map, "Shadow map");
+    NullCheck.notNull(region, "Shadow map region");
     this.state.transition(State.STATE_SHADOW_RECEIVED);
-    this.onActualReceiveShadowMap(g, tc, map);
+    this.onActualReceiveShadowMap(g, tc, map, region);
   }
 
   @Override
@@ -146,7 +149,8 @@ public abstract class R2AbstractLightProjectiveWithShadowShader<M extends R2Ligh
   protected abstract void onActualReceiveShadowMap(
     JCGLInterfaceGL33Type g,
     JCGLTextureUnitContextMutableType tc,
-    R2Texture2DUsableType map);
+    R2Texture2DUsableType map,
+    R2ShadowMapRegion region);
 
   @Override
   public final void onReceiveVolumeLightTransform(
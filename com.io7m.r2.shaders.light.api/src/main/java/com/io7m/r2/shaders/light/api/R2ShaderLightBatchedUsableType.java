@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.shaders.light.api;
+
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
+import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
+import com.io7m.r2.shaders.api.R2ShaderUsableType;
+
+/**
+ * The type of usable batched light shaders.
+ *
+ * @param <M> The type of shader parameters
+ */
+
+public interface R2ShaderLightBatchedUsableType<
+  M extends R2LightBatchedReadableType>
+  extends R2ShaderUsableType<M>
+{
+  /**
+   * <p>Set the bound geometry buffer textures for the current shader.</p>
+   *
+   * <p>This method will be called exactly once between calls to {@link
+   * R2ShaderUsableType#onActivate(JCGLInterfaceGL33Type)}
+   * and {@link #onValidate()}.</p>
+   *
+   * @param g             An OpenGL interface
+   * @param gbuffer       The geometry buffer
+   * @param unit_albedo   The texture unit to which the geometry buffer's
+   *                      albedo/emissive texture is bound
+   * @param unit_specular The texture unit to which the geometry buffer's
+   *                      specular texture is bound
+   * @param unit_depth    The texture unit to which the geometry buffer's
+   *                      depth/stencil texture is bound
+   * @param unit_normals  The texture unit to which the geometry buffer's
+   *                      normal
+   */
+
+  void onReceiveBoundGeometryBufferTextures(
+    JCGLInterfaceGL33Type g,
+    R2GeometryBufferUsableType gbuffer,
+    JCGLTextureUnitType unit_albedo,
+    JCGLTextureUnitType unit_specular,
+    JCGLTextureUnitType unit_depth,
+    JCGLTextureUnitType unit_normals);
+
+  /**
+   * <p>Set the values that are shared by all lights in a batch. The values
+   * of individual lights are delivered as per-instance attributes.</p>
+   *
+   * <p>This method will be called once for each batch that uses the current
+   * shader.</p>
+   *
+   * <p>This method will be called after a call to {@link
+   * R2ShaderUsableType#onActivate(JCGLInterfaceGL33Type)}
+   * and before a call to {@link #onValidate()}.</p>
+   *
+   * @param g                An OpenGL interface
+   * @param light_parameters The light parameters
+   */
+
+  void onReceiveValues(
+    JCGLInterfaceGL33Type g,
+    R2ShaderParametersLightType<M> light_parameters);
+}
@@ -19,6 +19,7 @@ package com.io7m.r2.shaders.light.api;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowReadableType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.textures.R2Texture2DUsableType;
 
 /**
@@ -41,13 +42,15 @@ public interface R2ShaderLightProjectiveWithShadowUsableType<
    * com.io7m.r2.shaders.api.R2ShaderUsableType#onActivate(JCGLInterfaceGL33Type)}
    * and before a call to {@link #onValidate()}.</p>
    *
-   * @param g   An OpenGL interface
-   * @param tc  A texture unit context
-   * @param map A rendered shadow map
+   * @param g      An OpenGL interface
+   * @param tc     A texture unit context
+   * @param map    A rendered shadow map
+   * @param region The region of {@code map} that holds the light's shadow
    */
 
   void onReceiveShadowMap(
     JCGLInterfaceGL33Type g,
     JCGLTextureUnitContextMutableType tc,
-    R2Texture2DUsableType map);
+    R2Texture2DUsableType map,
+    R2ShadowMapRegion region);
 }
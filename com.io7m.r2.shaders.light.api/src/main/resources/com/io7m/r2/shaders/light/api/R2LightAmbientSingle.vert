@@ -2,11 +2,11 @@
 /// \brief A vertex shader for full-screen single-instance ambient lights
 
 #include <com.io7m.r2.shaders.core/R2LogDepth.h>
+#include <com.io7m.r2.shaders.core/R2View.h>
 
 #include <com.io7m.r2.shaders.light.api/R2LightVertex.h>
 #include <com.io7m.r2.shaders.light.api/R2LightMatrices.h>
 
-uniform float               R2_light_depth_coefficient;
 uniform R2_light_matrices_t R2_light_matrices;
 
 out float R2_light_volume_positive_eye_z;
@@ -22,7 +22,7 @@ main (void)
   vec4 position_clip_log =
     vec4 (
       position_clip.xy,
-      R2_logDepthEncodeFull (position_clip.w, R2_light_depth_coefficient),
+      R2_logDepthEncodeFull (position_clip.w, R2_view.depth_coefficient),
       position_clip.w);
 
   R2_light_volume_positive_eye_z = R2_logDepthPrepareEyeZ (position_eye.z);
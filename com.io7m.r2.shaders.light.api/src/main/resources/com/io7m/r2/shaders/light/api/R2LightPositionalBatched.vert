@@ -0,0 +1,49 @@
+/// \file R2LightPositionalBatched.vert
+/// \brief Batched positional light vertex shader.
+
+#include <com.io7m.r2.shaders.core/R2LogDepth.h>
+#include <com.io7m.r2.shaders.core/R2View.h>
+
+layout(location = 0) in vec3 R2_vertex_position;                 // Object-space position
+layout(location = 4) in vec4 R2_light_batched_position_radius;   // World-space light position, light radius
+layout(location = 5) in vec4 R2_light_batched_color_intensity;   // Light color, light intensity
+layout(location = 6) in vec4 R2_light_batched_attenuation;       // Inverse falloff, volume scale
+
+out vec4  R2_light_volume_position_eye;
+out float R2_light_volume_positive_eye_z;
+
+flat out vec4 R2_light_batched_color_intensity_f;
+flat out vec4 R2_light_batched_position_inverse_range_f;
+flat out float R2_light_batched_inverse_falloff_f;
+
+void
+main (void)
+{
+  vec3 origin_world =
+    R2_light_batched_position_radius.xyz;
+  vec4 position_hom =
+    vec4 (origin_world + (R2_vertex_position * R2_light_batched_attenuation.y), 1.0);
+  vec4 position_eye =
+    (R2_view.transform_view * position_hom);
+  vec4 position_clip =
+    (R2_view.transform_projection * position_eye);
+  vec4 position_clip_log =
+    vec4 (
+      position_clip.xy,
+      R2_logDepthEncodeFull (position_clip.w, R2_view.depth_coefficient),
+      position_clip.w);
+
+  vec4 origin_eye =
+    (R2_view.transform_view * vec4 (origin_world, 1.0));
+
+  R2_light_batched_color_intensity_f =
+    R2_light_batched_color_intensity;
+  R2_light_batched_position_inverse_range_f =
+    vec4 (origin_eye.xyz, 1.0 / R2_light_batched_position_radius.w);
+  R2_light_batched_inverse_falloff_f =
+    R2_light_batched_attenuation.x;
+
+  R2_light_volume_position_eye   = position_eye;
+  R2_light_volume_positive_eye_z = R2_logDepthPrepareEyeZ (position_eye.z);
+  gl_Position                    = position_clip_log;
+}
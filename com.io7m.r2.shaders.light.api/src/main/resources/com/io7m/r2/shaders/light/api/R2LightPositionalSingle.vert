@@ -2,12 +2,12 @@
 /// \brief Single-instance positional light vertex shader.
 
 #include <com.io7m.r2.shaders.core/R2LogDepth.h>
+#include <com.io7m.r2.shaders.core/R2View.h>
 
 #include "R2LightMatrices.h"
 
 layout(location = 0) in vec3 R2_vertex_position; // Object-space position
 
-uniform float               R2_light_depth_coefficient;
 uniform R2_light_matrices_t R2_light_matrices;
 
 out vec4  R2_light_volume_position_eye;
@@ -25,7 +25,7 @@ main (void)
   vec4 position_clip_log =
     vec4 (
       position_clip.xy,
-      R2_logDepthEncodeFull (position_clip.w, R2_light_depth_coefficient),
+      R2_logDepthEncodeFull (position_clip.w, R2_view.depth_coefficient),
       position_clip.w);
 
   R2_light_volume_position_eye   = position_eye;
@@ -7,7 +7,7 @@
 #include <com.io7m.r2.shaders.core/R2LogDepth.h>
 #include <com.io7m.r2.shaders.core/R2Normals.h>
 #include <com.io7m.r2.shaders.core/R2Viewport.h>
-#include <com.io7m.r2.shaders.core/R2ViewRays.h>
+#include <com.io7m.r2.shaders.core/R2View.h>
 
 #include <com.io7m.r2.shaders.geometry.api/R2GBufferInput.h>
 
@@ -30,8 +30,6 @@ layout(location = 0) out vec4 R2_out_image;
 
 uniform R2_viewport_t      R2_light_viewport;
 uniform R2_gbuffer_input_t R2_light_gbuffer;
-uniform float              R2_light_depth_coefficient;
-uniform R2_view_rays_t     R2_light_view_rays;
 
 in float R2_light_volume_positive_eye_z;
 
@@ -46,15 +44,15 @@ main (void)
 
   float depth_log = R2_logDepthEncodePartial(
     R2_light_volume_positive_eye_z,
-    R2_light_depth_coefficient);
+    R2_view.depth_coefficient);
 
   // Reconstruct the surface
   R2_reconstructed_surface_t surface =
     R2_deferredSurfaceReconstruct(
       R2_light_gbuffer,
       R2_light_viewport,
-      R2_light_view_rays,
-      R2_light_depth_coefficient,
+      R2_view_rays,
+      R2_view.depth_coefficient,
       gl_FragCoord.xy);
 
   // Evaluate light
@@ -6,6 +6,8 @@
 
 #include <com.io7m.r2.shaders.core/R2LogDepth.h>
 
+#include "R2LightProjective.h"
+
 /// A variance shadow
 struct R2_shadow_variance_t {
   /// The minimum level of attenuation by the shadow (0.0 means "completely attenuated", 1.0 means "no attenuation")
@@ -22,6 +24,9 @@ struct R2_shadow_variance_t {
 
   /// The variance shadow map
   sampler2D map;
+
+  /// The region of `map` that holds the shadow, as a scale (`xy`) and offset (`zw`) applied to shadow map coordinates. The region `(1, 1, 0, 0)` covers the entire map.
+  vec4 map_region;
 };
 
 /// Compute an upper bound on the probability that the position at
@@ -83,27 +88,30 @@ R2_varianceLightBleedReduction(
   return R2_varianceLinearStep (s.bleed_reduction, 1.0, p_max);
 }
 
-/// Calculate a shadow factor for the given position.
+/// Calculate a shadow factor for a position at the given light eye-space
+/// depth, sampling the variance map at the given coordinates.
 ///
-/// @param s  The shadow
-/// @param v  The projective light vectors, including the position in various light coordinate spaces
+/// @param s           The shadow
+/// @param light_eye_z The light eye-space Z coordinate of the position
+/// @param uv          The coordinates at which to sample `s.map`
 ///
 /// @return `s.factor_minimum` if the point is fully in shadow, or `1.0` if the point is
 //          definitely not in shadow.
 
 float
-R2_varianceShadowFactor(
+R2_varianceShadowFactorAt(
   const R2_shadow_variance_t s,
-  const R2_light_projective_vectors_t v)
+  const float light_eye_z,
+  const vec2 uv)
 {
   float pos_light_depth =
     R2_logDepthEncodePartial(
-      R2_logDepthPrepareEyeZ (v.surface_light_eye.z),
+      R2_logDepthPrepareEyeZ (light_eye_z),
       s.depth_coefficient);
 
   // Sample the variance map for the depth distribution
   vec2 moments =
-    texture (s.map, v.surface_light_uv.xy).xy;
+    texture (s.map, uv).xy;
 
   // Calculate the probability that the point is in shadow.
   float p_max =
@@ -116,4 +124,25 @@ R2_varianceShadowFactor(
   return max (p_reduced, s.factor_minimum);
 }
 
+/// Calculate a shadow factor for the given position.
+///
+/// @param s  The shadow
+/// @param v  The projective light vectors, including the position in various light coordinate spaces
+///
+/// @return `s.factor_minimum` if the point is fully in shadow, or `1.0` if the point is
+//          definitely not in shadow.
+
+float
+R2_varianceShadowFactor(
+  const R2_shadow_variance_t s,
+  const R2_light_projective_vectors_t v)
+{
+  // Clamp to the shadow's region so that neighbouring regions of an atlas
+  // are not sampled
+  vec2 uv =
+    (clamp (v.surface_light_uv.xy, 0.0, 1.0) * s.map_region.xy) + s.map_region.zw;
+
+  return R2_varianceShadowFactorAt (s, v.surface_light_eye.z, uv);
+}
+
 #endif // R2_SHADOW_VARIANCE_H
@@ -0,0 +1,106 @@
+#ifndef R2_SHADOW_VARIANCE_CASCADED_H
+#define R2_SHADOW_VARIANCE_CASCADED_H
+
+/// \file R2ShadowVarianceCascaded.h
+/// \brief Functions for cascaded variance shadows
+
+#include "R2ShadowVariance.h"
+
+/// The cascades of a cascaded shadow. The shadow map of cascade `i` occupies
+/// the square region `[i / count, (i + 1) / count] × [0, 1]` of the shadow's
+/// map region.
+struct R2_shadow_cascades_t {
+  /// The number of cascades in use, in `[1, 4]`
+  float count;
+
+  /// The eye-space distance to the far plane of each of the first three cascades. Lanes at or beyond `count - 1` are ignored.
+  vec4 split_far;
+
+  /// The eye-space to light-eye-space matrix of cascade 0
+  mat4x4 eye_to_light_eye_0;
+  /// The eye-space to light-eye-space matrix of cascade 1
+  mat4x4 eye_to_light_eye_1;
+  /// The eye-space to light-eye-space matrix of cascade 2
+  mat4x4 eye_to_light_eye_2;
+  /// The eye-space to light-eye-space matrix of cascade 3
+  mat4x4 eye_to_light_eye_3;
+
+  /// The light projection matrix of cascade 0
+  mat4x4 light_projection_0;
+  /// The light projection matrix of cascade 1
+  mat4x4 light_projection_1;
+  /// The light projection matrix of cascade 2
+  mat4x4 light_projection_2;
+  /// The light projection matrix of cascade 3
+  mat4x4 light_projection_3;
+};
+
+/// Select the cascade that covers the given eye-space distance.
+///
+/// @param c     The cascades
+/// @param depth The positive eye-space distance of the surface from the observer
+///
+/// @return The index of the cascade in `[0, c.count - 1]`
+
+int
+R2_shadowCascadeIndex(
+  const R2_shadow_cascades_t c,
+  const float depth)
+{
+  vec4 beyond = step (c.split_far, vec4 (depth));
+  int index   = int (dot (beyond, vec4 (1.0)));
+  return min (index, int (c.count) - 1);
+}
+
+/// Calculate a shadow factor for the given eye-space position.
+///
+/// @param s            The shadow
+/// @param c            The cascades
+/// @param position_eye The eye-space surface position
+///
+/// @return `s.factor_minimum` if the point is fully in shadow, or `1.0` if the point is
+//          definitely not in shadow.
+
+float
+R2_varianceCascadedShadowFactor(
+  const R2_shadow_variance_t s,
+  const R2_shadow_cascades_t c,
+  const vec3 position_eye)
+{
+  int index =
+    R2_shadowCascadeIndex (c, -position_eye.z);
+
+  mat4x4 eye_to_light_eye;
+  mat4x4 light_projection;
+  if (index == 0) {
+    eye_to_light_eye = c.eye_to_light_eye_0;
+    light_projection = c.light_projection_0;
+  } else if (index == 1) {
+    eye_to_light_eye = c.eye_to_light_eye_1;
+    light_projection = c.light_projection_1;
+  } else if (index == 2) {
+    eye_to_light_eye = c.eye_to_light_eye_2;
+    light_projection = c.light_projection_2;
+  } else {
+    eye_to_light_eye = c.eye_to_light_eye_3;
+    light_projection = c.light_projection_3;
+  }
+
+  vec4 light_eye =
+    eye_to_light_eye * vec4 (position_eye, 1.0);
+  vec4 light_clip =
+    light_projection * light_eye;
+  vec2 light_uv =
+    ((light_clip.xy / light_clip.w) + 1.0) * 0.5;
+
+  // Select the cascade's square within the strip of cascades, clamping so
+  // that neighbouring cascades are not sampled
+  vec2 strip_uv =
+    (clamp (light_uv, 0.0, 1.0) + vec2 (float (index), 0.0)) / vec2 (c.count, 1.0);
+  vec2 uv =
+    (strip_uv * s.map_region.xy) + s.map_region.zw;
+
+  return R2_varianceShadowFactorAt (s, light_eye.z, uv);
+}
+
+#endif // R2_SHADOW_VARIANCE_CASCADED_H
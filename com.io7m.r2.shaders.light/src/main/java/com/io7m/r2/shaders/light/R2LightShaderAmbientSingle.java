@@ -27,7 +27,6 @@ import com.io7m.jregions.core.unparameterized.areas.AreaL;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightAmbientScreenSingle;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
@@ -53,7 +52,6 @@ public final class R2LightShaderAmbientSingle extends
 {
   private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_projection_inverse;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_viewport_inverse_width;
   private final JCGLProgramUniformType u_viewport_inverse_height;
   private final JCGLProgramUniformType u_light_color;
@@ -105,9 +103,6 @@ public final class R2LightShaderAmbientSingle extends
     this.u_viewport_inverse_height =
       uniform(p, "R2_light_viewport.inverse_height", TYPE_FLOAT);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
     final int count;
     if (lightShaderTargetIsImageBuffer(this.environment())) {
       this.u_gbuffer_albedo =
@@ -118,13 +113,13 @@ public final class R2LightShaderAmbientSingle extends
         uniform(p, "R2_light_gbuffer.specular", TYPE_SAMPLER_2D);
       this.u_gbuffer_depth =
         uniform(p, "R2_light_gbuffer.depth", TYPE_SAMPLER_2D);
-      count = 13;
+      count = 12;
     } else {
       this.u_gbuffer_albedo = null;
       this.u_gbuffer_normal = null;
       this.u_gbuffer_specular = null;
       this.u_gbuffer_depth = null;
-      count = 9;
+      count = 8;
     }
 
     checkUniformParameterCount(p, count);
@@ -171,12 +166,15 @@ public final class R2LightShaderAmbientSingle extends
        */
 
       final JCGLShadersType g_sh = g.shaders();
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-      g_sh.shaderUniformPutTexture2DUnit(
-        this.u_gbuffer_specular,
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_albedo, unit_albedo);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_normal, unit_normals);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_specular,
         unit_specular);
-      g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+      this.uniformCache().putTexture2DUnit(
+        g_sh, this.u_gbuffer_depth, unit_depth);
     }
   }
 
@@ -201,42 +199,34 @@ public final class R2LightShaderAmbientSingle extends
      * Upload the projections for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse, m.matrixProjectionInverse());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, m.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse, m.matrixProjectionInverse());
 
     /*
      * Upload the viewport.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) viewport.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) viewport.sizeY()));
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Upload the occlusion texture and light values.
      */
 
     final JCGLTextureUnitType unit_ao =
       tc.unitContextBindTexture2D(g_tex, light.occlusionMap().texture());
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_light_occlusion, unit_ao);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_light_occlusion, unit_ao);
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_color, light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_intensity, (float) light.intensity());
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_color, light.color());
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_intensity, (float) light.intensity());
   }
 }
@@ -0,0 +1,371 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.light;
+
+import com.io7m.jcanephora.core.JCGLProgramShaderUsableType;
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLShadersType;
+import com.io7m.jcanephora.core.api.JCGLTexturesType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowType;
+import com.io7m.r2.lights.R2LightDirectionalWithShadowVarianceType;
+import com.io7m.r2.lights.shadows.R2ShadowCascades;
+import com.io7m.r2.lights.shadows.R2ShadowDepthVarianceType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.projections.R2Projections;
+import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
+import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderStateChecking;
+import com.io7m.r2.shaders.light.api.R2AbstractLightScreenWithShadowShaderSingle;
+import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.textures.R2Texture2DUsableType;
+
+import java.util.Optional;
+
+import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
+import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
+import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
+import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
+import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
+import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
+import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
+
+/**
+ * Directional light shader for single lights with cascaded variance shadows.
+ */
+
+public final class R2LightShaderDirectionalSpecularShadowVarianceSingle extends
+  R2AbstractLightScreenWithShadowShaderSingle<R2LightDirectionalWithShadowVarianceType>
+{
+  private final JCGLProgramUniformType u_transform_projection;
+  private final JCGLProgramUniformType u_transform_projection_inverse;
+  private final JCGLProgramUniformType u_gbuffer_albedo;
+  private final JCGLProgramUniformType u_gbuffer_normal;
+  private final JCGLProgramUniformType u_gbuffer_specular;
+  private final JCGLProgramUniformType u_gbuffer_depth;
+  private final JCGLProgramUniformType u_viewport_inverse_width;
+  private final JCGLProgramUniformType u_viewport_inverse_height;
+  private final JCGLProgramUniformType u_light_directional_color;
+  private final JCGLProgramUniformType u_light_directional_direction;
+  private final JCGLProgramUniformType u_light_directional_intensity;
+  private final JCGLProgramUniformType u_shadow_factor_minimum;
+  private final JCGLProgramUniformType u_shadow_variance_minimum;
+  private final JCGLProgramUniformType u_shadow_bleed_reduction;
+  private final JCGLProgramUniformType u_shadow_depth_coefficient;
+  private final JCGLProgramUniformType u_shadow_map;
+  private final JCGLProgramUniformType u_shadow_map_region;
+  private final JCGLProgramUniformType u_cascades_count;
+  private final JCGLProgramUniformType u_cascades_split_far;
+  private final JCGLProgramUniformType[] u_cascades_eye_to_light_eye;
+  private final JCGLProgramUniformType[] u_cascades_light_projection;
+
+  private R2LightShaderDirectionalSpecularShadowVarianceSingle(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool,
+    final R2ShaderStateChecking in_check)
+  {
+    super(
+      in_shaders,
+      in_shader_env,
+      in_pool,
+      "com.io7m.r2.shaders.light.R2LightShaderDirectionalSpecularShadowVarianceSingle",
+      "com.io7m.r2.shaders.light.api/R2LightDirectionalSingle.vert",
+      Optional.empty(),
+      "com.io7m.r2.shaders.light/R2LightDirectionalSpecularShadowVarianceSingle.frag",
+      in_check);
+
+    final JCGLProgramShaderUsableType p = this.shaderProgram();
+
+    this.u_light_directional_color =
+      uniform(p, "R2_light_directional.color", TYPE_FLOAT_VECTOR_3);
+    this.u_light_directional_direction =
+      uniform(p, "R2_light_directional.direction", TYPE_FLOAT_VECTOR_3);
+    this.u_light_directional_intensity =
+      uniform(p, "R2_light_directional.intensity", TYPE_FLOAT);
+
+    uniform(
+      p,
+      "R2_light_matrices.transform_volume_modelview",
+      TYPE_FLOAT_MATRIX_4);
+
+    this.u_transform_projection =
+      uniform(
+        p, "R2_light_matrices.transform_projection", TYPE_FLOAT_MATRIX_4);
+    this.u_transform_projection_inverse =
+      uniform(
+        p,
+        "R2_light_matrices.transform_projection_inverse",
+        TYPE_FLOAT_MATRIX_4);
+
+    this.u_gbuffer_albedo =
+      uniform(p, "R2_light_gbuffer.albedo", TYPE_SAMPLER_2D);
+    this.u_gbuffer_normal =
+      uniform(p, "R2_light_gbuffer.normal", TYPE_SAMPLER_2D);
+    this.u_gbuffer_specular =
+      uniform(p, "R2_light_gbuffer.specular", TYPE_SAMPLER_2D);
+    this.u_gbuffer_depth =
+      uniform(p, "R2_light_gbuffer.depth", TYPE_SAMPLER_2D);
+
+    this.u_viewport_inverse_width =
+      uniform(p, "R2_light_viewport.inverse_width", TYPE_FLOAT);
+    this.u_viewport_inverse_height =
+      uniform(p, "R2_light_viewport.inverse_height", TYPE_FLOAT);
+
+    this.u_shadow_factor_minimum =
+      uniform(p, "R2_shadow_variance.factor_minimum", TYPE_FLOAT);
+    this.u_shadow_variance_minimum =
+      uniform(p, "R2_shadow_variance.variance_minimum", TYPE_FLOAT);
+    this.u_shadow_bleed_reduction =
+      uniform(p, "R2_shadow_variance.bleed_reduction", TYPE_FLOAT);
+    this.u_shadow_depth_coefficient =
+      uniform(p, "R2_shadow_variance.depth_coefficient", TYPE_FLOAT);
+    this.u_shadow_map =
+      uniform(p, "R2_shadow_variance.map", TYPE_SAMPLER_2D);
+    this.u_shadow_map_region =
+      uniform(p, "R2_shadow_variance.map_region", TYPE_FLOAT_VECTOR_4);
+
+    this.u_cascades_count =
+      uniform(p, "R2_shadow_cascades.count", TYPE_FLOAT);
+    this.u_cascades_split_far =
+      uniform(p, "R2_shadow_cascades.split_far", TYPE_FLOAT_VECTOR_4);
+
+    final int cascades = R2LightDirectionalWithShadowType.MAXIMUM_CASCADES;
+    this.u_cascades_eye_to_light_eye = new JCGLProgramUniformType[cascades];
+    this.u_cascades_light_projection = new JCGLProgramUniformType[cascades];
+    for (int index = 0; index < cascades; ++index) {
+      this.u_cascades_eye_to_light_eye[index] =
+        uniform(
+          p,
+          "R2_shadow_cascades.eye_to_light_eye_" + index,
+          TYPE_FLOAT_MATRIX_4);
+      this.u_cascades_light_projection[index] =
+        uniform(
+          p,
+          "R2_shadow_cascades.light_projection_" + index,
+          TYPE_FLOAT_MATRIX_4);
+    }
+
+    checkUniformParameterCount(p, 28);
+  }
+
+  /**
+   * Construct a new shader.
+   *
+   * @param in_shaders    A shader interface
+   * @param in_shader_env The shader preprocessing environment
+   * @param in_pool       The ID pool
+   *
+   * @return A new shader
+   */
+
+  public static R2LightShaderDirectionalSpecularShadowVarianceSingle create(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool)
+  {
+    return new R2LightShaderDirectionalSpecularShadowVarianceSingle(
+      in_shaders, in_shader_env, in_pool, R2ShaderStateChecking.STATE_CHECK);
+  }
+
+  @Override
+  public Class<R2LightDirectionalWithShadowVarianceType>
+  shaderParametersType()
+  {
+    return R2LightDirectionalWithShadowVarianceType.class;
+  }
+
+  @Override
+  protected void onActualReceiveBoundGeometryBufferTextures(
+    final JCGLInterfaceGL33Type g,
+    final R2GeometryBufferUsableType gbuffer,
+    final JCGLTextureUnitType unit_albedo,
+    final JCGLTextureUnitType unit_specular,
+    final JCGLTextureUnitType unit_depth,
+    final JCGLTextureUnitType unit_normals)
+  {
+    /*
+     * Set each of the required G-Buffer textures.
+     */
+
+    final JCGLShadersType g_sh = g.shaders();
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
+  }
+
+  @Override
+  protected void onActualReceiveValues(
+    final JCGLInterfaceGL33Type g,
+    final R2ShaderParametersLightType<R2LightDirectionalWithShadowVarianceType> light_parameters)
+  {
+    final JCGLShadersType g_sh = g.shaders();
+
+    final R2MatricesObserverValuesType m =
+      light_parameters.observerMatrices();
+    final AreaL viewport =
+      light_parameters.viewport();
+    final R2LightDirectionalWithShadowVarianceType light =
+      light_parameters.values();
+
+    /*
+     * Upload the viewport.
+     */
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
+      (float) (1.0 / (double) viewport.sizeX()));
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
+      (float) (1.0 / (double) viewport.sizeY()));
+
+    /*
+     * Upload the projections for the light volume.
+     */
+
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, m.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse, m.matrixProjectionInverse());
+
+    /*
+     * Transform the light's direction to eye-space and upload it.
+     */
+
+    final PVector3D<R2SpaceWorldType> direction = light.direction();
+    final PVector4D<R2SpaceWorldType> direction_w0 =
+      PVector4D.of(direction.x(), direction.y(), direction.z(), 0.0);
+    final PVector4D<R2SpaceEyeType> direction_eye =
+      PMatrices4x4D.multiplyVectorPost(m.matrixView(), direction_w0);
+    final PVector3D<R2SpaceEyeType> direction_eye3 =
+      PVector3D.of(direction_eye.x(), direction_eye.y(), direction_eye.z());
+
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_direction, direction_eye3);
+
+    /*
+     * Upload light values.
+     */
+
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_color, light.color());
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_directional_intensity, (float) light.intensity());
+
+    /*
+     * Upload the shadow values. All cascades share the same depth range,
+     * so the depth coefficient of the first cascade applies to all of them.
+     */
+
+    final R2ShadowCascades cascades = light.cascades();
+    final R2ShadowDepthVarianceType shadow = light.shadow();
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_bleed_reduction, shadow.lightBleedReduction());
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_depth_coefficient,
+      (float) R2Projections.getDepthCoefficient(
+        cascades.cascadeProjection(0)));
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_factor_minimum, shadow.minimumFactor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_variance_minimum, shadow.minimumVariance());
+
+    this.putCascades(g_sh, m, cascades);
+  }
+
+  /**
+   * Upload the split distances and matrices of each cascade. Slots beyond the
+   * number of cascades in use are never selected by the shader, and are
+   * filled with the values of the last cascade.
+   */
+
+  private void putCascades(
+    final JCGLShadersType g_sh,
+    final R2MatricesObserverValuesType m,
+    final R2ShadowCascades cascades)
+  {
+    final int count = cascades.cascadeCount();
+    final int last = count - 1;
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_cascades_count, (float) count);
+    this.uniformCache().putVector4f(
+      g_sh, this.u_cascades_split_far,
+      Vector4D.of(
+        cascades.cascadeSplitFar(Math.min(0, last)),
+        cascades.cascadeSplitFar(Math.min(1, last)),
+        cascades.cascadeSplitFar(Math.min(2, last)),
+        cascades.cascadeSplitFar(Math.min(3, last))));
+
+    final int slots = this.u_cascades_eye_to_light_eye.length;
+    for (int index = 0; index < slots; ++index) {
+      final int cascade = Math.min(index, last);
+
+      final PMatrix4x4D<R2SpaceEyeType, R2SpaceEyeType> eye_to_light_eye =
+        PMatrices4x4D.multiply(
+          cascades.cascadeView(cascade), m.matrixViewInverse());
+
+      this.uniformCache().putPMatrix4x4f(
+        g_sh, this.u_cascades_eye_to_light_eye[index], eye_to_light_eye);
+      this.uniformCache().putPMatrix4x4f(
+        g_sh,
+        this.u_cascades_light_projection[index],
+        cascades.cascadeProjection(cascade).projectionMakeMatrix());
+    }
+  }
+
+  @Override
+  protected void onActualReceiveShadowMap(
+    final JCGLInterfaceGL33Type g,
+    final JCGLTextureUnitContextMutableType tc,
+    final R2Texture2DUsableType map,
+    final R2ShadowMapRegion region)
+  {
+    final JCGLShadersType g_sh = g.shaders();
+    final JCGLTexturesType g_tex = g.textures();
+
+    final JCGLTextureUnitType unit_shadow =
+      tc.unitContextBindTexture2D(g_tex, map.texture());
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_shadow_map, unit_shadow);
+    this.uniformCache().putVector4f(
+      g_sh, this.u_shadow_map_region,
+      Vector4D.of(
+        region.scaleX(),
+        region.scaleY(),
+        region.offsetX(),
+        region.offsetY()));
+  }
+}
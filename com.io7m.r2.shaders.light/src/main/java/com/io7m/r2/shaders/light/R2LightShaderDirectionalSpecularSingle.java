@@ -28,7 +28,6 @@ import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightDirectionalScreenSingle;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
@@ -36,7 +35,6 @@ import com.io7m.r2.shaders.light.api.R2AbstractLightScreenShaderSingle;
 import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
 import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
-import com.io7m.r2.view_rays.R2ViewRaysReadableType;
 
 import java.util.Optional;
 
@@ -56,15 +54,6 @@ public final class R2LightShaderDirectionalSpecularSingle extends
 {
   private final JCGLProgramUniformType u_transform_projection;
   private final JCGLProgramUniformType u_transform_projection_inverse;
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y1;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y1;
   private final JCGLProgramUniformType u_gbuffer_albedo;
   private final JCGLProgramUniformType u_gbuffer_normal;
   private final JCGLProgramUniformType u_gbuffer_specular;
@@ -128,28 +117,7 @@ public final class R2LightShaderDirectionalSpecularSingle extends
     this.u_viewport_inverse_height =
       uniform(p, "R2_light_viewport.inverse_height", TYPE_FLOAT);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
-    this.u_view_rays_origin_x0y0 =
-      uniform(p, "R2_light_view_rays.origin_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y0 =
-      uniform(p, "R2_light_view_rays.origin_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x0y1 =
-      uniform(p, "R2_light_view_rays.origin_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y1 =
-      uniform(p, "R2_light_view_rays.origin_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    this.u_view_rays_ray_x0y0 =
-      uniform(p, "R2_light_view_rays.ray_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y0 =
-      uniform(p, "R2_light_view_rays.ray_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x0y1 =
-      uniform(p, "R2_light_view_rays.ray_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y1 =
-      uniform(p, "R2_light_view_rays.ray_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    checkUniformParameterCount(p, 21);
+    checkUniformParameterCount(p, 12);
   }
 
   /**
@@ -192,10 +160,14 @@ public final class R2LightShaderDirectionalSpecularSingle extends
      */
 
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
   }
 
   @Override
@@ -212,56 +184,25 @@ public final class R2LightShaderDirectionalSpecularSingle extends
     final R2LightDirectionalScreenSingle light =
       light_parameters.values();
 
-    /*
-     * Upload the current view rays.
-     */
-
-    final R2ViewRaysReadableType view_rays = m.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
-
     /*
      * Upload the viewport.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) viewport.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) viewport.sizeY()));
 
     /*
      * Upload the projections for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse, m.matrixProjectionInverse());
-
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, m.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse, m.matrixProjectionInverse());
 
     /*
      * Transform the light's direction to eye-space and upload it.
@@ -275,16 +216,16 @@ public final class R2LightShaderDirectionalSpecularSingle extends
     final PVector3D<R2SpaceEyeType> direction_eye3 =
       PVector3D.of(direction_eye.x(), direction_eye.y(), direction_eye.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_directional_direction, direction_eye3);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_direction, direction_eye3);
 
     /*
      * Upload light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_directional_color, light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_directional_intensity, (float) light.intensity());
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_directional_color, light.color());
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_directional_intensity, (float) light.intensity());
   }
 }
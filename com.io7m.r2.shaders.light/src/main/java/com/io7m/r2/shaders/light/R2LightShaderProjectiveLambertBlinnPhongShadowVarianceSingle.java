@@ -27,9 +27,11 @@ import com.io7m.jregions.core.unparameterized.areas.AreaL;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
 import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowVarianceType;
 import com.io7m.r2.lights.shadows.R2ShadowDepthVarianceType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
 import com.io7m.r2.matrices.R2MatricesProjectiveLightValuesType;
 import com.io7m.r2.matrices.R2MatricesVolumeLightValuesType;
@@ -42,13 +44,13 @@ import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
 import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
 import com.io7m.r2.textures.R2Texture2DUsableType;
-import com.io7m.r2.view_rays.R2ViewRaysReadableType;
 
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
+import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
@@ -63,15 +65,6 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
   private final JCGLProgramUniformType u_transform_projection_inverse;
   private final JCGLProgramUniformType u_transform_volume_modelview;
   private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y1;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y1;
   private final JCGLProgramUniformType u_gbuffer_albedo;
   private final JCGLProgramUniformType u_gbuffer_normal;
   private final JCGLProgramUniformType u_gbuffer_specular;
@@ -91,6 +84,7 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
   private final JCGLProgramUniformType u_shadow_bleed_reduction;
   private final JCGLProgramUniformType u_shadow_depth_coefficient;
   private final JCGLProgramUniformType u_shadow_map;
+  private final JCGLProgramUniformType u_shadow_map_region;
 
   private R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle(
     final JCGLShadersType in_shaders,
@@ -120,6 +114,8 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
       uniform(p, "R2_shadow_variance.depth_coefficient", TYPE_FLOAT);
     this.u_shadow_map =
       uniform(p, "R2_shadow_variance.map", TYPE_SAMPLER_2D);
+    this.u_shadow_map_region =
+      uniform(p, "R2_shadow_variance.map_region", TYPE_FLOAT_VECTOR_4);
 
     this.u_light_projective_color =
       uniform(p, "R2_light_projective.color", TYPE_FLOAT_VECTOR_3);
@@ -166,28 +162,7 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
     this.u_viewport_inverse_height =
       uniform(p, "R2_light_viewport.inverse_height", TYPE_FLOAT);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
-    this.u_view_rays_origin_x0y0 =
-      uniform(p, "R2_light_view_rays.origin_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y0 =
-      uniform(p, "R2_light_view_rays.origin_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x0y1 =
-      uniform(p, "R2_light_view_rays.origin_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y1 =
-      uniform(p, "R2_light_view_rays.origin_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    this.u_view_rays_ray_x0y0 =
-      uniform(p, "R2_light_view_rays.ray_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y0 =
-      uniform(p, "R2_light_view_rays.ray_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x0y1 =
-      uniform(p, "R2_light_view_rays.ray_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y1 =
-      uniform(p, "R2_light_view_rays.ray_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    checkUniformParameterCount(p, 31);
+    checkUniformParameterCount(p, 23);
   }
 
   /**
@@ -230,10 +205,14 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
      */
 
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
   }
 
   @Override
@@ -253,56 +232,25 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
     final JCGLTextureUnitContextMutableType tc =
       light_parameters.textureUnitContext();
 
-    /*
-     * Upload the current view rays.
-     */
-
-    final R2ViewRaysReadableType view_rays = m.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
-
     /*
      * Upload the viewport.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) viewport.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) viewport.sizeY()));
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Upload the projection for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse, m.matrixProjectionInverse());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, m.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse, m.matrixProjectionInverse());
 
     /*
      * Transform the light's position to eye-space and upload it.
@@ -316,8 +264,8 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
     final PVector3D<R2SpaceEyeType> position_eye =
       PVector3D.of(position_eye4.x(), position_eye4.y(), position_eye4.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_projective_position, position_eye);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_projective_position, position_eye);
 
     /*
      * Upload the projected image.
@@ -325,38 +273,40 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
 
     final JCGLTextureUnitType unit_image =
       tc.unitContextBindTexture2D(g_tex, light.image().texture());
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_light_projective_image, unit_image);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_light_projective_image, unit_image);
 
     /*
      * Upload the light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_projective_color, light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_projective_intensity, (float) light.intensity());
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_projective_color, light.color());
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_projective_intensity, (float) light.intensity());
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_light_projective_inverse_falloff, (float) (1.0 / light.falloff()));
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_light_projective_inverse_range, (float) (1.0 / light.radius()));
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_light_projective_image, unit_image);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_light_projective_image, unit_image);
 
     /*
      * Upload the shadow values.
      */
 
     final R2ShadowDepthVarianceType shadow = light.shadow();
-    g_sh.shaderUniformPutFloat(
-      this.u_shadow_bleed_reduction, shadow.lightBleedReduction());
-    g_sh.shaderUniformPutFloat(
-      this.u_shadow_depth_coefficient,
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_bleed_reduction, shadow.lightBleedReduction());
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_depth_coefficient,
       (float) R2Projections.getDepthCoefficient(light.projection()));
-    g_sh.shaderUniformPutFloat(
-      this.u_shadow_factor_minimum, shadow.minimumFactor());
-    g_sh.shaderUniformPutFloat(
-      this.u_shadow_variance_minimum, shadow.minimumVariance());
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_factor_minimum, shadow.minimumFactor());
+    this.uniformCache().putFloat(
+      g_sh, this.u_shadow_variance_minimum, shadow.minimumVariance());
   }
 
   @Override
@@ -366,8 +316,8 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_volume_modelview, m.matrixLightModelView());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_volume_modelview, m.matrixLightModelView());
   }
 
   @Override
@@ -377,17 +327,19 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
+    this.uniformCache().putPMatrix4x4f(
+      g_sh,
       this.u_transform_eye_to_light_eye, m.matrixProjectiveEyeToLightEye());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_light_projection, m.matrixProjectiveProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_light_projection, m.matrixProjectiveProjection());
   }
 
   @Override
   protected void onActualReceiveShadowMap(
     final JCGLInterfaceGL33Type g,
     final JCGLTextureUnitContextMutableType tc,
-    final R2Texture2DUsableType map)
+    final R2Texture2DUsableType map,
+    final R2ShadowMapRegion region)
   {
     final JCGLShadersType g_sh = g.shaders();
     final JCGLTexturesType g_tex = g.textures();
@@ -395,7 +347,14 @@ public final class R2LightShaderProjectiveLambertBlinnPhongShadowVarianceSingle
     final JCGLTextureUnitType unit_shadow =
       tc.unitContextBindTexture2D(g_tex, map.texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_shadow_map, unit_shadow);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_shadow_map, unit_shadow);
+    this.uniformCache().putVector4f(
+      g_sh, this.u_shadow_map_region,
+      Vector4D.of(
+        region.scaleX(),
+        region.scaleY(),
+        region.offsetX(),
+        region.offsetY()));
   }
 }
@@ -32,7 +32,6 @@ import com.io7m.r2.lights.R2LightProjectiveReadableType;
 import com.io7m.r2.matrices.R2MatricesObserverValuesType;
 import com.io7m.r2.matrices.R2MatricesProjectiveLightValuesType;
 import com.io7m.r2.matrices.R2MatricesVolumeLightValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
@@ -40,7 +39,6 @@ import com.io7m.r2.shaders.light.api.R2AbstractLightProjectiveShader;
 import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
 import com.io7m.r2.spaces.R2SpaceEyeType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
-import com.io7m.r2.view_rays.R2ViewRaysReadableType;
 
 import java.util.Optional;
 
@@ -61,15 +59,6 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
   private final JCGLProgramUniformType u_transform_projection_inverse;
   private final JCGLProgramUniformType u_transform_volume_modelview;
   private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_depth_coefficient;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y0;
-  private final JCGLProgramUniformType u_view_rays_origin_x0y1;
-  private final JCGLProgramUniformType u_view_rays_origin_x1y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y0;
-  private final JCGLProgramUniformType u_view_rays_ray_x0y1;
-  private final JCGLProgramUniformType u_view_rays_ray_x1y1;
   private final JCGLProgramUniformType u_gbuffer_albedo;
   private final JCGLProgramUniformType u_gbuffer_normal;
   private final JCGLProgramUniformType u_gbuffer_specular;
@@ -148,28 +137,7 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
     this.u_viewport_inverse_height =
       uniform(p, "R2_light_viewport.inverse_height", TYPE_FLOAT);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_light_depth_coefficient", TYPE_FLOAT);
-
-    this.u_view_rays_origin_x0y0 =
-      uniform(p, "R2_light_view_rays.origin_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y0 =
-      uniform(p, "R2_light_view_rays.origin_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x0y1 =
-      uniform(p, "R2_light_view_rays.origin_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_origin_x1y1 =
-      uniform(p, "R2_light_view_rays.origin_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    this.u_view_rays_ray_x0y0 =
-      uniform(p, "R2_light_view_rays.ray_x0y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y0 =
-      uniform(p, "R2_light_view_rays.ray_x1y0", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x0y1 =
-      uniform(p, "R2_light_view_rays.ray_x0y1", TYPE_FLOAT_VECTOR_3);
-    this.u_view_rays_ray_x1y1 =
-      uniform(p, "R2_light_view_rays.ray_x1y1", TYPE_FLOAT_VECTOR_3);
-
-    checkUniformParameterCount(p, 26);
+    checkUniformParameterCount(p, 17);
   }
 
   /**
@@ -212,10 +180,14 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
      */
 
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_albedo, unit_albedo);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_normal, unit_normals);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_specular, unit_specular);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_gbuffer_depth, unit_depth);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
   }
 
   @Override
@@ -235,56 +207,25 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
     final JCGLTextureUnitContextMutableType tc =
       light_parameters.textureUnitContext();
 
-    /*
-     * Upload the current view rays.
-     */
-
-    final R2ViewRaysReadableType view_rays = m.viewRays();
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y0, view_rays.originX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y0, view_rays.originX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x0y1, view_rays.originX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_origin_x1y1, view_rays.originX1Y1());
-
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y0, view_rays.rayX0Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y0, view_rays.rayX1Y0());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x0y1, view_rays.rayX0Y1());
-    g_sh.shaderUniformPutVector3f(
-      this.u_view_rays_ray_x1y1, view_rays.rayX1Y1());
-
     /*
      * Upload the viewport.
      */
 
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_width,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
       (float) (1.0 / (double) viewport.sizeX()));
-    g_sh.shaderUniformPutFloat(
-      this.u_viewport_inverse_height,
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
       (float) (1.0 / (double) viewport.sizeY()));
 
-    /*
-     * Upload the scene's depth coefficient.
-     */
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(m.projection()));
-
     /*
      * Upload the projection for the light volume.
      */
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, m.matrixProjection());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection_inverse, m.matrixProjectionInverse());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, m.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection_inverse, m.matrixProjectionInverse());
 
     /*
       Transform the light's position to eye-space and upload it.
@@ -298,8 +239,8 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
     final PVector3D<R2SpaceEyeType> position_eye =
       PVector3D.of(position_eye4.x(), position_eye4.y(), position_eye4.z());
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_projective_position, position_eye);
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_projective_position, position_eye);
 
     /*
      * Upload the projected image.
@@ -307,24 +248,26 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
 
     final JCGLTextureUnitType unit_image =
       tc.unitContextBindTexture2D(g_tex, light.image().texture());
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_light_projective_image,
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_light_projective_image,
       unit_image);
 
     /*
      * Upload the light values.
      */
 
-    g_sh.shaderUniformPutPVector3f(
-      this.u_light_projective_color, light.color());
-    g_sh.shaderUniformPutFloat(
-      this.u_light_projective_intensity, (float) light.intensity());
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_light_projective_color, light.color());
+    this.uniformCache().putFloat(
+      g_sh, this.u_light_projective_intensity, (float) light.intensity());
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_light_projective_inverse_falloff, (float) (1.0 / light.falloff()));
-    g_sh.shaderUniformPutFloat(
+    this.uniformCache().putFloat(
+      g_sh,
       this.u_light_projective_inverse_range, (float) (1.0 / light.radius()));
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_light_projective_image, unit_image);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_light_projective_image, unit_image);
   }
 
   @Override
@@ -334,8 +277,8 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_volume_modelview, m.matrixLightModelView());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_volume_modelview, m.matrixLightModelView());
   }
 
   @Override
@@ -345,9 +288,10 @@ public final class R2LightShaderProjectiveLambertBlinnPhongSingle extends
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
+    this.uniformCache().putPMatrix4x4f(
+      g_sh,
       this.u_transform_eye_to_light_eye, m.matrixProjectiveEyeToLightEye());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_light_projection, m.matrixProjectiveProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_light_projection, m.matrixProjectiveProjection());
   }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.light;
+
+import com.io7m.jcanephora.core.JCGLProgramShaderUsableType;
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.JCGLType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLShadersType;
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.lights.R2LightSphericalBatchedReadableType;
+import com.io7m.r2.rendering.geometry.api.R2GeometryBufferUsableType;
+import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderStateChecking;
+import com.io7m.r2.shaders.light.api.R2AbstractLightVolumeShaderBatched;
+import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
+
+import java.util.Optional;
+
+import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
+import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
+
+/**
+ * Spherical light shader for batched lights.
+ */
+
+public final class R2LightShaderSphericalLambertBlinnPhongBatched extends
+  R2AbstractLightVolumeShaderBatched<R2LightSphericalBatchedReadableType>
+{
+  private final JCGLProgramUniformType u_gbuffer_albedo;
+  private final JCGLProgramUniformType u_gbuffer_normal;
+  private final JCGLProgramUniformType u_gbuffer_specular;
+  private final JCGLProgramUniformType u_gbuffer_depth;
+  private final JCGLProgramUniformType u_viewport_inverse_width;
+  private final JCGLProgramUniformType u_viewport_inverse_height;
+
+  private R2LightShaderSphericalLambertBlinnPhongBatched(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool,
+    final R2ShaderStateChecking in_check)
+  {
+    super(
+      in_shaders,
+      in_shader_env,
+      in_pool,
+      "com.io7m.r2.shaders.light.R2LightShaderSphericalLambertBlinnPhongBatched",
+      "com.io7m.r2.shaders.light.api/R2LightPositionalBatched.vert",
+      Optional.empty(),
+      "com.io7m.r2.shaders.light/R2LightSphericalLambertBlinnPhongBatched.frag",
+      in_check);
+
+    final JCGLProgramShaderUsableType p = this.shaderProgram();
+
+    this.u_gbuffer_albedo =
+      uniform(p, "R2_light_gbuffer.albedo", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_normal =
+      uniform(p, "R2_light_gbuffer.normal", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_specular =
+      uniform(p, "R2_light_gbuffer.specular", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_depth =
+      uniform(p, "R2_light_gbuffer.depth", JCGLType.TYPE_SAMPLER_2D);
+
+    this.u_viewport_inverse_width =
+      uniform(p, "R2_light_viewport.inverse_width", JCGLType.TYPE_FLOAT);
+    this.u_viewport_inverse_height =
+      uniform(p, "R2_light_viewport.inverse_height", JCGLType.TYPE_FLOAT);
+
+    checkUniformParameterCount(p, 6);
+  }
+
+  /**
+   * Construct a new shader.
+   *
+   * @param in_shaders    A shader interface
+   * @param in_shader_env A shader preprocessing environment
+   * @param in_pool       The ID pool
+   *
+   * @return A new shader
+   */
+
+  public static R2LightShaderSphericalLambertBlinnPhongBatched
+  create(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool)
+  {
+    return new R2LightShaderSphericalLambertBlinnPhongBatched(
+      in_shaders, in_shader_env, in_pool, R2ShaderStateChecking.STATE_CHECK);
+  }
+
+  @Override
+  public Class<R2LightSphericalBatchedReadableType>
+  shaderParametersType()
+  {
+    return R2LightSphericalBatchedReadableType.class;
+  }
+
+  @Override
+  protected void onActualReceiveBoundGeometryBufferTextures(
+    final JCGLInterfaceGL33Type g,
+    final R2GeometryBufferUsableType gbuffer,
+    final JCGLTextureUnitType unit_albedo,
+    final JCGLTextureUnitType unit_specular,
+    final JCGLTextureUnitType unit_depth,
+    final JCGLTextureUnitType unit_normals)
+  {
+    /*
+     * Set each of the required G-Buffer textures.
+     */
+
+    final JCGLShadersType g_sh = g.shaders();
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normals);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
+  }
+
+  @Override
+  protected void onActualReceiveValues(
+    final JCGLInterfaceGL33Type g,
+    final R2ShaderParametersLightType<R2LightSphericalBatchedReadableType> light_parameters)
+  {
+    final JCGLShadersType g_sh = g.shaders();
+
+    final AreaL viewport =
+      light_parameters.viewport();
+
+    /*
+     * Upload the viewport.
+     */
+
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
+      (float) (1.0 / (double) viewport.sizeX()));
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
+      (float) (1.0 / (double) viewport.sizeY()));
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.shaders.light;
+
+import com.io7m.jcanephora.core.JCGLProgramShaderUsableType;
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.JCGLType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.core.api.JCGLShadersType;
+import com.io7m.jcanephora.core.api.JCGLTexturesType;
+import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
+import com.io7m.r2.shaders.api.R2ShaderStateChecking;
+import com.io7m.r2.shaders.filter.api.R2AbstractFilterShader;
+import com.io7m.r2.shaders.filter.api.R2ShaderParametersFilterType;
+
+import java.util.Optional;
+
+import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
+import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
+
+/**
+ * A shader that evaluates many spherical lights in a single full-screen pass,
+ * using Lambert diffuse and Blinn-Phong specular terms. Each fragment
+ * evaluates only those lights that have been assigned to the screen tile
+ * containing the fragment.
+ */
+
+public final class R2LightShaderTiledLambertBlinnPhong
+  extends R2AbstractFilterShader<R2LightShaderTiledParameters>
+{
+  private final JCGLProgramUniformType u_gbuffer_albedo;
+  private final JCGLProgramUniformType u_gbuffer_normal;
+  private final JCGLProgramUniformType u_gbuffer_specular;
+  private final JCGLProgramUniformType u_gbuffer_depth;
+  private final JCGLProgramUniformType u_viewport_inverse_width;
+  private final JCGLProgramUniformType u_viewport_inverse_height;
+  private final JCGLProgramUniformType u_tiled_tiles;
+  private final JCGLProgramUniformType u_tiled_indices;
+  private final JCGLProgramUniformType u_tiled_lights;
+  private final JCGLProgramUniformType u_tiled_tile_size;
+  private final JCGLProgramUniformType u_tiled_index_width;
+
+  private R2LightShaderTiledLambertBlinnPhong(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool,
+    final R2ShaderStateChecking in_check)
+  {
+    super(
+      in_shaders,
+      in_shader_env,
+      in_pool,
+      "com.io7m.r2.shaders.light.R2LightShaderTiledLambertBlinnPhong",
+      "com.io7m.r2.shaders.filter.api/R2Filter.vert",
+      Optional.empty(),
+      "com.io7m.r2.shaders.light/R2LightTiledLambertBlinnPhong.frag",
+      in_check);
+
+    final JCGLProgramShaderUsableType p = this.shaderProgram();
+
+    this.u_gbuffer_albedo =
+      uniform(p, "R2_light_gbuffer.albedo", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_normal =
+      uniform(p, "R2_light_gbuffer.normal", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_specular =
+      uniform(p, "R2_light_gbuffer.specular", JCGLType.TYPE_SAMPLER_2D);
+    this.u_gbuffer_depth =
+      uniform(p, "R2_light_gbuffer.depth", JCGLType.TYPE_SAMPLER_2D);
+
+    this.u_viewport_inverse_width =
+      uniform(p, "R2_light_viewport.inverse_width", JCGLType.TYPE_FLOAT);
+    this.u_viewport_inverse_height =
+      uniform(p, "R2_light_viewport.inverse_height", JCGLType.TYPE_FLOAT);
+
+    this.u_tiled_tiles =
+      uniform(p, "R2_light_tiled.tiles", JCGLType.TYPE_SAMPLER_2D);
+    this.u_tiled_indices =
+      uniform(p, "R2_light_tiled.indices", JCGLType.TYPE_SAMPLER_2D);
+    this.u_tiled_lights =
+      uniform(p, "R2_light_tiled.lights", JCGLType.TYPE_SAMPLER_2D);
+    this.u_tiled_tile_size =
+      uniform(p, "R2_light_tiled.tile_size", JCGLType.TYPE_INTEGER);
+    this.u_tiled_index_width =
+      uniform(p, "R2_light_tiled.index_width", JCGLType.TYPE_INTEGER);
+
+    checkUniformParameterCount(p, 11);
+  }
+
+  /**
+   * Construct a new shader.
+   *
+   * @param in_shaders    A shader interface
+   * @param in_shader_env A shader preprocessing environment
+   * @param in_pool       The ID pool
+   *
+   * @return A new shader
+   */
+
+  public static R2LightShaderTiledLambertBlinnPhong create(
+    final JCGLShadersType in_shaders,
+    final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
+    final R2IDPoolType in_pool)
+  {
+    return new R2LightShaderTiledLambertBlinnPhong(
+      in_shaders, in_shader_env, in_pool, R2ShaderStateChecking.STATE_CHECK);
+  }
+
+  @Override
+  public Class<R2LightShaderTiledParameters> shaderParametersType()
+  {
+    return R2LightShaderTiledParameters.class;
+  }
+
+  @Override
+  protected void onActualReceiveFilterValues(
+    final JCGLInterfaceGL33Type g,
+    final R2ShaderParametersFilterType<R2LightShaderTiledParameters> parameters)
+  {
+    final R2LightShaderTiledParameters values =
+      parameters.values();
+    final JCGLTextureUnitContextMutableType tc =
+      parameters.textureUnitContext();
+
+    final JCGLShadersType g_sh = g.shaders();
+    final JCGLTexturesType g_tex = g.textures();
+
+    /*
+     * Bind and upload each of the required G-Buffer textures.
+     */
+
+    final JCGLTextureUnitType unit_albedo =
+      tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
+    final JCGLTextureUnitType unit_normal =
+      tc.unitContextBindTexture2D(g_tex, values.normalTexture().texture());
+    final JCGLTextureUnitType unit_specular =
+      tc.unitContextBindTexture2D(g_tex, values.specularTexture().texture());
+    final JCGLTextureUnitType unit_depth =
+      tc.unitContextBindTexture2D(g_tex, values.depthTexture().texture());
+
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_normal, unit_normal);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_specular, unit_specular);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_gbuffer_depth, unit_depth);
+
+    /*
+     * Bind and upload the tile, index, and light textures.
+     */
+
+    final JCGLTextureUnitType unit_tiles =
+      tc.unitContextBindTexture2D(g_tex, values.tilesTexture().texture());
+    final JCGLTextureUnitType unit_indices =
+      tc.unitContextBindTexture2D(g_tex, values.indicesTexture().texture());
+    final JCGLTextureUnitType unit_lights =
+      tc.unitContextBindTexture2D(g_tex, values.lightsTexture().texture());
+
+    this.uniformCache().putTexture2DUnit(g_sh, this.u_tiled_tiles, unit_tiles);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_tiled_indices, unit_indices);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_tiled_lights, unit_lights);
+    this.uniformCache().putInteger(
+      g_sh, this.u_tiled_tile_size, values.tileSize());
+    this.uniformCache().putInteger(
+      g_sh, this.u_tiled_index_width, values.indexWidth());
+
+    /*
+     * Upload the viewport.
+     */
+
+    final AreaL viewport = values.viewport();
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_width,
+      (float) (1.0 / (double) viewport.sizeX()));
+    this.uniformCache().putFloat(
+      g_sh, this.u_viewport_inverse_height,
+      (float) (1.0 / (double) viewport.sizeY()));
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.shaders.light;
+
+import com.io7m.jregions.core.unparameterized.areas.AreaL;
+import com.io7m.r2.annotations.R2ImmutableStyleType;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.textures.R2Texture2DUsableType;
+import org.immutables.value.Value;
+
+/**
+ * Parameters for tiled light shaders.
+ */
+
+@Value.Immutable
+@R2ImmutableStyleType
+public interface R2LightShaderTiledParametersType
+{
+  /**
+   * @return The observer matrix values that were used to produce the scene
+   */
+
+  @Value.Parameter
+  R2MatricesObserverValuesType observerValues();
+
+  /**
+   * @return The current viewport
+   */
+
+  @Value.Parameter
+  AreaL viewport();
+
+  /**
+   * @return The albedo/emission texture of the geometry buffer
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType albedoTexture();
+
+  /**
+   * @return The normal texture of the geometry buffer
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType normalTexture();
+
+  /**
+   * @return The specular texture of the geometry buffer
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType specularTexture();
+
+  /**
+   * @return The depth texture of the geometry buffer
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType depthTexture();
+
+  /**
+   * @return A texture holding the index offset and index count of each tile
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType tilesTexture();
+
+  /**
+   * @return A texture holding the light indices of all tiles
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType indicesTexture();
+
+  /**
+   * @return A texture holding the values of all lights
+   */
+
+  @Value.Parameter
+  R2Texture2DUsableType lightsTexture();
+
+  /**
+   * @return The width and height of a tile in pixels
+   */
+
+  @Value.Parameter
+  int tileSize();
+
+  /**
+   * @return The width of the indices texture
+   */
+
+  @Value.Parameter
+  int indexWidth();
+}
@@ -0,0 +1,40 @@
+#ifndef R2_LIGHT_DIRECTIONAL_SPECULAR_SHADOW_VARIANCE_H
+#define R2_LIGHT_DIRECTIONAL_SPECULAR_SHADOW_VARIANCE_H
+
+/// \file R2LightDirectionalSpecularShadowVariance.h
+/// \brief A directional light with Phong specular highlights and a cascaded variance shadow
+
+#include <com.io7m.r2.shaders.light.api/R2LightShaderMain.h>
+#include <com.io7m.r2.shaders.light.api/R2LightDirectional.h>
+#include <com.io7m.r2.shaders.light.api/R2ShadowVarianceCascaded.h>
+
+uniform R2_light_directional_t R2_light_directional;
+uniform R2_shadow_variance_t   R2_shadow_variance;
+uniform R2_shadow_cascades_t   R2_shadow_cascades;
+
+R2_light_output_t
+R2_deferredLightMain(
+  const R2_reconstructed_surface_t surface)
+{
+  R2_light_directional_vectors_t vectors =
+    R2_lightDirectionalVectors (
+      R2_light_directional, surface.position.xyz, surface.normal);
+
+  float shadow =
+    R2_varianceCascadedShadowFactor (
+      R2_shadow_variance, R2_shadow_cascades, surface.position.xyz);
+
+  vec3 diffuse =
+    R2_lightDirectionalDiffuseTerm (R2_light_directional, vectors);
+
+  vec3 specular =
+    R2_lightDirectionalSpecularTerm (
+      R2_light_directional,
+      vectors,
+      surface.specular,
+      surface.specular_exponent);
+
+  return R2_light_output_t (diffuse * shadow, specular * shadow);
+}
+
+#endif // R2_LIGHT_DIRECTIONAL_SPECULAR_SHADOW_VARIANCE_H
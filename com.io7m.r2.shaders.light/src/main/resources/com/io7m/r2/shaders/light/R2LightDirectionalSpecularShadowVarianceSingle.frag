@@ -0,0 +1,9 @@
+/// \file R2LightDirectionalSpecularShadowVarianceSingle.frag
+/// \brief An instantiation of the `R2LightDirectionalSpecularShadowVariance` shader for single instances
+
+#define R2_RECONSTRUCT_REQUIRE_NORMAL
+#define R2_RECONSTRUCT_REQUIRE_SPECULAR
+
+#include "R2LightDirectionalSpecularShadowVariance.h"
+
+#include <com.io7m.r2.shaders.light.api/R2LightShaderDriverSingle.h>
@@ -8,7 +8,12 @@
 #include <com.io7m.r2.shaders.light.api/R2LightPositional.h>
 #include <com.io7m.r2.shaders.light.api/R2LightSpherical.h>
 
+#ifdef R2_LIGHT_SPHERICAL_BATCHED
+// Populated per-fragment by the batched light driver
+R2_light_positional_t R2_light_spherical;
+#else
 uniform R2_light_positional_t R2_light_spherical;
+#endif
 
 R2_light_output_t
 R2_deferredLightMain(
@@ -0,0 +1,10 @@
+/// \file R2LightSphericalLambertBlinnPhongBatched.frag
+/// \brief An instantiation of the `R2LightSphericalLambertBlinnPhong` shader for batched lights
+
+#define R2_RECONSTRUCT_REQUIRE_NORMAL
+#define R2_RECONSTRUCT_REQUIRE_SPECULAR
+#define R2_LIGHT_SPHERICAL_BATCHED
+
+#include "R2LightSphericalLambertBlinnPhong.h"
+
+#include <com.io7m.r2.shaders.light.api/R2LightShaderDriverSphericalBatched.h>
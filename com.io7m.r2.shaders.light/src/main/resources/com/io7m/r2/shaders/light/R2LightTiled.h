@@ -0,0 +1,73 @@
+#ifndef R2_LIGHT_TILED_H
+#define R2_LIGHT_TILED_H
+
+/// \file R2LightTiled.h
+/// \brief Functions and types related to tiled spherical lighting
+
+#include <com.io7m.r2.shaders.light.api/R2LightPositional.h>
+
+/// The lists of spherical lights that affect each screen tile
+
+struct R2_light_tiled_t {
+  /// The tile table. Each texel holds the offset of the first index for the
+  /// tile in `indices`, and the number of indices.
+  sampler2D tiles;
+  /// The light index lists, stored in rows of `index_width` texels
+  sampler2D indices;
+  /// The light data, with two texels per light in each row. The first texel
+  /// holds the eye-space position and inverse range, and the second texel
+  /// holds the color (premultiplied by the intensity) and inverse falloff.
+  sampler2D lights;
+  /// The width and height of a tile in pixels
+  int tile_size;
+  /// The width of the `indices` texture
+  int index_width;
+};
+
+/// Find the offset and number of light indices for the tile containing the
+/// given screen position.
+///
+/// @param t               The tiled light parameters
+/// @param screen_position The current screen position (typically `gl_FragCoord.xy`)
+///
+/// @return The offset and count of indices for the tile
+
+ivec2
+R2_lightTiledRange(
+  const R2_light_tiled_t t,
+  const vec2 screen_position)
+{
+  ivec2 tile  = ivec2 (screen_position) / t.tile_size;
+  vec2 range  = texelFetch (t.tiles, tile, 0).xy;
+  return ivec2 (range);
+}
+
+/// Fetch the light referenced by the given entry of the index lists.
+///
+/// @param t     The tiled light parameters
+/// @param index The index list entry
+///
+/// @return The light parameters
+
+R2_light_positional_t
+R2_lightTiledLight(
+  const R2_light_tiled_t t,
+  const int index)
+{
+  ivec2 index_position =
+    ivec2 (index % t.index_width, index / t.index_width);
+  int light =
+    int (texelFetch (t.indices, index_position, 0).x);
+
+  vec4 position_range = texelFetch (t.lights, ivec2 (0, light), 0);
+  vec4 color_falloff  = texelFetch (t.lights, ivec2 (1, light), 0);
+
+  return R2_light_positional_t (
+    color_falloff.rgb,
+    1.0,
+    position_range.xyz,
+    position_range.w,
+    color_falloff.w);
+}
+
+#endif // R2_LIGHT_TILED_H
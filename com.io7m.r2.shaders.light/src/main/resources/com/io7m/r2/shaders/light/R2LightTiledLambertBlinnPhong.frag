@@ -0,0 +1,78 @@
+/// \file R2LightTiledLambertBlinnPhong.frag
+/// \brief Tiled spherical lights with Blinn-Phong specular highlights, evaluated in a single full-screen pass
+
+#define R2_RECONSTRUCT_REQUIRE_NORMAL
+#define R2_RECONSTRUCT_REQUIRE_SPECULAR
+
+#include <com.io7m.r2.shaders.core/R2Viewport.h>
+#include <com.io7m.r2.shaders.core/R2View.h>
+
+#include <com.io7m.r2.shaders.geometry.api/R2GBufferInput.h>
+
+#include <com.io7m.r2.shaders.light.api/R2LightOutput.h>
+#include <com.io7m.r2.shaders.light.api/R2LightShaderOutputTargets.h>
+#include <com.io7m.r2.shaders.light.api/R2LightSpherical.h>
+#include <com.io7m.r2.shaders.light.api/R2ReconstructedSurface.h>
+
+#include "R2LightTiled.h"
+
+#if R2_LIGHT_SHADER_OUTPUT_TARGET == R2_LIGHT_SHADER_OUTPUT_TARGET_LBUFFER
+// The output is a light buffer
+layout(location = 0) out vec4 R2_out_diffuse;
+layout(location = 1) out vec4 R2_out_specular;
+
+#elif R2_LIGHT_SHADER_OUTPUT_TARGET == R2_LIGHT_SHADER_OUTPUT_TARGET_IBUFFER
+// The output is an image buffer
+layout(location = 0) out vec4 R2_out_image;
+
+#else
+#error "Must define R2_LIGHT_SHADER_OUTPUT_TARGET to a recognized value"
+#endif
+
+uniform R2_viewport_t      R2_light_viewport;
+uniform R2_gbuffer_input_t R2_light_gbuffer;
+uniform R2_light_tiled_t   R2_light_tiled;
+
+void
+main (void)
+{
+  // Reconstruct the surface
+  R2_reconstructed_surface_t surface =
+    R2_deferredSurfaceReconstruct(
+      R2_light_gbuffer,
+      R2_light_viewport,
+      R2_view_rays,
+      R2_view.depth_coefficient,
+      gl_FragCoord.xy);
+
+  // Evaluate each of the lights that overlap the current tile
+  ivec2 range = R2_lightTiledRange(R2_light_tiled, gl_FragCoord.xy);
+  vec3 diffuse = vec3 (0.0);
+  vec3 specular = vec3 (0.0);
+
+  for (int index = 0; index < range.y; ++index) {
+    R2_light_positional_t light =
+      R2_lightTiledLight(R2_light_tiled, range.x + index);
+    R2_light_positional_vectors_t vectors =
+      R2_lightPositionalVectors(light, surface.position.xyz, surface.normal);
+    float attenuation =
+      R2_lightPositionalAttenuation(light, vectors.distance);
+
+    diffuse += attenuation *
+      R2_lightSphericalDiffuseLambertTerm(light, vectors);
+    specular += attenuation *
+      R2_lightSphericalSpecularBlinnPhongTerm(
+        light,
+        vectors,
+        surface.specular,
+        surface.specular_exponent);
+  }
+
+  // Write the evaluated light to the output(s)
+#if R2_LIGHT_SHADER_OUTPUT_TARGET == R2_LIGHT_SHADER_OUTPUT_TARGET_LBUFFER
+  R2_out_diffuse  = vec4 (diffuse, 1.0);
+  R2_out_specular = vec4 (specular, 1.0);
+#elif R2_LIGHT_SHADER_OUTPUT_TARGET == R2_LIGHT_SHADER_OUTPUT_TARGET_IBUFFER
+  R2_out_image = vec4 (surface.albedo * (diffuse + specular), 1.0);
+#endif
+}
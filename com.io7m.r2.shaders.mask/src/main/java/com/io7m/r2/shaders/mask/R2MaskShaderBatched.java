@@ -23,8 +23,6 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jfunctional.Unit;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderBatched;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -33,8 +31,6 @@ import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
@@ -48,9 +44,6 @@ public final class R2MaskShaderBatched
 {
   private static final Vector4D WHITE = Vector4D.of(1.0, 1.0, 1.0, 1.0);
 
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_frag_color;
 
   private R2MaskShaderBatched(
@@ -71,16 +64,10 @@ public final class R2MaskShaderBatched
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
     this.u_frag_color =
       uniform(p, "R2_frag_color", TYPE_FLOAT_VECTOR_4);
 
-    checkUniformParameterCount(p, 4);
+    checkUniformParameterCount(p, 1);
   }
 
   /**
@@ -113,17 +100,7 @@ public final class R2MaskShaderBatched
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -132,6 +109,6 @@ public final class R2MaskShaderBatched
     final R2ShaderParametersMaterialType<Unit> mat_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutVector4f(this.u_frag_color, WHITE);
+    this.uniformCache().putVector4f(g_sh, this.u_frag_color, WHITE);
   }
 }
@@ -25,8 +25,6 @@ import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.unparameterized.vectors.Vector4D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2AbstractInstanceShaderSingle;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -35,7 +33,6 @@ import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 
 import java.util.Optional;
 
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -51,9 +48,6 @@ public final class R2MaskShaderSingle
   private static final Vector4D WHITE = Vector4D.of(1.0, 1.0, 1.0, 1.0);
 
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_frag_color;
 
   private R2MaskShaderSingle(
@@ -74,18 +68,12 @@ public final class R2MaskShaderSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
     this.u_transform_modelview =
       uniform(p, "R2_transform_modelview", TYPE_FLOAT_MATRIX_4);
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
     this.u_frag_color =
       uniform(p, "R2_frag_color", TYPE_FLOAT_VECTOR_4);
 
-    checkUniformParameterCount(p, 5);
+    checkUniformParameterCount(p, 2);
   }
 
   /**
@@ -118,19 +106,7 @@ public final class R2MaskShaderSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_view,
-      PMatrices4x4D.toUnparameterized(matrices.matrixView()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_projection,
-      PMatrices4x4D.toUnparameterized(matrices.matrixProjection()));
+
   }
 
   @Override
@@ -139,7 +115,7 @@ public final class R2MaskShaderSingle
     final R2ShaderParametersMaterialType<Unit> mat_parameters)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutVector4f(this.u_frag_color, WHITE);
+    this.uniformCache().putVector4f(g_sh, this.u_frag_color, WHITE);
   }
 
   @Override
@@ -148,8 +124,8 @@ public final class R2MaskShaderSingle
     final R2MatricesInstanceSingleValuesType m)
   {
     final JCGLShadersType g_sh = g.shaders();
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_modelview,
+    this.uniformCache().putMatrix4x4f(
+      g_sh, this.u_transform_modelview,
       PMatrices4x4D.toUnparameterized(m.matrixModelView()));
   }
 }
@@ -9,7 +9,6 @@ layout(location = 0) out vec4 R2_out;
 in float R2_positive_eye_z;
 
 uniform vec4      R2_frag_color;
-uniform R2_view_t R2_view;
 
 void
 main (void)
@@ -7,7 +7,6 @@
 
 #include <com.io7m.r2.shaders.core/R2VertexAttributes.h>
 
-uniform R2_view_t R2_view;
 uniform mat4x4    R2_transform_modelview;
 
 out float R2_positive_eye_z;
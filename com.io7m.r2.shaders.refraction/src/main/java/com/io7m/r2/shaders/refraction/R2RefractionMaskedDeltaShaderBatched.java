@@ -25,8 +25,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -36,7 +34,6 @@ import com.io7m.r2.shaders.translucent.api.R2AbstractTranslucentInstanceShaderBa
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -49,9 +46,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2RefractionMaskedDeltaShaderBatched
   extends R2AbstractTranslucentInstanceShaderBatched<R2RefractionMaskedDeltaParameters>
 {
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_refraction_scale;
   private final JCGLProgramUniformType u_refraction_color;
   private final JCGLProgramUniformType u_refraction_scene;
@@ -76,14 +70,6 @@ public final class R2RefractionMaskedDeltaShaderBatched
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_refraction_scale =
       uniform(p, "R2_refraction.scale", TYPE_FLOAT);
     this.u_refraction_color =
@@ -95,7 +81,7 @@ public final class R2RefractionMaskedDeltaShaderBatched
     this.u_refraction_delta =
       uniform(p, "R2_refraction_delta", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 8);
+    checkUniformParameterCount(p, 5);
   }
 
   /**
@@ -128,17 +114,7 @@ public final class R2RefractionMaskedDeltaShaderBatched
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -161,11 +137,16 @@ public final class R2RefractionMaskedDeltaShaderBatched
     final JCGLTextureUnitType unit_delta =
       tc.unitContextBindTexture2D(g_tex, values.deltaTexture().texture());
 
-    g_sh.shaderUniformPutFloat(this.u_refraction_scale, (float) values.scale());
-    g_sh.shaderUniformPutPVector3f(this.u_refraction_color, values.color());
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_mask, unit_mask);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_scene, unit_scene);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_delta, unit_delta);
+    this.uniformCache().putFloat(
+      g_sh, this.u_refraction_scale, (float) values.scale());
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_refraction_color, values.color());
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_mask, unit_mask);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_scene, unit_scene);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_delta, unit_delta);
   }
 
   @Override
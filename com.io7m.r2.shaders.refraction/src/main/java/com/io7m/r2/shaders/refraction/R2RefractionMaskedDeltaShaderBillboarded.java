@@ -24,11 +24,8 @@ import com.io7m.jcanephora.core.api.JCGLShadersType;
 import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
-import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVectors3D;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -38,7 +35,6 @@ import com.io7m.r2.shaders.translucent.api.R2AbstractTranslucentInstanceShaderBi
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_3;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -51,9 +47,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2RefractionMaskedDeltaShaderBillboarded
   extends R2AbstractTranslucentInstanceShaderBillboarded<R2RefractionMaskedDeltaParameters>
 {
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_refraction_scale;
   private final JCGLProgramUniformType u_refraction_color;
   private final JCGLProgramUniformType u_refraction_scene;
@@ -78,14 +71,6 @@ public final class R2RefractionMaskedDeltaShaderBillboarded
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_refraction_scale =
       uniform(p, "R2_refraction.scale", TYPE_FLOAT);
     this.u_refraction_color =
@@ -97,7 +82,7 @@ public final class R2RefractionMaskedDeltaShaderBillboarded
     this.u_refraction_delta =
       uniform(p, "R2_refraction_delta", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 8);
+    checkUniformParameterCount(p, 5);
   }
 
   /**
@@ -130,19 +115,7 @@ public final class R2RefractionMaskedDeltaShaderBillboarded
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_view,
-      PMatrices4x4D.toUnparameterized(matrices.matrixView()));
-    g_sh.shaderUniformPutMatrix4x4f(
-      this.u_transform_projection,
-      PMatrices4x4D.toUnparameterized(matrices.matrixProjection()));
+
   }
 
   @Override
@@ -165,16 +138,17 @@ public final class R2RefractionMaskedDeltaShaderBillboarded
     final JCGLTextureUnitType unit_delta =
       tc.unitContextBindTexture2D(g_tex, values.deltaTexture().texture());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_refraction_scale, (float) values.scale());
-    g_sh.shaderUniformPutVector3f(
+    this.uniformCache().putFloat(
+      g_sh, this.u_refraction_scale, (float) values.scale());
+    this.uniformCache().putVector3f(
+      g_sh,
       this.u_refraction_color, PVectors3D.toUnparameterized(values.color()));
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_refraction_mask, unit_mask);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_refraction_scene, unit_scene);
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_refraction_delta, unit_delta);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_mask, unit_mask);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_scene, unit_scene);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_delta, unit_delta);
   }
 
   @Override
@@ -26,8 +26,6 @@ import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -54,9 +52,6 @@ public final class R2RefractionMaskedDeltaShaderSingle
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_refraction_scale;
   private final JCGLProgramUniformType u_refraction_color;
   private final JCGLProgramUniformType u_refraction_scene;
@@ -81,11 +76,6 @@ public final class R2RefractionMaskedDeltaShaderSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-
     this.u_transform_modelview = uniform(
       p, "R2_matrices_instance.transform_modelview", TYPE_FLOAT_MATRIX_4);
     this.u_transform_normal = uniform(
@@ -93,8 +83,6 @@ public final class R2RefractionMaskedDeltaShaderSingle
     this.u_transform_uv = uniform(
       p, "R2_matrices_instance.transform_uv", TYPE_FLOAT_MATRIX_3);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
     this.u_refraction_scale =
       uniform(p, "R2_refraction.scale", TYPE_FLOAT);
     this.u_refraction_color =
@@ -106,7 +94,7 @@ public final class R2RefractionMaskedDeltaShaderSingle
     this.u_refraction_delta =
       uniform(p, "R2_refraction_delta", TYPE_SAMPLER_2D);
 
-    checkUniformParameterCount(p, 11);
+    checkUniformParameterCount(p, 8);
   }
 
   /**
@@ -140,17 +128,7 @@ public final class R2RefractionMaskedDeltaShaderSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -173,11 +151,16 @@ public final class R2RefractionMaskedDeltaShaderSingle
     final JCGLTextureUnitType unit_delta =
       tc.unitContextBindTexture2D(g_tex, values.deltaTexture().texture());
 
-    g_sh.shaderUniformPutFloat(this.u_refraction_scale, (float) values.scale());
-    g_sh.shaderUniformPutPVector3f(this.u_refraction_color, values.color());
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_mask, unit_mask);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_scene, unit_scene);
-    g_sh.shaderUniformPutTexture2DUnit(this.u_refraction_delta, unit_delta);
+    this.uniformCache().putFloat(
+      g_sh, this.u_refraction_scale, (float) values.scale());
+    this.uniformCache().putPVector3f(
+      g_sh, this.u_refraction_color, values.color());
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_mask, unit_mask);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_scene, unit_scene);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_refraction_delta, unit_delta);
   }
 
   @Override
@@ -187,12 +170,12 @@ public final class R2RefractionMaskedDeltaShaderSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 
   @Override
@@ -14,7 +14,6 @@ in R2_vertex_data_t R2_vertex_data;
 
 uniform R2_refraction_t R2_refraction;
 uniform sampler2D       R2_refraction_delta;
-uniform R2_view_t       R2_view;
 uniform R2_viewport_t   R2_viewport;
 
 void
@@ -9,8 +9,6 @@
 #define R2_VERTEX_ATTRIBUTES_REQUIRE_BATCHED_TRANSFORM_MODEL
 #include <com.io7m.r2.shaders.core/R2VertexAttributes.h>
 
-uniform R2_view_t R2_view;
-
 out R2_vertex_data_t R2_vertex_data;
 
 void
@@ -9,7 +9,6 @@
 
 #include <com.io7m.r2.shaders.core/R2VertexAttributes.h>
 
-uniform R2_view_t              R2_view;
 uniform R2_matrices_instance_t R2_matrices_instance;
 
 out R2_vertex_data_t R2_vertex_data;
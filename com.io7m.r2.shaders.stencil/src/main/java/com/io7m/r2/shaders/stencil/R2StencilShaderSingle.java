@@ -105,8 +105,8 @@ public final class R2StencilShaderSingle
     final R2MatricesObserverValuesType matrices =
       view_parameters.observerMatrices();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_projection, matrices.matrixProjection());
   }
 
   @Override
@@ -124,8 +124,8 @@ public final class R2StencilShaderSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
   }
 
 }
@@ -27,8 +27,6 @@ import com.io7m.jcanephora.core.api.JCGLTexturesType;
 import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -38,7 +36,6 @@ import com.io7m.r2.shaders.translucent.api.R2AbstractTranslucentInstanceShaderBa
 import java.util.Optional;
 
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT;
-import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_MATRIX_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_FLOAT_VECTOR_4;
 import static com.io7m.jcanephora.core.JCGLType.TYPE_SAMPLER_2D;
 import static com.io7m.r2.shaders.api.R2ShaderParameters.checkUniformParameterCount;
@@ -51,9 +48,6 @@ import static com.io7m.r2.shaders.api.R2ShaderParameters.uniform;
 public final class R2TranslucentShaderBasicPremultipliedBatched
   extends R2AbstractTranslucentInstanceShaderBatched<R2TranslucentShaderBasicParameters>
 {
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_texture_albedo;
   private final JCGLProgramUniformType u_color;
   private final JCGLProgramUniformType u_fade_positive_eye_z_near;
@@ -77,14 +71,6 @@ public final class R2TranslucentShaderBasicPremultipliedBatched
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection =
-      uniform(p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view =
-      uniform(p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_texture_albedo =
       uniform(p, "R2_texture_albedo", TYPE_SAMPLER_2D);
     this.u_color =
@@ -94,7 +80,7 @@ public final class R2TranslucentShaderBasicPremultipliedBatched
     this.u_fade_positive_eye_z_far =
       uniform(p, "R2_fade_positive_eye_z_far", TYPE_FLOAT);
 
-    checkUniformParameterCount(p, 7);
+    checkUniformParameterCount(p, 4);
   }
 
   /**
@@ -127,17 +113,7 @@ public final class R2TranslucentShaderBasicPremultipliedBatched
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -156,16 +132,16 @@ public final class R2TranslucentShaderBasicPremultipliedBatched
     final JCGLTextureUnitType unit_albedo =
       tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
 
-    g_sh.shaderUniformPutPVector4f(
-      this.u_color, values.albedoColor());
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_color, values.albedoColor());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_fade_positive_eye_z_far, (float) values.fadeZFar());
-    g_sh.shaderUniformPutFloat(
-      this.u_fade_positive_eye_z_near, (float) values.fadeZNear());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fade_positive_eye_z_far, (float) values.fadeZFar());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fade_positive_eye_z_near, (float) values.fadeZNear());
   }
 
   @Override
@@ -28,8 +28,6 @@ import com.io7m.jcanephora.renderstate.JCGLBlendState;
 import com.io7m.jcanephora.texture.unit_allocator.JCGLTextureUnitContextMutableType;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.matrices.R2MatricesInstanceSingleValuesType;
-import com.io7m.r2.matrices.R2MatricesObserverValuesType;
-import com.io7m.r2.projections.R2Projections;
 import com.io7m.r2.shaders.api.R2ShaderParametersMaterialType;
 import com.io7m.r2.shaders.api.R2ShaderStateChecking;
 import com.io7m.r2.shaders.api.R2ShaderParametersViewType;
@@ -56,9 +54,6 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
   private final JCGLProgramUniformType u_transform_uv;
   private final JCGLProgramUniformType u_transform_normal;
   private final JCGLProgramUniformType u_transform_modelview;
-  private final JCGLProgramUniformType u_transform_projection;
-  private final JCGLProgramUniformType u_transform_view;
-  private final JCGLProgramUniformType u_depth_coefficient;
   private final JCGLProgramUniformType u_texture_albedo;
   private final JCGLProgramUniformType u_color;
   private final JCGLProgramUniformType u_fade_positive_eye_z_near;
@@ -82,11 +77,6 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
 
     final JCGLProgramShaderUsableType p = this.shaderProgram();
 
-    this.u_transform_projection = uniform(
-      p, "R2_view.transform_projection", TYPE_FLOAT_MATRIX_4);
-    this.u_transform_view = uniform(
-      p, "R2_view.transform_view", TYPE_FLOAT_MATRIX_4);
-
     this.u_transform_modelview = uniform(
         p, "R2_matrices_instance.transform_modelview", TYPE_FLOAT_MATRIX_4);
     this.u_transform_normal = uniform(
@@ -94,9 +84,6 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
     this.u_transform_uv = uniform(
       p, "R2_matrices_instance.transform_uv", TYPE_FLOAT_MATRIX_3);
 
-    this.u_depth_coefficient =
-      uniform(p, "R2_view.depth_coefficient", TYPE_FLOAT);
-
     this.u_texture_albedo =
       uniform(p, "R2_texture_albedo", TYPE_SAMPLER_2D);
     this.u_color =
@@ -106,7 +93,7 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
     this.u_fade_positive_eye_z_far =
       uniform(p, "R2_fade_positive_eye_z_far", TYPE_FLOAT);
 
-    checkUniformParameterCount(p, 10);
+    checkUniformParameterCount(p, 7);
   }
 
   /**
@@ -139,17 +126,7 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
     final JCGLInterfaceGL33Type g,
     final R2ShaderParametersViewType view_parameters)
   {
-    final JCGLShadersType g_sh = g.shaders();
-    final R2MatricesObserverValuesType matrices =
-      view_parameters.observerMatrices();
-
-    g_sh.shaderUniformPutFloat(
-      this.u_depth_coefficient,
-      (float) R2Projections.getDepthCoefficient(matrices.projection()));
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_view, matrices.matrixView());
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_projection, matrices.matrixProjection());
+
   }
 
   @Override
@@ -168,16 +145,16 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
     final JCGLTextureUnitType unit_albedo =
       tc.unitContextBindTexture2D(g_tex, values.albedoTexture().texture());
 
-    g_sh.shaderUniformPutTexture2DUnit(
-      this.u_texture_albedo, unit_albedo);
+    this.uniformCache().putTexture2DUnit(
+      g_sh, this.u_texture_albedo, unit_albedo);
 
-    g_sh.shaderUniformPutPVector4f(
-      this.u_color, values.albedoColor());
+    this.uniformCache().putPVector4f(
+      g_sh, this.u_color, values.albedoColor());
 
-    g_sh.shaderUniformPutFloat(
-      this.u_fade_positive_eye_z_far, (float) values.fadeZFar());
-    g_sh.shaderUniformPutFloat(
-      this.u_fade_positive_eye_z_near, (float) values.fadeZNear());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fade_positive_eye_z_far, (float) values.fadeZFar());
+    this.uniformCache().putFloat(
+      g_sh, this.u_fade_positive_eye_z_near, (float) values.fadeZNear());
   }
 
   @Override
@@ -187,12 +164,12 @@ public final class R2TranslucentShaderBasicPremultipliedSingle
   {
     final JCGLShadersType g_sh = g.shaders();
 
-    g_sh.shaderUniformPutPMatrix4x4f(
-      this.u_transform_modelview, m.matrixModelView());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_normal, m.matrixNormal());
-    g_sh.shaderUniformPutPMatrix3x3f(
-      this.u_transform_uv, m.matrixUV());
+    this.uniformCache().putPMatrix4x4f(
+      g_sh, this.u_transform_modelview, m.matrixModelView());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_normal, m.matrixNormal());
+    this.uniformCache().putPMatrix3x3f(
+      g_sh, this.u_transform_uv, m.matrixUV());
   }
 
   @Override
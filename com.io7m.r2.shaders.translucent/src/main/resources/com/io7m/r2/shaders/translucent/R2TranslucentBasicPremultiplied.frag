@@ -14,7 +14,6 @@ uniform sampler2D R2_texture_albedo;
 uniform vec4      R2_color;
 uniform float     R2_fade_positive_eye_z_near;
 uniform float     R2_fade_positive_eye_z_far;
-uniform R2_view_t R2_view;
 
 layout(location = 0) out vec4 R2_out;
 
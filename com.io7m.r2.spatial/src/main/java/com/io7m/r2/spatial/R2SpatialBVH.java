@@ -0,0 +1,727 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.spatial;
+
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jnull.NullCheck;
+import com.io7m.r2.culling.R2CullingFrustum;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * <p>A dynamic bounding volume hierarchy of axis-aligned boxes.</p>
+ *
+ * <p>Each item inserted into the hierarchy is assigned an integer
+ * <i>proxy</i> that can be used to move or remove the item later. Leaf boxes
+ * are enlarged by a fixed margin so that small movements of an item do not
+ * require the hierarchy to be restructured. The tree is kept balanced using
+ * rotations, and internal nodes are chosen using a surface area
+ * heuristic.</p>
+ *
+ * <p>Nodes are stored in flat arrays and the query methods do not allocate
+ * once the internal traversal stack has grown to the height of the tree.</p>
+ *
+ * @param <T> The type of items
+ */
+
+public final class R2SpatialBVH<T>
+{
+  private static final int NULL = -1;
+
+  private final double margin;
+  private double[] bounds;
+  private int[] parents;
+  private int[] lefts;
+  private int[] rights;
+  private int[] heights;
+  private Object[] items;
+  private int[] stack;
+  private int root;
+  private int free;
+  private int capacity;
+  private int leaves;
+
+  private R2SpatialBVH(
+    final double in_margin)
+  {
+    Preconditions.checkPreconditionD(
+      in_margin, in_margin >= 0.0, m -> "Margin must be non-negative");
+
+    this.margin = in_margin;
+    this.capacity = 0;
+    this.bounds = new double[0];
+    this.parents = new int[0];
+    this.lefts = new int[0];
+    this.rights = new int[0];
+    this.heights = new int[0];
+    this.items = new Object[0];
+    this.stack = new int[64];
+    this.root = NULL;
+    this.free = NULL;
+    this.leaves = 0;
+    this.grow(16);
+  }
+
+  /**
+   * Create a new empty hierarchy.
+   *
+   * @param margin The amount by which leaf boxes are enlarged on each axis
+   * @param <T>    The type of items
+   *
+   * @return A new hierarchy
+   */
+
+  public static <T> R2SpatialBVH<T> create(
+    final double margin)
+  {
+    return new R2SpatialBVH<>(margin);
+  }
+
+  private void grow(
+    final int new_capacity)
+  {
+    final int old_capacity = this.capacity;
+    this.bounds = Arrays.copyOf(this.bounds, new_capacity * 6);
+    this.parents = Arrays.copyOf(this.parents, new_capacity);
+    this.lefts = Arrays.copyOf(this.lefts, new_capacity);
+    this.rights = Arrays.copyOf(this.rights, new_capacity);
+    this.heights = Arrays.copyOf(this.heights, new_capacity);
+    this.items = Arrays.copyOf(this.items, new_capacity);
+
+    /*
+     * Thread the new nodes onto the free list.
+     */
+
+    for (int index = new_capacity - 1; index >= old_capacity; --index) {
+      this.parents[index] = this.free;
+      this.heights[index] = NULL;
+      this.free = index;
+    }
+    this.capacity = new_capacity;
+  }
+
+  private int allocate()
+  {
+    if (this.free == NULL) {
+      this.grow(this.capacity * 2);
+    }
+
+    final int node = this.free;
+    this.free = this.parents[node];
+    this.parents[node] = NULL;
+    this.lefts[node] = NULL;
+    this.rights[node] = NULL;
+    this.heights[node] = 0;
+    this.items[node] = null;
+    return node;
+  }
+
+  private void release(
+    final int node)
+  {
+    this.parents[node] = this.free;
+    this.heights[node] = NULL;
+    this.items[node] = null;
+    this.free = node;
+  }
+
+  private boolean isLeaf(
+    final int node)
+  {
+    return this.lefts[node] == NULL;
+  }
+
+  private void checkProxy(
+    final int proxy)
+  {
+    Preconditions.checkPreconditionI(
+      proxy,
+      proxy >= 0 && proxy < this.capacity
+        && this.heights[proxy] == 0
+        && this.items[proxy] != null,
+      p -> "Proxy must refer to an existing item");
+  }
+
+  /**
+   * @return The number of items in the hierarchy
+   */
+
+  public int bvhSize()
+  {
+    return this.leaves;
+  }
+
+  /**
+   * @return The height of the hierarchy, or {@code -1} if it is empty
+   */
+
+  public int bvhHeight()
+  {
+    if (this.root == NULL) {
+      return NULL;
+    }
+    return this.heights[this.root];
+  }
+
+  /**
+   * Remove all items from the hierarchy.
+   */
+
+  public void bvhClear()
+  {
+    for (int index = this.capacity - 1; index >= 0; --index) {
+      this.parents[index] = index == this.capacity - 1 ? NULL : index + 1;
+      this.heights[index] = NULL;
+      this.items[index] = null;
+    }
+    this.free = this.capacity > 0 ? 0 : NULL;
+    this.root = NULL;
+    this.leaves = 0;
+  }
+
+  /**
+   * @param proxy The item proxy
+   *
+   * @return The item associated with the given proxy
+   */
+
+  @SuppressWarnings("unchecked")
+  public T bvhItem(
+    final int proxy)
+  {
+    this.checkProxy(proxy);
+    return (T) this.items[proxy];
+  }
+
+  /**
+   * Insert an item with the given bounds.
+   *
+   * @param item  The item
+   * @param min_x The minimum X coordinate of the item
+   * @param min_y The minimum Y coordinate of the item
+   * @param min_z The minimum Z coordinate of the item
+   * @param max_x The maximum X coordinate of the item
+   * @param max_y The maximum Y coordinate of the item
+   * @param max_z The maximum Z coordinate of the item
+   *
+   * @return A proxy for the item
+   */
+
+  public int bvhInsert(
+    final T item,
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z)
+  {
+    NullCheck.notNull(item, "Item");
+
+    final int leaf = this.allocate();
+    this.items[leaf] = item;
+    this.setFatBounds(leaf, min_x, min_y, min_z, max_x, max_y, max_z);
+    this.insertLeaf(leaf);
+    ++this.leaves;
+    return leaf;
+  }
+
+  /**
+   * Remove the item with the given proxy.
+   *
+   * @param proxy The item proxy
+   */
+
+  public void bvhRemove(
+    final int proxy)
+  {
+    this.checkProxy(proxy);
+    this.removeLeaf(proxy);
+    this.release(proxy);
+    --this.leaves;
+  }
+
+  /**
+   * Update the bounds of the item with the given proxy. The hierarchy is only
+   * restructured if the new bounds are not contained within the enlarged
+   * bounds that were stored for the item.
+   *
+   * @param proxy The item proxy
+   * @param min_x The minimum X coordinate of the item
+   * @param min_y The minimum Y coordinate of the item
+   * @param min_z The minimum Z coordinate of the item
+   * @param max_x The maximum X coordinate of the item
+   * @param max_y The maximum Y coordinate of the item
+   * @param max_z The maximum Z coordinate of the item
+   *
+   * @return {@code true} if the hierarchy was restructured
+   */
+
+  public boolean bvhMove(
+    final int proxy,
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z)
+  {
+    this.checkProxy(proxy);
+
+    final double[] b = this.bounds;
+    final int base = proxy * 6;
+    if (b[base] <= min_x
+      && b[base + 1] <= min_y
+      && b[base + 2] <= min_z
+      && b[base + 3] >= max_x
+      && b[base + 4] >= max_y
+      && b[base + 5] >= max_z) {
+      return false;
+    }
+
+    this.removeLeaf(proxy);
+    this.setFatBounds(proxy, min_x, min_y, min_z, max_x, max_y, max_z);
+    this.insertLeaf(proxy);
+    return true;
+  }
+
+  private void setFatBounds(
+    final int node,
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z)
+  {
+    final double[] b = this.bounds;
+    final int base = node * 6;
+    b[base] = min_x - this.margin;
+    b[base + 1] = min_y - this.margin;
+    b[base + 2] = min_z - this.margin;
+    b[base + 3] = max_x + this.margin;
+    b[base + 4] = max_y + this.margin;
+    b[base + 5] = max_z + this.margin;
+  }
+
+  private void setUnion(
+    final int target,
+    final int a,
+    final int b)
+  {
+    final double[] bb = this.bounds;
+    final int t = target * 6;
+    final int ai = a * 6;
+    final int bi = b * 6;
+    bb[t] = Math.min(bb[ai], bb[bi]);
+    bb[t + 1] = Math.min(bb[ai + 1], bb[bi + 1]);
+    bb[t + 2] = Math.min(bb[ai + 2], bb[bi + 2]);
+    bb[t + 3] = Math.max(bb[ai + 3], bb[bi + 3]);
+    bb[t + 4] = Math.max(bb[ai + 4], bb[bi + 4]);
+    bb[t + 5] = Math.max(bb[ai + 5], bb[bi + 5]);
+  }
+
+  private static double halfArea(
+    final double dx,
+    final double dy,
+    final double dz)
+  {
+    return (dx * dy) + (dy * dz) + (dz * dx);
+  }
+
+  private double area(
+    final int node)
+  {
+    final double[] b = this.bounds;
+    final int i = node * 6;
+    return halfArea(b[i + 3] - b[i], b[i + 4] - b[i + 1], b[i + 5] - b[i + 2]);
+  }
+
+  private double areaUnion(
+    final int a,
+    final int b)
+  {
+    final double[] bb = this.bounds;
+    final int ai = a * 6;
+    final int bi = b * 6;
+    final double dx =
+      Math.max(bb[ai + 3], bb[bi + 3]) - Math.min(bb[ai], bb[bi]);
+    final double dy =
+      Math.max(bb[ai + 4], bb[bi + 4]) - Math.min(bb[ai + 1], bb[bi + 1]);
+    final double dz =
+      Math.max(bb[ai + 5], bb[bi + 5]) - Math.min(bb[ai + 2], bb[bi + 2]);
+    return halfArea(dx, dy, dz);
+  }
+
+  private double descendCost(
+    final int leaf,
+    final int child,
+    final double inheritance)
+  {
+    final double union = this.areaUnion(leaf, child);
+    if (this.isLeaf(child)) {
+      return union + inheritance;
+    }
+    return (union - this.area(child)) + inheritance;
+  }
+
+  private void insertLeaf(
+    final int leaf)
+  {
+    if (this.root == NULL) {
+      this.root = leaf;
+      this.parents[leaf] = NULL;
+      return;
+    }
+
+    /*
+     * Descend the tree, choosing the sibling that minimizes the increase
+     * in surface area.
+     */
+
+    int index = this.root;
+    while (!this.isLeaf(index)) {
+      final int left = this.lefts[index];
+      final int right = this.rights[index];
+
+      final double area = this.area(index);
+      final double union = this.areaUnion(index, leaf);
+      final double cost = 2.0 * union;
+      final double inheritance = 2.0 * (union - area);
+      final double cost_left = this.descendCost(leaf, left, inheritance);
+      final double cost_right = this.descendCost(leaf, right, inheritance);
+
+      if (cost < cost_left && cost < cost_right) {
+        break;
+      }
+      index = cost_left < cost_right ? left : right;
+    }
+
+    final int sibling = index;
+    final int old_parent = this.parents[sibling];
+    final int new_parent = this.allocate();
+    this.parents[new_parent] = old_parent;
+    this.setUnion(new_parent, leaf, sibling);
+    this.heights[new_parent] = this.heights[sibling] + 1;
+    this.lefts[new_parent] = sibling;
+    this.rights[new_parent] = leaf;
+    this.parents[sibling] = new_parent;
+    this.parents[leaf] = new_parent;
+
+    if (old_parent != NULL) {
+      if (this.lefts[old_parent] == sibling) {
+        this.lefts[old_parent] = new_parent;
+      } else {
+        this.rights[old_parent] = new_parent;
+      }
+    } else {
+      this.root = new_parent;
+    }
+
+    this.refitFrom(this.parents[leaf]);
+  }
+
+  private void removeLeaf(
+    final int leaf)
+  {
+    if (leaf == this.root) {
+      this.root = NULL;
+      return;
+    }
+
+    final int parent = this.parents[leaf];
+    final int grand = this.parents[parent];
+    final int sibling =
+      this.lefts[parent] == leaf ? this.rights[parent] : this.lefts[parent];
+
+    if (grand != NULL) {
+      if (this.lefts[grand] == parent) {
+        this.lefts[grand] = sibling;
+      } else {
+        this.rights[grand] = sibling;
+      }
+      this.parents[sibling] = grand;
+      this.release(parent);
+      this.refitFrom(grand);
+    } else {
+      this.root = sibling;
+      this.parents[sibling] = NULL;
+      this.release(parent);
+    }
+
+    this.parents[leaf] = NULL;
+  }
+
+  private void refitFrom(
+    final int start)
+  {
+    int index = start;
+    while (index != NULL) {
+      index = this.balance(index);
+      final int left = this.lefts[index];
+      final int right = this.rights[index];
+      this.heights[index] =
+        1 + Math.max(this.heights[left], this.heights[right]);
+      this.setUnion(index, left, right);
+      index = this.parents[index];
+    }
+  }
+
+  private void replaceChild(
+    final int parent,
+    final int old_child,
+    final int new_child)
+  {
+    if (parent == NULL) {
+      this.root = new_child;
+    } else if (this.lefts[parent] == old_child) {
+      this.lefts[parent] = new_child;
+    } else {
+      this.rights[parent] = new_child;
+    }
+  }
+
+  /**
+   * Perform a left or right rotation if the subtree rooted at {@code a} is
+   * imbalanced.
+   *
+   * @return The new root of the subtree
+   */
+
+  private int balance(
+    final int a)
+  {
+    if (this.isLeaf(a) || this.heights[a] < 2) {
+      return a;
+    }
+
+    final int b = this.lefts[a];
+    final int c = this.rights[a];
+    final int balance = this.heights[c] - this.heights[b];
+
+    if (balance > 1) {
+      final int f = this.lefts[c];
+      final int g = this.rights[c];
+
+      this.lefts[c] = a;
+      this.parents[c] = this.parents[a];
+      this.parents[a] = c;
+      this.replaceChild(this.parents[c], a, c);
+
+      if (this.heights[f] > this.heights[g]) {
+        this.rights[c] = f;
+        this.rights[a] = g;
+        this.parents[g] = a;
+        this.setUnion(a, b, g);
+        this.setUnion(c, a, f);
+        this.heights[a] = 1 + Math.max(this.heights[b], this.heights[g]);
+        this.heights[c] = 1 + Math.max(this.heights[a], this.heights[f]);
+      } else {
+        this.rights[c] = g;
+        this.rights[a] = f;
+        this.parents[f] = a;
+        this.setUnion(a, b, f);
+        this.setUnion(c, a, g);
+        this.heights[a] = 1 + Math.max(this.heights[b], this.heights[f]);
+        this.heights[c] = 1 + Math.max(this.heights[a], this.heights[g]);
+      }
+      return c;
+    }
+
+    if (balance < -1) {
+      final int d = this.lefts[b];
+      final int e = this.rights[b];
+
+      this.lefts[b] = a;
+      this.parents[b] = this.parents[a];
+      this.parents[a] = b;
+      this.replaceChild(this.parents[b], a, b);
+
+      if (this.heights[d] > this.heights[e]) {
+        this.rights[b] = d;
+        this.lefts[a] = e;
+        this.parents[e] = a;
+        this.setUnion(a, c, e);
+        this.setUnion(b, a, d);
+        this.heights[a] = 1 + Math.max(this.heights[c], this.heights[e]);
+        this.heights[b] = 1 + Math.max(this.heights[a], this.heights[d]);
+      } else {
+        this.rights[b] = e;
+        this.lefts[a] = d;
+        this.parents[d] = a;
+        this.setUnion(a, c, d);
+        this.setUnion(b, a, e);
+        this.heights[a] = 1 + Math.max(this.heights[c], this.heights[d]);
+        this.heights[b] = 1 + Math.max(this.heights[a], this.heights[e]);
+      }
+      return b;
+    }
+
+    return a;
+  }
+
+  private int push(
+    final int top,
+    final int node)
+  {
+    if (top == this.stack.length) {
+      this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+    }
+    this.stack[top] = node;
+    return top + 1;
+  }
+
+  /**
+   * Pass all items whose bounds intersect the given frustum to {@code c}.
+   *
+   * @param f The frustum
+   * @param c The receiver of items
+   */
+
+  @SuppressWarnings("unchecked")
+  public void bvhQueryFrustum(
+    final R2CullingFrustum f,
+    final Consumer<T> c)
+  {
+    NullCheck.notNull(f, "Frustum");
+    NullCheck.notNull(c, "Consumer");
+
+    if (this.root == NULL) {
+      return;
+    }
+
+    final double[] b = this.bounds;
+    int top = this.push(0, this.root);
+    while (top > 0) {
+      --top;
+      final int node = this.stack[top];
+      final int i = node * 6;
+      if (!f.intersectsBox(
+        b[i], b[i + 1], b[i + 2], b[i + 3], b[i + 4], b[i + 5])) {
+        continue;
+      }
+      if (this.isLeaf(node)) {
+        c.accept((T) this.items[node]);
+      } else {
+        top = this.push(top, this.lefts[node]);
+        top = this.push(top, this.rights[node]);
+      }
+    }
+  }
+
+  /**
+   * Pass all items whose bounds intersect the given sphere to {@code c}.
+   *
+   * @param x      The X coordinate of the center of the sphere
+   * @param y      The Y coordinate of the center of the sphere
+   * @param z      The Z coordinate of the center of the sphere
+   * @param radius The radius of the sphere
+   * @param c      The receiver of items
+   */
+
+  @SuppressWarnings("unchecked")
+  public void bvhQuerySphere(
+    final double x,
+    final double y,
+    final double z,
+    final double radius,
+    final Consumer<T> c)
+  {
+    NullCheck.notNull(c, "Consumer");
+
+    if (this.root == NULL) {
+      return;
+    }
+
+    final double[] b = this.bounds;
+    final double radius_sq = radius * radius;
+    int top = this.push(0, this.root);
+    while (top > 0) {
+      --top;
+      final int node = this.stack[top];
+      final int i = node * 6;
+
+      /*
+       * Find the squared distance from the center of the sphere to the
+       * closest point on the box.
+       */
+
+      final double dx = x - Math.max(b[i], Math.min(x, b[i + 3]));
+      final double dy = y - Math.max(b[i + 1], Math.min(y, b[i + 4]));
+      final double dz = z - Math.max(b[i + 2], Math.min(z, b[i + 5]));
+      if ((dx * dx) + (dy * dy) + (dz * dz) > radius_sq) {
+        continue;
+      }
+      if (this.isLeaf(node)) {
+        c.accept((T) this.items[node]);
+      } else {
+        top = this.push(top, this.lefts[node]);
+        top = this.push(top, this.rights[node]);
+      }
+    }
+  }
+
+  /**
+   * Pass all items whose bounds intersect the given box to {@code c}.
+   *
+   * @param min_x The minimum X coordinate of the box
+   * @param min_y The minimum Y coordinate of the box
+   * @param min_z The minimum Z coordinate of the box
+   * @param max_x The maximum X coordinate of the box
+   * @param max_y The maximum Y coordinate of the box
+   * @param max_z The maximum Z coordinate of the box
+   * @param c     The receiver of items
+   */
+
+  @SuppressWarnings("unchecked")
+  public void bvhQueryBox(
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z,
+    final Consumer<T> c)
+  {
+    NullCheck.notNull(c, "Consumer");
+
+    if (this.root == NULL) {
+      return;
+    }
+
+    final double[] b = this.bounds;
+    int top = this.push(0, this.root);
+    while (top > 0) {
+      --top;
+      final int node = this.stack[top];
+      final int i = node * 6;
+      if (b[i] > max_x || b[i + 3] < min_x
+        || b[i + 1] > max_y || b[i + 4] < min_y
+        || b[i + 2] > max_z || b[i + 5] < min_z) {
+        continue;
+      }
+      if (this.isLeaf(node)) {
+        c.accept((T) this.items[node]);
+      } else {
+        top = this.push(top, this.lefts[node]);
+        top = this.push(top, this.rights[node]);
+      }
+    }
+  }
+}
@@ -0,0 +1,765 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.spatial;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.culling.R2BoundingSphereType;
+import com.io7m.r2.culling.R2CullingFrustum;
+import com.io7m.r2.instances.R2ExceptionInstanceAlreadyVisible;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.instances.R2InstanceType;
+import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.api.R2ExceptionLightAlreadyVisible;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.stencil.api.R2Stencils;
+import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.transforms.R2TransformReadableType;
+import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * The default implementation of the {@link R2SpatialSceneType} interface,
+ * backed by an {@link R2SpatialBVH}.
+ */
+
+public final class R2SpatialScene implements R2SpatialSceneType
+{
+  private static final Logger LOG;
+
+  static {
+    LOG = LoggerFactory.getLogger(R2SpatialScene.class);
+  }
+
+  private final R2SpatialBVH<Entry> tree;
+  private final Long2ReferenceOpenHashMap<InstanceEntry> instances;
+  private final Long2ReferenceOpenHashMap<LightEntry<?>> lights;
+  private final ObjectArrayList<LightEntry<?>> lights_unbounded;
+  private final ObjectArrayList<Entry> dirty;
+  private final R2CullingFrustum frustum;
+  private final Receiver receiver;
+  private final double[] box;
+
+  private R2SpatialScene(
+    final double margin)
+  {
+    this.tree = R2SpatialBVH.create(margin);
+    this.instances = new Long2ReferenceOpenHashMap<>(1024);
+    this.lights = new Long2ReferenceOpenHashMap<>(128);
+    this.lights_unbounded = new ObjectArrayList<>(8);
+    this.dirty = new ObjectArrayList<>(128);
+    this.frustum = R2CullingFrustum.create();
+    this.receiver = new Receiver();
+    this.box = new double[6];
+  }
+
+  /**
+   * Create a new empty spatial index.
+   *
+   * @param margin The amount by which the bounds of objects are enlarged
+   *               within the index, so that small movements do not require
+   *               the index to be restructured
+   *
+   * @return A new spatial index
+   */
+
+  public static R2SpatialScene create(
+    final double margin)
+  {
+    return new R2SpatialScene(margin);
+  }
+
+  /**
+   * Create a new empty spatial index with a default margin.
+   *
+   * @return A new spatial index
+   */
+
+  public static R2SpatialScene create()
+  {
+    return create(0.5);
+  }
+
+  private static void boundsOfSphere(
+    final double[] out,
+    final double x,
+    final double y,
+    final double z,
+    final double radius)
+  {
+    out[0] = x - radius;
+    out[1] = y - radius;
+    out[2] = z - radius;
+    out[3] = x + radius;
+    out[4] = y + radius;
+    out[5] = z + radius;
+  }
+
+  private static void boundsOfSphere(
+    final double[] out,
+    final R2BoundingSphereType s)
+  {
+    final Vector3D c = s.center();
+    boundsOfSphere(out, c.x(), c.y(), c.z(), s.radius());
+  }
+
+  private static void boundsOfTransformedSphere(
+    final double[] out,
+    final R2TransformReadableType t,
+    final R2BoundingSphereType s)
+  {
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m =
+      t.transformMakeMatrix4x4F();
+    final Vector3D c = s.center();
+
+    final double wx =
+      (m.r0c0() * c.x()) + (m.r0c1() * c.y()) + (m.r0c2() * c.z()) + m.r0c3();
+    final double wy =
+      (m.r1c0() * c.x()) + (m.r1c1() * c.y()) + (m.r1c2() * c.z()) + m.r1c3();
+    final double wz =
+      (m.r2c0() * c.x()) + (m.r2c1() * c.y()) + (m.r2c2() * c.z()) + m.r2c3();
+
+    final double sx =
+      (m.r0c0() * m.r0c0()) + (m.r1c0() * m.r1c0()) + (m.r2c0() * m.r2c0());
+    final double sy =
+      (m.r0c1() * m.r0c1()) + (m.r1c1() * m.r1c1()) + (m.r2c1() * m.r2c1());
+    final double sz =
+      (m.r0c2() * m.r0c2()) + (m.r1c2() * m.r1c2()) + (m.r2c2() * m.r2c2());
+    final double scale = Math.sqrt(Math.max(sx, Math.max(sy, sz)));
+
+    boundsOfSphere(out, wx, wy, wz, s.radius() * scale);
+  }
+
+  /**
+   * Calculate the bounds of the given light.
+   *
+   * @return {@code false} iff the light has no spatial extent
+   */
+
+  private static boolean boundsOfLight(
+    final double[] out,
+    final R2LightSingleReadableType light)
+  {
+    return light.matchLightSingle(
+      out,
+      (o, lv) -> lv.matchLightVolumeSingleReadable(
+        o,
+        (oo, lp) -> {
+          final PVector3D<R2SpaceWorldType> p = lp.position();
+          boundsOfSphere(oo, p.x(), p.y(), p.z(), lp.radius());
+          return Boolean.TRUE;
+        },
+        (oo, ls) -> {
+          final PVector3D<R2SpaceWorldType> p = ls.originPosition();
+          boundsOfSphere(oo, p.x(), p.y(), p.z(), ls.radius());
+          return Boolean.TRUE;
+        }),
+      (o, ls) -> Boolean.FALSE).booleanValue();
+  }
+
+  private void markDirty(
+    final Entry e)
+  {
+    if (!e.dirty) {
+      e.dirty = true;
+      this.dirty.add(e);
+    }
+  }
+
+  private void insertInstance(
+    final InstanceEntry e)
+  {
+    final long id = e.instance().instanceID();
+    if (this.instances.containsKey(id)) {
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append("Instance already present in spatial index.");
+      sb.append(System.lineSeparator());
+      sb.append("Instance: ");
+      sb.append(id);
+      sb.append(System.lineSeparator());
+      throw new R2ExceptionInstanceAlreadyVisible(sb.toString());
+    }
+
+    e.bounds(this.box);
+    e.proxy = this.tree.bvhInsert(
+      e,
+      this.box[0], this.box[1], this.box[2],
+      this.box[3], this.box[4], this.box[5]);
+    this.instances.put(id, e);
+    e.watch();
+  }
+
+  @Override
+  public <M> void spatialAddSingleInstance(
+    final R2InstanceSingleType i,
+    final R2BoundingSphereType bounds,
+    final R2MaterialOpaqueSingleType<M> m,
+    final int group)
+  {
+    NullCheck.notNull(i, "Instance");
+    NullCheck.notNull(bounds, "Bounds");
+    NullCheck.notNull(m, "Material");
+    R2Stencils.checkValidGroup(group);
+    this.insertInstance(new SingleEntry<>(this, i, bounds, m, group));
+  }
+
+  @Override
+  public <M> void spatialAddBatchedInstance(
+    final R2InstanceBatchedType i,
+    final R2BoundingSphereType bounds,
+    final R2MaterialOpaqueBatchedType<M> m,
+    final int group)
+  {
+    NullCheck.notNull(i, "Instance");
+    NullCheck.notNull(bounds, "Bounds");
+    NullCheck.notNull(m, "Material");
+    R2Stencils.checkValidGroup(group);
+    this.insertInstance(new BatchedEntry<>(i, bounds, m, group));
+  }
+
+  @Override
+  public <M> void spatialAddBillboardedInstance(
+    final R2InstanceBillboardedType i,
+    final R2BoundingSphereType bounds,
+    final R2MaterialOpaqueBillboardedType<M> m,
+    final int group)
+  {
+    NullCheck.notNull(i, "Instance");
+    NullCheck.notNull(bounds, "Bounds");
+    NullCheck.notNull(m, "Material");
+    R2Stencils.checkValidGroup(group);
+    this.insertInstance(new BillboardedEntry<>(i, bounds, m, group));
+  }
+
+  @Override
+  public void spatialSetInstanceBounds(
+    final R2InstanceType i,
+    final R2BoundingSphereType bounds)
+  {
+    NullCheck.notNull(i, "Instance");
+    NullCheck.notNull(bounds, "Bounds");
+
+    final InstanceEntry e = this.instances.get(i.instanceID());
+    if (e != null) {
+      e.sphere = bounds;
+      this.markDirty(e);
+    }
+  }
+
+  @Override
+  public void spatialRemoveInstance(
+    final R2InstanceType i)
+  {
+    NullCheck.notNull(i, "Instance");
+
+    final InstanceEntry e = this.instances.remove(i.instanceID());
+    if (e != null) {
+      e.unwatch();
+      this.tree.bvhRemove(e.proxy);
+      e.proxy = -1;
+    }
+  }
+
+  @Override
+  public <L extends R2LightSingleReadableType> void spatialAddLight(
+    final L light,
+    final R2ShaderLightSingleUsableType<L> shader,
+    final int group)
+  {
+    NullCheck.notNull(light, "Light");
+    NullCheck.notNull(shader, "Shader");
+    R2Stencils.checkValidGroup(group);
+
+    final long id = light.lightID();
+    if (this.lights.containsKey(id)) {
+      final StringBuilder sb = new StringBuilder(128);
+      sb.append("Light already present in spatial index.");
+      sb.append(System.lineSeparator());
+      sb.append("Light: ");
+      sb.append(id);
+      sb.append(System.lineSeparator());
+      throw new R2ExceptionLightAlreadyVisible(sb.toString());
+    }
+
+    final LightEntry<L> e = new LightEntry<>(this, light, shader, group);
+    this.lights.put(id, e);
+    this.placeLight(e);
+    e.watch();
+  }
+
+  private void placeLight(
+    final LightEntry<?> e)
+  {
+    final boolean bounded = boundsOfLight(this.box, e.light);
+    if (bounded) {
+      if (e.proxy == -1) {
+        this.lights_unbounded.rem(e);
+        e.proxy = this.tree.bvhInsert(
+          e,
+          this.box[0], this.box[1], this.box[2],
+          this.box[3], this.box[4], this.box[5]);
+      } else {
+        this.tree.bvhMove(
+          e.proxy,
+          this.box[0], this.box[1], this.box[2],
+          this.box[3], this.box[4], this.box[5]);
+      }
+    } else {
+      if (e.proxy != -1) {
+        this.tree.bvhRemove(e.proxy);
+        e.proxy = -1;
+      }
+      if (!this.lights_unbounded.contains(e)) {
+        this.lights_unbounded.add(e);
+      }
+    }
+  }
+
+  @Override
+  public void spatialUpdateLight(
+    final R2LightSingleReadableType light)
+  {
+    NullCheck.notNull(light, "Light");
+
+    final LightEntry<?> e = this.lights.get(light.lightID());
+    if (e != null) {
+      this.markDirty(e);
+    }
+  }
+
+  @Override
+  public void spatialRemoveLight(
+    final R2LightSingleReadableType light)
+  {
+    NullCheck.notNull(light, "Light");
+
+    final LightEntry<?> e = this.lights.remove(light.lightID());
+    if (e != null) {
+      e.unwatch();
+      if (e.proxy != -1) {
+        this.tree.bvhRemove(e.proxy);
+        e.proxy = -1;
+      } else {
+        this.lights_unbounded.rem(e);
+      }
+    }
+  }
+
+  @Override
+  public void spatialUpdate()
+  {
+    final ObjectArrayList<Entry> d = this.dirty;
+    final int size = d.size();
+    int moved = 0;
+
+    for (int index = 0; index < size; ++index) {
+      final Entry e = d.get(index);
+      e.dirty = false;
+
+      if (e instanceof LightEntry) {
+        final LightEntry<?> le = (LightEntry<?>) e;
+        if (this.lights.get(le.light.lightID()) == le) {
+          this.placeLight(le);
+          ++moved;
+        }
+        continue;
+      }
+
+      if (e.proxy != -1) {
+        e.bounds(this.box);
+        if (this.tree.bvhMove(
+          e.proxy,
+          this.box[0], this.box[1], this.box[2],
+          this.box[3], this.box[4], this.box[5])) {
+          ++moved;
+        }
+      }
+    }
+
+    d.clear();
+
+    if (LOG.isTraceEnabled() && size > 0) {
+      LOG.trace(
+        "update: {} dirty, {} restructured",
+        Integer.valueOf(size),
+        Integer.valueOf(moved));
+    }
+  }
+
+  private void queryStart(
+    final R2SceneOpaquesType opaques,
+    final R2SceneLightsType lights)
+  {
+    NullCheck.notNull(opaques, "Opaques");
+    NullCheck.notNull(lights, "Lights");
+
+    this.spatialUpdate();
+    opaques.opaquesReset();
+    lights.lightsReset();
+    this.receiver.opaques = opaques;
+    this.receiver.lights = lights;
+
+    final ObjectArrayList<LightEntry<?>> unbounded = this.lights_unbounded;
+    for (int index = 0; index < unbounded.size(); ++index) {
+      unbounded.get(index).addTo(lights);
+    }
+  }
+
+  private void queryFinish()
+  {
+    this.receiver.opaques = null;
+    this.receiver.lights = null;
+  }
+
+  @Override
+  public void spatialQueryFrustum(
+    final R2MatricesObserverValuesType m,
+    final R2SceneOpaquesType opaques,
+    final R2SceneLightsType lights)
+  {
+    NullCheck.notNull(m, "Matrices");
+
+    this.queryStart(opaques, lights);
+    try {
+      this.frustum.updateFromObserver(m);
+      this.tree.bvhQueryFrustum(this.frustum, this.receiver);
+    } finally {
+      this.queryFinish();
+    }
+  }
+
+  @Override
+  public void spatialQuerySphere(
+    final double x,
+    final double y,
+    final double z,
+    final double radius,
+    final R2SceneOpaquesType opaques,
+    final R2SceneLightsType lights)
+  {
+    this.queryStart(opaques, lights);
+    try {
+      this.tree.bvhQuerySphere(x, y, z, radius, this.receiver);
+    } finally {
+      this.queryFinish();
+    }
+  }
+
+  @Override
+  public void spatialQueryBox(
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z,
+    final R2SceneOpaquesType opaques,
+    final R2SceneLightsType lights)
+  {
+    this.queryStart(opaques, lights);
+    try {
+      this.tree.bvhQueryBox(
+        min_x, min_y, min_z, max_x, max_y, max_z, this.receiver);
+    } finally {
+      this.queryFinish();
+    }
+  }
+
+  @Override
+  public long spatialInstanceCount()
+  {
+    return (long) this.instances.size();
+  }
+
+  @Override
+  public long spatialLightCount()
+  {
+    return (long) this.lights.size();
+  }
+
+  private static final class Receiver implements Consumer<Entry>
+  {
+    private @Nullable R2SceneOpaquesType opaques;
+    private @Nullable R2SceneLightsType lights;
+
+    Receiver()
+    {
+
+    }
+
+    @Override
+    public void accept(final Entry e)
+    {
+      e.deliver(
+        NullCheck.notNull(this.opaques, "Opaques"),
+        NullCheck.notNull(this.lights, "Lights"));
+    }
+  }
+
+  private abstract static class Entry
+  {
+    private int proxy;
+    private boolean dirty;
+
+    Entry()
+    {
+      this.proxy = -1;
+    }
+
+    abstract void bounds(double[] out);
+
+    abstract void deliver(
+      R2SceneOpaquesType opaques,
+      R2SceneLightsType lights);
+  }
+
+  private abstract static class InstanceEntry extends Entry
+  {
+    private final int group;
+    private R2BoundingSphereType sphere;
+
+    InstanceEntry(
+      final R2BoundingSphereType in_sphere,
+      final int in_group)
+    {
+      this.sphere = NullCheck.notNull(in_sphere, "Sphere");
+      this.group = in_group;
+    }
+
+    abstract R2InstanceType instance();
+
+    void watch()
+    {
+
+    }
+
+    void unwatch()
+    {
+
+    }
+
+    @Override
+    void bounds(final double[] out)
+    {
+      boundsOfSphere(out, this.sphere);
+    }
+  }
+
+  private static final class SingleEntry<M> extends InstanceEntry
+    implements Consumer<R2TransformReadableType>
+  {
+    private final R2SpatialScene scene;
+    private final R2InstanceSingleType instance;
+    private final R2MaterialOpaqueSingleType<M> material;
+
+    SingleEntry(
+      final R2SpatialScene in_scene,
+      final R2InstanceSingleType in_instance,
+      final R2BoundingSphereType in_sphere,
+      final R2MaterialOpaqueSingleType<M> in_material,
+      final int in_group)
+    {
+      super(in_sphere, in_group);
+      this.scene = NullCheck.notNull(in_scene, "Scene");
+      this.instance = NullCheck.notNull(in_instance, "Instance");
+      this.material = NullCheck.notNull(in_material, "Material");
+    }
+
+    @Override
+    R2InstanceType instance()
+    {
+      return this.instance;
+    }
+
+    /*
+     * The entry itself is registered as the transform watcher, so that the
+     * (weakly referenced) watcher lives exactly as long as the entry.
+     */
+
+    @Override
+    void watch()
+    {
+      this.instance.transform().transformGetWatchable().watchableAdd(this);
+    }
+
+    @Override
+    void unwatch()
+    {
+      this.instance.transform().transformGetWatchable().watchableRemove(this);
+    }
+
+    @Override
+    public void accept(final R2TransformReadableType t)
+    {
+      this.scene.markDirty(this);
+    }
+
+    @Override
+    void bounds(final double[] out)
+    {
+      boundsOfTransformedSphere(
+        out, this.instance.transform(), super.sphere);
+    }
+
+    @Override
+    void deliver(
+      final R2SceneOpaquesType opaques,
+      final R2SceneLightsType lights)
+    {
+      opaques.opaquesAddSingleInstanceInGroup(
+        this.instance, this.material, super.group);
+    }
+  }
+
+  private static final class BatchedEntry<M> extends InstanceEntry
+  {
+    private final R2InstanceBatchedType instance;
+    private final R2MaterialOpaqueBatchedType<M> material;
+
+    BatchedEntry(
+      final R2InstanceBatchedType in_instance,
+      final R2BoundingSphereType in_sphere,
+      final R2MaterialOpaqueBatchedType<M> in_material,
+      final int in_group)
+    {
+      super(in_sphere, in_group);
+      this.instance = NullCheck.notNull(in_instance, "Instance");
+      this.material = NullCheck.notNull(in_material, "Material");
+    }
+
+    @Override
+    R2InstanceType instance()
+    {
+      return this.instance;
+    }
+
+    @Override
+    void deliver(
+      final R2SceneOpaquesType opaques,
+      final R2SceneLightsType lights)
+    {
+      opaques.opaquesAddBatchedInstanceInGroup(
+        this.instance, this.material, super.group);
+    }
+  }
+
+  private static final class BillboardedEntry<M> extends InstanceEntry
+  {
+    private final R2InstanceBillboardedType instance;
+    private final R2MaterialOpaqueBillboardedType<M> material;
+
+    BillboardedEntry(
+      final R2InstanceBillboardedType in_instance,
+      final R2BoundingSphereType in_sphere,
+      final R2MaterialOpaqueBillboardedType<M> in_material,
+      final int in_group)
+    {
+      super(in_sphere, in_group);
+      this.instance = NullCheck.notNull(in_instance, "Instance");
+      this.material = NullCheck.notNull(in_material, "Material");
+    }
+
+    @Override
+    R2InstanceType instance()
+    {
+      return this.instance;
+    }
+
+    @Override
+    void deliver(
+      final R2SceneOpaquesType opaques,
+      final R2SceneLightsType lights)
+    {
+      opaques.opaquesAddBillboardedInstanceInGroup(
+        this.instance, this.material, super.group);
+    }
+  }
+
+  private static final class LightEntry<L extends R2LightSingleReadableType>
+    extends Entry implements Consumer<R2TransformReadableType>
+  {
+    private final R2SpatialScene scene;
+    private final L light;
+    private final R2ShaderLightSingleUsableType<L> shader;
+    private final int group;
+
+    LightEntry(
+      final R2SpatialScene in_scene,
+      final L in_light,
+      final R2ShaderLightSingleUsableType<L> in_shader,
+      final int in_group)
+    {
+      this.scene = NullCheck.notNull(in_scene, "Scene");
+      this.light = NullCheck.notNull(in_light, "Light");
+      this.shader = NullCheck.notNull(in_shader, "Shader");
+      this.group = in_group;
+    }
+
+    void watch()
+    {
+      this.light.transform().transformGetWatchable().watchableAdd(this);
+    }
+
+    void unwatch()
+    {
+      this.light.transform().transformGetWatchable().watchableRemove(this);
+    }
+
+    @Override
+    public void accept(final R2TransformReadableType t)
+    {
+      this.scene.markDirty(this);
+    }
+
+    @Override
+    void bounds(final double[] out)
+    {
+      boundsOfLight(out, this.light);
+    }
+
+    void addTo(final R2SceneLightsType lights)
+    {
+      lights.lightsGetGroup(this.group)
+        .lightGroupAddSingle(this.light, this.shader);
+    }
+
+    @Override
+    void deliver(
+      final R2SceneOpaquesType opaques,
+      final R2SceneLightsType lights)
+    {
+      this.addTo(lights);
+    }
+  }
+}
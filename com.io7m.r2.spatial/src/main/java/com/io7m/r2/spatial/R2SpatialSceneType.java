@@ -0,0 +1,266 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.spatial;
+
+import com.io7m.r2.culling.R2BoundingSphereType;
+import com.io7m.r2.instances.R2ExceptionInstanceAlreadyVisible;
+import com.io7m.r2.instances.R2InstanceBatchedType;
+import com.io7m.r2.instances.R2InstanceBillboardedType;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.instances.R2InstanceType;
+import com.io7m.r2.lights.R2LightSingleReadableType;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBatchedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueBillboardedType;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.api.R2ExceptionLightAlreadyVisible;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.stencil.api.R2ExceptionStencilInvalidGroup;
+import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
+
+/**
+ * <p>A persistent spatial index of instances and lights.</p>
+ *
+ * <p>Instances and lights are added to the index once, along with the
+ * material or shader and the stencil group that would otherwise be passed to
+ * {@link R2SceneOpaquesType} and {@link R2SceneLightsType} every frame. The
+ * index observes the transforms of single instances and lights and updates
+ * their bounds incrementally when the transforms change. Queries then
+ * populate opaque and light scenes with only those instances and lights that
+ * intersect the query volume, so that the cost of constructing a scene each
+ * frame is proportional to the number of visible objects instead of the
+ * total number of objects.</p>
+ *
+ * <p>Lights that have no spatial extent (such as ambient and directional
+ * lights) are included in the results of every query.</p>
+ */
+
+public interface R2SpatialSceneType
+{
+  /**
+   * Add a single instance to the index.
+   *
+   * @param i      The instance
+   * @param bounds The object-space bounds of the instance
+   * @param m      The material
+   * @param group  The stencil group
+   * @param <M>    The type of material parameters
+   *
+   * @throws R2ExceptionInstanceAlreadyVisible If the instance is already in
+   *                                           the index
+   * @throws R2ExceptionStencilInvalidGroup    If the group is not valid
+   */
+
+  <M> void spatialAddSingleInstance(
+    R2InstanceSingleType i,
+    R2BoundingSphereType bounds,
+    R2MaterialOpaqueSingleType<M> m,
+    int group)
+    throws R2ExceptionInstanceAlreadyVisible, R2ExceptionStencilInvalidGroup;
+
+  /**
+   * Add a batched instance to the index. Batched instances do not expose a
+   * single transform, and so the bounds of the instance must be updated
+   * manually with {@link #spatialSetInstanceBounds(R2InstanceType,
+   * R2BoundingSphereType)} when the instances in the batch move.
+   *
+   * @param i      The instance
+   * @param bounds The world-space bounds of the batch
+   * @param m      The material
+   * @param group  The stencil group
+   * @param <M>    The type of material parameters
+   *
+   * @throws R2ExceptionInstanceAlreadyVisible If the instance is already in
+   *                                           the index
+   * @throws R2ExceptionStencilInvalidGroup    If the group is not valid
+   */
+
+  <M> void spatialAddBatchedInstance(
+    R2InstanceBatchedType i,
+    R2BoundingSphereType bounds,
+    R2MaterialOpaqueBatchedType<M> m,
+    int group)
+    throws R2ExceptionInstanceAlreadyVisible, R2ExceptionStencilInvalidGroup;
+
+  /**
+   * Add a billboarded instance to the index. Billboarded instances do not
+   * expose a single transform, and so the bounds of the instance must be
+   * updated manually with {@link #spatialSetInstanceBounds(R2InstanceType,
+   * R2BoundingSphereType)} when the billboards move.
+   *
+   * @param i      The instance
+   * @param bounds The world-space bounds of the billboards
+   * @param m      The material
+   * @param group  The stencil group
+   * @param <M>    The type of material parameters
+   *
+   * @throws R2ExceptionInstanceAlreadyVisible If the instance is already in
+   *                                           the index
+   * @throws R2ExceptionStencilInvalidGroup    If the group is not valid
+   */
+
+  <M> void spatialAddBillboardedInstance(
+    R2InstanceBillboardedType i,
+    R2BoundingSphereType bounds,
+    R2MaterialOpaqueBillboardedType<M> m,
+    int group)
+    throws R2ExceptionInstanceAlreadyVisible, R2ExceptionStencilInvalidGroup;
+
+  /**
+   * Replace the bounds of an instance. The bounds are interpreted in the same
+   * space as the bounds given when the instance was added. The call has no
+   * effect if the instance is not in the index.
+   *
+   * @param i      The instance
+   * @param bounds The new bounds
+   */
+
+  void spatialSetInstanceBounds(
+    R2InstanceType i,
+    R2BoundingSphereType bounds);
+
+  /**
+   * Remove an instance from the index. The call has no effect if the instance
+   * is not in the index.
+   *
+   * @param i The instance
+   */
+
+  void spatialRemoveInstance(
+    R2InstanceType i);
+
+  /**
+   * Add a light to the index.
+   *
+   * @param light  The light
+   * @param shader The light shader
+   * @param group  The stencil group
+   * @param <L>    The precise type of light
+   *
+   * @throws R2ExceptionLightAlreadyVisible If the light is already in the
+   *                                        index
+   * @throws R2ExceptionStencilInvalidGroup If the group is not valid
+   */
+
+  <L extends R2LightSingleReadableType> void spatialAddLight(
+    L light,
+    R2ShaderLightSingleUsableType<L> shader,
+    int group)
+    throws R2ExceptionLightAlreadyVisible, R2ExceptionStencilInvalidGroup;
+
+  /**
+   * Indicate that a property of a light that is not part of its transform
+   * (such as the radius of a projective light) has changed, and that the
+   * bounds of the light should be recalculated. The call has no effect if the
+   * light is not in the index.
+   *
+   * @param light The light
+   */
+
+  void spatialUpdateLight(
+    R2LightSingleReadableType light);
+
+  /**
+   * Remove a light from the index. The call has no effect if the light is not
+   * in the index.
+   *
+   * @param light The light
+   */
+
+  void spatialRemoveLight(
+    R2LightSingleReadableType light);
+
+  /**
+   * Recalculate the bounds of all instances and lights whose transforms have
+   * changed since the last update. This is called implicitly by all of the
+   * query methods.
+   */
+
+  void spatialUpdate();
+
+  /**
+   * Reset the given scenes and add all instances and lights that intersect
+   * the view frustum of the given observer.
+   *
+   * @param m       The observer matrices
+   * @param opaques The opaque scene that will receive instances
+   * @param lights  The light scene that will receive lights
+   */
+
+  void spatialQueryFrustum(
+    R2MatricesObserverValuesType m,
+    R2SceneOpaquesType opaques,
+    R2SceneLightsType lights);
+
+  /**
+   * Reset the given scenes and add all instances and lights that intersect
+   * the given world-space sphere.
+   *
+   * @param x       The X coordinate of the center of the sphere
+   * @param y       The Y coordinate of the center of the sphere
+   * @param z       The Z coordinate of the center of the sphere
+   * @param radius  The radius of the sphere
+   * @param opaques The opaque scene that will receive instances
+   * @param lights  The light scene that will receive lights
+   */
+
+  void spatialQuerySphere(
+    double x,
+    double y,
+    double z,
+    double radius,
+    R2SceneOpaquesType opaques,
+    R2SceneLightsType lights);
+
+  /**
+   * Reset the given scenes and add all instances and lights that intersect
+   * the given world-space axis-aligned box.
+   *
+   * @param min_x   The minimum X coordinate of the box
+   * @param min_y   The minimum Y coordinate of the box
+   * @param min_z   The minimum Z coordinate of the box
+   * @param max_x   The maximum X coordinate of the box
+   * @param max_y   The maximum Y coordinate of the box
+   * @param max_z   The maximum Z coordinate of the box
+   * @param opaques The opaque scene that will receive instances
+   * @param lights  The light scene that will receive lights
+   */
+
+  void spatialQueryBox(
+    double min_x,
+    double min_y,
+    double min_z,
+    double max_x,
+    double max_y,
+    double max_z,
+    R2SceneOpaquesType opaques,
+    R2SceneLightsType lights);
+
+  /**
+   * @return The number of instances in the index
+   */
+
+  long spatialInstanceCount();
+
+  /**
+   * @return The number of lights in the index
+   */
+
+  long spatialLightCount();
+}
@@ -206,6 +206,9 @@ public final class Compiler
     shaders.add(new Shader(
       "com.io7m.r2.shaders.light/R2LightDirectionalSpecularSingle.frag", FRAGMENT_SHADER
     ));
+    shaders.add(new Shader(
+      "com.io7m.r2.shaders.light/R2LightDirectionalSpecularShadowVarianceSingle.frag", FRAGMENT_SHADER
+    ));
     shaders.add(new Shader(
       "com.io7m.r2.shaders.light/R2LightPositionalSingle.vert", VERTEX_SHADER
     ));
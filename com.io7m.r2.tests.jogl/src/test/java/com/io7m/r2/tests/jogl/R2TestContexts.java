@@ -17,12 +17,16 @@
 package com.io7m.r2.tests.jogl;
 
 import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.jcanephora.core.JCGLArrayBufferUsableType;
 import com.io7m.jcanephora.core.JCGLExceptionNonCompliant;
 import com.io7m.jcanephora.core.JCGLExceptionUnsupported;
 import com.io7m.jcanephora.core.api.JCGLContextType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jcanephora.jogl.JCGLImplementationJOGL;
 import com.io7m.jcanephora.jogl.JCGLImplementationJOGLType;
 import com.io7m.junreachable.UnreachableCodeException;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBuffer;
+import com.io7m.r2.shaders.api.R2ShaderViewUniformBufferType;
 import com.jogamp.opengl.DebugGL3;
 import com.jogamp.opengl.GL3;
 import com.jogamp.opengl.GLCapabilities;
@@ -62,6 +66,21 @@ public final class R2TestContexts
 
   }
 
+  public static R2ShaderViewUniformBufferType newViewUniformBuffer(
+    final JCGLInterfaceGL33Type g)
+  {
+    return R2ShaderViewUniformBuffer.create(
+      g.arrayBuffers(), R2TestContexts::bindUniformBuffer);
+  }
+
+  public static void bindUniformBuffer(
+    final int index,
+    final JCGLArrayBufferUsableType buffer)
+  {
+    GLContext.getCurrentGL().getGL3().glBindBufferBase(
+      GL3.GL_UNIFORM_BUFFER, index, buffer.getGLName());
+  }
+
   public static JCGLContextType newGL33Context(
     final String name,
     final int depth,
@@ -23,6 +23,7 @@ import com.io7m.r2.debug.R2DebugVisualizerRenderer;
 import com.io7m.r2.debug.api.R2DebugVisualizerRendererType;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaderType;
 import com.io7m.r2.meshes.loading.smf.R2SMFMeshLoaderSynchronous;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
 import com.io7m.r2.tests.debug.R2DebugVisualizerRendererContract;
 import com.io7m.r2.tests.jogl.R2TestContexts;
@@ -37,7 +38,12 @@ public final class R2DebugVisualizerRendererTest extends
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_pool)
   {
-    return R2DebugVisualizerRenderer.create(in_g, in_shader_env, in_pool);
+    return R2DebugVisualizerRenderer.create(
+      in_g,
+      R2RenderStateTracker.create(),
+      in_shader_env,
+      in_pool,
+      R2TestContexts.newViewUniformBuffer(in_g));
   }
 
   @Override
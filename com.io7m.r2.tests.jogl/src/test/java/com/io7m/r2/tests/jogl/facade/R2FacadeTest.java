@@ -31,7 +31,10 @@ public final class R2FacadeTest extends R2FacadeContract
   protected R2FacadeType newMain(
     final JCGLInterfaceGL33Type g_render)
   {
-    return R2Facade.of(g_render, SoShaderResolverServiceLoader.create());
+    return R2Facade.of(
+      g_render,
+      SoShaderResolverServiceLoader.create(),
+      R2TestContexts::bindUniformBuffer);
   }
 
   @Override
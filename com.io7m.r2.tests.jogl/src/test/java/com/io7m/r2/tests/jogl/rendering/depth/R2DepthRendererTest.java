@@ -18,6 +18,7 @@ package com.io7m.r2.tests.jogl.rendering.depth;
 
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.R2DepthOnlyRenderer;
 import com.io7m.r2.rendering.depth.api.R2DepthRendererType;
 import com.io7m.r2.tests.jogl.R2TestContexts;
@@ -28,7 +29,10 @@ public final class R2DepthRendererTest extends R2DepthRendererContract
   @Override
   protected R2DepthRendererType getRenderer(JCGLInterfaceGL33Type g)
   {
-    return R2DepthOnlyRenderer.create(g);
+    return R2DepthOnlyRenderer.create(
+      g,
+      R2RenderStateTracker.create(),
+      R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
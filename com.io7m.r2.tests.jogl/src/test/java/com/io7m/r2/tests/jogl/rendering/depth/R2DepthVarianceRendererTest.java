@@ -18,6 +18,7 @@ package com.io7m.r2.tests.jogl.rendering.depth;
 
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.variance.R2DepthVarianceRenderer;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceRendererType;
 import com.io7m.r2.tests.jogl.R2TestContexts;
@@ -29,7 +30,10 @@ public final class R2DepthVarianceRendererTest extends
   @Override
   protected R2DepthVarianceRendererType getRenderer(JCGLInterfaceGL33Type g)
   {
-    return R2DepthVarianceRenderer.create(g);
+    return R2DepthVarianceRenderer.create(
+      g,
+      R2RenderStateTracker.create(),
+      R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
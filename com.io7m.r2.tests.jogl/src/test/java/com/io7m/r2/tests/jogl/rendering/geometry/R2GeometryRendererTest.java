@@ -18,6 +18,7 @@ package com.io7m.r2.tests.jogl.rendering.geometry;
 
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.R2GeometryRenderer;
 import com.io7m.r2.rendering.geometry.api.R2GeometryRendererType;
 import com.io7m.r2.tests.jogl.R2TestContexts;
@@ -28,7 +29,10 @@ public final class R2GeometryRendererTest extends R2GeometryRendererContract
   @Override
   protected R2GeometryRendererType getRenderer(final JCGLInterfaceGL33Type g)
   {
-    return R2GeometryRenderer.create(g);
+    return R2GeometryRenderer.create(
+      g,
+      R2RenderStateTracker.create(),
+      R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
@@ -19,6 +19,7 @@ package com.io7m.r2.tests.jogl.rendering.light;
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.lights.R2LightRenderer;
 import com.io7m.r2.rendering.lights.api.R2LightRendererType;
 import com.io7m.r2.tests.jogl.R2TestContexts;
@@ -46,7 +47,14 @@ public final class R2LightRendererTest extends R2LightRendererContract
     final R2IDPoolType id_pool,
     final R2UnitQuadUsableType quad)
   {
-    return R2LightRenderer.create(g, td, ss, id_pool, quad);
+    return R2LightRenderer.create(
+      g,
+      R2RenderStateTracker.create(),
+      td,
+      ss,
+      id_pool,
+      quad,
+      R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
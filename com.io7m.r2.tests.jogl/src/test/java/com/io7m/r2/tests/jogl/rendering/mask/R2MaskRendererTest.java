@@ -19,6 +19,7 @@ package com.io7m.r2.tests.jogl.rendering.mask;
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.mask.R2MaskRenderer;
 import com.io7m.r2.rendering.mask.api.R2MaskRendererType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentReadableType;
@@ -33,7 +34,12 @@ public final class R2MaskRendererTest extends R2MaskRendererContract
     final R2ShaderPreprocessingEnvironmentReadableType in_shader_env,
     final R2IDPoolType in_id_pool)
   {
-    return R2MaskRenderer.create(g, in_shader_env, in_id_pool);
+    return R2MaskRenderer.create(
+      g,
+      R2RenderStateTracker.create(),
+      in_shader_env,
+      in_id_pool,
+      R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
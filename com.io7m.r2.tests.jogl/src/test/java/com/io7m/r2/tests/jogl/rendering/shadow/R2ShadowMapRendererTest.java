@@ -18,6 +18,7 @@ package com.io7m.r2.tests.jogl.rendering.shadow;
 
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.variance.R2DepthVarianceRenderer;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferDescription;
 import com.io7m.r2.rendering.depth.variance.api.R2DepthVarianceBufferUsableType;
@@ -32,19 +33,33 @@ public final class R2ShadowMapRendererTest extends R2ShadowMapRendererContract
 {
   @Override
   protected R2DepthVarianceRendererType newVarianceRenderer(
-    final JCGLInterfaceGL33Type g)
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states)
   {
-    return R2DepthVarianceRenderer.create(g);
+    return R2DepthVarianceRenderer.create(
+      g, states, R2TestContexts.newViewUniformBuffer(g));
   }
 
   @Override
   protected R2ShadowMapRendererType newShadowMapRenderer(
     final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType dvr,
+    final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp)
+  {
+    return R2ShadowMapRenderer.newRenderer(g, states, dvr, vp);
+  }
+
+  @Override
+  protected R2ShadowMapRendererType newShadowMapRendererCaching(
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states,
     final R2DepthVarianceRendererType dvr,
     final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
       R2DepthVarianceBufferUsableType> vp)
   {
-    return R2ShadowMapRenderer.newRenderer(g, dvr, vp);
+    return R2ShadowMapRenderer.newCachingRenderer(g, states, dvr, vp);
   }
 
   @Override
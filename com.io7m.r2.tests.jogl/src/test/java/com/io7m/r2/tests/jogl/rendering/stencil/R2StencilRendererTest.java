@@ -19,6 +19,7 @@ package com.io7m.r2.tests.jogl.rendering.stencil;
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.stencil.R2StencilRenderer;
 import com.io7m.r2.rendering.stencil.api.R2StencilRendererType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
@@ -36,7 +37,8 @@ public final class R2StencilRendererTest
     final R2IDPoolType in_pool,
     final R2UnitQuadUsableType in_quad)
   {
-    return R2StencilRenderer.create(in_sources, g, in_pool, in_quad);
+    return R2StencilRenderer.create(
+      in_sources, g, R2RenderStateTracker.create(), in_pool, in_quad);
   }
 
   @Override
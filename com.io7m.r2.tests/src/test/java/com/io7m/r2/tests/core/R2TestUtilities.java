@@ -60,6 +60,7 @@ import com.io7m.r2.core.api.R2Exception;
 import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceBillboardedType;
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightScreenSingleType;
 import com.io7m.r2.lights.R2LightSingleType;
 import com.io7m.r2.lights.R2LightVolumeSingleType;
@@ -88,6 +89,7 @@ import com.io7m.r2.shaders.geometry.api.R2ShaderGeometryBillboardedType;
 import com.io7m.r2.shaders.geometry.api.R2ShaderGeometryBillboardedUsableType;
 import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleType;
 import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderParametersLightType;
 import com.io7m.r2.shaders.translucent.api.R2ShaderTranslucentInstanceBatchedType;
@@ -1220,6 +1222,131 @@ public final class R2TestUtilities
     };
   }
 
+  public static R2ShaderLightBatchedUsableType<R2LightBatchedReadableType>
+  getShaderLightBatched(
+    final JCGLInterfaceGL33Type g,
+    final long s_id)
+  {
+    final JCGLShadersType g_sh = g.shaders();
+
+    final List<String> v_lines = new ArrayList<>(3);
+    v_lines.add("void facade() {\n");
+    v_lines.add("  gl_Position = vec4 (1.0, 1.0, 1.0, 1.0);\n");
+    v_lines.add("}\n");
+    final JCGLVertexShaderType v =
+      g_sh.shaderCompileVertex("v_main", v_lines);
+
+    final List<String> f_lines = new ArrayList<>(4);
+    f_lines.add("out vec4 color_0;\n");
+    f_lines.add("void facade() {\n");
+    f_lines.add("  color_0 = vec4 (1.0, 1.0, 1.0, 1.0);\n");
+    f_lines.add("}\n");
+    final JCGLFragmentShaderType f =
+      g_sh.shaderCompileFragment("f_main", f_lines);
+
+    final JCGLProgramShaderType pr =
+      g_sh.shaderLinkProgram("p_main", v, Optional.empty(), f);
+
+    return new R2ShaderLightBatchedUsableType<R2LightBatchedReadableType>()
+    {
+      @Override
+      public void onReceiveBoundGeometryBufferTextures(
+        final JCGLInterfaceGL33Type g,
+        final R2GeometryBufferUsableType gbuffer,
+        final JCGLTextureUnitType unit_albedo,
+        final JCGLTextureUnitType unit_specular,
+        final JCGLTextureUnitType unit_depth,
+        final JCGLTextureUnitType unit_normals)
+      {
+
+      }
+
+      @Override
+      public void onReceiveValues(
+        final JCGLInterfaceGL33Type g,
+        final R2ShaderParametersLightType<R2LightBatchedReadableType> light_parameters)
+      {
+
+      }
+
+      @Override
+      public Map<String, String> environment()
+      {
+        return new HashMap<>();
+      }
+
+      @Override
+      public long shaderID()
+      {
+        return s_id;
+      }
+
+      @Override
+      public Class<R2LightBatchedReadableType> shaderParametersType()
+      {
+        return R2LightBatchedReadableType.class;
+      }
+
+      @Override
+      public JCGLProgramShaderUsableType shaderProgram()
+      {
+        return pr;
+      }
+
+      @Override
+      public void onActivate(final JCGLInterfaceGL33Type g)
+      {
+
+      }
+
+      @Override
+      public void onValidate()
+        throws R2ExceptionShaderValidationFailed
+      {
+
+      }
+
+      @Override
+      public void onDeactivate(final JCGLInterfaceGL33Type g)
+      {
+
+      }
+
+      @Override
+      public boolean isDeleted()
+      {
+        return false;
+      }
+    };
+  }
+
+  public static R2LightBatchedReadableType getLightBatched(
+    final JCGLArrayObjectType a0,
+    final long light_id,
+    final int count)
+  {
+    return new R2LightBatchedReadableType()
+    {
+      @Override
+      public long lightID()
+      {
+        return light_id;
+      }
+
+      @Override
+      public JCGLArrayObjectUsableType arrayObject()
+      {
+        return a0;
+      }
+
+      @Override
+      public int renderCount()
+      {
+        return count;
+      }
+    };
+  }
+
   @SuppressWarnings("unchecked")
   public static R2MatricesObserverValuesType getMatricesObserverValues()
   {
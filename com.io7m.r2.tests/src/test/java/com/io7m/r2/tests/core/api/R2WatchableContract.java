@@ -48,4 +48,99 @@ public abstract class R2WatchableContract
     w.watchableChanged();
     Assert.assertEquals(4L, (long) called.get());
   }
+
+  @Test
+  public final void testAddTwice()
+  {
+    final AtomicInteger called = new AtomicInteger(0);
+    final R2WatchableType<Unit> w = this.getWatchable(Unit.unit());
+
+    final Consumer<Unit> c = x -> called.incrementAndGet();
+    w.watchableAdd(c);
+    w.watchableAdd(c);
+    Assert.assertEquals(2L, (long) called.get());
+    w.watchableChanged();
+    Assert.assertEquals(3L, (long) called.get());
+    w.watchableRemove(c);
+    w.watchableChanged();
+    Assert.assertEquals(3L, (long) called.get());
+  }
+
+  @Test
+  public final void testRemoveDuringNotification()
+  {
+    final AtomicInteger called_0 = new AtomicInteger(0);
+    final AtomicInteger called_1 = new AtomicInteger(0);
+    final R2WatchableType<Unit> w = this.getWatchable(Unit.unit());
+
+    final Consumer<Unit> c1 = x -> called_1.incrementAndGet();
+    final Consumer<Unit> c0 = new Consumer<Unit>()
+    {
+      @Override
+      public void accept(final Unit x)
+      {
+        if (called_0.incrementAndGet() == 2) {
+          w.watchableRemove(this);
+        }
+      }
+    };
+
+    w.watchableAdd(c0);
+    w.watchableAdd(c1);
+    Assert.assertEquals(1L, (long) called_0.get());
+    Assert.assertEquals(1L, (long) called_1.get());
+
+    w.watchableChanged();
+    Assert.assertEquals(2L, (long) called_0.get());
+    Assert.assertEquals(2L, (long) called_1.get());
+
+    w.watchableChanged();
+    Assert.assertEquals(2L, (long) called_0.get());
+    Assert.assertEquals(3L, (long) called_1.get());
+  }
+
+  @Test
+  public final void testNestedNotification()
+  {
+    final AtomicInteger called_0 = new AtomicInteger(0);
+    final AtomicInteger called_1 = new AtomicInteger(0);
+    final AtomicInteger called_2 = new AtomicInteger(0);
+    final R2WatchableType<Unit> w = this.getWatchable(Unit.unit());
+
+    final Consumer<Unit> c0 = new Consumer<Unit>()
+    {
+      @Override
+      public void accept(final Unit x)
+      {
+        if (called_0.incrementAndGet() == 2) {
+          w.watchableRemove(this);
+          w.watchableChanged();
+        }
+      }
+    };
+    final Consumer<Unit> c1 = x -> called_1.incrementAndGet();
+    final Consumer<Unit> c2 = x -> called_2.incrementAndGet();
+
+    w.watchableAdd(c0);
+    w.watchableAdd(c1);
+    w.watchableAdd(c2);
+    Assert.assertEquals(1L, (long) called_0.get());
+    Assert.assertEquals(1L, (long) called_1.get());
+    Assert.assertEquals(1L, (long) called_2.get());
+
+    /*
+     * The nested notification must not disturb the outer notification: Each
+     * remaining watcher is notified exactly once by each of them.
+     */
+
+    w.watchableChanged();
+    Assert.assertEquals(2L, (long) called_0.get());
+    Assert.assertEquals(3L, (long) called_1.get());
+    Assert.assertEquals(3L, (long) called_2.get());
+
+    w.watchableChanged();
+    Assert.assertEquals(2L, (long) called_0.get());
+    Assert.assertEquals(4L, (long) called_1.get());
+    Assert.assertEquals(4L, (long) called_2.get());
+  }
 }
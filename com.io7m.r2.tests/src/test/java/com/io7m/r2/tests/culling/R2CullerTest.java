@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.culling;
+
+import com.io7m.jcanephora.core.JCGLArrayObjectType;
+import com.io7m.jcanephora.core.JCGLArrayObjectUsableType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jregions.core.unparameterized.sizes.AreaSizeL;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.junsigned.ranges.UnsignedRangeInclusiveL;
+import com.io7m.r2.core.api.ids.R2IDPool;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.culling.R2BoundingSphere;
+import com.io7m.r2.culling.R2Culler;
+import com.io7m.r2.culling.R2CullerType;
+import com.io7m.r2.culling.R2CullingBounds;
+import com.io7m.r2.culling.R2CullingLightParameters;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
+import com.io7m.r2.lights.R2LightSingleType;
+import com.io7m.r2.lights.R2LightSphericalSingle;
+import com.io7m.r2.matrices.R2MatricesObserverValuesType;
+import com.io7m.r2.rendering.depth.R2DepthInstances;
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
+import com.io7m.r2.rendering.geometry.R2SceneOpaques;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.R2SceneLights;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupType;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.mask.api.R2MaskInstances;
+import com.io7m.r2.rendering.mask.api.R2MaskInstancesType;
+import com.io7m.r2.rendering.stencil.R2SceneStencils;
+import com.io7m.r2.rendering.stencil.api.R2SceneStencilsMode;
+import com.io7m.r2.rendering.stencil.api.R2SceneStencilsType;
+import com.io7m.r2.shaders.depth.api.R2ShaderDepthSingleUsableType;
+import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
+import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
+import com.io7m.r2.tests.core.R2TestUtilities;
+import com.io7m.r2.unit_spheres.R2UnitSphereUsableType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class R2CullerTest
+{
+  private static final class Scene
+  {
+    private final JCGLInterfaceGL33Type g;
+    private final R2CullingBounds bounds;
+    private final R2CullerType culler;
+    private final R2MatricesObserverValuesType matrices;
+    private final R2InstanceSingleType visible;
+    private final R2InstanceSingleType invisible;
+    private final R2InstanceSingleType unbounded;
+
+    Scene()
+    {
+      this.g = R2TestUtilities.getFakeGL();
+      this.bounds = R2CullingBounds.create();
+      this.culler = R2Culler.create(this.bounds);
+      this.matrices = R2TestUtilities.getMatricesObserverValues();
+
+      final JCGLArrayObjectType a0 = R2TestUtilities.getArrayObject(this.g);
+      this.visible = R2TestUtilities.getInstanceSingle(this.g, a0, 0L);
+      this.invisible = R2TestUtilities.getInstanceSingle(this.g, a0, 1L);
+      this.unbounded = R2TestUtilities.getInstanceSingle(this.g, a0, 2L);
+
+      this.bounds.boundsSetForInstance(
+        this.visible, R2BoundingSphere.of(Vector3D.of(0.0, 0.0, 0.0), 0.5));
+      this.bounds.boundsSetForInstance(
+        this.invisible, R2BoundingSphere.of(Vector3D.of(10.0, 0.0, 0.0), 0.5));
+    }
+  }
+
+  @Test
+  public void testOpaques()
+  {
+    final Scene s = new Scene();
+    final R2ShaderGeometrySingleUsableType<Object> sh =
+      R2TestUtilities.getShaderInstanceSingle(s.g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(s.g, sh, new Object(), 0L);
+
+    final R2SceneOpaquesType source = R2SceneOpaques.create();
+    source.opaquesAddSingleInstanceInGroup(s.visible, m, 2);
+    source.opaquesAddSingleInstanceInGroup(s.invisible, m, 2);
+    source.opaquesAddSingleInstance(s.unbounded, m);
+
+    final R2SceneOpaquesType target = R2SceneOpaques.create();
+    s.culler.cullOpaques(s.matrices, source, target);
+
+    Assert.assertEquals(3L, source.opaquesCount());
+    Assert.assertEquals(2L, target.opaquesCount());
+    Assert.assertEquals(1L, s.culler.cullingInstancesCulled());
+    Assert.assertEquals(2L, s.culler.cullingInstancesDrawn());
+
+    s.culler.cullingStatisticsReset();
+    Assert.assertEquals(0L, s.culler.cullingInstancesCulled());
+    Assert.assertEquals(0L, s.culler.cullingInstancesDrawn());
+  }
+
+  @Test
+  public void testDepths()
+  {
+    final Scene s = new Scene();
+    final R2ShaderDepthSingleUsableType<Object> sh =
+      R2TestUtilities.getShaderDepthSingle(s.g, 0L);
+    final R2MaterialDepthSingleType<Object> m =
+      R2TestUtilities.getMaterialDepth(s.g, sh, new Object(), 0L);
+
+    final R2DepthInstancesType source = R2DepthInstances.create();
+    source.depthsAddSingleInstance(s.visible, m);
+    source.depthsAddSingleInstance(s.invisible, m);
+
+    final R2DepthInstancesType target = R2DepthInstances.create();
+    s.culler.cullDepths(s.matrices, source, target);
+
+    Assert.assertEquals(1L, target.depthsCount());
+    Assert.assertEquals(
+      source.depthsGetFaceCulling(), target.depthsGetFaceCulling());
+    Assert.assertEquals(1L, s.culler.cullingInstancesCulled());
+    Assert.assertEquals(1L, s.culler.cullingInstancesDrawn());
+  }
+
+  @Test
+  public void testStencils()
+  {
+    final Scene s = new Scene();
+
+    final R2SceneStencilsType source = R2SceneStencils.create();
+    source.stencilsSetMode(
+      R2SceneStencilsMode.STENCIL_MODE_INSTANCES_ARE_NEGATIVE);
+    source.stencilsAddSingle(s.visible);
+    source.stencilsAddSingle(s.invisible);
+
+    final R2SceneStencilsType target = R2SceneStencils.create();
+    s.culler.cullStencils(s.matrices, source, target);
+
+    Assert.assertEquals(1L, target.stencilsCount());
+    Assert.assertEquals(source.stencilsGetMode(), target.stencilsGetMode());
+  }
+
+  @Test
+  public void testMask()
+  {
+    final Scene s = new Scene();
+
+    final R2MaskInstancesType source =
+      R2MaskInstances.builder()
+        .addSingles(s.visible)
+        .addSingles(s.invisible)
+        .addSingles(s.unbounded)
+        .build();
+
+    final R2MaskInstancesType target = s.culler.cullMask(s.matrices, source);
+    Assert.assertEquals(2L, (long) target.singles().size());
+    Assert.assertTrue(target.singles().contains(s.visible));
+    Assert.assertTrue(target.singles().contains(s.unbounded));
+    Assert.assertFalse(target.singles().contains(s.invisible));
+  }
+
+  private static R2UnitSphereUsableType sphere(
+    final JCGLArrayObjectUsableType a)
+  {
+    return new R2UnitSphereUsableType()
+    {
+      @Override
+      public JCGLArrayObjectUsableType arrayObject()
+      {
+        return a;
+      }
+
+      @Override
+      public UnsignedRangeInclusiveL byteRange()
+      {
+        return new UnsignedRangeInclusiveL(0L, 0L);
+      }
+
+      @Override
+      public boolean isDeleted()
+      {
+        return false;
+      }
+    };
+  }
+
+  private static R2LightSphericalSingle spherical(
+    final R2UnitSphereUsableType sphere,
+    final R2IDPoolType pool,
+    final double x,
+    final double radius)
+  {
+    final R2LightSphericalSingle l =
+      R2LightSphericalSingle.newLight(sphere, pool);
+    l.setOriginPosition(PVector3D.of(x, 0.0, 0.0));
+    l.setRadius(radius);
+    return l;
+  }
+
+  @Test
+  public void testLights()
+  {
+    final Scene s = new Scene();
+    final R2IDPoolType pool = R2IDPool.newPool();
+    final JCGLArrayObjectType a0 = R2TestUtilities.getArrayObject(s.g);
+    final R2UnitSphereUsableType sphere = sphere(a0);
+
+    final R2ShaderLightSingleUsableType<R2LightSingleType> sh =
+      R2TestUtilities.getShaderLightSingle(s.g, 0L);
+    final R2ShaderLightSingleUsableType<R2LightSingleType> sh_screen =
+      R2TestUtilities.getShaderLightSingle(s.g, 1L);
+    final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> sh_b =
+      R2TestUtilities.getShaderLightBatched(s.g, 2L);
+
+    final R2LightSphericalSingle visible = spherical(sphere, pool, 0.0, 0.5);
+    final R2LightSphericalSingle invisible =
+      spherical(sphere, pool, 10.0, 0.5);
+    final R2LightSphericalSingle clipped = spherical(sphere, pool, 0.0, 0.5);
+
+    final R2SceneLightsType source = R2SceneLights.create();
+    final R2SceneLightsGroupType group = source.lightsGetGroup(1);
+    group.lightGroupAddSingle(visible, sh);
+    group.lightGroupAddSingle(invisible, sh);
+    group.lightGroupAddSingle(
+      R2TestUtilities.getLightSingle(a0, 100L), sh_screen);
+    group.lightGroupAddBatched(
+      R2TestUtilities.getLightBatched(a0, 101L, 8), sh_b);
+    group.lightGroupNewClipGroup(s.visible).clipGroupAddSingle(clipped, sh);
+
+    final R2SceneLightsType target = R2SceneLights.create();
+    s.culler.cullLights(
+      s.matrices,
+      R2CullingLightParameters.of(AreaSizeL.of(100L, 100L), 0.0),
+      source,
+      target);
+
+    Assert.assertEquals(5L, source.lightsCount());
+    Assert.assertEquals(4L, target.lightsCount());
+    Assert.assertEquals(1L, s.culler.cullingLightsCulled());
+    Assert.assertEquals(0L, s.culler.cullingLightsTooSmall());
+    Assert.assertEquals(4L, s.culler.cullingLightsDrawn());
+
+    s.culler.cullingStatisticsReset();
+    Assert.assertEquals(0L, s.culler.cullingLightsCulled());
+    Assert.assertEquals(0L, s.culler.cullingLightsTooSmall());
+    Assert.assertEquals(0L, s.culler.cullingLightsDrawn());
+  }
+
+  @Test
+  public void testLightsScreenCoverage()
+  {
+    final Scene s = new Scene();
+    final R2IDPoolType pool = R2IDPool.newPool();
+    final JCGLArrayObjectType a0 = R2TestUtilities.getArrayObject(s.g);
+    final R2UnitSphereUsableType sphere = sphere(a0);
+
+    final R2ShaderLightSingleUsableType<R2LightSingleType> sh =
+      R2TestUtilities.getShaderLightSingle(s.g, 0L);
+
+    final R2LightSphericalSingle large = spherical(sphere, pool, 0.0, 0.5);
+    final R2LightSphericalSingle small = spherical(sphere, pool, 0.0, 0.05);
+
+    final R2SceneLightsType source = R2SceneLights.create();
+    final R2SceneLightsGroupType group = source.lightsGetGroup(1);
+    group.lightGroupAddSingle(large, sh);
+    group.lightGroupAddSingle(small, sh);
+
+    /*
+     * With identity matrices, a sphere of radius 0.05 covers a circle of
+     * radius 2.5 pixels on a 100x100 viewport, and is therefore rejected.
+     */
+
+    final R2SceneLightsType target = R2SceneLights.create();
+    s.culler.cullLights(
+      s.matrices,
+      R2CullingLightParameters.of(AreaSizeL.of(100L, 100L), 100.0),
+      source,
+      target);
+
+    Assert.assertEquals(1L, target.lightsCount());
+    Assert.assertEquals(0L, s.culler.cullingLightsCulled());
+    Assert.assertEquals(1L, s.culler.cullingLightsTooSmall());
+    Assert.assertEquals(1L, s.culler.cullingLightsDrawn());
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.culling;
+
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.culling.R2BoundingSphere;
+import com.io7m.r2.culling.R2CullingFrustum;
+import com.io7m.r2.projections.R2ProjectionFOV;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2CullingFrustumTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static R2CullingFrustum identityFrustum()
+  {
+    final R2CullingFrustum f = R2CullingFrustum.create();
+    f.updateFromMatrices(PMatrices4x4D.identity(), PMatrices4x4D.identity());
+    return f;
+  }
+
+  @Test
+  public void testFreshAcceptsEverything()
+  {
+    final R2CullingFrustum f = R2CullingFrustum.create();
+    Assert.assertTrue(f.intersectsSphere(1000.0, 1000.0, 1000.0, 0.0));
+    Assert.assertTrue(f.intersectsBox(
+      1000.0, 1000.0, 1000.0, 1001.0, 1001.0, 1001.0));
+  }
+
+  @Test
+  public void testSphereInside()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertTrue(f.intersectsSphere(0.0, 0.0, 0.0, 0.5));
+    Assert.assertTrue(f.intersectsSphere(
+      R2BoundingSphere.of(Vector3D.of(0.5, 0.5, 0.5), 0.1)));
+  }
+
+  @Test
+  public void testSphereOutside()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertFalse(f.intersectsSphere(3.0, 0.0, 0.0, 0.5));
+    Assert.assertFalse(f.intersectsSphere(-3.0, 0.0, 0.0, 0.5));
+    Assert.assertFalse(f.intersectsSphere(0.0, 3.0, 0.0, 0.5));
+    Assert.assertFalse(f.intersectsSphere(0.0, -3.0, 0.0, 0.5));
+    Assert.assertFalse(f.intersectsSphere(0.0, 0.0, 3.0, 0.5));
+    Assert.assertFalse(f.intersectsSphere(0.0, 0.0, -3.0, 0.5));
+  }
+
+  @Test
+  public void testSphereStraddling()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertTrue(f.intersectsSphere(1.5, 0.0, 0.0, 1.0));
+    Assert.assertTrue(f.intersectsSphere(0.0, 0.0, -1.5, 1.0));
+  }
+
+  @Test
+  public void testBoxInside()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertTrue(f.intersectsBox(-0.5, -0.5, -0.5, 0.5, 0.5, 0.5));
+  }
+
+  @Test
+  public void testBoxContainsFrustum()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertTrue(f.intersectsBox(-10.0, -10.0, -10.0, 10.0, 10.0, 10.0));
+  }
+
+  @Test
+  public void testBoxOutside()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertFalse(f.intersectsBox(2.0, -0.5, -0.5, 3.0, 0.5, 0.5));
+    Assert.assertFalse(f.intersectsBox(-0.5, -3.0, -0.5, 0.5, -2.0, 0.5));
+  }
+
+  @Test
+  public void testSphereScreenAreaFresh()
+  {
+    final R2CullingFrustum f = R2CullingFrustum.create();
+    Assert.assertEquals(
+      Double.POSITIVE_INFINITY,
+      f.sphereScreenArea(0.0, 0.0, 0.0, 1.0, 100.0, 100.0),
+      0.0);
+  }
+
+  @Test
+  public void testSphereScreenAreaOrthographic()
+  {
+    final R2CullingFrustum f = identityFrustum();
+    Assert.assertEquals(
+      Math.PI * 25.0 * 25.0,
+      f.sphereScreenArea(0.0, 0.0, 0.0, 0.5, 100.0, 100.0),
+      0.000001);
+    Assert.assertEquals(
+      Math.PI * 25.0 * 25.0,
+      f.sphereScreenArea(0.0, 0.0, 0.5, 0.5, 100.0, 100.0),
+      0.000001);
+  }
+
+  @Test
+  public void testSphereScreenAreaPerspective()
+  {
+    final R2ProjectionFOV p = R2ProjectionFOV.createWith(
+      Math.toRadians(90.0), 1.0, 0.1, 100.0);
+    final R2CullingFrustum f = R2CullingFrustum.create();
+    f.updateFromMatrices(PMatrices4x4D.identity(), p.projectionMakeMatrix());
+
+    final double near =
+      f.sphereScreenArea(0.0, 0.0, -10.0, 1.0, 100.0, 100.0);
+    final double far =
+      f.sphereScreenArea(0.0, 0.0, -20.0, 1.0, 100.0, 100.0);
+    Assert.assertEquals(near, far * 4.0, 0.000001);
+
+    Assert.assertEquals(
+      Double.POSITIVE_INFINITY,
+      f.sphereScreenArea(0.0, 0.0, -0.5, 1.0, 100.0, 100.0),
+      0.0);
+  }
+
+  @Test
+  public void testSphereNegativeRadius()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2BoundingSphere.of(Vector3D.of(0.0, 0.0, 0.0), -1.0);
+  }
+}
@@ -41,6 +41,7 @@ import com.io7m.r2.images.api.R2ImageBufferDescriptionScaler;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolType;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolUsableType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
@@ -85,13 +86,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
       R2ImageBufferDescription, R2ImageBufferUsableType> rtp =
       R2ImageBufferPool.newPool(g, Long.MAX_VALUE, Long.MAX_VALUE);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     f.delete(g);
@@ -132,13 +136,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -215,13 +222,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -300,13 +310,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -383,13 +396,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -466,13 +482,16 @@ public abstract class R2FilterBilateralBlurDepthAwareContract extends
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBilateralBlurDepthAwareParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBilateralBlurDepthAware.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBilateralBlurDepthAware.newFilter(
+        sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -41,6 +41,7 @@ import com.io7m.r2.images.api.R2ImageBufferDescriptionScaler;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
 import com.io7m.r2.tests.R2JCGLContract;
@@ -81,13 +82,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
       R2ImageBufferDescription, R2ImageBufferUsableType> rtp =
       R2ImageBufferPool.newPool(g, Long.MAX_VALUE, Long.MAX_VALUE);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     f.delete(g);
@@ -128,13 +131,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -209,13 +214,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -292,13 +299,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -373,13 +382,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -454,13 +465,15 @@ public abstract class R2FilterBoxBlurContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> f =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -39,6 +39,7 @@ import com.io7m.r2.images.R2ImageBuffer;
 import com.io7m.r2.images.api.R2ImageBufferDescription;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
 import com.io7m.r2.tests.R2JCGLContract;
 import com.io7m.r2.tests.ShaderPreprocessing;
@@ -75,8 +76,10 @@ public abstract class R2FilterCompositorContract extends R2JCGLContract
     final R2UnitQuadType quad =
       R2UnitQuad.newUnitQuad(g);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterCompositorParameters> f =
-      R2FilterCompositor.newFilter(sources, td, g, id, quad);
+      R2FilterCompositor.newFilter(sources, td, g, states, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -123,8 +126,10 @@ public abstract class R2FilterCompositorContract extends R2JCGLContract
       tc,
       R2ImageBufferDescription.of(area, empty()));
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterCompositorParameters> f =
-      R2FilterCompositor.newFilter(sources, td, g, id, quad);
+      R2FilterCompositor.newFilter(sources, td, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
@@ -43,6 +43,7 @@ import com.io7m.r2.images.api.R2ImageBufferDescription;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.targets.R2RenderTargetPoolType;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
 import com.io7m.r2.tests.R2JCGLContract;
@@ -86,16 +87,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
       R2ImageBufferDescription, R2ImageBufferUsableType> rtp =
       R2ImageBufferPool.newPool(g, Long.MAX_VALUE, Long.MAX_VALUE);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     Assert.assertFalse(fblur.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -138,16 +141,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -204,16 +209,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -277,16 +284,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -350,16 +359,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
@@ -426,16 +437,18 @@ public abstract class R2FilterEmissionContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<
       R2FilterBoxBlurParameters<
         R2ImageBufferDescription,
         R2ImageBufferUsableType,
         R2ImageBufferDescription,
         R2ImageBufferUsableType>> fblur =
-      R2FilterBoxBlur.newFilter(sources, g, td, rtp, id, quad);
+      R2FilterBoxBlur.newFilter(sources, g, states, td, rtp, id, quad);
 
     final R2FilterType<R2FilterEmissionParameters> f =
-      R2FilterEmission.newFilter(g, sources, id, fblur, rtp, quad);
+      R2FilterEmission.newFilter(g, states, sources, id, fblur, rtp, quad);
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
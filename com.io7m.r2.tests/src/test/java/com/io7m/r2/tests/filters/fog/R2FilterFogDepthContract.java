@@ -37,6 +37,7 @@ import com.io7m.r2.filters.fog.R2FilterFogDepth;
 import com.io7m.r2.filters.fog.api.R2FilterFogParameters;
 import com.io7m.r2.filters.fog.api.R2FilterFogProgression;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
 import com.io7m.r2.tests.R2JCGLContract;
 import com.io7m.r2.tests.ShaderPreprocessing;
@@ -68,8 +69,10 @@ public abstract class R2FilterFogDepthContract extends R2JCGLContract
     final R2UnitQuadType quad =
       R2UnitQuad.newUnitQuad(g);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFogParameters> f =
-      R2FilterFogDepth.newFilter(g, sources, id, quad);
+      R2FilterFogDepth.newFilter(g, states, sources, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     f.delete(g);
@@ -107,8 +110,10 @@ public abstract class R2FilterFogDepthContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFogParameters> f =
-      R2FilterFogDepth.newFilter(g, sources, id, quad);
+      R2FilterFogDepth.newFilter(g, states, sources, id, quad);
 
     Assert.assertFalse(g_fb.framebufferReadAnyIsBound());
     Assert.assertFalse(g_fb.framebufferDrawAnyIsBound());
@@ -165,8 +170,10 @@ public abstract class R2FilterFogDepthContract extends R2JCGLContract
     final JCGLProfilingContextType pro_root =
       pro_frame.childContext("main");
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFogParameters> f =
-      R2FilterFogDepth.newFilter(g, sources, id, quad);
+      R2FilterFogDepth.newFilter(g, states, sources, id, quad);
 
     Assert.assertFalse(g_fb.framebufferReadAnyIsBound());
     Assert.assertFalse(g_fb.framebufferDrawAnyIsBound());
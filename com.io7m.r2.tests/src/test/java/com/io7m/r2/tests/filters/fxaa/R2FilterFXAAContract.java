@@ -37,6 +37,7 @@ import com.io7m.r2.images.R2ImageBuffer;
 import com.io7m.r2.images.api.R2ImageBufferDescription;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.shaders.api.R2ShaderPreprocessingEnvironmentType;
 import com.io7m.r2.tests.R2JCGLContract;
 import com.io7m.r2.tests.ShaderPreprocessing;
@@ -64,8 +65,10 @@ public abstract class R2FilterFXAAContract extends R2JCGLContract
     final R2UnitQuadType quad =
       R2UnitQuad.newUnitQuad(g);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFXAAParameters> f =
-      R2FilterFXAA.newFilter(g, sources, id, quad);
+      R2FilterFXAA.newFilter(g, states, sources, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -106,8 +109,10 @@ public abstract class R2FilterFXAAContract extends R2JCGLContract
 
     final AreaSizeL area = AreaSizeL.of(128L, 128L);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFXAAParameters> f =
-      R2FilterFXAA.newFilter(g, sources, id, quad);
+      R2FilterFXAA.newFilter(g, states, sources, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
@@ -162,8 +167,10 @@ public abstract class R2FilterFXAAContract extends R2JCGLContract
     final R2ImageBufferType ib = R2ImageBuffer.create(
       g_fb, g_t, tc, R2ImageBufferDescription.of(area, empty()));
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterFXAAParameters> f =
-      R2FilterFXAA.newFilter(g, sources, id, quad);
+      R2FilterFXAA.newFilter(g, states, sources, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
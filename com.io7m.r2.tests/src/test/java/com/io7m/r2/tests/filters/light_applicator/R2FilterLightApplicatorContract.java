@@ -42,6 +42,7 @@ import com.io7m.r2.images.api.R2ImageBufferDescription;
 import com.io7m.r2.images.api.R2ImageBufferType;
 import com.io7m.r2.images.api.R2ImageBufferUsableType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.api.R2DepthPrecision;
 import com.io7m.r2.rendering.geometry.R2GeometryBuffer;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferComponents;
@@ -80,8 +81,10 @@ public abstract class R2FilterLightApplicatorContract extends R2JCGLContract
       R2ImageBufferDescription, R2ImageBufferUsableType> rtp =
       R2ImageBufferPool.newPool(g, Long.MAX_VALUE, Long.MAX_VALUE);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterLightApplicatorParameters> f =
-      R2FilterLightApplicator.newFilter(sources, g, id, quad);
+      R2FilterLightApplicator.newFilter(sources, g, states, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -132,8 +135,10 @@ public abstract class R2FilterLightApplicatorContract extends R2JCGLContract
     final R2GeometryBufferType gbuffer =
       R2GeometryBuffer.create(g_fb, g_t, tc, desc);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterLightApplicatorParameters> f =
-      R2FilterLightApplicator.newFilter(sources, g, id, quad);
+      R2FilterLightApplicator.newFilter(sources, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
@@ -201,8 +206,10 @@ public abstract class R2FilterLightApplicatorContract extends R2JCGLContract
     final R2GeometryBufferType gbuffer =
       R2GeometryBuffer.create(g_fb, g_t, tc, desc);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterLightApplicatorParameters> f =
-      R2FilterLightApplicator.newFilter(sources, g, id, quad);
+      R2FilterLightApplicator.newFilter(sources, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
@@ -273,8 +280,10 @@ public abstract class R2FilterLightApplicatorContract extends R2JCGLContract
     final R2GeometryBufferType gbuffer =
       R2GeometryBuffer.create(g_fb, g_t, tc, desc);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterLightApplicatorParameters> f =
-      R2FilterLightApplicator.newFilter(sources, g, id, quad);
+      R2FilterLightApplicator.newFilter(sources, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
@@ -344,8 +353,10 @@ public abstract class R2FilterLightApplicatorContract extends R2JCGLContract
     final R2GeometryBufferType gbuffer =
       R2GeometryBuffer.create(g_fb, g_t, tc, desc);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterLightApplicatorParameters> f =
-      R2FilterLightApplicator.newFilter(sources, g, id, quad);
+      R2FilterLightApplicator.newFilter(sources, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
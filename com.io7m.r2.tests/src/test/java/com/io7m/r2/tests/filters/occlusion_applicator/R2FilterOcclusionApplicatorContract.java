@@ -34,6 +34,7 @@ import com.io7m.r2.filters.api.R2FilterType;
 import com.io7m.r2.filters.occlusion_applicator.R2FilterOcclusionApplicator;
 import com.io7m.r2.filters.occlusion_applicator.api.R2FilterOcclusionApplicatorParameters;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.lights.R2LightBuffers;
 import com.io7m.r2.rendering.lights.api.R2LightBufferComponents;
 import com.io7m.r2.rendering.lights.api.R2LightBufferDescription;
@@ -73,8 +74,10 @@ public abstract class R2FilterOcclusionApplicatorContract extends R2JCGLContract
     final R2UnitQuadType quad =
       R2UnitQuad.newUnitQuad(g);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterOcclusionApplicatorParameters> f =
-      R2FilterOcclusionApplicator.newFilter(sources, td, g, id, quad);
+      R2FilterOcclusionApplicator.newFilter(sources, td, g, states, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -123,8 +126,10 @@ public abstract class R2FilterOcclusionApplicatorContract extends R2JCGLContract
         R2LightBufferDescription.of(
           area, R2LightBufferComponents.R2_LIGHT_BUFFER_DIFFUSE_AND_SPECULAR));
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterOcclusionApplicatorParameters> f =
-      R2FilterOcclusionApplicator.newFilter(sources, td, g, id, quad);
+      R2FilterOcclusionApplicator.newFilter(sources, td, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
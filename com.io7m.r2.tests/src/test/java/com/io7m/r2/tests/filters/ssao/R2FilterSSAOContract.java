@@ -39,6 +39,7 @@ import com.io7m.r2.filters.ssao.api.R2AmbientOcclusionBufferType;
 import com.io7m.r2.filters.ssao.api.R2FilterSSAOParameters;
 import com.io7m.r2.filters.ssao.api.R2SSAOKernelType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.geometry.R2GeometryBuffer;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferComponents;
 import com.io7m.r2.rendering.geometry.api.R2GeometryBufferDescription;
@@ -70,8 +71,10 @@ public abstract class R2FilterSSAOContract extends R2JCGLContract
     final R2UnitQuadType quad =
       R2UnitQuad.newUnitQuad(g);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterSSAOParameters> f =
-      R2FilterSSAO.newFilter(sources, g, id, quad);
+      R2FilterSSAO.newFilter(sources, g, states, id, quad);
 
     Assert.assertFalse(f.isDeleted());
     Assert.assertFalse(f.isDeleted());
@@ -129,8 +132,10 @@ public abstract class R2FilterSSAOContract extends R2JCGLContract
 
     final R2SSAOKernelType k = R2SSAOKernel.newKernel(64);
 
+    final R2RenderStateTracker states = R2RenderStateTracker.create();
+
     final R2FilterType<R2FilterSSAOParameters> f =
-      R2FilterSSAO.newFilter(sources, g, id, quad);
+      R2FilterSSAO.newFilter(sources, g, states, id, quad);
 
     g_fb.framebufferDrawUnbind();
     g_fb.framebufferReadUnbind();
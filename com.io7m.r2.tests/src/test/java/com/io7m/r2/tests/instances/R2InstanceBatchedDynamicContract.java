@@ -24,6 +24,8 @@ import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.instances.R2ExceptionInstanceBatchIsFull;
 import com.io7m.r2.instances.R2InstanceBatchedDynamic;
 import com.io7m.r2.instances.R2InstanceBatchedDynamicType;
+import com.io7m.r2.instances.R2InstanceStreamingBuffer;
+import com.io7m.r2.instances.R2InstanceStreamingBufferType;
 import com.io7m.r2.meshes.defaults.R2UnitQuad;
 import com.io7m.r2.tests.R2JCGLContract;
 import com.io7m.r2.transforms.R2TransformT;
@@ -100,4 +102,154 @@ public abstract class R2InstanceBatchedDynamicContract extends R2JCGLContract
     i.update(g33);
     Assert.assertFalse(i.updateRequired());
   }
+
+  @Test
+  public void testUpdateUploadsDirtyRanges()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    final R2IDPoolType id_pool = R2IDPool.newPool();
+    final R2UnitQuadType quad = R2UnitQuad.newUnitQuad(g33);
+
+    final R2InstanceBatchedDynamicType i =
+      R2InstanceBatchedDynamic.create(
+        id_pool,
+        g33.arrayBuffers(),
+        g33.arrayObjects(),
+        quad.arrayObject(),
+        64);
+
+    Assert.assertEquals(0L, i.uploadedBytes());
+    i.update(g33);
+    Assert.assertEquals(0L, i.uploadedBytes());
+
+    final R2TransformT t0 = R2TransformT.create();
+    final R2TransformT t1 = R2TransformT.create();
+    final int id0 = i.enableInstance(t0);
+    final int id1 = i.enableInstance(t1);
+    Assert.assertEquals(0, id0);
+    Assert.assertEquals(1, id1);
+
+    i.update(g33);
+    Assert.assertEquals(2L * 64L, i.uploadedBytes());
+
+    t1.setTranslation(PVector3D.of(23.0, 23.0, 23.0));
+    i.update(g33);
+    Assert.assertEquals(64L, i.uploadedBytes());
+
+    i.update(g33);
+    Assert.assertEquals(0L, i.uploadedBytes());
+
+    for (int index = 2; index < 64; ++index) {
+      i.enableInstance(R2TransformT.create());
+    }
+
+    i.update(g33);
+    Assert.assertEquals(64L * 64L, i.uploadedBytes());
+  }
+
+  @Test
+  public void testDisableCompacts()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    final R2IDPoolType id_pool = R2IDPool.newPool();
+    final R2UnitQuadType quad = R2UnitQuad.newUnitQuad(g33);
+
+    final R2InstanceBatchedDynamicType i =
+      R2InstanceBatchedDynamic.create(
+        id_pool,
+        g33.arrayBuffers(),
+        g33.arrayObjects(),
+        quad.arrayObject(),
+        8);
+
+    Assert.assertEquals(0, i.renderCount());
+
+    final int id0 = i.enableInstance(R2TransformT.create());
+    final int id1 = i.enableInstance(R2TransformT.create());
+    final int id2 = i.enableInstance(R2TransformT.create());
+    Assert.assertEquals(3, i.enabledCount());
+    Assert.assertEquals(3, i.renderCount());
+    i.update(g33);
+
+    i.disableInstance(id0);
+    Assert.assertEquals(2, i.enabledCount());
+    Assert.assertEquals(2, i.renderCount());
+    Assert.assertTrue(i.updateRequired());
+
+    i.update(g33);
+    Assert.assertEquals(64L, i.uploadedBytes());
+
+    i.disableInstance(id0);
+    Assert.assertEquals(2, i.enabledCount());
+
+    i.disableInstance(id2);
+    Assert.assertEquals(1, i.enabledCount());
+    Assert.assertEquals(1, i.renderCount());
+
+    final int id3 = i.enableInstance(R2TransformT.create());
+    Assert.assertNotEquals(id1, id3);
+    Assert.assertEquals(2, i.renderCount());
+
+    i.disableAll();
+    Assert.assertEquals(0, i.enabledCount());
+    Assert.assertEquals(0, i.renderCount());
+  }
+
+  @Test
+  public void testStreamedRegionsCatchUp()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    final R2IDPoolType id_pool = R2IDPool.newPool();
+    final R2UnitQuadType quad = R2UnitQuad.newUnitQuad(g33);
+
+    final R2InstanceStreamingBufferType stream =
+      R2InstanceStreamingBuffer.create(g33.arrayBuffers(), 1024L, 3);
+
+    final R2InstanceBatchedDynamicType i =
+      R2InstanceBatchedDynamic.createStreamed(
+        id_pool,
+        stream,
+        g33.arrayObjects(),
+        quad.arrayObject(),
+        8);
+
+    Assert.assertEquals(8L * 64L, stream.allocatedBytes());
+
+    final R2TransformT t0 = R2TransformT.create();
+    final R2TransformT t1 = R2TransformT.create();
+    i.enableInstance(t0);
+    i.enableInstance(t1);
+
+    i.update(g33);
+    Assert.assertEquals(2L * 64L, i.uploadedBytes());
+
+    /*
+     * Each region receives every change made since it was last written.
+     */
+
+    stream.frameAdvance();
+    t1.setTranslation(PVector3D.of(23.0, 23.0, 23.0));
+    i.update(g33);
+    Assert.assertEquals(2L * 64L, i.uploadedBytes());
+
+    stream.frameAdvance();
+    i.update(g33);
+    Assert.assertEquals(2L * 64L, i.uploadedBytes());
+
+    stream.frameAdvance();
+    i.update(g33);
+    Assert.assertEquals(64L, i.uploadedBytes());
+
+    stream.frameAdvance();
+    i.update(g33);
+    Assert.assertEquals(0L, i.uploadedBytes());
+
+    i.delete(g33);
+    Assert.assertTrue(i.isDeleted());
+    Assert.assertEquals(0L, stream.allocatedBytes());
+    Assert.assertFalse(stream.isDeleted());
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.instances;
+
+import com.io7m.jaffirm.core.PreconditionViolationException;
+import com.io7m.jcanephora.core.api.JCGLContextType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.instances.R2ExceptionInstanceStreamingBufferIsFull;
+import com.io7m.r2.instances.R2InstanceStreamingBuffer;
+import com.io7m.r2.instances.R2InstanceStreamingBufferType;
+import com.io7m.r2.tests.R2JCGLContract;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public abstract class R2InstanceStreamingBufferContract extends R2JCGLContract
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private R2InstanceStreamingBufferType newStream(
+    final long size,
+    final int regions)
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    return R2InstanceStreamingBuffer.create(g33.arrayBuffers(), size, regions);
+  }
+
+  @Test
+  public void testRegions()
+  {
+    final R2InstanceStreamingBufferType s = this.newStream(100L, 3);
+
+    Assert.assertEquals(3, s.regionCount());
+    Assert.assertEquals(112L, s.regionSize());
+    Assert.assertEquals(3L * 112L, s.arrayBuffer().byteRange().getInterval());
+    Assert.assertEquals(0L, s.regionOffset(0));
+    Assert.assertEquals(112L, s.regionOffset(1));
+    Assert.assertEquals(224L, s.regionOffset(2));
+
+    Assert.assertEquals(0, s.regionCurrent());
+    s.frameAdvance();
+    Assert.assertEquals(1, s.regionCurrent());
+    s.frameAdvance();
+    Assert.assertEquals(2, s.regionCurrent());
+    s.frameAdvance();
+    Assert.assertEquals(0, s.regionCurrent());
+  }
+
+  @Test
+  public void testAllocateReleaseCoalesces()
+  {
+    final R2InstanceStreamingBufferType s = this.newStream(64L, 1);
+
+    final long a = s.allocate(16L);
+    final long b = s.allocate(1L);
+    final long c = s.allocate(32L);
+    Assert.assertEquals(0L, a);
+    Assert.assertEquals(16L, b);
+    Assert.assertEquals(32L, c);
+    Assert.assertEquals(64L, s.allocatedBytes());
+
+    s.release(a, 16L);
+    s.release(c, 32L);
+    s.release(b, 1L);
+    Assert.assertEquals(0L, s.allocatedBytes());
+    Assert.assertEquals(0L, s.allocate(64L));
+  }
+
+  @Test
+  public void testAllocateFirstFit()
+  {
+    final R2InstanceStreamingBufferType s = this.newStream(64L, 1);
+
+    final long a = s.allocate(16L);
+    s.allocate(16L);
+    s.release(a, 16L);
+    Assert.assertEquals(0L, s.allocate(16L));
+    Assert.assertEquals(32L, s.allocate(32L));
+  }
+
+  @Test
+  public void testAllocateFull()
+  {
+    final R2InstanceStreamingBufferType s = this.newStream(64L, 3);
+    s.allocate(48L);
+
+    this.expected.expect(R2ExceptionInstanceStreamingBufferIsFull.class);
+    s.allocate(32L);
+  }
+
+  @Test
+  public void testReleaseTwice()
+  {
+    final R2InstanceStreamingBufferType s = this.newStream(64L, 1);
+    final long a = s.allocate(16L);
+    s.release(a, 16L);
+
+    this.expected.expect(PreconditionViolationException.class);
+    s.release(a, 16L);
+  }
+}
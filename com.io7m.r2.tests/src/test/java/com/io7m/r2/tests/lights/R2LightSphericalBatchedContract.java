@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.lights;
+
+import com.io7m.jcanephora.core.api.JCGLContextType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.core.api.ids.R2IDPool;
+import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.lights.R2ExceptionLightBatchIsFull;
+import com.io7m.r2.lights.R2LightSphericalBatched;
+import com.io7m.r2.lights.R2LightSphericalBatchedType;
+import com.io7m.r2.lights.R2LightSphericalSingle;
+import com.io7m.r2.meshes.defaults.R2UnitSphere;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaderType;
+import com.io7m.r2.tests.R2JCGLContract;
+import com.io7m.r2.unit_spheres.R2UnitSphereType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public abstract class R2LightSphericalBatchedContract extends R2JCGLContract
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  protected abstract R2MeshLoaderType loader();
+
+  @Test
+  public final void testTooMany()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    final R2IDPoolType pool = R2IDPool.newPool();
+    final R2UnitSphereType sphere =
+      R2UnitSphere.newUnitSphere8(this.loader(), g33);
+
+    final R2LightSphericalBatchedType b =
+      R2LightSphericalBatched.create(
+        pool, g33.arrayBuffers(), g33.arrayObjects(), sphere, 4);
+
+    Assert.assertEquals(4L, (long) b.maximumSize());
+    for (int index = 0; index < 4; ++index) {
+      b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    }
+
+    this.expected.expect(R2ExceptionLightBatchIsFull.class);
+    b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+  }
+
+  @Test
+  public final void testEnableDisable()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+    final R2IDPoolType pool = R2IDPool.newPool();
+    final R2UnitSphereType sphere =
+      R2UnitSphere.newUnitSphere8(this.loader(), g33);
+
+    final R2LightSphericalBatchedType b =
+      R2LightSphericalBatched.create(
+        pool, g33.arrayBuffers(), g33.arrayObjects(), sphere, 4);
+
+    final int h0 = b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    final int h1 = b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    final int h2 = b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    Assert.assertEquals(3L, (long) b.enabledCount());
+    Assert.assertEquals(3L, (long) b.renderCount());
+
+    b.disableLight(h0);
+    Assert.assertEquals(2L, (long) b.enabledCount());
+    b.disableLight(h0);
+    Assert.assertEquals(2L, (long) b.enabledCount());
+
+    b.update(g33);
+    Assert.assertEquals(2L * 48L, b.uploadedBytes());
+
+    b.disableLight(h2);
+    b.disableLight(h1);
+    Assert.assertEquals(0L, (long) b.enabledCount());
+
+    b.update(g33);
+    Assert.assertEquals(0L, b.uploadedBytes());
+
+    b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    b.enableLight(R2LightSphericalSingle.newLight(sphere, pool));
+    b.disableAll();
+    Assert.assertEquals(0L, (long) b.enabledCount());
+
+    Assert.assertFalse(b.isDeleted());
+    b.delete(g33);
+    Assert.assertTrue(b.isDeleted());
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.lights.shadows;
+
+import com.io7m.jcanephora.core.JCGLViewMatrices;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.lights.shadows.R2ShadowCascades;
+import com.io7m.r2.projections.R2ProjectionFOV;
+import com.io7m.r2.projections.R2ProjectionReadableType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class R2ShadowCascadesTest
+{
+  private static final double EPSILON = 0.000001;
+
+  private static PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view(
+    final Vector3D eye,
+    final Vector3D target)
+  {
+    return JCGLViewMatrices.lookAtRHP(
+      eye, target, Vector3D.of(0.0, 1.0, 0.0));
+  }
+
+  private static R2ProjectionFOV projection()
+  {
+    return R2ProjectionFOV.createWith(
+      (float) Math.toRadians(90.0), 1.5f, 0.1f, 100.0f);
+  }
+
+  private static void checkContained(
+    final R2ShadowCascades c,
+    final int index,
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view,
+    final R2ProjectionReadableType p)
+  {
+    final PMatrix4x4D<R2SpaceEyeType, R2SpaceWorldType> inverse =
+      PMatrices4x4D.invert(view).get();
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> light =
+      c.cascadeView(index);
+    final R2ProjectionReadableType lp = c.cascadeProjection(index);
+
+    final double near = p.projectionGetZNear();
+    final double far = p.projectionGetZFar();
+    final double[] distances = {
+      c.cascadeSplitNear(index), c.cascadeSplitFar(index)};
+
+    for (final double d : distances) {
+      final double t = (d - near) / (far - near);
+      final double x_min = p.projectionGetNearXMinimum()
+        + ((p.projectionGetFarXMinimum() - p.projectionGetNearXMinimum()) * t);
+      final double x_max = p.projectionGetNearXMaximum()
+        + ((p.projectionGetFarXMaximum() - p.projectionGetNearXMaximum()) * t);
+      final double y_min = p.projectionGetNearYMinimum()
+        + ((p.projectionGetFarYMinimum() - p.projectionGetNearYMinimum()) * t);
+      final double y_max = p.projectionGetNearYMaximum()
+        + ((p.projectionGetFarYMaximum() - p.projectionGetNearYMaximum()) * t);
+
+      final double[][] corners = {
+        {x_min, y_min}, {x_max, y_min}, {x_min, y_max}, {x_max, y_max}};
+
+      for (final double[] corner : corners) {
+        final PVector4D<R2SpaceWorldType> w =
+          PMatrices4x4D.multiplyVectorPost(
+            inverse, PVector4D.of(corner[0], corner[1], -d, 1.0));
+        final PVector4D<R2SpaceEyeType> e =
+          PMatrices4x4D.multiplyVectorPost(light, w);
+
+        Assert.assertTrue(e.x() >= lp.projectionGetNearXMinimum() - EPSILON);
+        Assert.assertTrue(e.x() <= lp.projectionGetNearXMaximum() + EPSILON);
+        Assert.assertTrue(e.y() >= lp.projectionGetNearYMinimum() - EPSILON);
+        Assert.assertTrue(e.y() <= lp.projectionGetNearYMaximum() + EPSILON);
+        Assert.assertTrue(-e.z() >= lp.projectionGetZNear());
+        Assert.assertTrue(-e.z() <= lp.projectionGetZFar());
+      }
+    }
+  }
+
+  @Test
+  public void testSplitsUniform()
+  {
+    Assert.assertEquals(
+      1.0, R2ShadowCascades.splitDistance(1.0, 101.0, 0, 4, 0.0), EPSILON);
+    Assert.assertEquals(
+      26.0, R2ShadowCascades.splitDistance(1.0, 101.0, 1, 4, 0.0), EPSILON);
+    Assert.assertEquals(
+      101.0, R2ShadowCascades.splitDistance(1.0, 101.0, 4, 4, 0.0), EPSILON);
+  }
+
+  @Test
+  public void testSplitsLogarithmic()
+  {
+    Assert.assertEquals(
+      1.0, R2ShadowCascades.splitDistance(1.0, 100.0, 0, 2, 1.0), EPSILON);
+    Assert.assertEquals(
+      10.0, R2ShadowCascades.splitDistance(1.0, 100.0, 1, 2, 1.0), EPSILON);
+    Assert.assertEquals(
+      100.0, R2ShadowCascades.splitDistance(1.0, 100.0, 2, 2, 1.0), EPSILON);
+  }
+
+  @Test
+  public void testCascadesCoverFrustum()
+  {
+    final R2ShadowCascades c = R2ShadowCascades.create(4, 1024L);
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> v =
+      view(Vector3D.of(3.0, 2.0, 10.0), Vector3D.of(0.0, 0.0, 0.0));
+    final R2ProjectionFOV p = projection();
+
+    c.update(v, p, PVector3D.of(-1.0, -1.0, -0.5), 0.75, 10.0);
+
+    Assert.assertEquals(
+      p.projectionGetZNear(), c.cascadeSplitNear(0), EPSILON);
+    Assert.assertEquals(
+      p.projectionGetZFar(), c.cascadeSplitFar(3), EPSILON);
+
+    for (int index = 0; index < c.cascadeCount(); ++index) {
+      Assert.assertTrue(
+        c.cascadeSplitNear(index) < c.cascadeSplitFar(index));
+      if (index > 0) {
+        Assert.assertEquals(
+          c.cascadeSplitFar(index - 1), c.cascadeSplitNear(index), EPSILON);
+        Assert.assertTrue(
+          c.cascadeRadius(index) > c.cascadeRadius(index - 1));
+      }
+      checkContained(c, index, v, p);
+    }
+  }
+
+  @Test
+  public void testCascadesStraightDown()
+  {
+    final R2ShadowCascades c = R2ShadowCascades.create(2, 512L);
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> v =
+      view(Vector3D.of(0.0, 2.0, 10.0), Vector3D.of(0.0, 2.0, 0.0));
+    final R2ProjectionFOV p = projection();
+
+    c.update(v, p, PVector3D.of(0.0, -1.0, 0.0), 0.5, 0.0);
+
+    for (int index = 0; index < c.cascadeCount(); ++index) {
+      checkContained(c, index, v, p);
+    }
+  }
+
+  @Test
+  public void testCascadesShareDepthRange()
+  {
+    final R2ShadowCascades c = R2ShadowCascades.create(4, 1024L);
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> v =
+      view(Vector3D.of(3.0, 2.0, 10.0), Vector3D.of(0.0, 0.0, 0.0));
+    final R2ProjectionFOV p = projection();
+
+    c.update(v, p, PVector3D.of(-1.0, -1.0, -0.5), 0.75, 10.0);
+
+    final R2ProjectionReadableType p0 = c.cascadeProjection(0);
+    for (int index = 1; index < c.cascadeCount(); ++index) {
+      final R2ProjectionReadableType pi = c.cascadeProjection(index);
+      Assert.assertEquals(
+        p0.projectionGetZNear(), pi.projectionGetZNear(), 0.0);
+      Assert.assertEquals(
+        p0.projectionGetZFar(), pi.projectionGetZFar(), 0.0);
+    }
+  }
+
+  @Test
+  public void testRadiusStableUnderRotation()
+  {
+    final R2ShadowCascades c0 = R2ShadowCascades.create(3, 1024L);
+    final R2ShadowCascades c1 = R2ShadowCascades.create(3, 1024L);
+    final R2ProjectionFOV p = projection();
+    final PVector3D<R2SpaceWorldType> dir = PVector3D.of(0.3, -1.0, 0.2);
+
+    c0.update(
+      view(Vector3D.of(0.0, 0.0, 0.0), Vector3D.of(0.0, 0.0, -1.0)),
+      p, dir, 0.5, 5.0);
+    c1.update(
+      view(Vector3D.of(5.0, 1.0, 3.0), Vector3D.of(6.0, 1.0, 2.0)),
+      p, dir, 0.5, 5.0);
+
+    for (int index = 0; index < c0.cascadeCount(); ++index) {
+      Assert.assertEquals(
+        c0.cascadeRadius(index), c1.cascadeRadius(index), 0.0);
+    }
+  }
+}
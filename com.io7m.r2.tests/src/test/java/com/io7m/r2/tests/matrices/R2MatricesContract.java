@@ -31,6 +31,10 @@ import com.io7m.jfunctional.Unit;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices3x3D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix3x3D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.quaternions.Quaternion4D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.r2.core.api.ids.R2IDPool;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
@@ -45,13 +49,18 @@ import com.io7m.r2.projections.R2ProjectionFrustum;
 import com.io7m.r2.projections.R2ProjectionMesh;
 import com.io7m.r2.projections.R2ProjectionMeshType;
 import com.io7m.r2.projections.R2ProjectionOrthographic;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceNormalEyeType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
 import com.io7m.r2.spaces.R2SpaceTextureType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
 import com.io7m.r2.tests.core.R2TestUtilities;
 import com.io7m.r2.textures.R2Texture2DStatic;
 import com.io7m.r2.transforms.R2TransformOT;
 import com.io7m.r2.transforms.R2TransformOTType;
 import com.io7m.r2.transforms.R2TransformReadableType;
 import com.io7m.r2.transforms.R2TransformSOT;
+import com.io7m.r2.transforms.R2TransformSiOT;
 import org.junit.Assert;
 import org.junit.Rule;
 import org.junit.Test;
@@ -455,4 +464,75 @@ public abstract class R2MatricesContract
               Integer.valueOf(23),
               (mpx, mvx) -> mvx)));
   }
+
+  private void checkNormalMatrix(
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view,
+    final R2TransformReadableType t)
+  {
+    final R2MatricesType m = this.newMatrices();
+    final PMatrix3x3D<R2SpaceTextureType, R2SpaceTextureType> uv =
+      PMatrices3x3D.identity();
+
+    m.withObserver(
+      view,
+      R2ProjectionOrthographic.create(),
+      Unit.unit(),
+      (mm, u0) -> mm.withTransform(t, uv, u0, (mi, u1) -> {
+        final PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> mv =
+          mi.matrixModelView();
+        final PMatrix3x3D<R2SpaceNormalEyeType, R2SpaceObjectType> m3 =
+          PMatrix3x3D.of(
+            mv.r0c0(), mv.r0c1(), mv.r0c2(),
+            mv.r1c0(), mv.r1c1(), mv.r1c2(),
+            mv.r2c0(), mv.r2c1(), mv.r2c2());
+        final PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> e =
+          PMatrices3x3D.transpose(PMatrices3x3D.invert(m3).get());
+        final PMatrix3x3D<R2SpaceObjectType, R2SpaceNormalEyeType> r =
+          mi.matrixNormal();
+
+        Assert.assertEquals(e.r0c0(), r.r0c0(), 1.0E-9);
+        Assert.assertEquals(e.r0c1(), r.r0c1(), 1.0E-9);
+        Assert.assertEquals(e.r0c2(), r.r0c2(), 1.0E-9);
+        Assert.assertEquals(e.r1c0(), r.r1c0(), 1.0E-9);
+        Assert.assertEquals(e.r1c1(), r.r1c1(), 1.0E-9);
+        Assert.assertEquals(e.r1c2(), r.r1c2(), 1.0E-9);
+        Assert.assertEquals(e.r2c0(), r.r2c0(), 1.0E-9);
+        Assert.assertEquals(e.r2c1(), r.r2c1(), 1.0E-9);
+        Assert.assertEquals(e.r2c2(), r.r2c2(), 1.0E-9);
+        return Unit.unit();
+      }));
+  }
+
+  private static PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> rotatedView()
+  {
+    final R2TransformOT view = R2TransformOT.create();
+    view.setOrientation(Quaternion4D.of(0.1, -0.7, 0.1, 0.7));
+    view.setTranslation(PVector3D.of(-3.0, 2.0, 10.0));
+    return view.transformMakeViewMatrix4x4F();
+  }
+
+  @Test
+  public final void testMatricesNormalOrthogonal()
+  {
+    final R2TransformSOT t = R2TransformSOT.create();
+    t.setOrientation(Quaternion4D.of(0.5, 0.5, 0.5, 0.5));
+    t.setScale(3.0);
+    t.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+
+    this.checkNormalMatrix(PMatrices4x4D.identity(), t);
+    this.checkNormalMatrix(rotatedView(), t);
+    this.checkNormalMatrix(PMatrices4x4D.ofScale(1.0, 2.0, 3.0), t);
+  }
+
+  @Test
+  public final void testMatricesNormalNonOrthogonal()
+  {
+    final R2TransformSiOT t = R2TransformSiOT.create();
+    t.setOrientation(Quaternion4D.of(0.5, 0.5, 0.5, 0.5));
+    t.setScaleAxes(Vector3D.of(2.0, 3.0, 4.0));
+    t.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+
+    this.checkNormalMatrix(PMatrices4x4D.identity(), t);
+    this.checkNormalMatrix(rotatedView(), t);
+  }
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.meshes;
+
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.r2.meshes.api.R2MeshBasic;
+import com.io7m.r2.meshes.api.R2MeshCompact;
+import com.io7m.r2.meshes.api.R2MeshCompactBuilderType;
+import com.io7m.r2.meshes.api.R2MeshCompactConversions;
+import com.io7m.r2.meshes.api.R2MeshCompactShapes;
+import com.io7m.r2.meshes.api.R2MeshCompactType;
+import com.io7m.r2.meshes.api.R2MeshExceptionMalformedTriangle;
+import com.io7m.r2.meshes.api.R2MeshExceptionMissingNormal;
+import com.io7m.r2.meshes.api.R2MeshExceptionMissingPosition;
+import com.io7m.r2.meshes.api.R2MeshExceptionMissingUV;
+import com.io7m.r2.meshes.api.R2MeshExceptionMissingVertex;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import org.hamcrest.core.StringStartsWith;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2MeshCompactTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static void checkMeshesEqual(
+    final R2MeshCompactType a,
+    final R2MeshCompactType b)
+  {
+    Assert.assertEquals(a.positions(), b.positions());
+    Assert.assertEquals(a.normals(), b.normals());
+    Assert.assertEquals(a.uvs(), b.uvs());
+    Assert.assertEquals(a.vertices(), b.vertices());
+    Assert.assertEquals(a.triangles(), b.triangles());
+  }
+
+  @Test
+  public void testBuildEmpty()
+  {
+    final R2MeshCompactType m = R2MeshCompact.newBuilder().build();
+    Assert.assertEquals(0L, m.positionCount());
+    Assert.assertEquals(0L, m.normalCount());
+    Assert.assertEquals(0L, m.uvCount());
+    Assert.assertEquals(0L, m.vertexCount());
+    Assert.assertEquals(0L, m.triangleCount());
+  }
+
+  @Test
+  public void testBuildIndices()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    Assert.assertEquals(0L, b.addPosition(0.0, 0.0, 0.0));
+    Assert.assertEquals(1L, b.addPosition(1.0, 0.0, 0.0));
+    Assert.assertEquals(2L, b.addPosition(0.0, 1.0, 0.0));
+    Assert.assertEquals(0L, b.addNormal(0.0, 0.0, 1.0));
+    Assert.assertEquals(0L, b.addUV(0.0, 0.0));
+    Assert.assertEquals(1L, b.addUV(1.0, 0.0));
+    Assert.assertEquals(0L, b.addVertex(0L, 0L, 0L));
+    Assert.assertEquals(1L, b.addVertex(1L, 0L, 1L));
+    Assert.assertEquals(2L, b.addVertex(2L, 0L, 0L));
+    Assert.assertEquals(0L, b.addTriangle(0L, 1L, 2L));
+
+    final R2MeshCompactType m = b.build();
+    Assert.assertEquals(3L, m.positionCount());
+    Assert.assertEquals(1L, m.normalCount());
+    Assert.assertEquals(2L, m.uvCount());
+    Assert.assertEquals(3L, m.vertexCount());
+    Assert.assertEquals(1L, m.triangleCount());
+    Assert.assertEquals(1L, m.vertexPosition(1L));
+    Assert.assertEquals(0L, m.vertexNormal(1L));
+    Assert.assertEquals(1L, m.vertexUV(1L));
+    Assert.assertEquals(1.0, m.positions().getDouble(4L), 0.0);
+  }
+
+  @Test
+  public void testBuildTwice()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.build();
+
+    this.expected.expect(IllegalStateException.class);
+    b.addPosition(0.0, 0.0, 0.0);
+  }
+
+  @Test
+  public void testUnmodifiable()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(0.0, 0.0, 0.0);
+    final R2MeshCompactType m = b.build();
+
+    this.expected.expect(UnsupportedOperationException.class);
+    m.positions().set(0L, 1.0);
+  }
+
+  @Test
+  public void testBuildNoSuchPosition()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addNormal(1.0, 1.0, 1.0);
+    b.addUV(1.0, 1.0);
+
+    this.expected.expect(R2MeshExceptionMissingPosition.class);
+    this.expected.expectMessage(new StringStartsWith("0"));
+    b.addVertex(0L, 0L, 0L);
+  }
+
+  @Test
+  public void testBuildNoSuchNormal()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(1.0, 1.0, 1.0);
+    b.addUV(1.0, 1.0);
+
+    this.expected.expect(R2MeshExceptionMissingNormal.class);
+    this.expected.expectMessage(new StringStartsWith("0"));
+    b.addVertex(0L, 0L, 0L);
+  }
+
+  @Test
+  public void testBuildNoSuchUV()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(1.0, 1.0, 1.0);
+    b.addNormal(1.0, 1.0, 1.0);
+
+    this.expected.expect(R2MeshExceptionMissingUV.class);
+    this.expected.expectMessage(new StringStartsWith("0"));
+    b.addVertex(0L, 0L, 0L);
+  }
+
+  @Test
+  public void testBuildNoSuchVertex()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(1.0, 1.0, 1.0);
+    b.addNormal(1.0, 1.0, 1.0);
+    b.addUV(1.0, 1.0);
+    b.addVertex(0L, 0L, 0L);
+    b.addVertex(0L, 0L, 0L);
+
+    this.expected.expect(R2MeshExceptionMissingVertex.class);
+    this.expected.expectMessage(new StringStartsWith("Vertex 2"));
+    b.addTriangle(0L, 1L, 2L);
+  }
+
+  @Test
+  public void testBuildMalformedTriangle()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(1.0, 1.0, 1.0);
+    b.addNormal(1.0, 1.0, 1.0);
+    b.addUV(1.0, 1.0);
+    b.addVertex(0L, 0L, 0L);
+    b.addVertex(0L, 0L, 0L);
+
+    this.expected.expect(R2MeshExceptionMalformedTriangle.class);
+    b.addTriangle(0L, 1L, 1L);
+  }
+
+  @Test
+  public void testConversionRoundTrip()
+  {
+    final R2MeshCompactType m = R2MeshCompactShapes.unitCube();
+    final R2MeshBasic basic = R2MeshCompactConversions.toBasic(m);
+
+    Assert.assertEquals(m.positionCount(), basic.positions().size64());
+    Assert.assertEquals(m.normalCount(), basic.normals().size64());
+    Assert.assertEquals(m.uvCount(), basic.uvs().size64());
+    Assert.assertEquals(m.vertexCount(), basic.vertices().size64());
+    Assert.assertEquals(m.triangleCount(), basic.triangles().size64());
+
+    checkMeshesEqual(m, R2MeshCompactConversions.fromBasic(basic));
+  }
+
+  @Test
+  public void testUnitQuad()
+  {
+    final R2MeshCompactType m = R2MeshCompactShapes.unitQuad();
+    Assert.assertEquals(4L, m.vertexCount());
+    Assert.assertEquals(2L, m.triangleCount());
+  }
+
+  @Test
+  public void testUnitCube()
+  {
+    final R2MeshCompactType m = R2MeshCompactShapes.unitCube();
+    Assert.assertEquals(8L, m.positionCount());
+    Assert.assertEquals(6L, m.normalCount());
+    Assert.assertEquals(24L, m.vertexCount());
+    Assert.assertEquals(12L, m.triangleCount());
+    checkOutwardFacing(m);
+  }
+
+  @Test
+  public void testUnitSphere()
+  {
+    final R2MeshCompactType m = R2MeshCompactShapes.unitSphere(16);
+    Assert.assertEquals(17L * 9L, m.vertexCount());
+    Assert.assertEquals(2L * 16L * 7L, m.triangleCount());
+
+    for (long index = 0L; index < m.positionCount(); ++index) {
+      final double x = m.positions().getDouble(index * 3L);
+      final double y = m.positions().getDouble((index * 3L) + 1L);
+      final double z = m.positions().getDouble((index * 3L) + 2L);
+      Assert.assertEquals(
+        1.0, Math.sqrt((x * x) + (y * y) + (z * z)), 0.000001);
+    }
+
+    checkOutwardFacing(m);
+  }
+
+  /**
+   * Check that every triangle is wound counter-clockwise when viewed from
+   * the side that its vertex normals face.
+   */
+
+  private static void checkOutwardFacing(
+    final R2MeshCompactType m)
+  {
+    final R2MeshBasic basic = R2MeshCompactConversions.toBasic(m);
+    for (long index = 0L; index < m.triangleCount(); ++index) {
+      final long v0 = m.triangles().getLong(index * 3L);
+      final long v1 = m.triangles().getLong((index * 3L) + 1L);
+      final long v2 = m.triangles().getLong((index * 3L) + 2L);
+
+      final PVector3D<R2SpaceObjectType> p0 =
+        basic.positions().get(m.vertexPosition(v0));
+      final PVector3D<R2SpaceObjectType> p1 =
+        basic.positions().get(m.vertexPosition(v1));
+      final PVector3D<R2SpaceObjectType> p2 =
+        basic.positions().get(m.vertexPosition(v2));
+      final PVector3D<R2SpaceObjectType> n =
+        basic.normals().get(m.vertexNormal(v0));
+
+      final double ax = p1.x() - p0.x();
+      final double ay = p1.y() - p0.y();
+      final double az = p1.z() - p0.z();
+      final double bx = p2.x() - p0.x();
+      final double by = p2.y() - p0.y();
+      final double bz = p2.z() - p0.z();
+      final double cx = (ay * bz) - (az * by);
+      final double cy = (az * bx) - (ax * bz);
+      final double cz = (ax * by) - (ay * bx);
+
+      Assert.assertTrue(
+        "Triangle " + index + " faces outwards",
+        ((cx * n.x()) + (cy * n.y()) + (cz * n.z())) > 0.0);
+    }
+  }
+}
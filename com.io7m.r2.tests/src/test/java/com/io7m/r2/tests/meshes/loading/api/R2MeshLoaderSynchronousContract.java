@@ -20,6 +20,7 @@ import com.io7m.jcanephora.core.JCGLUsageHint;
 import com.io7m.jcanephora.core.api.JCGLContextType;
 import com.io7m.r2.meshes.api.R2MeshAttributeConventions;
 import com.io7m.r2.meshes.api.R2MeshAttributePacked;
+import com.io7m.r2.meshes.loading.api.R2MeshFileAccess;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaded;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
 import com.io7m.r2.meshes.loading.api.R2MeshLoaderType;
@@ -96,6 +97,31 @@ public abstract class R2MeshLoaderSynchronousContract extends R2JCGLContract
     }
   }
 
+  @Test
+  public void testLoadMapped()
+    throws Exception
+  {
+    final JCGLContextType g =
+      this.newGL33Context("main", 24, 8);
+
+    final R2MeshLoaderType loader = this.create();
+    final R2MeshLoaded loaded =
+      loader.loadSynchronously(
+        g.contextGetGL33(),
+        R2MeshLoaderRequest.builder()
+          .from(R2MeshLoaderRequest.of(
+            this.resolve("all_without_tangents"),
+            R2MeshRequireTangents.R2_TANGENTS_OPTIONAL,
+            R2MeshRequireUV.R2_UV_OPTIONAL,
+            JCGLUsageHint.USAGE_STATIC_DRAW,
+            JCGLUsageHint.USAGE_STATIC_DRAW))
+          .setFileAccess(R2MeshFileAccess.R2_FILE_ACCESS_MAPPED)
+          .build());
+
+    assertEquals(3L, (long) loaded.attributes().size());
+    assertEquals((3L + 3L + 2L) * 4L, (long) loaded.vertexSizeOctets());
+  }
+
   @Test
   public void testLoadWithoutUV()
     throws Exception
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.meshes.loading.api;
+
+import com.io7m.jcanephora.core.JCGLUsageHint;
+import com.io7m.jcanephora.core.api.JCGLContextType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.r2.meshes.loading.api.R2MeshLoaderRequest;
+import com.io7m.r2.meshes.loading.api.R2MeshRequireTangents;
+import com.io7m.r2.meshes.loading.api.R2MeshRequireUV;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamHandleType;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamerConfiguration;
+import com.io7m.r2.meshes.loading.api.R2MeshStreamerType;
+import com.io7m.r2.tests.R2JCGLContract;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.concurrent.Executor;
+
+public abstract class R2MeshStreamerContract extends R2JCGLContract
+{
+  protected abstract R2MeshStreamerType create(
+    Executor exec,
+    R2MeshStreamerConfiguration config);
+
+  protected abstract URI resolve(String name);
+
+  private R2MeshLoaderRequest request(
+    final String name)
+  {
+    return R2MeshLoaderRequest.of(
+      this.resolve(name),
+      R2MeshRequireTangents.R2_TANGENTS_OPTIONAL,
+      R2MeshRequireUV.R2_UV_OPTIONAL,
+      JCGLUsageHint.USAGE_STATIC_DRAW,
+      JCGLUsageHint.USAGE_STATIC_DRAW);
+  }
+
+  @Test
+  public void testUploadInPriorityOrder()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+
+    final R2MeshStreamerType s =
+      this.create(Runnable::run, R2MeshStreamerConfiguration.of(
+        1024L * 1024L, 1L, 4));
+
+    final R2MeshStreamHandleType far =
+      s.submit(this.request("all_without_tangents"), 10.0);
+    final R2MeshStreamHandleType near =
+      s.submit(this.request("all_without_uv"), 1.0);
+
+    Assert.assertEquals(0, s.pendingCount());
+    Assert.assertEquals(2, s.readyCount());
+    Assert.assertTrue(s.residentPackedOctets() > 0L);
+
+    Assert.assertTrue(s.upload(g33) > 0L);
+    Assert.assertTrue(near.future().isDone());
+    Assert.assertFalse(far.future().isDone());
+
+    far.setPriority(0.0);
+    Assert.assertTrue(s.upload(g33) > 0L);
+    Assert.assertTrue(far.future().isDone());
+    Assert.assertEquals(0, s.readyCount());
+    Assert.assertEquals(0L, s.residentPackedOctets());
+    Assert.assertEquals(0L, s.upload(g33));
+  }
+
+  @Test
+  public void testResidentLimit()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+
+    final R2MeshStreamerType s =
+      this.create(Runnable::run, R2MeshStreamerConfiguration.of(
+        1L, 1024L * 1024L, 4));
+
+    final R2MeshStreamHandleType h0 =
+      s.submit(this.request("all_without_tangents"), 0.0);
+    final R2MeshStreamHandleType h1 =
+      s.submit(this.request("all_without_uv"), 0.0);
+
+    Assert.assertEquals(1, s.readyCount());
+    Assert.assertEquals(1, s.pendingCount());
+
+    s.upload(g33);
+    Assert.assertTrue(h0.future().isDone());
+    Assert.assertFalse(h1.future().isDone());
+    Assert.assertEquals(1, s.readyCount());
+    Assert.assertEquals(0, s.pendingCount());
+
+    s.upload(g33);
+    Assert.assertTrue(h1.future().isDone());
+  }
+
+  @Test
+  public void testCancel()
+  {
+    final JCGLContextType c = this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g33 = c.contextGetGL33();
+
+    final R2MeshStreamerType s =
+      this.create(Runnable::run, R2MeshStreamerConfiguration.of(
+        1L, 1024L * 1024L, 4));
+
+    final R2MeshStreamHandleType h0 =
+      s.submit(this.request("all_without_tangents"), 0.0);
+    final R2MeshStreamHandleType h1 =
+      s.submit(this.request("all_without_uv"), 0.0);
+
+    Assert.assertTrue(h1.cancel());
+    Assert.assertTrue(h1.future().isCancelled());
+    Assert.assertEquals(0, s.pendingCount());
+
+    Assert.assertTrue(h0.cancel());
+    Assert.assertTrue(h0.future().isCancelled());
+    Assert.assertEquals(0, s.readyCount());
+    Assert.assertEquals(0L, s.residentPackedOctets());
+    Assert.assertFalse(h0.cancel());
+
+    Assert.assertEquals(0L, s.upload(g33));
+  }
+}
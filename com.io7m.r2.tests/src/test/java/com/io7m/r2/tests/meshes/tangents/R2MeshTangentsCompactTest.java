@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.meshes.tangents;
+
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector4D;
+import com.io7m.r2.meshes.api.R2MeshCompact;
+import com.io7m.r2.meshes.api.R2MeshCompactBuilderType;
+import com.io7m.r2.meshes.api.R2MeshCompactConversions;
+import com.io7m.r2.meshes.api.R2MeshCompactShapes;
+import com.io7m.r2.meshes.api.R2MeshCompactType;
+import com.io7m.r2.meshes.api.R2MeshExceptionMalformedTriangle;
+import com.io7m.r2.meshes.tangents.R2MeshTangents;
+import com.io7m.r2.meshes.tangents.R2MeshTangentsCompact;
+import com.io7m.r2.meshes.tangents.R2MeshTangentsGenerator;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2MeshTangentsCompactTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static void checkSameAsBasic(
+    final R2MeshCompactType m)
+  {
+    final R2MeshTangents expected =
+      R2MeshTangentsGenerator.generateTangents(
+        R2MeshCompactConversions.toBasic(m));
+    final R2MeshTangents received =
+      R2MeshTangentsGenerator.generateTangentsCompact(m).toMeshTangents();
+
+    Assert.assertEquals(
+      expected.tangents().size64(), received.tangents().size64());
+    Assert.assertEquals(
+      expected.bitangents().size64(), received.bitangents().size64());
+    Assert.assertEquals(expected.vertices(), received.vertices());
+    Assert.assertEquals(expected.triangles(), received.triangles());
+
+    for (long index = 0L; index < expected.tangents().size64(); ++index) {
+      final PVector4D<R2SpaceObjectType> et = expected.tangents().get(index);
+      final PVector4D<R2SpaceObjectType> rt = received.tangents().get(index);
+      Assert.assertEquals(et.x(), rt.x(), 0.000001);
+      Assert.assertEquals(et.y(), rt.y(), 0.000001);
+      Assert.assertEquals(et.z(), rt.z(), 0.000001);
+      Assert.assertEquals(et.w(), rt.w(), 0.0);
+
+      final PVector3D<R2SpaceObjectType> eb = expected.bitangents().get(index);
+      final PVector3D<R2SpaceObjectType> rb = received.bitangents().get(index);
+      Assert.assertEquals(eb.x(), rb.x(), 0.000001);
+      Assert.assertEquals(eb.y(), rb.y(), 0.000001);
+      Assert.assertEquals(eb.z(), rb.z(), 0.000001);
+    }
+  }
+
+  @Test
+  public void testQuad()
+  {
+    final R2MeshTangentsCompact t =
+      R2MeshTangentsGenerator.generateTangentsCompact(
+        R2MeshCompactShapes.unitQuad());
+
+    Assert.assertEquals(4L, t.tangents().size64());
+    Assert.assertEquals(1.0, t.tangents().getDouble(0L), 0.000001);
+    Assert.assertEquals(0.0, t.tangents().getDouble(1L), 0.000001);
+    Assert.assertEquals(0.0, t.tangents().getDouble(2L), 0.000001);
+    Assert.assertEquals(1.0, t.tangents().getDouble(3L), 0.0);
+
+    Assert.assertEquals(3L, t.bitangents().size64());
+    Assert.assertEquals(0.0, t.bitangents().getDouble(0L), 0.000001);
+    Assert.assertEquals(1.0, t.bitangents().getDouble(1L), 0.000001);
+    Assert.assertEquals(0.0, t.bitangents().getDouble(2L), 0.000001);
+
+    checkSameAsBasic(R2MeshCompactShapes.unitQuad());
+  }
+
+  @Test
+  public void testCube()
+  {
+    checkSameAsBasic(R2MeshCompactShapes.unitCube());
+  }
+
+  @Test
+  public void testSphere()
+  {
+    checkSameAsBasic(R2MeshCompactShapes.unitSphere(8));
+    checkSameAsBasic(R2MeshCompactShapes.unitSphere(32));
+  }
+
+  @Test
+  public void testSharedUVs()
+  {
+    final R2MeshCompactBuilderType b = R2MeshCompact.newBuilder();
+    b.addPosition(0.0, 0.0, 0.0);
+    b.addPosition(1.0, 0.0, 0.0);
+    b.addPosition(0.0, 1.0, 0.0);
+    b.addNormal(0.0, 0.0, 1.0);
+    b.addUV(0.0, 0.0);
+    b.addUV(1.0, 0.0);
+    b.addVertex(0L, 0L, 0L);
+    b.addVertex(1L, 0L, 1L);
+    b.addVertex(2L, 0L, 1L);
+    b.addTriangle(0L, 1L, 2L);
+
+    this.expected.expect(R2MeshExceptionMalformedTriangle.class);
+    R2MeshTangentsGenerator.generateTangentsCompact(b.build());
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.rendering.api;
+
+import com.io7m.r2.rendering.api.R2DrawKeySorter;
+import com.io7m.r2.rendering.api.R2DrawKeys;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public final class R2DrawKeySorterTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  @Test
+  public void testEmpty()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final long[] keys = new long[0];
+    final int[] values = new int[0];
+    s.sort(keys, values, 0);
+  }
+
+  @Test
+  public void testSortedRandom()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final Random r = new Random(0x10L);
+
+    for (int iteration = 0; iteration < 100; ++iteration) {
+      final int count = r.nextInt(2000);
+      final long[] keys = new long[count + 10];
+      final int[] values = new int[count + 10];
+      for (int index = 0; index < keys.length; ++index) {
+        keys[index] = r.nextLong() & Long.MAX_VALUE;
+        values[index] = index;
+      }
+
+      final long[] original = keys.clone();
+      final long[] expected_keys = Arrays.copyOf(keys, count);
+      Arrays.sort(expected_keys);
+
+      s.sort(keys, values, count);
+
+      for (int index = 0; index < count; ++index) {
+        Assert.assertEquals(expected_keys[index], keys[index]);
+        Assert.assertEquals(original[values[index]], keys[index]);
+      }
+
+      for (int index = count; index < keys.length; ++index) {
+        Assert.assertEquals(original[index], keys[index]);
+        Assert.assertEquals((long) index, (long) values[index]);
+      }
+    }
+  }
+
+  @Test
+  public void testStable()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final long[] keys = {3L, 1L, 3L, 2L, 1L, 3L, 1L << 40, 1L};
+    final int[] values = {0, 1, 2, 3, 4, 5, 6, 7};
+
+    s.sort(keys, values, keys.length);
+
+    Assert.assertArrayEquals(
+      new long[]{1L, 1L, 1L, 2L, 3L, 3L, 3L, 1L << 40}, keys);
+    Assert.assertArrayEquals(
+      new int[]{1, 4, 7, 3, 0, 2, 5, 6}, values);
+  }
+
+  @Test
+  public void testAllEqual()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final long[] keys = {7L, 7L, 7L, 7L};
+    final int[] values = {3, 2, 1, 0};
+
+    s.sort(keys, values, keys.length);
+
+    Assert.assertArrayEquals(new long[]{7L, 7L, 7L, 7L}, keys);
+    Assert.assertArrayEquals(new int[]{3, 2, 1, 0}, values);
+  }
+
+  @Test
+  public void testCountTooLarge()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    this.expected.expect(IllegalArgumentException.class);
+    s.sort(new long[2], new int[1], 2);
+  }
+
+  @Test
+  public void testCountNegative()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    this.expected.expect(IllegalArgumentException.class);
+    s.sort(new long[2], new int[2], -1);
+  }
+
+  @Test
+  public void testSortOrdinals()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final int[] ordinals = {
+      1, 70000, 0, 2,
+      0, 5, 1, 1,
+      1, 70000, 0, 1,
+      0, 5, 1, 1,
+      0, 5, 0, 9,
+    };
+    final long[] keys = new long[5];
+    final int[] values = new int[5];
+
+    s.sortOrdinals(ordinals, keys, values, 5);
+
+    Assert.assertArrayEquals(new int[]{4, 1, 3, 2, 0}, values);
+    Assert.assertEquals(0L, (long) R2DrawKeys.group(keys[0]));
+    Assert.assertEquals(0L, (long) R2DrawKeys.group(keys[2]));
+    Assert.assertEquals(1L, (long) R2DrawKeys.group(keys[3]));
+    Assert.assertEquals(1L, (long) R2DrawKeys.group(keys[4]));
+
+    Assert.assertEquals(
+      R2DrawKeys.shaderPrefix(keys[0]), R2DrawKeys.shaderPrefix(keys[1]));
+    Assert.assertNotEquals(
+      R2DrawKeys.materialPrefix(keys[0]), R2DrawKeys.materialPrefix(keys[1]));
+    Assert.assertEquals(
+      R2DrawKeys.arrayPrefix(keys[1]), R2DrawKeys.arrayPrefix(keys[2]));
+    Assert.assertNotEquals(
+      R2DrawKeys.shaderPrefix(keys[2]), R2DrawKeys.shaderPrefix(keys[3]));
+    Assert.assertEquals(
+      R2DrawKeys.materialPrefix(keys[3]), R2DrawKeys.materialPrefix(keys[4]));
+    Assert.assertNotEquals(
+      R2DrawKeys.arrayPrefix(keys[3]), R2DrawKeys.arrayPrefix(keys[4]));
+  }
+
+  @Test
+  public void testSortOrdinalsManyShaders()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    final int count = (1 << R2DrawKeys.SHADER_BITS) + 10;
+    final int stride = R2DrawKeySorter.ORDINALS_PER_ELEMENT;
+    final int[] ordinals = new int[count * stride];
+    for (int index = 0; index < count; ++index) {
+      ordinals[(index * stride) + 1] = count - (index + 1);
+    }
+
+    final long[] keys = new long[count];
+    final int[] values = new int[count];
+    s.sortOrdinals(ordinals, keys, values, count);
+
+    for (int index = 0; index < count; ++index) {
+      Assert.assertEquals((long) (count - (index + 1)), (long) values[index]);
+      if (index > 0) {
+        Assert.assertNotEquals(
+          R2DrawKeys.shaderPrefix(keys[index - 1]),
+          R2DrawKeys.shaderPrefix(keys[index]));
+      }
+    }
+  }
+
+  @Test
+  public void testSortOrdinalsTooShort()
+  {
+    final R2DrawKeySorter s = R2DrawKeySorter.create();
+    this.expected.expect(IllegalArgumentException.class);
+    s.sortOrdinals(new int[4], new long[2], new int[2], 2);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.rendering.api;
+
+import com.io7m.r2.rendering.api.R2DrawKeys;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2DrawKeysTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  @Test
+  public void testIdentities()
+  {
+    final long k = R2DrawKeys.pack(15, 65535, 2097151, 4194303);
+    Assert.assertTrue(k >= 0L);
+    Assert.assertEquals(15L, (long) R2DrawKeys.group(k));
+    Assert.assertEquals(65535L, (long) R2DrawKeys.shader(k));
+    Assert.assertEquals(2097151L, (long) R2DrawKeys.material(k));
+    Assert.assertEquals(4194303L, (long) R2DrawKeys.array(k));
+
+    final long z = R2DrawKeys.pack(0, 0, 0, 0);
+    Assert.assertEquals(0L, z);
+  }
+
+  @Test
+  public void testOrdering()
+  {
+    final long k0 = R2DrawKeys.pack(1, 2, 0, 0);
+    final long k1 = R2DrawKeys.pack(1, 1, 100, 100);
+    final long k2 = R2DrawKeys.pack(2, 0, 0, 0);
+    final long k3 = R2DrawKeys.pack(1, 1, 99, 200);
+
+    Assert.assertTrue(k1 < k0);
+    Assert.assertTrue(k0 < k2);
+    Assert.assertTrue(k3 < k1);
+  }
+
+  @Test
+  public void testPrefixes()
+  {
+    final long k0 = R2DrawKeys.pack(1, 2, 3, 4);
+    final long k1 = R2DrawKeys.pack(1, 2, 3, 4);
+    final long k2 = R2DrawKeys.pack(1, 2, 3, 5);
+    final long k3 = R2DrawKeys.pack(1, 2, 4, 4);
+    final long k4 = R2DrawKeys.pack(1, 3, 3, 4);
+
+    Assert.assertEquals(R2DrawKeys.arrayPrefix(k0), R2DrawKeys.arrayPrefix(k1));
+    Assert.assertNotEquals(
+      R2DrawKeys.arrayPrefix(k0), R2DrawKeys.arrayPrefix(k2));
+    Assert.assertEquals(
+      R2DrawKeys.materialPrefix(k0), R2DrawKeys.materialPrefix(k2));
+    Assert.assertNotEquals(
+      R2DrawKeys.materialPrefix(k0), R2DrawKeys.materialPrefix(k3));
+    Assert.assertEquals(
+      R2DrawKeys.shaderPrefix(k0), R2DrawKeys.shaderPrefix(k3));
+    Assert.assertNotEquals(
+      R2DrawKeys.shaderPrefix(k0), R2DrawKeys.shaderPrefix(k4));
+  }
+
+  @Test
+  public void testGroupOutOfRange()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2DrawKeys.pack(16, 0, 0, 0);
+  }
+
+  @Test
+  public void testShaderOutOfRange()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2DrawKeys.pack(0, 1 << R2DrawKeys.SHADER_BITS, 0, 0);
+  }
+
+  @Test
+  public void testMaterialOutOfRange()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2DrawKeys.pack(0, 0, 1 << R2DrawKeys.MATERIAL_BITS, 0);
+  }
+
+  @Test
+  public void testArrayOutOfRange()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2DrawKeys.pack(0, 0, 0, 1 << R2DrawKeys.ARRAY_BITS);
+  }
+
+  @Test
+  public void testArrayNegative()
+  {
+    this.expected.expect(IllegalArgumentException.class);
+    R2DrawKeys.pack(0, 0, 0, -1);
+  }
+
+  @Test
+  public void testOrdinalsFit()
+  {
+    Assert.assertTrue(R2DrawKeys.ordinalsFit(0, 0, 0));
+    Assert.assertTrue(R2DrawKeys.ordinalsFit(65535, 2097151, 4194303));
+    Assert.assertFalse(R2DrawKeys.ordinalsFit(65536, 0, 0));
+    Assert.assertFalse(R2DrawKeys.ordinalsFit(0, 2097152, 0));
+    Assert.assertFalse(R2DrawKeys.ordinalsFit(0, 0, 4194304));
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.rendering.api;
+
+import com.io7m.jcanephora.core.JCGLFaceSelection;
+import com.io7m.jcanephora.core.JCGLFaceWindingOrder;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jcanephora.renderstate.JCGLCullingState;
+import com.io7m.jcanephora.renderstate.JCGLRenderState;
+import com.io7m.jcanephora.renderstate.JCGLRenderStateMutable;
+import com.io7m.jcanephora.renderstate.JCGLStencilStateMutable;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
+import com.io7m.r2.tests.core.R2TestUtilities;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Optional;
+
+public final class R2RenderStateTrackerTest
+{
+  private static JCGLRenderState culled()
+  {
+    return JCGLRenderState.builder()
+      .setCullingState(Optional.of(JCGLCullingState.of(
+        JCGLFaceSelection.FACE_BACK,
+        JCGLFaceWindingOrder.FRONT_FACE_COUNTER_CLOCKWISE)))
+      .build();
+  }
+
+  @Test
+  public void testTrackersIndependent()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final R2RenderStateTracker t0 = R2RenderStateTracker.create();
+    final R2RenderStateTracker t1 = R2RenderStateTracker.create();
+    Assert.assertNotSame(t0, t1);
+
+    Assert.assertTrue(t0.activate(g, culled()));
+    Assert.assertTrue(t1.activate(g, culled()));
+    Assert.assertFalse(t0.activate(g, culled()));
+  }
+
+  @Test
+  public void testRedundantAvoided()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final R2RenderStateTracker t = R2RenderStateTracker.create();
+
+    Assert.assertTrue(t.activate(g, culled()));
+    Assert.assertFalse(t.activate(g, culled()));
+    Assert.assertFalse(t.activate(g, culled()));
+    Assert.assertEquals(1L, t.activations());
+    Assert.assertEquals(2L, t.activationsAvoided());
+
+    Assert.assertTrue(t.activate(g, JCGLRenderState.builder().build()));
+    Assert.assertTrue(t.activate(g, culled()));
+    Assert.assertEquals(3L, t.activations());
+    Assert.assertEquals(2L, t.activationsAvoided());
+
+    t.resetCounters();
+    Assert.assertEquals(0L, t.activations());
+    Assert.assertEquals(0L, t.activationsAvoided());
+  }
+
+  @Test
+  public void testInvalidate()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final R2RenderStateTracker t = R2RenderStateTracker.create();
+
+    Assert.assertTrue(t.activate(g, culled()));
+    t.invalidate();
+    Assert.assertTrue(t.activate(g, culled()));
+    Assert.assertEquals(2L, t.activations());
+    Assert.assertEquals(0L, t.activationsAvoided());
+  }
+
+  @Test
+  public void testMutableStencilChanges()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final R2RenderStateTracker t = R2RenderStateTracker.create();
+
+    final JCGLStencilStateMutable stencil = JCGLStencilStateMutable.create();
+    final JCGLRenderStateMutable state = JCGLRenderStateMutable.create();
+    state.setStencilState(stencil);
+
+    stencil.setTestReferenceFront(1);
+    Assert.assertTrue(t.activate(g, state));
+    Assert.assertFalse(t.activate(g, state));
+
+    stencil.setTestReferenceFront(2);
+    Assert.assertTrue(t.activate(g, state));
+    Assert.assertFalse(t.activate(g, state));
+
+    Assert.assertEquals(2L, t.activations());
+    Assert.assertEquals(2L, t.activationsAvoided());
+  }
+
+  @Test
+  public void testOnlyChangedPartsApplied()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final R2RenderStateTracker t = R2RenderStateTracker.create();
+
+    Assert.assertTrue(t.activate(g, culled()));
+    Assert.assertEquals(6L, t.changes());
+    Assert.assertEquals(0L, t.changesAvoided());
+
+    t.resetCounters();
+    Assert.assertTrue(t.activate(g, JCGLRenderState.builder().build()));
+    Assert.assertEquals(1L, t.changes());
+    Assert.assertEquals(5L, t.changesAvoided());
+
+    Assert.assertFalse(t.activate(g, JCGLRenderState.builder().build()));
+    Assert.assertEquals(1L, t.changes());
+    Assert.assertEquals(10L, t.changesAvoided());
+    Assert.assertEquals(1L, t.activations());
+    Assert.assertEquals(1L, t.activationsAvoided());
+  }
+}
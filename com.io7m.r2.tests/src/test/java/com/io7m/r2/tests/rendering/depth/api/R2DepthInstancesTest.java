@@ -228,9 +228,9 @@ public final class R2DepthInstancesTest
     Assert.assertEquals("onInstanceSingle 1", op.remove(0));
     Assert.assertEquals("onInstanceSingle 2", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 5", op.remove(0));
     Assert.assertEquals("onInstanceSingle 3", op.remove(0));
     Assert.assertEquals("onInstanceSingle 4", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 5", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 0 0", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialStart 0 1", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
@@ -239,31 +239,31 @@ public final class R2DepthInstancesTest
     Assert.assertEquals("onInstanceSingle 8", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
     Assert.assertEquals("onInstanceSingle 9", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 11", op.remove(0));
     Assert.assertEquals("onInstanceSingle 10", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 11", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 0 1", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderFinish 0", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderStart 1", op.remove(0));
-    Assert.assertEquals("onInstanceSingleMaterialStart 1 3", op.remove(0));
-    Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 20", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 19", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 18", op.remove(0));
-    Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 21", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 22", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 23", op.remove(0));
-    Assert.assertEquals("onInstanceSingleMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialStart 1 2", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 14", op.remove(0));
     Assert.assertEquals("onInstanceSingle 12", op.remove(0));
     Assert.assertEquals("onInstanceSingle 13", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 14", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
     Assert.assertEquals("onInstanceSingle 15", op.remove(0));
     Assert.assertEquals("onInstanceSingle 16", op.remove(0));
     Assert.assertEquals("onInstanceSingle 17", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 1 2", op.remove(0));
+    Assert.assertEquals("onInstanceSingleMaterialStart 1 3", op.remove(0));
+    Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 18", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 19", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 20", op.remove(0));
+    Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 21", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 22", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 23", op.remove(0));
+    Assert.assertEquals("onInstanceSingleMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderFinish 1", op.remove(0));
     Assert.assertEquals("onFinish", op.remove(0));
     Assert.assertTrue(op.isEmpty());
@@ -508,39 +508,39 @@ public final class R2DepthInstancesTest
     Assert.assertEquals("onInstanceBatchedShaderStart 0", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 0 0", op.remove(0));
     Assert.assertEquals("onInstanceBatched 0", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 5", op.remove(0));
     Assert.assertEquals("onInstanceBatched 1", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 2", op.remove(0));
     Assert.assertEquals("onInstanceBatched 3", op.remove(0));
     Assert.assertEquals("onInstanceBatched 4", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 2", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 5", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 0 0", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 0 1", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 9", op.remove(0));
     Assert.assertEquals("onInstanceBatched 6", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 11", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 10", op.remove(0));
     Assert.assertEquals("onInstanceBatched 7", op.remove(0));
     Assert.assertEquals("onInstanceBatched 8", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 9", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 10", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 11", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 0 1", op.remove(0));
     Assert.assertEquals("onInstanceBatchedShaderFinish 0", op.remove(0));
 
     Assert.assertEquals("onInstanceBatchedShaderStart 1", op.remove(0));
-    Assert.assertEquals("onInstanceBatchedMaterialStart 1 3", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 21", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 20", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 22", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 19", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 18", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 23", op.remove(0));
-    Assert.assertEquals("onInstanceBatchedMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 1 2", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 15", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 12", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 13", op.remove(0));
     Assert.assertEquals("onInstanceBatched 14", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 15", op.remove(0));
     Assert.assertEquals("onInstanceBatched 16", op.remove(0));
     Assert.assertEquals("onInstanceBatched 17", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 12", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 13", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 1 2", op.remove(0));
+    Assert.assertEquals("onInstanceBatchedMaterialStart 1 3", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 18", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 19", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 20", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 21", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 22", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 23", op.remove(0));
+    Assert.assertEquals("onInstanceBatchedMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceBatchedShaderFinish 1", op.remove(0));
     Assert.assertEquals("onFinish", op.remove(0));
     Assert.assertTrue(op.isEmpty());
@@ -43,12 +43,15 @@ import com.io7m.r2.tests.core.R2TestUtilities;
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import org.hamcrest.core.StringStartsWith;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -236,9 +239,9 @@ public final class R2SceneOpaquesTest
     Assert.assertEquals("onInstanceSingle 1", op.remove(0));
     Assert.assertEquals("onInstanceSingle 2", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 5", op.remove(0));
     Assert.assertEquals("onInstanceSingle 3", op.remove(0));
     Assert.assertEquals("onInstanceSingle 4", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 5", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 0 0", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialStart 0 1", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
@@ -247,31 +250,31 @@ public final class R2SceneOpaquesTest
     Assert.assertEquals("onInstanceSingle 8", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
     Assert.assertEquals("onInstanceSingle 9", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 11", op.remove(0));
     Assert.assertEquals("onInstanceSingle 10", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 11", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 0 1", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderFinish 0", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderStart 1", op.remove(0));
-    Assert.assertEquals("onInstanceSingleMaterialStart 1 3", op.remove(0));
-    Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 20", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 19", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 18", op.remove(0));
-    Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 21", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 22", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 23", op.remove(0));
-    Assert.assertEquals("onInstanceSingleMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialStart 1 2", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
-    Assert.assertEquals("onInstanceSingle 14", op.remove(0));
     Assert.assertEquals("onInstanceSingle 12", op.remove(0));
     Assert.assertEquals("onInstanceSingle 13", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 14", op.remove(0));
     Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
     Assert.assertEquals("onInstanceSingle 15", op.remove(0));
     Assert.assertEquals("onInstanceSingle 16", op.remove(0));
     Assert.assertEquals("onInstanceSingle 17", op.remove(0));
     Assert.assertEquals("onInstanceSingleMaterialFinish 1 2", op.remove(0));
+    Assert.assertEquals("onInstanceSingleMaterialStart 1 3", op.remove(0));
+    Assert.assertEquals("onInstanceSingleArrayStart 4", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 18", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 19", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 20", op.remove(0));
+    Assert.assertEquals("onInstanceSingleArrayStart 7", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 21", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 22", op.remove(0));
+    Assert.assertEquals("onInstanceSingle 23", op.remove(0));
+    Assert.assertEquals("onInstanceSingleMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceSingleShaderFinish 1", op.remove(0));
     Assert.assertEquals("onFinishGroup 1", op.remove(0));
     Assert.assertEquals("onFinish", op.remove(0));
@@ -639,39 +642,39 @@ public final class R2SceneOpaquesTest
     Assert.assertEquals("onInstanceBatchedShaderStart 0", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 0 0", op.remove(0));
     Assert.assertEquals("onInstanceBatched 0", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 5", op.remove(0));
     Assert.assertEquals("onInstanceBatched 1", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 2", op.remove(0));
     Assert.assertEquals("onInstanceBatched 3", op.remove(0));
     Assert.assertEquals("onInstanceBatched 4", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 2", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 5", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 0 0", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 0 1", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 9", op.remove(0));
     Assert.assertEquals("onInstanceBatched 6", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 11", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 10", op.remove(0));
     Assert.assertEquals("onInstanceBatched 7", op.remove(0));
     Assert.assertEquals("onInstanceBatched 8", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 9", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 10", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 11", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 0 1", op.remove(0));
     Assert.assertEquals("onInstanceBatchedShaderFinish 0", op.remove(0));
 
     Assert.assertEquals("onInstanceBatchedShaderStart 1", op.remove(0));
-    Assert.assertEquals("onInstanceBatchedMaterialStart 1 3", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 21", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 20", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 22", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 19", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 18", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 23", op.remove(0));
-    Assert.assertEquals("onInstanceBatchedMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialStart 1 2", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 15", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 12", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 13", op.remove(0));
     Assert.assertEquals("onInstanceBatched 14", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 15", op.remove(0));
     Assert.assertEquals("onInstanceBatched 16", op.remove(0));
     Assert.assertEquals("onInstanceBatched 17", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 12", op.remove(0));
-    Assert.assertEquals("onInstanceBatched 13", op.remove(0));
     Assert.assertEquals("onInstanceBatchedMaterialFinish 1 2", op.remove(0));
+    Assert.assertEquals("onInstanceBatchedMaterialStart 1 3", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 18", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 19", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 20", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 21", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 22", op.remove(0));
+    Assert.assertEquals("onInstanceBatched 23", op.remove(0));
+    Assert.assertEquals("onInstanceBatchedMaterialFinish 1 3", op.remove(0));
     Assert.assertEquals("onInstanceBatchedShaderFinish 1", op.remove(0));
     Assert.assertEquals("onFinishGroup 1", op.remove(0));
     Assert.assertEquals("onFinish", op.remove(0));
@@ -945,53 +948,128 @@ public final class R2SceneOpaquesTest
     Assert.assertEquals("onInstanceBillboardedShaderStart 0", op.remove(0));
     Assert.assertEquals("onInstanceBillboardedMaterialStart 0 0", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 0", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 5", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 1", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 2", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 3", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 4", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 2", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 5", op.remove(0));
     Assert.assertEquals(
       "onInstanceBillboardedMaterialFinish 0 0",
       op.remove(0));
     Assert.assertEquals("onInstanceBillboardedMaterialStart 0 1", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 9", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 6", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 11", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 10", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 7", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 8", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 9", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 10", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 11", op.remove(0));
     Assert.assertEquals(
       "onInstanceBillboardedMaterialFinish 0 1",
       op.remove(0));
     Assert.assertEquals("onInstanceBillboardedShaderFinish 0", op.remove(0));
 
     Assert.assertEquals("onInstanceBillboardedShaderStart 1", op.remove(0));
-    Assert.assertEquals("onInstanceBillboardedMaterialStart 1 3", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 21", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 20", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 22", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 19", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 18", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 23", op.remove(0));
-    Assert.assertEquals(
-      "onInstanceBillboardedMaterialFinish 1 3",
-      op.remove(0));
     Assert.assertEquals("onInstanceBillboardedMaterialStart 1 2", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 15", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 12", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 13", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 14", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 15", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 16", op.remove(0));
     Assert.assertEquals("onInstanceBillboarded 17", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 12", op.remove(0));
-    Assert.assertEquals("onInstanceBillboarded 13", op.remove(0));
     Assert.assertEquals(
       "onInstanceBillboardedMaterialFinish 1 2",
       op.remove(0));
+    Assert.assertEquals("onInstanceBillboardedMaterialStart 1 3", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 18", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 19", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 20", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 21", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 22", op.remove(0));
+    Assert.assertEquals("onInstanceBillboarded 23", op.remove(0));
+    Assert.assertEquals(
+      "onInstanceBillboardedMaterialFinish 1 3",
+      op.remove(0));
     Assert.assertEquals("onInstanceBillboardedShaderFinish 1", op.remove(0));
     Assert.assertEquals("onFinishGroup 1", op.remove(0));
     Assert.assertEquals("onFinish", op.remove(0));
     Assert.assertTrue(op.isEmpty());
   }
 
+  @Test
+  public void testResetDoesNotAllocate()
+    throws Exception
+  {
+    final ThreadMXBean base = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(base instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) base;
+    Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a0 = R2TestUtilities.getArrayObject(g);
+    final JCGLArrayObjectType a1 = R2TestUtilities.getArrayObject(g);
+
+    final R2ShaderGeometrySingleUsableType<Object> s0 =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2ShaderGeometrySingleUsableType<Object> s1 =
+      R2TestUtilities.getShaderInstanceSingle(g, 1L);
+
+    final List<R2MaterialOpaqueSingleType<Object>> materials =
+      new ArrayList<>(8);
+    for (int index = 0; index < 8; ++index) {
+      materials.add(R2TestUtilities.getMaterialSingle(
+        g, index % 2 == 0 ? s0 : s1, new Object(), (long) index));
+    }
+
+    final List<R2InstanceSingleType> instances = new ArrayList<>(256);
+    for (int index = 0; index < 256; ++index) {
+      instances.add(R2TestUtilities.getInstanceSingle(
+        g, index % 3 == 0 ? a0 : a1, (long) index));
+    }
+
+    final R2SceneOpaquesType o = R2SceneOpaques.create();
+    final CountingConsumer c = new CountingConsumer();
+
+    /*
+     * Run a number of frames to reach the steady state, and then check
+     * that subsequent frames allocate nothing.
+     */
+
+    for (int frame = 0; frame < 10; ++frame) {
+      R2SceneOpaquesTest.runFrame(o, instances, materials, c);
+    }
+
+    final long thread = Thread.currentThread().getId();
+    final long before = threads.getThreadAllocatedBytes(thread);
+    for (int frame = 0; frame < 1000; ++frame) {
+      R2SceneOpaquesTest.runFrame(o, instances, materials, c);
+    }
+    final long after = threads.getThreadAllocatedBytes(thread);
+
+    LOG.debug("allocated: {} bytes", Long.valueOf(after - before));
+    Assert.assertEquals(256L, c.instances);
+    Assert.assertTrue(after - before < 1000L);
+  }
+
+  private static void runFrame(
+    final R2SceneOpaquesType o,
+    final List<R2InstanceSingleType> instances,
+    final List<R2MaterialOpaqueSingleType<Object>> materials,
+    final CountingConsumer c)
+  {
+    o.opaquesReset();
+    final int size = instances.size();
+    for (int index = 0; index < size; ++index) {
+      o.opaquesAddSingleInstanceInGroup(
+        instances.get(index),
+        materials.get(index % materials.size()),
+        1 + (index % 15));
+    }
+    c.instances = 0L;
+    o.opaquesExecute(c);
+  }
+
   private static final class LoggingConsumer implements
     R2SceneOpaquesConsumerType
   {
@@ -1252,6 +1330,82 @@ public final class R2SceneOpaquesTest
     }
   }
 
+  private static final class CountingConsumer extends UnreachableConsumer
+  {
+    private long instances;
+
+    CountingConsumer()
+    {
+
+    }
+
+    @Override
+    public void onStart()
+    {
+
+    }
+
+    @Override
+    public void onStartGroup(final int group)
+    {
+
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderStart(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialStart(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+
+    }
+
+    @Override
+    public void onInstanceSingleArrayStart(final R2InstanceSingleType i)
+    {
+
+    }
+
+    @Override
+    public <M> void onInstanceSingle(
+      final R2MaterialOpaqueSingleType<M> material,
+      final R2InstanceSingleType i)
+    {
+      ++this.instances;
+    }
+
+    @Override
+    public <M> void onInstanceSingleMaterialFinish(
+      final R2MaterialOpaqueSingleType<M> material)
+    {
+
+    }
+
+    @Override
+    public <M> void onInstanceSingleShaderFinish(
+      final R2ShaderInstanceSingleUsableType<M> s)
+    {
+
+    }
+
+    @Override
+    public void onFinishGroup(final int group)
+    {
+
+    }
+
+    @Override
+    public void onFinish()
+    {
+
+    }
+  }
+
   private static abstract class UnreachableConsumer
     implements R2SceneOpaquesConsumerType
   {
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.rendering.lights;
+
+import com.io7m.jaffirm.core.PreconditionViolationException;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.rendering.lights.R2LightTileBinning;
+import com.io7m.r2.spaces.R2SpaceClipType;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2LightTileBinningTest
+{
+  @Rule public final ExpectedException expected = ExpectedException.none();
+
+  private static PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> orthographic()
+  {
+    return PMatrix4x4D.of(
+      1.0, 0.0, 0.0, 0.0,
+      0.0, 1.0, 0.0, 0.0,
+      0.0, 0.0, 1.0, 0.0,
+      0.0, 0.0, 0.0, 1.0);
+  }
+
+  private static PMatrix4x4D<R2SpaceEyeType, R2SpaceClipType> perspective()
+  {
+    return PMatrix4x4D.of(
+      1.0, 0.0, 0.0, 0.0,
+      0.0, 1.0, 0.0, 0.0,
+      0.0, 0.0, -1.0, -0.2,
+      0.0, 0.0, -1.0, 0.0);
+  }
+
+  private static int totalCount(
+    final R2LightTileBinning b)
+  {
+    int total = 0;
+    for (int y = 0; y < b.tilesY(); ++y) {
+      for (int x = 0; x < b.tilesX(); ++x) {
+        total += b.tileCount(x, y);
+      }
+    }
+    return total;
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(100, 50);
+    b.finish();
+
+    Assert.assertEquals(7L, (long) b.tilesX());
+    Assert.assertEquals(4L, (long) b.tilesY());
+    Assert.assertEquals(0L, (long) b.lightCount());
+    Assert.assertEquals(0L, (long) b.indexCount());
+    Assert.assertEquals(0L, (long) totalCount(b));
+  }
+
+  @Test
+  public void testCentered()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertTrue(b.add(0.0, 0.0, -1.0, 0.1, orthographic()));
+    b.finish();
+
+    Assert.assertEquals(1L, (long) b.lightCount());
+    Assert.assertEquals(4L, (long) b.indexCount());
+
+    for (int y = 0; y < 4; ++y) {
+      for (int x = 0; x < 4; ++x) {
+        final boolean inside = x >= 1 && x <= 2 && y >= 1 && y <= 2;
+        Assert.assertEquals(inside ? 1L : 0L, (long) b.tileCount(x, y));
+        if (inside) {
+          Assert.assertEquals(0L, (long) b.index(b.tileOffset(x, y)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCorners()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertTrue(b.add(-0.9, -0.9, -1.0, 0.05, orthographic()));
+    Assert.assertTrue(b.add(0.9, 0.9, -1.0, 0.05, orthographic()));
+    Assert.assertTrue(b.add(0.0, 0.0, -1.0, 2.0, orthographic()));
+    b.finish();
+
+    Assert.assertEquals(3L, (long) b.lightCount());
+    Assert.assertEquals(18L, (long) b.indexCount());
+    Assert.assertEquals(2L, (long) b.tileCount(0, 0));
+    Assert.assertEquals(2L, (long) b.tileCount(3, 3));
+    Assert.assertEquals(1L, (long) b.tileCount(3, 0));
+
+    final int o = b.tileOffset(0, 0);
+    Assert.assertEquals(0L, (long) b.index(o));
+    Assert.assertEquals(2L, (long) b.index(o + 1));
+
+    final int p = b.tileOffset(3, 3);
+    Assert.assertEquals(1L, (long) b.index(p));
+    Assert.assertEquals(2L, (long) b.index(p + 1));
+  }
+
+  @Test
+  public void testOffscreen()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertFalse(b.add(3.0, 0.0, -1.0, 1.0, orthographic()));
+    Assert.assertFalse(b.add(0.0, -3.0, -1.0, 1.0, orthographic()));
+    b.finish();
+
+    Assert.assertEquals(0L, (long) b.lightCount());
+    Assert.assertEquals(0L, (long) totalCount(b));
+  }
+
+  @Test
+  public void testBehindObserver()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertFalse(b.add(0.0, 0.0, 5.0, 1.0, perspective()));
+    b.finish();
+
+    Assert.assertEquals(0L, (long) b.lightCount());
+  }
+
+  @Test
+  public void testStraddlesObserver()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertTrue(b.add(0.0, 0.0, 0.0, 1.0, perspective()));
+    b.finish();
+
+    Assert.assertEquals(16L, (long) b.indexCount());
+    Assert.assertEquals(16L, (long) totalCount(b));
+  }
+
+  @Test
+  public void testPerspectiveDistance()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    Assert.assertTrue(b.add(0.0, 0.0, -100.0, 1.0, perspective()));
+    b.finish();
+
+    Assert.assertEquals(4L, (long) b.indexCount());
+  }
+
+  @Test
+  public void testManyLights()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(8);
+    b.reset(640, 480);
+
+    for (int index = 0; index < 1024; ++index) {
+      final double x = ((double) (index % 32) / 16.0) - 1.0;
+      final double y = ((double) (index / 32) / 16.0) - 1.0;
+      Assert.assertTrue(b.add(x, y, -1.0, 0.01, orthographic()));
+    }
+    b.finish();
+
+    Assert.assertEquals(1024L, (long) b.lightCount());
+    Assert.assertEquals((long) b.indexCount(), (long) totalCount(b));
+
+    for (int index = 0; index < b.indexCount(); ++index) {
+      final int light = b.index(index);
+      Assert.assertTrue(light >= 0 && light < 1024);
+    }
+  }
+
+  @Test
+  public void testAddAfterFinish()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    b.finish();
+
+    this.expected.expect(PreconditionViolationException.class);
+    b.add(0.0, 0.0, -1.0, 1.0, orthographic());
+  }
+
+  @Test
+  public void testTileOutOfRange()
+  {
+    final R2LightTileBinning b = R2LightTileBinning.create(16);
+    b.reset(64, 64);
+    b.finish();
+
+    this.expected.expect(PreconditionViolationException.class);
+    b.tileCount(4, 0);
+  }
+}
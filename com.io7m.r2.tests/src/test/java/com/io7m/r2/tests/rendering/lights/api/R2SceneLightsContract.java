@@ -21,6 +21,7 @@ import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
 import com.io7m.jnull.NullCheck;
 import com.io7m.junreachable.UnreachableCodeException;
 import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.lights.R2LightBatchedReadableType;
 import com.io7m.r2.lights.R2LightSingleReadableType;
 import com.io7m.r2.lights.R2LightSingleType;
 import com.io7m.r2.rendering.lights.api.R2ExceptionLightAlreadyVisible;
@@ -32,6 +33,7 @@ import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupConsumerType;
 import com.io7m.r2.rendering.lights.api.R2SceneLightsGroupType;
 import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
 import com.io7m.r2.rendering.stencil.api.R2ExceptionStencilInvalidGroup;
+import com.io7m.r2.shaders.light.api.R2ShaderLightBatchedUsableType;
 import com.io7m.r2.shaders.light.api.R2ShaderLightSingleUsableType;
 import com.io7m.r2.tests.core.R2TestUtilities;
 import org.junit.Assert;
@@ -432,6 +434,138 @@ public abstract class R2SceneLightsContract
     Assert.assertEquals(0L, (long) log.size());
   }
 
+  @Test
+  public final void testGroupBatchedExec()
+    throws Exception
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+
+    final R2SceneLightsType o = this.newLights();
+    final R2SceneLightsGroupType lg = o.lightsGetGroup(1);
+
+    final JCGLArrayObjectType a0 =
+      R2TestUtilities.getArrayObject(g);
+    final JCGLArrayObjectType a1 =
+      R2TestUtilities.getArrayObject(g);
+
+    final R2ShaderLightSingleUsableType<R2LightSingleType> s0 =
+      R2TestUtilities.getShaderLightSingle(g, 0L);
+    final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> s1 =
+      R2TestUtilities.getShaderLightBatched(g, 1L);
+    final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> s2 =
+      R2TestUtilities.getShaderLightBatched(g, 2L);
+
+    final R2LightSingleType l10 =
+      R2TestUtilities.getLightSingle(a0, 10L);
+    final R2LightBatchedReadableType b11 =
+      R2TestUtilities.getLightBatched(a1, 11L, 4);
+    final R2LightBatchedReadableType b12 =
+      R2TestUtilities.getLightBatched(a1, 12L, 4);
+    final R2LightBatchedReadableType b13 =
+      R2TestUtilities.getLightBatched(a1, 13L, 4);
+
+    lg.lightGroupAddBatched(b11, s2);
+    lg.lightGroupAddBatched(b12, s1);
+    lg.lightGroupAddSingle(l10, s0);
+    lg.lightGroupAddBatched(b13, s2);
+
+    Assert.assertEquals(4L, o.lightsCount());
+
+    final List<String> log = new ArrayList<>(128);
+    o.lightsExecute(new LoggingConsumer(
+      log, LoggingGroupConsumer::new, LoggingClipGroupConsumer::new));
+
+    dumpLog(log);
+
+    Assert.assertEquals("onStart", log.remove(0));
+    Assert.assertEquals("onStartGroup 1", log.remove(0));
+    Assert.assertEquals("Group.onStart 1", log.remove(0));
+    Assert.assertEquals("Group.onLightSingleShaderStart 0", log.remove(0));
+    Assert.assertEquals("Group.onLightSingleArrayStart 10", log.remove(0));
+    Assert.assertEquals("Group.onLightSingle 0 10", log.remove(0));
+    Assert.assertEquals("Group.onLightSingleShaderFinish 0", log.remove(0));
+    Assert.assertEquals("Group.onLightBatchedShaderStart 2", log.remove(0));
+    Assert.assertEquals("Group.onLightBatched 2 11", log.remove(0));
+    Assert.assertEquals("Group.onLightBatched 2 13", log.remove(0));
+    Assert.assertEquals("Group.onLightBatchedShaderFinish 2", log.remove(0));
+    Assert.assertEquals("Group.onLightBatchedShaderStart 1", log.remove(0));
+    Assert.assertEquals("Group.onLightBatched 1 12", log.remove(0));
+    Assert.assertEquals("Group.onLightBatchedShaderFinish 1", log.remove(0));
+    Assert.assertEquals("Group.onFinish 1", log.remove(0));
+    Assert.assertEquals("onFinish", log.remove(0));
+    Assert.assertEquals(0L, (long) log.size());
+  }
+
+  @Test
+  public final void testClipGroupBatchedExec()
+    throws Exception
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+
+    final R2SceneLightsType o = this.newLights();
+    final R2SceneLightsGroupType lg = o.lightsGetGroup(1);
+
+    final JCGLArrayObjectType a0 =
+      R2TestUtilities.getArrayObject(g);
+
+    final R2InstanceSingleType i0 =
+      R2TestUtilities.getInstanceSingle(g, a0, 0L);
+
+    final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> s1 =
+      R2TestUtilities.getShaderLightBatched(g, 1L);
+
+    final R2LightBatchedReadableType b10 =
+      R2TestUtilities.getLightBatched(a0, 10L, 4);
+
+    final R2SceneLightsClipGroupType cg =
+      lg.lightGroupNewClipGroup(i0);
+    cg.clipGroupAddBatched(b10, s1);
+
+    Assert.assertEquals(1L, o.lightsCount());
+
+    final List<String> log = new ArrayList<>(128);
+    o.lightsExecute(new LoggingConsumer(
+      log, LoggingGroupConsumer::new, LoggingClipGroupConsumer::new));
+
+    dumpLog(log);
+
+    Assert.assertEquals("onStart", log.remove(0));
+    Assert.assertEquals("onStartClipGroup 0 1", log.remove(0));
+    Assert.assertEquals("ClipGroup.onStart 1", log.remove(0));
+    Assert.assertEquals(
+      "ClipGroup.onLightBatchedShaderStart 1", log.remove(0));
+    Assert.assertEquals("ClipGroup.onLightBatched 1 10", log.remove(0));
+    Assert.assertEquals(
+      "ClipGroup.onLightBatchedShaderFinish 1", log.remove(0));
+    Assert.assertEquals("ClipGroup.onFinish 1", log.remove(0));
+    Assert.assertEquals("onFinish", log.remove(0));
+    Assert.assertEquals(0L, (long) log.size());
+  }
+
+  @Test
+  public final void testGroupBatchedAddTwice()
+    throws Exception
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+
+    final R2SceneLightsType o = this.newLights();
+    final R2SceneLightsGroupType lg = o.lightsGetGroup(1);
+
+    final JCGLArrayObjectType a0 =
+      R2TestUtilities.getArrayObject(g);
+
+    final R2ShaderLightBatchedUsableType<R2LightBatchedReadableType> s0 =
+      R2TestUtilities.getShaderLightBatched(g, 0L);
+
+    final R2LightBatchedReadableType b0 =
+      R2TestUtilities.getLightBatched(a0, 1L, 4);
+
+    lg.lightGroupAddBatched(b0, s0);
+
+    this.expected.expect(R2ExceptionLightAlreadyVisible.class);
+    lg.lightGroupAddBatched(b0, s0);
+  }
+
   @Test
   public final void testGroupLightAddTwice()
     throws Exception
@@ -859,6 +993,38 @@ public abstract class R2SceneLightsContract
         Long.valueOf(s.shaderID())));
     }
 
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.log.add(String.format(
+        "ClipGroup.onLightBatchedShaderStart %d",
+        Long.valueOf(s.shaderID())));
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M i)
+    {
+      this.log.add(String.format(
+        "ClipGroup.onLightBatched %d %d",
+        Long.valueOf(s.shaderID()),
+        Long.valueOf(i.lightID())));
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.log.add(String.format(
+        "ClipGroup.onLightBatchedShaderFinish %d",
+        Long.valueOf(s.shaderID())));
+    }
+
     @Override
     public void onFinish()
     {
@@ -930,6 +1096,38 @@ public abstract class R2SceneLightsContract
         Long.valueOf(s.shaderID())));
     }
 
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderStart(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.log.add(String.format(
+        "Group.onLightBatchedShaderStart %d",
+        Long.valueOf(s.shaderID())));
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatched(
+      final R2ShaderLightBatchedUsableType<M> s,
+      final M i)
+    {
+      this.log.add(String.format(
+        "Group.onLightBatched %d %d",
+        Long.valueOf(s.shaderID()),
+        Long.valueOf(i.lightID())));
+    }
+
+    @Override
+    public <M extends R2LightBatchedReadableType>
+    void onLightBatchedShaderFinish(
+      final R2ShaderLightBatchedUsableType<M> s)
+    {
+      this.log.add(String.format(
+        "Group.onLightBatchedShaderFinish %d",
+        Long.valueOf(s.shaderID())));
+    }
+
     @Override
     public void onFinish()
     {
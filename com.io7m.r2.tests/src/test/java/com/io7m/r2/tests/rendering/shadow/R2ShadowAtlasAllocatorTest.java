@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.rendering.shadow;
+
+import com.io7m.jaffirm.core.PreconditionViolationException;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
+import com.io7m.r2.rendering.shadow.R2ShadowAtlasAllocator;
+import com.io7m.r2.rendering.shadow.R2ShadowAtlasRegion;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public final class R2ShadowAtlasAllocatorTest
+{
+  @Rule public final ExpectedException expected = ExpectedException.none();
+
+  private static boolean overlaps(
+    final R2ShadowAtlasRegion a,
+    final R2ShadowAtlasRegion b)
+  {
+    return a.x() < b.x() + b.width()
+      && b.x() < a.x() + a.width()
+      && a.y() < b.y() + b.height()
+      && b.y() < a.y() + a.height();
+  }
+
+  @Test
+  public void testAllocateWhole()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(1024L, 1024L);
+
+    final R2ShadowAtlasRegion r = a.allocate(1024L, 1024L).get();
+    Assert.assertEquals(0L, r.x());
+    Assert.assertEquals(0L, r.y());
+    Assert.assertEquals(1024L * 1024L, a.usedArea());
+    Assert.assertFalse(a.allocate(1L, 1L).isPresent());
+  }
+
+  @Test
+  public void testAllocateTooLarge()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(256L, 256L);
+
+    Assert.assertFalse(a.allocate(512L, 16L).isPresent());
+    Assert.assertFalse(a.allocate(16L, 512L).isPresent());
+    Assert.assertEquals(0L, a.usedArea());
+  }
+
+  @Test
+  public void testAllocateQuarters()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(1024L, 1024L);
+
+    final List<R2ShadowAtlasRegion> regions = new ArrayList<>(4);
+    for (int index = 0; index < 4; ++index) {
+      regions.add(a.allocate(512L, 512L).get());
+    }
+
+    Assert.assertFalse(a.allocate(512L, 512L).isPresent());
+    Assert.assertEquals(1024L * 1024L, a.usedArea());
+
+    for (int x = 0; x < regions.size(); ++x) {
+      for (int y = x + 1; y < regions.size(); ++y) {
+        Assert.assertFalse(overlaps(regions.get(x), regions.get(y)));
+      }
+    }
+  }
+
+  @Test
+  public void testAllocateMixedNoOverlap()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(2048L, 2048L);
+
+    final long[] sizes = {1024L, 256L, 512L, 128L, 256L, 1024L, 64L, 512L};
+    final List<R2ShadowAtlasRegion> regions = new ArrayList<>(sizes.length);
+    for (final long size : sizes) {
+      final Optional<R2ShadowAtlasRegion> r = a.allocate(size, size);
+      Assert.assertTrue(r.isPresent());
+      final R2ShadowAtlasRegion region = r.get();
+      Assert.assertTrue(region.x() + region.width() <= a.width());
+      Assert.assertTrue(region.y() + region.height() <= a.height());
+      regions.add(region);
+    }
+
+    for (int x = 0; x < regions.size(); ++x) {
+      for (int y = x + 1; y < regions.size(); ++y) {
+        Assert.assertFalse(overlaps(regions.get(x), regions.get(y)));
+      }
+    }
+  }
+
+  @Test
+  public void testClear()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(512L, 512L);
+
+    Assert.assertTrue(a.allocate(512L, 512L).isPresent());
+    Assert.assertFalse(a.allocate(512L, 512L).isPresent());
+    a.clear();
+    Assert.assertEquals(0L, a.usedArea());
+    Assert.assertTrue(a.allocate(512L, 512L).isPresent());
+  }
+
+  @Test
+  public void testMapRegion()
+  {
+    final R2ShadowMapRegion r =
+      R2ShadowAtlasRegion.of(512L, 256L, 256L, 128L)
+        .toMapRegion(1024L, 1024L);
+
+    Assert.assertEquals(0.25, r.scaleX(), 0.0);
+    Assert.assertEquals(0.125, r.scaleY(), 0.0);
+    Assert.assertEquals(0.5, r.offsetX(), 0.0);
+    Assert.assertEquals(0.25, r.offsetY(), 0.0);
+  }
+
+  @Test
+  public void testAllocateInvalid()
+  {
+    final R2ShadowAtlasAllocator a =
+      R2ShadowAtlasAllocator.create(512L, 512L);
+
+    this.expected.expect(PreconditionViolationException.class);
+    a.allocate(0L, 16L);
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.io7m.r2.tests.rendering.shadow.api;
 
+import com.io7m.jcanephora.core.JCGLFaceSelection;
 import com.io7m.jcanephora.core.JCGLTexture2DUsableType;
 import com.io7m.jcanephora.core.JCGLTextureFilterMagnification;
 import com.io7m.jcanephora.core.JCGLTextureFilterMinification;
@@ -33,6 +34,7 @@ import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
 
 import com.io7m.r2.core.api.ids.R2IDPool;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
+import com.io7m.r2.instances.R2InstanceBatchedType;
 import com.io7m.r2.instances.R2InstanceSingle;
 import com.io7m.r2.instances.R2InstanceSingleType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowVariance;
@@ -44,10 +46,13 @@ import com.io7m.r2.meshes.defaults.R2UnitQuad;
 import com.io7m.r2.projections.R2ProjectionFOV;
 import com.io7m.r2.projections.R2ProjectionMesh;
 import com.io7m.r2.projections.R2ProjectionMeshType;
+import com.io7m.r2.rendering.api.R2RenderStateTracker;
 import com.io7m.r2.rendering.depth.R2DepthInstances;
 
+import com.io7m.r2.rendering.depth.api.R2DepthInstancesConsumerType;
 import com.io7m.r2.rendering.depth.api.R2DepthInstancesType;
 import com.io7m.r2.rendering.depth.api.R2DepthPrecision;
+import com.io7m.r2.rendering.depth.api.R2MaterialDepthBatchedType;
 import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingle;
 import com.io7m.r2.rendering.depth.api.R2MaterialDepthSingleType;
 import com.io7m.r2.rendering.depth.variance.R2DepthVarianceBufferPool;
@@ -89,10 +94,19 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
   @Rule public ExpectedException expected = ExpectedException.none();
 
   protected abstract R2DepthVarianceRendererType newVarianceRenderer(
-    final JCGLInterfaceGL33Type g);
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states);
 
   protected abstract R2ShadowMapRendererType newShadowMapRenderer(
     final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states,
+    final R2DepthVarianceRendererType dvr,
+    final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
+          R2DepthVarianceBufferUsableType> vp);
+
+  protected abstract R2ShadowMapRendererType newShadowMapRendererCaching(
+    final JCGLInterfaceGL33Type g,
+    final R2RenderStateTracker states,
     final R2DepthVarianceRendererType dvr,
     final R2RenderTargetPoolUsableType<R2DepthVarianceBufferDescription,
           R2DepthVarianceBufferUsableType> vp);
@@ -105,8 +119,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
     final JCGLInterfaceGL33Type g =
       c.contextGetGL33();
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
           R2DepthVarianceBufferDescription,
@@ -114,7 +130,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
     final R2ShadowMapContextType mc = rc.shadowExecComplete();
@@ -129,8 +145,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
     final JCGLInterfaceGL33Type g =
       c.contextGetGL33();
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
       R2DepthVarianceBufferDescription,
@@ -138,7 +156,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc =
       r.shadowBegin();
@@ -155,8 +173,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
     final JCGLInterfaceGL33Type g =
       c.contextGetGL33();
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
       R2DepthVarianceBufferDescription,
@@ -164,7 +184,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc =
       r.shadowBegin();
@@ -184,8 +204,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
     final JCGLInterfaceGL33Type g =
       c.contextGetGL33();
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
       R2DepthVarianceBufferDescription,
@@ -193,7 +215,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc =
       r.shadowBegin();
@@ -247,8 +269,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthInstances.create();
     di.depthsAddSingleInstance(i, mat);
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
       R2DepthVarianceBufferDescription,
@@ -256,7 +280,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc =
       r.shadowBegin();
@@ -318,6 +342,370 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
     Assert.assertTrue(map.isDeleted());
   }
 
+  @Test
+  public final void testRenderCached()
+  {
+    final JCGLContextType c =
+      this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g =
+      c.contextGetGL33();
+
+    final JCGLTextureUnitAllocatorType ta =
+      JCGLTextureUnitAllocator.newAllocatorWithStack(
+        8, g.textures().textureGetUnits());
+    final JCGLTextureUnitContextParentType tc =
+      ta.rootContext();
+    final R2TextureDefaultsType td =
+      R2TextureDefaults.create(g.textures(), tc);
+
+    final R2UnitQuadType quad =
+      R2UnitQuad.newUnitQuad(g);
+    final R2IDPoolType id_pool =
+      R2IDPool.newPool();
+    final R2DepthShaderBasicParameters ds_param =
+      R2DepthShaderBasicParameters.of(td, td.white2D(), 0.0f);
+
+    final R2ShaderPreprocessingEnvironmentType sources =
+      ShaderPreprocessing.preprocessor();
+    final R2ShaderDepthSingleType<R2DepthShaderBasicParameters> ds =
+      R2DepthShaderBasicSingle.create(g.shaders(), sources, id_pool);
+    final R2MaterialDepthSingleType<R2DepthShaderBasicParameters> mat =
+      R2MaterialDepthSingle.of(id_pool.freshID(), ds, ds_param);
+
+    final R2InstanceSingleType i =
+      R2InstanceSingle.of(
+        id_pool.freshID(),
+        quad.arrayObject(),
+        R2TransformIdentity.get(),
+        PMatrices3x3D.identity());
+
+    final R2DepthInstancesType di =
+      R2DepthInstances.create();
+    di.depthsAddSingleInstance(i, mat);
+
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
+    final R2DepthVarianceRendererType vr =
+      this.newVarianceRenderer(g, states);
+
+    final R2RenderTargetPoolType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp =
+      R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
+
+    final R2ShadowMapRendererType r =
+      this.newShadowMapRendererCaching(g, states, vr, vp);
+
+    final R2MatricesType m = R2Matrices.create();
+
+    final R2ProjectionFOV proj =
+      R2ProjectionFOV.createWith(
+        (float) Math.toRadians(90.0f), 1.0f, 0.001f, 1000.0f);
+
+    final R2ProjectionMeshType mesh =
+      R2ProjectionMesh.create(
+        g,
+        proj,
+        JCGLUsageHint.USAGE_STATIC_DRAW,
+        JCGLUsageHint.USAGE_STATIC_DRAW);
+    final R2Texture2DUsableType image =
+      td.whiteProjective2D();
+
+    final R2DepthVarianceBufferDescription.Builder db =
+      R2DepthVarianceBufferDescription.builder();
+    db.setDepthPrecision(
+      R2DepthPrecision.R2_DEPTH_PRECISION_24);
+    db.setDepthVariancePrecision(
+      R2DepthVariancePrecision.R2_DEPTH_VARIANCE_PRECISION_16);
+    db.setMagnificationFilter(
+      JCGLTextureFilterMagnification.TEXTURE_FILTER_LINEAR);
+    db.setMinificationFilter(
+      JCGLTextureFilterMinification.TEXTURE_FILTER_LINEAR_MIPMAP_LINEAR);
+    db.setArea(AreaSizeL.of(512L, 512L));
+    final R2DepthVarianceBufferDescription desc = db.build();
+
+    final R2ShadowDepthVariance shadow =
+      R2ShadowDepthVariance.of(id_pool.freshID(), desc);
+
+    final R2LightProjectiveWithShadowVarianceType ls =
+      R2LightProjectiveWithShadowVariance.create(
+        mesh, image, shadow, id_pool);
+
+    final R2TransformOTType tr = ls.transformWritable();
+    tr.setTranslation(PVector3D.of(0.0, 0.0, 10.0));
+
+    final JCGLTexture2DUsableType map0;
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      map0 = mc.shadowMapGet(ls).texture();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(1L, r.shadowMapsRendered());
+      Assert.assertEquals(0L, r.shadowMapsReused());
+      Assert.assertFalse(map0.isDeleted());
+    }
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      Assert.assertSame(map0, mc.shadowMapGet(ls).texture());
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(0L, r.shadowMapsRendered());
+      Assert.assertEquals(1L, r.shadowMapsReused());
+    }
+
+    tr.setTranslation(PVector3D.of(0.0, 0.0, 20.0));
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(1L, r.shadowMapsRendered());
+      Assert.assertEquals(0L, r.shadowMapsReused());
+    }
+
+    r.shadowCacheInvalidate();
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(1L, r.shadowMapsRendered());
+      Assert.assertEquals(0L, r.shadowMapsReused());
+    }
+
+    final R2MaterialDepthSingleType<R2DepthShaderBasicParameters> mat_other =
+      R2MaterialDepthSingle.of(id_pool.freshID(), ds, ds_param);
+    di.depthsReset();
+    di.depthsAddSingleInstance(i, mat_other);
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(1L, r.shadowMapsRendered());
+      Assert.assertEquals(0L, r.shadowMapsReused());
+    }
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(0L, r.shadowMapsRendered());
+      Assert.assertEquals(1L, r.shadowMapsReused());
+    }
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      mc.shadowMapContextFinish();
+      Assert.assertFalse(map0.isDeleted());
+    }
+
+    r.shadowCacheRelease(tc);
+    Assert.assertTrue(map0.isDeleted());
+  }
+
+  @Test
+  public final void testRenderCachedDuplicateCasters()
+  {
+    final JCGLContextType c =
+      this.newGL33Context("main", 24, 8);
+    final JCGLInterfaceGL33Type g =
+      c.contextGetGL33();
+
+    final JCGLTextureUnitAllocatorType ta =
+      JCGLTextureUnitAllocator.newAllocatorWithStack(
+        8, g.textures().textureGetUnits());
+    final JCGLTextureUnitContextParentType tc =
+      ta.rootContext();
+    final R2TextureDefaultsType td =
+      R2TextureDefaults.create(g.textures(), tc);
+
+    final R2UnitQuadType quad =
+      R2UnitQuad.newUnitQuad(g);
+    final R2IDPoolType id_pool =
+      R2IDPool.newPool();
+    final R2DepthShaderBasicParameters ds_param =
+      R2DepthShaderBasicParameters.of(td, td.white2D(), 0.0f);
+
+    final R2ShaderPreprocessingEnvironmentType sources =
+      ShaderPreprocessing.preprocessor();
+    final R2ShaderDepthSingleType<R2DepthShaderBasicParameters> ds =
+      R2DepthShaderBasicSingle.create(g.shaders(), sources, id_pool);
+    final R2MaterialDepthSingleType<R2DepthShaderBasicParameters> mat =
+      R2MaterialDepthSingle.of(id_pool.freshID(), ds, ds_param);
+
+    final R2InstanceSingleType i =
+      R2InstanceSingle.of(
+        id_pool.freshID(),
+        quad.arrayObject(),
+        R2TransformIdentity.get(),
+        PMatrices3x3D.identity());
+
+    final R2DepthInstancesType di_base =
+      R2DepthInstances.create();
+    di_base.depthsAddSingleInstance(i, mat);
+
+    /*
+     * Deliver every instance twice, as an instance set that renders the
+     * same instance with more than one material would.
+     */
+
+    final R2DepthInstancesType di = new R2DepthInstancesType()
+    {
+      @Override
+      public void depthsSetFaceCulling(final JCGLFaceSelection f)
+      {
+        di_base.depthsSetFaceCulling(f);
+      }
+
+      @Override
+      public JCGLFaceSelection depthsGetFaceCulling()
+      {
+        return di_base.depthsGetFaceCulling();
+      }
+
+      @Override
+      public void depthsReset()
+      {
+        di_base.depthsReset();
+      }
+
+      @Override
+      public <M> void depthsAddSingleInstance(
+        final R2InstanceSingleType in_i,
+        final R2MaterialDepthSingleType<M> in_m)
+      {
+        di_base.depthsAddSingleInstance(in_i, in_m);
+      }
+
+      @Override
+      public <M> void depthsAddBatchedInstance(
+        final R2InstanceBatchedType in_i,
+        final R2MaterialDepthBatchedType<M> in_m)
+      {
+        di_base.depthsAddBatchedInstance(in_i, in_m);
+      }
+
+      @Override
+      public void depthsExecute(
+        final R2DepthInstancesConsumerType c)
+      {
+        di_base.depthsExecute(c);
+        di_base.depthsExecute(c);
+      }
+
+      @Override
+      public long depthsCount()
+      {
+        return di_base.depthsCount() * 2L;
+      }
+    };
+
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
+    final R2DepthVarianceRendererType vr =
+      this.newVarianceRenderer(g, states);
+
+    final R2RenderTargetPoolType<
+      R2DepthVarianceBufferDescription,
+      R2DepthVarianceBufferUsableType> vp =
+      R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
+
+    final R2ShadowMapRendererType r =
+      this.newShadowMapRendererCaching(g, states, vr, vp);
+
+    final R2MatricesType m = R2Matrices.create();
+
+    final R2ProjectionFOV proj =
+      R2ProjectionFOV.createWith(
+        (float) Math.toRadians(90.0f), 1.0f, 0.001f, 1000.0f);
+
+    final R2ProjectionMeshType mesh =
+      R2ProjectionMesh.create(
+        g,
+        proj,
+        JCGLUsageHint.USAGE_STATIC_DRAW,
+        JCGLUsageHint.USAGE_STATIC_DRAW);
+    final R2Texture2DUsableType image =
+      td.whiteProjective2D();
+
+    final R2DepthVarianceBufferDescription.Builder db =
+      R2DepthVarianceBufferDescription.builder();
+    db.setDepthPrecision(
+      R2DepthPrecision.R2_DEPTH_PRECISION_24);
+    db.setDepthVariancePrecision(
+      R2DepthVariancePrecision.R2_DEPTH_VARIANCE_PRECISION_16);
+    db.setMagnificationFilter(
+      JCGLTextureFilterMagnification.TEXTURE_FILTER_LINEAR);
+    db.setMinificationFilter(
+      JCGLTextureFilterMinification.TEXTURE_FILTER_LINEAR_MIPMAP_LINEAR);
+    db.setArea(AreaSizeL.of(512L, 512L));
+    final R2DepthVarianceBufferDescription desc = db.build();
+
+    final R2ShadowDepthVariance shadow =
+      R2ShadowDepthVariance.of(id_pool.freshID(), desc);
+
+    final R2LightProjectiveWithShadowVarianceType ls =
+      R2LightProjectiveWithShadowVariance.create(
+        mesh, image, shadow, id_pool);
+
+    final R2TransformOTType tr = ls.transformWritable();
+    tr.setTranslation(PVector3D.of(0.0, 0.0, 10.0));
+
+    final JCGLTexture2DUsableType map0;
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      map0 = mc.shadowMapGet(ls).texture();
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(1L, r.shadowMapsRendered());
+      Assert.assertEquals(0L, r.shadowMapsReused());
+    }
+
+    {
+      final R2ShadowMapRendererExecutionType rc = r.shadowBegin();
+      rc.shadowExecRenderLight(
+        R2FakeProfilingContext.newFake(), tc, m, ls, di);
+      final R2ShadowMapContextType mc = rc.shadowExecComplete();
+      Assert.assertSame(map0, mc.shadowMapGet(ls).texture());
+      mc.shadowMapContextFinish();
+
+      Assert.assertEquals(0L, r.shadowMapsRendered());
+      Assert.assertEquals(1L, r.shadowMapsReused());
+    }
+
+    /*
+     * Deleting the renderer returns all cached maps to the pool.
+     */
+
+    r.delete(g);
+    Assert.assertTrue(r.isDeleted());
+    Assert.assertTrue(map0.isDeleted());
+  }
+
   @Test
   public final void testNonexistentShadow()
   {
@@ -359,8 +747,10 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthInstances.create();
     di.depthsAddSingleInstance(i, mat);
 
+    final R2RenderStateTracker states =
+      R2RenderStateTracker.create();
     final R2DepthVarianceRendererType vr =
-      this.newVarianceRenderer(g);
+      this.newVarianceRenderer(g, states);
 
     final R2RenderTargetPoolType<
       R2DepthVarianceBufferDescription,
@@ -368,7 +758,7 @@ public abstract class R2ShadowMapRendererContract extends R2JCGLContract
       R2DepthVarianceBufferPool.newPool(g, 0L, Long.MAX_VALUE);
 
     final R2ShadowMapRendererType r =
-      this.newShadowMapRenderer(g, vr, vp);
+      this.newShadowMapRenderer(g, states, vr, vp);
 
     final R2ShadowMapRendererExecutionType rc =
       r.shadowBegin();
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.r2.tests.shaders.api;
+
+import com.io7m.jcanephora.core.JCGLProgramUniformType;
+import com.io7m.jcanephora.core.JCGLTextureUnitType;
+import com.io7m.jcanephora.core.api.JCGLShadersType;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.shaders.api.R2ShaderUniformCache;
+import mockit.Mocked;
+import mockit.Verifications;
+import org.junit.Assert;
+import org.junit.Test;
+
+public final class R2ShaderUniformCacheTest
+{
+  @Test
+  public void testFloatRedundant(
+    final @Mocked JCGLShadersType g_sh,
+    final @Mocked JCGLProgramUniformType u0,
+    final @Mocked JCGLProgramUniformType u1)
+  {
+    final R2ShaderUniformCache c = R2ShaderUniformCache.create();
+    c.putFloat(g_sh, u0, 1.0f);
+    c.putFloat(g_sh, u0, 1.0f);
+    c.putFloat(g_sh, u1, 1.0f);
+    c.putFloat(g_sh, u0, 2.0f);
+    c.putFloat(g_sh, u0, 2.0f);
+
+    Assert.assertEquals(3L, c.uploads());
+    Assert.assertEquals(2L, c.uploadsAvoided());
+
+    new Verifications()
+    {{
+      g_sh.shaderUniformPutFloat(u0, 1.0f);
+      times = 1;
+      g_sh.shaderUniformPutFloat(u1, 1.0f);
+      times = 1;
+      g_sh.shaderUniformPutFloat(u0, 2.0f);
+      times = 1;
+    }};
+  }
+
+  @Test
+  public void testMatrixRedundant(
+    final @Mocked JCGLShadersType g_sh,
+    final @Mocked JCGLProgramUniformType u0)
+  {
+    final R2ShaderUniformCache c = R2ShaderUniformCache.create();
+    final PMatrix4x4D<Object, Object> m0 = PMatrices4x4D.identity();
+    final PMatrix4x4D<Object, Object> m1 = PMatrices4x4D.identity();
+    final PMatrix4x4D<Object, Object> m2 = PMatrices4x4D.zero();
+
+    c.putPMatrix4x4f(g_sh, u0, m0);
+    c.putPMatrix4x4f(g_sh, u0, m1);
+    c.putPMatrix4x4f(g_sh, u0, m2);
+
+    Assert.assertEquals(2L, c.uploads());
+    Assert.assertEquals(1L, c.uploadsAvoided());
+
+    c.resetCounters();
+    Assert.assertEquals(0L, c.uploads());
+    Assert.assertEquals(0L, c.uploadsAvoided());
+  }
+
+  @Test
+  public void testTextureUnitInvalidate(
+    final @Mocked JCGLShadersType g_sh,
+    final @Mocked JCGLProgramUniformType u0,
+    final @Mocked JCGLTextureUnitType t0)
+  {
+    final R2ShaderUniformCache c = R2ShaderUniformCache.create();
+    c.putTexture2DUnit(g_sh, u0, t0);
+    c.putTexture2DUnit(g_sh, u0, t0);
+    c.invalidate();
+    c.putTexture2DUnit(g_sh, u0, t0);
+
+    Assert.assertEquals(2L, c.uploads());
+    Assert.assertEquals(1L, c.uploadsAvoided());
+
+    new Verifications()
+    {{
+      g_sh.shaderUniformPutTexture2DUnit(u0, t0);
+      times = 2;
+    }};
+  }
+}
@@ -35,6 +35,7 @@ import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.r2.core.api.ids.R2IDPool;
 import com.io7m.r2.core.api.ids.R2IDPoolType;
 import com.io7m.r2.lights.R2LightProjectiveWithShadowReadableType;
+import com.io7m.r2.lights.shadows.R2ShadowMapRegion;
 import com.io7m.r2.matrices.R2Matrices;
 import com.io7m.r2.matrices.R2MatricesType;
 import com.io7m.r2.projections.R2ProjectionOrthographic;
@@ -174,7 +175,7 @@ public abstract class R2ShaderLightProjectiveWithShadowContract<
       return mo.withProjectiveLight(trans, proj, this, (mp, y) -> {
         f.onReceiveVolumeLightTransform(g, mp);
         f.onReceiveProjectiveLight(g, mp);
-        f.onReceiveShadowMap(g, tc, td.white2D());
+        f.onReceiveShadowMap(g, tc, td.white2D(), R2ShadowMapRegion.full());
         f.onValidate();
         f.onDeactivate(g);
         return Unit.unit();
@@ -0,0 +1,237 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.spatial;
+
+import com.io7m.jaffirm.core.PreconditionViolationException;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.r2.culling.R2CullingFrustum;
+import com.io7m.r2.spatial.R2SpatialBVH;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Random;
+
+public final class R2SpatialBVHTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static IntOpenHashSet queryBox(
+    final R2SpatialBVH<Integer> t,
+    final double min_x,
+    final double min_y,
+    final double min_z,
+    final double max_x,
+    final double max_y,
+    final double max_z)
+  {
+    final IntOpenHashSet results = new IntOpenHashSet();
+    t.bvhQueryBox(
+      min_x, min_y, min_z, max_x, max_y, max_z,
+      i -> results.add(i.intValue()));
+    return results;
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    Assert.assertEquals(0L, (long) t.bvhSize());
+    Assert.assertEquals(-1L, (long) t.bvhHeight());
+    Assert.assertTrue(
+      queryBox(t, -100.0, -100.0, -100.0, 100.0, 100.0, 100.0).isEmpty());
+  }
+
+  @Test
+  public void testInsertRemove()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    final int p0 =
+      t.bvhInsert(Integer.valueOf(0), 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+    final int p1 =
+      t.bvhInsert(Integer.valueOf(1), 5.0, 5.0, 5.0, 6.0, 6.0, 6.0);
+
+    Assert.assertEquals(2L, (long) t.bvhSize());
+    Assert.assertEquals(Integer.valueOf(0), t.bvhItem(p0));
+    Assert.assertEquals(Integer.valueOf(1), t.bvhItem(p1));
+
+    IntOpenHashSet r = queryBox(t, -1.0, -1.0, -1.0, 2.0, 2.0, 2.0);
+    Assert.assertEquals(1L, (long) r.size());
+    Assert.assertTrue(r.contains(0));
+
+    t.bvhRemove(p0);
+    Assert.assertEquals(1L, (long) t.bvhSize());
+    r = queryBox(t, -1.0, -1.0, -1.0, 2.0, 2.0, 2.0);
+    Assert.assertTrue(r.isEmpty());
+
+    r = queryBox(t, -10.0, -10.0, -10.0, 10.0, 10.0, 10.0);
+    Assert.assertEquals(1L, (long) r.size());
+    Assert.assertTrue(r.contains(1));
+  }
+
+  @Test
+  public void testRemoveNonexistent()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    final int p0 =
+      t.bvhInsert(Integer.valueOf(0), 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+    t.bvhRemove(p0);
+    this.expected.expect(PreconditionViolationException.class);
+    t.bvhRemove(p0);
+  }
+
+  @Test
+  public void testMove()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.5);
+    final int p0 =
+      t.bvhInsert(Integer.valueOf(0), 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+    t.bvhInsert(Integer.valueOf(1), 5.0, 5.0, 5.0, 6.0, 6.0, 6.0);
+
+    Assert.assertFalse(t.bvhMove(p0, 0.1, 0.1, 0.1, 1.1, 1.1, 1.1));
+    Assert.assertTrue(t.bvhMove(p0, 20.0, 20.0, 20.0, 21.0, 21.0, 21.0));
+
+    final IntOpenHashSet r = queryBox(t, 19.0, 19.0, 19.0, 22.0, 22.0, 22.0);
+    Assert.assertEquals(1L, (long) r.size());
+    Assert.assertTrue(r.contains(0));
+    Assert.assertTrue(
+      queryBox(t, -1.0, -1.0, -1.0, 2.0, 2.0, 2.0).isEmpty());
+  }
+
+  @Test
+  public void testRandomAgainstBruteForce()
+  {
+    final Random rng = new Random(0x5eedL);
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    final int count = 1000;
+    final double[] boxes = new double[count * 6];
+    final int[] proxies = new int[count];
+
+    for (int index = 0; index < count; ++index) {
+      final double x = rng.nextDouble() * 100.0;
+      final double y = rng.nextDouble() * 100.0;
+      final double z = rng.nextDouble() * 100.0;
+      final double s = rng.nextDouble() * 2.0;
+      final int b = index * 6;
+      boxes[b] = x;
+      boxes[b + 1] = y;
+      boxes[b + 2] = z;
+      boxes[b + 3] = x + s;
+      boxes[b + 4] = y + s;
+      boxes[b + 5] = z + s;
+      proxies[index] = t.bvhInsert(
+        Integer.valueOf(index), x, y, z, x + s, y + s, z + s);
+    }
+
+    Assert.assertEquals((long) count, (long) t.bvhSize());
+
+    /*
+     * A balanced tree of 1000 leaves should be nowhere near 1000 levels deep.
+     */
+
+    Assert.assertTrue(t.bvhHeight() < 32);
+
+    for (int query = 0; query < 100; ++query) {
+      final double x = rng.nextDouble() * 100.0;
+      final double y = rng.nextDouble() * 100.0;
+      final double z = rng.nextDouble() * 100.0;
+      final double s = rng.nextDouble() * 20.0;
+
+      final IntOpenHashSet expected_set = new IntOpenHashSet();
+      for (int index = 0; index < count; ++index) {
+        final int b = index * 6;
+        final boolean overlaps =
+          !(boxes[b] > x + s || boxes[b + 3] < x
+            || boxes[b + 1] > y + s || boxes[b + 4] < y
+            || boxes[b + 2] > z + s || boxes[b + 5] < z);
+        if (overlaps) {
+          expected_set.add(index);
+        }
+      }
+
+      Assert.assertEquals(
+        expected_set, queryBox(t, x, y, z, x + s, y + s, z + s));
+    }
+
+    for (int index = 0; index < count; index += 2) {
+      t.bvhRemove(proxies[index]);
+    }
+
+    Assert.assertEquals((long) count / 2L, (long) t.bvhSize());
+    final IntOpenHashSet all =
+      queryBox(t, -1.0, -1.0, -1.0, 200.0, 200.0, 200.0);
+    Assert.assertEquals((long) count / 2L, (long) all.size());
+    for (int index = 1; index < count; index += 2) {
+      Assert.assertTrue(all.contains(index));
+    }
+  }
+
+  @Test
+  public void testQuerySphere()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    t.bvhInsert(Integer.valueOf(0), 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+    t.bvhInsert(Integer.valueOf(1), 5.0, 5.0, 5.0, 6.0, 6.0, 6.0);
+
+    final IntOpenHashSet r = new IntOpenHashSet();
+    t.bvhQuerySphere(2.0, 0.5, 0.5, 1.5, i -> r.add(i.intValue()));
+    Assert.assertEquals(1L, (long) r.size());
+    Assert.assertTrue(r.contains(0));
+
+    r.clear();
+    t.bvhQuerySphere(2.0, 0.5, 0.5, 0.5, i -> r.add(i.intValue()));
+    Assert.assertTrue(r.isEmpty());
+  }
+
+  @Test
+  public void testQueryFrustum()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    t.bvhInsert(Integer.valueOf(0), -0.5, -0.5, -0.5, 0.5, 0.5, 0.5);
+    t.bvhInsert(Integer.valueOf(1), 5.0, 5.0, 5.0, 6.0, 6.0, 6.0);
+
+    final R2CullingFrustum f = R2CullingFrustum.create();
+    f.updateFromMatrices(PMatrices4x4D.identity(), PMatrices4x4D.identity());
+
+    final IntOpenHashSet r = new IntOpenHashSet();
+    t.bvhQueryFrustum(f, i -> r.add(i.intValue()));
+    Assert.assertEquals(1L, (long) r.size());
+    Assert.assertTrue(r.contains(0));
+  }
+
+  @Test
+  public void testClear()
+  {
+    final R2SpatialBVH<Integer> t = R2SpatialBVH.create(0.0);
+    for (int index = 0; index < 100; ++index) {
+      t.bvhInsert(
+        Integer.valueOf(index),
+        (double) index, 0.0, 0.0, (double) index + 1.0, 1.0, 1.0);
+    }
+
+    t.bvhClear();
+    Assert.assertEquals(0L, (long) t.bvhSize());
+    Assert.assertTrue(
+      queryBox(t, -1000.0, -1000.0, -1000.0, 1000.0, 1000.0, 1000.0).isEmpty());
+
+    t.bvhInsert(Integer.valueOf(23), 0.0, 0.0, 0.0, 1.0, 1.0, 1.0);
+    Assert.assertEquals(1L, (long) t.bvhSize());
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.spatial;
+
+import com.io7m.jcanephora.core.JCGLArrayObjectType;
+import com.io7m.jcanephora.core.api.JCGLInterfaceGL33Type;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices3x3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.unparameterized.vectors.Vector3D;
+import com.io7m.r2.culling.R2BoundingSphere;
+import com.io7m.r2.culling.R2BoundingSphereType;
+import com.io7m.r2.instances.R2ExceptionInstanceAlreadyVisible;
+import com.io7m.r2.instances.R2InstanceSingle;
+import com.io7m.r2.instances.R2InstanceSingleType;
+import com.io7m.r2.rendering.geometry.R2SceneOpaques;
+import com.io7m.r2.rendering.geometry.api.R2MaterialOpaqueSingleType;
+import com.io7m.r2.rendering.geometry.api.R2SceneOpaquesType;
+import com.io7m.r2.rendering.lights.R2SceneLights;
+import com.io7m.r2.rendering.lights.api.R2SceneLightsType;
+import com.io7m.r2.rendering.stencil.api.R2ExceptionStencilInvalidGroup;
+import com.io7m.r2.shaders.geometry.api.R2ShaderGeometrySingleUsableType;
+import com.io7m.r2.spatial.R2SpatialScene;
+import com.io7m.r2.spatial.R2SpatialSceneType;
+import com.io7m.r2.tests.core.R2TestUtilities;
+import com.io7m.r2.transforms.R2TransformSiOT;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public final class R2SpatialSceneTest
+{
+  @Rule public ExpectedException expected = ExpectedException.none();
+
+  private static R2BoundingSphereType unitSphere()
+  {
+    return R2BoundingSphere.of(Vector3D.of(0.0, 0.0, 0.0), 0.5);
+  }
+
+  private static R2InstanceSingleType instanceAt(
+    final JCGLArrayObjectType a,
+    final long id,
+    final R2TransformSiOT t)
+  {
+    return R2InstanceSingle.of(id, a, t, PMatrices3x3D.identity());
+  }
+
+  @Test
+  public void testQueryFrustum()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a = R2TestUtilities.getArrayObject(g);
+    final R2ShaderGeometrySingleUsableType<Object> s =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(g, s, new Object(), 0L);
+
+    final R2TransformSiOT t0 = R2TransformSiOT.create();
+    final R2TransformSiOT t1 = R2TransformSiOT.create();
+    t1.setTranslation(PVector3D.of(10.0, 0.0, 0.0));
+
+    final R2InstanceSingleType i0 = instanceAt(a, 0L, t0);
+    final R2InstanceSingleType i1 = instanceAt(a, 1L, t1);
+
+    final R2SpatialSceneType sp = R2SpatialScene.create();
+    sp.spatialAddSingleInstance(i0, unitSphere(), m, 1);
+    sp.spatialAddSingleInstance(i1, unitSphere(), m, 2);
+    Assert.assertEquals(2L, sp.spatialInstanceCount());
+
+    final R2SceneOpaquesType opaques = R2SceneOpaques.create();
+    final R2SceneLightsType lights = R2SceneLights.create();
+
+    sp.spatialQueryFrustum(
+      R2TestUtilities.getMatricesObserverValues(), opaques, lights);
+    Assert.assertEquals(1L, opaques.opaquesCount());
+    Assert.assertEquals(0L, lights.lightsCount());
+
+    /*
+     * Moving the second instance into view must be picked up via the
+     * transform's watchable.
+     */
+
+    t1.setTranslation(PVector3D.of(0.25, 0.0, 0.0));
+    sp.spatialQueryFrustum(
+      R2TestUtilities.getMatricesObserverValues(), opaques, lights);
+    Assert.assertEquals(2L, opaques.opaquesCount());
+
+    t0.setTranslation(PVector3D.of(-20.0, 0.0, 0.0));
+    t1.setTranslation(PVector3D.of(-20.0, 0.0, 0.0));
+    sp.spatialQueryFrustum(
+      R2TestUtilities.getMatricesObserverValues(), opaques, lights);
+    Assert.assertEquals(0L, opaques.opaquesCount());
+  }
+
+  @Test
+  public void testQuerySphereBox()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a = R2TestUtilities.getArrayObject(g);
+    final R2ShaderGeometrySingleUsableType<Object> s =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(g, s, new Object(), 0L);
+
+    final R2SpatialSceneType sp = R2SpatialScene.create(0.0);
+    for (int index = 0; index < 100; ++index) {
+      final R2TransformSiOT t = R2TransformSiOT.create();
+      t.setTranslation(PVector3D.of((double) index * 4.0, 0.0, 0.0));
+      sp.spatialAddSingleInstance(
+        instanceAt(a, (long) index, t), unitSphere(), m, 1);
+    }
+
+    final R2SceneOpaquesType opaques = R2SceneOpaques.create();
+    final R2SceneLightsType lights = R2SceneLights.create();
+
+    sp.spatialQuerySphere(40.0, 0.0, 0.0, 5.0, opaques, lights);
+    Assert.assertEquals(3L, opaques.opaquesCount());
+
+    sp.spatialQueryBox(-1.0, -1.0, -1.0, 13.0, 1.0, 1.0, opaques, lights);
+    Assert.assertEquals(4L, opaques.opaquesCount());
+  }
+
+  @Test
+  public void testRemove()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a = R2TestUtilities.getArrayObject(g);
+    final R2ShaderGeometrySingleUsableType<Object> s =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(g, s, new Object(), 0L);
+
+    final R2InstanceSingleType i0 =
+      instanceAt(a, 0L, R2TransformSiOT.create());
+
+    final R2SpatialSceneType sp = R2SpatialScene.create();
+    sp.spatialAddSingleInstance(i0, unitSphere(), m, 1);
+    sp.spatialRemoveInstance(i0);
+    sp.spatialRemoveInstance(i0);
+    Assert.assertEquals(0L, sp.spatialInstanceCount());
+
+    final R2SceneOpaquesType opaques = R2SceneOpaques.create();
+    final R2SceneLightsType lights = R2SceneLights.create();
+    sp.spatialQueryFrustum(
+      R2TestUtilities.getMatricesObserverValues(), opaques, lights);
+    Assert.assertEquals(0L, opaques.opaquesCount());
+  }
+
+  @Test
+  public void testAlreadyPresent()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a = R2TestUtilities.getArrayObject(g);
+    final R2ShaderGeometrySingleUsableType<Object> s =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(g, s, new Object(), 0L);
+
+    final R2InstanceSingleType i0 =
+      instanceAt(a, 0L, R2TransformSiOT.create());
+
+    final R2SpatialSceneType sp = R2SpatialScene.create();
+    sp.spatialAddSingleInstance(i0, unitSphere(), m, 1);
+    this.expected.expect(R2ExceptionInstanceAlreadyVisible.class);
+    sp.spatialAddSingleInstance(i0, unitSphere(), m, 1);
+  }
+
+  @Test
+  public void testInvalidGroup()
+  {
+    final JCGLInterfaceGL33Type g = R2TestUtilities.getFakeGL();
+    final JCGLArrayObjectType a = R2TestUtilities.getArrayObject(g);
+    final R2ShaderGeometrySingleUsableType<Object> s =
+      R2TestUtilities.getShaderInstanceSingle(g, 0L);
+    final R2MaterialOpaqueSingleType<Object> m =
+      R2TestUtilities.getMaterialSingle(g, s, new Object(), 0L);
+
+    final R2InstanceSingleType i0 =
+      instanceAt(a, 0L, R2TransformSiOT.create());
+
+    final R2SpatialSceneType sp = R2SpatialScene.create();
+    this.expected.expect(R2ExceptionStencilInvalidGroup.class);
+    sp.spatialAddSingleInstance(i0, unitSphere(), m, 0);
+  }
+}
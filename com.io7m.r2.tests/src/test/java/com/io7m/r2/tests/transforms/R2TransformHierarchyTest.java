@@ -0,0 +1,230 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.tests.transforms;
+
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.quaternions.Quaternion4D;
+import com.io7m.r2.spaces.R2SpaceEyeType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+import com.io7m.r2.transforms.R2TransformHierarchy;
+import com.io7m.r2.transforms.R2TransformHierarchyNode;
+import com.io7m.r2.transforms.R2TransformMatrices;
+import com.io7m.r2.transforms.R2TransformSOT;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class R2TransformHierarchyTest
+{
+  @Rule public final ExpectedException expected = ExpectedException.none();
+
+  private static void checkMatrixEquals(
+    final double[] e,
+    final PMatrix4x4D<?, ?> received)
+  {
+    final double[] r = {
+      received.r0c0(), received.r0c1(), received.r0c2(), received.r0c3(),
+      received.r1c0(), received.r1c1(), received.r1c2(), received.r1c3(),
+      received.r2c0(), received.r2c1(), received.r2c2(), received.r2c3(),
+      received.r3c0(), received.r3c1(), received.r3c2(), received.r3c3(),
+    };
+
+    for (int index = 0; index < 16; ++index) {
+      Assert.assertEquals(e[index], r[index], 1.0E-9);
+    }
+  }
+
+  private static double[] identity()
+  {
+    final double[] m = new double[16];
+    R2TransformMatrices.setIdentity(m);
+    return m;
+  }
+
+  @Test
+  public void testIdentity()
+  {
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode root = h.createRoot();
+    final R2TransformHierarchyNode child = h.createChild(root);
+
+    Assert.assertEquals(2L, (long) h.size());
+    Assert.assertFalse(root.parent().isPresent());
+    Assert.assertSame(root, child.parent().get());
+
+    Assert.assertTrue(h.isUpdateRequired());
+    Assert.assertEquals(2L, (long) h.update());
+    Assert.assertFalse(h.isUpdateRequired());
+    Assert.assertEquals(0L, (long) h.update());
+
+    checkMatrixEquals(identity(), child.transformMakeMatrix4x4F());
+  }
+
+  @Test
+  public void testMatchesComposition()
+  {
+    final Quaternion4D q0 =
+      Quaternion4D.of(0.0, Math.sqrt(0.5), 0.0, Math.sqrt(0.5));
+    final Quaternion4D q1 =
+      Quaternion4D.of(0.5, 0.5, 0.5, 0.5);
+
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode n0 = h.createRoot();
+    final R2TransformHierarchyNode n1 = h.createChild(n0);
+    final R2TransformHierarchyNode n2 = h.createChild(n1);
+
+    final R2TransformSOT t0 = R2TransformSOT.create();
+    final R2TransformSOT t1 = R2TransformSOT.create();
+    final R2TransformSOT t2 = R2TransformSOT.create();
+
+    n0.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+    t0.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+    n0.setOrientation(q0);
+    t0.setOrientation(q0);
+    n1.setScale(2.0);
+    t1.setScale(2.0);
+    n1.setOrientation(q1);
+    t1.setOrientation(q1);
+    n2.setTranslation(PVector3D.of(0.0, 0.0, -5.0));
+    t2.setTranslation(PVector3D.of(0.0, 0.0, -5.0));
+
+    final double[] m0 = new double[16];
+    final double[] m1 = new double[16];
+    final double[] m2 = new double[16];
+    final double[] l1 = new double[16];
+    final double[] l2 = new double[16];
+    t0.transformWriteMatrix4x4F(m0);
+    t1.transformWriteMatrix4x4F(l1);
+    t2.transformWriteMatrix4x4F(l2);
+    R2TransformMatrices.multiply(m0, l1, m1);
+    R2TransformMatrices.multiply(m1, l2, m2);
+
+    h.update();
+    checkMatrixEquals(m0, n0.transformMakeMatrix4x4F());
+    checkMatrixEquals(m1, n1.transformMakeMatrix4x4F());
+    checkMatrixEquals(m2, n2.transformMakeMatrix4x4F());
+
+    final double[] m = new double[16];
+    n2.transformWriteMatrix4x4F(m);
+    for (int index = 0; index < 16; ++index) {
+      Assert.assertEquals(m2[index], m[index], 1.0E-9);
+    }
+  }
+
+  @Test
+  public void testUpdateOnlyDirtySubtree()
+  {
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode a = h.createRoot();
+    final R2TransformHierarchyNode b = h.createRoot();
+    final R2TransformHierarchyNode a0 = h.createChild(a);
+    final R2TransformHierarchyNode b0 = h.createChild(b);
+    final R2TransformHierarchyNode a00 = h.createChild(a0);
+    h.update();
+
+    final AtomicInteger a00_calls = new AtomicInteger(0);
+    final AtomicInteger b0_calls = new AtomicInteger(0);
+    a00.transformGetWatchable().watchableAdd(t -> a00_calls.incrementAndGet());
+    b0.transformGetWatchable().watchableAdd(t -> b0_calls.incrementAndGet());
+    a00_calls.set(0);
+    b0_calls.set(0);
+
+    a.setTranslation(PVector3D.of(1.0, 0.0, 0.0));
+    Assert.assertEquals(0L, (long) a00_calls.get());
+
+    Assert.assertEquals(3L, (long) h.update());
+    Assert.assertEquals(1L, (long) a00_calls.get());
+    Assert.assertEquals(0L, (long) b0_calls.get());
+    Assert.assertEquals(1.0, a00.transformMakeMatrix4x4F().r0c3(), 0.0);
+    Assert.assertEquals(0.0, b0.transformMakeMatrix4x4F().r0c3(), 0.0);
+
+    b0.setScale(2.0);
+    Assert.assertEquals(1L, (long) h.update());
+    Assert.assertEquals(1L, (long) a00_calls.get());
+    Assert.assertEquals(1L, (long) b0_calls.get());
+  }
+
+  @Test
+  public void testMatrixImplicitUpdate()
+  {
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode a = h.createRoot();
+    final R2TransformHierarchyNode a0 = h.createChild(a);
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m0 =
+      a0.transformMakeMatrix4x4F();
+    Assert.assertSame(m0, a0.transformMakeMatrix4x4F());
+
+    a.setTranslation(PVector3D.of(0.0, 3.0, 0.0));
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m1 =
+      a0.transformMakeMatrix4x4F();
+    Assert.assertNotSame(m0, m1);
+    Assert.assertEquals(3.0, m1.r1c3(), 0.0);
+    Assert.assertFalse(h.isUpdateRequired());
+  }
+
+  @Test
+  public void testViewMatrixInverse()
+  {
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode a = h.createRoot();
+    final R2TransformHierarchyNode a0 = h.createChild(a);
+
+    a.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+    a.setOrientation(Quaternion4D.of(0.1, -0.7, 0.1, 0.7));
+    a0.setOrientation(Quaternion4D.of(0.5, 0.5, 0.5, 0.5));
+    a0.setTranslation(PVector3D.of(4.0, 0.0, 0.0));
+
+    final PMatrix4x4D<R2SpaceWorldType, R2SpaceEyeType> view =
+      a0.transformMakeViewMatrix4x4F();
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceEyeType> product =
+      PMatrices4x4D.multiply(view, a0.transformMakeMatrix4x4F());
+    checkMatrixEquals(identity(), product);
+  }
+
+  @Test
+  public void testManyNodes()
+  {
+    final R2TransformHierarchy h = R2TransformHierarchy.create();
+    R2TransformHierarchyNode node = h.createRoot();
+    for (int index = 0; index < 99; ++index) {
+      node = h.createChild(node);
+      node.setTranslation(PVector3D.of(1.0, 0.0, 0.0));
+    }
+
+    Assert.assertEquals(100L, (long) h.update());
+    Assert.assertEquals(99.0, node.transformMakeMatrix4x4F().r0c3(), 1.0E-9);
+  }
+
+  @Test
+  public void testChildOtherHierarchy()
+  {
+    final R2TransformHierarchy h0 = R2TransformHierarchy.create();
+    final R2TransformHierarchy h1 = R2TransformHierarchy.create();
+    final R2TransformHierarchyNode a = h0.createRoot();
+
+    this.expected.expect(IllegalArgumentException.class);
+    h1.createChild(a);
+  }
+}
@@ -16,9 +16,11 @@
 
 package com.io7m.r2.tests.transforms;
 
+import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
 import com.io7m.jtensors.core.quaternions.Quaternion4D;
+import com.io7m.jtensors.core.quaternions.Quaternions4D;
 import com.io7m.r2.core.api.watchable.R2WatchableType;
 import com.io7m.r2.spaces.R2SpaceObjectType;
 import com.io7m.r2.spaces.R2SpaceWorldType;
@@ -229,4 +231,82 @@ public final class R2TransformOSTTest
     Assert.assertEquals(0.0, m.r2c3(), 0.0);
     Assert.assertEquals(1.0, m.r3c3(), 0.0);
   }
+
+  private static void checkMatrixWritten(
+    final R2TransformReadableType r,
+    final PMatrix4x4D<Object, Object> expected)
+  {
+    final double[] m = new double[16];
+    r.transformWriteMatrix4x4F(m);
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> made =
+      r.transformMakeMatrix4x4F();
+
+    final double[] e = {
+      expected.r0c0(), expected.r0c1(), expected.r0c2(), expected.r0c3(),
+      expected.r1c0(), expected.r1c1(), expected.r1c2(), expected.r1c3(),
+      expected.r2c0(), expected.r2c1(), expected.r2c2(), expected.r2c3(),
+      expected.r3c0(), expected.r3c1(), expected.r3c2(), expected.r3c3(),
+    };
+    final double[] k = {
+      made.r0c0(), made.r0c1(), made.r0c2(), made.r0c3(),
+      made.r1c0(), made.r1c1(), made.r1c2(), made.r1c3(),
+      made.r2c0(), made.r2c1(), made.r2c2(), made.r2c3(),
+      made.r3c0(), made.r3c1(), made.r3c2(), made.r3c3(),
+    };
+
+    for (int index = 0; index < 16; ++index) {
+      Assert.assertEquals(e[index], m[index], 1.0E-9);
+      Assert.assertEquals(e[index], k[index], 1.0E-9);
+    }
+  }
+
+  @Test
+  public void testMatrixMatchesReference()
+  {
+    final Quaternion4D[] orientations = {
+      Quaternion4D.of(0.0, 0.0, 0.0, 1.0),
+      Quaternion4D.of(0.0, Math.sqrt(0.5), 0.0, Math.sqrt(0.5)),
+      Quaternion4D.of(0.5, 0.5, 0.5, 0.5),
+      Quaternion4D.of(0.1, -0.7, 0.1, 0.7),
+    };
+
+    final R2TransformSOT r = R2TransformSOT.create();
+    for (final Quaternion4D q : orientations) {
+      r.setOrientation(q);
+      r.setScale(3.0);
+      r.setTranslation(PVector3D.of(1.0, 2.0, 3.0));
+
+      final PMatrix4x4D<Object, Object> expected =
+        PMatrices4x4D.multiply(
+          PMatrices4x4D.multiply(
+            PMatrices4x4D.ofTranslation(1.0, 2.0, 3.0),
+            Quaternions4D.toPMatrix4x4(q)),
+          PMatrices4x4D.ofScale(3.0, 3.0, 3.0));
+
+      checkMatrixWritten(r, expected);
+    }
+  }
+
+  @Test
+  public void testMatrixCached()
+  {
+    final R2TransformSOT r = R2TransformSOT.create();
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m0 =
+      r.transformMakeMatrix4x4F();
+    Assert.assertSame(m0, r.transformMakeMatrix4x4F());
+
+    r.setScale(2.0);
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m1 =
+      r.transformMakeMatrix4x4F();
+    Assert.assertNotSame(m0, m1);
+    Assert.assertSame(m1, r.transformMakeMatrix4x4F());
+    Assert.assertEquals(2.0, m1.r0c0(), 0.0);
+
+    final double[] m = new double[16];
+    r.transformWriteMatrix4x4F(m);
+    Assert.assertEquals(2.0, m[0], 0.0);
+  }
 }
@@ -186,4 +186,26 @@ public final class R2TransformSTTest
     Assert.assertEquals(0.0, m.r2c3(), 0.0);
     Assert.assertEquals(1.0, m.r3c3(), 0.0);
   }
+
+  @Test
+  public void testMatrixCached()
+  {
+    final R2TransformST r = R2TransformST.create();
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m0 =
+      r.transformMakeMatrix4x4F();
+    Assert.assertSame(m0, r.transformMakeMatrix4x4F());
+
+    r.setScale(2.0);
+
+    final PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m1 =
+      r.transformMakeMatrix4x4F();
+    Assert.assertNotSame(m0, m1);
+    Assert.assertSame(m1, r.transformMakeMatrix4x4F());
+    Assert.assertEquals(2.0, m1.r0c0(), 0.0);
+
+    final double[] m = new double[16];
+    r.transformWriteMatrix4x4F(m);
+    Assert.assertEquals(2.0, m[0], 0.0);
+  }
 }
@@ -0,0 +1,318 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.transforms;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.quaternions.Quaternion4D;
+
+import java.util.Arrays;
+
+/**
+ * <p>A hierarchy of transforms.</p>
+ *
+ * <p>Each node in the hierarchy has a local transform, consisting of a
+ * uniform scale, followed by an orientation, followed by a translation,
+ * relative to its parent. The world matrix of a node is the world matrix of
+ * its parent multiplied by the local matrix of the node. Because each local
+ * transform is orthogonal, so is every world matrix.</p>
+ *
+ * <p>Nodes are stored in a table of parallel arrays, ordered such that every
+ * parent appears before all of its children. World matrices are calculated in
+ * a single linear pass over the table by {@link #update()}, and only nodes
+ * whose local transforms have changed, or whose ancestors' local transforms
+ * have changed, are recalculated. The watchables of recalculated nodes are
+ * notified after the pass has completed.</p>
+ *
+ * <p>Changes made to the local transforms of nodes are not visible in world
+ * matrices until {@link #update()} is called. As a convenience, requesting the
+ * matrix of a node in a hierarchy with pending changes calls
+ * {@link #update()} implicitly.</p>
+ */
+
+public final class R2TransformHierarchy
+{
+  private static final int INITIAL_CAPACITY = 16;
+  private static final int CLEAN = Integer.MAX_VALUE;
+
+  private final double[] local;
+  private R2TransformHierarchyNode[] nodes;
+  private int[] parents;
+  private double[] translations;
+  private double[] orientations;
+  private double[] scales;
+  private double[] worlds;
+  private boolean[] dirty;
+  private boolean[] changed;
+  private int count;
+  private int dirty_lowest;
+
+  private R2TransformHierarchy(
+    final int capacity)
+  {
+    this.local = new double[16];
+    this.nodes = new R2TransformHierarchyNode[capacity];
+    this.parents = new int[capacity];
+    this.translations = new double[capacity * 3];
+    this.orientations = new double[capacity * 4];
+    this.scales = new double[capacity];
+    this.worlds = new double[capacity * 16];
+    this.dirty = new boolean[capacity];
+    this.changed = new boolean[capacity];
+    this.count = 0;
+    this.dirty_lowest = CLEAN;
+  }
+
+  /**
+   * @return A new empty hierarchy
+   */
+
+  public static R2TransformHierarchy create()
+  {
+    return new R2TransformHierarchy(INITIAL_CAPACITY);
+  }
+
+  /**
+   * @return The number of nodes in the hierarchy
+   */
+
+  public int size()
+  {
+    return this.count;
+  }
+
+  /**
+   * Create a new node with no parent. The node initially has the identity
+   * transform.
+   *
+   * @return A new node
+   */
+
+  public R2TransformHierarchyNode createRoot()
+  {
+    return this.createNode(-1);
+  }
+
+  /**
+   * Create a new node with parent {@code parent}. The node initially has the
+   * identity transform.
+   *
+   * @param parent The parent node
+   *
+   * @return A new node
+   */
+
+  public R2TransformHierarchyNode createChild(
+    final R2TransformHierarchyNode parent)
+  {
+    NullCheck.notNull(parent, "Parent");
+    if (parent.hierarchy() != this) {
+      throw new IllegalArgumentException(
+        "Parent node does not belong to this hierarchy");
+    }
+    return this.createNode(parent.index());
+  }
+
+  private R2TransformHierarchyNode createNode(
+    final int parent)
+  {
+    final int index = this.count;
+    if (index == this.nodes.length) {
+      this.grow();
+    }
+
+    final R2TransformHierarchyNode node =
+      new R2TransformHierarchyNode(this, index);
+
+    this.nodes[index] = node;
+    this.parents[index] = parent;
+    this.translations[index * 3] = 0.0;
+    this.translations[index * 3 + 1] = 0.0;
+    this.translations[index * 3 + 2] = 0.0;
+    this.orientations[index * 4] = 0.0;
+    this.orientations[index * 4 + 1] = 0.0;
+    this.orientations[index * 4 + 2] = 0.0;
+    this.orientations[index * 4 + 3] = 1.0;
+    this.scales[index] = 1.0;
+    this.changed[index] = false;
+    this.count = index + 1;
+    this.markDirty(index);
+    return node;
+  }
+
+  private void grow()
+  {
+    final int capacity = this.nodes.length * 2;
+    this.nodes = Arrays.copyOf(this.nodes, capacity);
+    this.parents = Arrays.copyOf(this.parents, capacity);
+    this.translations = Arrays.copyOf(this.translations, capacity * 3);
+    this.orientations = Arrays.copyOf(this.orientations, capacity * 4);
+    this.scales = Arrays.copyOf(this.scales, capacity);
+    this.worlds = Arrays.copyOf(this.worlds, capacity * 16);
+    this.dirty = Arrays.copyOf(this.dirty, capacity);
+    this.changed = Arrays.copyOf(this.changed, capacity);
+  }
+
+  private void markDirty(
+    final int index)
+  {
+    this.dirty[index] = true;
+    this.dirty_lowest = Math.min(this.dirty_lowest, index);
+  }
+
+  /**
+   * @return {@code true} iff there are local changes that are not yet
+   * reflected in world matrices
+   */
+
+  public boolean isUpdateRequired()
+  {
+    return this.dirty_lowest != CLEAN;
+  }
+
+  /**
+   * Recalculate the world matrices of all nodes whose local transforms, or
+   * whose ancestors' local transforms, have changed since the last update,
+   * and notify the watchables of those nodes.
+   *
+   * @return The number of world matrices that were recalculated
+   */
+
+  public int update()
+  {
+    final int start = this.dirty_lowest;
+    if (start == CLEAN) {
+      return 0;
+    }
+
+    final int end = this.count;
+    final int[] p = this.parents;
+    final boolean[] d = this.dirty;
+    final boolean[] c = this.changed;
+
+    int updated = 0;
+    for (int index = start; index < end; ++index) {
+      final int parent = p[index];
+      if (d[index] || (parent >= 0 && c[parent])) {
+        this.calculateWorld(index, parent);
+        d[index] = false;
+        c[index] = true;
+        ++updated;
+      }
+    }
+
+    /*
+     * Watchers may modify nodes when notified, so the hierarchy must be
+     * marked as clean before any notifications occur.
+     */
+
+    this.dirty_lowest = CLEAN;
+    for (int index = start; index < end; ++index) {
+      if (c[index]) {
+        c[index] = false;
+        this.nodes[index].worldChanged();
+      }
+    }
+    return updated;
+  }
+
+  private void calculateWorld(
+    final int index,
+    final int parent)
+  {
+    final int t = index * 3;
+    final int q = index * 4;
+    final double s = this.scales[index];
+    final double[] tr = this.translations;
+    final double[] or = this.orientations;
+
+    R2TransformMatrices.setTranslationOrientationScale(
+      tr[t], tr[t + 1], tr[t + 2],
+      or[q], or[q + 1], or[q + 2], or[q + 3],
+      s, s, s,
+      this.local);
+
+    if (parent < 0) {
+      System.arraycopy(this.local, 0, this.worlds, index * 16, 16);
+    } else {
+      R2TransformMatrices.multiply(
+        this.worlds, parent * 16,
+        this.local, 0,
+        this.worlds, index * 16);
+    }
+  }
+
+  int parentOf(
+    final int index)
+  {
+    return this.parents[index];
+  }
+
+  R2TransformHierarchyNode node(
+    final int index)
+  {
+    return this.nodes[index];
+  }
+
+  void setTranslation(
+    final int index,
+    final double x,
+    final double y,
+    final double z)
+  {
+    final int t = index * 3;
+    this.translations[t] = x;
+    this.translations[t + 1] = y;
+    this.translations[t + 2] = z;
+    this.markDirty(index);
+  }
+
+  void setOrientation(
+    final int index,
+    final Quaternion4D q)
+  {
+    final int o = index * 4;
+    this.orientations[o] = q.x();
+    this.orientations[o + 1] = q.y();
+    this.orientations[o + 2] = q.z();
+    this.orientations[o + 3] = q.w();
+    this.markDirty(index);
+  }
+
+  void setScale(
+    final int index,
+    final double s)
+  {
+    this.scales[index] = s;
+    this.markDirty(index);
+  }
+
+  /**
+   * Copy the world matrix of the given node into {@code m}, updating the
+   * hierarchy first if necessary.
+   */
+
+  void copyWorld(
+    final int index,
+    final double[] m)
+  {
+    if (this.isUpdateRequired()) {
+      this.update();
+    }
+    System.arraycopy(this.worlds, index * 16, m, 0, 16);
+  }
+}
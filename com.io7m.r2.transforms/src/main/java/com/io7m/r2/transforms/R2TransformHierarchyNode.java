@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.transforms;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
+import com.io7m.jtensors.core.parameterized.vectors.PVectors3D;
+import com.io7m.jtensors.core.quaternions.Quaternion4D;
+import com.io7m.jtensors.core.quaternions.Quaternions4D;
+import com.io7m.r2.core.api.watchable.R2Watchable;
+import com.io7m.r2.core.api.watchable.R2WatchableType;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+
+import java.util.Optional;
+
+/**
+ * <p>A node in a {@link R2TransformHierarchy}.</p>
+ *
+ * <p>The scale, orientation, and translation of the node are specified
+ * relative to the parent of the node. The matrices produced by the node are
+ * the world matrices calculated by the hierarchy. The watchable of the node
+ * is notified when the world matrix of the node is recalculated.</p>
+ */
+
+public final class R2TransformHierarchyNode implements R2TransformSOTType
+{
+  private final R2TransformHierarchy hierarchy;
+  private final int index;
+  private final R2WatchableType<R2TransformOrthogonalReadableType> watchable;
+  private final double[] world;
+  private Quaternion4D orientation;
+  private PVector3D<R2SpaceWorldType> translation;
+  private double scale;
+  private @Nullable PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> value;
+
+  R2TransformHierarchyNode(
+    final R2TransformHierarchy in_hierarchy,
+    final int in_index)
+  {
+    this.hierarchy = NullCheck.notNull(in_hierarchy, "Hierarchy");
+    this.index = in_index;
+    this.orientation = Quaternions4D.identity();
+    this.translation = PVectors3D.zero();
+    this.scale = 1.0;
+    this.world = new double[16];
+    this.value = null;
+    this.watchable = R2Watchable.newWatchable(this);
+  }
+
+  R2TransformHierarchy hierarchy()
+  {
+    return this.hierarchy;
+  }
+
+  int index()
+  {
+    return this.index;
+  }
+
+  void worldChanged()
+  {
+    this.value = null;
+    this.watchable.watchableChanged();
+  }
+
+  /**
+   * @return The parent of this node, if any
+   */
+
+  public Optional<R2TransformHierarchyNode> parent()
+  {
+    final int parent = this.hierarchy.parentOf(this.index);
+    if (parent < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(this.hierarchy.node(parent));
+  }
+
+  @Override
+  public Quaternion4D orientation()
+  {
+    return this.orientation;
+  }
+
+  @Override
+  public double scale()
+  {
+    return this.scale;
+  }
+
+  /**
+   * @return The translation of the node relative to its parent
+   */
+
+  @Override
+  public PVector3D<R2SpaceWorldType> translation()
+  {
+    return this.translation;
+  }
+
+  @Override
+  public void setScale(final double x)
+  {
+    this.scale = x;
+    this.hierarchy.setScale(this.index, x);
+  }
+
+  @Override
+  public void setOrientation(final Quaternion4D q)
+  {
+    this.orientation = NullCheck.notNull(q, "Orientation");
+    this.hierarchy.setOrientation(this.index, q);
+  }
+
+  /**
+   * Set the translation of the node relative to its parent.
+   *
+   * @param t The translation
+   */
+
+  @Override
+  public void setTranslation(final PVector3D<R2SpaceWorldType> t)
+  {
+    this.translation = NullCheck.notNull(t, "Translation");
+    this.hierarchy.setTranslation(this.index, t.x(), t.y(), t.z());
+  }
+
+  @Override
+  public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>
+  transformMakeMatrix4x4F()
+  {
+    if (this.hierarchy.isUpdateRequired()) {
+      this.hierarchy.update();
+    }
+
+    PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m = this.value;
+    if (m == null) {
+      this.hierarchy.copyWorld(this.index, this.world);
+      m = R2TransformMatrices.toMatrix(this.world);
+      this.value = m;
+    }
+    return m;
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    NullCheck.notNull(m, "Matrix");
+    this.hierarchy.copyWorld(this.index, m);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * As with {@link R2TransformSOT}, the scale of the node is not included in
+   * the view matrix.
+   */
+
+  @Override
+  public <T extends R2SpaceType, U extends R2SpaceType> PMatrix4x4D<T, U>
+  transformMakeViewMatrix4x4F()
+  {
+    final double[] m = this.world;
+    this.hierarchy.copyWorld(this.index, m);
+
+    final double s = Math.sqrt(m[0] * m[0] + m[4] * m[4] + m[8] * m[8]);
+    final double r = s == 0.0 ? 0.0 : 1.0 / s;
+
+    final double r00 = m[0] * r;
+    final double r01 = m[1] * r;
+    final double r02 = m[2] * r;
+    final double r10 = m[4] * r;
+    final double r11 = m[5] * r;
+    final double r12 = m[6] * r;
+    final double r20 = m[8] * r;
+    final double r21 = m[9] * r;
+    final double r22 = m[10] * r;
+    final double tx = m[3];
+    final double ty = m[7];
+    final double tz = m[11];
+
+    return PMatrix4x4D.of(
+      r00, r10, r20, -(r00 * tx + r10 * ty + r20 * tz),
+      r01, r11, r21, -(r01 * tx + r11 * ty + r21 * tz),
+      r02, r12, r22, -(r02 * tx + r12 * ty + r22 * tz),
+      0.0, 0.0, 0.0, 1.0);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public R2WatchableType<R2TransformReadableType> transformGetWatchable()
+  {
+    return (R2WatchableType<R2TransformReadableType>) (Object) this.watchable;
+  }
+
+  @Override
+  public R2WatchableType<R2TransformOrthogonalReadableType>
+  transformOrthogonalGetWatchable()
+  {
+    return this.watchable;
+  }
+}
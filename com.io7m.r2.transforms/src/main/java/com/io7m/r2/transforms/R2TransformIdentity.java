@@ -56,6 +56,13 @@ public final class R2TransformIdentity implements
     return PMatrices4x4D.identity();
   }
 
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    R2TransformMatrices.setIdentity(m);
+  }
+
   @Override
   public <T extends R2SpaceType, U extends R2SpaceType> PMatrix4x4D<T, U>
   transformMakeViewMatrix4x4F()
@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.transforms;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.jtensors.core.quaternions.Quaternion4D;
+import com.io7m.junreachable.UnreachableCodeException;
+
+/**
+ * <p>Functions for producing transformation matrices in preallocated
+ * storage.</p>
+ *
+ * <p>A 4x4 matrix is stored in an array of 16 elements in row-major order:
+ * The element at row {@code r} and column {@code c} is stored at index
+ * {@code r * 4 + c}.</p>
+ */
+
+public final class R2TransformMatrices
+{
+  private R2TransformMatrices()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Set {@code m} to the identity matrix.
+   *
+   * @param m The output matrix
+   */
+
+  public static void setIdentity(
+    final double[] m)
+  {
+    NullCheck.notNull(m, "Matrix");
+    setTranslationOrientationScale(
+      0.0, 0.0, 0.0,
+      0.0, 0.0, 0.0, 1.0,
+      1.0, 1.0, 1.0,
+      m);
+  }
+
+  /**
+   * Set {@code m} to the matrix produced by multiplying a translation matrix,
+   * a rotation matrix produced from the quaternion {@code q}, and a scaling
+   * matrix, in that order.
+   *
+   * @param tx The X translation
+   * @param ty The Y translation
+   * @param tz The Z translation
+   * @param q  The orientation
+   * @param sx The X scale
+   * @param sy The Y scale
+   * @param sz The Z scale
+   * @param m  The output matrix
+   */
+
+  public static void setTranslationOrientationScale(
+    final double tx,
+    final double ty,
+    final double tz,
+    final Quaternion4D q,
+    final double sx,
+    final double sy,
+    final double sz,
+    final double[] m)
+  {
+    NullCheck.notNull(q, "Orientation");
+    setTranslationOrientationScale(
+      tx, ty, tz, q.x(), q.y(), q.z(), q.w(), sx, sy, sz, m);
+  }
+
+  static void setTranslationOrientationScale(
+    final double tx,
+    final double ty,
+    final double tz,
+    final double qx,
+    final double qy,
+    final double qz,
+    final double qw,
+    final double sx,
+    final double sy,
+    final double sz,
+    final double[] m)
+  {
+    NullCheck.notNull(m, "Matrix");
+
+    final double xx = qx * qx;
+    final double xy = qx * qy;
+    final double xz = qx * qz;
+    final double xw = qx * qw;
+    final double yy = qy * qy;
+    final double yz = qy * qz;
+    final double yw = qy * qw;
+    final double zz = qz * qz;
+    final double zw = qz * qw;
+
+    m[0] = (1.0 - 2.0 * (yy + zz)) * sx;
+    m[1] = (2.0 * (xy - zw)) * sy;
+    m[2] = (2.0 * (xz + yw)) * sz;
+    m[3] = tx;
+
+    m[4] = (2.0 * (xy + zw)) * sx;
+    m[5] = (1.0 - 2.0 * (xx + zz)) * sy;
+    m[6] = (2.0 * (yz - xw)) * sz;
+    m[7] = ty;
+
+    m[8] = (2.0 * (xz - yw)) * sx;
+    m[9] = (2.0 * (yz + xw)) * sy;
+    m[10] = (1.0 - 2.0 * (xx + yy)) * sz;
+    m[11] = tz;
+
+    m[12] = 0.0;
+    m[13] = 0.0;
+    m[14] = 0.0;
+    m[15] = 1.0;
+  }
+
+  /**
+   * Set {@code m} to the translation matrix for the given values.
+   *
+   * @param tx The X translation
+   * @param ty The Y translation
+   * @param tz The Z translation
+   * @param m  The output matrix
+   */
+
+  public static void setTranslation(
+    final double tx,
+    final double ty,
+    final double tz,
+    final double[] m)
+  {
+    setTranslationOrientationScale(
+      tx, ty, tz, 0.0, 0.0, 0.0, 1.0, 1.0, 1.0, 1.0, m);
+  }
+
+  /**
+   * Set {@code m} to the matrix produced by multiplying a translation matrix
+   * and a scaling matrix, in that order.
+   *
+   * @param tx The X translation
+   * @param ty The Y translation
+   * @param tz The Z translation
+   * @param s  The scale applied to all axes
+   * @param m  The output matrix
+   */
+
+  public static void setTranslationScale(
+    final double tx,
+    final double ty,
+    final double tz,
+    final double s,
+    final double[] m)
+  {
+    setTranslationOrientationScale(
+      tx, ty, tz, 0.0, 0.0, 0.0, 1.0, s, s, s, m);
+  }
+
+  /**
+   * Copy the matrix {@code source} into {@code m}.
+   *
+   * @param source The source matrix
+   * @param m      The output matrix
+   */
+
+  public static void setMatrix(
+    final PMatrix4x4D<?, ?> source,
+    final double[] m)
+  {
+    NullCheck.notNull(source, "Source");
+    NullCheck.notNull(m, "Matrix");
+
+    m[0] = source.r0c0();
+    m[1] = source.r0c1();
+    m[2] = source.r0c2();
+    m[3] = source.r0c3();
+    m[4] = source.r1c0();
+    m[5] = source.r1c1();
+    m[6] = source.r1c2();
+    m[7] = source.r1c3();
+    m[8] = source.r2c0();
+    m[9] = source.r2c1();
+    m[10] = source.r2c2();
+    m[11] = source.r2c3();
+    m[12] = source.r3c0();
+    m[13] = source.r3c1();
+    m[14] = source.r3c2();
+    m[15] = source.r3c3();
+  }
+
+  /**
+   * Multiply {@code a} by {@code b}, writing the result to {@code out}. The
+   * array {@code out} must not be the same array as {@code a} or {@code b}.
+   *
+   * @param a   The left matrix
+   * @param b   The right matrix
+   * @param out The output matrix
+   */
+
+  public static void multiply(
+    final double[] a,
+    final double[] b,
+    final double[] out)
+  {
+    multiply(a, 0, b, 0, out, 0);
+  }
+
+  /**
+   * Multiply the matrix starting at index {@code a_offset} of {@code a} by the
+   * matrix starting at index {@code b_offset} of {@code b}, writing the result
+   * to {@code out} starting at index {@code out_offset}. The output range must
+   * not overlap either of the input ranges.
+   *
+   * @param a          The left matrices
+   * @param a_offset   The index of the left matrix
+   * @param b          The right matrices
+   * @param b_offset   The index of the right matrix
+   * @param out        The output matrices
+   * @param out_offset The index of the output matrix
+   */
+
+  public static void multiply(
+    final double[] a,
+    final int a_offset,
+    final double[] b,
+    final int b_offset,
+    final double[] out,
+    final int out_offset)
+  {
+    NullCheck.notNull(a, "Left");
+    NullCheck.notNull(b, "Right");
+    NullCheck.notNull(out, "Output");
+
+    final double b00 = b[b_offset];
+    final double b01 = b[b_offset + 1];
+    final double b02 = b[b_offset + 2];
+    final double b03 = b[b_offset + 3];
+    final double b10 = b[b_offset + 4];
+    final double b11 = b[b_offset + 5];
+    final double b12 = b[b_offset + 6];
+    final double b13 = b[b_offset + 7];
+    final double b20 = b[b_offset + 8];
+    final double b21 = b[b_offset + 9];
+    final double b22 = b[b_offset + 10];
+    final double b23 = b[b_offset + 11];
+    final double b30 = b[b_offset + 12];
+    final double b31 = b[b_offset + 13];
+    final double b32 = b[b_offset + 14];
+    final double b33 = b[b_offset + 15];
+
+    for (int row = 0; row < 4; ++row) {
+      final int ra = a_offset + row * 4;
+      final int ro = out_offset + row * 4;
+      final double a0 = a[ra];
+      final double a1 = a[ra + 1];
+      final double a2 = a[ra + 2];
+      final double a3 = a[ra + 3];
+      out[ro] = a0 * b00 + a1 * b10 + a2 * b20 + a3 * b30;
+      out[ro + 1] = a0 * b01 + a1 * b11 + a2 * b21 + a3 * b31;
+      out[ro + 2] = a0 * b02 + a1 * b12 + a2 * b22 + a3 * b32;
+      out[ro + 3] = a0 * b03 + a1 * b13 + a2 * b23 + a3 * b33;
+    }
+  }
+
+  /**
+   * Produce an immutable matrix from the matrix {@code m}.
+   *
+   * @param m   The matrix
+   * @param <A> The source coordinate space
+   * @param <B> The target coordinate space
+   *
+   * @return A new matrix
+   */
+
+  public static <A, B> PMatrix4x4D<A, B> toMatrix(
+    final double[] m)
+  {
+    NullCheck.notNull(m, "Matrix");
+    return PMatrix4x4D.of(
+      m[0], m[1], m[2], m[3],
+      m[4], m[5], m[6], m[7],
+      m[8], m[9], m[10], m[11],
+      m[12], m[13], m[14], m[15]);
+  }
+}
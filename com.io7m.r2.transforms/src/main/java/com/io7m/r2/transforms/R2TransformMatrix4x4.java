@@ -68,6 +68,13 @@ public final class R2TransformMatrix4x4
     return this.model;
   }
 
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    R2TransformMatrices.setMatrix(this.model, m);
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public R2WatchableType<R2TransformReadableType> transformGetWatchable()
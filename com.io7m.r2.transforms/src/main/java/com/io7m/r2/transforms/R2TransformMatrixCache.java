@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.r2.transforms;
+
+import com.io7m.jnull.NullCheck;
+import com.io7m.jnull.Nullable;
+import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
+import com.io7m.r2.spaces.R2SpaceObjectType;
+import com.io7m.r2.spaces.R2SpaceWorldType;
+
+import java.util.function.Consumer;
+
+/**
+ * A cached model matrix for a transform. The matrix is recalculated by the
+ * given producer on the first access after the cache has been invalidated.
+ */
+
+final class R2TransformMatrixCache
+{
+  private final double[] matrix;
+  private final Consumer<double[]> producer;
+  private boolean valid;
+  private @Nullable PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> value;
+
+  R2TransformMatrixCache(
+    final Consumer<double[]> in_producer)
+  {
+    this.producer = NullCheck.notNull(in_producer, "Producer");
+    this.matrix = new double[16];
+    this.valid = false;
+    this.value = null;
+  }
+
+  /**
+   * Invalidate the cached matrix.
+   */
+
+  void invalidate()
+  {
+    this.valid = false;
+    this.value = null;
+  }
+
+  private double[] current()
+  {
+    if (!this.valid) {
+      this.producer.accept(this.matrix);
+      this.valid = true;
+    }
+    return this.matrix;
+  }
+
+  /**
+   * @return The current matrix as an immutable value
+   */
+
+  PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> matrix()
+  {
+    PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> m = this.value;
+    if (m == null) {
+      m = R2TransformMatrices.toMatrix(this.current());
+      this.value = m;
+    }
+    return m;
+  }
+
+  /**
+   * Copy the current matrix into {@code m}.
+   *
+   * @param m An array of at least 16 elements
+   */
+
+  void copyTo(
+    final double[] m)
+  {
+    NullCheck.notNull(m, "Matrix");
+    System.arraycopy(this.current(), 0, m, 0, 16);
+  }
+}
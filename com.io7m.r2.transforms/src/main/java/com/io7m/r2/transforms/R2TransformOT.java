@@ -38,6 +38,7 @@ import com.io7m.r2.spaces.R2SpaceWorldType;
 
 public final class R2TransformOT implements R2TransformOTType
 {
+  private final R2TransformMatrixCache matrix;
   private final R2WatchableType<R2TransformOTType> watchable;
   private Quaternion4D orientation;
   private PVector3D<R2SpaceWorldType> translation;
@@ -49,6 +50,7 @@ public final class R2TransformOT implements R2TransformOTType
     this.orientation = NullCheck.notNull(in_orientation, "Orientation");
     this.translation = NullCheck.notNull(in_translation, "Translation");
     this.watchable = R2Watchable.newWatchable(this);
+    this.matrix = new R2TransformMatrixCache(this::produceMatrix);
   }
 
   /**
@@ -92,18 +94,32 @@ public final class R2TransformOT implements R2TransformOTType
     return this.translation;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>
   transformMakeMatrix4x4F()
   {
-    final PMatrix4x4D<Object, Object> m_trans =
-      PMatrices4x4D.ofTranslation(
-        this.translation.x(), this.translation.y(), this.translation.z());
-    final PMatrix4x4D<Object, Object> m_orient =
-      Quaternions4D.toPMatrix4x4(this.orientation);
-    return (PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>) (Object)
-      PMatrices4x4D.multiply(m_trans, m_orient);
+    return this.matrix.matrix();
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    this.matrix.copyTo(m);
+  }
+
+  private void produceMatrix(
+    final double[] m)
+  {
+    R2TransformMatrices.setTranslationOrientationScale(
+      this.translation.x(),
+      this.translation.y(),
+      this.translation.z(),
+      this.orientation,
+      1.0,
+      1.0,
+      1.0,
+      m);
   }
 
   @SuppressWarnings("unchecked")
@@ -140,6 +156,7 @@ public final class R2TransformOT implements R2TransformOTType
   public void setOrientation(final Quaternion4D q)
   {
     this.orientation = NullCheck.notNull(q, "Orientation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -147,6 +164,7 @@ public final class R2TransformOT implements R2TransformOTType
   public void setTranslation(final PVector3D<R2SpaceWorldType> t)
   {
     this.translation = NullCheck.notNull(t, "Translation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 }
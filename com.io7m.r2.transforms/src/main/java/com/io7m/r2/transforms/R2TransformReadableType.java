@@ -35,6 +35,17 @@ public interface R2TransformReadableType
 
   PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> transformMakeMatrix4x4F();
 
+  /**
+   * Write a 4x4 matrix for the current transformation into {@code m}. The
+   * matrix is stored as described by {@link R2TransformMatrices}. This
+   * produces the same matrix as {@link #transformMakeMatrix4x4F()} without
+   * allocating.
+   *
+   * @param m An array of at least 16 elements
+   */
+
+  void transformWriteMatrix4x4F(double[] m);
+
   /**
    * @return The watchable value for this transform
    */
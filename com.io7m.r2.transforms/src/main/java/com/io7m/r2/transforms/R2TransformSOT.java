@@ -39,6 +39,7 @@ import com.io7m.r2.spaces.R2SpaceWorldType;
 
 public final class R2TransformSOT implements R2TransformSOTType
 {
+  private final R2TransformMatrixCache matrix;
   private final R2WatchableType<R2TransformOrthogonalReadableType> watchable;
   private Quaternion4D orientation;
   private PVector3D<R2SpaceWorldType> translation;
@@ -55,6 +56,7 @@ public final class R2TransformSOT implements R2TransformSOTType
       NullCheck.notNull(in_translation, "Scale");
     this.scale = in_scale;
     this.watchable = R2Watchable.newWatchable(this);
+    this.matrix = new R2TransformMatrixCache(this::produceMatrix);
   }
 
   /**
@@ -124,6 +126,7 @@ public final class R2TransformSOT implements R2TransformSOTType
   public void setScale(final double x)
   {
     this.scale = x;
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -131,6 +134,7 @@ public final class R2TransformSOT implements R2TransformSOTType
   public void setOrientation(final Quaternion4D q)
   {
     this.orientation = NullCheck.notNull(q, "Orientation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -138,6 +142,7 @@ public final class R2TransformSOT implements R2TransformSOTType
   public void setTranslation(final PVector3D<R2SpaceWorldType> t)
   {
     this.translation = NullCheck.notNull(t, "Translation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -151,22 +156,32 @@ public final class R2TransformSOT implements R2TransformSOTType
     return this.translation;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>
   transformMakeMatrix4x4F()
   {
-    final PMatrix4x4D<Object, Object> m_trans =
-      PMatrices4x4D.ofTranslation(
-        this.translation.x(), this.translation.y(), this.translation.z());
-    final PMatrix4x4D<Object, Object> m_orient =
-      Quaternions4D.toPMatrix4x4(this.orientation);
-    final PMatrix4x4D<Object, Object> m_scale =
-      PMatrices4x4D.ofScale(this.scale, this.scale, this.scale);
-    return (PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>) (Object)
-      PMatrices4x4D.multiply(
-        PMatrices4x4D.multiply(m_trans, m_orient),
-        m_scale);
+    return this.matrix.matrix();
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    this.matrix.copyTo(m);
+  }
+
+  private void produceMatrix(
+    final double[] m)
+  {
+    R2TransformMatrices.setTranslationOrientationScale(
+      this.translation.x(),
+      this.translation.y(),
+      this.translation.z(),
+      this.orientation,
+      this.scale,
+      this.scale,
+      this.scale,
+      m);
   }
 
   @SuppressWarnings("unchecked")
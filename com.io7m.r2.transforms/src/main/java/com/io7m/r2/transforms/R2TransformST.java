@@ -36,6 +36,7 @@ import com.io7m.r2.spaces.R2SpaceWorldType;
 
 public final class R2TransformST implements R2TransformSTType
 {
+  private final R2TransformMatrixCache matrix;
   private final R2WatchableType<R2TransformOrthogonalReadableType> watchable;
   private PVector3D<R2SpaceWorldType> translation;
   private double scale;
@@ -49,6 +50,7 @@ public final class R2TransformST implements R2TransformSTType
       NullCheck.notNull(in_translation, "Translation");
     this.watchable =
       R2Watchable.newWatchable(this);
+    this.matrix = new R2TransformMatrixCache(this::produceMatrix);
   }
 
   /**
@@ -99,6 +101,7 @@ public final class R2TransformST implements R2TransformSTType
   public void setScale(final double x)
   {
     this.scale = x;
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -116,21 +119,33 @@ public final class R2TransformST implements R2TransformSTType
     final PVector3D<R2SpaceWorldType> t)
   {
     this.translation = NullCheck.notNull(t, "Translation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>
   transformMakeMatrix4x4F()
   {
-    final PMatrix4x4D<Object, Object> m_trans =
-      PMatrices4x4D.ofTranslation(
-        this.translation.x(), this.translation.y(), this.translation.z());
-    final PMatrix4x4D<Object, Object> m_scale =
-      PMatrices4x4D.ofScale(this.scale, this.scale, this.scale);
-    return (PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>) (Object)
-      PMatrices4x4D.multiply(m_trans, m_scale);
+    return this.matrix.matrix();
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    this.matrix.copyTo(m);
+  }
+
+  private void produceMatrix(
+    final double[] m)
+  {
+    R2TransformMatrices.setTranslationScale(
+      this.translation.x(),
+      this.translation.y(),
+      this.translation.z(),
+      this.scale,
+      m);
   }
 
   @Override
@@ -17,7 +17,6 @@
 package com.io7m.r2.transforms;
 
 import com.io7m.jnull.NullCheck;
-import com.io7m.jtensors.core.parameterized.matrices.PMatrices4x4D;
 import com.io7m.jtensors.core.parameterized.matrices.PMatrix4x4D;
 import com.io7m.jtensors.core.parameterized.vectors.PVector3D;
 import com.io7m.jtensors.core.quaternions.Quaternion4D;
@@ -38,6 +37,7 @@ import com.io7m.r2.spaces.R2SpaceWorldType;
 
 public final class R2TransformSiOT implements R2TransformSiOTType
 {
+  private final R2TransformMatrixCache matrix;
   private final R2WatchableType<R2TransformNonOrthogonalReadableType> watchable;
   private Quaternion4D orientation;
   private Vector3D scale;
@@ -56,6 +56,7 @@ public final class R2TransformSiOT implements R2TransformSiOTType
       NullCheck.notNull(in_translation, "Translation");
     this.watchable =
       R2Watchable.newWatchable(this);
+    this.matrix = new R2TransformMatrixCache(this::produceMatrix);
   }
 
   /**
@@ -123,22 +124,32 @@ public final class R2TransformSiOT implements R2TransformSiOTType
     return this.translation;
   }
 
-  @SuppressWarnings("unchecked")
   @Override
   public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>
   transformMakeMatrix4x4F()
   {
-    final PMatrix4x4D<Object, Object> m_trans =
-      PMatrices4x4D.ofTranslation(
-        this.translation.x(), this.translation.y(), this.translation.z());
-    final PMatrix4x4D<Object, Object> m_orient =
-      Quaternions4D.toPMatrix4x4(this.orientation);
-    final PMatrix4x4D<Object, Object> m_scale =
-      PMatrices4x4D.ofScale(this.scale.x(), this.scale.y(), this.scale.z());
-    return (PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType>) (Object)
-      PMatrices4x4D.multiply(
-        PMatrices4x4D.multiply(m_trans, m_orient),
-        m_scale);
+    return this.matrix.matrix();
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    this.matrix.copyTo(m);
+  }
+
+  private void produceMatrix(
+    final double[] m)
+  {
+    R2TransformMatrices.setTranslationOrientationScale(
+      this.translation.x(),
+      this.translation.y(),
+      this.translation.z(),
+      this.orientation,
+      this.scale.x(),
+      this.scale.y(),
+      this.scale.z(),
+      m);
   }
 
   @Override
@@ -166,6 +177,7 @@ public final class R2TransformSiOT implements R2TransformSiOTType
     final Quaternion4D q)
   {
     this.orientation = NullCheck.notNull(q, "Orientation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -174,6 +186,7 @@ public final class R2TransformSiOT implements R2TransformSiOTType
     final Vector3D s)
   {
     this.scale = NullCheck.notNull(s, "Scale");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 
@@ -182,6 +195,7 @@ public final class R2TransformSiOT implements R2TransformSiOTType
     final PVector3D<R2SpaceWorldType> t)
   {
     this.translation = NullCheck.notNull(t, "Translation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 }
@@ -36,6 +36,7 @@ import com.io7m.r2.spaces.R2SpaceWorldType;
 
 public final class R2TransformT implements R2TransformTType
 {
+  private final R2TransformMatrixCache matrix;
   private final R2WatchableType<R2TransformOrthogonalReadableType> watchable;
   private PVector3D<R2SpaceWorldType> translation;
 
@@ -46,6 +47,7 @@ public final class R2TransformT implements R2TransformTType
       NullCheck.notNull(in_translation, "Translation");
     this.watchable =
       R2Watchable.newWatchable(this);
+    this.matrix = new R2TransformMatrixCache(this::produceMatrix);
   }
 
   /**
@@ -89,10 +91,24 @@ public final class R2TransformT implements R2TransformTType
   @Override
   public PMatrix4x4D<R2SpaceObjectType, R2SpaceWorldType> transformMakeMatrix4x4F()
   {
-    return PMatrices4x4D.ofTranslation(
+    return this.matrix.matrix();
+  }
+
+  @Override
+  public void transformWriteMatrix4x4F(
+    final double[] m)
+  {
+    this.matrix.copyTo(m);
+  }
+
+  private void produceMatrix(
+    final double[] m)
+  {
+    R2TransformMatrices.setTranslation(
       this.translation.x(),
       this.translation.y(),
-      this.translation.z());
+      this.translation.z(),
+      m);
   }
 
   @Override
@@ -122,6 +138,7 @@ public final class R2TransformT implements R2TransformTType
     final PVector3D<R2SpaceWorldType> t)
   {
     this.translation = NullCheck.notNull(t, "Translation");
+    this.matrix.invalidate();
     this.watchable.watchableChanged();
   }
 }